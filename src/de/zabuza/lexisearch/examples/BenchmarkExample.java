@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -18,6 +19,7 @@ import de.zabuza.lexisearch.benchmarking.IMeasureSet;
 import de.zabuza.lexisearch.benchmarking.MeasureSet;
 import de.zabuza.lexisearch.benchmarking.PrecisionAtK;
 import de.zabuza.lexisearch.benchmarking.PrecisionAtR;
+import de.zabuza.lexisearch.indexing.EAggregateMode;
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.Posting;
@@ -85,14 +87,6 @@ public final class BenchmarkExample {
    *           If an I/O-Exception occurred
    */
   public static void main(final String[] args) throws IOException {
-    final boolean isWindowsFile = true;
-    final int newLineLength;
-    if (isWindowsFile) {
-      newLineLength = 2;
-    } else {
-      newLineLength = 1;
-    }
-
     final File dataFile;
     final File groundTruthFile;
     if (args.length == 2) {
@@ -112,8 +106,7 @@ public final class BenchmarkExample {
     final boolean useFixLookupFiles = false;
     final DocumentSet documents;
     if (useFixLookupFiles) {
-      documents = DocumentSet.buildLookupsFromFixTextFileUtf8Tab(dataFile,
-          newLineLength);
+      documents = DocumentSet.buildLookupsFromFixTextFileUtf8Tab(dataFile);
     } else {
       documents = DocumentSet.buildFromTextFileUtf8Tab(dataFile);
     }
@@ -132,14 +125,17 @@ public final class BenchmarkExample {
     measures.addMeasure(new PrecisionAtR<>());
     measures.addMeasure(new AveragePrecision<>());
 
-    final Collection<Collection<String>> allKeys =
-        groundTruth.getKeysForRelevantRecords();
+    final List<Collection<String>> allKeys =
+        new ArrayList<>(groundTruth.getKeysForRelevantRecords());
 
     System.out.println("Benchmarking...");
+    final List<List<Posting>> queryResults =
+        keywordQuery.searchBatch(allKeys, EAggregateMode.UNION);
     final Map<IMeasure<String>, LinkedList<Double>> evaluationResults =
         new HashMap<>();
-    for (final Collection<String> keys : allKeys) {
-      final List<Posting> queryResult = keywordQuery.searchOr(keys);
+    for (int i = 0; i < allKeys.size(); i++) {
+      final Collection<String> keys = allKeys.get(i);
+      final List<Posting> queryResult = queryResults.get(i);
       final Map<IMeasure<String>, Double> evaluation =
           measures.evaluateRelevance(keys, queryResult, groundTruth);
 
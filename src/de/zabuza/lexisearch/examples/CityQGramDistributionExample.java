@@ -11,15 +11,15 @@ import java.util.List;
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.Posting;
 import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
-import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.model.city.ColumnarCitySet;
 
 /**
- * Example which demonstrates the usage of {@link CitySet}s,
+ * Example which demonstrates the usage of {@link ColumnarCitySet}s,
  * {@link IInvertedIndex} and {@link QGramProvider}. It accepts a content file
  * in a given format or uses a small sample file. Then it constructs a
- * {@link CitySet} which represents the content and builds a corresponding
- * {@link IInvertedIndex}. After that it lists all q-Grams of the content file
- * sorted by their hits in cities.
+ * {@link ColumnarCitySet} which represents the content and builds a
+ * corresponding {@link IInvertedIndex}. After that it lists all q-Grams of
+ * the content file sorted by their hits in cities.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -40,12 +40,12 @@ public final class CityQGramDistributionExample {
       "res/examples/cities_small.tsv";
 
   /**
-   * Example which demonstrates the usage of {@link CitySet}s,
+   * Example which demonstrates the usage of {@link ColumnarCitySet}s,
    * {@link IInvertedIndex} and {@link QGramProvider}. It accepts a content file
    * in a given format or uses a small sample file. Then it constructs a
-   * {@link CitySet} which represents the content and builds a corresponding
-   * {@link IInvertedIndex}. After that it lists all q-Grams of the content file
-   * sorted by their hits in cities.
+   * {@link ColumnarCitySet} which represents the content and builds a
+   * corresponding {@link IInvertedIndex}. After that it lists all q-Grams of
+   * the content file sorted by their hits in cities.
    * 
    * @param args
    *          The first argument specifies the path to the file to use, else a
@@ -66,8 +66,8 @@ public final class CityQGramDistributionExample {
     System.out.println("Fetching cities...");
     final int qParameter = 3;
     final QGramProvider qGramProvider = new QGramProvider(qParameter);
-    final CitySet cities =
-        CitySet.buildFromTextFileUtf8Tab(file, qGramProvider);
+    final ColumnarCitySet cities =
+        ColumnarCitySet.buildFromTsvFile(file, qGramProvider, false);
 
     System.out.println("Creating inverted index...");
     final long indexBuildStartTime = System.currentTimeMillis();
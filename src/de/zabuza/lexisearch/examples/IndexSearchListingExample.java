@@ -51,14 +51,6 @@ public final class IndexSearchListingExample {
    *           If an I/O-Exception occurred
    */
   public static void main(final String[] args) throws IOException {
-    final boolean isWindowsFile = false;
-    final int newLineLength;
-    if (isWindowsFile) {
-      newLineLength = 2;
-    } else {
-      newLineLength = 1;
-    }
-
     final File file;
     if (args.length == 1) {
       file = new File(args[0]);
@@ -72,8 +64,7 @@ public final class IndexSearchListingExample {
     final boolean useFixLookupFiles = false;
     final DocumentSet documents;
     if (useFixLookupFiles) {
-      documents =
-          DocumentSet.buildLookupsFromFixTextFileUtf8Tab(file, newLineLength);
+      documents = DocumentSet.buildLookupsFromFixTextFileUtf8Tab(file);
     } else {
       documents = DocumentSet.buildFromTextFileUtf8Tab(file);
     }
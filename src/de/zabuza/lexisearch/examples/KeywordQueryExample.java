@@ -61,14 +61,6 @@ public final class KeywordQueryExample {
    *           If an I/O-Exception occurred
    */
   public static void main(final String[] args) throws IOException {
-    final boolean isWindowsFile = true;
-    final int newLineLength;
-    if (isWindowsFile) {
-      newLineLength = 2;
-    } else {
-      newLineLength = 1;
-    }
-
     final File file;
     if (args.length == 1) {
       file = new File(args[0]);
@@ -82,8 +74,7 @@ public final class KeywordQueryExample {
     final boolean useFixLookupFiles = false;
     final DocumentSet documents;
     if (useFixLookupFiles) {
-      documents =
-          DocumentSet.buildLookupsFromFixTextFileUtf8Tab(file, newLineLength);
+      documents = DocumentSet.buildLookupsFromFixTextFileUtf8Tab(file);
     } else {
       documents = DocumentSet.buildFromTextFileUtf8Tab(file);
     }
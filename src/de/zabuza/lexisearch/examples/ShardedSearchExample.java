@@ -0,0 +1,204 @@
+package de.zabuza.lexisearch.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.model.document.IDocument;
+import de.zabuza.lexisearch.sharding.EShardPartitioning;
+import de.zabuza.lexisearch.sharding.IShard;
+import de.zabuza.lexisearch.sharding.LocalShard;
+import de.zabuza.lexisearch.sharding.RemoteShard;
+import de.zabuza.lexisearch.sharding.ShardCoordinator;
+import de.zabuza.lexisearch.sharding.ShardPartitioner;
+import de.zabuza.lexisearch.sharding.ShardServer;
+
+/**
+ * Example which demonstrates the usage of {@link ShardCoordinator}. It
+ * partitions the documents of a content file into shards and searches them
+ * by scatter-gather, like {@link KeywordQueryExample} searches a single
+ * index.<br/>
+ * <br/>
+ * The shards run in-process by default. To run them as separate processes on
+ * one machine, start one process per shard with
+ * <tt>serve {@literal <file> <shard> <amountOfShards> <port>}</tt> and then
+ * the coordinator with
+ * <tt>query {@literal <file> <port> <port> ...}</tt>. The coordinator only
+ * reads the file to display the found documents.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardedSearchExample {
+
+  /**
+   * The default amount of shards used in-process.
+   */
+  private static final int DEFAULT_AMOUNT_OF_SHARDS = 4;
+  /**
+   * The host shard servers are reached at.
+   */
+  private static final String HOST = "localhost";
+  /**
+   * Text used to separate keywords.
+   */
+  private static final String KEYWORD_SEPARATOR = " ";
+  /**
+   * The maximal amount of results shown per query.
+   */
+  private static final int MAXIMAL_RESULTS = 3;
+  /**
+   * Message shown when using the {@link #main(String[])} with the wrong
+   * arguments.
+   */
+  private static final String MSG_WRONG_ARGUMENTS = "Wrong arguments.";
+  /**
+   * Path to the default sample file.
+   */
+  private static final String PATH_DEFAULT_EXAMPLE_FILE =
+      "res/examples/movies.txt";
+  /**
+   * Argument which starts the coordinator of shard server processes.
+   */
+  private static final String QUERY_ARGUMENT = "query";
+  /**
+   * Argument which starts a shard server process.
+   */
+  private static final String SERVE_ARGUMENT = "serve";
+
+  /**
+   * Example which demonstrates the usage of {@link ShardCoordinator}. Without
+   * arguments it searches the default sample file in-process. A single
+   * argument specifies the path to the file. The arguments
+   * <tt>serve {@literal <file> <shard> <amountOfShards> <port>}</tt> start a
+   * shard server and <tt>query {@literal <file> <port> <port> ...}</tt> a
+   * coordinator over shard servers.
+   * 
+   * @param args
+   *          The arguments as described
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  public static void main(final String[] args) throws IOException {
+    if (args.length == 5 && args[0].equals(SERVE_ARGUMENT)) {
+      serve(new File(args[1]), Integer.parseInt(args[2]),
+          Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+      return;
+    }
+
+    final File file;
+    final ShardCoordinator coordinator;
+    if (args.length >= 3 && args[0].equals(QUERY_ARGUMENT)) {
+      file = new File(args[1]);
+      System.out.println("Connecting to shards...");
+      final ArrayList<IShard> shards = new ArrayList<>();
+      for (int i = 2; i < args.length; i++) {
+        shards.add(new RemoteShard(HOST, Integer.parseInt(args[i])));
+      }
+      coordinator = new ShardCoordinator(shards);
+    } else if (args.length <= 1) {
+      if (args.length == 1) {
+        file = new File(args[0]);
+      } else {
+        file = new File(PATH_DEFAULT_EXAMPLE_FILE);
+      }
+      System.out.println("Creating shards...");
+      coordinator = ShardCoordinator.createInProcess(
+          DocumentSet.buildFromTextFileUtf8Tab(file), new ShardPartitioner(
+              EShardPartitioning.HASH, DEFAULT_AMOUNT_OF_SHARDS));
+    } else {
+      throw new IllegalArgumentException(MSG_WRONG_ARGUMENTS);
+    }
+
+    try {
+      final DocumentSet documents = DocumentSet.buildFromTextFileUtf8Tab(file);
+      System.out.println("Searching " + coordinator.getShards().size()
+          + " shards with " + coordinator.getCollectionStatistics()
+              .getAmountOfRecords()
+          + " documents.");
+      runQueryService(coordinator, documents);
+    } finally {
+      coordinator.close();
+    }
+    System.out.println("Terminated.");
+  }
+
+  /**
+   * Lets the user type in keywords and lists the best documents containing
+   * any of them, until an empty text is typed.
+   * 
+   * @param coordinator
+   *          The coordinator to search with
+   * @param documents
+   *          The documents to display results of
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with a shard
+   */
+  private static void runQueryService(final ShardCoordinator coordinator,
+      final DocumentSet documents) throws IOException {
+    boolean stopService = false;
+    try (final Scanner scanner = new Scanner(System.in)) {
+      while (!stopService) {
+        System.out.println(">Type your query. Type an empty text to stop.");
+        final String query = scanner.nextLine().toLowerCase();
+
+        if (query.trim().isEmpty()) {
+          stopService = true;
+        } else {
+          final List<String> keywords =
+              Arrays.asList(query.split(KEYWORD_SEPARATOR));
+          final List<Posting> queryResults =
+              coordinator.searchOr(keywords, MAXIMAL_RESULTS);
+          System.out.println("Best postings are: " + queryResults);
+          for (final Posting posting : queryResults) {
+            final IDocument document =
+                (IDocument) documents.getKeyRecordById(posting.getId());
+            System.out.println(
+                "\t" + document.getName() + "\t" + document.getDescription());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Serves a shard of the documents of the given file until the process is
+   * terminated.
+   * 
+   * @param file
+   *          The file holding the documents
+   * @param shard
+   *          The index of the shard to serve
+   * @param amountOfShards
+   *          The amount of shards the documents are partitioned into
+   * @param port
+   *          The port to listen at
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static void serve(final File file, final int shard,
+      final int amountOfShards, final int port) throws IOException {
+    System.out.println("Creating shard " + shard + "...");
+    final List<IKeyRecordSet<IKeyRecord<String>, String>> partitions =
+        new ShardPartitioner(EShardPartitioning.HASH, amountOfShards)
+            .partition(DocumentSet.buildFromTextFileUtf8Tab(file));
+    final ShardServer server =
+        new ShardServer(new LocalShard<>(partitions.get(shard)), port);
+    server.start();
+    System.out.println("Serving shard on port " + server.getPort() + " ...");
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private ShardedSearchExample() {
+
+  }
+}
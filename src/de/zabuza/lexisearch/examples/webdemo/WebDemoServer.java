@@ -13,26 +13,50 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import de.zabuza.lexisearch.indexing.GeoGridIndex;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IInvertedList;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IngestionPipeline;
 import de.zabuza.lexisearch.indexing.Posting;
 import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
 import de.zabuza.lexisearch.model.city.City;
 import de.zabuza.lexisearch.model.city.CitySet;
 import de.zabuza.lexisearch.queries.FuzzyPrefixQuery;
+import de.zabuza.lexisearch.queries.IQuery;
+import de.zabuza.lexisearch.queries.QueryBudget;
+import de.zabuza.lexisearch.queries.QueryContext;
+import de.zabuza.lexisearch.queries.caching.CachedQuery;
+import de.zabuza.lexisearch.ranking.GeoBiasedRanking;
 import de.zabuza.lexisearch.ranking.PostingBeforeRecordRanking;
+import de.zabuza.lexisearch.snapshot.EngineSnapshot;
 
 /**
  * Demo application which shows how the API can be used as the server of a web
- * application which solves fuzzy prefix search queries.
+ * application which solves fuzzy prefix search queries.<br/>
+ * <br/>
+ * The searchable state is kept in an {@link EngineSnapshot} next to the data
+ * file. On startup the snapshot gets restored if it is compatible with the
+ * data file, otherwise the state is built from the data file and a new
+ * snapshot is written.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
 public final class WebDemoServer {
+  /**
+   * The maximal amount of memory the query result cache may use in bytes.
+   */
+  private static final long DEFAULT_CACHE_SIZE = 16L * 1024 * 1024;
   /**
    * Path to the data file.
    */
@@ -83,10 +107,29 @@ public final class WebDemoServer {
    * Text used in Java-Script to indicate the end of an array.
    */
   private static final String JS_ARRAY_END = "]";
+  /**
+   * The HTTP GET-parameter that contains the latitude to bias results
+   * towards.
+   */
+  private static final String LATITUDE_GET_REQUEST = "lat=";
+  /**
+   * The HTTP GET-parameter that contains the longitude to bias results
+   * towards.
+   */
+  private static final String LONGITUDE_GET_REQUEST = "lon=";
+  /**
+   * The amount of postings after which the index gets flushed to a segment
+   * while the cities are loaded.
+   */
+  private static final int MAXIMAL_SEGMENT_POSTINGS = 4_000_000;
   /**
    * The maximal amount of query matches to return.
    */
   private static final int MAX_AMOUNT_QUERY_MATCHES = 10;
+  /**
+   * The name of the file the index segments get merged into.
+   */
+  private static final String MERGED_SEGMENT_FILE = "merged.idx";
   /**
    * Message shown when using the {@link #main(String[])} with the wrong amount
    * of arguments.
@@ -99,10 +142,32 @@ public final class WebDemoServer {
    * The keyword which every ordinary GET request begins with.
    */
   private static final String ORDINARY_GET_REQUEST = "GET";
+  /**
+   * The budget of a single query. It bounds the time a pathological query can
+   * block the server for all other clients, such queries answer with a
+   * truncated result instead.
+   */
+  private static final QueryBudget QUERY_BUDGET =
+      new QueryBudget(50_000, 5_000_000, 100, TimeUnit.MILLISECONDS);
   /**
    * The HTTP GET-parameter that contains the request data.
    */
   private static final String QUERY_GET_REQUEST = "q=";
+  /**
+   * The HTTP GET-parameter that contains the radius in kilometers around the
+   * given location in which results must lie.
+   */
+  private static final String RADIUS_GET_REQUEST = "radius=";
+  /**
+   * The prefix of the name of the temporary directory which holds the index
+   * segments while the cities are loaded.
+   */
+  private static final String SEGMENT_DIRECTORY_PREFIX = "lexisearch-segments";
+  /**
+   * The suffix which is appended to the path of the data file to get the path
+   * of its snapshot.
+   */
+  private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
   /**
    * The charset to use for encoding and decoding text.
    */
@@ -147,6 +212,34 @@ public final class WebDemoServer {
     server.runService();
   }
 
+  /**
+   * Extracts the value of the given HTTP GET-parameter from the given
+   * request.
+   * 
+   * @param request
+   *          The request to extract the value from
+   * @param parameter
+   *          The parameter to extract, including the assignment character
+   * @return The value of the parameter or <tt>null</tt> if the request does
+   *         not contain it or is malformed
+   */
+  private static String extractGetParameter(final String request,
+      final String parameter) {
+    final int requestDataBeginIndex = request.indexOf(parameter);
+    if (requestDataBeginIndex < 0) {
+      return null;
+    }
+    final int valueBeginIndex = requestDataBeginIndex + parameter.length();
+    int valueEndIndex = request.indexOf(GET_SEPARATOR, valueBeginIndex);
+    if (valueEndIndex < 0) {
+      valueEndIndex = request.indexOf(GET_REQUEST_END, valueBeginIndex);
+      if (valueEndIndex < 0) {
+        return null;
+      }
+    }
+    return request.substring(valueBeginIndex, valueEndIndex);
+  }
+
   /**
    * Gets the file extension of the given file.
    * 
@@ -185,6 +278,77 @@ public final class WebDemoServer {
     }
   }
 
+  /**
+   * Loads the cities of the given data file into the given set while an
+   * {@link IngestionPipeline} builds their q-gram index. Whenever the index
+   * grows too large it is flushed as segment to a temporary directory, the
+   * segments get merged on disk and are deleted afterwards.
+   * 
+   * @param dataFile
+   *          The file holding the cities as tab separated values
+   * @param provider
+   *          The q-gram provider to use
+   * @param cities
+   *          The set to add the cities to
+   * @return The q-gram index of the cities
+   * @throws IOException
+   *           If an I/O-exception occurred
+   */
+  private static IInvertedIndex<String> ingestCities(final File dataFile,
+      final QGramProvider provider, final CitySet cities) throws IOException {
+    final Path segmentDirectory =
+        Files.createTempDirectory(SEGMENT_DIRECTORY_PREFIX);
+    try {
+      final IngestionPipeline<City> pipeline = new IngestionPipeline<>(
+          CitySet.createTsvRowParser(provider, cities.getTermDictionary()),
+          segmentDirectory, MAXIMAL_SEGMENT_POSTINGS);
+      return pipeline.ingest(dataFile.toPath(), cities::add)
+          .createInvertedIndex(segmentDirectory.resolve(MERGED_SEGMENT_FILE));
+    } finally {
+      final List<Path> segmentFiles;
+      try (final Stream<Path> files = Files.list(segmentDirectory)) {
+        segmentFiles = files.collect(Collectors.toList());
+      }
+      for (final Path segmentFile : segmentFiles) {
+        Files.delete(segmentFile);
+      }
+      Files.delete(segmentDirectory);
+    }
+  }
+
+  /**
+   * Restores the snapshot of the given data file, if it exists and is
+   * compatible with the data file and the q-gram provider.
+   * 
+   * @param snapshotFile
+   *          The file holding the snapshot
+   * @param dataFile
+   *          The data file the snapshot must represent
+   * @param provider
+   *          The q-gram provider the snapshot must have been taken with
+   * @return The restored snapshot or <tt>null</tt> if there is no usable
+   *         snapshot
+   */
+  private static EngineSnapshot loadSnapshot(final File snapshotFile,
+      final File dataFile, final QGramProvider provider) {
+    if (!snapshotFile.exists()) {
+      return null;
+    }
+    System.out.println("\tLoading snapshot...");
+    final EngineSnapshot snapshot;
+    try {
+      snapshot = EngineSnapshot.buildFromFile(snapshotFile);
+    } catch (final IOException e) {
+      System.out.println("\tSnapshot is not usable: " + e.getMessage());
+      return null;
+    }
+    if (!snapshot.isCompatibleWith(dataFile, provider)) {
+      System.out.println("\tSnapshot is outdated.");
+      return null;
+    }
+    return snapshot;
+  }
+
   /**
    * Sends the given answer with the given parameters to the given client by
    * using the HTTP/1.0 protocol.
@@ -321,15 +485,26 @@ public final class WebDemoServer {
    * included in this one must not get served.
    */
   private final Path mFileServingPath;
+  /**
+   * Object to use for performing location-aware queries, it is not cached as
+   * the results depend on the location.
+   */
+  private final FuzzyPrefixQuery<IKeyRecord<String>> mFuzzyQuery;
+  /**
+   * Ranking which biases results towards a location. Queries use it with the
+   * location of their request as focus.
+   */
+  private final GeoBiasedRanking<String> mGeoRanking;
   /**
    * The port to listen at.
    */
   private final int mPort;
 
   /**
-   * Object to use for performing the fuzzy prefix search queries.
+   * Object to use for performing the fuzzy prefix search queries. Results are
+   * served from a cache if possible.
    */
-  private final FuzzyPrefixQuery<IKeyRecord<String>> mQuery;
+  private final IQuery<String> mQuery;
 
   /**
    * The ID of the current request the server is processing.
@@ -363,19 +538,50 @@ public final class WebDemoServer {
     this.mFileServingPath = Paths.get(serverPath).toAbsolutePath();
 
     System.out.println("Initializing service...");
-    // Loading data from file
-    System.out.println("\tLoading file...");
-    // Creating data structure
-    System.out.println("\tFetching cities...");
     final int qParameter = 3;
     final QGramProvider qGramProvider = new QGramProvider(qParameter);
-    this.mCities = CitySet.buildFromTextFileUtf8Tab(dataFile, qGramProvider);
-
-    // Creating fuzzy prefix query and ranking
-    System.out.println("\tCreating fuzzy prefix query and ranking...");
-    final PostingBeforeRecordRanking<String> ranking =
-        new PostingBeforeRecordRanking<>();
-    this.mQuery = new FuzzyPrefixQuery<>(this.mCities, qGramProvider, ranking);
+    final File snapshotFile =
+        new File(dataFile.getPath() + SNAPSHOT_FILE_SUFFIX);
+    final EngineSnapshot snapshot =
+        loadSnapshot(snapshotFile, dataFile, qGramProvider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> fuzzyQuery;
+    if (snapshot != null) {
+      // Restoring data structure and fuzzy prefix query from the snapshot
+      System.out.println("\tRestoring fuzzy prefix query and ranking...");
+      this.mCities = snapshot.getCities();
+      fuzzyQuery = snapshot.createQuery();
+    } else {
+      // Loading data from file, the index is built while cities arrive
+      System.out.println("\tLoading file...");
+      System.out.println("\tFetching and indexing cities...");
+      this.mCities = new CitySet();
+      final IInvertedIndex<String> invertedIndex =
+          ingestCities(dataFile, qGramProvider, this.mCities);
+
+      // Creating fuzzy prefix query and ranking
+      System.out.println("\tCreating fuzzy prefix query and ranking...");
+      fuzzyQuery = new FuzzyPrefixQuery<>(invertedIndex, this.mCities,
+          qGramProvider, new PostingBeforeRecordRanking<>());
+
+      // Writing a snapshot for the next start, the service works without it
+      System.out.println("\tWriting snapshot...");
+      try {
+        new EngineSnapshot(dataFile, this.mCities, qGramProvider, fuzzyQuery)
+            .writeToFile(snapshotFile);
+      } catch (final IOException e) {
+        System.out.println("\tCould not write snapshot: " + e.getMessage());
+      }
+    }
+    this.mFuzzyQuery = fuzzyQuery;
+    this.mQuery = new CachedQuery<>(fuzzyQuery, DEFAULT_CACHE_SIZE,
+        MAX_AMOUNT_QUERY_MATCHES, QGramProvider::normalizeRecord);
+
+    // Creating spatial index and geo-biased ranking
+    System.out.println("\tCreating spatial index...");
+    final GeoGridIndex geoIndex = new GeoGridIndex(this.mCities);
+    this.mGeoRanking = new GeoBiasedRanking<>(geoIndex, 0.0, 0.0);
+    this.mGeoRanking.takeSnapshot(fuzzyQuery.getInvertedIndex(),
+        this.mCities);
   }
 
   /**
@@ -433,6 +639,55 @@ public final class WebDemoServer {
     }
   }
 
+  /**
+   * Searches the given keyword like the cached query does, but ranks the
+   * results by their distance to the given location too. If a radius is
+   * given, only the records within the radius around the location remain.
+   * They are taken from the spatial index and restrict the fuzzy candidates,
+   * thus no prefix edit distance is computed for records outside.
+   * 
+   * @param keyword
+   *          The keyword to search for
+   * @param latitude
+   *          The latitude of the location in degrees
+   * @param longitude
+   *          The longitude of the location in degrees
+   * @param radius
+   *          The radius in kilometers or {@link Double#POSITIVE_INFINITY} if
+   *          results may lie anywhere
+   * @param context
+   *          The context to use for this invocation
+   * @return A list containing the best ranked records matching the keyword
+   */
+  private List<Posting> searchNearby(final String keyword,
+      final double latitude, final double longitude, final double radius,
+      final QueryContext context) {
+    final BitSet recordsWithinRadius;
+    if (radius == Double.POSITIVE_INFINITY) {
+      recordsWithinRadius = null;
+    } else {
+      recordsWithinRadius = this.mGeoRanking.getGeoIndex()
+          .searchRadius(latitude, longitude, radius);
+    }
+
+    // Records outside of the circle are dropped before their verification
+    final IInvertedList records;
+    if (recordsWithinRadius == null) {
+      records = this.mFuzzyQuery.getRecords(keyword, context);
+    } else {
+      records =
+          this.mFuzzyQuery.getRecords(keyword, recordsWithinRadius, context);
+    }
+    final ArrayList<Posting> matches = new ArrayList<>();
+    for (final Posting posting : records.getPostings()) {
+      matches.add(new Posting(posting.getId(), posting.getTermFrequency(),
+          posting.getScore()));
+    }
+    this.mGeoRanking.withFocus(latitude, longitude)
+        .sortTopPostingsByRank(matches, MAX_AMOUNT_QUERY_MATCHES);
+    return matches;
+  }
+
   /**
    * Sends an error answer with the given status to the given client by using
    * the HTTP/1.0 protocol.
@@ -576,20 +831,16 @@ public final class WebDemoServer {
   private void serveQueryGetRequest(final String request, final Socket client)
       throws IOException {
     // Extract request data
-    final int requestDataBeginIndex =
-        request.indexOf(QUERY_GET_REQUEST) + QUERY_GET_REQUEST.length();
-    int requestDataEndIndex =
-        request.indexOf(GET_SEPARATOR, requestDataBeginIndex);
-    if (requestDataEndIndex < 0) {
-      requestDataEndIndex =
-          request.indexOf(GET_REQUEST_END, requestDataBeginIndex);
-      if (requestDataEndIndex < 0) {
-        sendError(EHttpStatus.BAD_REQUEST, client);
-        return;
-      }
+    final String requestData = extractGetParameter(request, QUERY_GET_REQUEST);
+    if (requestData == null) {
+      sendError(EHttpStatus.BAD_REQUEST, client);
+      return;
     }
-    final String requestData =
-        request.substring(requestDataBeginIndex, requestDataEndIndex);
+    final String latitudeData =
+        extractGetParameter(request, LATITUDE_GET_REQUEST);
+    final String longitudeData =
+        extractGetParameter(request, LONGITUDE_GET_REQUEST);
+    final String radiusData = extractGetParameter(request, RADIUS_GET_REQUEST);
 
     // Parse request data
     final String searchKeyword =
@@ -602,7 +853,34 @@ public final class WebDemoServer {
     // Perform the query
     final LinkedList<String> keywords = new LinkedList<>();
     keywords.add(searchKeyword);
-    final List<Posting> matches = this.mQuery.searchOr(keywords);
+    final QueryContext context = new QueryContext(QUERY_BUDGET);
+    final List<Posting> matches;
+    if (latitudeData != null && longitudeData != null) {
+      // Location-aware search, results near the location come first
+      final double latitude;
+      final double longitude;
+      final double radius;
+      try {
+        latitude = Double.parseDouble(latitudeData.trim());
+        longitude = Double.parseDouble(longitudeData.trim());
+        if (radiusData != null) {
+          radius = Double.parseDouble(radiusData.trim());
+        } else {
+          radius = Double.POSITIVE_INFINITY;
+        }
+      } catch (final NumberFormatException e) {
+        sendError(EHttpStatus.BAD_REQUEST, client);
+        return;
+      }
+      if (!(radius >= 0.0)) {
+        sendError(EHttpStatus.BAD_REQUEST, client);
+        return;
+      }
+      matches =
+          searchNearby(searchKeyword, latitude, longitude, radius, context);
+    } else {
+      matches = this.mQuery.searchOr(keywords, context);
+    }
 
     // Send an answer
     if (!matches.isEmpty()) {
@@ -636,7 +914,8 @@ public final class WebDemoServer {
       // a callback function
       final String jsonp = FNC_QUERY_CALLBACK + "({" + textWrapper + "matches"
           + textWrapper + ": " + JS_ARRAY_BEGIN + matchesArray.toString()
-          + JS_ARRAY_END + "})";
+          + JS_ARRAY_END + JS_ARRAY_DELIMITER + textWrapper + "truncated"
+          + textWrapper + ": " + context.isTruncated() + "})";
       // Send the answer
       sendHttpAnswer(jsonp, EHttpContentType.TEXT, EHttpStatus.OK, client);
     } else {
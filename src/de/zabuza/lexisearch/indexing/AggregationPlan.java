@@ -0,0 +1,168 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Plan on how to aggregate given {@link IInvertedList}s, created by
+ * {@link AggregationPlanner}. It holds the chosen
+ * {@link EAggregateStrategy}, the order of the operands and the estimated
+ * costs of all considered strategies. The plan can be inspected with
+ * {@link #explain()} and evaluated with {@link #execute()}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class AggregationPlan {
+  /**
+   * The estimated costs of all considered strategies.
+   */
+  private final Map<EAggregateStrategy, Long> mConsideredCosts;
+  /**
+   * The aggregation mode of this plan.
+   */
+  private final EAggregateMode mMode;
+  /**
+   * The lists to aggregate, in the order they are processed.
+   */
+  private final List<IInvertedList> mOperands;
+  /**
+   * The chosen strategy.
+   */
+  private final EAggregateStrategy mStrategy;
+
+  /**
+   * Creates a new plan which aggregates the given lists.
+   * 
+   * @param mode
+   *          The aggregation mode of the plan
+   * @param strategy
+   *          The strategy to use
+   * @param operands
+   *          The lists to aggregate, in the order they are processed
+   * @param consideredCosts
+   *          The estimated costs of all considered strategies, containing the
+   *          chosen strategy unless it is trivial
+   */
+  AggregationPlan(final EAggregateMode mode,
+      final EAggregateStrategy strategy, final List<IInvertedList> operands,
+      final Map<EAggregateStrategy, Long> consideredCosts) {
+    this.mMode = mode;
+    this.mStrategy = strategy;
+    this.mOperands = operands;
+    this.mConsideredCosts = consideredCosts;
+  }
+
+  /**
+   * Executes this plan.
+   * 
+   * @return A list containing the aggregated data of the operands. If the
+   *         strategy is {@link EAggregateStrategy#SINGLE} it is the operand
+   *         itself.
+   */
+  public IInvertedList execute() {
+    if (this.mStrategy == EAggregateStrategy.EMPTY) {
+      return new PlainInvertedList();
+    } else if (this.mStrategy == EAggregateStrategy.SINGLE) {
+      return this.mOperands.get(0);
+    } else if (this.mStrategy == EAggregateStrategy.LINEAR_MERGE) {
+      if (this.mMode == EAggregateMode.INTERSECT) {
+        return AggregationPlanner.mergeIntersect(this.mOperands);
+      }
+      return IInvertedList.union(this.mOperands);
+    } else if (this.mStrategy == EAggregateStrategy.PROBE) {
+      return AggregationPlanner.probeIntersect(this.mOperands);
+    } else if (this.mStrategy == EAggregateStrategy.BITMAP) {
+      return AggregationPlanner.bitmapIntersect(this.mOperands);
+    } else if (this.mStrategy == EAggregateStrategy.SCAN_COUNT) {
+      return AggregationPlanner.scanCountUnion(this.mOperands);
+    } else {
+      throw new AssertionError();
+    }
+  }
+
+  /**
+   * Gets a human readable description of this plan, containing the chosen
+   * strategy, the sizes of the operands in the order they are processed and
+   * the estimated costs of all considered strategies.
+   * 
+   * @return A human readable description of this plan
+   */
+  public String explain() {
+    final StringBuilder description = new StringBuilder();
+    description.append(this.mMode).append(" using ").append(this.mStrategy);
+    description.append(", operand sizes [");
+    for (int i = 0; i < this.mOperands.size(); i++) {
+      if (i != 0) {
+        description.append(", ");
+      }
+      description.append(this.mOperands.get(i).getSize());
+    }
+    description.append(']');
+    if (!this.mConsideredCosts.isEmpty()) {
+      description.append(", estimated costs {");
+      boolean isFirst = true;
+      for (final Entry<EAggregateStrategy, Long> entry : this.mConsideredCosts
+          .entrySet()) {
+        if (!isFirst) {
+          description.append(", ");
+        }
+        isFirst = false;
+        description.append(entry.getKey()).append('=')
+            .append(entry.getValue());
+      }
+      description.append('}');
+    }
+    return description.toString();
+  }
+
+  /**
+   * Gets the estimated costs of all considered strategies. Trivial strategies
+   * like {@link EAggregateStrategy#EMPTY} are chosen without estimating costs.
+   * 
+   * @return An unmodifiable map containing the estimated costs of all
+   *         considered strategies
+   */
+  public Map<EAggregateStrategy, Long> getConsideredCosts() {
+    return Collections.unmodifiableMap(this.mConsideredCosts);
+  }
+
+  /**
+   * Gets the aggregation mode of this plan.
+   * 
+   * @return The aggregation mode of this plan
+   */
+  public EAggregateMode getMode() {
+    return this.mMode;
+  }
+
+  /**
+   * Gets the lists to aggregate, in the order they are processed.
+   * 
+   * @return An unmodifiable list containing the lists to aggregate
+   */
+  public List<IInvertedList> getOperands() {
+    return Collections.unmodifiableList(this.mOperands);
+  }
+
+  /**
+   * Gets the chosen strategy.
+   * 
+   * @return The chosen strategy
+   */
+  public EAggregateStrategy getStrategy() {
+    return this.mStrategy;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return explain();
+  }
+}
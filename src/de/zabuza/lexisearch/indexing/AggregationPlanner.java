@@ -0,0 +1,440 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Utility class which plans how to aggregate {@link IInvertedList}s. Based on
+ * the sizes and the id ranges of the lists it estimates the costs of each
+ * applicable {@link EAggregateStrategy} and chooses the cheapest one. The
+ * lists get ordered ascending in their size, intersections which are known to
+ * be empty are not evaluated at all.<br/>
+ * <br/>
+ * The costs are coarse estimates in units of processing one posting by a
+ * sequential scan. They are only meant to compare the strategies with each
+ * other.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class AggregationPlanner {
+  /**
+   * The estimated cost of setting the bit of a posting in a bitmap.
+   */
+  private static final long BITMAP_COST_PER_POSTING = 1;
+  /**
+   * The amount of ids one word of a bitmap holds.
+   */
+  private static final int IDS_PER_WORD = Long.SIZE;
+  /**
+   * The greatest range of ids for which dense strategies, like bitmaps, are
+   * considered. Greater ranges would need too much memory.
+   */
+  private static final long MAXIMAL_DENSE_RANGE = 1 << 22;
+  /**
+   * The estimated cost of processing a posting in a linear merge, it involves
+   * comparisons and unpredictable branches.
+   */
+  private static final long MERGE_COST_PER_POSTING = 2;
+  /**
+   * The estimated cost of probing a list for a record by its id.
+   */
+  private static final long PROBE_COST = 4;
+  /**
+   * The estimated cost of accumulating a posting in the arrays of a scan
+   * count.
+   */
+  private static final long SCAN_COUNT_COST_PER_POSTING = 1;
+
+  /**
+   * Plans how to aggregate the given lists by the given aggregation mode.
+   * 
+   * @param lists
+   *          Lists to aggregate, they are only read
+   * @param mode
+   *          Aggregation mode to use
+   * @return The plan with the cheapest estimated strategy
+   */
+  public static AggregationPlan plan(final Collection<IInvertedList> lists,
+      final EAggregateMode mode) {
+    final ArrayList<IInvertedList> operands = new ArrayList<>(lists);
+    final EnumMap<EAggregateStrategy, Long> costs =
+        new EnumMap<>(EAggregateStrategy.class);
+    if (mode == EAggregateMode.UNION) {
+      // Empty lists do not contribute to an union
+      operands.removeIf(IInvertedList::isEmpty);
+    } else if (mode != EAggregateMode.INTERSECT) {
+      throw new AssertionError();
+    }
+    // Process small lists first, they drive and bound intersections
+    operands.sort(Comparator.comparingInt(IInvertedList::getSize));
+
+    if (operands.isEmpty() || operands.get(0).isEmpty()) {
+      return new AggregationPlan(mode, EAggregateStrategy.EMPTY, operands,
+          costs);
+    }
+    final int amountOfOperands = operands.size();
+    if (amountOfOperands == 1) {
+      return new AggregationPlan(mode, EAggregateStrategy.SINGLE, operands,
+          costs);
+    }
+
+    long totalSize = 0;
+    for (final IInvertedList list : operands) {
+      totalSize += list.getSize();
+    }
+
+    if (mode == EAggregateMode.INTERSECT) {
+      final long range = getCommonRange(operands);
+      if (range <= 0) {
+        // The id ranges do not overlap, the intersection is empty
+        return new AggregationPlan(mode, EAggregateStrategy.EMPTY, operands,
+            costs);
+      }
+      final long smallestSize = operands.get(0).getSize();
+      costs.put(EAggregateStrategy.LINEAR_MERGE,
+          Long.valueOf(totalSize * MERGE_COST_PER_POSTING));
+      costs.put(EAggregateStrategy.PROBE, Long.valueOf(
+          smallestSize + smallestSize * (amountOfOperands - 1) * PROBE_COST));
+      if (range <= MAXIMAL_DENSE_RANGE) {
+        costs.put(EAggregateStrategy.BITMAP,
+            Long.valueOf(totalSize * BITMAP_COST_PER_POSTING
+                + amountOfOperands * getAmountOfWords(range)));
+      }
+    } else {
+      // The heap of the merge has a logarithmic depth
+      final int heapDepth =
+          Integer.SIZE - Integer.numberOfLeadingZeros(amountOfOperands - 1);
+      costs.put(EAggregateStrategy.LINEAR_MERGE,
+          Long.valueOf(totalSize * MERGE_COST_PER_POSTING * heapDepth));
+      final long range = getTotalRange(operands);
+      if (range <= MAXIMAL_DENSE_RANGE) {
+        costs.put(EAggregateStrategy.SCAN_COUNT,
+            Long.valueOf(totalSize * SCAN_COUNT_COST_PER_POSTING + range));
+      }
+    }
+
+    EAggregateStrategy cheapestStrategy = null;
+    long cheapestCost = Long.MAX_VALUE;
+    for (final Entry<EAggregateStrategy, Long> entry : costs.entrySet()) {
+      if (entry.getValue().longValue() < cheapestCost) {
+        cheapestCost = entry.getValue().longValue();
+        cheapestStrategy = entry.getKey();
+      }
+    }
+    return new AggregationPlan(mode, cheapestStrategy, operands, costs);
+  }
+
+  /**
+   * Intersects the given lists by using bitmaps over their common id range.
+   * Evaluation stops as soon as the bitmap gets empty.
+   * 
+   * @param operands
+   *          Non-empty lists to intersect
+   * @return A list containing the data that all of the given lists have in
+   *         common
+   */
+  static IInvertedList bitmapIntersect(final List<IInvertedList> operands) {
+    // It is absolutely necessary that the insertion order into this list is
+    // sorted, as the plain list itself does not sort its elements.
+    final IInvertedList resultingList = new PlainInvertedList();
+    final long range = getCommonRange(operands);
+    if (range <= 0) {
+      return resultingList;
+    }
+    int firstId = Integer.MIN_VALUE;
+    for (final IInvertedList list : operands) {
+      firstId = Math.max(firstId, list.getFirstId());
+    }
+    final int lastId = (int) (firstId + range - 1);
+
+    final int amountOfWords = getAmountOfWords(range);
+    final long[] bitmap = new long[amountOfWords];
+    final long[] otherBitmap = new long[amountOfWords];
+    fillBitmap(operands.get(0), bitmap, firstId, lastId);
+    for (int i = 1; i < operands.size(); i++) {
+      Arrays.fill(otherBitmap, 0L);
+      fillBitmap(operands.get(i), otherBitmap, firstId, lastId);
+      boolean isEmpty = true;
+      for (int j = 0; j < amountOfWords; j++) {
+        bitmap[j] &= otherBitmap[j];
+        if (bitmap[j] != 0) {
+          isEmpty = false;
+        }
+      }
+      if (isEmpty) {
+        return resultingList;
+      }
+    }
+
+    // Collect the remaining records in ascending order
+    for (int i = 0; i < amountOfWords; i++) {
+      long word = bitmap[i];
+      while (word != 0) {
+        final int recordId =
+            firstId + i * IDS_PER_WORD + Long.numberOfTrailingZeros(word);
+        addAggregatedPosting(resultingList, operands, recordId);
+        // Clear the lowest set bit
+        word &= word - 1;
+      }
+    }
+    return resultingList;
+  }
+
+  /**
+   * Intersects the given lists by iterating them in lockstep. Evaluation stops
+   * as soon as one list is exhausted.
+   * 
+   * @param operands
+   *          Lists to intersect
+   * @return A list containing the data that all of the given lists have in
+   *         common
+   */
+  static IInvertedList mergeIntersect(final List<IInvertedList> operands) {
+    // It is absolutely necessary that the insertion order into this list is
+    // sorted, as the plain list itself does not sort its elements.
+    final IInvertedList resultingList = new PlainInvertedList();
+    final int amountOfOperands = operands.size();
+
+    final ArrayList<Iterator<Posting>> iterators =
+        new ArrayList<>(amountOfOperands);
+    final Posting[] currentPostings = new Posting[amountOfOperands];
+    for (int i = 0; i < amountOfOperands; i++) {
+      final Iterator<Posting> iterator =
+          operands.get(i).getPostings().iterator();
+      if (!iterator.hasNext()) {
+        return resultingList;
+      }
+      iterators.add(iterator);
+      currentPostings[i] = iterator.next();
+    }
+
+    while (true) {
+      // Advance all lists to the greatest current record
+      int targetRecordId = currentPostings[0].getId();
+      for (int i = 1; i < amountOfOperands; i++) {
+        targetRecordId = Math.max(targetRecordId, currentPostings[i].getId());
+      }
+      boolean isCommonRecord = true;
+      for (int i = 0; i < amountOfOperands; i++) {
+        final Iterator<Posting> iterator = iterators.get(i);
+        while (currentPostings[i].getId() < targetRecordId) {
+          if (!iterator.hasNext()) {
+            return resultingList;
+          }
+          currentPostings[i] = iterator.next();
+        }
+        if (currentPostings[i].getId() != targetRecordId) {
+          isCommonRecord = false;
+        }
+      }
+      if (!isCommonRecord) {
+        continue;
+      }
+
+      int totalTermFrequency = 0;
+      double totalScore = 0;
+      for (int i = 0; i < amountOfOperands; i++) {
+        totalTermFrequency += currentPostings[i].getTermFrequency();
+        totalScore += currentPostings[i].getScore();
+      }
+      resultingList.addPosting(targetRecordId, totalTermFrequency,
+          totalScore);
+
+      // Advance all lists past the record
+      for (int i = 0; i < amountOfOperands; i++) {
+        final Iterator<Posting> iterator = iterators.get(i);
+        if (!iterator.hasNext()) {
+          return resultingList;
+        }
+        currentPostings[i] = iterator.next();
+      }
+    }
+  }
+
+  /**
+   * Intersects the given lists by iterating the first list and probing all
+   * other lists for its records. A record is rejected at the first list which
+   * does not contain it.
+   * 
+   * @param operands
+   *          Lists to intersect, the first should be the smallest
+   * @return A list containing the data that all of the given lists have in
+   *         common
+   */
+  static IInvertedList probeIntersect(final List<IInvertedList> operands) {
+    // It is absolutely necessary that the insertion order into this list is
+    // sorted, as the plain list itself does not sort its elements.
+    final IInvertedList resultingList = new PlainInvertedList();
+    for (final Posting posting : operands.get(0).getPostings()) {
+      int totalTermFrequency = posting.getTermFrequency();
+      double totalScore = posting.getScore();
+      boolean isCommonRecord = true;
+      for (int i = 1; i < operands.size(); i++) {
+        final Posting otherPosting =
+            operands.get(i).getPosting(posting.getId());
+        if (otherPosting == null) {
+          isCommonRecord = false;
+          break;
+        }
+        totalTermFrequency += otherPosting.getTermFrequency();
+        totalScore += otherPosting.getScore();
+      }
+      if (isCommonRecord) {
+        resultingList.addPosting(posting.getId(), totalTermFrequency,
+            totalScore);
+      }
+    }
+    return resultingList;
+  }
+
+  /**
+   * Builds the union of the given lists by accumulating their postings in
+   * arrays over their total id range and scanning them afterwards.
+   * 
+   * @param operands
+   *          Non-empty lists to unite
+   * @return A list containing the merged data of all the given lists
+   */
+  static IInvertedList scanCountUnion(final List<IInvertedList> operands) {
+    int firstId = Integer.MAX_VALUE;
+    for (final IInvertedList list : operands) {
+      firstId = Math.min(firstId, list.getFirstId());
+    }
+    final int range = (int) getTotalRange(operands);
+
+    final int[] counts = new int[range];
+    final int[] termFrequencies = new int[range];
+    final double[] scores = new double[range];
+    for (final IInvertedList list : operands) {
+      for (final Posting posting : list.getPostings()) {
+        final int offset = posting.getId() - firstId;
+        counts[offset]++;
+        termFrequencies[offset] += posting.getTermFrequency();
+        scores[offset] += posting.getScore();
+      }
+    }
+
+    // It is absolutely necessary that the insertion order into this list is
+    // sorted, as the plain list itself does not sort its elements.
+    final IInvertedList resultingList = new PlainInvertedList();
+    for (int offset = 0; offset < range; offset++) {
+      if (counts[offset] > 0) {
+        resultingList.addPosting(firstId + offset, termFrequencies[offset],
+            scores[offset]);
+      }
+    }
+    return resultingList;
+  }
+
+  /**
+   * Adds a posting for the given record to the given list, which aggregates
+   * the postings of the record of all given operands.
+   * 
+   * @param resultingList
+   *          The list to add the posting to
+   * @param operands
+   *          The lists which all contain the record
+   * @param recordId
+   *          The record to add
+   */
+  private static void addAggregatedPosting(final IInvertedList resultingList,
+      final List<IInvertedList> operands, final int recordId) {
+    int totalTermFrequency = 0;
+    double totalScore = 0;
+    for (final IInvertedList list : operands) {
+      final Posting posting = list.getPosting(recordId);
+      totalTermFrequency += posting.getTermFrequency();
+      totalScore += posting.getScore();
+    }
+    resultingList.addPosting(recordId, totalTermFrequency, totalScore);
+  }
+
+  /**
+   * Sets the bits of all records of the given list which lie in the given
+   * range.
+   * 
+   * @param list
+   *          The list whose records to set
+   * @param bitmap
+   *          The bitmap to set the bits in, bit <tt>i</tt> represents the id
+   *          <tt>firstId + i</tt>
+   * @param firstId
+   *          The first id of the range, inclusive
+   * @param lastId
+   *          The last id of the range, inclusive
+   */
+  private static void fillBitmap(final IInvertedList list,
+      final long[] bitmap, final int firstId, final int lastId) {
+    for (final Posting posting : list.getPostings()) {
+      final int recordId = posting.getId();
+      if (recordId > lastId) {
+        // Postings are ascending, no further one lies in the range
+        break;
+      }
+      if (recordId >= firstId) {
+        final int offset = recordId - firstId;
+        bitmap[offset / IDS_PER_WORD] |= 1L << (offset % IDS_PER_WORD);
+      }
+    }
+  }
+
+  /**
+   * Gets the amount of words a bitmap needs to hold the given range of ids.
+   * 
+   * @param range
+   *          The amount of ids
+   * @return The amount of words a bitmap needs
+   */
+  private static int getAmountOfWords(final long range) {
+    return (int) ((range + IDS_PER_WORD - 1) / IDS_PER_WORD);
+  }
+
+  /**
+   * Gets the size of the id range which all given lists have in common.
+   * 
+   * @param operands
+   *          Non-empty lists
+   * @return The amount of ids in the common range or a non-positive value if
+   *         the ranges of the lists do not overlap
+   */
+  private static long getCommonRange(final List<IInvertedList> operands) {
+    int firstId = Integer.MIN_VALUE;
+    int lastId = Integer.MAX_VALUE;
+    for (final IInvertedList list : operands) {
+      firstId = Math.max(firstId, list.getFirstId());
+      lastId = Math.min(lastId, list.getLastId());
+    }
+    return (long) lastId - firstId + 1;
+  }
+
+  /**
+   * Gets the size of the id range which covers all given lists.
+   * 
+   * @param operands
+   *          Non-empty lists
+   * @return The amount of ids in the range covering all lists
+   */
+  private static long getTotalRange(final List<IInvertedList> operands) {
+    int firstId = Integer.MAX_VALUE;
+    int lastId = Integer.MIN_VALUE;
+    for (final IInvertedList list : operands) {
+      firstId = Math.min(firstId, list.getFirstId());
+      lastId = Math.max(lastId, list.getLastId());
+    }
+    return (long) lastId - firstId + 1;
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private AggregationPlanner() {
+
+  }
+}
@@ -0,0 +1,319 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.Checksum;
+
+/**
+ * Reads values sequentially from a range of a file through a buffer of fixed
+ * size. The buffer is refilled by positioned reads of the channel, thus files
+ * of any size can be read, the position of the channel is not changed and
+ * multiple inputs may read the same channel concurrently. Values are read in
+ * big-endian byte order, like a {@link ByteBuffer} does, and reading beyond
+ * the range throws a {@link BufferUnderflowException}.<br/>
+ * <br/>
+ * A {@link Checksum} can be given which gets updated with every byte read
+ * from the file, thus the checksum of a range is computed while reading it.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ChannelInput {
+  /**
+   * The default size of the buffer in bytes.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  /**
+   * The size of the greatest value that can be read at once in bytes.
+   */
+  private static final int MAXIMAL_VALUE_SIZE = Long.BYTES;
+  /**
+   * Message which is shown when the file ends before the range.
+   */
+  private static final String MSG_FILE_ENDED =
+      "The file ended before the range to read.";
+
+  /**
+   * The buffer holding the bytes read from the file which were not consumed
+   * yet, ready for reading.
+   */
+  private final ByteBuffer mBuffer;
+  /**
+   * The channel to read from.
+   */
+  private final FileChannel mChannel;
+  /**
+   * The checksum to update with every byte read from the file or
+   * <tt>null</tt> if there is none.
+   */
+  private final Checksum mChecksum;
+  /**
+   * The position in the file where the range ends, exclusive.
+   */
+  private final long mEnd;
+  /**
+   * The position in the file where the next refill of the buffer starts.
+   */
+  private long mFilePosition;
+
+  /**
+   * Creates a new input which reads the given range of the given channel
+   * through a buffer of the {@link #DEFAULT_BUFFER_SIZE}.
+   * 
+   * @param channel
+   *          The channel to read from
+   * @param position
+   *          The position in the file where the range starts
+   * @param length
+   *          The length of the range in bytes
+   */
+  public ChannelInput(final FileChannel channel, final long position,
+      final long length) {
+    this(channel, position, length, null, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new input which reads the given range of the given channel and
+   * updates the given checksum with every byte read.
+   * 
+   * @param channel
+   *          The channel to read from
+   * @param position
+   *          The position in the file where the range starts
+   * @param length
+   *          The length of the range in bytes
+   * @param checksum
+   *          The checksum to update with every byte read or <tt>null</tt> if
+   *          there is none
+   * @param bufferSize
+   *          The size of the buffer in bytes, at least the size of a
+   *          <tt>long</tt>
+   * @throws IllegalArgumentException
+   *           If the position, the length or the size of the buffer is not
+   *           valid
+   */
+  public ChannelInput(final FileChannel channel, final long position,
+      final long length, final Checksum checksum, final int bufferSize)
+      throws IllegalArgumentException {
+    if (position < 0 || length < 0 || position > Long.MAX_VALUE - length
+        || bufferSize < MAXIMAL_VALUE_SIZE) {
+      throw new IllegalArgumentException();
+    }
+    this.mChannel = channel;
+    this.mFilePosition = position;
+    this.mEnd = position + length;
+    this.mChecksum = checksum;
+    this.mBuffer = ByteBuffer.allocate(bufferSize);
+    this.mBuffer.flip();
+  }
+
+  /**
+   * Reads the next byte.
+   * 
+   * @return The read byte
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the value
+   */
+  public byte get() throws IOException, BufferUnderflowException {
+    require(Byte.BYTES);
+    return this.mBuffer.get();
+  }
+
+  /**
+   * Reads the next bytes into the given array, until it is filled.
+   * 
+   * @param bytes
+   *          The array to read into
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the array is filled
+   */
+  public void get(final byte[] bytes)
+      throws IOException, BufferUnderflowException {
+    if (bytes.length > remaining()) {
+      throw new BufferUnderflowException();
+    }
+    int offset = 0;
+    while (offset < bytes.length) {
+      if (!this.mBuffer.hasRemaining()) {
+        refill();
+      }
+      final int amount =
+          Math.min(bytes.length - offset, this.mBuffer.remaining());
+      this.mBuffer.get(bytes, offset, amount);
+      offset += amount;
+    }
+  }
+
+  /**
+   * Reads the next <tt>char</tt>.
+   * 
+   * @return The read value
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the value
+   */
+  public char getChar() throws IOException, BufferUnderflowException {
+    require(Character.BYTES);
+    return this.mBuffer.getChar();
+  }
+
+  /**
+   * Reads the next <tt>double</tt>.
+   * 
+   * @return The read value
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the value
+   */
+  public double getDouble() throws IOException, BufferUnderflowException {
+    require(Double.BYTES);
+    return this.mBuffer.getDouble();
+  }
+
+  /**
+   * Reads the next <tt>float</tt>.
+   * 
+   * @return The read value
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the value
+   */
+  public float getFloat() throws IOException, BufferUnderflowException {
+    require(Float.BYTES);
+    return this.mBuffer.getFloat();
+  }
+
+  /**
+   * Reads the next <tt>int</tt>.
+   * 
+   * @return The read value
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the value
+   */
+  public int getInt() throws IOException, BufferUnderflowException {
+    require(Integer.BYTES);
+    return this.mBuffer.getInt();
+  }
+
+  /**
+   * Reads the next <tt>long</tt>.
+   * 
+   * @return The read value
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the value
+   */
+  public long getLong() throws IOException, BufferUnderflowException {
+    require(Long.BYTES);
+    return this.mBuffer.getLong();
+  }
+
+  /**
+   * Whether there are bytes left in the range.
+   * 
+   * @return <tt>True</tt> if there are bytes left, <tt>false</tt> otherwise
+   */
+  public boolean hasRemaining() {
+    return remaining() > 0;
+  }
+
+  /**
+   * Gets the position in the file of the next byte to read.
+   * 
+   * @return The position in the file of the next byte to read
+   */
+  public long position() {
+    return this.mFilePosition - this.mBuffer.remaining();
+  }
+
+  /**
+   * Gets the amount of bytes left in the range.
+   * 
+   * @return The amount of bytes left in the range
+   */
+  public long remaining() {
+    return this.mBuffer.remaining() + (this.mEnd - this.mFilePosition);
+  }
+
+  /**
+   * Skips the given amount of bytes. Bytes which were not buffered yet are not
+   * read from the file, thus they do not update the checksum.
+   * 
+   * @param amount
+   *          The amount of bytes to skip, not negative
+   * @throws BufferUnderflowException
+   *           If the range ends before the given amount of bytes
+   */
+  public void skip(final long amount) throws BufferUnderflowException {
+    if (amount < 0 || amount > remaining()) {
+      throw new BufferUnderflowException();
+    }
+    if (amount <= this.mBuffer.remaining()) {
+      this.mBuffer.position(this.mBuffer.position() + (int) amount);
+      return;
+    }
+    this.mFilePosition += amount - this.mBuffer.remaining();
+    this.mBuffer.position(this.mBuffer.limit());
+  }
+
+  /**
+   * Refills the buffer with the next bytes of the range. Bytes which were not
+   * consumed yet are kept.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred or the file ends before the range
+   */
+  private void refill() throws IOException {
+    this.mBuffer.compact();
+    final int limit = (int) Math.min(this.mBuffer.capacity(),
+        this.mBuffer.position() + (this.mEnd - this.mFilePosition));
+    this.mBuffer.limit(limit);
+    final int start = this.mBuffer.position();
+    while (this.mBuffer.hasRemaining()) {
+      final int amount = this.mChannel.read(this.mBuffer, this.mFilePosition);
+      if (amount < 0) {
+        throw new EOFException(MSG_FILE_ENDED);
+      }
+      this.mFilePosition += amount;
+    }
+    if (this.mChecksum != null) {
+      this.mChecksum.update(this.mBuffer.array(),
+          this.mBuffer.arrayOffset() + start, limit - start);
+    }
+    this.mBuffer.flip();
+  }
+
+  /**
+   * Ensures that the buffer holds at least the given amount of bytes.
+   * 
+   * @param amount
+   *          The amount of bytes, at most the size of a <tt>long</tt>
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the range ends before the given amount of bytes
+   */
+  private void require(final int amount)
+      throws IOException, BufferUnderflowException {
+    if (this.mBuffer.remaining() >= amount) {
+      return;
+    }
+    if (remaining() < amount) {
+      throw new BufferUnderflowException();
+    }
+    refill();
+  }
+}
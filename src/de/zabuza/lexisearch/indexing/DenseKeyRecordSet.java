@@ -0,0 +1,465 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of {@link IKeyRecordSet} which stores its records in a plain
+ * array indexed by their record id. Thus accessing a record by its id, which
+ * happens for every candidate of a search, is a single array load. This
+ * suits ids which are assigned densely from <tt>0</tt>, like the ids the
+ * record sets assign themselves.<br/>
+ * <br/>
+ * The array only grows as long as at most {@link #MAXIMAL_SLOTS_PER_RECORD}
+ * slots are needed per record. Records with ids outside of it, like sparse
+ * external ids or negative ids, are kept in a fallback table.<br/>
+ * <br/>
+ * A set contains at most one record per id, adding a record replaces the
+ * record with the same id. The iteration order is ascending by id for records
+ * in the array, followed by the records of the fallback table.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <E>
+ *          Type which is contained by this set, must extend {@link IKeyRecord}
+ * @param <K>
+ *          Type of the key contained by {@link IKeyRecord}.
+ */
+public final class DenseKeyRecordSet<E extends IKeyRecord<K>, K>
+    implements IKeyRecordSet<E, K> {
+  /**
+   * Iterator over the records of the set. It first iterates the records of the
+   * array and then the records of the fallback table.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private final class RecordIterator implements Iterator<E> {
+    /**
+     * Whether the last returned record is stored in the array.
+     */
+    private boolean mIsLastInArray;
+    /**
+     * The slot of the last returned record if it is stored in the array,
+     * <tt>-1</tt> if there is none.
+     */
+    private int mLastSlot;
+    /**
+     * The slot of the next record in the array, the length of the array if
+     * there are no further records in it.
+     */
+    private int mNextSlot;
+    /**
+     * Iterator over the fallback table, used after the array.
+     */
+    private final Iterator<E> mSparseIterator;
+
+    /**
+     * Creates a new iterator over the records of the set.
+     */
+    RecordIterator() {
+      this.mSparseIterator =
+          DenseKeyRecordSet.this.mSparseIdToRecord.values().iterator();
+      this.mLastSlot = -1;
+      this.mIsLastInArray = false;
+      this.mNextSlot = findSlot(0);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+      return this.mNextSlot < DenseKeyRecordSet.this.mRecords.length
+          || this.mSparseIterator.hasNext();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public E next() {
+      final Object[] records = DenseKeyRecordSet.this.mRecords;
+      if (this.mNextSlot < records.length) {
+        this.mLastSlot = this.mNextSlot;
+        this.mIsLastInArray = true;
+        this.mNextSlot = findSlot(this.mNextSlot + 1);
+        @SuppressWarnings("unchecked")
+        final E record = (E) records[this.mLastSlot];
+        return record;
+      }
+      if (!this.mSparseIterator.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      this.mLastSlot = -1;
+      this.mIsLastInArray = false;
+      return this.mSparseIterator.next();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#remove()
+     */
+    @Override
+    public void remove() {
+      if (!this.mIsLastInArray) {
+        this.mSparseIterator.remove();
+        DenseKeyRecordSet.this.mSize--;
+        return;
+      }
+      if (this.mLastSlot == -1) {
+        throw new IllegalStateException();
+      }
+      DenseKeyRecordSet.this.mRecords[this.mLastSlot] = null;
+      DenseKeyRecordSet.this.mSize--;
+      this.mLastSlot = -1;
+    }
+
+    /**
+     * Finds the first occupied slot of the array, starting at the given slot.
+     * 
+     * @param startSlot
+     *          The slot to start searching at
+     * @return The first occupied slot which is not smaller than the given
+     *         slot, the length of the array if there is none
+     */
+    private int findSlot(final int startSlot) {
+      final Object[] records = DenseKeyRecordSet.this.mRecords;
+      int slot = startSlot;
+      while (slot < records.length && records[slot] == null) {
+        slot++;
+      }
+      return slot;
+    }
+  }
+
+  /**
+   * The maximal amount of array slots that are reserved per record of the set.
+   * Records whose id would need a bigger array are kept in the fallback table.
+   */
+  public static final int MAXIMAL_SLOTS_PER_RECORD = 4;
+  /**
+   * The minimal capacity of the array, ids smaller than this are always
+   * stored in the array.
+   */
+  private static final int MINIMAL_CAPACITY = 16;
+
+  /**
+   * The records with dense ids, indexed by their id. Unused slots are
+   * <tt>null</tt>.
+   */
+  private Object[] mRecords;
+  /**
+   * The amount of records contained in this set.
+   */
+  private int mSize;
+  /**
+   * Fallback table for records whose ids do not fit into the array.
+   */
+  private final HashMap<Integer, E> mSparseIdToRecord;
+
+  /**
+   * Creates a new empty set.
+   */
+  public DenseKeyRecordSet() {
+    this(0);
+  }
+
+  /**
+   * Creates a new empty set which can hold records with ids up to the given
+   * capacity in its array without growing.
+   * 
+   * @param capacity
+   *          The initial capacity of the array, must not be negative
+   */
+  public DenseKeyRecordSet(final int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mRecords = new Object[Math.max(capacity, MINIMAL_CAPACITY)];
+    this.mSparseIdToRecord = new HashMap<>();
+    this.mSize = 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#add(java.lang.Object)
+   */
+  @Override
+  public boolean add(final E e) {
+    final int id = e.getRecordId();
+    if (id >= 0 && (id < this.mRecords.length || canGrowTo(id))) {
+      ensureCapacity(id + 1);
+      @SuppressWarnings("unchecked")
+      final E valueBefore = (E) this.mRecords[id];
+      this.mRecords[id] = e;
+      if (valueBefore == null) {
+        this.mSize++;
+      }
+      return valueBefore == null || !valueBefore.equals(e);
+    }
+
+    final E valueBefore = this.mSparseIdToRecord.put(Integer.valueOf(id), e);
+    if (valueBefore == null) {
+      this.mSize++;
+    }
+    return valueBefore == null || !valueBefore.equals(e);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#addAll(java.util.Collection)
+   */
+  @Override
+  public boolean addAll(final Collection<? extends E> c) {
+    boolean hasChanged = false;
+    for (final E record : c) {
+      if (add(record)) {
+        hasChanged = true;
+      }
+    }
+    return hasChanged;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#clear()
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(this.mRecords, null);
+    this.mSparseIdToRecord.clear();
+    this.mSize = 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#contains(java.lang.Object)
+   */
+  @Override
+  public boolean contains(final Object o) {
+    if (o instanceof IKeyRecord) {
+      final E currentValue =
+          getKeyRecordById(((IKeyRecord<?>) o).getRecordId());
+      return currentValue != null && currentValue.equals(o);
+    }
+    return false;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#containsAll(java.util.Collection)
+   */
+  @Override
+  public boolean containsAll(final Collection<?> c) {
+    for (final Object o : c) {
+      if (!contains(o)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Gets the amount of records which are kept in the fallback table since
+   * their ids do not fit into the array.
+   * 
+   * @return The amount of records in the fallback table
+   */
+  public int getAmountOfSparseRecords() {
+    return this.mSparseIdToRecord.size();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IKeyRecordSet#getKeyRecordById(int)
+   */
+  @Override
+  public E getKeyRecordById(final int recordId) {
+    if (recordId >= 0 && recordId < this.mRecords.length) {
+      @SuppressWarnings("unchecked")
+      final E record = (E) this.mRecords[recordId];
+      return record;
+    }
+    if (this.mSparseIdToRecord.isEmpty()) {
+      return null;
+    }
+    return this.mSparseIdToRecord.get(Integer.valueOf(recordId));
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#isEmpty()
+   */
+  @Override
+  public boolean isEmpty() {
+    return this.mSize == 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#iterator()
+   */
+  @Override
+  public Iterator<E> iterator() {
+    return new RecordIterator();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#remove(java.lang.Object)
+   */
+  @Override
+  public boolean remove(final Object o) {
+    if (!contains(o)) {
+      return false;
+    }
+    final int id = ((IKeyRecord<?>) o).getRecordId();
+    if (id >= 0 && id < this.mRecords.length) {
+      this.mRecords[id] = null;
+    } else {
+      this.mSparseIdToRecord.remove(Integer.valueOf(id));
+    }
+    this.mSize--;
+    return true;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#removeAll(java.util.Collection)
+   */
+  @Override
+  public boolean removeAll(final Collection<?> c) {
+    boolean hasChanged = false;
+    for (final Object record : c) {
+      if (remove(record)) {
+        hasChanged = true;
+      }
+    }
+    return hasChanged;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#retainAll(java.util.Collection)
+   */
+  @Override
+  public boolean retainAll(final Collection<?> c) {
+    boolean hasChanged = false;
+    final Iterator<E> records = iterator();
+    while (records.hasNext()) {
+      if (!c.contains(records.next())) {
+        records.remove();
+        hasChanged = true;
+      }
+    }
+    return hasChanged;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#size()
+   */
+  @Override
+  public int size() {
+    return this.mSize;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#toArray()
+   */
+  @Override
+  public Object[] toArray() {
+    return toList().toArray();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#toArray(java.lang.Object[])
+   */
+  @Override
+  public <T> T[] toArray(final T[] a) {
+    return toList().toArray(a);
+  }
+
+  /**
+   * Whether the array may grow such that it contains a slot for the given id.
+   * 
+   * @param id
+   *          The id to check, must not be negative
+   * @return <tt>True</tt> if the array may grow to the given id,
+   *         <tt>false</tt> if a record with the id belongs into the fallback
+   *         table
+   */
+  private boolean canGrowTo(final int id) {
+    final long maximalCapacity = Math.max(MINIMAL_CAPACITY,
+        ((long) this.mSize + 1) * MAXIMAL_SLOTS_PER_RECORD);
+    return id < maximalCapacity;
+  }
+
+  /**
+   * Ensures the array has at least the given capacity. Records of the fallback
+   * table whose ids fit into the grown array are moved into it.
+   * 
+   * @param capacity
+   *          The minimal capacity of the array
+   */
+  private void ensureCapacity(final int capacity) {
+    if (capacity <= this.mRecords.length) {
+      return;
+    }
+    final long doubledCapacity = 2L * this.mRecords.length;
+    final int newCapacity =
+        (int) Math.max(capacity, Math.min(doubledCapacity, Integer.MAX_VALUE));
+    this.mRecords = Arrays.copyOf(this.mRecords, newCapacity);
+
+    final Iterator<E> sparseRecords =
+        this.mSparseIdToRecord.values().iterator();
+    while (sparseRecords.hasNext()) {
+      final E record = sparseRecords.next();
+      final int id = record.getRecordId();
+      if (id >= 0 && id < newCapacity) {
+        this.mRecords[id] = record;
+        sparseRecords.remove();
+      }
+    }
+  }
+
+  /**
+   * Collects all records of this set into a list, in iteration order.
+   * 
+   * @return A new list containing all records of this set
+   */
+  private ArrayList<E> toList() {
+    final ArrayList<E> records = new ArrayList<>(this.mSize);
+    for (final E record : this) {
+      records.add(record);
+    }
+    return records;
+  }
+}
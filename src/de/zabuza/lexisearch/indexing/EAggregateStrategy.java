@@ -0,0 +1,38 @@
+package de.zabuza.lexisearch.indexing;
+
+/**
+ * Enumeration for different strategies on how to aggregate
+ * {@link IInvertedList}s. Which strategy is used for a query is decided by
+ * {@link AggregationPlanner}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public enum EAggregateStrategy {
+  /**
+   * Iterate all lists in lockstep by comparing their current ids.
+   */
+  LINEAR_MERGE,
+  /**
+   * Iterate the smallest list and probe all other lists for its ids.
+   */
+  PROBE,
+  /**
+   * Intersect bitmaps of the lists over their common id range.
+   */
+  BITMAP,
+  /**
+   * Accumulate the postings of all lists in arrays over their id range, then
+   * scan the arrays.
+   */
+  SCAN_COUNT,
+  /**
+   * Return the only list directly.
+   */
+  SINGLE,
+  /**
+   * Return an empty list without touching any list, as the result is known to
+   * be empty.
+   */
+  EMPTY
+}
@@ -0,0 +1,414 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Spatial index over records which are {@link ILocationProvider}s. The earth
+ * is divided into a grid of cells of equal size in degrees, like a geohash of
+ * fixed precision, and each cell holds the records located in it. The cells
+ * are stored in one array, sorted by cell, with an array of offsets pointing
+ * to the start of each cell. The locations of the records are held in arrays
+ * indexed by the {@link RecordSlots slots} of the record ids.<br/>
+ * <br/>
+ * Searches with a radius only visit the cells intersecting the bounding box
+ * of the circle and then check the exact distance. Distances are great-circle
+ * distances in kilometers. They are computed from unit vectors of the record
+ * locations which are precomputed, thus computing a distance needs no
+ * trigonometric functions besides one arc sine.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class GeoGridIndex {
+  /**
+   * The default size of the cells in degrees.
+   */
+  public static final double DEFAULT_CELL_SIZE = 1.0;
+  /**
+   * The mean radius of the earth in kilometers.
+   */
+  public static final double EARTH_RADIUS = 6_371.0;
+  /**
+   * The greatest absolute value of a latitude in degrees.
+   */
+  private static final double MAXIMAL_LATITUDE = 90.0;
+  /**
+   * The greatest absolute value of a longitude in degrees.
+   */
+  private static final double MAXIMAL_LONGITUDE = 180.0;
+
+  /**
+   * Converts the given point into its unit vector, which can be given to
+   * {@link #getDistance(int, double[])}. Converting a point once saves the
+   * trigonometric functions when computing many distances to it.
+   * 
+   * @param latitude
+   *          The latitude of the point in degrees
+   * @param longitude
+   *          The longitude of the point in degrees
+   * @return The unit vector of the point, as array of its <tt>x</tt>,
+   *         <tt>y</tt> and <tt>z</tt> coordinate
+   */
+  public static double[] toUnitVector(final double latitude,
+      final double longitude) {
+    final double latitudeRadians = Math.toRadians(latitude);
+    final double longitudeRadians = Math.toRadians(longitude);
+    return new double[] {
+        Math.cos(latitudeRadians) * Math.cos(longitudeRadians),
+        Math.cos(latitudeRadians) * Math.sin(longitudeRadians),
+        Math.sin(latitudeRadians) };
+  }
+
+  /**
+   * The amount of cell columns, i.e. cells along a circle of latitude.
+   */
+  private final int mAmountOfColumns;
+  /**
+   * The amount of cell rows, i.e. cells along a meridian.
+   */
+  private final int mAmountOfRows;
+  /**
+   * The slots of all indexed records, sorted by their cell.
+   */
+  private final int[] mCellRecordSlots;
+  /**
+   * The size of the cells in degrees.
+   */
+  private final double mCellSize;
+  /**
+   * The index in {@link #mCellRecordSlots} where the records of each cell
+   * start, indexed by cell. Has one additional entry which marks the end of
+   * the last cell.
+   */
+  private final int[] mCellStarts;
+  /**
+   * The id of each indexed record, indexed by its slot.
+   */
+  private final int[] mRecordIds;
+  /**
+   * The slots of the record ids of the indexed records.
+   */
+  private final RecordSlots mRecordSlots;
+  /**
+   * The x coordinate of the unit vector of each record location, indexed by
+   * slot.
+   */
+  private final double[] mX;
+  /**
+   * The y coordinate of the unit vector of each record location, indexed by
+   * slot.
+   */
+  private final double[] mY;
+  /**
+   * The z coordinate of the unit vector of each record location, indexed by
+   * slot.
+   */
+  private final double[] mZ;
+
+  /**
+   * Creates a new spatial index over the given records with cells of the
+   * {@link #DEFAULT_CELL_SIZE}. Records which are no {@link ILocationProvider}
+   * are not indexed.
+   * 
+   * @param records
+   *          The records to index
+   */
+  public GeoGridIndex(final Iterable<? extends IKeyRecord<?>> records) {
+    this(records, DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Creates a new spatial index over the given records with cells of the
+   * given size. Records which are no {@link ILocationProvider} are not
+   * indexed. Small cells prune searches with small radii better but need
+   * more memory.
+   * 
+   * @param records
+   *          The records to index
+   * @param cellSize
+   *          The size of the cells in degrees, must be positive and not
+   *          greater than <tt>90</tt>
+   * @throws IllegalArgumentException
+   *           If the cell size is not valid
+   */
+  public GeoGridIndex(final Iterable<? extends IKeyRecord<?>> records,
+      final double cellSize) {
+    if (!(cellSize > 0.0 && cellSize <= MAXIMAL_LATITUDE)) {
+      throw new IllegalArgumentException();
+    }
+    this.mCellSize = cellSize;
+    this.mAmountOfRows = (int) Math.ceil(2 * MAXIMAL_LATITUDE / cellSize);
+    this.mAmountOfColumns = (int) Math.ceil(2 * MAXIMAL_LONGITUDE / cellSize);
+
+    final ArrayList<IKeyRecord<?>> locatedRecords = new ArrayList<>();
+    for (final IKeyRecord<?> record : records) {
+      if (record instanceof ILocationProvider) {
+        locatedRecords.add(record);
+      }
+    }
+    final int[] locatedRecordIds = new int[locatedRecords.size()];
+    for (int i = 0; i < locatedRecordIds.length; i++) {
+      locatedRecordIds[i] = locatedRecords.get(i).getRecordId();
+    }
+    this.mRecordSlots = RecordSlots.forIds(locatedRecordIds);
+    final int amountOfSlots = this.mRecordSlots.getAmountOfSlots();
+    this.mRecordIds = new int[amountOfSlots];
+    this.mX = new double[amountOfSlots];
+    this.mY = new double[amountOfSlots];
+    this.mZ = new double[amountOfSlots];
+    // Slots of records which are not indexed are marked by NaN
+    Arrays.fill(this.mX, Double.NaN);
+
+    // Count the records of each cell, then place them by a counting sort
+    final int amountOfCells = this.mAmountOfRows * this.mAmountOfColumns;
+    final int[] cellOfSlot = new int[amountOfSlots];
+    final int[] cellStarts = new int[amountOfCells + 1];
+    int amountOfRecords = 0;
+    for (int i = 0; i < locatedRecordIds.length; i++) {
+      final int slot = this.mRecordSlots.getSlot(locatedRecordIds[i]);
+      if (!Double.isNaN(this.mX[slot])) {
+        // The record is already indexed
+        continue;
+      }
+      final ILocationProvider location =
+          (ILocationProvider) locatedRecords.get(i);
+      final double[] unitVector =
+          toUnitVector(location.getLatitude(), location.getLongitude());
+      this.mRecordIds[slot] = locatedRecordIds[i];
+      this.mX[slot] = unitVector[0];
+      this.mY[slot] = unitVector[1];
+      this.mZ[slot] = unitVector[2];
+
+      final int cell = getRow(location.getLatitude()) * this.mAmountOfColumns
+          + getColumn(location.getLongitude());
+      cellOfSlot[slot] = cell;
+      cellStarts[cell + 1]++;
+      amountOfRecords++;
+    }
+    for (int cell = 0; cell < amountOfCells; cell++) {
+      cellStarts[cell + 1] += cellStarts[cell];
+    }
+    this.mCellRecordSlots = new int[amountOfRecords];
+    final int[] cellEnds = Arrays.copyOf(cellStarts, amountOfCells);
+    for (int slot = 0; slot < amountOfSlots; slot++) {
+      if (!Double.isNaN(this.mX[slot])) {
+        final int cell = cellOfSlot[slot];
+        this.mCellRecordSlots[cellEnds[cell]] = slot;
+        cellEnds[cell]++;
+      }
+    }
+    this.mCellStarts = cellStarts;
+  }
+
+  /**
+   * Whether the record with the given id is indexed.
+   * 
+   * @param recordId
+   *          The id of the record
+   * @return <tt>True</tt> if the record is indexed, <tt>false</tt> otherwise
+   */
+  public boolean contains(final int recordId) {
+    final int slot = this.mRecordSlots.getSlot(recordId);
+    return slot != RecordSlots.NO_SLOT && !Double.isNaN(this.mX[slot]);
+  }
+
+  /**
+   * Gets the size of the cells in degrees.
+   * 
+   * @return The size of the cells in degrees
+   */
+  public double getCellSize() {
+    return this.mCellSize;
+  }
+
+  /**
+   * Gets the great-circle distance between the record with the given id and
+   * the given point.
+   * 
+   * @param recordId
+   *          The id of the record
+   * @param latitude
+   *          The latitude of the point in degrees
+   * @param longitude
+   *          The longitude of the point in degrees
+   * @return The distance in kilometers or {@link Double#POSITIVE_INFINITY} if
+   *         the record is not indexed
+   */
+  public double getDistance(final int recordId, final double latitude,
+      final double longitude) {
+    return getDistance(recordId, toUnitVector(latitude, longitude));
+  }
+
+  /**
+   * Gets the great-circle distance between the record with the given id and
+   * the point given by its unit vector.
+   * 
+   * @param recordId
+   *          The id of the record
+   * @param point
+   *          The unit vector of the point, as given by
+   *          {@link #toUnitVector(double, double)}
+   * @return The distance in kilometers or {@link Double#POSITIVE_INFINITY} if
+   *         the record is not indexed
+   */
+  public double getDistance(final int recordId, final double[] point) {
+    if (!contains(recordId)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return getDistance(this.mRecordSlots.getSlot(recordId), point[0],
+        point[1], point[2]);
+  }
+
+  /**
+   * Gets the amount of indexed records.
+   * 
+   * @return The amount of indexed records
+   */
+  public int getSize() {
+    return this.mCellRecordSlots.length;
+  }
+
+  /**
+   * Searches all records whose distance to the given point is not greater
+   * than the given radius. Only the cells intersecting the bounding box of
+   * the circle are visited. The ids are collected in a set, which can be
+   * given as filter to the queries. Use
+   * {@link #searchRadius(double, double, double, IntConsumer)} if records may
+   * have negative ids.
+   * 
+   * @param latitude
+   *          The latitude of the point in degrees
+   * @param longitude
+   *          The longitude of the point in degrees
+   * @param radius
+   *          The radius in kilometers, must not be negative
+   * @return A set containing the ids of all records within the radius
+   * @throws IllegalArgumentException
+   *           If the radius is negative
+   * @throws IndexOutOfBoundsException
+   *           If a record within the radius has a negative id
+   */
+  public BitSet searchRadius(final double latitude, final double longitude,
+      final double radius) {
+    final BitSet result = new BitSet();
+    searchRadius(latitude, longitude, radius, result::set);
+    return result;
+  }
+
+  /**
+   * Searches all records whose distance to the given point is not greater
+   * than the given radius and passes their ids to the given consumer. Only
+   * the cells intersecting the bounding box of the circle are visited.
+   * 
+   * @param latitude
+   *          The latitude of the point in degrees
+   * @param longitude
+   *          The longitude of the point in degrees
+   * @param radius
+   *          The radius in kilometers, must not be negative
+   * @param recordIdConsumer
+   *          Consumer which accepts the id of each record within the radius
+   * @throws IllegalArgumentException
+   *           If the radius is negative
+   */
+  public void searchRadius(final double latitude, final double longitude,
+      final double radius, final IntConsumer recordIdConsumer) {
+    if (!(radius >= 0.0)) {
+      throw new IllegalArgumentException();
+    }
+    final double[] point = toUnitVector(latitude, longitude);
+
+    // Compute the bounding box of the circle, all columns are visited if it
+    // contains a pole or spans all longitudes
+    final double angularRadius = radius / EARTH_RADIUS;
+    final double latitudeDelta = Math.toDegrees(angularRadius);
+    final int firstRow = getRow(latitude - latitudeDelta);
+    final int lastRow = getRow(latitude + latitudeDelta);
+    int firstColumn = 0;
+    int lastColumn = this.mAmountOfColumns - 1;
+    if (latitude - latitudeDelta > -MAXIMAL_LATITUDE
+        && latitude + latitudeDelta < MAXIMAL_LATITUDE) {
+      final double longitudeDelta = Math.toDegrees(Math.asin(
+          Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude))));
+      if (longitudeDelta < MAXIMAL_LONGITUDE) {
+        // The columns may wrap around the antimeridian
+        final int unwrappedFirstColumn = (int) Math.floor(
+            (longitude - longitudeDelta + MAXIMAL_LONGITUDE) / this.mCellSize);
+        final int unwrappedLastColumn = (int) Math.floor(
+            (longitude + longitudeDelta + MAXIMAL_LONGITUDE) / this.mCellSize);
+        if (unwrappedLastColumn
+            - unwrappedFirstColumn < this.mAmountOfColumns) {
+          firstColumn = unwrappedFirstColumn;
+          lastColumn = unwrappedLastColumn;
+        }
+      }
+    }
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        final int cell = row * this.mAmountOfColumns
+            + Math.floorMod(column, this.mAmountOfColumns);
+        for (int i = this.mCellStarts[cell]; i < this.mCellStarts[cell + 1];
+            i++) {
+          final int slot = this.mCellRecordSlots[i];
+          if (getDistance(slot, point[0], point[1], point[2]) <= radius) {
+            recordIdConsumer.accept(this.mRecordIds[slot]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the column of the cells containing the given longitude.
+   * 
+   * @param longitude
+   *          The longitude in degrees
+   * @return The column of the cells containing the longitude
+   */
+  private int getColumn(final double longitude) {
+    return Math.floorMod(
+        (int) Math.floor((longitude + MAXIMAL_LONGITUDE) / this.mCellSize),
+        this.mAmountOfColumns);
+  }
+
+  /**
+   * Gets the great-circle distance between the record in the given slot and
+   * the point given by its unit vector.
+   * 
+   * @param slot
+   *          The slot of the record, it must be indexed
+   * @param x
+   *          The x coordinate of the unit vector of the point
+   * @param y
+   *          The y coordinate of the unit vector of the point
+   * @param z
+   *          The z coordinate of the unit vector of the point
+   * @return The distance in kilometers
+   */
+  private double getDistance(final int slot, final double x, final double y,
+      final double z) {
+    final double dx = this.mX[slot] - x;
+    final double dy = this.mY[slot] - y;
+    final double dz = this.mZ[slot] - z;
+    final double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, chord / 2));
+  }
+
+  /**
+   * Gets the row of the cells containing the given latitude. Latitudes beyond
+   * the poles belong to the outermost rows.
+   * 
+   * @param latitude
+   *          The latitude in degrees
+   * @return The row of the cells containing the latitude
+   */
+  private int getRow(final double latitude) {
+    final int row =
+        (int) Math.floor((latitude + MAXIMAL_LATITUDE) / this.mCellSize);
+    return Math.max(0, Math.min(this.mAmountOfRows - 1, row));
+  }
+}
@@ -0,0 +1,34 @@
+package de.zabuza.lexisearch.indexing;
+
+/**
+ * Interface for key records whose keys are divided into fields, like the name
+ * and the description of a document. The keys given by {@link #getKeys()} are
+ * ordered by field, i.e. the first {@link #getFieldSize(int) getFieldSize(0)}
+ * keys belong to the first field, the following keys to the second field and
+ * so on.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          The key of the interface
+ */
+public interface IFieldedKeyRecord<K> extends IKeyRecord<K> {
+  /**
+   * Gets the amount of fields of this record.
+   * 
+   * @return The amount of fields of this record
+   */
+  int getAmountOfFields();
+
+  /**
+   * Gets the amount of keys of the given field.
+   * 
+   * @param field
+   *          The index of the field, between <tt>0</tt> inclusive and
+   *          {@link #getAmountOfFields()} exclusive
+   * @return The amount of keys of the given field
+   * @throws IllegalArgumentException
+   *           If the field does not exist
+   */
+  int getFieldSize(int field);
+}
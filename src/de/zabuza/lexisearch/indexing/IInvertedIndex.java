@@ -22,6 +22,23 @@ public interface IInvertedIndex<K> {
    */
   boolean addRecord(K key, int recordId);
 
+  /**
+   * Adds a record to the given key, together with the position at which the
+   * key occurs in the record. Adding a record multiple times with increasing
+   * positions builds a positional index.
+   * 
+   * @param key
+   *          The key to add the record to
+   * @param recordId
+   *          The record to add
+   * @param position
+   *          The position at which the key occurs in the record, must be
+   *          greater than all previously added positions of the key-record
+   *          pair
+   * @return If the record was added, i.e. if it was not already contained
+   */
+  boolean addRecord(K key, int recordId, int position);
+
   /**
    * Returns whether the inverted index contains the given key or not.
    * 
@@ -50,6 +67,15 @@ public interface IInvertedIndex<K> {
    */
   Iterable<K> getKeys();
 
+  /**
+   * Gets the amount of modifications this inverted index has received so far.
+   * The value grows with every change of the index and can be used to detect
+   * whether structures derived from the index, like caches, are outdated.
+   * 
+   * @return The amount of modifications this inverted index has received
+   */
+  long getModificationCount();
+
   /**
    * Gets all records of the given key.
    * 
@@ -59,4 +85,11 @@ public interface IInvertedIndex<K> {
    */
   IInvertedList getRecords(K key);
 
+  /**
+   * Increases the modification count of this index. Used if data of the index
+   * gets changed without using its methods, like when a ranking writes new
+   * scores to its postings.
+   */
+  void markModified();
+
 }
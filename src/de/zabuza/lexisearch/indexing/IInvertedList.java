@@ -3,6 +3,7 @@ package de.zabuza.lexisearch.indexing;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.PriorityQueue;
 
 /**
@@ -139,6 +140,40 @@ public interface IInvertedList {
     return IInvertedList.intersect(operands);
   }
 
+  /**
+   * Intersects the given positional lists such that only records remain where
+   * the keys of the lists occur consecutively, in the order of the lists. The
+   * term frequencies and scores of the remaining records are summed up like
+   * for {@link #intersect(Collection)}.
+   * 
+   * @param lists
+   *          Positional lists to intersect, in the order of the phrase
+   * @return A list containing all records where the keys of the given lists
+   *         occur as phrase
+   */
+  static IInvertedList intersectPhrase(final List<IInvertedList> lists) {
+    return PositionalIntersection.intersectPhrase(lists);
+  }
+
+  /**
+   * Intersects the given positional lists such that only records remain where
+   * the keys of all lists occur within a window of the given size, in any
+   * order. The term frequencies and scores of the remaining records are summed
+   * up like for {@link #intersect(Collection)}.
+   * 
+   * @param lists
+   *          Positional lists to intersect
+   * @param maximalDistance
+   *          The maximal distance between the first and the last position of
+   *          the occurrences, must not be negative
+   * @return A list containing all records where the keys of the given lists
+   *         occur near to each other
+   */
+  static IInvertedList intersectProximity(final List<IInvertedList> lists,
+      final int maximalDistance) {
+    return PositionalIntersection.intersectProximity(lists, maximalDistance);
+  }
+
   /**
    * Builds the union of the given lists.
    * 
@@ -169,6 +204,21 @@ public interface IInvertedList {
     return IInvertedList.union(operands);
   }
 
+  /**
+   * Adds a positional posting to the inverted list. If the posting is already
+   * contained, its term frequency is increased and the position is added to
+   * it.
+   * 
+   * @param recordId
+   *          Record to add
+   * @param position
+   *          The position at which the key of the list occurs in the record,
+   *          must be greater than all previously added positions of the record
+   * @return <tt>True</tt> if the posting was not already contained,
+   *         <tt>false</tt> otherwise
+   */
+  boolean addPositionalPosting(int recordId, int position);
+
   /**
    * Adds a posting to the inverted list.
    * 
@@ -214,6 +264,35 @@ public interface IInvertedList {
    */
   boolean containsPosting(int recordId);
 
+  /**
+   * Gets the smallest id of all postings of this list.
+   * 
+   * @return The smallest id of all postings of this list
+   * @throws java.util.NoSuchElementException
+   *           If the list is empty
+   */
+  int getFirstId();
+
+  /**
+   * Gets the greatest id of all postings of this list.
+   * 
+   * @return The greatest id of all postings of this list
+   * @throws java.util.NoSuchElementException
+   *           If the list is empty
+   */
+  int getLastId();
+
+  /**
+   * Gets the posting of the given record. The access is fast and thus can be
+   * used to probe lists instead of iterating them.
+   * 
+   * @param recordId
+   *          The record in question
+   * @return The posting of the given record or <tt>null</tt> if the record is
+   *         not contained
+   */
+  Posting getPosting(int recordId);
+
   /**
    * Gets all postings of this inverted list. The order of how the records are
    * returned is ascending in their IDs at all time.
@@ -222,6 +301,18 @@ public interface IInvertedList {
    */
   Iterable<Posting> getPostings();
 
+  /**
+   * Gets all postings of this inverted list whose IDs are greater than or
+   * equal to the given ID, in ascending order of their IDs. Lists which hold
+   * their records sorted seek the first of them in logarithmic time.
+   * 
+   * @param recordId
+   *          The smallest ID of the postings to get
+   * @return All postings of this inverted list starting at the given ID in
+   *         ascending order of their IDs
+   */
+  Iterable<Posting> getPostingsFrom(int recordId);
+
   /**
    * Gets the size of this inverted list, i.e. the amount of postings it holds.
    * 
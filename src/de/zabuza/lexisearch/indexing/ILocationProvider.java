@@ -0,0 +1,24 @@
+package de.zabuza.lexisearch.indexing;
+
+/**
+ * Interface for records which are located at a point on earth. Their location
+ * can be used for spatial indexing, for example in {@link GeoGridIndex}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public interface ILocationProvider {
+  /**
+   * Gets the latitude coordinate of the record in degrees.
+   * 
+   * @return The latitude coordinate of the record
+   */
+  float getLatitude();
+
+  /**
+   * Gets the longitude coordinate of the record in degrees.
+   * 
+   * @return The longitude coordinate of the record
+   */
+  float getLongitude();
+}
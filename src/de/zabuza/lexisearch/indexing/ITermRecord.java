@@ -0,0 +1,31 @@
+package de.zabuza.lexisearch.indexing;
+
+/**
+ * Interface for records whose keys are strings that may be held as ids of a
+ * {@link TermDictionary}. Such records are tokenized once, indexing, ranking
+ * and the verification of queries then read the term ids instead of computing
+ * the keys again by {@link #getKeys()}. Records which do not hold term ids
+ * have no dictionary.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public interface ITermRecord extends IKeyRecord<String> {
+  /**
+   * Gets the dictionary the term ids of this record refer to.
+   * 
+   * @return The dictionary of the term ids of this record or <tt>null</tt> if
+   *         the record does not hold its keys as term ids
+   */
+  TermDictionary getTermDictionary();
+
+  /**
+   * Gets the ids of the keys of this record in its
+   * {@link #getTermDictionary() dictionary}, in the order given by
+   * {@link #getKeys()}. The returned array must not be modified.
+   * 
+   * @return The ids of the keys of this record or <tt>null</tt> if the record
+   *         does not hold its keys as term ids
+   */
+  int[] getTermIds();
+}
@@ -0,0 +1,382 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Utility class which writes {@link IInvertedIndex}es with string keys to
+ * files and reads them back. Such a file holds one segment of a larger index,
+ * for example a part flushed to disk while the index is built, see
+ * {@link IngestionPipeline}. Segments which cover disjoint sets of records are
+ * merged on disk by {@link #merge(List, Path)}, without reading them into an
+ * index. Segment files are read by positioned reads of their channel through
+ * a buffer of fixed size, thus they may have any size. A segment can either be
+ * read into memory by {@link #read(Path)} or opened by {@link #open(Path)},
+ * which keeps its postings on disk.<br/>
+ * <br/>
+ * The file starts with a magic number, the {@link #FORMAT_VERSION format
+ * version} and the amount of keys, followed by the keys in ascending order
+ * and their postings in ascending order of their ids. Postings are written by
+ * {@link IndexSerializationUtil} and keep their term frequency, score, term
+ * frequencies per field and positions.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IndexSegment {
+  /**
+   * Cursor which walks through the keys of a segment file during a merge.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private static final class SegmentCursor {
+    /**
+     * The input of the segment file, positioned behind the current key.
+     */
+    private final ChannelInput mInput;
+    /**
+     * The current key or <tt>null</tt> if all keys were read.
+     */
+    private String mKey;
+    /**
+     * The amount of keys which were not read yet.
+     */
+    private int mRemainingKeys;
+
+    /**
+     * Creates a new cursor positioned at the first key of the given segment.
+     * 
+     * @param input
+     *          The input of the segment file, positioned behind its header
+     * @param amountOfKeys
+     *          The amount of keys of the segment
+     * @throws IOException
+     *           If an I/O-Exception occurred or the segment is corrupted
+     */
+    SegmentCursor(final ChannelInput input, final int amountOfKeys)
+        throws IOException {
+      this.mInput = input;
+      this.mRemainingKeys = amountOfKeys;
+      advance();
+    }
+
+    /**
+     * Reads the next key of the segment. The postings of the current key must
+     * have been read already.
+     * 
+     * @throws IOException
+     *           If an I/O-Exception occurred or the segment is corrupted
+     */
+    void advance() throws IOException {
+      if (this.mRemainingKeys == 0) {
+        if (this.mInput.hasRemaining()) {
+          throw new IOException(MSG_CORRUPTED_SEGMENT);
+        }
+        this.mKey = null;
+        return;
+      }
+      final String key = IndexSerializationUtil.readString(this.mInput);
+      if (key == null
+          || (this.mKey != null && key.compareTo(this.mKey) <= 0)) {
+        throw new IOException(MSG_CORRUPTED_SEGMENT);
+      }
+      this.mKey = key;
+      this.mRemainingKeys--;
+    }
+  }
+
+  /**
+   * The version of the file format written by this class. Only files of this
+   * version can be read.
+   */
+  public static final int FORMAT_VERSION = 2;
+  /**
+   * The size of the buffer used for writing segments.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /**
+   * The size of the header of a segment file in bytes.
+   */
+  private static final int HEADER_SIZE = 12;
+  /**
+   * The magic number every segment file starts with.
+   */
+  private static final int MAGIC_NUMBER = 0x4C585347;
+  /**
+   * Message which is shown when a segment file is damaged.
+   */
+  private static final String MSG_CORRUPTED_SEGMENT =
+      "The given index segment is corrupted.";
+  /**
+   * Message which is shown when a file is no segment.
+   */
+  private static final String MSG_NO_SEGMENT =
+      "The given file is no index segment.";
+  /**
+   * Message which is shown when a segment file has an unsupported version.
+   */
+  private static final String MSG_UNSUPPORTED_VERSION =
+      "The given index segment has the unsupported format version ";
+
+  /**
+   * Merges the given segment files into a single segment written to the given
+   * file, replacing its content. The segments must cover disjoint sets of
+   * records. They are merged key by key while walking through the sorted
+   * files simultaneously, thus only the postings of one key are held in
+   * memory at a time. The given segment files are left untouched.
+   * 
+   * @param segmentFiles
+   *          The files of the segments to merge, written by
+   *          {@link #write(IInvertedIndex, Path)}
+   * @param targetFile
+   *          The file to write the merged segment to, it must not be one of
+   *          the segment files
+   * @throws IOException
+   *           If an I/O-Exception occurred, a file is no segment, has an
+   *           unsupported format version, is corrupted or the segments share
+   *           records
+   */
+  public static void merge(final List<Path> segmentFiles,
+      final Path targetFile) throws IOException {
+    final PriorityQueue<SegmentCursor> cursors =
+        new PriorityQueue<>(Math.max(1, segmentFiles.size()),
+            Comparator.comparing((final SegmentCursor cursor) -> cursor.mKey));
+    final ArrayList<FileChannel> segmentChannels =
+        new ArrayList<>(segmentFiles.size());
+    try {
+      for (final Path segmentFile : segmentFiles) {
+        final FileChannel segmentChannel =
+            FileChannel.open(segmentFile, StandardOpenOption.READ);
+        segmentChannels.add(segmentChannel);
+        final ChannelInput input = openInput(segmentChannel);
+        final SegmentCursor cursor = new SegmentCursor(input,
+            IndexSerializationUtil.readAmount(input));
+        if (cursor.mKey != null) {
+          cursors.add(cursor);
+        }
+      }
+
+      try (final FileChannel channel = FileChannel.open(targetFile,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+        // Write the keys behind the header, their amount is known afterwards
+        channel.position(HEADER_SIZE);
+        final DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel),
+                BUFFER_SIZE));
+        int amountOfKeys = 0;
+        final ArrayList<Posting> postings = new ArrayList<>();
+        while (!cursors.isEmpty()) {
+          final String key = cursors.peek().mKey;
+          postings.clear();
+          while (!cursors.isEmpty() && cursors.peek().mKey.equals(key)) {
+            final SegmentCursor cursor = cursors.poll();
+            final int amountOfPostings =
+                IndexSerializationUtil.readAmount(cursor.mInput);
+            for (int i = 0; i < amountOfPostings; i++) {
+              postings.add(IndexSerializationUtil.readPosting(cursor.mInput));
+            }
+            cursor.advance();
+            if (cursor.mKey != null) {
+              cursors.add(cursor);
+            }
+          }
+
+          Collections.sort(postings);
+          for (int i = 1; i < postings.size(); i++) {
+            if (postings.get(i - 1).getId() == postings.get(i).getId()) {
+              throw new IOException(MSG_CORRUPTED_SEGMENT);
+            }
+          }
+          IndexSerializationUtil.writeString(output, key);
+          output.writeInt(postings.size());
+          for (final Posting posting : postings) {
+            IndexSerializationUtil.writePosting(output, posting);
+          }
+          amountOfKeys++;
+        }
+        output.flush();
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC_NUMBER);
+        header.putInt(FORMAT_VERSION);
+        header.putInt(amountOfKeys);
+        header.flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+      }
+    } catch (final BufferUnderflowException e) {
+      throw new IOException(MSG_CORRUPTED_SEGMENT, e);
+    } finally {
+      for (final FileChannel segmentChannel : segmentChannels) {
+        segmentChannel.close();
+      }
+    }
+  }
+
+  /**
+   * Opens the segment from the given file, which was written by
+   * {@link #write(IInvertedIndex, Path)} or {@link #merge(List, Path)}, as
+   * index which keeps its postings on disk. The file is read once to locate
+   * the inverted list of each key, afterwards only the keys and the positions
+   * of their lists are held in memory.
+   * 
+   * @param segmentFile
+   *          The file to open the segment from
+   * @return The index reading the postings of the segment from the file, it
+   *         must be closed if it is not needed anymore
+   * @throws IOException
+   *           If an I/O-Exception occurred, the file is no segment, has an
+   *           unsupported format version or is corrupted
+   */
+  public static SegmentInvertedIndex open(final Path segmentFile)
+      throws IOException {
+    final FileChannel channel =
+        FileChannel.open(segmentFile, StandardOpenOption.READ);
+    try {
+      final ChannelInput input = openInput(channel);
+      final String[] keys =
+          new String[IndexSerializationUtil.readAmount(input)];
+      final long[] listPositions = new long[keys.length + 1];
+      final SegmentCursor cursor = new SegmentCursor(input, keys.length);
+      for (int i = 0; cursor.mKey != null; i++) {
+        keys[i] = cursor.mKey;
+        listPositions[i] = input.position();
+        final int amountOfPostings = IndexSerializationUtil.readAmount(input);
+        for (int j = 0; j < amountOfPostings; j++) {
+          IndexSerializationUtil.skipPosting(input);
+        }
+        cursor.advance();
+      }
+      listPositions[keys.length] = input.position();
+      return new SegmentInvertedIndex(channel, keys, listPositions);
+    } catch (final BufferUnderflowException e) {
+      channel.close();
+      throw new IOException(MSG_CORRUPTED_SEGMENT, e);
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the segment from the given file, which was written by
+   * {@link #write(IInvertedIndex, Path)} or {@link #merge(List, Path)}. The
+   * inverted list of each key is built in bulk from its postings.
+   * 
+   * @param segmentFile
+   *          The file to read the segment from
+   * @return The index holding the postings of the segment
+   * @throws IOException
+   *           If an I/O-Exception occurred, the file is no segment, has an
+   *           unsupported format version or is corrupted
+   */
+  public static InvertedIndex<String> read(final Path segmentFile)
+      throws IOException {
+    try (final FileChannel channel =
+        FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+      final ChannelInput input = openInput(channel);
+      final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+      final SegmentCursor cursor = new SegmentCursor(input,
+          IndexSerializationUtil.readAmount(input));
+      while (cursor.mKey != null) {
+        final Posting[] postings =
+            new Posting[IndexSerializationUtil.readAmount(input)];
+        for (int i = 0; i < postings.length; i++) {
+          postings[i] = IndexSerializationUtil.readPosting(input);
+        }
+        invertedIndex.putRecords(cursor.mKey, new PlainInvertedList(postings));
+        cursor.advance();
+      }
+      return invertedIndex;
+    } catch (final BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException(MSG_CORRUPTED_SEGMENT, e);
+    }
+  }
+
+  /**
+   * Writes the given index as segment to the given file, replacing its
+   * content.
+   * 
+   * @param invertedIndex
+   *          The index to write
+   * @param segmentFile
+   *          The file to write the segment to
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  public static void write(final IInvertedIndex<String> invertedIndex,
+      final Path segmentFile) throws IOException {
+    final ArrayList<String> keys = new ArrayList<>();
+    for (final String key : invertedIndex.getKeys()) {
+      keys.add(key);
+    }
+    Collections.sort(keys);
+
+    try (final DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(segmentFile),
+            BUFFER_SIZE))) {
+      output.writeInt(MAGIC_NUMBER);
+      output.writeInt(FORMAT_VERSION);
+      output.writeInt(keys.size());
+      for (final String key : keys) {
+        final IInvertedList records = invertedIndex.getRecords(key);
+        IndexSerializationUtil.writeString(output, key);
+        output.writeInt(records.getSize());
+        for (final Posting posting : records.getPostings()) {
+          IndexSerializationUtil.writePosting(output, posting);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates an input which reads the whole given segment file and verifies
+   * its header.
+   * 
+   * @param channel
+   *          The channel of the segment file
+   * @return The input of the file, positioned at the amount of keys
+   * @throws IOException
+   *           If an I/O-Exception occurred, the file is no segment or has an
+   *           unsupported format version
+   */
+  private static ChannelInput openInput(final FileChannel channel)
+      throws IOException {
+    final long size = channel.size();
+    if (size < HEADER_SIZE) {
+      throw new IOException(MSG_NO_SEGMENT);
+    }
+    final ChannelInput input = new ChannelInput(channel, 0, size);
+    if (input.getInt() != MAGIC_NUMBER) {
+      throw new IOException(MSG_NO_SEGMENT);
+    }
+    final int version = input.getInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException(MSG_UNSUPPORTED_VERSION + version);
+    }
+    return input;
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private IndexSegment() {
+
+  }
+}
@@ -0,0 +1,281 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class which provides the binary format of postings and strings
+ * shared by the files that persist inverted indices, like
+ * {@link IndexSegment}s and snapshots. Values are written to a
+ * {@link DataOutputStream} and read back from a {@link ByteBuffer}, which may
+ * be memory-mapped, or from a {@link ChannelInput} for files of any size.<br/>
+ * <br/>
+ * A posting consists of its id, term frequency, score, term frequencies per
+ * field and positions. A string is prefixed with the length of its UTF-8
+ * encoding.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IndexSerializationUtil {
+  /**
+   * The length written instead of a string which is not present.
+   */
+  private static final int NO_STRING = -1;
+
+  /**
+   * Reads an amount of elements from the given buffer. Each element occupies
+   * at least one byte, thus amounts exceeding the remaining bytes are
+   * rejected before anything gets allocated for them.
+   * 
+   * @param buffer
+   *          The buffer positioned at the beginning of the amount
+   * @return The amount of elements
+   * @throws BufferUnderflowException
+   *           If the amount is negative or exceeds the remaining bytes
+   */
+  public static int readAmount(final ByteBuffer buffer)
+      throws BufferUnderflowException {
+    final int amount = buffer.getInt();
+    if (amount < 0 || amount > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return amount;
+  }
+
+  /**
+   * Reads an amount of elements from the given input, like
+   * {@link #readAmount(ByteBuffer)}.
+   * 
+   * @param input
+   *          The input positioned at the beginning of the amount
+   * @return The amount of elements
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the amount is negative or exceeds the remaining bytes
+   */
+  public static int readAmount(final ChannelInput input)
+      throws IOException, BufferUnderflowException {
+    final int amount = input.getInt();
+    if (amount < 0 || amount > input.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return amount;
+  }
+
+  /**
+   * Reads a posting written by
+   * {@link #writePosting(DataOutputStream, Posting)} from the given buffer.
+   * Postings without fields or positions get none.
+   * 
+   * @param buffer
+   *          The buffer positioned at the beginning of the posting
+   * @return The read posting
+   * @throws BufferUnderflowException
+   *           If the buffer ends before the posting
+   */
+  public static Posting readPosting(final ByteBuffer buffer)
+      throws BufferUnderflowException {
+    final int id = buffer.getInt();
+    final int termFrequency = buffer.getInt();
+    final double score = buffer.getDouble();
+    final int amountOfFields = readAmount(buffer);
+    int[] fieldTermFrequencies = null;
+    if (amountOfFields > 0) {
+      fieldTermFrequencies = new int[amountOfFields];
+      for (int i = 0; i < amountOfFields; i++) {
+        fieldTermFrequencies[i] = buffer.getInt();
+      }
+    }
+    final int amountOfPositions = readAmount(buffer);
+    PositionList positions = null;
+    if (amountOfPositions > 0) {
+      positions = new PositionList();
+      for (int i = 0; i < amountOfPositions; i++) {
+        positions.add(buffer.getInt());
+      }
+    }
+    return new Posting(id, termFrequency, score, fieldTermFrequencies,
+        positions);
+  }
+
+  /**
+   * Reads a posting written by
+   * {@link #writePosting(DataOutputStream, Posting)} from the given input,
+   * like {@link #readPosting(ByteBuffer)}.
+   * 
+   * @param input
+   *          The input positioned at the beginning of the posting
+   * @return The read posting
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the input ends before the posting
+   */
+  public static Posting readPosting(final ChannelInput input)
+      throws IOException, BufferUnderflowException {
+    final int id = input.getInt();
+    final int termFrequency = input.getInt();
+    final double score = input.getDouble();
+    final int amountOfFields = readAmount(input);
+    int[] fieldTermFrequencies = null;
+    if (amountOfFields > 0) {
+      fieldTermFrequencies = new int[amountOfFields];
+      for (int i = 0; i < amountOfFields; i++) {
+        fieldTermFrequencies[i] = input.getInt();
+      }
+    }
+    final int amountOfPositions = readAmount(input);
+    PositionList positions = null;
+    if (amountOfPositions > 0) {
+      positions = new PositionList();
+      for (int i = 0; i < amountOfPositions; i++) {
+        positions.add(input.getInt());
+      }
+    }
+    return new Posting(id, termFrequency, score, fieldTermFrequencies,
+        positions);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}
+   * from the given buffer.
+   * 
+   * @param buffer
+   *          The buffer positioned at the beginning of the string
+   * @return The string or <tt>null</tt> if it is not present
+   * @throws BufferUnderflowException
+   *           If the buffer ends before the string
+   */
+  public static String readString(final ByteBuffer buffer)
+      throws BufferUnderflowException {
+    final int length = buffer.getInt();
+    if (length == NO_STRING) {
+      return null;
+    }
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    final String text;
+    if (buffer.hasArray()) {
+      text = new String(buffer.array(),
+          buffer.arrayOffset() + buffer.position(), length,
+          StandardCharsets.UTF_8);
+      buffer.position(buffer.position() + length);
+    } else {
+      final byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      text = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return text;
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}
+   * from the given input, like {@link #readString(ByteBuffer)}.
+   * 
+   * @param input
+   *          The input positioned at the beginning of the string
+   * @return The string or <tt>null</tt> if it is not present
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the input ends before the string
+   */
+  public static String readString(final ChannelInput input)
+      throws IOException, BufferUnderflowException {
+    final int length = input.getInt();
+    if (length == NO_STRING) {
+      return null;
+    }
+    if (length < 0 || length > input.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    final byte[] bytes = new byte[length];
+    input.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Skips a posting written by
+   * {@link #writePosting(DataOutputStream, Posting)} in the given input,
+   * without creating it.
+   * 
+   * @param input
+   *          The input positioned at the beginning of the posting
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws BufferUnderflowException
+   *           If the input ends before the posting
+   */
+  public static void skipPosting(final ChannelInput input)
+      throws IOException, BufferUnderflowException {
+    // The id, term frequency and score
+    input.skip(Integer.BYTES + Integer.BYTES + Double.BYTES);
+    input.skip((long) readAmount(input) * Integer.BYTES);
+    input.skip((long) readAmount(input) * Integer.BYTES);
+  }
+
+  /**
+   * Writes the given posting to the given stream.
+   * 
+   * @param output
+   *          The stream to write to
+   * @param posting
+   *          The posting to write
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  public static void writePosting(final DataOutputStream output,
+      final Posting posting) throws IOException {
+    output.writeInt(posting.getId());
+    output.writeInt(posting.getTermFrequency());
+    output.writeDouble(posting.getScore());
+    final int amountOfFields = posting.getAmountOfFields();
+    output.writeInt(amountOfFields);
+    for (int field = 0; field < amountOfFields; field++) {
+      output.writeInt(posting.getFieldTermFrequency(field));
+    }
+    if (posting.getPositions() == null) {
+      output.writeInt(0);
+    } else {
+      final int[] positions = posting.getPositions().toArray();
+      output.writeInt(positions.length);
+      for (final int position : positions) {
+        output.writeInt(position);
+      }
+    }
+  }
+
+  /**
+   * Writes the given string prefixed with the length of its UTF-8 encoding.
+   * 
+   * @param output
+   *          The stream to write to
+   * @param text
+   *          The string to write, may be <tt>null</tt>
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  public static void writeString(final DataOutputStream output,
+      final String text) throws IOException {
+    if (text == null) {
+      output.writeInt(NO_STRING);
+      return;
+    }
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private IndexSerializationUtil() {
+
+  }
+}
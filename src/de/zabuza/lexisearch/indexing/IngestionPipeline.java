@@ -0,0 +1,463 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import de.zabuza.lexisearch.util.ITsvRowParser;
+import de.zabuza.lexisearch.util.MappedTsvLoader;
+
+/**
+ * Pipeline which streams records from a file of tab separated values directly
+ * into an {@link IInvertedIndex}, without materializing all records before
+ * indexing them. A reader thread reads the file sequentially in blocks which
+ * are aligned to line separators. Multiple tokenizer threads parse the blocks
+ * into records with a {@link ITsvRowParser}, records compute their keys on
+ * creation. The calling thread finally adds the postings of the records to
+ * the index and hands the records to a sink.<br/>
+ * <br/>
+ * The stages are connected by bounded queues, a stage blocks if the next
+ * stage falls behind. This bounds the amount of memory held by the pipeline
+ * independently of the size of the file. Additionally, the index can be
+ * flushed as {@link IndexSegment} to a directory whenever it exceeds a given
+ * amount of postings, such that the size of the input is not limited by the
+ * memory needed for its index. The segments get merged on disk afterwards,
+ * see {@link IngestionResult#mergeSegments(Path)}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <T>
+ *          The type of records the pipeline creates
+ */
+public final class IngestionPipeline<T extends IKeyRecord<String>> {
+  /**
+   * Block of complete lines read from the file.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private static final class Block {
+    /**
+     * The bytes of the lines, from index <tt>0</tt> up to the limit.
+     */
+    private final ByteBuffer mBytes;
+    /**
+     * The index of the first line of the block in the file.
+     */
+    private final int mFirstLineIndex;
+
+    /**
+     * Creates a new block of lines.
+     * 
+     * @param bytes
+     *          The bytes of the lines, from index <tt>0</tt> up to the limit
+     * @param firstLineIndex
+     *          The index of the first line of the block in the file
+     */
+    Block(final ByteBuffer bytes, final int firstLineIndex) {
+      this.mBytes = bytes;
+      this.mFirstLineIndex = firstLineIndex;
+    }
+  }
+
+  /**
+   * The default size of the blocks read from the file, in bytes.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+  /**
+   * The default capacity of the queues between the stages.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 16;
+  /**
+   * Block which signals the tokenizers that the file was read completely.
+   */
+  private static final Block END_OF_BLOCKS =
+      new Block(ByteBuffer.allocate(0), 0);
+  /**
+   * The line separator byte.
+   */
+  private static final byte LINE_SEPARATOR = '\n';
+  /**
+   * The prefix of the names of segment files.
+   */
+  private static final String SEGMENT_FILE_PREFIX = "segment-";
+  /**
+   * The suffix of the names of segment files.
+   */
+  private static final String SEGMENT_FILE_SUFFIX = ".idx";
+
+  /**
+   * Waits until the given stage has finished and rethrows its failure, if
+   * present.
+   * 
+   * @param stage
+   *          The stage to wait for
+   * @throws IOException
+   *           If the stage failed with an I/O-Exception
+   * @throws InterruptedException
+   *           If the calling thread was interrupted while waiting
+   */
+  private static void awaitStage(final Future<?> stage)
+      throws IOException, InterruptedException {
+    try {
+      stage.get();
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AssertionError(cause);
+    }
+  }
+
+  /**
+   * The amount of tokenizer threads.
+   */
+  private final int mAmountOfTokenizers;
+  /**
+   * The size of the blocks read from the file, in bytes.
+   */
+  private final int mBlockSize;
+  /**
+   * The amount of postings after which the index gets flushed to disk.
+   */
+  private final int mMaximalSegmentPostings;
+  /**
+   * The parser to create records from the rows of the file.
+   */
+  private final ITsvRowParser<T> mParser;
+  /**
+   * The capacity of the queues between the stages.
+   */
+  private final int mQueueCapacity;
+  /**
+   * The directory to flush index segments to or <tt>null</tt> if the index
+   * is kept in memory completely.
+   */
+  private final Path mSegmentDirectory;
+
+  /**
+   * Creates a new pipeline which uses one tokenizer thread per available
+   * processor and keeps the index in memory completely.
+   * 
+   * @param parser
+   *          The parser to create records from the rows of the file, it is
+   *          used by multiple threads
+   */
+  public IngestionPipeline(final ITsvRowParser<T> parser) {
+    this(parser, Runtime.getRuntime().availableProcessors(),
+        DEFAULT_BLOCK_SIZE, DEFAULT_QUEUE_CAPACITY, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new pipeline which uses one tokenizer thread per available
+   * processor and flushes the index to the given directory whenever it
+   * exceeds the given amount of postings.
+   * 
+   * @param parser
+   *          The parser to create records from the rows of the file, it is
+   *          used by multiple threads
+   * @param segmentDirectory
+   *          The existing directory to flush index segments to
+   * @param maximalSegmentPostings
+   *          The amount of postings after which the index gets flushed, must
+   *          be positive
+   * @throws IllegalArgumentException
+   *           If the amount of postings is not positive
+   */
+  public IngestionPipeline(final ITsvRowParser<T> parser,
+      final Path segmentDirectory, final int maximalSegmentPostings)
+      throws IllegalArgumentException {
+    this(parser, Runtime.getRuntime().availableProcessors(),
+        DEFAULT_BLOCK_SIZE, DEFAULT_QUEUE_CAPACITY, segmentDirectory,
+        maximalSegmentPostings);
+  }
+
+  /**
+   * Creates a new pipeline with the given configuration.
+   * 
+   * @param parser
+   *          The parser to create records from the rows of the file, it is
+   *          used by multiple threads
+   * @param amountOfTokenizers
+   *          The amount of tokenizer threads, must be positive
+   * @param blockSize
+   *          The size of the blocks read from the file in bytes, must be
+   *          positive. Blocks get larger if a single line does not fit.
+   * @param queueCapacity
+   *          The capacity of the queues between the stages, must be positive
+   * @param segmentDirectory
+   *          The existing directory to flush index segments to or
+   *          <tt>null</tt> if the index should be kept in memory completely
+   * @param maximalSegmentPostings
+   *          The amount of postings after which the index gets flushed, must
+   *          be positive
+   * @throws IllegalArgumentException
+   *           If one of the sizes is not positive
+   */
+  public IngestionPipeline(final ITsvRowParser<T> parser,
+      final int amountOfTokenizers, final int blockSize,
+      final int queueCapacity, final Path segmentDirectory,
+      final int maximalSegmentPostings) throws IllegalArgumentException {
+    if (amountOfTokenizers <= 0 || blockSize <= 0 || queueCapacity <= 0
+        || maximalSegmentPostings <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mParser = parser;
+    this.mAmountOfTokenizers = amountOfTokenizers;
+    this.mBlockSize = blockSize;
+    this.mQueueCapacity = queueCapacity;
+    this.mSegmentDirectory = segmentDirectory;
+    this.mMaximalSegmentPostings = maximalSegmentPostings;
+  }
+
+  /**
+   * Ingests the given file of tab separated values encoded in UTF-8. Each
+   * non-empty row is parsed into a record whose postings are added to the
+   * index, afterwards the record is given to the sink. Records arrive in
+   * blocks of consecutive lines, but blocks may arrive out of order.
+   * 
+   * @param file
+   *          The file to ingest
+   * @param sink
+   *          The sink to give the records to, it is only called by the
+   *          calling thread. Records do not need to be kept if only the index
+   *          is of interest.
+   * @return The result of the ingestion, holding the segments of the index
+   * @throws IOException
+   *           If an I/O-Exception occurred while reading the file or flushing
+   *           a segment
+   * @throws IllegalArgumentException
+   *           If the parser rejects a row
+   */
+  public IngestionResult ingest(final Path file, final Consumer<? super T> sink)
+      throws IOException, IllegalArgumentException {
+    final BlockingQueue<Block> blocks =
+        new ArrayBlockingQueue<>(this.mQueueCapacity);
+    final BlockingQueue<List<T>> batches =
+        new ArrayBlockingQueue<>(this.mQueueCapacity);
+    final List<T> endOfBatches = Collections.emptyList();
+    final AtomicBoolean isAborted = new AtomicBoolean(false);
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(this.mAmountOfTokenizers + 1);
+    try {
+      final Future<?> reader =
+          executor.submit(() -> readBlocks(file, blocks, isAborted));
+      final List<Future<?>> tokenizers = new ArrayList<>();
+      for (int i = 0; i < this.mAmountOfTokenizers; i++) {
+        tokenizers.add(executor.submit(
+            () -> tokenize(blocks, batches, endOfBatches, isAborted)));
+      }
+
+      final IngestionResult result =
+          writeIndex(batches, endOfBatches, isAborted, sink);
+
+      // Tokenizers are checked first, the reader can only block if they fail
+      for (final Future<?> tokenizer : tokenizers) {
+        awaitStage(tokenizer);
+      }
+      awaitStage(reader);
+      return result;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } finally {
+      isAborted.set(true);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Flushes the given index as segment to the segment directory.
+   * 
+   * @param invertedIndex
+   *          The index to flush
+   * @param segmentFiles
+   *          The files of the segments flushed so far, the new file gets
+   *          added
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private void flushSegment(final IInvertedIndex<String> invertedIndex,
+      final List<Path> segmentFiles) throws IOException {
+    final Path segmentFile = this.mSegmentDirectory.resolve(
+        SEGMENT_FILE_PREFIX + segmentFiles.size() + SEGMENT_FILE_SUFFIX);
+    IndexSegment.write(invertedIndex, segmentFile);
+    segmentFiles.add(segmentFile);
+  }
+
+  /**
+   * Reader stage. Reads the given file sequentially and splits it into blocks
+   * of complete lines. Puts one {@link #END_OF_BLOCKS} per tokenizer after
+   * the last block.
+   * 
+   * @param file
+   *          The file to read
+   * @param blocks
+   *          The queue to put the blocks into
+   * @param isAborted
+   *          Whether the pipeline was aborted, reading stops then
+   * @return <tt>null</tt>
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws InterruptedException
+   *           If the thread was interrupted while waiting for the queue
+   */
+  private Void readBlocks(final Path file, final BlockingQueue<Block> blocks,
+      final AtomicBoolean isAborted)
+      throws IOException, InterruptedException {
+    try (final FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ)) {
+      int lineIndex = 0;
+      ByteBuffer remainder = ByteBuffer.allocate(0);
+      boolean isEndOfFile = false;
+      while (!isEndOfFile && !isAborted.get()) {
+        // Grow the block if the remainder is an incomplete long line
+        final ByteBuffer buffer = ByteBuffer.allocate(
+            Math.max(this.mBlockSize, remainder.remaining() * 2));
+        buffer.put(remainder);
+        while (buffer.hasRemaining() && !isEndOfFile) {
+          isEndOfFile = channel.read(buffer) < 0;
+        }
+
+        int blockEnd = buffer.position();
+        if (!isEndOfFile) {
+          while (blockEnd > 0 && buffer.get(blockEnd - 1) != LINE_SEPARATOR) {
+            blockEnd--;
+          }
+        }
+        remainder = ByteBuffer.wrap(buffer.array(), blockEnd,
+            buffer.position() - blockEnd).slice();
+        if (blockEnd == 0) {
+          continue;
+        }
+
+        buffer.position(0);
+        buffer.limit(blockEnd);
+        final ByteBuffer blockBytes = buffer.slice();
+        blocks.put(new Block(blockBytes, lineIndex));
+        lineIndex += MappedTsvLoader.countLines(blockBytes);
+      }
+    } finally {
+      for (int i = 0; i < this.mAmountOfTokenizers; i++) {
+        blocks.put(END_OF_BLOCKS);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Tokenizer stage. Parses blocks into batches of records until it receives
+   * {@link #END_OF_BLOCKS}. Puts the given end marker after its last batch,
+   * also if it fails.
+   * 
+   * @param blocks
+   *          The queue to take the blocks from
+   * @param batches
+   *          The queue to put the batches of records into
+   * @param endOfBatches
+   *          The marker which signals that the tokenizer has finished
+   * @param isAborted
+   *          Whether the pipeline was aborted, set if parsing fails
+   * @return <tt>null</tt>
+   * @throws InterruptedException
+   *           If the thread was interrupted while waiting for a queue
+   */
+  private Void tokenize(final BlockingQueue<Block> blocks,
+      final BlockingQueue<List<T>> batches, final List<T> endOfBatches,
+      final AtomicBoolean isAborted) throws InterruptedException {
+    try {
+      while (true) {
+        final Block block = blocks.take();
+        if (block == END_OF_BLOCKS || isAborted.get()) {
+          return null;
+        }
+        batches.put(MappedTsvLoader.parseChunk(block.mBytes,
+            block.mFirstLineIndex, this.mParser));
+      }
+    } catch (final RuntimeException e) {
+      isAborted.set(true);
+      throw e;
+    } finally {
+      batches.put(endOfBatches);
+    }
+  }
+
+  /**
+   * Index writer stage. Adds the postings of all batches to the index and
+   * hands their records to the sink until each tokenizer has finished.
+   * Flushes the index whenever it exceeds the maximal amount of postings.
+   * 
+   * @param batches
+   *          The queue to take the batches of records from
+   * @param endOfBatches
+   *          The marker which signals that a tokenizer has finished
+   * @param isAborted
+   *          Whether the pipeline was aborted, the remaining batches are
+   *          skipped then
+   * @param sink
+   *          The sink to give the records to
+   * @return The result of the ingestion
+   * @throws IOException
+   *           If an I/O-Exception occurred while flushing a segment
+   * @throws InterruptedException
+   *           If the thread was interrupted while waiting for the queue
+   */
+  private IngestionResult writeIndex(final BlockingQueue<List<T>> batches,
+      final List<T> endOfBatches, final AtomicBoolean isAborted,
+      final Consumer<? super T> sink)
+      throws IOException, InterruptedException {
+    final List<Path> segmentFiles = new ArrayList<>();
+    IInvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    int amountOfSegmentPostings = 0;
+    int amountOfRecords = 0;
+
+    int amountOfFinishedTokenizers = 0;
+    while (amountOfFinishedTokenizers < this.mAmountOfTokenizers) {
+      final List<T> batch = batches.take();
+      if (batch == endOfBatches) {
+        amountOfFinishedTokenizers++;
+        continue;
+      }
+      if (isAborted.get()) {
+        continue;
+      }
+
+      for (final T record : batch) {
+        amountOfSegmentPostings +=
+            InvertedIndexUtil.addWords(invertedIndex, record);
+        sink.accept(record);
+        amountOfRecords++;
+
+        if (this.mSegmentDirectory != null
+            && amountOfSegmentPostings >= this.mMaximalSegmentPostings) {
+          flushSegment(invertedIndex, segmentFiles);
+          invertedIndex = new InvertedIndex<>();
+          amountOfSegmentPostings = 0;
+        }
+      }
+    }
+    return new IngestionResult(amountOfRecords, invertedIndex, segmentFiles);
+  }
+}
@@ -0,0 +1,166 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of ingesting a file with an {@link IngestionPipeline}. It consists of
+ * the index segments that were flushed to disk and the segment that still
+ * resides in memory. The segments cover disjoint sets of records, together
+ * they form the index of all ingested records.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IngestionResult {
+  /**
+   * The prefix of the name of the temporary file the segment which resides
+   * in memory is written to while merging.
+   */
+  private static final String MEMORY_SEGMENT_FILE_PREFIX = "memory-segment-";
+  /**
+   * The suffix of the name of the temporary file the segment which resides
+   * in memory is written to while merging.
+   */
+  private static final String MEMORY_SEGMENT_FILE_SUFFIX = ".idx";
+
+  /**
+   * The amount of records that were ingested.
+   */
+  private final int mAmountOfRecords;
+  /**
+   * The segment of the index which resides in memory.
+   */
+  private final IInvertedIndex<String> mInvertedIndex;
+  /**
+   * The files of the segments which were flushed to disk, in the order they
+   * were written.
+   */
+  private final List<Path> mSegmentFiles;
+
+  /**
+   * Creates a new result of an ingestion.
+   * 
+   * @param amountOfRecords
+   *          The amount of records that were ingested
+   * @param invertedIndex
+   *          The segment of the index which resides in memory
+   * @param segmentFiles
+   *          The files of the segments which were flushed to disk, in the
+   *          order they were written
+   */
+  public IngestionResult(final int amountOfRecords,
+      final IInvertedIndex<String> invertedIndex,
+      final List<Path> segmentFiles) {
+    this.mAmountOfRecords = amountOfRecords;
+    this.mInvertedIndex = invertedIndex;
+    this.mSegmentFiles = Collections.unmodifiableList(segmentFiles);
+  }
+
+  /**
+   * Gets the amount of records that were ingested.
+   * 
+   * @return The amount of records that were ingested
+   */
+  public int getAmountOfRecords() {
+    return this.mAmountOfRecords;
+  }
+
+  /**
+   * Creates the index of all ingested records. If no segment was flushed to
+   * disk, this is the segment which resides in memory. Otherwise all segments
+   * are merged on disk into the given file by {@link #mergeSegments(Path)},
+   * which is read in bulk afterwards. The index resides in memory, such that
+   * rankings can write scores to its postings. Use
+   * {@link #openInvertedIndex(Path)} for an index which keeps its postings on
+   * disk instead.
+   * 
+   * @param mergedSegmentFile
+   *          The file to merge the segments into, if any were flushed
+   * @return The index of all ingested records
+   * @throws IOException
+   *           If an I/O-Exception occurred while merging or reading the
+   *           segments
+   */
+  public IInvertedIndex<String> createInvertedIndex(
+      final Path mergedSegmentFile) throws IOException {
+    if (this.mSegmentFiles.isEmpty()) {
+      return this.mInvertedIndex;
+    }
+    mergeSegments(mergedSegmentFile);
+    return IndexSegment.read(mergedSegmentFile);
+  }
+
+  /**
+   * Gets the segment of the index which resides in memory. It only contains
+   * the postings of records which were ingested after the last flush.
+   * 
+   * @return The segment of the index which resides in memory
+   */
+  public IInvertedIndex<String> getInvertedIndex() {
+    return this.mInvertedIndex;
+  }
+
+  /**
+   * Gets the files of the segments which were flushed to disk. They can be
+   * read with {@link IndexSegment#read(Path)}.
+   * 
+   * @return An unmodifiable list of the segment files, in the order they were
+   *         written
+   */
+  public List<Path> getSegmentFiles() {
+    return this.mSegmentFiles;
+  }
+
+  /**
+   * Merges all segments into a single segment written to the given file, the
+   * segment which resides in memory included. The segments are merged on disk
+   * by {@link IndexSegment#merge(List, Path)}, thus only the postings of one
+   * key are held in memory at a time. The segment files are left untouched.
+   * 
+   * @param targetFile
+   *          The file to write the merged segment to
+   * @throws IOException
+   *           If an I/O-Exception occurred while merging the segments
+   */
+  public void mergeSegments(final Path targetFile) throws IOException {
+    final Path memorySegmentFile = Files.createTempFile(
+        targetFile.toAbsolutePath().getParent(), MEMORY_SEGMENT_FILE_PREFIX,
+        MEMORY_SEGMENT_FILE_SUFFIX);
+    try {
+      IndexSegment.write(this.mInvertedIndex, memorySegmentFile);
+      final List<Path> segmentFiles = new ArrayList<>(this.mSegmentFiles);
+      segmentFiles.add(memorySegmentFile);
+      IndexSegment.merge(segmentFiles, targetFile);
+    } finally {
+      Files.delete(memorySegmentFile);
+    }
+  }
+
+  /**
+   * Opens the index of all ingested records, which keeps its postings on
+   * disk. All segments are merged on disk into the given file by
+   * {@link #mergeSegments(Path)}, the segment which resides in memory
+   * included, and the file is opened by {@link IndexSegment#open(Path)}.
+   * Thus, in contrast to {@link #createInvertedIndex(Path)}, only the keys
+   * of the index are held in memory.
+   * 
+   * @param mergedSegmentFile
+   *          The file to merge the segments into, it must exist as long as
+   *          the index is used
+   * @return The index of all ingested records, it must be closed if it is not
+   *         needed anymore
+   * @throws IOException
+   *           If an I/O-Exception occurred while merging or opening the
+   *           segments
+   */
+  public SegmentInvertedIndex openInvertedIndex(final Path mergedSegmentFile)
+      throws IOException {
+    mergeSegments(mergedSegmentFile);
+    return IndexSegment.open(mergedSegmentFile);
+  }
+}
@@ -2,6 +2,7 @@ package de.zabuza.lexisearch.indexing;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generic implementation of {@link IInvertedIndex}.
@@ -16,12 +17,18 @@ public final class InvertedIndex<K> implements IInvertedIndex<K> {
    * Data structure that maps content to their inverted lists.
    */
   private final HashMap<K, IInvertedList> mKeyToInvertedLists;
+  /**
+   * The amount of modifications this index has received so far. It is atomic
+   * such that threads which only read the index see changes of it.
+   */
+  private final AtomicLong mModificationCount;
 
   /**
    * Creates a new empty inverted index.
    */
   public InvertedIndex() {
     this.mKeyToInvertedLists = new HashMap<>();
+    this.mModificationCount = new AtomicLong();
   }
 
   /*
@@ -39,6 +46,27 @@ public final class InvertedIndex<K> implements IInvertedIndex<K> {
     }
     final boolean wasAdded = records.addPosting(recordId);
     this.mKeyToInvertedLists.put(key, records);
+    this.mModificationCount.incrementAndGet();
+
+    return wasAdded;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#addRecord(java.lang.
+   * Object, int, int)
+   */
+  @Override
+  public boolean addRecord(final K key, final int recordId,
+      final int position) {
+    IInvertedList records = this.mKeyToInvertedLists.get(key);
+    if (records == null) {
+      records = new InvertedList();
+      this.mKeyToInvertedLists.put(key, records);
+    }
+    final boolean wasAdded = records.addPositionalPosting(recordId, position);
+    this.mModificationCount.incrementAndGet();
 
     return wasAdded;
   }
@@ -76,6 +104,16 @@ public final class InvertedIndex<K> implements IInvertedIndex<K> {
     return Collections.unmodifiableSet(this.mKeyToInvertedLists.keySet());
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#getModificationCount()
+   */
+  @Override
+  public long getModificationCount() {
+    return this.mModificationCount.get();
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -86,4 +124,29 @@ public final class InvertedIndex<K> implements IInvertedIndex<K> {
   public IInvertedList getRecords(final K key) {
     return this.mKeyToInvertedLists.get(key);
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#markModified()
+   */
+  @Override
+  public void markModified() {
+    this.mModificationCount.incrementAndGet();
+  }
+
+  /**
+   * Puts the given inverted list as the records of the given key, replacing
+   * its current list. This builds the index in bulk, for example when
+   * restoring it.
+   * 
+   * @param key
+   *          The key to put the records of
+   * @param records
+   *          The records of the key
+   */
+  public void putRecords(final K key, final IInvertedList records) {
+    this.mKeyToInvertedLists.put(key, records);
+    this.mModificationCount.incrementAndGet();
+  }
 }
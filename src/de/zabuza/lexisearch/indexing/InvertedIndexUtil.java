@@ -1,20 +1,100 @@
 package de.zabuza.lexisearch.indexing;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
 import de.zabuza.lexisearch.model.document.IDocument;
 
 /**
  * Utility class for {@link IInvertedIndex}. Provides methods for building
- * indices that operate on different structures.
+ * indices that operate on different structures.<br/>
+ * <br/>
+ * Records which hold their keys as term ids, see {@link ITermRecord}, are
+ * indexed by their ids. The inverted list of a term is then looked up by its
+ * id in an array instead of hashing the key for each occurrence.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
 public final class InvertedIndexUtil {
+  /**
+   * Cache of the inverted lists of the terms of a {@link TermDictionary},
+   * indexed by the id of the term.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private static final class TermListCache {
+    /**
+     * The initial capacity of the cache.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * The inverted lists, indexed by the id of their term. An entry is
+     * <tt>null</tt> if the list of the term is not known yet.
+     */
+    private IInvertedList[] mLists;
+
+    /**
+     * Creates a new empty cache.
+     */
+    public TermListCache() {
+      this.mLists = new IInvertedList[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the inverted list of the term with the given id.
+     * 
+     * @param termId
+     *          The id of the term
+     * @return The inverted list of the term or <tt>null</tt> if it is not
+     *         known yet
+     */
+    public IInvertedList get(final int termId) {
+      if (termId >= this.mLists.length) {
+        return null;
+      }
+      return this.mLists[termId];
+    }
+
+    /**
+     * Puts the inverted list of the term with the given id.
+     * 
+     * @param termId
+     *          The id of the term
+     * @param list
+     *          The inverted list of the term
+     */
+    public void put(final int termId, final IInvertedList list) {
+      if (termId >= this.mLists.length) {
+        this.mLists = Arrays.copyOf(this.mLists,
+            Math.max(termId + 1, 2 * this.mLists.length));
+      }
+      this.mLists[termId] = list;
+    }
+  }
+
+  /**
+   * Adds the postings of the given record to the given index, in the same way
+   * {@link #createFromWords(Iterable)} does. This allows to build an index
+   * incrementally while records arrive.
+   * 
+   * @param invertedIndex
+   *          The index to add the postings to
+   * @param wordRecord
+   *          The record to add, it must not be contained in the index already
+   * @return The amount of postings that were added to the index
+   */
+  public static int addWords(final IInvertedIndex<String> invertedIndex,
+      final IKeyRecord<String> wordRecord) {
+    return addWords(invertedIndex, wordRecord, false);
+  }
 
   /**
    * Creates an {@link IInvertedIndex} which operates on a given collection of
    * {@link IKeyRecord}<tt>{@literal <String>}</tt> which can, for example, be
-   * {@link IDocument}s.
+   * {@link IDocument}s. Postings of {@link IFieldedKeyRecord}s additionally
+   * hold the term frequencies per field of the record.
    * 
    * @param <T>
    *          The exact type of records
@@ -25,15 +105,187 @@ public final class InvertedIndexUtil {
    */
   public static <T extends IKeyRecord<String>> IInvertedIndex<String>
       createFromWords(final Iterable<T> wordRecords) {
+    return createFromWords(wordRecords, false);
+  }
+
+  /**
+   * Creates a positional {@link IInvertedIndex} which operates on a given
+   * collection of {@link IKeyRecord}<tt>{@literal <String>}</tt>. Its postings
+   * additionally hold the positions at which the words occur in the records,
+   * given by their index in {@link IKeyRecord#getKeys()}. This allows phrase
+   * and proximity queries. Postings of {@link IFieldedKeyRecord}s additionally
+   * hold the term frequencies per field of the record.
+   * 
+   * @param <T>
+   *          The exact type of records
+   * @param wordRecords
+   *          Iterable collection of word records the index should operate on
+   * @return A positional {@link IInvertedIndex} which operates on the given
+   *         collection of {@link IKeyRecord}s
+   */
+  public static <T extends IKeyRecord<String>> IInvertedIndex<String>
+      createPositionalFromWords(final Iterable<T> wordRecords) {
+    return createFromWords(wordRecords, true);
+  }
+
+  /**
+   * Adds the term frequencies per field of the given record to the postings
+   * of its words, if the record is an {@link IFieldedKeyRecord}. The postings
+   * of the record must already be contained in the lists.
+   * 
+   * @param wordRecord
+   *          The record whose field term frequencies to add
+   * @param lists
+   *          The inverted lists of the words of the record, in the order
+   *          given by {@link IKeyRecord#getKeys()}
+   */
+  private static void addFieldTermFrequencies(
+      final IKeyRecord<String> wordRecord, final IInvertedList[] lists) {
+    final IFieldedKeyRecord<String> fieldedRecord =
+        (IFieldedKeyRecord<String>) wordRecord;
+    final int recordId = fieldedRecord.getRecordId();
+    final int amountOfFields = fieldedRecord.getAmountOfFields();
+
+    // The words are ordered by field, thus each field covers a range of them
+    int position = 0;
+    for (int field = 0; field < amountOfFields; field++) {
+      final int fieldEnd = Math.min(lists.length,
+          position + fieldedRecord.getFieldSize(field));
+      for (; position < fieldEnd; position++) {
+        lists[position].getPosting(recordId)
+            .increaseFieldTermFrequency(field, amountOfFields);
+      }
+    }
+  }
+
+  /**
+   * Adds the postings of the given record to the given index by its words.
+   * 
+   * @param invertedIndex
+   *          The index to add the postings to
+   * @param wordRecord
+   *          The record to add, it must not be contained in the index already
+   * @param isPositional
+   *          Whether the postings should hold the positions of the words
+   * @return The amount of postings that were added to the index
+   */
+  private static int addWords(final IInvertedIndex<String> invertedIndex,
+      final IKeyRecord<String> wordRecord, final boolean isPositional) {
+    final int recordId = wordRecord.getRecordId();
+    final String[] words = wordRecord.getKeys();
+
+    int amountOfAddedPostings = 0;
+    for (int position = 0; position < words.length; position++) {
+      final boolean wasAdded;
+      if (isPositional) {
+        wasAdded = invertedIndex.addRecord(words[position], recordId, position);
+      } else {
+        wasAdded = invertedIndex.addRecord(words[position], recordId);
+      }
+      if (wasAdded) {
+        amountOfAddedPostings++;
+      }
+    }
+
+    if (wordRecord instanceof IFieldedKeyRecord) {
+      final IInvertedList[] lists = new IInvertedList[words.length];
+      for (int position = 0; position < words.length; position++) {
+        lists[position] = invertedIndex.getRecords(words[position]);
+      }
+      addFieldTermFrequencies(wordRecord, lists);
+    }
+    return amountOfAddedPostings;
+  }
+
+  /**
+   * Adds the postings of the given record to the given index by its term ids.
+   * The inverted list of a term is looked up in the given cache and only the
+   * first occurrence of a term goes through the index.
+   * 
+   * @param invertedIndex
+   *          The index to add the postings to
+   * @param termRecord
+   *          The record to add, it must hold term ids and must not be
+   *          contained in the index already
+   * @param cache
+   *          The cache of the inverted lists of the dictionary of the record
+   * @param isPositional
+   *          Whether the postings should hold the positions of the terms
+   */
+  private static void addTerms(final IInvertedIndex<String> invertedIndex,
+      final ITermRecord termRecord, final TermListCache cache,
+      final boolean isPositional) {
+    final int recordId = termRecord.getRecordId();
+    final TermDictionary dictionary = termRecord.getTermDictionary();
+    final int[] termIds = termRecord.getTermIds();
+    IInvertedList[] lists = null;
+    if (termRecord instanceof IFieldedKeyRecord) {
+      lists = new IInvertedList[termIds.length];
+    }
+
+    for (int position = 0; position < termIds.length; position++) {
+      final int termId = termIds[position];
+      IInvertedList list = cache.get(termId);
+      if (list == null) {
+        final String term = dictionary.getTerm(termId);
+        if (isPositional) {
+          invertedIndex.addRecord(term, recordId, position);
+        } else {
+          invertedIndex.addRecord(term, recordId);
+        }
+        list = invertedIndex.getRecords(term);
+        cache.put(termId, list);
+      } else if (isPositional) {
+        list.addPositionalPosting(recordId, position);
+      } else {
+        list.addPosting(recordId);
+      }
+      if (lists != null) {
+        lists[position] = list;
+      }
+    }
+
+    if (lists != null) {
+      addFieldTermFrequencies(termRecord, lists);
+    }
+  }
+
+  /**
+   * Creates an {@link IInvertedIndex} which operates on a given collection of
+   * {@link IKeyRecord}<tt>{@literal <String>}</tt>. Records holding term ids
+   * are indexed by them, all others by their words.
+   * 
+   * @param <T>
+   *          The exact type of records
+   * @param wordRecords
+   *          Iterable collection of word records the index should operate on
+   * @param isPositional
+   *          Whether the postings should hold the positions of the words
+   * @return An {@link IInvertedIndex} which operates on the given collection of
+   *         {@link IKeyRecord}s
+   */
+  private static <T extends IKeyRecord<String>> IInvertedIndex<String>
+      createFromWords(final Iterable<T> wordRecords,
+          final boolean isPositional) {
     final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    final IdentityHashMap<TermDictionary, TermListCache> caches =
+        new IdentityHashMap<>();
 
     for (final T wordRecord : wordRecords) {
-      final int recordId = wordRecord.getRecordId();
-      final String[] words = wordRecord.getKeys();
-
-      for (final String word : words) {
-        invertedIndex.addRecord(word, recordId);
+      if (wordRecord instanceof ITermRecord) {
+        final ITermRecord termRecord = (ITermRecord) wordRecord;
+        final TermDictionary dictionary = termRecord.getTermDictionary();
+        if (dictionary != null) {
+          TermListCache cache = caches.get(dictionary);
+          if (cache == null) {
+            cache = new TermListCache();
+            caches.put(dictionary, cache);
+          }
+          addTerms(invertedIndex, termRecord, cache, isPositional);
+          continue;
+        }
       }
+      addWords(invertedIndex, wordRecord, isPositional);
     }
 
     return invertedIndex;
@@ -1,8 +1,12 @@
 package de.zabuza.lexisearch.indexing;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Set;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -14,15 +18,24 @@ import java.util.TreeSet;
  *
  */
 public class InvertedList implements IInvertedList {
+  /**
+   * The smallest id of all contained postings.
+   */
+  private int mFirstId;
   /**
    * Map containing all posting ids that are contained by this list which
    * provides fast direct access to its elements by id.
    */
   private final HashMap<Integer, Posting> mIdToPosting;
   /**
-   * Sorted set containing all postings contained by this list.
+   * The greatest id of all contained postings.
+   */
+  private int mLastId;
+  /**
+   * Collection containing all postings contained by this list in ascending
+   * order of their ids.
    */
-  private final Set<Posting> mPostings;
+  private final Collection<Posting> mPostings;
 
   /**
    * Creates a new empty inverted list.
@@ -32,14 +45,45 @@ public class InvertedList implements IInvertedList {
   }
 
   /**
-   * Creates a new empty inverted list which stores postings in the given set.
+   * Creates a new empty inverted list which stores postings in the given
+   * collection. Postings are only added to it if their record is not
+   * contained yet.
    * 
    * @param postings
-   *          The set to store postings in which must be empty
+   *          The collection to store postings in which must be empty. Either
+   *          a {@link NavigableSet} which sorts the postings or a
+   *          {@link RandomAccess} list, postings must then be added in
+   *          ascending order of their ids.
    */
-  protected InvertedList(final Set<Posting> postings) {
+  protected InvertedList(final Collection<Posting> postings) {
     this.mPostings = postings;
     this.mIdToPosting = new HashMap<>();
+    this.mFirstId = Integer.MAX_VALUE;
+    this.mLastId = Integer.MIN_VALUE;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedList#addPositionalPosting(int,
+   * int)
+   */
+  @Override
+  public boolean addPositionalPosting(final int recordId, final int position) {
+    final Integer recordIdAsInteger = Integer.valueOf(recordId);
+    Posting posting = this.mIdToPosting.get(recordIdAsInteger);
+    final boolean isContained = posting != null;
+    if (!isContained) {
+      posting = new Posting(recordId);
+      this.mPostings.add(posting);
+      this.mIdToPosting.put(recordIdAsInteger, posting);
+      updateIdRange(recordId);
+    } else {
+      // Increase the term frequency as this element is already contained
+      posting.increaseTermFrequency();
+    }
+    posting.addPosition(position);
+    return !isContained;
   }
 
   /*
@@ -56,6 +100,7 @@ public class InvertedList implements IInvertedList {
       final Posting posting = new Posting(recordId);
       this.mPostings.add(posting);
       this.mIdToPosting.put(recordIdAsInteger, posting);
+      updateIdRange(recordId);
     } else {
       // Increase the term frequency as this element is already contained
       final Posting posting = this.mIdToPosting.get(recordIdAsInteger);
@@ -78,6 +123,7 @@ public class InvertedList implements IInvertedList {
       final Posting posting = new Posting(recordId, termFrequency);
       this.mPostings.add(posting);
       this.mIdToPosting.put(recordIdAsInteger, posting);
+      updateIdRange(recordId);
     } else {
       // Increase the term frequency as this element is already contained
       final Posting posting = this.mIdToPosting.get(recordIdAsInteger);
@@ -102,6 +148,7 @@ public class InvertedList implements IInvertedList {
       final Posting posting = new Posting(recordId, termFrequency, score);
       this.mPostings.add(posting);
       this.mIdToPosting.put(recordIdAsInteger, posting);
+      updateIdRange(recordId);
     } else {
       // Increase the term frequency as this element is already contained
       final Posting posting = this.mIdToPosting.get(recordIdAsInteger);
@@ -120,6 +167,42 @@ public class InvertedList implements IInvertedList {
     return this.mIdToPosting.containsKey(Integer.valueOf(recordId));
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedList#getFirstId()
+   */
+  @Override
+  public int getFirstId() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return this.mFirstId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedList#getLastId()
+   */
+  @Override
+  public int getLastId() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return this.mLastId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedList#getPosting(int)
+   */
+  @Override
+  public Posting getPosting(final int recordId) {
+    return this.mIdToPosting.get(Integer.valueOf(recordId));
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -127,7 +210,36 @@ public class InvertedList implements IInvertedList {
    */
   @Override
   public Iterable<Posting> getPostings() {
-    return Collections.unmodifiableSet(this.mPostings);
+    return Collections.unmodifiableCollection(this.mPostings);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedList#getPostingsFrom(int)
+   */
+  @Override
+  public Iterable<Posting> getPostingsFrom(final int recordId) {
+    if (this.mPostings instanceof NavigableSet) {
+      final NavigableSet<Posting> sortedPostings =
+          (NavigableSet<Posting>) this.mPostings;
+      return Collections.unmodifiableSet(
+          sortedPostings.tailSet(new Posting(recordId), true));
+    }
+    if (this.mPostings instanceof RandomAccess) {
+      // Postings were inserted in sorted order, search the first one
+      final List<Posting> sortedPostings = (List<Posting>) this.mPostings;
+      int fromIndex =
+          Collections.binarySearch(sortedPostings, new Posting(recordId));
+      if (fromIndex < 0) {
+        fromIndex = -fromIndex - 1;
+      }
+      return Collections.unmodifiableList(
+          sortedPostings.subList(fromIndex, sortedPostings.size()));
+    }
+    // Postings were inserted in sorted order, skip the smaller ones
+    return () -> this.mPostings.stream()
+        .filter(posting -> posting.getId() >= recordId).iterator();
   }
 
   /*
@@ -160,4 +272,28 @@ public class InvertedList implements IInvertedList {
     return this.mPostings.toString();
   }
 
+  /**
+   * Adds the given posting to this list. Unlike the <tt>addPosting</tt>
+   * methods it does not look up whether the record is contained already.
+   * 
+   * @param posting
+   *          The posting to add, its record must not be contained in this list
+   */
+  protected void appendPosting(final Posting posting) {
+    this.mPostings.add(posting);
+    this.mIdToPosting.put(Integer.valueOf(posting.getId()), posting);
+    updateIdRange(posting.getId());
+  }
+
+  /**
+   * Updates the range of contained ids by the given newly added id.
+   * 
+   * @param recordId
+   *          The id of the newly added posting
+   */
+  private void updateIdRange(final int recordId) {
+    this.mFirstId = Math.min(this.mFirstId, recordId);
+    this.mLastId = Math.max(this.mLastId, recordId);
+  }
+
 }
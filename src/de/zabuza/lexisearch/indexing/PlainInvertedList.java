@@ -1,12 +1,13 @@
 package de.zabuza.lexisearch.indexing;
 
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
 
 /**
  * Implementation of {@link IInvertedList} which does not hold its records
  * sorted at all time. However it assumes they are inserted in sorted order
  * which must hold at all time. Therefore its inserting complexity is in
- * <tt>O(1)</tt>.
+ * <tt>O(1)</tt>. The postings are held in an array in the order of their ids,
+ * thus {@link #getPostingsFrom(int)} finds the first of them by binary search.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -17,6 +18,31 @@ public final class PlainInvertedList extends InvertedList {
    * Creates a new empty inverted list.
    */
   public PlainInvertedList() {
-    super(new LinkedHashSet<>());
+    super(new ArrayList<>());
+  }
+
+  /**
+   * Creates a new inverted list holding the given postings. This builds the
+   * list in bulk, for example when restoring it.
+   * 
+   * @param postings
+   *          The postings to hold, sorted by their id in strictly ascending
+   *          order
+   * @throws IllegalArgumentException
+   *           If the postings are not sorted by their id in strictly
+   *           ascending order
+   */
+  public PlainInvertedList(final Posting[] postings)
+      throws IllegalArgumentException {
+    super(new ArrayList<>(postings.length));
+    int lastId = Integer.MIN_VALUE;
+    for (int i = 0; i < postings.length; i++) {
+      final int id = postings[i].getId();
+      if (i > 0 && id <= lastId) {
+        throw new IllegalArgumentException();
+      }
+      appendPosting(postings[i]);
+      lastId = id;
+    }
   }
 }
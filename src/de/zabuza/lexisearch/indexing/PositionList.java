@@ -0,0 +1,172 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.Arrays;
+
+/**
+ * Compressed list of the positions at which a key occurs in a record. The
+ * positions must be added in ascending order. Each position is stored as the
+ * gap to its predecessor, encoded as variable-length integer with seven bits
+ * per byte. Thus small gaps, which are the common case, only need one byte.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class PositionList {
+  /**
+   * Bit which marks that further bytes of a variable-length integer follow.
+   */
+  private static final int CONTINUATION_BIT = 0x80;
+  /**
+   * The initial capacity of the byte buffer.
+   */
+  private static final int INITIAL_CAPACITY = 2;
+  /**
+   * The amount of payload bits per byte.
+   */
+  private static final int PAYLOAD_BITS = 7;
+  /**
+   * Mask which extracts the payload bits of a byte.
+   */
+  private static final int PAYLOAD_MASK = 0x7F;
+
+  /**
+   * The buffer holding the encoded gaps.
+   */
+  private byte[] mBytes;
+  /**
+   * The amount of used bytes of the buffer.
+   */
+  private int mByteSize;
+  /**
+   * The last added position or <tt>-1</tt> if the list is empty.
+   */
+  private int mLastPosition;
+  /**
+   * The amount of positions in this list.
+   */
+  private int mSize;
+
+  /**
+   * Creates a new empty position list.
+   */
+  public PositionList() {
+    this.mBytes = new byte[INITIAL_CAPACITY];
+    this.mByteSize = 0;
+    this.mLastPosition = -1;
+    this.mSize = 0;
+  }
+
+  /**
+   * Adds the given position to the end of this list.
+   * 
+   * @param position
+   *          The position to add, must be greater than the last added position
+   * @throws IllegalArgumentException
+   *           If the position is not greater than the last added position
+   */
+  public void add(final int position) {
+    if (position <= this.mLastPosition) {
+      throw new IllegalArgumentException();
+    }
+    int gap = position - this.mLastPosition - 1;
+    while (true) {
+      ensureCapacity(this.mByteSize + 1);
+      if ((gap & ~PAYLOAD_MASK) == 0) {
+        this.mBytes[this.mByteSize] = (byte) gap;
+        this.mByteSize++;
+        break;
+      }
+      this.mBytes[this.mByteSize] = (byte) ((gap & PAYLOAD_MASK)
+          | CONTINUATION_BIT);
+      this.mByteSize++;
+      gap >>>= PAYLOAD_BITS;
+    }
+    this.mLastPosition = position;
+    this.mSize++;
+  }
+
+  /**
+   * Gets the amount of bytes the encoded positions occupy.
+   * 
+   * @return The amount of bytes the encoded positions occupy
+   */
+  public int getByteSize() {
+    return this.mByteSize;
+  }
+
+  /**
+   * Gets the last added position.
+   * 
+   * @return The last added position or <tt>-1</tt> if the list is empty
+   */
+  public int getLastPosition() {
+    return this.mLastPosition;
+  }
+
+  /**
+   * Gets the amount of positions in this list.
+   * 
+   * @return The amount of positions in this list
+   */
+  public int getSize() {
+    return this.mSize;
+  }
+
+  /**
+   * Whether this list contains no positions.
+   * 
+   * @return <tt>True</tt> if this list contains no positions, <tt>false</tt>
+   *         otherwise
+   */
+  public boolean isEmpty() {
+    return this.mSize == 0;
+  }
+
+  /**
+   * Decodes all positions of this list.
+   * 
+   * @return A new array containing all positions in ascending order
+   */
+  public int[] toArray() {
+    final int[] positions = new int[this.mSize];
+    int position = -1;
+    int byteIndex = 0;
+    for (int i = 0; i < this.mSize; i++) {
+      int gap = 0;
+      int shift = 0;
+      int currentByte;
+      do {
+        currentByte = this.mBytes[byteIndex];
+        byteIndex++;
+        gap |= (currentByte & PAYLOAD_MASK) << shift;
+        shift += PAYLOAD_BITS;
+      } while ((currentByte & CONTINUATION_BIT) != 0);
+      position += gap + 1;
+      positions[i] = position;
+    }
+    return positions;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  /**
+   * Ensures the byte buffer can hold at least the given amount of bytes.
+   * 
+   * @param capacity
+   *          The amount of bytes the buffer must be able to hold
+   */
+  private void ensureCapacity(final int capacity) {
+    if (capacity > this.mBytes.length) {
+      this.mBytes = Arrays.copyOf(this.mBytes,
+          Math.max(capacity, this.mBytes.length * 2));
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Utility class which intersects positional {@link IInvertedList}s. The lists
+ * are intersected by their record ids like an <tt>and</tt> query, positions
+ * only get decoded for records that all lists have in common. Those records
+ * remain if their positions satisfy a given condition, like forming a phrase.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+final class PositionalIntersection {
+  /**
+   * Intersects the given positional lists such that only records remain where
+   * the keys of the lists occur consecutively, in the order of the lists.
+   * 
+   * @param lists
+   *          Positional lists to intersect, in the order of the phrase
+   * @return A list containing all records where the keys of the given lists
+   *         occur as phrase
+   */
+  static IInvertedList intersectPhrase(final List<IInvertedList> lists) {
+    return intersect(lists, PositionalIntersection::isPhrase);
+  }
+
+  /**
+   * Intersects the given positional lists such that only records remain where
+   * the keys of all lists occur within a window of the given size, in any
+   * order.
+   * 
+   * @param lists
+   *          Positional lists to intersect
+   * @param maximalDistance
+   *          The maximal distance between the first and the last position of
+   *          the occurrences, must not be negative
+   * @return A list containing all records where the keys of the given lists
+   *         occur near to each other
+   */
+  static IInvertedList intersectProximity(final List<IInvertedList> lists,
+      final int maximalDistance) {
+    if (maximalDistance < 0) {
+      throw new IllegalArgumentException();
+    }
+    return intersect(lists,
+        positions -> isWithinWindow(positions, maximalDistance));
+  }
+
+  /**
+   * Intersects the given lists by their record ids and keeps the records
+   * whose positions match the given condition. The term frequencies and scores
+   * of the remaining records are summed up.
+   * 
+   * @param lists
+   *          Positional lists to intersect, must not be empty
+   * @param positionMatcher
+   *          Condition the positions of a record must satisfy, the positions
+   *          of the <tt>i</tt>-th list are given at index <tt>i</tt>
+   * @return A list containing all records that all lists have in common and
+   *         whose positions satisfy the condition
+   */
+  private static IInvertedList intersect(final List<IInvertedList> lists,
+      final Predicate<int[][]> positionMatcher) {
+    final int amountOfLists = lists.size();
+    if (amountOfLists == 0) {
+      throw new IllegalArgumentException();
+    }
+
+    // It is absolutely necessary that the insertion order into this list is
+    // sorted, as the plain list itself does not sort its elements.
+    final IInvertedList resultingList = new PlainInvertedList();
+
+    final ArrayList<Iterator<Posting>> iterators =
+        new ArrayList<>(amountOfLists);
+    final Posting[] currentPostings = new Posting[amountOfLists];
+    for (int i = 0; i < amountOfLists; i++) {
+      final Iterator<Posting> iterator = lists.get(i).getPostings().iterator();
+      if (!iterator.hasNext()) {
+        return resultingList;
+      }
+      iterators.add(iterator);
+      currentPostings[i] = iterator.next();
+    }
+
+    while (true) {
+      // Advance all lists to the greatest current record
+      int targetRecordId = currentPostings[0].getId();
+      for (int i = 1; i < amountOfLists; i++) {
+        targetRecordId = Math.max(targetRecordId, currentPostings[i].getId());
+      }
+      boolean isCommonRecord = true;
+      for (int i = 0; i < amountOfLists; i++) {
+        while (currentPostings[i].getId() < targetRecordId) {
+          if (!iterators.get(i).hasNext()) {
+            return resultingList;
+          }
+          currentPostings[i] = iterators.get(i).next();
+        }
+        if (currentPostings[i].getId() != targetRecordId) {
+          isCommonRecord = false;
+        }
+      }
+      if (!isCommonRecord) {
+        continue;
+      }
+
+      // All lists hold the record, check its positions
+      final int[][] positions = new int[amountOfLists][];
+      int totalTermFrequency = 0;
+      double totalScore = 0;
+      for (int i = 0; i < amountOfLists; i++) {
+        final PositionList positionList = currentPostings[i].getPositions();
+        if (positionList == null) {
+          throw new IllegalArgumentException();
+        }
+        positions[i] = positionList.toArray();
+        totalTermFrequency += currentPostings[i].getTermFrequency();
+        totalScore += currentPostings[i].getScore();
+      }
+      if (positionMatcher.test(positions)) {
+        resultingList.addPosting(targetRecordId, totalTermFrequency,
+            totalScore);
+      }
+
+      // Advance all lists past the record
+      for (int i = 0; i < amountOfLists; i++) {
+        if (!iterators.get(i).hasNext()) {
+          return resultingList;
+        }
+        currentPostings[i] = iterators.get(i).next();
+      }
+    }
+  }
+
+  /**
+   * Whether the given positions contain a phrase, i.e. a position <tt>p</tt>
+   * such that the <tt>i</tt>-th positions contain <tt>p + i</tt>.
+   * 
+   * @param positions
+   *          The sorted positions of each key of the phrase, in the order of
+   *          the phrase
+   * @return <tt>True</tt> if the positions contain the phrase, <tt>false</tt>
+   *         otherwise
+   */
+  private static boolean isPhrase(final int[][] positions) {
+    final int[] pointers = new int[positions.length];
+    for (final int start : positions[0]) {
+      boolean isMatch = true;
+      for (int i = 1; i < positions.length && isMatch; i++) {
+        final int target = start + i;
+        final int[] keyPositions = positions[i];
+        while (pointers[i] < keyPositions.length
+            && keyPositions[pointers[i]] < target) {
+          pointers[i]++;
+        }
+        if (pointers[i] == keyPositions.length) {
+          // No later occurrence of this key, no further start can match
+          return false;
+        }
+        isMatch = keyPositions[pointers[i]] == target;
+      }
+      if (isMatch) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the given positions contain one position of each key such that
+   * all of them lie within a window of the given size.
+   * 
+   * @param positions
+   *          The sorted positions of each key
+   * @param maximalDistance
+   *          The maximal distance between the first and the last position of
+   *          the window
+   * @return <tt>True</tt> if such a window exists, <tt>false</tt> otherwise
+   */
+  private static boolean isWithinWindow(final int[][] positions,
+      final int maximalDistance) {
+    // Slide over the positions by always advancing the smallest one
+    final int[] pointers = new int[positions.length];
+    while (true) {
+      int smallestList = 0;
+      int smallestPosition = Integer.MAX_VALUE;
+      int greatestPosition = Integer.MIN_VALUE;
+      for (int i = 0; i < positions.length; i++) {
+        final int position = positions[i][pointers[i]];
+        if (position < smallestPosition) {
+          smallestPosition = position;
+          smallestList = i;
+        }
+        greatestPosition = Math.max(greatestPosition, position);
+      }
+      if (greatestPosition - smallestPosition <= maximalDistance) {
+        return true;
+      }
+      pointers[smallestList]++;
+      if (pointers[smallestList] == positions[smallestList].length) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private PositionalIntersection() {
+
+  }
+}
@@ -5,7 +5,8 @@ import de.zabuza.lexisearch.util.MathUtil;
 /**
  * Class for postings. They contain the id of the record object they correspond
  * to. They can also have scores which determine their relevance to other
- * postings.
+ * postings. Postings of positional indices additionally hold the positions at
+ * which their key occurs in the record.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -20,11 +21,20 @@ public final class Posting implements Comparable<Posting> {
    */
   public static final int DEFAULT_TERM_FREQUENCY = 1;
 
+  /**
+   * The term frequencies of the key per field of the record or <tt>null</tt>
+   * if the posting is not fielded.
+   */
+  private int[] mFieldTermFrequencies;
   /**
    * The id of the record the posting belongs to.
    */
   private final int mId;
-
+  /**
+   * The positions at which the key occurs in the record or <tt>null</tt> if
+   * the posting is not positional.
+   */
+  private PositionList mPositions;
   /**
    * The score of this posting which reflects its relevance to the containing
    * inverted list.
@@ -73,9 +83,49 @@ public final class Posting implements Comparable<Posting> {
    *          containing inverted list.
    */
   public Posting(final int id, final int termFrequency, final double score) {
+    this(id, termFrequency, score, null, null);
+  }
+
+  /**
+   * Creates a new posting with all of its values given at once, for example
+   * when restoring it. The given structures are taken over, not copied.
+   * 
+   * @param id
+   *          The id of the record the posting belongs to
+   * @param termFrequency
+   *          The term frequency of the posting
+   * @param score
+   *          The score of the posting which reflects its relevance to the
+   *          containing inverted list.
+   * @param fieldTermFrequencies
+   *          The term frequencies of the key per field of the record or
+   *          <tt>null</tt> if the posting is not fielded
+   * @param positions
+   *          The positions at which the key occurs in the record or
+   *          <tt>null</tt> if the posting is not positional
+   */
+  public Posting(final int id, final int termFrequency, final double score,
+      final int[] fieldTermFrequencies, final PositionList positions) {
     this.mId = id;
     this.mTermFrequency = termFrequency;
     this.mScore = score;
+    this.mPositions = positions;
+    this.mFieldTermFrequencies = fieldTermFrequencies;
+  }
+
+  /**
+   * Adds the given position to the positions at which the key of this posting
+   * occurs in the record. Makes the posting positional if it was not already.
+   * 
+   * @param position
+   *          The position to add, must be greater than all previously added
+   *          positions
+   */
+  public void addPosition(final int position) {
+    if (this.mPositions == null) {
+      this.mPositions = new PositionList();
+    }
+    this.mPositions.add(position);
   }
 
   /*
@@ -111,6 +161,34 @@ public final class Posting implements Comparable<Posting> {
     return true;
   }
 
+  /**
+   * Gets the amount of fields the term frequencies of this posting are
+   * counted for.
+   * 
+   * @return The amount of fields or <tt>0</tt> if the posting is not fielded
+   */
+  public int getAmountOfFields() {
+    if (this.mFieldTermFrequencies == null) {
+      return 0;
+    }
+    return this.mFieldTermFrequencies.length;
+  }
+
+  /**
+   * Gets the term frequency of the key in the given field of the record.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The term frequency of the key in the given field or <tt>0</tt> if
+   *         the posting is not fielded
+   */
+  public int getFieldTermFrequency(final int field) {
+    if (this.mFieldTermFrequencies == null) {
+      return 0;
+    }
+    return this.mFieldTermFrequencies[field];
+  }
+
   /**
    * Gets the id of the record belonging to this posting.
    * 
@@ -120,6 +198,16 @@ public final class Posting implements Comparable<Posting> {
     return this.mId;
   }
 
+  /**
+   * Gets the positions at which the key of this posting occurs in the record.
+   * 
+   * @return The positions at which the key occurs or <tt>null</tt> if the
+   *         posting is not positional
+   */
+  public PositionList getPositions() {
+    return this.mPositions;
+  }
+
   /**
    * Gets the score of this posting which reflects its relevance to the
    * containing inverted list.
@@ -152,6 +240,32 @@ public final class Posting implements Comparable<Posting> {
     return result;
   }
 
+  /**
+   * Increases the term frequency of the key in the given field of the record
+   * by one. Makes the posting fielded if it was not already. The overall term
+   * frequency of the posting is not changed.
+   * 
+   * @param field
+   *          The index of the field, between <tt>0</tt> inclusive and the
+   *          amount of fields exclusive
+   * @param amountOfFields
+   *          The amount of fields of the record
+   * @throws IllegalArgumentException
+   *           If the field does not exist or the amount of fields differs from
+   *           previous calls
+   */
+  public void increaseFieldTermFrequency(final int field,
+      final int amountOfFields) {
+    if (this.mFieldTermFrequencies == null) {
+      this.mFieldTermFrequencies = new int[amountOfFields];
+    }
+    if (this.mFieldTermFrequencies.length != amountOfFields || field < 0
+        || field >= amountOfFields) {
+      throw new IllegalArgumentException();
+    }
+    this.mFieldTermFrequencies[field]++;
+  }
+
   /**
    * Increases the term frequency of this posting by one.
    */
@@ -159,6 +273,15 @@ public final class Posting implements Comparable<Posting> {
     this.mTermFrequency++;
   }
 
+  /**
+   * Whether the posting holds term frequencies per field of the record.
+   * 
+   * @return <tt>True</tt> if the posting is fielded, <tt>false</tt> otherwise
+   */
+  public boolean isFielded() {
+    return this.mFieldTermFrequencies != null;
+  }
+
   /**
    * Sets the score of this posting which reflects its relevance to the
    * containing inverted list.
@@ -0,0 +1,127 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.HashMap;
+
+/**
+ * Assigns the ids of a fixed set of records to the slots of arrays, such that
+ * values per record can be kept in plain arrays instead of maps. Ids which
+ * are assigned densely from <tt>0</tt> are used as slots directly, thus
+ * looking up their slot is a single comparison.<br/>
+ * <br/>
+ * Like for {@link DenseKeyRecordSet}, ids are only used directly as long as
+ * at most {@link DenseKeyRecordSet#MAXIMAL_SLOTS_PER_RECORD} slots are needed
+ * per record. Otherwise, for example for sparse external ids or negative ids,
+ * the ids are mapped to consecutive slots by a table.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class RecordSlots {
+  /**
+   * The slot returned for records which have none.
+   */
+  public static final int NO_SLOT = -1;
+  /**
+   * The minimal amount of slots, ids smaller than this are always used as
+   * slots directly.
+   */
+  private static final int MINIMAL_AMOUNT_OF_SLOTS = 16;
+
+  /**
+   * Creates the slots of the given record ids. Ids which occur multiple times
+   * share their slot.
+   * 
+   * @param recordIds
+   *          The ids of the records to create slots for
+   * @return The slots of the given record ids
+   */
+  public static RecordSlots forIds(final int[] recordIds) {
+    int minimalId = 0;
+    int maximalId = -1;
+    for (final int recordId : recordIds) {
+      minimalId = Math.min(minimalId, recordId);
+      maximalId = Math.max(maximalId, recordId);
+    }
+    final long maximalAmountOfSlots = Math.max(MINIMAL_AMOUNT_OF_SLOTS,
+        (long) recordIds.length * DenseKeyRecordSet.MAXIMAL_SLOTS_PER_RECORD);
+    if (minimalId >= 0 && maximalId < maximalAmountOfSlots) {
+      return new RecordSlots(maximalId + 1, null);
+    }
+
+    final HashMap<Integer, Integer> idToSlot =
+        new HashMap<>(recordIds.length * 2);
+    for (final int recordId : recordIds) {
+      idToSlot.putIfAbsent(Integer.valueOf(recordId),
+          Integer.valueOf(idToSlot.size()));
+    }
+    return new RecordSlots(idToSlot.size(), idToSlot);
+  }
+
+  /**
+   * The amount of slots.
+   */
+  private final int mAmountOfSlots;
+  /**
+   * Table which maps record ids to their slot or <tt>null</tt> if the ids are
+   * used as slots directly.
+   */
+  private final HashMap<Integer, Integer> mIdToSlot;
+
+  /**
+   * Creates new record slots.
+   * 
+   * @param amountOfSlots
+   *          The amount of slots
+   * @param idToSlot
+   *          Table which maps record ids to their slot or <tt>null</tt> if
+   *          the ids are used as slots directly
+   */
+  private RecordSlots(final int amountOfSlots,
+      final HashMap<Integer, Integer> idToSlot) {
+    this.mAmountOfSlots = amountOfSlots;
+    this.mIdToSlot = idToSlot;
+  }
+
+  /**
+   * Gets the amount of slots, i.e. the size of arrays which hold a value per
+   * slot.
+   * 
+   * @return The amount of slots
+   */
+  public int getAmountOfSlots() {
+    return this.mAmountOfSlots;
+  }
+
+  /**
+   * Gets the slot of the record with the given id.
+   * 
+   * @param recordId
+   *          The id of the record
+   * @return The slot of the record, between <tt>0</tt> inclusive and
+   *         {@link #getAmountOfSlots()} exclusive, or {@link #NO_SLOT} if
+   *         the record has none
+   */
+  public int getSlot(final int recordId) {
+    if (this.mIdToSlot == null) {
+      if (recordId < 0 || recordId >= this.mAmountOfSlots) {
+        return NO_SLOT;
+      }
+      return recordId;
+    }
+    final Integer slot = this.mIdToSlot.get(Integer.valueOf(recordId));
+    if (slot == null) {
+      return NO_SLOT;
+    }
+    return slot.intValue();
+  }
+
+  /**
+   * Whether the ids of the records are used as slots directly.
+   * 
+   * @return <tt>True</tt> if the ids are used as slots directly,
+   *         <tt>false</tt> if they are mapped by a table
+   */
+  public boolean isDense() {
+    return this.mIdToSlot == null;
+  }
+}
@@ -0,0 +1,204 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only {@link IInvertedIndex} which keeps the postings of an
+ * {@link IndexSegment} on disk. Only the keys and the positions of their
+ * inverted lists in the segment file are held in memory, the inverted list of
+ * a key is read from the file each time it is requested, by a positioned read
+ * of the channel. Thus the index can be used by multiple threads and its size
+ * is not limited by the memory.<br/>
+ * <br/>
+ * As the inverted lists are read anew on every request, changes of their
+ * postings, like scores written by a ranking, are not kept. Such indices need
+ * to be read into memory by {@link IndexSegment#read(java.nio.file.Path)}.
+ * The index must be closed if it is not needed anymore, which closes the
+ * segment file.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class SegmentInvertedIndex
+    implements IInvertedIndex<String>, Closeable {
+  /**
+   * Message which is shown when the segment file is damaged.
+   */
+  private static final String MSG_CORRUPTED_SEGMENT =
+      "The given index segment is corrupted.";
+
+  /**
+   * The channel of the segment file.
+   */
+  private final FileChannel mChannel;
+  /**
+   * The keys of the segment in ascending order.
+   */
+  private final String[] mKeys;
+  /**
+   * The positions of the inverted lists of the keys in the segment file,
+   * followed by the size of the file. The inverted list of a key ends before
+   * the inverted list of the next key.
+   */
+  private final long[] mListPositions;
+  /**
+   * The amount of modifications this index has received so far.
+   */
+  private final AtomicLong mModificationCount;
+
+  /**
+   * Creates a new index which reads its inverted lists from the given segment
+   * file. Use {@link IndexSegment#open(java.nio.file.Path)} to open a segment
+   * file.
+   * 
+   * @param channel
+   *          The channel of the segment file, it gets closed together with
+   *          the index
+   * @param keys
+   *          The keys of the segment in ascending order
+   * @param listPositions
+   *          The positions of the inverted lists of the keys in the segment
+   *          file, followed by the size of the file
+   */
+  SegmentInvertedIndex(final FileChannel channel, final String[] keys,
+      final long[] listPositions) {
+    this.mChannel = channel;
+    this.mKeys = keys;
+    this.mListPositions = listPositions;
+    this.mModificationCount = new AtomicLong();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.indexing.IInvertedIndex#addRecord(java.lang.Object,
+   * int)
+   */
+  @Override
+  public boolean addRecord(final String key, final int recordId) {
+    throw new UnsupportedOperationException();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#addRecord(java.lang.
+   * Object, int, int)
+   */
+  @Override
+  public boolean addRecord(final String key, final int recordId,
+      final int position) {
+    throw new UnsupportedOperationException();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    this.mChannel.close();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.indexing.IInvertedIndex#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(final String key) {
+    return Arrays.binarySearch(this.mKeys, key) >= 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.indexing.IInvertedIndex#containsRecord(java.lang.
+   * Object, int)
+   */
+  @Override
+  public boolean containsRecord(final String key, final int recordId) {
+    final IInvertedList records = getRecords(key);
+    return records != null && records.containsPosting(recordId);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#getKeys()
+   */
+  @Override
+  public Iterable<String> getKeys() {
+    return Collections.unmodifiableList(Arrays.asList(this.mKeys));
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#getModificationCount()
+   */
+  @Override
+  public long getModificationCount() {
+    return this.mModificationCount.get();
+  }
+
+  /**
+   * Gets all records of the given key, read from the segment file. Each call
+   * reads a new inverted list.
+   * 
+   * @param key
+   *          The key to get its records
+   * @return All records of the given key or <tt>null</tt> if the key is not
+   *         contained
+   * @throws UncheckedIOException
+   *           If an I/O-Exception occurred while reading the segment file or
+   *           it is corrupted
+   */
+  @Override
+  public IInvertedList getRecords(final String key)
+      throws UncheckedIOException {
+    final int keyIndex = Arrays.binarySearch(this.mKeys, key);
+    if (keyIndex < 0) {
+      return null;
+    }
+    final long position = this.mListPositions[keyIndex];
+    final long length = this.mListPositions[keyIndex + 1] - position;
+    final int bufferSize = (int) Math.max(Long.BYTES,
+        Math.min(ChannelInput.DEFAULT_BUFFER_SIZE, length));
+    try {
+      final ChannelInput input =
+          new ChannelInput(this.mChannel, position, length, null, bufferSize);
+      final Posting[] postings =
+          new Posting[IndexSerializationUtil.readAmount(input)];
+      for (int i = 0; i < postings.length; i++) {
+        postings[i] = IndexSerializationUtil.readPosting(input);
+      }
+      return new PlainInvertedList(postings);
+    } catch (final BufferUnderflowException | IllegalArgumentException e) {
+      throw new UncheckedIOException(new IOException(MSG_CORRUPTED_SEGMENT, e));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IInvertedIndex#markModified()
+   */
+  @Override
+  public void markModified() {
+    this.mModificationCount.incrementAndGet();
+  }
+}
@@ -0,0 +1,172 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent dictionary which assigns dense ids to terms. Records can use it
+ * to hold their keys as compact arrays of term ids instead of tokenizing their
+ * content again on every access, equal terms of different records then share
+ * one string instance, see {@link ITermRecord}. A dictionary is owned by the
+ * set of the records using it, such that it is released together with
+ * them.<br/>
+ * <br/>
+ * Lookups do not lock, adding a new term is guarded by a single lock. Term ids
+ * are never reassigned, thus they stay valid for the lifetime of the
+ * dictionary.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class TermDictionary {
+  /**
+   * Constant for the id of a term that is not contained in the dictionary.
+   */
+  public static final int NO_TERM = -1;
+  /**
+   * The initial capacity of the array holding the terms.
+   */
+  private static final int INITIAL_CAPACITY = 1_024;
+
+  /**
+   * Lock guarding the addition of terms.
+   */
+  private final ReentrantLock mLock;
+  /**
+   * The amount of terms contained in the dictionary, guarded by the lock.
+   */
+  private int mSize;
+  /**
+   * Map connecting the terms to their ids.
+   */
+  private final ConcurrentHashMap<String, Integer> mTermToId;
+  /**
+   * The terms of the dictionary, indexed by their id. Is replaced by a larger
+   * copy if it is full.
+   */
+  private volatile String[] mTerms;
+
+  /**
+   * Creates a new empty dictionary.
+   */
+  public TermDictionary() {
+    this.mLock = new ReentrantLock();
+    this.mSize = 0;
+    this.mTermToId = new ConcurrentHashMap<>();
+    this.mTerms = new String[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Gets the terms of the given term ids.
+   * 
+   * @param termIds
+   *          The ids of the terms to get
+   * @return The terms of the given ids, in the same order
+   * @throws IllegalArgumentException
+   *           If one of the ids is not assigned to a term
+   */
+  public String[] decode(final int[] termIds) throws IllegalArgumentException {
+    final String[] terms = new String[termIds.length];
+    for (int i = 0; i < termIds.length; i++) {
+      terms[i] = getTerm(termIds[i]);
+    }
+    return terms;
+  }
+
+  /**
+   * Gets the ids of the given terms, terms which are not contained yet are
+   * added to the dictionary.
+   * 
+   * @param terms
+   *          The terms to get the ids of
+   * @return The ids of the given terms, in the same order
+   */
+  public int[] encode(final String[] terms) {
+    final int[] termIds = new int[terms.length];
+    for (int i = 0; i < terms.length; i++) {
+      termIds[i] = getOrAddTermId(terms[i]);
+    }
+    return termIds;
+  }
+
+  /**
+   * Gets the id of the given term, adds the term to the dictionary if it is
+   * not contained yet.
+   * 
+   * @param term
+   *          The term to get the id of
+   * @return The id of the given term
+   */
+  public int getOrAddTermId(final String term) {
+    final Integer termId = this.mTermToId.get(term);
+    if (termId != null) {
+      return termId.intValue();
+    }
+
+    this.mLock.lock();
+    try {
+      final Integer addedTermId = this.mTermToId.get(term);
+      if (addedTermId != null) {
+        return addedTermId.intValue();
+      }
+
+      final int newTermId = this.mSize;
+      String[] terms = this.mTerms;
+      if (newTermId == terms.length) {
+        terms = Arrays.copyOf(terms, terms.length * 2);
+        this.mTerms = terms;
+      }
+      terms[newTermId] = term;
+      this.mSize++;
+      // Publishing the id after writing the term makes it visible to readers
+      // which got the id from the map
+      this.mTermToId.put(term, Integer.valueOf(newTermId));
+      return newTermId;
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the term of the given id.
+   * 
+   * @param termId
+   *          The id of the term to get
+   * @return The term of the given id
+   * @throws IllegalArgumentException
+   *           If the id is not assigned to a term
+   */
+  public String getTerm(final int termId) throws IllegalArgumentException {
+    final String[] terms = this.mTerms;
+    if (termId < 0 || termId >= terms.length || terms[termId] == null) {
+      throw new IllegalArgumentException();
+    }
+    return terms[termId];
+  }
+
+  /**
+   * Gets the id of the given term without adding it to the dictionary.
+   * 
+   * @param term
+   *          The term to get the id of
+   * @return The id of the given term or {@link #NO_TERM} if it is not
+   *         contained
+   */
+  public int getTermId(final String term) {
+    final Integer termId = this.mTermToId.get(term);
+    if (termId == null) {
+      return NO_TERM;
+    }
+    return termId.intValue();
+  }
+
+  /**
+   * Gets the amount of terms contained in the dictionary.
+   * 
+   * @return The amount of terms contained in the dictionary
+   */
+  public int size() {
+    return this.mTermToId.size();
+  }
+}
@@ -54,7 +54,10 @@ public final class QGramProvider implements IKeyProvider<String, String> {
    * The text to use for padding.
    */
   private final String mPadding;
-
+  /**
+   * The character to use for padding.
+   */
+  private final char mPaddingCharacter;
   /**
    * The q-Parameter to use.
    */
@@ -80,6 +83,7 @@ public final class QGramProvider implements IKeyProvider<String, String> {
    */
   public QGramProvider(final int qParameter, final char padding) {
     this.mQParameter = qParameter;
+    this.mPaddingCharacter = padding;
     this.mPadding = createPadding(qParameter, padding);
   }
 
@@ -100,6 +104,15 @@ public final class QGramProvider implements IKeyProvider<String, String> {
     return keys;
   }
 
+  /**
+   * Gets the character used for padding.
+   * 
+   * @return The character used for padding
+   */
+  public char getPaddingCharacter() {
+    return this.mPaddingCharacter;
+  }
+
   /**
    * Gets the qParameter.
    * 
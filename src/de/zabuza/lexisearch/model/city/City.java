@@ -1,14 +1,20 @@
 package de.zabuza.lexisearch.model.city;
 
 import de.zabuza.lexisearch.indexing.IKeyProvider;
+import de.zabuza.lexisearch.indexing.ITermRecord;
+import de.zabuza.lexisearch.indexing.TermDictionary;
 
 /**
- * Implementation for {@link ICity} which holds its parameters in memory.
+ * Implementation for {@link ICity} which holds its parameters in memory. If the
+ * city is created with a {@link TermDictionary}, usually the one of its
+ * {@link CitySet}, the keys of the name are computed once at creation and
+ * held as ids of the dictionary. Otherwise they are computed by the key
+ * provider on each access.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
-public final class City implements ICity {
+public final class City implements ICity, ITermRecord {
 
   /**
    * Message which is shown when content should be parsed from a text format
@@ -65,6 +71,34 @@ public final class City implements ICity {
   public static City buildFromText(final String cityAsText,
       final String contentSeparator,
       final IKeyProvider<String, String> keyProvider) {
+    return buildFromText(cityAsText, contentSeparator, keyProvider, null);
+  }
+
+  /**
+   * Builds a city representing the content given as text format, whose keys
+   * are held as ids of the given dictionary.<br/>
+   * The format is:
+   * <tt>id{@literal <contentSeparator>}name{@literal <contentSeparator>}
+   * relevanceScore{@literal <contentSeparator>}
+   * latitude{@literal <contentSeparator>}longitude</tt>.
+   * 
+   * @param cityAsText
+   *          The city to represent given in a text format
+   * @param contentSeparator
+   *          The separator of the content
+   * @param keyProvider
+   *          The key provider to use
+   * @param termDictionary
+   *          The dictionary to hold the keys of the city in or <tt>null</tt>
+   *          if the keys should be computed on each access
+   * @return The representing city object
+   * @throws IllegalArgumentException
+   *           If the city is in the wrong format
+   */
+  public static City buildFromText(final String cityAsText,
+      final String contentSeparator,
+      final IKeyProvider<String, String> keyProvider,
+      final TermDictionary termDictionary) {
     final String[] content = cityAsText.split(contentSeparator);
 
     if (content.length == 5) {
@@ -72,7 +106,8 @@ public final class City implements ICity {
           content[TEXT_FORMAT_NAME_INDEX],
           Float.parseFloat(content[TEXT_FORMAT_LAT_INDEX]),
           Float.parseFloat(content[TEXT_FORMAT_LONG_INDEX]),
-          Integer.parseInt(content[TEXT_FORMAT_SCORE_INDEX]), keyProvider);
+          Integer.parseInt(content[TEXT_FORMAT_SCORE_INDEX]), keyProvider,
+          termDictionary);
     }
     throw new IllegalArgumentException(MSG_WRONG_TEXT_FORMAT);
   }
@@ -82,7 +117,8 @@ public final class City implements ICity {
    */
   private final int mId;
   /**
-   * The key provider of the city.
+   * The key provider of the city or <tt>null</tt> if its keys are held as
+   * term ids.
    */
   private final IKeyProvider<String, String> mKeyProvider;
   /**
@@ -102,6 +138,16 @@ public final class City implements ICity {
    * city.
    */
   private final int mRelevanceScore;
+  /**
+   * The dictionary of the term ids of the city or <tt>null</tt> if its keys
+   * are computed on each access.
+   */
+  private final TermDictionary mTermDictionary;
+  /**
+   * The ids of the keys of the city in its dictionary or <tt>null</tt> if its
+   * keys are computed on each access.
+   */
+  private final int[] mTermIds;
 
   /**
    * Creates a new city with the given parameters. The relevance score will be
@@ -124,7 +170,8 @@ public final class City implements ICity {
   }
 
   /**
-   * Creates a new city with the given parameters.
+   * Creates a new city with the given parameters. Its keys are computed by
+   * the given key provider on each access.
    * 
    * @param id
    *          The id of the city
@@ -142,12 +189,79 @@ public final class City implements ICity {
   public City(final int id, final String name, final float latitude,
       final float longitude, final int relevanceScore,
       final IKeyProvider<String, String> keyProvider) {
+    this(id, name, latitude, longitude, relevanceScore, keyProvider, null);
+  }
+
+  /**
+   * Creates a new city with the given parameters. Its keys are computed once
+   * and held as ids of the given dictionary.
+   * 
+   * @param id
+   *          The id of the city
+   * @param name
+   *          The name of the city
+   * @param latitude
+   *          The latitude coordinate of the city
+   * @param longitude
+   *          The longitude coordinate of the city
+   * @param relevanceScore
+   *          The relevance score of the city
+   * @param keyProvider
+   *          The key provider used to compute the keys of the city
+   * @param termDictionary
+   *          The dictionary to hold the keys of the city in or <tt>null</tt>
+   *          if the keys should be computed on each access
+   */
+  public City(final int id, final String name, final float latitude,
+      final float longitude, final int relevanceScore,
+      final IKeyProvider<String, String> keyProvider,
+      final TermDictionary termDictionary) {
+    this.mId = id;
+    this.mName = name;
+    this.mLatitude = latitude;
+    this.mLongitude = longitude;
+    this.mRelevanceScore = relevanceScore;
+    this.mTermDictionary = termDictionary;
+    if (termDictionary == null) {
+      this.mKeyProvider = keyProvider;
+      this.mTermIds = null;
+    } else {
+      this.mKeyProvider = null;
+      this.mTermIds = termDictionary.encode(keyProvider.getKeys(name));
+    }
+  }
+
+  /**
+   * Creates a new city with the given parameters whose keys are already
+   * computed, for example when restoring it from a snapshot.
+   * 
+   * @param id
+   *          The id of the city
+   * @param name
+   *          The name of the city
+   * @param latitude
+   *          The latitude coordinate of the city
+   * @param longitude
+   *          The longitude coordinate of the city
+   * @param relevanceScore
+   *          The relevance score of the city
+   * @param termIds
+   *          The ids of the keys of the city in the given dictionary, the
+   *          array is not copied
+   * @param termDictionary
+   *          The dictionary the term ids refer to
+   */
+  public City(final int id, final String name, final float latitude,
+      final float longitude, final int relevanceScore, final int[] termIds,
+      final TermDictionary termDictionary) {
     this.mId = id;
     this.mName = name;
     this.mLatitude = latitude;
     this.mLongitude = longitude;
     this.mRelevanceScore = relevanceScore;
-    this.mKeyProvider = keyProvider;
+    this.mKeyProvider = null;
+    this.mTermDictionary = termDictionary;
+    this.mTermIds = termIds;
   }
 
   /*
@@ -167,13 +281,16 @@ public final class City implements ICity {
    */
   @Override
   public String[] getKeys() {
+    if (this.mTermIds != null) {
+      return this.mTermDictionary.decode(this.mTermIds);
+    }
     return this.mKeyProvider.getKeys(getName());
   }
 
   /*
    * (non-Javadoc)
    * 
-   * @see de.zabuza.lexisearch.city.ICity#getLatitude()
+   * @see de.zabuza.lexisearch.indexing.ILocationProvider#getLatitude()
    */
   @Override
   public float getLatitude() {
@@ -183,7 +300,7 @@ public final class City implements ICity {
   /*
    * (non-Javadoc)
    * 
-   * @see de.zabuza.lexisearch.city.ICity#getLongitude()
+   * @see de.zabuza.lexisearch.indexing.ILocationProvider#getLongitude()
    */
   @Override
   public float getLongitude() {
@@ -227,7 +344,30 @@ public final class City implements ICity {
    */
   @Override
   public int getSize() {
+    if (this.mTermIds != null) {
+      return this.mTermIds.length;
+    }
     return this.mKeyProvider.getSize(getName());
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.ITermRecord#getTermDictionary()
+   */
+  @Override
+  public TermDictionary getTermDictionary() {
+    return this.mTermDictionary;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.ITermRecord#getTermIds()
+   */
+  @Override
+  public int[] getTermIds() {
+    return this.mTermIds;
+  }
+
 }
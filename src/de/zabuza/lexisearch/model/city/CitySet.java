@@ -6,17 +6,21 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import de.zabuza.lexisearch.indexing.DenseKeyRecordSet;
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IKeyProvider;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
 import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.indexing.TermDictionary;
+import de.zabuza.lexisearch.util.ITsvRowParser;
+import de.zabuza.lexisearch.util.MappedTsvLoader;
+import de.zabuza.lexisearch.util.TsvRow;
 
 /**
  * Implementation of {@link Set} which holds {@link ICity} objects. It provides
@@ -34,6 +38,10 @@ public final class CitySet
    * specified, if they have.
    */
   private static boolean alwaysSelfAssignIds = true;
+  /**
+   * The amount of fields of a city in text formats, without its id.
+   */
+  private static final int AMOUNT_OF_CITY_FIELDS = 4;
   /**
    * The pattern which matches a valid city id.
    */
@@ -107,7 +115,9 @@ public final class CitySet
    * for a city is:<br/>
    * <tt>id{@literal <contentSeparator>}name{@literal <contentSeparator>}
    * relevanceScore{@literal <contentSeparator>}
-   * latitude{@literal <contentSeparator>}longitude</tt>
+   * latitude{@literal <contentSeparator>}longitude</tt><br/>
+   * The file is loaded in parallel, see
+   * {@link #buildFromTsvFile(File, IKeyProvider)}.
    * 
    * @param textFile
    *          The text file to build the set from, assumed to be encoded in
@@ -120,7 +130,7 @@ public final class CitySet
    */
   public static CitySet buildFromTextFileUtf8Tab(final File textFile,
       final IKeyProvider<String, String> provider) throws IOException {
-    return buildFromTextFileUtf8(textFile, TAB_VALUE, provider);
+    return buildFromTsvFile(textFile, provider);
   }
 
   /**
@@ -155,22 +165,145 @@ public final class CitySet
         nextCityId++;
       }
 
-      cities.add(City.buildFromText(cityAsText, contentSeparator, provider));
+      cities.add(City.buildFromText(cityAsText, contentSeparator, provider,
+          cities.getTermDictionary()));
     }
 
     return cities;
   }
 
   /**
-   * Structure that allows a fast access to cities by their id.
+   * Builds a {@link CitySet} from a text file of tab separated values encoded
+   * in UTF-8, in the same format as
+   * {@link #buildFromTextFileUtf8Tab(File, IKeyProvider)}. The file is
+   * memory-mapped and its lines are parsed in parallel by the
+   * {@link MappedTsvLoader}, numbers are parsed directly from the bytes.
+   * Cities get the index of their line as id.
+   * 
+   * @param textFile
+   *          The text file to build the set from, assumed to be encoded in
+   *          UTF-8
+   * @param provider
+   *          The key provider to use, it is used by multiple threads
+   * @return The set of cities build from the given file
+   * @throws IOException
+   *           If an I/O-Exception occurred.
+   * @throws IllegalArgumentException
+   *           If a city is in the wrong format
+   */
+  public static CitySet buildFromTsvFile(final File textFile,
+      final IKeyProvider<String, String> provider) throws IOException {
+    final CitySet cities = new CitySet();
+    cities.addAll(MappedTsvLoader.load(textFile.toPath(),
+        createTsvRowParser(provider, cities.getTermDictionary())));
+    return cities;
+  }
+
+  /**
+   * Creates a parser which creates cities from rows of tab separated values in
+   * the format of {@link #buildFromTsvFile(File, IKeyProvider)}. It allows to
+   * stream cities from a file instead of building a set of them.
+   * 
+   * @param provider
+   *          The key provider to use, it is used by multiple threads
+   * @return A parser which creates a city from each row, it throws an
+   *         {@link IllegalArgumentException} if a row is in the wrong format
+   */
+  public static ITsvRowParser<City> createTsvRowParser(
+      final IKeyProvider<String, String> provider) {
+    return createTsvRowParser(provider, null);
+  }
+
+  /**
+   * Creates a parser which creates cities from rows of tab separated values in
+   * the format of {@link #buildFromTsvFile(File, IKeyProvider)}, whose keys
+   * are held as ids of the given dictionary.
+   * 
+   * @param provider
+   *          The key provider to use, it is used by multiple threads
+   * @param termDictionary
+   *          The dictionary to hold the keys of the cities in or
+   *          <tt>null</tt> if the keys should be computed on each access
+   * @return A parser which creates a city from each row, it throws an
+   *         {@link IllegalArgumentException} if a row is in the wrong format
    */
-  private final HashMap<Integer, IKeyRecord<String>> mIdToCity;
+  public static ITsvRowParser<City> createTsvRowParser(
+      final IKeyProvider<String, String> provider,
+      final TermDictionary termDictionary) {
+    return (row, lineIndex) -> parseCity(row, lineIndex, provider,
+        termDictionary);
+  }
+
+  /**
+   * Gets the index of the field holding the name of the city of the given row
+   * of tab separated values, in the format of
+   * {@link #buildFromTsvFile(File, IKeyProvider)}. The fields before it hold
+   * the id of the city, if any, the fields after it the relevance score, the
+   * latitude and the longitude.
+   * 
+   * @param row
+   *          The row of the city
+   * @return The index of the name field, <tt>1</tt> if the first field holds
+   *         the id of the city and <tt>0</tt> otherwise
+   * @throws IllegalArgumentException
+   *           If the row has the wrong amount of fields
+   */
+  static int getNameFieldOfRow(final TsvRow row) {
+    int nameField = 0;
+    if (!alwaysSelfAssignIds && row.isDigits(0)) {
+      nameField = 1;
+    }
+    if (row.getAmountOfFields() - nameField != AMOUNT_OF_CITY_FIELDS) {
+      throw new IllegalArgumentException();
+    }
+    return nameField;
+  }
+
+  /**
+   * Creates a city from the given row of tab separated values.
+   * 
+   * @param row
+   *          The row to parse
+   * @param lineIndex
+   *          The index of the line of the row, used as id if the row has none
+   * @param provider
+   *          The key provider to use
+   * @param termDictionary
+   *          The dictionary to hold the keys of the city in or <tt>null</tt>
+   * @return The city the row represents
+   * @throws IllegalArgumentException
+   *           If the row is in the wrong format
+   */
+  private static City parseCity(final TsvRow row, final int lineIndex,
+      final IKeyProvider<String, String> provider,
+      final TermDictionary termDictionary) {
+    final int nameField = getNameFieldOfRow(row);
+    int id = lineIndex;
+    if (nameField == 1) {
+      id = row.getInt(0);
+    }
+
+    return new City(id, row.getString(nameField),
+        row.getFloat(nameField + 2), row.getFloat(nameField + 3),
+        row.getInt(nameField + 1), provider, termDictionary);
+  }
+
+  /**
+   * Structure that allows a fast access to cities by their id, which is used
+   * as index into an array.
+   */
+  private final DenseKeyRecordSet<IKeyRecord<String>, String> mCities;
+  /**
+   * The dictionary the cities built by this set hold their keys in.
+   */
+  private final TermDictionary mTermDictionary;
 
   /**
    * Creates a new empty city set.
    */
   public CitySet() {
-    this.mIdToCity = new HashMap<>();
+    this.mCities = new DenseKeyRecordSet<>();
+    this.mTermDictionary = new TermDictionary();
   }
 
   /*
@@ -180,11 +313,7 @@ public final class CitySet
    */
   @Override
   public boolean add(final IKeyRecord<String> e) {
-    final Integer id = Integer.valueOf(e.getRecordId());
-    final IKeyRecord<String> valueBefore = this.mIdToCity.get(id);
-    this.mIdToCity.put(id, e);
-
-    return valueBefore == null || !valueBefore.equals(e);
+    return this.mCities.add(e);
   }
 
   /*
@@ -210,7 +339,7 @@ public final class CitySet
    */
   @Override
   public void clear() {
-    this.mIdToCity.clear();
+    this.mCities.clear();
   }
 
   /*
@@ -222,7 +351,7 @@ public final class CitySet
   public boolean contains(final Object o) {
     if (o instanceof ICity) {
       final IKeyRecord<String> currentValue =
-          this.mIdToCity.get(Integer.valueOf(((ICity) o).getId()));
+          this.mCities.getKeyRecordById(((ICity) o).getId());
       return currentValue != null && currentValue.equals(o);
     }
     return false;
@@ -250,7 +379,7 @@ public final class CitySet
    * @return The inverted index working on this set of cities
    */
   public IInvertedIndex<String> createInvertedIndex() {
-    return InvertedIndexUtil.createFromWords(this.mIdToCity.values());
+    return InvertedIndexUtil.createFromWords(this.mCities);
   }
 
   /*
@@ -260,7 +389,17 @@ public final class CitySet
    */
   @Override
   public IKeyRecord<String> getKeyRecordById(final int cityId) {
-    return this.mIdToCity.get(Integer.valueOf(cityId));
+    return this.mCities.getKeyRecordById(cityId);
+  }
+
+  /**
+   * Gets the dictionary the cities built by this set hold their keys in. It
+   * is owned by this set, thus it only grows with the keys of its cities.
+   * 
+   * @return The term dictionary of this set
+   */
+  public TermDictionary getTermDictionary() {
+    return this.mTermDictionary;
   }
 
   /*
@@ -270,7 +409,7 @@ public final class CitySet
    */
   @Override
   public boolean isEmpty() {
-    return this.mIdToCity.isEmpty();
+    return this.mCities.isEmpty();
   }
 
   /*
@@ -280,7 +419,7 @@ public final class CitySet
    */
   @Override
   public Iterator<IKeyRecord<String>> iterator() {
-    return this.mIdToCity.values().iterator();
+    return this.mCities.iterator();
   }
 
   /*
@@ -291,7 +430,7 @@ public final class CitySet
   @Override
   public boolean remove(final Object o) {
     if (contains(o)) {
-      this.mIdToCity.remove(Integer.valueOf(((ICity) o).getId()));
+      this.mCities.remove(o);
       return true;
     }
     return false;
@@ -320,7 +459,7 @@ public final class CitySet
    */
   @Override
   public boolean retainAll(final Collection<?> c) {
-    return this.mIdToCity.values().retainAll(c);
+    return this.mCities.retainAll(c);
   }
 
   /*
@@ -330,7 +469,7 @@ public final class CitySet
    */
   @Override
   public int size() {
-    return this.mIdToCity.size();
+    return this.mCities.size();
   }
 
   /*
@@ -340,7 +479,7 @@ public final class CitySet
    */
   @Override
   public Object[] toArray() {
-    return this.mIdToCity.values().toArray();
+    return this.mCities.toArray();
   }
 
   /*
@@ -350,7 +489,7 @@ public final class CitySet
    */
   @Override
   public <T> T[] toArray(final T[] a) {
-    return this.mIdToCity.values().toArray(a);
+    return this.mCities.toArray(a);
   }
 
 }
\ No newline at end of file
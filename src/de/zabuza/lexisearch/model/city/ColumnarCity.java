@@ -0,0 +1,153 @@
+package de.zabuza.lexisearch.model.city;
+
+/**
+ * Implementation for {@link ICity} which is a flyweight view on a row of a
+ * {@link ColumnarCitySet}. It only holds its row and reads its parameters from
+ * the columns of the set on each access. Two views are equal if their cities
+ * have the same values, also if they are views on different sets.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ColumnarCity implements ICity {
+  /**
+   * The row of the city in the set.
+   */
+  private final int mRow;
+  /**
+   * The set holding the columns of the city.
+   */
+  private final ColumnarCitySet mSet;
+
+  /**
+   * Creates a new view on the city in the given row of the given set.
+   * 
+   * @param set
+   *          The set holding the columns of the city
+   * @param row
+   *          The row of the city in the set
+   */
+  ColumnarCity(final ColumnarCitySet set, final int row) {
+    this.mSet = set;
+    this.mRow = row;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ColumnarCity)) {
+      return false;
+    }
+    final ColumnarCity other = (ColumnarCity) obj;
+    return getId() == other.getId() && getScore() == other.getScore()
+        && Float.compare(getLatitude(), other.getLatitude()) == 0
+        && Float.compare(getLongitude(), other.getLongitude()) == 0
+        && getName().equals(other.getName());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.model.city.ICity#getId()
+   */
+  @Override
+  public int getId() {
+    return this.mSet.getIdOfRow(this.mRow);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IKeyRecord#getKeys()
+   */
+  @Override
+  public String[] getKeys() {
+    return this.mSet.getKeyProvider().getKeys(getName());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.ILocationProvider#getLatitude()
+   */
+  @Override
+  public float getLatitude() {
+    return this.mSet.getLatitudeOfRow(this.mRow);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.ILocationProvider#getLongitude()
+   */
+  @Override
+  public float getLongitude() {
+    return this.mSet.getLongitudeOfRow(this.mRow);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IKeyRecord#getName()
+   */
+  @Override
+  public String getName() {
+    return this.mSet.getNameOfRow(this.mRow);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IKeyRecord#getRecordId()
+   */
+  @Override
+  public int getRecordId() {
+    return getId();
+  }
+
+  /**
+   * Gets the row of the city in its set.
+   * 
+   * @return The row of the city in its set
+   */
+  public int getRow() {
+    return this.mRow;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRecordScoreProvider#getScore()
+   */
+  @Override
+  public int getScore() {
+    return this.mSet.getScoreOfRow(this.mRow);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IKeyRecord#getSize()
+   */
+  @Override
+  public int getSize() {
+    return this.mSet.getKeyProvider().getSize(getName());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return getId();
+  }
+}
@@ -0,0 +1,819 @@
+package de.zabuza.lexisearch.model.city;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyProvider;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.util.MappedTsvLoader;
+
+/**
+ * Implementation of {@link Set} which holds cities in columns instead of
+ * objects. Each city is a row, the names of all cities are stored in one
+ * arena of UTF-8 bytes with an offset per row, and the ids, coordinates and
+ * scores each in a column of primitive values. All cities share the key
+ * provider of the set. Thus the memory used per city is only a few bytes
+ * besides its name, and the amount of objects the garbage collector needs to
+ * trace is independent of the amount of cities.<br/>
+ * <br/>
+ * The columns can be placed off-heap, into direct buffers. Then the heap
+ * usage of the set does not depend on the amount of cities at all.<br/>
+ * <br/>
+ * Cities are given out as {@link ColumnarCity} flyweights which only refer to
+ * their row and read the columns on access. Adding a city copies its values
+ * into the columns, if a city with the same id is contained already, its row
+ * gets overwritten. The name of the overwritten row remains in the arena.
+ * Removing a city only marks its row as removed, the row is used again if a
+ * city with the same id gets added.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ColumnarCitySet
+    implements IKeyRecordSet<IKeyRecord<String>, String> {
+  /**
+   * Iterator over the cities of the set, in the order of their rows.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private final class CityIterator implements Iterator<IKeyRecord<String>> {
+    /**
+     * The row of the next city.
+     */
+    private int mNextRow;
+
+    /**
+     * Creates a new iterator over the cities of the set.
+     */
+    CityIterator() {
+      this.mNextRow = 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+      this.mNextRow =
+          ColumnarCitySet.this.mRemovedRows.nextClearBit(this.mNextRow);
+      return this.mNextRow < ColumnarCitySet.this.mSize;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public IKeyRecord<String> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final ColumnarCity city =
+          new ColumnarCity(ColumnarCitySet.this, this.mNextRow);
+      this.mNextRow++;
+      return city;
+    }
+  }
+
+  /**
+   * The initial amount of rows the columns can hold.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+  /**
+   * The initial capacity of the name arena in bytes.
+   */
+  private static final int INITIAL_NAME_CAPACITY = 256;
+
+  /**
+   * Builds a {@link ColumnarCitySet} from a text file of tab separated values
+   * encoded in UTF-8, in the same format as
+   * {@link CitySet#buildFromTsvFile(File, IKeyProvider)}. The rows of the
+   * memory-mapped file are written into the columns directly, without
+   * creating an object per city.
+   * 
+   * @param textFile
+   *          The text file to build the set from, assumed to be encoded in
+   *          UTF-8
+   * @param provider
+   *          The key provider to use
+   * @param isOffHeap
+   *          Whether the columns should be placed off-heap
+   * @return The set of cities build from the given file
+   * @throws IOException
+   *           If an I/O-Exception occurred.
+   * @throws IllegalArgumentException
+   *           If a city is in the wrong format
+   */
+  public static ColumnarCitySet buildFromTsvFile(final File textFile,
+      final IKeyProvider<String, String> provider, final boolean isOffHeap)
+      throws IOException {
+    final ColumnarCitySet cities =
+        new ColumnarCitySet(provider, isOffHeap, INITIAL_CAPACITY);
+    MappedTsvLoader.forEachRow(textFile.toPath(), (row, lineIndex) -> {
+      final int nameField = CitySet.getNameFieldOfRow(row);
+      int id = lineIndex;
+      if (nameField == 1) {
+        id = row.getInt(0);
+      }
+      cities.put(id, row.getString(nameField), row.getFloat(nameField + 2),
+          row.getFloat(nameField + 3), row.getInt(nameField + 1));
+    });
+    return cities;
+  }
+
+  /**
+   * Allocates a buffer of the given size.
+   * 
+   * @param capacity
+   *          The capacity of the buffer in bytes
+   * @param isOffHeap
+   *          Whether the buffer should be placed off-heap
+   * @return The allocated buffer
+   */
+  private static ByteBuffer allocate(final int capacity,
+      final boolean isOffHeap) {
+    if (isOffHeap) {
+      // Native order lets views access values without swapping bytes
+      return ByteBuffer.allocateDirect(capacity)
+          .order(ByteOrder.nativeOrder());
+    }
+    return ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * Allocates a column of floats with the given capacity. On the heap the
+   * column is backed by a <tt>float[]</tt>.
+   * 
+   * @param capacity
+   *          The capacity of the column in rows
+   * @param isOffHeap
+   *          Whether the column should be placed off-heap
+   * @return The allocated column
+   */
+  private static FloatBuffer allocateFloats(final int capacity,
+      final boolean isOffHeap) {
+    if (isOffHeap) {
+      return allocate(capacity * Float.BYTES, true).asFloatBuffer();
+    }
+    return FloatBuffer.allocate(capacity);
+  }
+
+  /**
+   * Allocates a column of integers with the given capacity. On the heap the
+   * column is backed by an <tt>int[]</tt>.
+   * 
+   * @param capacity
+   *          The capacity of the column in rows
+   * @param isOffHeap
+   *          Whether the column should be placed off-heap
+   * @return The allocated column
+   */
+  private static IntBuffer allocateInts(final int capacity,
+      final boolean isOffHeap) {
+    if (isOffHeap) {
+      return allocate(capacity * Integer.BYTES, true).asIntBuffer();
+    }
+    return IntBuffer.allocate(capacity);
+  }
+
+  /**
+   * Computes the capacity a column needs to have after growing.
+   * 
+   * @param capacity
+   *          The current capacity
+   * @param minimalCapacity
+   *          The capacity which is needed at least
+   * @return The capacity after growing
+   */
+  private static int grownCapacity(final int capacity,
+      final int minimalCapacity) {
+    final long doubledCapacity = 2L * capacity;
+    return (int) Math.max(minimalCapacity,
+        Math.min(doubledCapacity, Integer.MAX_VALUE / Float.BYTES));
+  }
+
+  /**
+   * The column of the ids of the cities.
+   */
+  private IntBuffer mIds;
+  /**
+   * Whether the columns are placed off-heap.
+   */
+  private final boolean mIsOffHeap;
+  /**
+   * The amount of rows marked as removed.
+   */
+  private int mAmountOfRemovedRows;
+  /**
+   * The key provider of all cities.
+   */
+  private final IKeyProvider<String, String> mKeyProvider;
+  /**
+   * The column of the latitude coordinates of the cities.
+   */
+  private FloatBuffer mLatitudes;
+  /**
+   * The column of the longitude coordinates of the cities.
+   */
+  private FloatBuffer mLongitudes;
+  /**
+   * The arena holding the names of all cities encoded in UTF-8.
+   */
+  private ByteBuffer mNames;
+  /**
+   * The column of the lengths of the names in the arena.
+   */
+  private IntBuffer mNameLengths;
+  /**
+   * The amount of used bytes of the name arena.
+   */
+  private int mNameSize;
+  /**
+   * The column of the positions of the names in the arena.
+   */
+  private IntBuffer mNameStarts;
+  /**
+   * The rows of removed cities.
+   */
+  private final BitSet mRemovedRows;
+  /**
+   * The column of the relevance scores of the cities.
+   */
+  private IntBuffer mScores;
+  /**
+   * The amount of used rows, including the rows of removed cities.
+   */
+  private int mSize;
+  /**
+   * The rows of cities whose id differs from their row, by their id. A city
+   * whose id equals its row is found without this table.
+   */
+  private final HashMap<Integer, Integer> mSparseIdToRow;
+
+  /**
+   * Creates a new empty columnar city set which holds its columns on the heap.
+   * 
+   * @param keyProvider
+   *          The key provider of all cities of the set
+   */
+  public ColumnarCitySet(final IKeyProvider<String, String> keyProvider) {
+    this(keyProvider, false, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates a new empty columnar city set.
+   * 
+   * @param keyProvider
+   *          The key provider of all cities of the set
+   * @param isOffHeap
+   *          Whether the columns should be placed off-heap, into direct
+   *          buffers
+   * @param capacity
+   *          The amount of cities the columns can hold without growing, must
+   *          not be negative
+   */
+  public ColumnarCitySet(final IKeyProvider<String, String> keyProvider,
+      final boolean isOffHeap, final int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mKeyProvider = keyProvider;
+    this.mIsOffHeap = isOffHeap;
+    this.mSparseIdToRow = new HashMap<>();
+    this.mRemovedRows = new BitSet();
+    this.mAmountOfRemovedRows = 0;
+    this.mSize = 0;
+    this.mNameSize = 0;
+
+    final int rowCapacity = Math.max(1, capacity);
+    this.mIds = allocateInts(rowCapacity, isOffHeap);
+    this.mNameStarts = allocateInts(rowCapacity, isOffHeap);
+    this.mNameLengths = allocateInts(rowCapacity, isOffHeap);
+    this.mLatitudes = allocateFloats(rowCapacity, isOffHeap);
+    this.mLongitudes = allocateFloats(rowCapacity, isOffHeap);
+    this.mScores = allocateInts(rowCapacity, isOffHeap);
+    this.mNames = allocate(INITIAL_NAME_CAPACITY, isOffHeap);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#add(java.lang.Object)
+   */
+  @Override
+  public boolean add(final IKeyRecord<String> e) {
+    if (!(e instanceof ICity)) {
+      throw new IllegalArgumentException();
+    }
+    final ICity city = (ICity) e;
+    return put(city.getId(), city.getName(), city.getLatitude(),
+        city.getLongitude(), city.getScore());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#addAll(java.util.Collection)
+   */
+  @Override
+  public boolean addAll(final Collection<? extends IKeyRecord<String>> c) {
+    boolean hasChanged = false;
+    for (final IKeyRecord<String> city : c) {
+      if (add(city)) {
+        hasChanged = true;
+      }
+    }
+    return hasChanged;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#clear()
+   */
+  @Override
+  public void clear() {
+    this.mSize = 0;
+    this.mNameSize = 0;
+    this.mSparseIdToRow.clear();
+    this.mRemovedRows.clear();
+    this.mAmountOfRemovedRows = 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#contains(java.lang.Object)
+   */
+  @Override
+  public boolean contains(final Object o) {
+    if (o instanceof ICity) {
+      final ICity city = (ICity) o;
+      final int row = getRow(city.getId());
+      return row != -1 && isEqualToRow(city.getId(), city.getName(),
+          city.getLatitude(), city.getLongitude(), city.getScore(), row);
+    }
+    return false;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#containsAll(java.util.Collection)
+   */
+  @Override
+  public boolean containsAll(final Collection<?> c) {
+    for (final Object o : c) {
+      if (!contains(o)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Creates an {@link IInvertedIndex} from this set of cities.
+   * 
+   * @return The inverted index working on this set of cities
+   */
+  public IInvertedIndex<String> createInvertedIndex() {
+    return InvertedIndexUtil.createFromWords(this);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IKeyRecordSet#getKeyRecordById(int)
+   */
+  @Override
+  public IKeyRecord<String> getKeyRecordById(final int cityId) {
+    final int row = getRow(cityId);
+    if (row == -1) {
+      return null;
+    }
+    return new ColumnarCity(this, row);
+  }
+
+  /**
+   * Gets the key provider of all cities of this set.
+   * 
+   * @return The key provider of all cities of this set
+   */
+  public IKeyProvider<String, String> getKeyProvider() {
+    return this.mKeyProvider;
+  }
+
+  /**
+   * Gets the amount of bytes the names of the cities occupy in the arena,
+   * including names of overwritten rows and of removed cities.
+   * 
+   * @return The amount of bytes the names occupy
+   */
+  public int getNameArenaSize() {
+    return this.mNameSize;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#isEmpty()
+   */
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Whether the columns of this set are placed off-heap.
+   * 
+   * @return <tt>True</tt> if the columns are placed off-heap, <tt>false</tt>
+   *         otherwise
+   */
+  public boolean isOffHeap() {
+    return this.mIsOffHeap;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#iterator()
+   */
+  @Override
+  public Iterator<IKeyRecord<String>> iterator() {
+    return new CityIterator();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#remove(java.lang.Object)
+   */
+  @Override
+  public boolean remove(final Object o) {
+    if (!contains(o)) {
+      return false;
+    }
+    removeRow(getRow(((ICity) o).getId()));
+    return true;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#removeAll(java.util.Collection)
+   */
+  @Override
+  public boolean removeAll(final Collection<?> c) {
+    boolean hasChanged = false;
+    for (final Object city : c) {
+      if (remove(city)) {
+        hasChanged = true;
+      }
+    }
+    return hasChanged;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#retainAll(java.util.Collection)
+   */
+  @Override
+  public boolean retainAll(final Collection<?> c) {
+    boolean hasChanged = false;
+    for (int row = this.mRemovedRows.nextClearBit(0); row < this.mSize;
+        row = this.mRemovedRows.nextClearBit(row + 1)) {
+      if (!c.contains(new ColumnarCity(this, row))) {
+        removeRow(row);
+        hasChanged = true;
+      }
+    }
+    return hasChanged;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#size()
+   */
+  @Override
+  public int size() {
+    return this.mSize - this.mAmountOfRemovedRows;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#toArray()
+   */
+  @Override
+  public Object[] toArray() {
+    return toList().toArray();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Set#toArray(java.lang.Object[])
+   */
+  @Override
+  public <T> T[] toArray(final T[] a) {
+    return toList().toArray(a);
+  }
+
+  /**
+   * Gets the id of the city in the given row.
+   * 
+   * @param row
+   *          The row of the city
+   * @return The id of the city
+   */
+  int getIdOfRow(final int row) {
+    return this.mIds.get(row);
+  }
+
+  /**
+   * Gets the latitude coordinate of the city in the given row.
+   * 
+   * @param row
+   *          The row of the city
+   * @return The latitude coordinate of the city
+   */
+  float getLatitudeOfRow(final int row) {
+    return this.mLatitudes.get(row);
+  }
+
+  /**
+   * Gets the longitude coordinate of the city in the given row.
+   * 
+   * @param row
+   *          The row of the city
+   * @return The longitude coordinate of the city
+   */
+  float getLongitudeOfRow(final int row) {
+    return this.mLongitudes.get(row);
+  }
+
+  /**
+   * Decodes the name of the city in the given row.
+   * 
+   * @param row
+   *          The row of the city
+   * @return The name of the city
+   */
+  String getNameOfRow(final int row) {
+    // Decode a view of the name, without copying the arena
+    final ByteBuffer name = this.mNames.duplicate();
+    final int start = this.mNameStarts.get(row);
+    name.limit(start + this.mNameLengths.get(row));
+    name.position(start);
+    return StandardCharsets.UTF_8.decode(name).toString();
+  }
+
+  /**
+   * Gets the relevance score of the city in the given row.
+   * 
+   * @param row
+   *          The row of the city
+   * @return The relevance score of the city
+   */
+  int getScoreOfRow(final int row) {
+    return this.mScores.get(row);
+  }
+
+  /**
+   * Ensures the columns can hold at least the given amount of rows.
+   * 
+   * @param capacity
+   *          The amount of rows the columns must be able to hold
+   */
+  private void ensureCapacity(final int capacity) {
+    if (capacity <= this.mIds.capacity()) {
+      return;
+    }
+    final int newCapacity = grownCapacity(this.mIds.capacity(), capacity);
+    this.mIds = growIntColumn(this.mIds, newCapacity);
+    this.mNameStarts = growIntColumn(this.mNameStarts, newCapacity);
+    this.mNameLengths = growIntColumn(this.mNameLengths, newCapacity);
+    this.mScores = growIntColumn(this.mScores, newCapacity);
+    this.mLatitudes = growFloatColumn(this.mLatitudes, newCapacity);
+    this.mLongitudes = growFloatColumn(this.mLongitudes, newCapacity);
+  }
+
+  /**
+   * Ensures the name arena can hold at least the given amount of bytes.
+   * 
+   * @param capacity
+   *          The amount of bytes the arena must be able to hold
+   */
+  private void ensureNameCapacity(final int capacity) {
+    if (capacity <= this.mNames.capacity()) {
+      return;
+    }
+    final long doubledCapacity = 2L * this.mNames.capacity();
+    final int newCapacity = (int) Math.max(capacity,
+        Math.min(doubledCapacity, Integer.MAX_VALUE));
+    final ByteBuffer names = allocate(newCapacity, this.mIsOffHeap);
+    final ByteBuffer usedNames = this.mNames.duplicate();
+    usedNames.position(0);
+    usedNames.limit(this.mNameSize);
+    names.put(usedNames);
+    this.mNames = names;
+  }
+
+  /**
+   * Gets the row of the given id, also if the city of the row was removed.
+   * 
+   * @param id
+   *          The id of the city
+   * @return The row of the id or <tt>-1</tt> if the id has no row
+   */
+  private int findRow(final int id) {
+    if (id >= 0 && id < this.mSize && this.mIds.get(id) == id) {
+      return id;
+    }
+    if (this.mSparseIdToRow.isEmpty()) {
+      return -1;
+    }
+    final Integer row = this.mSparseIdToRow.get(Integer.valueOf(id));
+    if (row == null) {
+      return -1;
+    }
+    return row.intValue();
+  }
+
+  /**
+   * Gets the row of the city with the given id.
+   * 
+   * @param id
+   *          The id of the city
+   * @return The row of the city or <tt>-1</tt> if it is not contained
+   */
+  private int getRow(final int id) {
+    final int row = findRow(id);
+    if (row == -1 || this.mRemovedRows.get(row)) {
+      return -1;
+    }
+    return row;
+  }
+
+  /**
+   * Creates a copy of the given column with the given capacity.
+   * 
+   * @param column
+   *          The column to copy, all of its rows are used
+   * @param capacity
+   *          The capacity of the copy in rows
+   * @return The copy of the column
+   */
+  private FloatBuffer growFloatColumn(final FloatBuffer column,
+      final int capacity) {
+    final FloatBuffer grownColumn = allocateFloats(capacity, this.mIsOffHeap);
+    final FloatBuffer usedColumn = column.duplicate();
+    usedColumn.clear();
+    grownColumn.put(usedColumn);
+    return grownColumn;
+  }
+
+  /**
+   * Creates a copy of the given column with the given capacity.
+   * 
+   * @param column
+   *          The column to copy, all of its rows are used
+   * @param capacity
+   *          The capacity of the copy in rows
+   * @return The copy of the column
+   */
+  private IntBuffer growIntColumn(final IntBuffer column, final int capacity) {
+    final IntBuffer grownColumn = allocateInts(capacity, this.mIsOffHeap);
+    final IntBuffer usedColumn = column.duplicate();
+    usedColumn.clear();
+    grownColumn.put(usedColumn);
+    return grownColumn;
+  }
+
+  /**
+   * Whether the given values of a city equal the city in the given row.
+   * 
+   * @param id
+   *          The id of the city
+   * @param name
+   *          The name of the city
+   * @param latitude
+   *          The latitude coordinate of the city
+   * @param longitude
+   *          The longitude coordinate of the city
+   * @param score
+   *          The relevance score of the city
+   * @param row
+   *          The row to compare with
+   * @return <tt>True</tt> if the values equal the row, <tt>false</tt>
+   *         otherwise
+   */
+  private boolean isEqualToRow(final int id, final String name,
+      final float latitude, final float longitude, final int score,
+      final int row) {
+    return id == this.mIds.get(row) && score == this.mScores.get(row)
+        && Float.compare(latitude, this.mLatitudes.get(row)) == 0
+        && Float.compare(longitude, this.mLongitudes.get(row)) == 0
+        && name.equals(getNameOfRow(row));
+  }
+
+  /**
+   * Puts the city with the given values into the columns. If a city with the
+   * same id is contained already, its row gets overwritten.
+   * 
+   * @param id
+   *          The id of the city
+   * @param name
+   *          The name of the city
+   * @param latitude
+   *          The latitude coordinate of the city
+   * @param longitude
+   *          The longitude coordinate of the city
+   * @param score
+   *          The relevance score of the city
+   * @return <tt>True</tt> if the set changed, <tt>false</tt> if it contained
+   *         an equal city already
+   */
+  private boolean put(final int id, final String name, final float latitude,
+      final float longitude, final int score) {
+    int row = findRow(id);
+    if (row != -1 && this.mRemovedRows.get(row)) {
+      // Use the row of the removed city again
+      this.mRemovedRows.clear(row);
+      this.mAmountOfRemovedRows--;
+    } else if (row != -1
+        && isEqualToRow(id, name, latitude, longitude, score, row)) {
+      return false;
+    }
+    if (row == -1) {
+      ensureCapacity(this.mSize + 1);
+      row = this.mSize;
+      this.mSize++;
+      this.mIds.put(row, id);
+      if (id != row) {
+        this.mSparseIdToRow.put(Integer.valueOf(id), Integer.valueOf(row));
+      }
+    }
+
+    final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    ensureNameCapacity(this.mNameSize + nameBytes.length);
+    final ByteBuffer nameSlot = this.mNames.duplicate();
+    nameSlot.position(this.mNameSize);
+    nameSlot.put(nameBytes);
+    this.mNameStarts.put(row, this.mNameSize);
+    this.mNameLengths.put(row, nameBytes.length);
+    this.mNameSize += nameBytes.length;
+
+    this.mLatitudes.put(row, latitude);
+    this.mLongitudes.put(row, longitude);
+    this.mScores.put(row, score);
+    return true;
+  }
+
+  /**
+   * Marks the given row as removed.
+   * 
+   * @param row
+   *          The row of a contained city
+   */
+  private void removeRow(final int row) {
+    this.mRemovedRows.set(row);
+    this.mAmountOfRemovedRows++;
+  }
+
+  /**
+   * Collects flyweights of all cities of this set into a list, in the order
+   * of their rows.
+   * 
+   * @return A new list containing all cities of this set
+   */
+  private ArrayList<IKeyRecord<String>> toList() {
+    final ArrayList<IKeyRecord<String>> cities = new ArrayList<>(size());
+    for (final IKeyRecord<String> city : this) {
+      cities.add(city);
+    }
+    return cities;
+  }
+}
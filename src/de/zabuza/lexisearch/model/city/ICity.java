@@ -1,6 +1,7 @@
 package de.zabuza.lexisearch.model.city;
 
 import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.ILocationProvider;
 import de.zabuza.lexisearch.ranking.IRecordScoreProvider;
 
 /**
@@ -9,25 +10,12 @@ import de.zabuza.lexisearch.ranking.IRecordScoreProvider;
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
-public interface ICity extends IKeyRecord<String>, IRecordScoreProvider {
+public interface ICity
+    extends IKeyRecord<String>, ILocationProvider, IRecordScoreProvider {
   /**
    * Gets the id of the city.
    * 
    * @return The id of the city to get
    */
   int getId();
-
-  /**
-   * Gets the latitude coordinate of this city.
-   * 
-   * @return The latitude coordinate of this city
-   */
-  float getLatitude();
-
-  /**
-   * Gets the longitude coordinate of this city.
-   * 
-   * @return The longitude coordinate of this city
-   */
-  float getLongitude();
 }
@@ -0,0 +1,351 @@
+package de.zabuza.lexisearch.model.document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import de.zabuza.lexisearch.util.LruCache;
+import de.zabuza.lexisearch.util.LzCodec;
+
+/**
+ * Store which holds the descriptions of documents compressed in memory, see
+ * {@link CompressedDocument}. Descriptions are appended to a block as UTF-8
+ * bytes, once the block exceeds the block size it gets compressed with the
+ * {@link LzCodec}. Compressing many descriptions together lets the codec find
+ * repetitions across them.<br/>
+ * <br/>
+ * A block index holds the block, offset and length of each description, such
+ * that any description can be accessed by the entry returned on adding it.
+ * Reading a description decompresses its block, recently decompressed blocks
+ * are kept in a small {@link LruCache}. The store can be used by multiple
+ * threads at the same time. A full block gets compressed by the thread which
+ * filled it, outside of the object monitor, such that threads adding
+ * descriptions in parallel also compress in parallel. Blocks keep the order
+ * in which they were filled.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CompressedDescriptionStore {
+  /**
+   * The default size of the blocks in bytes before compression.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 16 * 1024;
+  /**
+   * The default amount of decompressed blocks kept in the cache.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 64;
+  /**
+   * The initial capacity of the arrays holding the index.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * The amount of compressed blocks, guarded by the object monitor.
+   */
+  private int mAmountOfBlocks;
+  /**
+   * The amount of descriptions of the store, guarded by the object monitor.
+   */
+  private int mAmountOfEntries;
+  /**
+   * The size of the blocks in bytes before compression.
+   */
+  private final int mBlockSize;
+  /**
+   * The compressed blocks, guarded by the object monitor. Entries are
+   * <tt>null</tt> while their block still gets compressed. The block after
+   * the last sealed block is the open block.
+   */
+  private byte[][] mBlocks;
+  /**
+   * The sizes of the blocks before compression, guarded by the object monitor.
+   */
+  private int[] mBlockSizes;
+  /**
+   * Cache of decompressed blocks by their index.
+   */
+  private final LruCache<Integer, byte[]> mCache;
+  /**
+   * The amount of bytes of all compressed blocks, guarded by the object
+   * monitor.
+   */
+  private long mCompressedSize;
+  /**
+   * The index of the block of each description, guarded by the object
+   * monitor.
+   */
+  private int[] mEntryBlocks;
+  /**
+   * The length of each description in bytes, guarded by the object monitor.
+   */
+  private int[] mEntryLengths;
+  /**
+   * The offset of each description in its block before compression, guarded
+   * by the object monitor.
+   */
+  private int[] mEntryOffsets;
+  /**
+   * The bytes of the block descriptions are currently appended to, guarded by
+   * the object monitor.
+   */
+  private byte[] mOpenBlock;
+  /**
+   * The amount of used bytes of the open block, guarded by the object
+   * monitor.
+   */
+  private int mOpenBlockSize;
+  /**
+   * The uncompressed bytes of sealed blocks which still get compressed,
+   * guarded by the object monitor. Entries are <tt>null</tt> once their block
+   * is compressed.
+   */
+  private byte[][] mSealedBlocks;
+
+  /**
+   * Creates a new empty store with the default block and cache size.
+   */
+  public CompressedDescriptionStore() {
+    this(DEFAULT_BLOCK_SIZE, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates a new empty store.
+   * 
+   * @param blockSize
+   *          The size of the blocks in bytes before compression, must be
+   *          positive. Larger blocks compress better but make reading a
+   *          description slower.
+   * @param cacheSize
+   *          The maximal amount of decompressed blocks to cache, must be
+   *          positive
+   * @throws IllegalArgumentException
+   *           If one of the sizes is not positive
+   */
+  public CompressedDescriptionStore(final int blockSize, final int cacheSize)
+      throws IllegalArgumentException {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mBlockSize = blockSize;
+    this.mCache = new LruCache<>(cacheSize);
+    this.mAmountOfEntries = 0;
+    this.mAmountOfBlocks = 0;
+    this.mBlocks = new byte[INITIAL_CAPACITY][];
+    this.mSealedBlocks = new byte[INITIAL_CAPACITY][];
+    this.mBlockSizes = new int[INITIAL_CAPACITY];
+    this.mEntryBlocks = new int[INITIAL_CAPACITY];
+    this.mEntryOffsets = new int[INITIAL_CAPACITY];
+    this.mEntryLengths = new int[INITIAL_CAPACITY];
+    this.mOpenBlock = new byte[blockSize];
+    this.mOpenBlockSize = 0;
+    this.mCompressedSize = 0;
+  }
+
+  /**
+   * Adds the given description to the store. If the open block gets full, it
+   * is compressed by the calling thread without holding the object monitor.
+   * 
+   * @param description
+   *          The description to add
+   * @return The entry of the description, it is used to read it by
+   *         {@link #getDescription(int)}
+   */
+  public int add(final String description) {
+    final byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+    final int entry;
+    final int blockIndex;
+    final byte[] sealedBlock;
+    final int sealedBlockSize;
+    synchronized (this) {
+      if (this.mOpenBlockSize + bytes.length > this.mOpenBlock.length) {
+        this.mOpenBlock = Arrays.copyOf(this.mOpenBlock,
+            Math.max(this.mOpenBlock.length * 2,
+                this.mOpenBlockSize + bytes.length));
+      }
+      System.arraycopy(bytes, 0, this.mOpenBlock, this.mOpenBlockSize,
+          bytes.length);
+
+      entry = this.mAmountOfEntries;
+      if (entry == this.mEntryBlocks.length) {
+        final int capacity = entry * 2;
+        this.mEntryBlocks = Arrays.copyOf(this.mEntryBlocks, capacity);
+        this.mEntryOffsets = Arrays.copyOf(this.mEntryOffsets, capacity);
+        this.mEntryLengths = Arrays.copyOf(this.mEntryLengths, capacity);
+      }
+      this.mEntryBlocks[entry] = this.mAmountOfBlocks;
+      this.mEntryOffsets[entry] = this.mOpenBlockSize;
+      this.mEntryLengths[entry] = bytes.length;
+      this.mAmountOfEntries++;
+      this.mOpenBlockSize += bytes.length;
+
+      if (this.mOpenBlockSize < this.mBlockSize) {
+        return entry;
+      }
+      blockIndex = this.mAmountOfBlocks;
+      sealedBlockSize = this.mOpenBlockSize;
+      sealedBlock = sealOpenBlock();
+    }
+
+    compressSealedBlock(blockIndex, sealedBlock, sealedBlockSize);
+    return entry;
+  }
+
+  /**
+   * Compresses the open block, if it is not empty. Afterwards all
+   * descriptions added so far are held compressed, unless their blocks still
+   * get compressed by concurrent calls of {@link #add(String)}. The store
+   * stays usable.
+   */
+  public void flush() {
+    final int blockIndex;
+    final byte[] sealedBlock;
+    final int sealedBlockSize;
+    synchronized (this) {
+      if (this.mOpenBlockSize == 0) {
+        return;
+      }
+      blockIndex = this.mAmountOfBlocks;
+      sealedBlockSize = this.mOpenBlockSize;
+      sealedBlock = sealOpenBlock();
+    }
+
+    compressSealedBlock(blockIndex, sealedBlock, sealedBlockSize);
+  }
+
+  /**
+   * Gets the amount of descriptions of the store.
+   * 
+   * @return The amount of descriptions of the store
+   */
+  public synchronized int getAmountOfEntries() {
+    return this.mAmountOfEntries;
+  }
+
+  /**
+   * Gets the cache of decompressed blocks.
+   * 
+   * @return The cache of decompressed blocks
+   */
+  public LruCache<Integer, byte[]> getCache() {
+    return this.mCache;
+  }
+
+  /**
+   * Gets the amount of bytes of all compressed blocks. Together with
+   * {@link #getUncompressedSize()} it gives the compression ratio.
+   * 
+   * @return The amount of bytes of all compressed blocks
+   */
+  public synchronized long getCompressedSize() {
+    return this.mCompressedSize;
+  }
+
+  /**
+   * Gets the description of the given entry. Decompresses its block if it is
+   * not cached.
+   * 
+   * @param entry
+   *          The entry of the description as returned by
+   *          {@link #add(String)}
+   * @return The description of the given entry
+   * @throws IllegalArgumentException
+   *           If the entry is not contained in the store
+   */
+  public String getDescription(final int entry)
+      throws IllegalArgumentException {
+    final int blockIndex;
+    final int offset;
+    final int length;
+    final byte[] compressedBlock;
+    final int blockSize;
+    synchronized (this) {
+      if (entry < 0 || entry >= this.mAmountOfEntries) {
+        throw new IllegalArgumentException();
+      }
+      blockIndex = this.mEntryBlocks[entry];
+      offset = this.mEntryOffsets[entry];
+      length = this.mEntryLengths[entry];
+      if (blockIndex == this.mAmountOfBlocks) {
+        return new String(this.mOpenBlock, offset, length,
+            StandardCharsets.UTF_8);
+      }
+      if (this.mBlocks[blockIndex] == null) {
+        return new String(this.mSealedBlocks[blockIndex], offset, length,
+            StandardCharsets.UTF_8);
+      }
+      compressedBlock = this.mBlocks[blockIndex];
+      blockSize = this.mBlockSizes[blockIndex];
+    }
+
+    // Decompress outside of the lock, blocks do not change once compressed
+    final Integer key = Integer.valueOf(blockIndex);
+    byte[] block = this.mCache.get(key);
+    if (block == null) {
+      block = LzCodec.decompress(compressedBlock, blockSize);
+      this.mCache.put(key, block);
+    }
+    return new String(block, offset, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets the amount of bytes of all descriptions before compression.
+   * 
+   * @return The amount of bytes of all descriptions before compression
+   */
+  public synchronized long getUncompressedSize() {
+    long size = this.mOpenBlockSize;
+    for (int i = 0; i < this.mAmountOfBlocks; i++) {
+      size += this.mBlockSizes[i];
+    }
+    return size;
+  }
+
+  /**
+   * Compresses the given sealed block and replaces its uncompressed bytes by
+   * the compressed ones. The compression runs without holding the object
+   * monitor, such that blocks of different threads get compressed in
+   * parallel.
+   * 
+   * @param blockIndex
+   *          The index of the sealed block
+   * @param sealedBlock
+   *          The uncompressed bytes of the block
+   * @param sealedBlockSize
+   *          The amount of used bytes of the block
+   */
+  private void compressSealedBlock(final int blockIndex,
+      final byte[] sealedBlock, final int sealedBlockSize) {
+    final byte[] compressedBlock =
+        LzCodec.compress(sealedBlock, 0, sealedBlockSize);
+    synchronized (this) {
+      this.mBlocks[blockIndex] = compressedBlock;
+      this.mSealedBlocks[blockIndex] = null;
+      this.mCompressedSize += compressedBlock.length;
+    }
+  }
+
+  /**
+   * Seals the open block at the next block index and starts a new empty one.
+   * The sealed block is readable by its uncompressed bytes until it was
+   * compressed by {@link #compressSealedBlock(int, byte[], int)}. Must be
+   * called while holding the object monitor.
+   * 
+   * @return The uncompressed bytes of the sealed block
+   */
+  private byte[] sealOpenBlock() {
+    final int blockIndex = this.mAmountOfBlocks;
+    if (blockIndex == this.mBlocks.length) {
+      this.mBlocks = Arrays.copyOf(this.mBlocks, blockIndex * 2);
+      this.mSealedBlocks = Arrays.copyOf(this.mSealedBlocks, blockIndex * 2);
+      this.mBlockSizes = Arrays.copyOf(this.mBlockSizes, blockIndex * 2);
+    }
+    final byte[] sealedBlock = this.mOpenBlock;
+    this.mSealedBlocks[blockIndex] = sealedBlock;
+    this.mBlockSizes[blockIndex] = this.mOpenBlockSize;
+    this.mAmountOfBlocks++;
+
+    this.mOpenBlock = new byte[this.mBlockSize];
+    this.mOpenBlockSize = 0;
+    return sealedBlock;
+  }
+}
@@ -0,0 +1,109 @@
+package de.zabuza.lexisearch.model.document;
+
+import de.zabuza.lexisearch.indexing.TermDictionary;
+
+/**
+ * Implementation for {@link IDocument} which holds id and name in memory, but
+ * its description compressed in a {@link CompressedDescriptionStore} shared
+ * by many documents. If the document is created with a {@link TermDictionary},
+ * the keys are computed once at creation like for {@link Document}, thus
+ * indexing and ranking never access the description. Only
+ * {@link #getDescription()}, which is used to display results, pays for
+ * decompressing it.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CompressedDocument extends Document {
+  /**
+   * Constant for an empty text. Is used for empty descriptions.
+   */
+  private static final String EMPTY_TEXT = "";
+
+  /**
+   * The entry of the description in the store.
+   */
+  private final int mEntry;
+  /**
+   * The store which holds the description of the document.
+   */
+  private final CompressedDescriptionStore mStore;
+
+  /**
+   * Creates a new compressed document with a given id and name. The
+   * description is empty.
+   * 
+   * @param id
+   *          The id of the document
+   * @param name
+   *          The name of the document
+   * @param store
+   *          The store to hold the description in
+   */
+  public CompressedDocument(final int id, final String name,
+      final CompressedDescriptionStore store) {
+    this(id, name, EMPTY_TEXT, store);
+  }
+
+  /**
+   * Creates a new compressed document with a given id, name and description.
+   * The description is added to the given store.
+   * 
+   * @param id
+   *          The id of the document
+   * @param name
+   *          The name of the document
+   * @param description
+   *          The description of the document
+   * @param store
+   *          The store to hold the description in
+   */
+  public CompressedDocument(final int id, final String name,
+      final String description, final CompressedDescriptionStore store) {
+    this(id, name, description, store, null);
+  }
+
+  /**
+   * Creates a new compressed document with a given id, name and description
+   * whose keys are held as ids of the given dictionary. The description is
+   * added to the given store.
+   * 
+   * @param id
+   *          The id of the document
+   * @param name
+   *          The name of the document
+   * @param description
+   *          The description of the document
+   * @param store
+   *          The store to hold the description in
+   * @param termDictionary
+   *          The dictionary to hold the keys of the document in or
+   *          <tt>null</tt> if the keys should be computed on each access
+   */
+  public CompressedDocument(final int id, final String name,
+      final String description, final CompressedDescriptionStore store,
+      final TermDictionary termDictionary) {
+    super(id, name, description, false, termDictionary);
+    this.mStore = store;
+    this.mEntry = store.add(description);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.document.Document#getDescription()
+   */
+  @Override
+  public String getDescription() {
+    return this.mStore.getDescription(this.mEntry);
+  }
+
+  /**
+   * Gets the store which holds the description of this document.
+   * 
+   * @return The store which holds the description of this document
+   */
+  public CompressedDescriptionStore getStore() {
+    return this.mStore;
+  }
+}
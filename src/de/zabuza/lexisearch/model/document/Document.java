@@ -1,13 +1,34 @@
 package de.zabuza.lexisearch.model.document;
 
+import de.zabuza.lexisearch.indexing.ITermRecord;
+import de.zabuza.lexisearch.indexing.TermDictionary;
+
 /**
  * Implementation for {@link IDocument} which holds parameters like id, name and
- * description in memory.
+ * description in memory.<br/>
+ * <br/>
+ * If the document is created with a {@link TermDictionary}, usually the one of
+ * its {@link DocumentSet}, the content is tokenized once at creation. The keys
+ * are then held as ids of the dictionary and reused by {@link #getKeys()},
+ * {@link #getSize()} and {@link #getFieldSize(int)}. Otherwise the content is
+ * tokenized on each access.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
-public class Document implements IDocument {
+public class Document implements IDocument, ITermRecord {
+  /**
+   * The amount of fields of documents.
+   */
+  public static final int AMOUNT_OF_FIELDS = 2;
+  /**
+   * Index of the field which holds the keys of the description.
+   */
+  public static final int DESCRIPTION_FIELD = 1;
+  /**
+   * Index of the field which holds the keys of the name.
+   */
+  public static final int NAME_FIELD = 0;
   /**
    * Constant for an empty text. Is used for empty descriptions.
    */
@@ -61,20 +82,77 @@ public class Document implements IDocument {
    */
   public static Document buildFromText(final String documentAsText,
       final String contentSeparator) {
+    return buildFromText(documentAsText, contentSeparator, null);
+  }
+
+  /**
+   * Builds a document representing the content given as text format, whose
+   * keys are held as ids of the given dictionary.<br/>
+   * The format is:
+   * <tt>id{@literal <contentSeparator>}name{@literal <contentSeparator>}
+   * description</tt><br/>
+   * where <tt>description</tt> is optional.
+   * 
+   * @param documentAsText
+   *          The document to represent given in a text format
+   * @param contentSeparator
+   *          The separator of the content
+   * @param termDictionary
+   *          The dictionary to hold the keys of the document in or
+   *          <tt>null</tt> if the keys should be computed on each access
+   * @return The representing document object
+   * @throws IllegalArgumentException
+   *           If the document is in the wrong format
+   */
+  public static Document buildFromText(final String documentAsText,
+      final String contentSeparator, final TermDictionary termDictionary) {
     final String[] content = documentAsText.split(contentSeparator);
 
     if (content.length == 2) {
       return new Document(Integer.parseInt(content[TEXT_FORMAT_ID_INDEX]),
-          content[TEXT_FORMAT_NAME_INDEX]);
+          content[TEXT_FORMAT_NAME_INDEX], EMPTY_TEXT, termDictionary);
     } else if (content.length == 3) {
       return new Document(Integer.parseInt(content[TEXT_FORMAT_ID_INDEX]),
           content[TEXT_FORMAT_NAME_INDEX],
-          content[TEXT_FORMAT_DESCRIPTION_INDEX]);
+          content[TEXT_FORMAT_DESCRIPTION_INDEX], termDictionary);
     } else {
       throw new IllegalArgumentException(MSG_WRONG_TEXT_FORMAT);
     }
   }
 
+  /**
+   * Computes the amount of keys of the given content that belong to the name
+   * field.
+   * 
+   * @param name
+   *          The name of the document
+   * @param size
+   *          The total amount of keys of the document
+   * @return The amount of keys that belong to the name field
+   */
+  private static int computeNameSize(final String name, final int size) {
+    // The name keys come first, as the name precedes the description in the
+    // text which gets split into the keys
+    final String[] nameKeys =
+        (name.toLowerCase() + TAB_VALUE).split(WORD_BOUNDARY_PATTERN);
+    return Math.min(size, nameKeys.length);
+  }
+
+  /**
+   * Splits the given content into its keys.
+   * 
+   * @param name
+   *          The name of the document
+   * @param description
+   *          The description of the document
+   * @return The keys of the document
+   */
+  private static String[] tokenize(final String name,
+      final String description) {
+    return (name.toLowerCase() + TAB_VALUE + description.toLowerCase())
+        .split(WORD_BOUNDARY_PATTERN);
+  }
+
   /**
    * The description of the document.
    */
@@ -87,6 +165,21 @@ public class Document implements IDocument {
    * The name of the document.
    */
   private final String mName;
+  /**
+   * The amount of keys that belong to the name field. Is only valid if the
+   * term ids are held.
+   */
+  private final int mNameSize;
+  /**
+   * The dictionary of the term ids of the document or <tt>null</tt> if the
+   * keys are computed on each access.
+   */
+  private final TermDictionary mTermDictionary;
+  /**
+   * The ids of the keys of the document in its dictionary or <tt>null</tt> if
+   * the keys are computed on each access.
+   */
+  private final int[] mTermIds;
 
   /**
    * Creates a new document with a given id and name. The description is empty.
@@ -111,20 +204,92 @@ public class Document implements IDocument {
    *          The description of the document
    */
   public Document(final int id, final String name, final String description) {
+    this(id, name, description, true, null);
+  }
+
+  /**
+   * Creates a new document with a given id, name and description whose keys
+   * are held as ids of the given dictionary.
+   * 
+   * @param id
+   *          The id of the document
+   * @param name
+   *          The name of the document
+   * @param description
+   *          The description of the document
+   * @param termDictionary
+   *          The dictionary to hold the keys of the document in or
+   *          <tt>null</tt> if the keys should be computed on each access
+   */
+  public Document(final int id, final String name, final String description,
+      final TermDictionary termDictionary) {
+    this(id, name, description, true, termDictionary);
+  }
+
+  /**
+   * Creates a new document with a given id, name and description. The
+   * description itself is only held if desired. Extending classes which do
+   * not let it be held must override {@link #getDescription()} and maintain
+   * the description by themselves.
+   * 
+   * @param id
+   *          The id of the document
+   * @param name
+   *          The name of the document
+   * @param description
+   *          The description of the document
+   * @param holdDescription
+   *          Whether the document should hold the description, otherwise it
+   *          holds an empty description
+   * @param termDictionary
+   *          The dictionary to hold the keys of the document in or
+   *          <tt>null</tt> if the keys should be computed on each access
+   */
+  protected Document(final int id, final String name, final String description,
+      final boolean holdDescription, final TermDictionary termDictionary) {
     this.mId = id;
     this.mName = name;
-    this.mDescription = description;
+    if (holdDescription) {
+      this.mDescription = description;
+    } else {
+      this.mDescription = EMPTY_TEXT;
+    }
+
+    this.mTermDictionary = termDictionary;
+    if (termDictionary == null) {
+      this.mTermIds = null;
+      this.mNameSize = 0;
+    } else {
+      final String[] keys = tokenize(name, description);
+      this.mTermIds = termDictionary.encode(keys);
+      this.mNameSize = computeNameSize(name, keys.length);
+    }
   }
 
   /**
    * Creates a new document with no valid id, an empty name and description.
    * This constructor should only be used by extending classes that override the
    * field-getter methods and maintain id, name and description by themselves.
+   * Such documents do not hold their keys, they are computed on each access
+   * instead.
    */
   protected Document() {
     this.mId = NO_ID;
     this.mName = EMPTY_TEXT;
     this.mDescription = EMPTY_TEXT;
+    this.mTermDictionary = null;
+    this.mTermIds = null;
+    this.mNameSize = 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IFieldedKeyRecord#getAmountOfFields()
+   */
+  @Override
+  public int getAmountOfFields() {
+    return AMOUNT_OF_FIELDS;
   }
 
   /*
@@ -137,6 +302,29 @@ public class Document implements IDocument {
     return this.mDescription;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.IFieldedKeyRecord#getFieldSize(int)
+   */
+  @Override
+  public int getFieldSize(final int field) {
+    final int size = getSize();
+    final int nameSize;
+    if (this.mTermIds != null) {
+      nameSize = this.mNameSize;
+    } else {
+      nameSize = computeNameSize(getName(), size);
+    }
+    if (field == NAME_FIELD) {
+      return nameSize;
+    } else if (field == DESCRIPTION_FIELD) {
+      return size - nameSize;
+    } else {
+      throw new IllegalArgumentException();
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -154,8 +342,10 @@ public class Document implements IDocument {
    */
   @Override
   public String[] getKeys() {
-    return (getName().toLowerCase() + TAB_VALUE
-        + getDescription().toLowerCase()).split(WORD_BOUNDARY_PATTERN);
+    if (this.mTermIds != null) {
+      return this.mTermDictionary.decode(this.mTermIds);
+    }
+    return tokenize(getName(), getDescription());
   }
 
   /*
@@ -185,6 +375,29 @@ public class Document implements IDocument {
    */
   @Override
   public int getSize() {
+    if (this.mTermIds != null) {
+      return this.mTermIds.length;
+    }
     return getKeys().length;
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.ITermRecord#getTermDictionary()
+   */
+  @Override
+  public TermDictionary getTermDictionary() {
+    return this.mTermDictionary;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.indexing.ITermRecord#getTermIds()
+   */
+  @Override
+  public int[] getTermIds() {
+    return this.mTermIds;
+  }
 }
@@ -1,25 +1,24 @@
 package de.zabuza.lexisearch.model.document;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import de.zabuza.lexisearch.indexing.DenseKeyRecordSet;
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
 import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.indexing.TermDictionary;
+import de.zabuza.lexisearch.util.MappedTsvLoader;
+import de.zabuza.lexisearch.util.TsvRow;
 
 /**
  * Implementation of {@link Set} which holds {@link IDocument}s. It provides
@@ -41,11 +40,42 @@ public final class DocumentSet
    * The pattern which matches a valid document id.
    */
   private static final String DOCUMENT_ID_PATTERN = "\\d+";
+  /**
+   * Constant for an empty text. Is used for empty descriptions.
+   */
+  private static final String EMPTY_TEXT = "";
   /**
    * Constant for a tab value. Is used to separate content in some formats.
    */
   private static final String TAB_VALUE = "\t";
 
+  /**
+   * Builds a {@link DocumentSet} from a text file of tab separated values
+   * encoded in UTF-8, like {@link #buildFromTsvFile(File)}. This method uses
+   * {@link CompressedDocument}s to represent the documents, their descriptions
+   * are held compressed by a shared {@link CompressedDescriptionStore}. Only
+   * reading a description decompresses it, indexing and ranking do not.
+   * 
+   * @param textFile
+   *          The text file to build the set from, assumed to be encoded in
+   *          UTF-8
+   * @return The set of documents build from the given file
+   * @throws IOException
+   *           If an I/O-Exception occurred.
+   * @throws IllegalArgumentException
+   *           If a document is in the wrong format
+   */
+  public static DocumentSet buildCompressedFromTsvFile(final File textFile)
+      throws IOException {
+    final CompressedDescriptionStore store = new CompressedDescriptionStore();
+    final DocumentSet documents = new DocumentSet();
+    documents.addAll(MappedTsvLoader.load(textFile.toPath(),
+        (row, lineIndex) -> parseDocument(row, lineIndex, store,
+            documents.getTermDictionary())));
+    store.flush();
+    return documents;
+  }
+
   /**
    * Builds a {@link DocumentSet} from a text file. It needs to list documents
    * line per line where the format for a document is:<br/>
@@ -101,7 +131,8 @@ public final class DocumentSet
    * file is encoded in UTF-8. It needs to list documents line per line where
    * the format for a document is:<br/>
    * <tt>id{@literal <\t>}name{@literal <\t>}description</tt><br/>
-   * where <tt>id</tt> is optional.
+   * where <tt>id</tt> is optional.<br/>
+   * The file is loaded in parallel, see {@link #buildFromTsvFile(File)}.
    * 
    * @param textFile
    *          The text file to build the set from, assumed to be encoded in
@@ -112,7 +143,7 @@ public final class DocumentSet
    */
   public static DocumentSet buildFromTextFileUtf8Tab(final File textFile)
       throws IOException {
-    return buildFromTextFileUtf8(textFile, TAB_VALUE);
+    return buildFromTsvFile(textFile);
   }
 
   /**
@@ -143,100 +174,137 @@ public final class DocumentSet
         nextDocumentId++;
       }
 
-      documents.add(Document.buildFromText(documentAsText, contentSeparator));
+      documents.add(Document.buildFromText(documentAsText, contentSeparator,
+          documents.getTermDictionary()));
     }
 
     return documents;
   }
 
   /**
-   * Builds a {@link DocumentSet} from a text file. It needs to list documents
-   * line per line where the format for a document is:<br/>
+   * Builds a {@link DocumentSet} from a text file of tab separated values
+   * encoded in UTF-8, in the same format as
+   * {@link #buildFromTextFileUtf8Tab(File)}. The file is memory-mapped and its
+   * lines are parsed in parallel by the {@link MappedTsvLoader}. Documents get
+   * the index of their line as id.
+   * 
+   * @param textFile
+   *          The text file to build the set from, assumed to be encoded in
+   *          UTF-8
+   * @return The set of documents build from the given file
+   * @throws IOException
+   *           If an I/O-Exception occurred.
+   * @throws IllegalArgumentException
+   *           If a document is in the wrong format
+   */
+  public static DocumentSet buildFromTsvFile(final File textFile)
+      throws IOException {
+    final DocumentSet documents = new DocumentSet();
+    documents.addAll(MappedTsvLoader.load(textFile.toPath(),
+        (row, lineIndex) -> parseDocument(row, lineIndex, null,
+            documents.getTermDictionary())));
+    return documents;
+  }
+
+  /**
+   * Builds a {@link DocumentSet} from a text file. The method assumes the text
+   * file as encoded in UTF-8. It needs to list documents line per line where
+   * the format for a document is:<br/>
    * <tt>id{@literal <contentSeparator>}name{@literal <contentSeparator>}
    * description</tt><br/>
-   * where <tt>id</tt> is optional.<br/>
+   * where <tt>id</tt> is optional. Lines may be separated by <tt>\n</tt> or
+   * <tt>\r\n</tt>.<br/>
    * This method uses {@link FixFileLookupDocument}s to represent the documents.
    * Those do not save the document information but their position in the file.
-   * Thus they are slow but only consume very low memory.
+   * Thus they only consume very low memory. They share a
+   * {@link MappedDocumentStore} of the file, whose offset table gives the
+   * position of each line.
    * 
    * @param textFile
    *          The text file to build the set from
-   * @param charset
-   *          The charset to use for decoding the text file
    * @param contentSeparator
    *          The text used to separate the content in the format
-   * @param newLineLength
-   *          The length of the new line symbol in bytes
    * @return The set of documents build from the given file
    * @throws IOException
    *           If an I/O-Exception occurred.
    */
   public static DocumentSet buildLookupsFromFixTextFile(final File textFile,
-      final Charset charset, final String contentSeparator,
-      final int newLineLength) throws IOException {
+      final String contentSeparator) throws IOException {
     final DocumentSet documents = new DocumentSet();
+    final MappedDocumentStore store =
+        MappedDocumentStore.forFile(textFile, contentSeparator);
 
-    try (final BufferedReader singleCharBufferedReader = new BufferedReader(
-        new InputStreamReader(new FileInputStream(textFile), charset))) {
-      int nextDocumentId = 0;
-      BigInteger offsetPosToLineStart = BigInteger.ZERO;
-      while (singleCharBufferedReader.ready()) {
-        final String documentAsText = singleCharBufferedReader.readLine();
-        if (documentAsText == null) {
-          break;
-        }
-
-        final int idBegin = 0;
-        final int idEnd = documentAsText.indexOf(contentSeparator);
-        final String potentialId = documentAsText.substring(idBegin, idEnd);
-        int documentId = -1;
-        if (alwaysSelfAssignIds || !potentialId.matches(DOCUMENT_ID_PATTERN)) {
-          documentId = nextDocumentId;
-          nextDocumentId++;
-        }
-
-        if (documentId == -1) {
-          documents.add(new FixFileLookupDocument(textFile,
-              offsetPosToLineStart.longValueExact(), contentSeparator));
-        } else {
-          documents.add(new FixFileLookupDocument(documentId, textFile,
-              offsetPosToLineStart.longValueExact(), contentSeparator));
-        }
-
-        offsetPosToLineStart = offsetPosToLineStart.add(BigInteger
-            .valueOf(documentAsText.getBytes(charset).length + newLineLength));
+    int nextDocumentId = 0;
+    final int amountOfLines = store.getAmountOfLines();
+    for (int i = 0; i < amountOfLines; i++) {
+      final long lineStart = store.getLineStart(i);
+      if (!alwaysSelfAssignIds
+          && store.getFields(lineStart).get(0).matches(DOCUMENT_ID_PATTERN)) {
+        documents.add(new FixFileLookupDocument(store, lineStart));
+      } else {
+        documents
+            .add(new FixFileLookupDocument(nextDocumentId, store, lineStart));
+        nextDocumentId++;
       }
+    }
 
-      return documents;
+    return documents;
+  }
+
+  /**
+   * Builds a {@link DocumentSet} from a text file, like
+   * {@link #buildLookupsFromFixTextFile(File, String)}.
+   * 
+   * @param textFile
+   *          The text file to build the set from
+   * @param charset
+   *          The charset of the text file, must be UTF-8 as other charsets
+   *          are not supported anymore
+   * @param contentSeparator
+   *          The text used to separate the content in the format
+   * @param newLineLength
+   *          Ignored, line separators are detected in the text file
+   * @return The set of documents build from the given file
+   * @throws IOException
+   *           If an I/O-Exception occurred.
+   * @throws IllegalArgumentException
+   *           If the charset is not UTF-8
+   * @deprecated Line separators are detected and the text file is decoded as
+   *             UTF-8, use {@link #buildLookupsFromFixTextFile(File, String)}
+   *             instead
+   */
+  @Deprecated
+  public static DocumentSet buildLookupsFromFixTextFile(final File textFile,
+      final Charset charset, final String contentSeparator,
+      final int newLineLength) throws IOException, IllegalArgumentException {
+    if (!StandardCharsets.UTF_8.equals(charset)) {
+      throw new IllegalArgumentException(
+          "Only text files encoded in UTF-8 are supported: " + charset);
     }
+    return buildLookupsFromFixTextFile(textFile, contentSeparator);
   }
 
   /**
-   * Builds a {@link DocumentSet} from a text file. The method assumes the text
-   * file as encoded in UTF-8. It needs to list documents line per line where
-   * the format for a document is:<br/>
-   * <tt>id{@literal <contentSeparator>}name{@literal <contentSeparator>}
-   * description</tt><br/>
-   * where <tt>id</tt> is optional.<br/>
-   * This method uses {@link FixFileLookupDocument}s to represent the documents.
-   * Those do not save the document information but their position in the file.
-   * Thus they are slow but only consume very low memory.
+   * Builds a {@link DocumentSet} from a text file encoded in UTF-8, like
+   * {@link #buildLookupsFromFixTextFile(File, String)}.
    * 
    * @param textFile
    *          The text file to build the set from
    * @param contentSeparator
    *          The text used to separate the content in the format
    * @param newLineLength
-   *          The length of the new line symbol in bytes
+   *          Ignored, line separators are detected in the text file
    * @return The set of documents build from the given file
    * @throws IOException
    *           If an I/O-Exception occurred.
+   * @deprecated Line separators are detected, use
+   *             {@link #buildLookupsFromFixTextFile(File, String)} instead
    */
+  @Deprecated
   public static DocumentSet buildLookupsFromFixTextFileUtf8(final File textFile,
       final String contentSeparator, final int newLineLength)
-          throws IOException {
-    return buildLookupsFromFixTextFile(textFile, StandardCharsets.UTF_8,
-        contentSeparator, newLineLength);
+      throws IOException {
+    return buildLookupsFromFixTextFile(textFile, contentSeparator);
   }
 
   /**
@@ -247,31 +315,100 @@ public final class DocumentSet
    * where <tt>id</tt> is optional.<br/>
    * This method uses {@link FixFileLookupDocument}s to represent the documents.
    * Those do not save the document information but their position in the file.
-   * Thus they are slow but only consume very low memory.
+   * Thus they only consume very low memory.
+   * 
+   * @param textFile
+   *          The text file to build the set from
+   * @return The set of documents build from the given file
+   * @throws IOException
+   *           If an I/O-Exception occurred.
+   */
+  public static DocumentSet buildLookupsFromFixTextFileUtf8Tab(
+      final File textFile) throws IOException {
+    return buildLookupsFromFixTextFile(textFile, TAB_VALUE);
+  }
+
+  /**
+   * Builds a {@link DocumentSet} from a text file encoded in UTF-8 whose
+   * content is separated by tabs, like
+   * {@link #buildLookupsFromFixTextFileUtf8Tab(File)}.
    * 
    * @param textFile
    *          The text file to build the set from
    * @param newLineLength
-   *          The length of the new line symbol in bytes
+   *          Ignored, line separators are detected in the text file
    * @return The set of documents build from the given file
    * @throws IOException
    *           If an I/O-Exception occurred.
+   * @deprecated Line separators are detected, use
+   *             {@link #buildLookupsFromFixTextFileUtf8Tab(File)} instead
    */
+  @Deprecated
   public static DocumentSet buildLookupsFromFixTextFileUtf8Tab(
       final File textFile, final int newLineLength) throws IOException {
-    return buildLookupsFromFixTextFileUtf8(textFile, TAB_VALUE, newLineLength);
+    return buildLookupsFromFixTextFileUtf8Tab(textFile);
   }
 
   /**
-   * Structure that allows a fast access to documents by their id.
+   * Creates a document from the given row of tab separated values.
+   * 
+   * @param row
+   *          The row to parse
+   * @param lineIndex
+   *          The index of the line of the row, used as id if the row has none
+   * @param store
+   *          The store to hold the description in or <tt>null</tt> if the
+   *          document should hold it by itself
+   * @param termDictionary
+   *          The dictionary to hold the keys of the document in
+   * @return The document the row represents
+   * @throws IllegalArgumentException
+   *           If the row is in the wrong format
    */
-  private final HashMap<Integer, IKeyRecord<String>> mIdToDocument;
+  private static Document parseDocument(final TsvRow row, final int lineIndex,
+      final CompressedDescriptionStore store,
+      final TermDictionary termDictionary) {
+    int nameField = 0;
+    int id = lineIndex;
+    if (!alwaysSelfAssignIds && row.isDigits(0)) {
+      nameField = 1;
+      id = row.getInt(0);
+    }
+
+    final int amountOfContentFields = row.getAmountOfFields() - nameField;
+    final String description;
+    if (amountOfContentFields == 1) {
+      description = EMPTY_TEXT;
+    } else if (amountOfContentFields == 2) {
+      description = row.getString(nameField + 1);
+    } else {
+      throw new IllegalArgumentException(Document.MSG_WRONG_TEXT_FORMAT);
+    }
+
+    if (store == null) {
+      return new Document(id, row.getString(nameField), description,
+          termDictionary);
+    }
+    return new CompressedDocument(id, row.getString(nameField), description,
+        store, termDictionary);
+  }
+
+  /**
+   * Structure that allows a fast access to documents by their id, which is used
+   * as index into an array.
+   */
+  private final DenseKeyRecordSet<IKeyRecord<String>, String> mDocuments;
+  /**
+   * The dictionary the documents built by this set hold their keys in.
+   */
+  private final TermDictionary mTermDictionary;
 
   /**
    * Creates a new empty document set.
    */
   public DocumentSet() {
-    this.mIdToDocument = new HashMap<>();
+    this.mDocuments = new DenseKeyRecordSet<>();
+    this.mTermDictionary = new TermDictionary();
   }
 
   /*
@@ -281,11 +418,7 @@ public final class DocumentSet
    */
   @Override
   public boolean add(final IKeyRecord<String> e) {
-    final Integer id = Integer.valueOf(e.getRecordId());
-    final IKeyRecord<String> valueBefore = this.mIdToDocument.get(id);
-    this.mIdToDocument.put(id, e);
-
-    return valueBefore == null || !valueBefore.equals(e);
+    return this.mDocuments.add(e);
   }
 
   /*
@@ -311,7 +444,7 @@ public final class DocumentSet
    */
   @Override
   public void clear() {
-    this.mIdToDocument.clear();
+    this.mDocuments.clear();
   }
 
   /*
@@ -323,7 +456,7 @@ public final class DocumentSet
   public boolean contains(final Object o) {
     if (o instanceof IDocument) {
       final IKeyRecord<String> currentValue =
-          this.mIdToDocument.get(Integer.valueOf(((IDocument) o).getId()));
+          this.mDocuments.getKeyRecordById(((IDocument) o).getId());
       return currentValue != null && currentValue.equals(o);
     }
     return false;
@@ -351,7 +484,7 @@ public final class DocumentSet
    * @return The inverted index working on this set of documents
    */
   public IInvertedIndex<String> createInvertedIndex() {
-    return InvertedIndexUtil.createFromWords(this.mIdToDocument.values());
+    return InvertedIndexUtil.createFromWords(this.mDocuments);
   }
 
   /*
@@ -361,7 +494,17 @@ public final class DocumentSet
    */
   @Override
   public IKeyRecord<String> getKeyRecordById(final int documentId) {
-    return this.mIdToDocument.get(Integer.valueOf(documentId));
+    return this.mDocuments.getKeyRecordById(documentId);
+  }
+
+  /**
+   * Gets the dictionary the documents built by this set hold their keys in. It
+   * is owned by this set, thus it only grows with the keys of its documents.
+   * 
+   * @return The term dictionary of this set
+   */
+  public TermDictionary getTermDictionary() {
+    return this.mTermDictionary;
   }
 
   /*
@@ -371,7 +514,7 @@ public final class DocumentSet
    */
   @Override
   public boolean isEmpty() {
-    return this.mIdToDocument.isEmpty();
+    return this.mDocuments.isEmpty();
   }
 
   /*
@@ -381,7 +524,7 @@ public final class DocumentSet
    */
   @Override
   public Iterator<IKeyRecord<String>> iterator() {
-    return this.mIdToDocument.values().iterator();
+    return this.mDocuments.iterator();
   }
 
   /*
@@ -392,7 +535,7 @@ public final class DocumentSet
   @Override
   public boolean remove(final Object o) {
     if (contains(o)) {
-      this.mIdToDocument.remove(Integer.valueOf(((IDocument) o).getId()));
+      this.mDocuments.remove(o);
       return true;
     }
     return false;
@@ -421,7 +564,7 @@ public final class DocumentSet
    */
   @Override
   public boolean retainAll(final Collection<?> c) {
-    return this.mIdToDocument.values().retainAll(c);
+    return this.mDocuments.retainAll(c);
   }
 
   /*
@@ -431,7 +574,7 @@ public final class DocumentSet
    */
   @Override
   public int size() {
-    return this.mIdToDocument.size();
+    return this.mDocuments.size();
   }
 
   /*
@@ -441,7 +584,7 @@ public final class DocumentSet
    */
   @Override
   public Object[] toArray() {
-    return this.mIdToDocument.values().toArray();
+    return this.mDocuments.toArray();
   }
 
   /*
@@ -451,7 +594,7 @@ public final class DocumentSet
    */
   @Override
   public <T> T[] toArray(final T[] a) {
-    return this.mIdToDocument.values().toArray(a);
+    return this.mDocuments.toArray(a);
   }
 
 }
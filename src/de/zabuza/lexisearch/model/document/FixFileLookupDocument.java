@@ -2,25 +2,26 @@ package de.zabuza.lexisearch.model.document;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Implementation for {@link IDocument} which does not hold parameters like id,
  * name and description in memory but their position in a given file. Thus its
- * getter-methods need to lookup the data each time which makes the class slow
- * but therefore memory efficient.
+ * getter-methods need to lookup the data each time which makes the class
+ * memory efficient.<br/>
+ * <br/>
+ * The lookups are served by a {@link MappedDocumentStore} which is shared by
+ * all documents of the file. It reads the memory-mapped file and caches
+ * recently decoded documents, such that a lookup does not need any system
+ * call.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
 public final class FixFileLookupDocument extends Document {
 
-  /**
-   * The flag which indicates read-only mode in {@link RandomAccessFile}s.
-   */
-  private static final String FLAG_READ_ONLY = "r";
-
   /**
    * Builds an document representing the content given as text format.<br/>
    * The format is:
@@ -50,19 +51,11 @@ public final class FixFileLookupDocument extends Document {
     return new FixFileLookupDocument(file, lineStartPos, contentSeparator);
   }
 
-  /**
-   * The separator of the content.
-   */
-  private final String mContentSeparator;
   /**
    * Whether the method should fetch the id from the file or it is already
    * given.
    */
   private final boolean mDoFetchId;
-  /**
-   * The file representing the document.
-   */
-  private final File mFile;
   /**
    * The id of the document if it is already set or {@link Document#NO_ID NO_ID}
    * if it should get fetched from the content.
@@ -73,6 +66,10 @@ public final class FixFileLookupDocument extends Document {
    * document begins.
    */
   private final long mLineStartPos;
+  /**
+   * The store which looks up the content of the document in the file.
+   */
+  private final MappedDocumentStore mStore;
 
   /**
    * Creates a new fix file lookup document which does not hold parameters like
@@ -91,7 +88,8 @@ public final class FixFileLookupDocument extends Document {
    */
   public FixFileLookupDocument(final File file, final long lineStartPos,
       final String contentSeparator) {
-    this(NO_ID, file, lineStartPos, contentSeparator, true);
+    this(NO_ID, MappedDocumentStore.forFile(file, contentSeparator),
+        lineStartPos, true);
   }
 
   /**
@@ -113,7 +111,44 @@ public final class FixFileLookupDocument extends Document {
    */
   public FixFileLookupDocument(final int id, final File file,
       final long lineStartPos, final String contentSeparator) {
-    this(id, file, lineStartPos, contentSeparator, false);
+    this(id, MappedDocumentStore.forFile(file, contentSeparator), lineStartPos,
+        false);
+  }
+
+  /**
+   * Creates a new fix file lookup document which does not hold parameters like
+   * id, name and description in memory but their position in the file of the
+   * given store.<br/>
+   * This constructor assumes the id of the document is not in the file.
+   * 
+   * @param id
+   *          The id of the document
+   * @param store
+   *          The store of the file representing the document
+   * @param lineStartPos
+   *          The position in bytes from the start of the file where the content
+   *          for this document begins
+   */
+  public FixFileLookupDocument(final int id, final MappedDocumentStore store,
+      final long lineStartPos) {
+    this(id, store, lineStartPos, false);
+  }
+
+  /**
+   * Creates a new fix file lookup document which does not hold parameters like
+   * id, name and description in memory but their position in the file of the
+   * given store.<br/>
+   * This constructor assumes the id of the document is in the file.
+   * 
+   * @param store
+   *          The store of the file representing the document
+   * @param lineStartPos
+   *          The position in bytes from the start of the file where the content
+   *          for this document begins
+   */
+  public FixFileLookupDocument(final MappedDocumentStore store,
+      final long lineStartPos) {
+    this(NO_ID, store, lineStartPos, true);
   }
 
   /**
@@ -124,23 +159,19 @@ public final class FixFileLookupDocument extends Document {
    * 
    * @param id
    *          The id of the document
-   * @param file
-   *          The file representing the document
+   * @param store
+   *          The store of the file representing the document
    * @param lineStartPos
    *          The position in bytes from the start of the file where the content
    *          for this document begins
-   * @param contentSeparator
-   *          The separator of the content
    * @param doFetchId
    *          Whether the method should fetch the id from the file or it is
    *          already given
    */
-  private FixFileLookupDocument(final int id, final File file,
-      final long lineStartPos, final String contentSeparator,
-      final boolean doFetchId) {
-    this.mFile = file;
+  private FixFileLookupDocument(final int id, final MappedDocumentStore store,
+      final long lineStartPos, final boolean doFetchId) {
+    this.mStore = store;
     this.mLineStartPos = lineStartPos;
-    this.mContentSeparator = contentSeparator;
     this.mDoFetchId = doFetchId;
     this.mId = id;
   }
@@ -152,10 +183,10 @@ public final class FixFileLookupDocument extends Document {
    */
   @Override
   public String getDescription() {
-    String[] content;
+    List<String> content;
     try {
       content = fetchContent();
-      return content[TEXT_FORMAT_DESCRIPTION_INDEX];
+      return content.get(TEXT_FORMAT_DESCRIPTION_INDEX);
     } catch (IllegalArgumentException | IOException e) {
       throw new IllegalStateException(MSG_WRONG_TEXT_FORMAT);
     }
@@ -167,7 +198,7 @@ public final class FixFileLookupDocument extends Document {
    * @return The file object of this document to get
    */
   public File getFile() {
-    return this.mFile;
+    return this.mStore.getFile();
   }
 
   /*
@@ -178,10 +209,10 @@ public final class FixFileLookupDocument extends Document {
   @Override
   public int getId() {
     if (this.mDoFetchId) {
-      String[] content;
+      List<String> content;
       try {
         content = fetchContent();
-        return Integer.parseInt(content[TEXT_FORMAT_ID_INDEX]);
+        return Integer.parseInt(content.get(TEXT_FORMAT_ID_INDEX));
       } catch (IllegalArgumentException | IOException e) {
         throw new IllegalStateException(MSG_WRONG_TEXT_FORMAT);
       }
@@ -196,15 +227,24 @@ public final class FixFileLookupDocument extends Document {
    */
   @Override
   public String getName() {
-    String[] content;
+    List<String> content;
     try {
       content = fetchContent();
-      return content[TEXT_FORMAT_NAME_INDEX];
+      return content.get(TEXT_FORMAT_NAME_INDEX);
     } catch (IllegalArgumentException | IOException e) {
       throw new IllegalStateException(MSG_WRONG_TEXT_FORMAT);
     }
   }
 
+  /**
+   * Gets the store which looks up the content of this document.
+   * 
+   * @return The store which looks up the content of this document
+   */
+  public MappedDocumentStore getStore() {
+    return this.mStore;
+  }
+
   /**
    * Fetches the content of this document by looking up in the given file.
    * 
@@ -219,31 +259,25 @@ public final class FixFileLookupDocument extends Document {
    * @throws IllegalArgumentException
    *           If the document is in the wrong format
    */
-  private String[] fetchContent() throws IOException {
-    final String line;
-    try (final RandomAccessFile raf =
-        new RandomAccessFile(this.mFile, FLAG_READ_ONLY)) {
-      raf.seek(this.mLineStartPos);
-      line = raf.readLine();
-    }
-
-    final String[] content = line.split(this.mContentSeparator);
+  private List<String> fetchContent() throws IOException {
+    final List<String> content = this.mStore.getFields(this.mLineStartPos);
 
-    if ((this.mDoFetchId && content.length != 3)
-        || (!this.mDoFetchId && content.length != 2)) {
+    if ((this.mDoFetchId && content.size() != 3)
+        || (!this.mDoFetchId && content.size() != 2)) {
       throw new IllegalArgumentException(MSG_WRONG_TEXT_FORMAT);
     }
 
-    final String[] resultingContent;
+    final List<String> resultingContent;
     if (this.mDoFetchId) {
       resultingContent = content;
     } else {
-      resultingContent = new String[3];
-      resultingContent[TEXT_FORMAT_ID_INDEX] = NO_ID + "";
-      resultingContent[TEXT_FORMAT_NAME_INDEX] =
-          content[TEXT_FORMAT_NAME_INDEX - 1];
-      resultingContent[TEXT_FORMAT_DESCRIPTION_INDEX] =
-          content[TEXT_FORMAT_DESCRIPTION_INDEX - 1];
+      final String[] completedContent = new String[3];
+      completedContent[TEXT_FORMAT_ID_INDEX] = NO_ID + "";
+      completedContent[TEXT_FORMAT_NAME_INDEX] =
+          content.get(TEXT_FORMAT_NAME_INDEX - 1);
+      completedContent[TEXT_FORMAT_DESCRIPTION_INDEX] =
+          content.get(TEXT_FORMAT_DESCRIPTION_INDEX - 1);
+      resultingContent = Arrays.asList(completedContent);
     }
 
     return resultingContent;
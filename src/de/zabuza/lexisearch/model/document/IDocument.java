@@ -1,6 +1,6 @@
 package de.zabuza.lexisearch.model.document;
 
-import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IFieldedKeyRecord;
 
 /**
  * Interface for documents.
@@ -8,7 +8,7 @@ import de.zabuza.lexisearch.indexing.IKeyRecord;
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  */
-public interface IDocument extends IKeyRecord<String> {
+public interface IDocument extends IFieldedKeyRecord<String> {
   /**
    * Gets the description of the document.
    * 
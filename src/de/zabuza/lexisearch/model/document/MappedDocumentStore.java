@@ -0,0 +1,455 @@
+package de.zabuza.lexisearch.model.document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.zabuza.lexisearch.util.LineOffsetTable;
+import de.zabuza.lexisearch.util.LruCache;
+
+/**
+ * Store which gives access to the lines of a text file, encoded in UTF-8, by
+ * the position of their start. It is shared by all
+ * {@link FixFileLookupDocument}s of a file, see
+ * {@link #forFile(File, String)}.<br/>
+ * <br/>
+ * The file is memory-mapped on the first access. Its lines are indexed by a
+ * {@link LineOffsetTable} holding the position of each line start, which is
+ * persisted next to the file, and the file is mapped in regions whose bounds
+ * are aligned to line starts. Reading a line
+ * then slices its fields from the mapped region by the content separator and
+ * only decodes the slices, without any system call. Decoded lines are kept in
+ * a bounded {@link LruCache}.<br/>
+ * <br/>
+ * Lines are separated by <tt>\n</tt> or <tt>\r\n</tt>. The file must not be
+ * modified while the store is used, a shared store of a modified file is
+ * replaced by a new store on the next call of
+ * {@link #forFile(File, String)}. The store can be used by multiple threads
+ * at the same time.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class MappedDocumentStore {
+  /**
+   * The default amount of decoded lines kept in the cache.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 4_096;
+  /**
+   * The carriage return byte which may precede the line separator.
+   */
+  private static final byte CARRIAGE_RETURN = '\r';
+  /**
+   * The line separator byte.
+   */
+  private static final byte LINE_SEPARATOR = '\n';
+  /**
+   * The maximal size of a mapped region in bytes.
+   */
+  private static final long MAXIMAL_REGION_SIZE = 1L << 30;
+  /**
+   * The stores which are shared per file and content separator.
+   */
+  private static final ConcurrentHashMap<String, MappedDocumentStore> STORES =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Gets the store of the given file which is shared by all users of the file
+   * with the same content separator. The file gets mapped on the first access
+   * of the store. If the file was modified since the shared store mapped it,
+   * the store is replaced by a new one, documents of the old store keep
+   * reading the old store.
+   * 
+   * @param file
+   *          The file to get the store of
+   * @param contentSeparator
+   *          The separator of the fields of a line
+   * @return The shared store of the given file
+   */
+  public static MappedDocumentStore forFile(final File file,
+      final String contentSeparator) {
+    final File absoluteFile = file.getAbsoluteFile();
+    return STORES.compute(getKey(absoluteFile, contentSeparator),
+        (key, store) -> {
+          if (store != null && store.isUpToDate()) {
+            return store;
+          }
+          return new MappedDocumentStore(absoluteFile, contentSeparator,
+              DEFAULT_CACHE_SIZE);
+        });
+  }
+
+  /**
+   * Releases the shared store of the given file such that the next call of
+   * {@link #forFile(File, String)} creates a new store. The mapped regions of
+   * the released store are unmapped once neither the store nor its documents
+   * are referenced anymore.
+   * 
+   * @param file
+   *          The file to release the store of
+   * @param contentSeparator
+   *          The separator of the fields of a line
+   * @return <tt>True</tt> if a shared store was released, <tt>false</tt> if
+   *         there was none
+   */
+  public static boolean release(final File file,
+      final String contentSeparator) {
+    return STORES.remove(
+        getKey(file.getAbsoluteFile(), contentSeparator)) != null;
+  }
+
+  /**
+   * Gets the index of the greatest value of the given ascending array which
+   * is not greater than the given value.
+   * 
+   * @param values
+   *          The ascending values to search in
+   * @param size
+   *          The amount of used values of the array
+   * @param value
+   *          The value to search for
+   * @return The index of the greatest value not greater than the given value
+   *         or <tt>-1</tt> if there is none
+   */
+  private static int floorIndex(final long[] values, final int size,
+      final long value) {
+    final int index = Arrays.binarySearch(values, 0, size, value);
+    if (index >= 0) {
+      return index;
+    }
+    return -(index + 1) - 1;
+  }
+
+  /**
+   * Gets the key of the shared store of the given file.
+   * 
+   * @param absoluteFile
+   *          The absolute file of the store
+   * @param contentSeparator
+   *          The separator of the fields of a line
+   * @return The key of the shared store
+   */
+  private static String getKey(final File absoluteFile,
+      final String contentSeparator) {
+    return absoluteFile.getPath() + File.pathSeparator + contentSeparator;
+  }
+
+  /**
+   * Cache of decoded lines by the position of their start.
+   */
+  private final LruCache<Long, List<String>> mCache;
+  /**
+   * The file of the store.
+   */
+  private final File mFile;
+  /**
+   * The amount of lines of the file.
+   */
+  private int mLineSize;
+  /**
+   * The offset table, the position of each line start in ascending order,
+   * followed by the size of the file. <tt>null</tt> until the file is
+   * mapped.
+   */
+  private volatile long[] mLineStarts;
+  /**
+   * The mapped regions of the file.
+   */
+  private MappedByteBuffer[] mRegions;
+  /**
+   * The position of the start of each region in the file.
+   */
+  private long[] mRegionStarts;
+  /**
+   * The bytes of the content separator encoded in UTF-8.
+   */
+  private final byte[] mSeparator;
+  /**
+   * The last modification time of the file when it was mapped.
+   */
+  private long mSourceLastModified;
+  /**
+   * The size of the file in bytes when it was mapped.
+   */
+  private long mSourceSize;
+
+  /**
+   * Creates a new store for the given file. The file gets mapped on the first
+   * access. Use {@link #forFile(File, String)} to share a store between all
+   * users of a file.
+   * 
+   * @param file
+   *          The file of the store, encoded in UTF-8
+   * @param contentSeparator
+   *          The separator of the fields of a line, it is matched literally
+   * @param cacheSize
+   *          The maximal amount of decoded lines to cache, must be positive
+   */
+  public MappedDocumentStore(final File file, final String contentSeparator,
+      final int cacheSize) {
+    if (contentSeparator.isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    this.mFile = file;
+    this.mSeparator = contentSeparator.getBytes(StandardCharsets.UTF_8);
+    this.mCache = new LruCache<>(cacheSize);
+  }
+
+  /**
+   * Gets the amount of lines of the file, including empty lines. Maps the
+   * file if not done already.
+   * 
+   * @return The amount of lines of the file
+   * @throws IOException
+   *           If an I/O-Exception occurred while mapping the file
+   */
+  public int getAmountOfLines() throws IOException {
+    ensureMapped();
+    return this.mLineSize;
+  }
+
+  /**
+   * Gets the cache of decoded lines.
+   * 
+   * @return The cache of decoded lines
+   */
+  public LruCache<Long, List<String>> getCache() {
+    return this.mCache;
+  }
+
+  /**
+   * Gets the fields of the line which starts at the given position. The
+   * fields are decoded from the mapped file or taken from the cache. The
+   * returned list is unmodifiable and thus shared with other callers.
+   * 
+   * @param lineStartPos
+   *          The position in bytes from the start of the file where the line
+   *          begins
+   * @return The fields of the line, separated by the content separator
+   * @throws IOException
+   *           If an I/O-Exception occurred while mapping the file
+   * @throws IllegalArgumentException
+   *           If no line starts at the given position
+   */
+  public List<String> getFields(final long lineStartPos)
+      throws IOException {
+    final Long key = Long.valueOf(lineStartPos);
+    final List<String> cachedFields = this.mCache.get(key);
+    if (cachedFields != null) {
+      return cachedFields;
+    }
+
+    ensureMapped();
+    final int lineIndex =
+        floorIndex(this.mLineStarts, this.mLineSize, lineStartPos);
+    if (lineIndex < 0 || this.mLineStarts[lineIndex] != lineStartPos) {
+      throw new IllegalArgumentException();
+    }
+    final int regionIndex = floorIndex(this.mRegionStarts,
+        this.mRegionStarts.length, lineStartPos);
+    // Duplicate the region to not interfere with other threads
+    final ByteBuffer region = this.mRegions[regionIndex].duplicate();
+    final long regionStart = this.mRegionStarts[regionIndex];
+    final int start = (int) (lineStartPos - regionStart);
+    int end = (int) (this.mLineStarts[lineIndex + 1] - regionStart);
+    if (end > start && region.get(end - 1) == LINE_SEPARATOR) {
+      end--;
+    }
+    if (end > start && region.get(end - 1) == CARRIAGE_RETURN) {
+      end--;
+    }
+
+    final List<String> fields = sliceFields(region, start, end);
+    this.mCache.put(key, fields);
+    return fields;
+  }
+
+  /**
+   * Gets the file of the store.
+   * 
+   * @return The file of the store
+   */
+  public File getFile() {
+    return this.mFile;
+  }
+
+  /**
+   * Gets the position of the start of the line with the given index. Maps the
+   * file if not done already.
+   * 
+   * @param lineIndex
+   *          The index of the line, between <tt>0</tt> inclusive and
+   *          {@link #getAmountOfLines()} exclusive
+   * @return The position in bytes from the start of the file where the line
+   *         begins
+   * @throws IOException
+   *           If an I/O-Exception occurred while mapping the file
+   */
+  public long getLineStart(final int lineIndex) throws IOException {
+    ensureMapped();
+    if (lineIndex < 0 || lineIndex >= this.mLineSize) {
+      throw new IllegalArgumentException();
+    }
+    return this.mLineStarts[lineIndex];
+  }
+
+  /**
+   * Whether the store reflects the current content of its file. That is the
+   * case if the file was not mapped yet or its size and last modification
+   * time did not change since it was mapped.
+   * 
+   * @return <tt>True</tt> if the store is up to date, <tt>false</tt> if the
+   *         file was modified since it was mapped
+   */
+  public boolean isUpToDate() {
+    if (this.mLineStarts == null) {
+      return true;
+    }
+    return this.mFile.length() == this.mSourceSize
+        && this.mFile.lastModified() == this.mSourceLastModified;
+  }
+
+  /**
+   * Decodes the given bytes of a region as UTF-8 text.
+   * 
+   * @param region
+   *          The region to decode bytes of
+   * @param start
+   *          The position of the first byte in the region
+   * @param end
+   *          The position after the last byte in the region
+   * @return The decoded text
+   */
+  private String decode(final ByteBuffer region, final int start,
+      final int end) {
+    // Decode a view of the slice, without copying the bytes
+    final ByteBuffer slice = region.duplicate();
+    slice.limit(end);
+    slice.position(start);
+    return StandardCharsets.UTF_8.decode(slice).toString();
+  }
+
+  /**
+   * Maps the file and gets its offset table if not done already. The table is
+   * read from the sidecar file of the {@link LineOffsetTable} if it is up to
+   * date, otherwise the file is scanned once and the sidecar written.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private void ensureMapped() throws IOException {
+    if (this.mLineStarts != null) {
+      return;
+    }
+    synchronized (this) {
+      if (this.mLineStarts != null) {
+        return;
+      }
+      final LineOffsetTable table = LineOffsetTable.forFile(this.mFile);
+      final long[] lineStarts = table.getLineStarts();
+      final int lineSize = table.getAmountOfLines();
+      try (final FileChannel channel =
+          FileChannel.open(this.mFile.toPath(), StandardOpenOption.READ)) {
+        final long size = channel.size();
+        if (size != table.getSourceSize()) {
+          // The file was modified while building the offset table
+          throw new IOException();
+        }
+        final ArrayList<MappedByteBuffer> regions = new ArrayList<>();
+        final ArrayList<Long> regionStarts = new ArrayList<>();
+
+        // Map regions which end at the last line start that fits into them
+        long regionStart = 0;
+        while (regionStart < size) {
+          long regionEnd = regionStart + MAXIMAL_REGION_SIZE;
+          if (regionEnd < size) {
+            regionEnd =
+                lineStarts[floorIndex(lineStarts, lineSize, regionEnd)];
+            if (regionEnd <= regionStart) {
+              // A single line does not fit into a region
+              throw new IOException();
+            }
+          } else {
+            regionEnd = size;
+          }
+          regions.add(channel.map(MapMode.READ_ONLY, regionStart,
+              regionEnd - regionStart));
+          regionStarts.add(Long.valueOf(regionStart));
+          regionStart = regionEnd;
+        }
+
+        this.mRegions = regions.toArray(new MappedByteBuffer[regions.size()]);
+        this.mRegionStarts = new long[regionStarts.size()];
+        for (int i = 0; i < this.mRegionStarts.length; i++) {
+          this.mRegionStarts[i] = regionStarts.get(i).longValue();
+        }
+        this.mLineSize = lineSize;
+        this.mSourceSize = table.getSourceSize();
+        this.mSourceLastModified = table.getSourceLastModified();
+        // Publish the offset table last, it marks the store as mapped
+        this.mLineStarts = lineStarts;
+      }
+    }
+  }
+
+  /**
+   * Whether the content separator occurs at the given position of the region.
+   * 
+   * @param region
+   *          The region to check
+   * @param index
+   *          The position to check, the separator must fit into the region
+   *          from there
+   * @return <tt>True</tt> if the separator occurs at the position,
+   *         <tt>false</tt> otherwise
+   */
+  private boolean isSeparatorAt(final ByteBuffer region, final int index) {
+    for (int i = 0; i < this.mSeparator.length; i++) {
+      if (region.get(index + i) != this.mSeparator[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Slices the given line into its fields by the content separator and
+   * decodes them.
+   * 
+   * @param region
+   *          The region holding the line
+   * @param start
+   *          The position of the start of the line in the region
+   * @param end
+   *          The position after the end of the line in the region, without
+   *          line separator
+   * @return The decoded fields of the line as unmodifiable list
+   */
+  private List<String> sliceFields(final ByteBuffer region, final int start,
+      final int end) {
+    final ArrayList<String> fields = new ArrayList<>();
+    int fieldStart = start;
+    int index = start;
+    while (index <= end - this.mSeparator.length) {
+      if (isSeparatorAt(region, index)) {
+        fields.add(decode(region, fieldStart, index));
+        index += this.mSeparator.length;
+        fieldStart = index;
+      } else {
+        index++;
+      }
+    }
+    fields.add(decode(region, fieldStart, end));
+    return Collections.unmodifiableList(fields);
+  }
+}
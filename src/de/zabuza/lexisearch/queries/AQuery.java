@@ -0,0 +1,484 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import de.zabuza.lexisearch.indexing.AggregationPlan;
+import de.zabuza.lexisearch.indexing.AggregationPlanner;
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.InvertedList;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.IRankingProvider;
+import de.zabuza.lexisearch.ranking.ITopKRankingProvider;
+
+/**
+ * Abstract implementation of {@link IQuery} which operates on
+ * {@link IKeyRecord}<tt>{@literal <String>}</tt>. It fetches an
+ * {@link IInvertedList} for each keyword, aggregates them depending on the
+ * {@link EAggregateMode} and sorts the result by the ranking provider, if
+ * present. Implementations only define how the list of a single keyword is
+ * fetched. Searches with a limit only sort the best ranked postings if the
+ * ranking provider is an {@link ITopKRankingProvider}.<br/>
+ * <br/>
+ * The strategy of the aggregation is chosen per query by the
+ * {@link AggregationPlanner}, {@link #explain(Iterable, EAggregateMode)} shows
+ * which plan it chooses for given keywords.<br/>
+ * <br/>
+ * The index and the ranking provider are only read while searching and all
+ * state of a search is kept in its {@link QueryContext}. The resulting
+ * postings are copies, thus callers can modify them without affecting the
+ * index.<br/>
+ * <br/>
+ * Batches of queries, given to {@link #searchBatch(List, EAggregateMode)},
+ * fetch the records of each distinct keyword only once and evaluate the
+ * queries in parallel on the common fork/join pool. Implementations whose
+ * fetching is expensive can also fetch the keywords of a single search in
+ * parallel, see {@link #isFetchingInParallel()}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <T>
+ *          The class of records to operate on which must extend
+ *          {@link IKeyRecord}<tt>{@literal <String>}</tt>
+ */
+public abstract class AQuery<T extends IKeyRecord<String>>
+    implements IQuery<String> {
+  /**
+   * Limit of searches which return all records.
+   */
+  private static final int NO_LIMIT = Integer.MAX_VALUE;
+
+  /**
+   * The inverted index representing the processed data to operate on.
+   */
+  private final IInvertedIndex<String> mInvertedIndex;
+  /**
+   * If present, used to sort query results by ranking score.
+   */
+  private final Optional<IRankingProvider<String>> mRankingProvider;
+
+  /**
+   * Creates a new query object which operates on the given inverted index
+   * built from the given records. If a ranking provider is present, it takes a
+   * snapshot of the index and sets its ranking scores to the index.
+   * 
+   * @param invertedIndex
+   *          The inverted index built from the given records
+   * @param wordRecords
+   *          The set of records to operate on
+   * @param rankingProvider
+   *          The ranking provider to use, if present
+   */
+  protected AQuery(final IInvertedIndex<String> invertedIndex,
+      final IKeyRecordSet<T, String> wordRecords,
+      final Optional<IRankingProvider<String>> rankingProvider) {
+    this(invertedIndex, wordRecords, rankingProvider, true);
+  }
+
+  /**
+   * Creates a new query object which operates on the given inverted index
+   * built from the given records. If a ranking provider is present and
+   * desired, it takes a snapshot of the index and sets its ranking scores to
+   * the index. Otherwise the ranking provider must already hold a snapshot of
+   * the index, for example one that was restored together with it.
+   * 
+   * @param invertedIndex
+   *          The inverted index built from the given records
+   * @param wordRecords
+   *          The set of records to operate on
+   * @param rankingProvider
+   *          The ranking provider to use, if present
+   * @param takeRankingSnapshot
+   *          Whether the ranking provider should take a snapshot and set its
+   *          scores to the index
+   */
+  @SuppressWarnings("unchecked")
+  protected AQuery(final IInvertedIndex<String> invertedIndex,
+      final IKeyRecordSet<T, String> wordRecords,
+      final Optional<IRankingProvider<String>> rankingProvider,
+      final boolean takeRankingSnapshot) {
+    this.mInvertedIndex = invertedIndex;
+    this.mRankingProvider = rankingProvider;
+
+    if (takeRankingSnapshot && this.mRankingProvider.isPresent()) {
+      final IRankingProvider<String> ranking = this.mRankingProvider.get();
+      ranking.takeSnapshot(this.mInvertedIndex,
+          (IKeyRecordSet<IKeyRecord<String>, String>) wordRecords);
+      ranking.setRankingScoreToIndex();
+    }
+  }
+
+  /**
+   * Plans the aggregation of the records of the given keywords without
+   * executing it. Used to inspect how a query gets evaluated.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The aggregation mode to use
+   * @return The plan which a search for the given keywords uses
+   */
+  public AggregationPlan explain(final Iterable<String> keys,
+      final EAggregateMode mode) {
+    final QueryContext context = new QueryContext();
+    return planAggregation(keys, mode, key -> fetchRecords(key, context));
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#getInvertedIndex()
+   */
+  @Override
+  public IInvertedIndex<String> getInvertedIndex() {
+    return this.mInvertedIndex;
+  }
+
+  /**
+   * Gets the ranking provider used to sort query results by ranking score.
+   * 
+   * @return The ranking provider, if present
+   */
+  public Optional<IRankingProvider<String>> getRankingProvider() {
+    return this.mRankingProvider;
+  }
+
+  /**
+   * Gets the records matching the given single keyword, like they are
+   * aggregated by searches. They are neither copied nor ranked, thus the list
+   * must only be read.
+   * 
+   * @param key
+   *          The keyword to get records for
+   * @param context
+   *          The context of the current invocation
+   * @return An {@link IInvertedList} containing all records matching the
+   *         keyword, it is empty if there are none
+   */
+  public IInvertedList getRecords(final String key,
+      final QueryContext context) {
+    final IInvertedList records = fetchRecords(key, context);
+    if (records == null) {
+      return new InvertedList();
+    }
+    return records;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable,
+   * int, de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchAnd(final Iterable<String> keys,
+      final int limit, final QueryContext context) {
+    return searchAggregate(keys, EAggregateMode.INTERSECT, limit, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable,
+   * de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchAnd(final Iterable<String> keys,
+      final QueryContext context) {
+    return searchAggregate(keys, EAggregateMode.INTERSECT, NO_LIMIT, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchBatch(java.util.List,
+   * de.zabuza.lexisearch.indexing.EAggregateMode)
+   */
+  @Override
+  public List<List<Posting>> searchBatch(
+      final List<? extends Collection<String>> queries,
+      final EAggregateMode mode) {
+    // Collect the distinct keywords of all queries
+    final LinkedHashSet<String> distinctKeys = new LinkedHashSet<>();
+    for (final Collection<String> keys : queries) {
+      distinctKeys.addAll(keys);
+    }
+
+    // Fetch the records of each keyword only once, in parallel
+    final HashMap<String, IInvertedList> keyToRecords =
+        fetchInParallel(distinctKeys, new QueryContext());
+
+    // Evaluate the queries in parallel, the fetched records are only read
+    return IntStream.range(0, queries.size()).parallel()
+        .mapToObj(i -> aggregate(queries.get(i), mode, NO_LIMIT,
+            keyToRecords::get))
+        .collect(Collectors.toList());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable,
+   * int, de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchOr(final Iterable<String> keys, final int limit,
+      final QueryContext context) {
+    return searchAggregate(keys, EAggregateMode.UNION, limit, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable,
+   * de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchOr(final Iterable<String> keys,
+      final QueryContext context) {
+    return searchAggregate(keys, EAggregateMode.UNION, NO_LIMIT, context);
+  }
+
+  /**
+   * Fetches the records matching the given keyword. If the budget of the
+   * context is exhausted, implementations stop early, mark the context as
+   * truncated and return only the records verified so far.
+   * 
+   * @param key
+   *          The keyword to fetch records for
+   * @param context
+   *          The context of the current invocation
+   * @return An {@link IInvertedList} containing all records matching the
+   *         keyword or <tt>null</tt> if there are none. The list is only read.
+   */
+  protected abstract IInvertedList fetchRecords(String key,
+      QueryContext context);
+
+  /**
+   * Whether the keywords of a single search get fetched in parallel. This
+   * pays off if fetching the records of a keyword is expensive compared to
+   * scheduling a task on the common fork/join pool. The default
+   * implementation returns <tt>false</tt>.
+   * 
+   * @return <tt>True</tt> if the keywords of a search get fetched in
+   *         parallel, <tt>false</tt> otherwise
+   */
+  protected boolean isFetchingInParallel() {
+    return false;
+  }
+
+  /**
+   * Transforms the given list into a list of copies of its postings and sorts
+   * them by the ranking provider, if present.
+   * 
+   * @param records
+   *          The list to transform, its postings may belong to the index
+   * @return A list containing copies of the postings of the given list, sorted
+   *         by ranking if a ranking provider is present
+   */
+  protected List<Posting> toRankedPostings(final IInvertedList records) {
+    return toRankedPostings(records, NO_LIMIT);
+  }
+
+  /**
+   * Transforms the given list into a list of copies of its postings, sorts
+   * them by the ranking provider, if present, and keeps only the first
+   * postings. If the ranking provider is an {@link ITopKRankingProvider},
+   * only the kept postings get sorted.
+   * 
+   * @param records
+   *          The list to transform, its postings may belong to the index
+   * @param limit
+   *          The maximal amount of postings to keep, must not be negative
+   * @return A list containing copies of the first postings of the given
+   *         list, sorted by ranking if a ranking provider is present
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  protected List<Posting> toRankedPostings(final IInvertedList records,
+      final int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    // Without ranking the postings keep their order, thus only the kept ones
+    // need to be copied
+    final int amountToCopy;
+    if (this.mRankingProvider.isPresent()) {
+      amountToCopy = records.getSize();
+    } else {
+      amountToCopy = Math.min(limit, records.getSize());
+    }
+
+    // Transform the result into a list of copies, the postings may belong to
+    // the index which is shared by all invocations
+    final ArrayList<Posting> resultingList = new ArrayList<>(amountToCopy);
+    for (final Posting posting : records.getPostings()) {
+      if (resultingList.size() == amountToCopy) {
+        break;
+      }
+      resultingList.add(new Posting(posting.getId(),
+          posting.getTermFrequency(), posting.getScore()));
+    }
+
+    // Use ranking if present
+    if (!this.mRankingProvider.isPresent()) {
+      return resultingList;
+    }
+    final IRankingProvider<String> ranking = this.mRankingProvider.get();
+    if (ranking instanceof ITopKRankingProvider) {
+      ((ITopKRankingProvider<String>) ranking)
+          .sortTopPostingsByRank(resultingList, limit);
+      return resultingList;
+    }
+    ranking.sortPostingsByRank(resultingList);
+    return IQuery.limitResults(resultingList, limit);
+  }
+
+  /**
+   * Aggregates the records of each given keyword depending on the given
+   * {@link EAggregateMode}.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The aggregation mode to use
+   * @param limit
+   *          The maximal amount of postings to return
+   * @param fetcher
+   *          Function which fetches the records of a keyword, it may return
+   *          <tt>null</tt> if there are none
+   * @return A list containing copies of the best ranked postings where the
+   *         keywords occur depending on the given {@link EAggregateMode}.
+   */
+  private List<Posting> aggregate(final Iterable<String> keys,
+      final EAggregateMode mode, final int limit,
+      final Function<String, IInvertedList> fetcher) {
+    final IInvertedList resultingInvertedList =
+        planAggregation(keys, mode, fetcher).execute();
+    if (resultingInvertedList.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    return toRankedPostings(resultingInvertedList, limit);
+  }
+
+  /**
+   * Fetches the records of the given distinct keywords in parallel on the
+   * common fork/join pool. Each keyword is fetched with its own fork of the
+   * given context.
+   * 
+   * @param distinctKeys
+   *          The distinct keywords to fetch records for
+   * @param context
+   *          The context of the current invocation, the forks get joined into
+   *          it
+   * @return A map from each given keyword to its records, which is
+   *         <tt>null</tt> if there are none
+   */
+  private HashMap<String, IInvertedList> fetchInParallel(
+      final Collection<String> distinctKeys, final QueryContext context) {
+    final ArrayList<String> keysToFetch = new ArrayList<>(distinctKeys);
+    final ArrayList<QueryContext> forks = new ArrayList<>(keysToFetch.size());
+    for (int i = 0; i < keysToFetch.size(); i++) {
+      forks.add(context.fork());
+    }
+
+    final List<IInvertedList> fetchedRecords =
+        IntStream.range(0, keysToFetch.size()).parallel()
+            .mapToObj(i -> fetchRecords(keysToFetch.get(i), forks.get(i)))
+            .collect(Collectors.toList());
+
+    final HashMap<String, IInvertedList> keyToRecords =
+        new HashMap<>(keysToFetch.size() * 2);
+    for (int i = 0; i < keysToFetch.size(); i++) {
+      context.join(forks.get(i));
+      keyToRecords.put(keysToFetch.get(i), fetchedRecords.get(i));
+    }
+    return keyToRecords;
+  }
+
+  /**
+   * Fetches the records of each given keyword and plans their aggregation
+   * depending on the given {@link EAggregateMode}.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The aggregation mode to use
+   * @param fetcher
+   *          Function which fetches the records of a keyword, it may return
+   *          <tt>null</tt> if there are none
+   * @return The plan which aggregates the records of the keywords
+   */
+  private AggregationPlan planAggregation(final Iterable<String> keys,
+      final EAggregateMode mode,
+      final Function<String, IInvertedList> fetcher) {
+    final ArrayList<IInvertedList> recordsForKeys = new ArrayList<>();
+
+    // Fetch all corresponding inverted lists
+    for (final String key : keys) {
+      final IInvertedList records = fetcher.apply(key);
+      if (records == null) {
+        recordsForKeys.add(new InvertedList());
+      } else {
+        recordsForKeys.add(records);
+      }
+      if (mode == EAggregateMode.INTERSECT
+          && recordsForKeys.get(recordsForKeys.size() - 1).isEmpty()) {
+        // If key has no records, the intersection is empty and the remaining
+        // keys do not need to be fetched
+        break;
+      }
+    }
+
+    return AggregationPlanner.plan(recordsForKeys, mode);
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical operator depending
+   * on the given {@link EAggregateMode}.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The aggregation mode to use
+   * @param limit
+   *          The maximal amount of postings to return, must not be negative
+   * @param context
+   *          The context of the current invocation
+   * @return A list containing copies of the best ranked postings where the
+   *         keywords occur depending on the given {@link EAggregateMode}.
+   */
+  private List<Posting> searchAggregate(final Iterable<String> keys,
+      final EAggregateMode mode, final int limit,
+      final QueryContext context) {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    if (isFetchingInParallel()) {
+      final LinkedHashSet<String> distinctKeys = new LinkedHashSet<>();
+      for (final String key : keys) {
+        distinctKeys.add(key);
+      }
+      if (distinctKeys.size() > 1) {
+        // The keywords are independent until they get aggregated
+        final HashMap<String, IInvertedList> keyToRecords =
+            fetchInParallel(distinctKeys, context);
+        return aggregate(keys, mode, limit, keyToRecords::get);
+      }
+    }
+    return aggregate(keys, mode, limit, key -> fetchRecords(key, context));
+  }
+}
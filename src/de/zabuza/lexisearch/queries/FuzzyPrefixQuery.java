@@ -1,23 +1,34 @@
 package de.zabuza.lexisearch.queries;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
-import java.util.List;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import de.zabuza.lexisearch.editdistance.IEditDistance;
 import de.zabuza.lexisearch.editdistance.PrefixLevenshtein;
+import de.zabuza.lexisearch.indexing.AggregationPlanner;
+import de.zabuza.lexisearch.indexing.DenseKeyRecordSet;
 import de.zabuza.lexisearch.indexing.EAggregateMode;
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IInvertedList;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.IngestionPipeline;
 import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.indexing.ITermRecord;
 import de.zabuza.lexisearch.indexing.InvertedList;
 import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.TermDictionary;
 import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
 import de.zabuza.lexisearch.model.city.ICity;
+import de.zabuza.lexisearch.queries.PrefixExtensionCache.PrefixCandidates;
 import de.zabuza.lexisearch.ranking.IRankingProvider;
 
 /**
@@ -25,7 +36,21 @@ import de.zabuza.lexisearch.ranking.IRankingProvider;
  * {@link IKeyRecord}<tt>{@literal <String>}</tt>. Thus it searches in a list
  * of, for example, {@link ICity} objects by using keywords. The search is a
  * prefix fuzzy search. Thus it searches for words where the keywords are
- * prefixes, also typing errors in the keywords are allowed.
+ * prefixes, also typing errors in the keywords are allowed.<br/>
+ * <br/>
+ * Verified candidates of keywords are kept in a {@link PrefixExtensionCache}.
+ * If a keyword extends a previously searched keyword, like it is typical for
+ * type-ahead searches, only the cached candidates of the previous keyword get
+ * verified again instead of scanning the q-gram lists.<br/>
+ * <br/>
+ * The verification of candidates respects the {@link QueryBudget} of the
+ * {@link QueryContext}. If it is exhausted, keywords only contribute the
+ * candidates verified so far and such partial candidates are not cached.<br/>
+ * <br/>
+ * The keywords of a search get expanded in parallel and large amounts of
+ * candidates of a single keyword get verified in parallel chunks, both on the
+ * common fork/join pool. The normalized names of the records are computed
+ * once at creation and reused by the verification.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -34,29 +59,165 @@ import de.zabuza.lexisearch.ranking.IRankingProvider;
  *          {@link IKeyRecord}<tt>{@literal <String>}</tt>
  */
 public final class FuzzyPrefixQuery<T extends IKeyRecord<String>>
-    implements IQuery<String> {
+    extends AQuery<T> {
+  /**
+   * The q-grams of a keyword encoded as ids of a {@link TermDictionary},
+   * together with the amount of their occurrences. It allows to count the
+   * q-grams a record holding term ids has in common with the keyword without
+   * decoding them.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private static final class KeywordTerms {
+    /**
+     * The amount of occurrences of the terms, parallel to the term ids.
+     */
+    private final int[] mCounts;
+    /**
+     * The ids of the q-grams of the keyword which are contained in the
+     * dictionary.
+     */
+    private final int[] mTermIds;
+
+    /**
+     * Encodes the given q-grams of a keyword with the given dictionary.
+     * Q-grams not contained in the dictionary are dropped, no record can
+     * have them.
+     * 
+     * @param keyQGramCounts
+     *          The q-grams of the keyword mapped to the amount of their
+     *          occurrences
+     * @param dictionary
+     *          The dictionary to encode the q-grams with
+     */
+    public KeywordTerms(final HashMap<String, Integer> keyQGramCounts,
+        final TermDictionary dictionary) {
+      final int[] termIds = new int[keyQGramCounts.size()];
+      final int[] counts = new int[termIds.length];
+      int amountOfTerms = 0;
+      for (final Entry<String, Integer> entry : keyQGramCounts.entrySet()) {
+        final int termId = dictionary.getTermId(entry.getKey());
+        if (termId != TermDictionary.NO_TERM) {
+          termIds[amountOfTerms] = termId;
+          counts[amountOfTerms] = entry.getValue().intValue();
+          amountOfTerms++;
+        }
+      }
+      this.mTermIds = Arrays.copyOf(termIds, amountOfTerms);
+      this.mCounts = Arrays.copyOf(counts, amountOfTerms);
+    }
+
+    /**
+     * Counts the amount of q-grams the record with the given term ids has in
+     * common with the keyword.
+     * 
+     * @param recordTermIds
+     *          The term ids of the record, encoded with the same dictionary
+     * @return The amount of q-grams the record has in common with the keyword
+     */
+    public int countInCommon(final int[] recordTermIds) {
+      int qGramsInCommon = 0;
+      for (final int recordTermId : recordTermIds) {
+        for (int i = 0; i < this.mTermIds.length; i++) {
+          if (this.mTermIds[i] == recordTermId) {
+            qGramsInCommon += this.mCounts[i];
+            break;
+          }
+        }
+      }
+      return qGramsInCommon;
+    }
+  }
+
+  /**
+   * The amount of candidates above which verification is split into chunks of
+   * this size that get verified in parallel.
+   */
+  private static final int VERIFICATION_CHUNK_SIZE = 2048;
+
+  /**
+   * Computes the bound delta for keywords of the given length. Records with a
+   * prefix edit distance greater than delta do not match the keyword.
+   * 
+   * @param keywordLength
+   *          The length of the normalized keyword
+   * @return The bound delta for keywords of the given length
+   */
+  private static int computeDelta(final int keywordLength) {
+    return (int) Math.floor((keywordLength + 0.0) / 4);
+  }
 
   /**
-   * Amount of how often prefix edit distances for the current query were
-   * computed. This is used for debugging purpose.
+   * Computes the bound up to which candidates of the given normalized keyword
+   * get verified. It is the bound delta of the keyword extended by one more
+   * character such that the candidates can be reused for the next keystroke
+   * of a type-ahead search.
+   * 
+   * @param normalizedKeyRecord
+   *          The normalized keyword
+   * @return The bound up to which candidates of the keyword get verified
    */
-  private int mDebugPEDComputationAmount;
+  private static int computeVerificationBound(
+      final String normalizedKeyRecord) {
+    return computeDelta(normalizedKeyRecord.length() + 1);
+  }
+
+  /**
+   * Computes the normalized names of the given records, indexed by their id.
+   * Records with a negative id or an id too large for a dense array are left
+   * out, their names get normalized on demand instead.
+   * 
+   * @param <T>
+   *          The class of the records
+   * @param wordRecords
+   *          The records to compute the normalized names of
+   * @return The normalized names of the records, indexed by their id
+   */
+  private static <T extends IKeyRecord<String>> String[]
+      createNormalizedNames(final Iterable<T> wordRecords) {
+    int amountOfRecords = 0;
+    int maximalRecordId = -1;
+    for (final T wordRecord : wordRecords) {
+      amountOfRecords++;
+      maximalRecordId = Math.max(maximalRecordId, wordRecord.getRecordId());
+    }
+    final long maximalLength = (long) amountOfRecords
+        * DenseKeyRecordSet.MAXIMAL_SLOTS_PER_RECORD;
+    final String[] normalizedNames =
+        new String[(int) Math.min(maximalRecordId + 1L, maximalLength)];
+    for (final T wordRecord : wordRecords) {
+      final int recordId = wordRecord.getRecordId();
+      if (recordId >= 0 && recordId < normalizedNames.length) {
+        normalizedNames[recordId] =
+            QGramProvider.normalizeRecord(wordRecord.getName());
+      }
+    }
+    return normalizedNames;
+  }
+
   /**
    * Object to use for computing the edit distance.
    */
   private final IEditDistance<String> mEditDistance;
   /**
-   * The inverted index representing the processed data to operate on.
+   * The normalized names of the records, indexed by their id. Entries are
+   * <tt>null</tt> for records whose names get normalized on demand.
    */
-  private final IInvertedIndex<String> mInvertedIndex;
+  private final String[] mNormalizedNames;
   /**
-   * The q-Gram provider to use.
+   * Cache holding verified candidates of previously searched keywords.
    */
-  private final QGramProvider mProvider;
+  private final PrefixExtensionCache mPrefixCache;
+  /**
+   * The modification count of the inverted index the cached prefix candidates
+   * belong to.
+   */
+  private final AtomicLong mPrefixCacheModificationCount;
   /**
-   * If present, used to sort query results by ranking score.
+   * The q-Gram provider to use.
    */
-  private final Optional<IRankingProvider<String>> mRankingProvider;
+  private final QGramProvider mProvider;
   /**
    * The set of word records to use.
    */
@@ -94,6 +255,80 @@ public final class FuzzyPrefixQuery<T extends IKeyRecord<String>>
     this(wordRecords, provider, Optional.of(rankingProvider));
   }
 
+  /**
+   * Creates a new fuzzy prefix query object which operates on a q-gram index
+   * built from the given records elsewhere, for example by an
+   * {@link IngestionPipeline} while the records were loaded. The index is
+   * not built again, the normalized names get computed and the ranking
+   * provider takes a snapshot of the index.
+   * 
+   * @param invertedIndex
+   *          The q-gram index built from the given records, as by
+   *          {@link InvertedIndexUtil#createFromWords(Iterable)}
+   * @param wordRecords
+   *          The set of records to operate on
+   * @param provider
+   *          The q-gram provider the index was built with
+   * @param rankingProvider
+   *          The ranking provider to use
+   */
+  public FuzzyPrefixQuery(final IInvertedIndex<String> invertedIndex,
+      final IKeyRecordSet<T, String> wordRecords, final QGramProvider provider,
+      final IRankingProvider<String> rankingProvider) {
+    this(invertedIndex, createNormalizedNames(wordRecords), wordRecords,
+        provider, Optional.of(rankingProvider), true);
+  }
+
+  /**
+   * Creates a new fuzzy prefix query object which operates on an already
+   * built q-gram index, for example restored from a snapshot. Neither the
+   * index nor the normalized names get computed again.
+   * 
+   * @param invertedIndex
+   *          The q-gram index built from the given records
+   * @param normalizedNames
+   *          The normalized names of the records, indexed by their id, as
+   *          given by {@link #getNormalizedNames()}
+   * @param wordRecords
+   *          The set of records to operate on
+   * @param provider
+   *          The q-gram provider the index was built with
+   */
+  public FuzzyPrefixQuery(final IInvertedIndex<String> invertedIndex,
+      final String[] normalizedNames,
+      final IKeyRecordSet<T, String> wordRecords,
+      final QGramProvider provider) {
+    this(invertedIndex, normalizedNames, wordRecords, provider,
+        Optional.empty(), false);
+  }
+
+  /**
+   * Creates a new fuzzy prefix query object which operates on an already
+   * built q-gram index, for example restored from a snapshot. Neither the
+   * index nor the normalized names get computed again. The ranking provider
+   * must already hold a snapshot of the index whose scores are set to it, it
+   * is not taken again.
+   * 
+   * @param invertedIndex
+   *          The q-gram index built from the given records
+   * @param normalizedNames
+   *          The normalized names of the records, indexed by their id, as
+   *          given by {@link #getNormalizedNames()}
+   * @param wordRecords
+   *          The set of records to operate on
+   * @param provider
+   *          The q-gram provider the index was built with
+   * @param rankingProvider
+   *          The ranking provider to use, holding a snapshot of the index
+   */
+  public FuzzyPrefixQuery(final IInvertedIndex<String> invertedIndex,
+      final String[] normalizedNames,
+      final IKeyRecordSet<T, String> wordRecords, final QGramProvider provider,
+      final IRankingProvider<String> rankingProvider) {
+    this(invertedIndex, normalizedNames, wordRecords, provider,
+        Optional.of(rankingProvider), false);
+  }
+
   /**
    * Creates a new fuzzy prefix query object with the given ranking provider, if
    * present. After initialization it is able to perform queries by using the
@@ -106,43 +341,159 @@ public final class FuzzyPrefixQuery<T extends IKeyRecord<String>>
    * @param rankingProvider
    *          The ranking provider to use, if present
    */
-  @SuppressWarnings("unchecked")
   private FuzzyPrefixQuery(final IKeyRecordSet<T, String> wordRecords,
       final QGramProvider provider,
       final Optional<IRankingProvider<String>> rankingProvider) {
-    this.mInvertedIndex = InvertedIndexUtil.createFromWords(wordRecords);
+    this(InvertedIndexUtil.createFromWords(wordRecords),
+        createNormalizedNames(wordRecords), wordRecords, provider,
+        rankingProvider, true);
+  }
+
+  /**
+   * Creates a new fuzzy prefix query object which operates on the given q-gram
+   * index with the given ranking provider, if present. After initialization
+   * it is able to perform queries by using the given methods.
+   * 
+   * @param invertedIndex
+   *          The q-gram index built from the given records
+   * @param normalizedNames
+   *          The normalized names of the records, indexed by their id
+   * @param wordRecords
+   *          The set of records to operate on
+   * @param provider
+   *          The q-gram provider to use for the records
+   * @param rankingProvider
+   *          The ranking provider to use, if present
+   * @param takeRankingSnapshot
+   *          Whether the ranking provider should take a snapshot and set its
+   *          scores to the index
+   */
+  private FuzzyPrefixQuery(final IInvertedIndex<String> invertedIndex,
+      final String[] normalizedNames,
+      final IKeyRecordSet<T, String> wordRecords, final QGramProvider provider,
+      final Optional<IRankingProvider<String>> rankingProvider,
+      final boolean takeRankingSnapshot) {
+    super(invertedIndex, wordRecords, rankingProvider, takeRankingSnapshot);
+    this.mNormalizedNames = normalizedNames;
     this.mProvider = provider;
     this.mWordRecords = wordRecords;
     this.mEditDistance = new PrefixLevenshtein();
-    this.mDebugPEDComputationAmount = 0;
-
-    this.mRankingProvider = rankingProvider;
-    if (this.mRankingProvider.isPresent()) {
-      final IRankingProvider<String> ranking = this.mRankingProvider.get();
-      ranking.takeSnapshot(this.mInvertedIndex,
-          (IKeyRecordSet<IKeyRecord<String>, String>) wordRecords);
-      ranking.setRankingScoreToIndex();
-    }
+    this.mPrefixCache = new PrefixExtensionCache();
+    this.mPrefixCacheModificationCount =
+        new AtomicLong(getInvertedIndex().getModificationCount());
+  }
+
+  /**
+   * Gets the normalized names of the records, indexed by their id. Entries are
+   * <tt>null</tt> for records whose names get normalized on demand. The
+   * returned array must not be modified.
+   * 
+   * @return The normalized names of the records, indexed by their id
+   */
+  public String[] getNormalizedNames() {
+    return this.mNormalizedNames;
+  }
+
+  /**
+   * Gets the records matching the given single keyword among the given
+   * records, like they are aggregated by searches. Records outside of the
+   * given set are dropped before they are verified, thus no prefix edit
+   * distance is computed for them. Such restricted candidates are not stored
+   * in the prefix cache, but the cached candidates of the keyword are used if
+   * present. The records are not ranked.
+   * 
+   * @param key
+   *          The keyword to get records for
+   * @param allowedRecords
+   *          The ids of the records to consider, for example the records
+   *          within a region
+   * @param context
+   *          The context of the current invocation
+   * @return An {@link IInvertedList} containing all allowed records matching
+   *         the keyword, it is empty if there are none
+   */
+  public IInvertedList getRecords(final String key,
+      final BitSet allowedRecords, final QueryContext context) {
+    return searchPrefixesFuzzy(key, allowedRecords, context);
+  }
+
+  /**
+   * Gets the cache holding verified candidates of previously searched
+   * keywords.
+   * 
+   * @return The cache holding verified candidates of previously searched
+   *         keywords
+   */
+  public PrefixExtensionCache getPrefixCache() {
+    return this.mPrefixCache;
   }
 
   /*
    * (non-Javadoc)
    * 
-   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable)
+   * @see de.zabuza.lexisearch.queries.AQuery#fetchRecords(java.lang.String,
+   * de.zabuza.lexisearch.queries.QueryContext)
    */
   @Override
-  public List<Posting> searchAnd(final Iterable<String> keys) {
-    return searchAggregate(keys, EAggregateMode.INTERSECT);
+  protected IInvertedList fetchRecords(final String key,
+      final QueryContext context) {
+    return searchPrefixesFuzzy(key, null, context);
   }
 
   /*
    * (non-Javadoc)
    * 
-   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable)
+   * @see de.zabuza.lexisearch.queries.AQuery#isFetchingInParallel()
    */
   @Override
-  public List<Posting> searchOr(final Iterable<String> keys) {
-    return searchAggregate(keys, EAggregateMode.UNION);
+  protected boolean isFetchingInParallel() {
+    // Expanding a keyword verifies many candidates, which is expensive
+    return true;
+  }
+
+  /**
+   * Counts the amount of q-grams the given record has in common with the
+   * keyword whose q-grams are given. Q-grams occurring multiple times are
+   * counted the same way a union of their inverted lists does.
+   * 
+   * Records holding term ids are compared by them, the encoded q-grams of the
+   * keyword are kept per dictionary in the given map.
+   * 
+   * @param keyQGramCounts
+   *          The q-grams of the keyword mapped to the amount of their
+   *          occurrences
+   * @param keywordTerms
+   *          The q-grams of the keyword encoded per dictionary, missing
+   *          encodings get added
+   * @param recordId
+   *          The id of the record in question
+   * @return The amount of q-grams the record has in common with the keyword
+   */
+  private int countQGramsInCommon(final HashMap<String, Integer> keyQGramCounts,
+      final IdentityHashMap<TermDictionary, KeywordTerms> keywordTerms,
+      final int recordId) {
+    final T record = this.mWordRecords.getKeyRecordById(recordId);
+    if (record instanceof ITermRecord) {
+      final ITermRecord termRecord = (ITermRecord) record;
+      final TermDictionary dictionary = termRecord.getTermDictionary();
+      if (dictionary != null) {
+        KeywordTerms terms = keywordTerms.get(dictionary);
+        if (terms == null) {
+          terms = new KeywordTerms(keyQGramCounts, dictionary);
+          keywordTerms.put(dictionary, terms);
+        }
+        return terms.countInCommon(termRecord.getTermIds());
+      }
+    }
+
+    int qGramsInCommon = 0;
+    for (final String qGram : record.getKeys()) {
+      final Integer count = keyQGramCounts.get(qGram);
+      if (count != null) {
+        qGramsInCommon += count.intValue();
+      }
+    }
+    return qGramsInCommon;
   }
 
   /**
@@ -160,19 +511,21 @@ public final class FuzzyPrefixQuery<T extends IKeyRecord<String>>
    * @param delta
    *          The delta bound. If it is already known that the result will be
    *          greater than this, the computation can be simplified
+   * @param context
+   *          The context of the current invocation
    * @return If the amount of q-grams both objects have in common is greater
    *         than the special bound, the prefix edit distance gets returned.
    *         Else <tt>(delta + 1)</tt> will be returned.
    */
   private int estimatedPrefixDistance(final String first, final String second,
-      final int qGramsInCommon, final int delta) {
+      final int qGramsInCommon, final int delta, final QueryContext context) {
     final int q = this.mProvider.getQParameter();
 
     // Estimate the distance by using delta and the q-Grams both have in common
     final double bound = first.length() - 1 - q * delta;
     if (qGramsInCommon >= bound) {
       // Compute the exact prefix edit distance, it may be less than delta
-      this.mDebugPEDComputationAmount++;
+      context.increasePrefixDistanceComputations();
       return this.mEditDistance.estimatedDistance(first, second, delta);
     }
     // We already know that the distance must be greater than delta
@@ -180,109 +533,371 @@ public final class FuzzyPrefixQuery<T extends IKeyRecord<String>>
   }
 
   /**
-   * Searches by combining each given keyword with an logical operator depending
-   * on the given {@link EAggregateMode}.
+   * Gets the normalized name of the record with the given id.
    * 
-   * @param keys
-   *          The keywords to search for
-   * @param mode
-   *          The aggregation mode to use
-   * @return An {@link IInvertedList} containing all records where the keywords
-   *         occur depending on the given {@link EAggregateMode}.
+   * @param recordId
+   *          The id of the record
+   * @return The normalized name of the record
    */
-  private List<Posting> searchAggregate(final Iterable<String> keys,
-      final EAggregateMode mode) {
-    this.mDebugPEDComputationAmount = 0;
-    final LinkedList<IInvertedList> recordsForKeys = new LinkedList<>();
-    // Fetch all corresponding inverted indices
-    for (final String key : keys) {
-      recordsForKeys.add(searchPrefixesFuzzy(key));
+  private String getNormalizedName(final int recordId) {
+    if (recordId >= 0 && recordId < this.mNormalizedNames.length) {
+      final String normalizedName = this.mNormalizedNames[recordId];
+      if (normalizedName != null) {
+        return normalizedName;
+      }
     }
+    return QGramProvider.normalizeRecord(
+        this.mWordRecords.getKeyRecordById(recordId).getName());
+  }
 
-    // Care for the aggregation mode
-    final IInvertedList resultingInvertedList;
-    final int amountOfEntries = recordsForKeys.size();
-    if (amountOfEntries == 0) {
-      return Collections.emptyList();
-    } else if (amountOfEntries == 1) {
-      resultingInvertedList = recordsForKeys.getFirst();
-    } else {
-      if (mode == EAggregateMode.INTERSECT) {
-        resultingInvertedList = IInvertedList.intersect(recordsForKeys);
-      } else if (mode == EAggregateMode.UNION) {
-        resultingInvertedList = IInvertedList.union(recordsForKeys);
+  /**
+   * Searches all postings which have a prefix edit distance lower than a
+   * special bound delta. Uses the candidates of the longest cached prefix of
+   * the keyword, if available, instead of scanning the q-gram lists.
+   * 
+   * @param keyRecord
+   *          Key to search for
+   * @param allowedRecords
+   *          The ids of the records to consider or <tt>null</tt> if all
+   *          records should be considered
+   * @param context
+   *          The context of the current invocation
+   * @return An inverted list containing all postings which have a prefix edit
+   *         distance lower than a special bound delta
+   */
+  private IInvertedList searchPrefixesFuzzy(final String keyRecord,
+      final BitSet allowedRecords, final QueryContext context) {
+    final String normalizedKeyRecord = QGramProvider.normalizeRecord(keyRecord);
+    // Define the bound delta
+    final int delta = computeDelta(normalizedKeyRecord.length());
+
+    // Drop cached candidates if the index has changed
+    final long modificationCount = getInvertedIndex().getModificationCount();
+    final long cachedModificationCount =
+        this.mPrefixCacheModificationCount.get();
+    if (modificationCount != cachedModificationCount
+        && this.mPrefixCacheModificationCount
+            .compareAndSet(cachedModificationCount, modificationCount)) {
+      this.mPrefixCache.invalidateAll();
+    }
+
+    // Fetch the candidates, either from a cached prefix or from the index
+    PrefixCandidates candidates =
+        this.mPrefixCache.getLongestPrefix(normalizedKeyRecord, delta);
+    if (candidates == null
+        || !candidates.getKeyword().equals(normalizedKeyRecord)) {
+      if (context.isBudgetExhausted()) {
+        // There is no budget left to verify any candidate
+        context.markTruncated();
+        return new InvertedList();
+      }
+      if (candidates == null) {
+        candidates = verifyIndexCandidates(keyRecord, normalizedKeyRecord,
+            allowedRecords, context);
       } else {
-        throw new AssertionError();
+        candidates = verifyPrefixCandidates(keyRecord, normalizedKeyRecord,
+            candidates, allowedRecords, context);
+      }
+      // Partially verified or restricted candidates must not be reused by
+      // other searches
+      if (!context.isTruncated() && allowedRecords == null) {
+        this.mPrefixCache.put(candidates);
       }
     }
 
-    // Transform the result into a list
-    final ArrayList<Posting> resultingList =
-        new ArrayList<>(resultingInvertedList.getSize());
-    for (final Posting posting : resultingInvertedList.getPostings()) {
-      resultingList.add(posting);
+    // Filter out every record with a prefix edit distance greater than delta
+    final IInvertedList resultingList = new InvertedList();
+    for (int i = 0; i < candidates.getSize(); i++) {
+      final int distance = candidates.getDistance(i);
+      if (distance <= delta && (allowedRecords == null
+          || allowedRecords.get(candidates.getId(i)))) {
+        // Take the record, store the distance in its relevance-score field
+        resultingList.addPosting(candidates.getId(i),
+            candidates.getTermFrequency(i), distance);
+      }
     }
 
-    // Use ranking if present
-    if (this.mRankingProvider.isPresent()) {
-      this.mRankingProvider.get().sortPostingsByRank(resultingList);
+    return resultingList;
+  }
+
+  /**
+   * Verifies the given candidates of the given keyword. All records with a
+   * prefix edit distance up to the given bound are included. Large amounts of
+   * candidates are split into chunks which get verified in parallel on the
+   * common fork/join pool.
+   * 
+   * @param normalizedKeyRecord
+   *          The normalized keyword
+   * @param bound
+   *          The bound up to which candidates are included
+   * @param ids
+   *          The ids of the candidates to verify, the array gets modified
+   * @param termFrequencies
+   *          The amount of q-grams each candidate has in common with the
+   *          keyword, the array gets modified
+   * @param amountOfRecords
+   *          The amount of candidates to verify
+   * @param context
+   *          The context of the current invocation
+   * @return The verified candidates of the keyword
+   */
+  private PrefixCandidates verifyCandidates(final String normalizedKeyRecord,
+      final int bound, final int[] ids, final int[] termFrequencies,
+      final int amountOfRecords, final QueryContext context) {
+    final int[] distances = context.getScratchBuffer(2, amountOfRecords);
+    int amountOfCandidates = 0;
+    if (amountOfRecords <= VERIFICATION_CHUNK_SIZE) {
+      amountOfCandidates = verifyChunk(normalizedKeyRecord, bound, ids,
+          termFrequencies, distances, 0, amountOfRecords, context);
+    } else {
+      // Each chunk compacts its accepted candidates within its own range
+      final int amountOfChunks =
+          (amountOfRecords + VERIFICATION_CHUNK_SIZE - 1)
+              / VERIFICATION_CHUNK_SIZE;
+      final QueryContext[] forks = new QueryContext[amountOfChunks];
+      for (int i = 0; i < amountOfChunks; i++) {
+        forks[i] = context.fork();
+      }
+      final int[] chunkEnds = new int[amountOfChunks];
+      IntStream.range(0, amountOfChunks).parallel().forEach(chunk -> {
+        final int from = chunk * VERIFICATION_CHUNK_SIZE;
+        final int to =
+            Math.min(from + VERIFICATION_CHUNK_SIZE, amountOfRecords);
+        chunkEnds[chunk] = verifyChunk(normalizedKeyRecord, bound, ids,
+            termFrequencies, distances, from, to, forks[chunk]);
+      });
+
+      // Concatenate the accepted candidates of all chunks
+      for (int i = 0; i < amountOfChunks; i++) {
+        context.join(forks[i]);
+        final int from = i * VERIFICATION_CHUNK_SIZE;
+        final int length = chunkEnds[i] - from;
+        System.arraycopy(ids, from, ids, amountOfCandidates, length);
+        System.arraycopy(termFrequencies, from, termFrequencies,
+            amountOfCandidates, length);
+        System.arraycopy(distances, from, distances, amountOfCandidates,
+            length);
+        amountOfCandidates += length;
+      }
     }
 
-    return resultingList;
+    return new PrefixCandidates(normalizedKeyRecord, bound,
+        Arrays.copyOf(ids, amountOfCandidates),
+        Arrays.copyOf(termFrequencies, amountOfCandidates),
+        Arrays.copyOf(distances, amountOfCandidates));
   }
 
   /**
-   * Searches all postings which have a prefix edit distance lower than a
-   * special bound delta.
+   * Verifies the candidates in the given range. Accepted candidates are moved
+   * to the beginning of the range, in their order, and their distances are
+   * stored.
+   * 
+   * @param normalizedKeyRecord
+   *          The normalized keyword
+   * @param bound
+   *          The bound up to which candidates are accepted
+   * @param ids
+   *          The ids of the candidates
+   * @param termFrequencies
+   *          The amount of q-grams each candidate has in common with the
+   *          keyword
+   * @param distances
+   *          Array to store the distances of accepted candidates in
+   * @param from
+   *          The first index of the range, inclusive
+   * @param to
+   *          The last index of the range, exclusive
+   * @param context
+   *          The context of the task verifying the range
+   * @return The index after the last accepted candidate
+   */
+  private int verifyChunk(final String normalizedKeyRecord, final int bound,
+      final int[] ids, final int[] termFrequencies, final int[] distances,
+      final int from, final int to, final QueryContext context) {
+    int end = from;
+    for (int i = from; i < to; i++) {
+      if (context.isBudgetExhausted()) {
+        context.markTruncated();
+        break;
+      }
+      final int recordId = ids[i];
+      final int termFrequency = termFrequencies[i];
+      final String normalizedRecord = getNormalizedName(recordId);
+
+      // Estimate the distance, if it is greater than the bound, discard the
+      // record
+      final int estimatedDistance = estimatedPrefixDistance(normalizedKeyRecord,
+          normalizedRecord, termFrequency, bound, context);
+      if (estimatedDistance <= bound) {
+        ids[end] = recordId;
+        termFrequencies[end] = termFrequency;
+        distances[end] = estimatedDistance;
+        end++;
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Builds the candidates of the given keyword by scanning the inverted lists
+   * of its q-grams. All records with a prefix edit distance up to the
+   * verification bound of the keyword are included.
    * 
    * @param keyRecord
-   *          Key to search for
-   * @return An inverted list containing all postings which have a prefix edit
-   *         distance lower than a special bound delta
+   *          The keyword
+   * @param normalizedKeyRecord
+   *          The normalized keyword
+   * @param allowedRecords
+   *          The ids of the records to consider or <tt>null</tt> if all
+   *          records should be considered
+   * @param context
+   *          The context of the current invocation
+   * @return The candidates of the keyword
    */
-  private IInvertedList searchPrefixesFuzzy(final String keyRecord) {
-    final String normalizedKeyRecord = QGramProvider.normalizeRecord(keyRecord);
-    // Define the bound delta
-    final int delta =
-        (int) Math.floor((normalizedKeyRecord.length() + 0.0) / 4);
+  private PrefixCandidates verifyIndexCandidates(final String keyRecord,
+      final String normalizedKeyRecord, final BitSet allowedRecords,
+      final QueryContext context) {
+    final int bound = computeVerificationBound(normalizedKeyRecord);
 
     // Fetch inverted lists of keys q-grams
     final String[] qGrams = this.mProvider.getKeys(keyRecord);
     final LinkedList<IInvertedList> qGramRecords = new LinkedList<>();
     for (final String qGram : qGrams) {
-      final IInvertedList records = this.mInvertedIndex.getRecords(qGram);
+      if (context.isBudgetExhausted()) {
+        context.markTruncated();
+        break;
+      }
+      final IInvertedList records = getInvertedIndex().getRecords(qGram);
       if (records != null) {
+        context.increaseScannedPostings(records.getSize());
         qGramRecords.add(records);
       }
     }
 
     // Merge records and filter out every record with a prefix edit distance
-    // greater than delta
-    final IInvertedList mergedRecords;
-    if (qGramRecords.size() < 1) {
-      mergedRecords = new InvertedList();
-    } else if (qGramRecords.size() == 1) {
-      mergedRecords = qGramRecords.getFirst();
-    } else {
-      mergedRecords = IInvertedList.union(qGramRecords);
-    }
-    final IInvertedList resultingList = new InvertedList();
+    // greater than the bound
+    final IInvertedList mergedRecords =
+        AggregationPlanner.plan(qGramRecords, EAggregateMode.UNION).execute();
+
+    final int[] ids = context.getScratchBuffer(0, mergedRecords.getSize());
+    final int[] termFrequencies =
+        context.getScratchBuffer(1, mergedRecords.getSize());
+    int amountOfRecords = 0;
     for (final Posting posting : mergedRecords.getPostings()) {
-      final int recordId = posting.getId();
-      final int termFrequency = posting.getTermFrequency();
-      final String record =
-          this.mWordRecords.getKeyRecordById(recordId).getName();
-      final String normalizedRecord = QGramProvider.normalizeRecord(record);
+      if (allowedRecords != null && !allowedRecords.get(posting.getId())) {
+        continue;
+      }
+      ids[amountOfRecords] = posting.getId();
+      termFrequencies[amountOfRecords] = posting.getTermFrequency();
+      amountOfRecords++;
+    }
 
-      // Estimate the distance, if it is greater than delta, discard the record
-      final int estimatedDistance = estimatedPrefixDistance(normalizedKeyRecord,
-          normalizedRecord, termFrequency, delta);
-      if (estimatedDistance <= delta) {
-        // Take the record, store the distance in its relevance-score field
-        resultingList.addPosting(recordId, termFrequency, estimatedDistance);
+    return verifyCandidates(normalizedKeyRecord, bound, ids, termFrequencies,
+        amountOfRecords, context);
+  }
+
+  /**
+   * Builds the candidates of the given keyword by verifying the candidates of
+   * one of its prefixes again, together with the records of the q-grams the
+   * keyword does not share with the prefix. Records that only have those
+   * q-grams in common with the keyword never were candidates of the prefix.
+   * All records with a prefix edit distance up to the verification bound of
+   * the keyword, but at most the bound of the prefix candidates, are
+   * included.
+   * 
+   * @param keyRecord
+   *          The keyword
+   * @param normalizedKeyRecord
+   *          The normalized keyword
+   * @param prefixCandidates
+   *          The candidates of a prefix of the normalized keyword
+   * @param allowedRecords
+   *          The ids of the records to consider or <tt>null</tt> if all
+   *          records should be considered
+   * @param context
+   *          The context of the current invocation
+   * @return The candidates of the keyword
+   */
+  private PrefixCandidates verifyPrefixCandidates(final String keyRecord,
+      final String normalizedKeyRecord,
+      final PrefixCandidates prefixCandidates, final BitSet allowedRecords,
+      final QueryContext context) {
+    final int bound = Math.min(prefixCandidates.getBound(),
+        computeVerificationBound(normalizedKeyRecord));
+
+    // Count the q-grams of the keyword
+    final HashMap<String, Integer> keyQGramCounts = new HashMap<>();
+    for (final String qGram : this.mProvider.getKeys(keyRecord)) {
+      keyQGramCounts.merge(qGram, Integer.valueOf(1), Integer::sum);
+    }
+
+    // Fetch inverted lists of the q-grams the prefix does not have
+    final HashSet<String> prefixQGrams = new HashSet<>(
+        Arrays.asList(this.mProvider.getKeys(prefixCandidates.getKeyword())));
+    final LinkedList<IInvertedList> qGramRecords = new LinkedList<>();
+    for (final String qGram : keyQGramCounts.keySet()) {
+      if (prefixQGrams.contains(qGram)) {
+        continue;
+      }
+      final IInvertedList records = getInvertedIndex().getRecords(qGram);
+      if (records != null) {
+        context.increaseScannedPostings(records.getSize());
+        qGramRecords.add(records);
       }
     }
+    final IInvertedList extensionRecords =
+        AggregationPlanner.plan(qGramRecords, EAggregateMode.UNION).execute();
 
-    return resultingList;
+    // Merge both candidate sets, which are sorted by their ids
+    final int amountOfPrefixRecords = prefixCandidates.getSize();
+    context.increaseScannedPostings(amountOfPrefixRecords);
+    final int maximalAmountOfRecords =
+        amountOfPrefixRecords + extensionRecords.getSize();
+    final int[] ids = context.getScratchBuffer(0, maximalAmountOfRecords);
+    final int[] termFrequencies =
+        context.getScratchBuffer(1, maximalAmountOfRecords);
+    int amountOfRecords = 0;
+    int prefixIndex = 0;
+    for (final Posting posting : extensionRecords.getPostings()) {
+      final int extensionId = posting.getId();
+      while (prefixIndex < amountOfPrefixRecords
+          && prefixCandidates.getId(prefixIndex) < extensionId) {
+        ids[amountOfRecords] = prefixCandidates.getId(prefixIndex);
+        amountOfRecords++;
+        prefixIndex++;
+      }
+      if (prefixIndex < amountOfPrefixRecords
+          && prefixCandidates.getId(prefixIndex) == extensionId) {
+        prefixIndex++;
+      }
+      ids[amountOfRecords] = extensionId;
+      amountOfRecords++;
+    }
+    while (prefixIndex < amountOfPrefixRecords) {
+      ids[amountOfRecords] = prefixCandidates.getId(prefixIndex);
+      amountOfRecords++;
+      prefixIndex++;
+    }
+
+    if (allowedRecords != null) {
+      int amountOfAllowedRecords = 0;
+      for (int i = 0; i < amountOfRecords; i++) {
+        if (allowedRecords.get(ids[i])) {
+          ids[amountOfAllowedRecords] = ids[i];
+          amountOfAllowedRecords++;
+        }
+      }
+      amountOfRecords = amountOfAllowedRecords;
+    }
+
+    final IdentityHashMap<TermDictionary, KeywordTerms> keywordTerms =
+        new IdentityHashMap<>();
+    for (int i = 0; i < amountOfRecords; i++) {
+      termFrequencies[i] =
+          countQGramsInCommon(keyQGramCounts, keywordTerms, ids[i]);
+    }
+
+    return verifyCandidates(normalizedKeyRecord, bound, ids, termFrequencies,
+        amountOfRecords, context);
   }
 }
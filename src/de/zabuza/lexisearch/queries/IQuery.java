@@ -1,12 +1,21 @@
 package de.zabuza.lexisearch.queries;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.Posting;
 
 /**
  * Interface for queries. A query consists of several keywords and returns a
- * list which holds all records aggregated by the type of search.
+ * list which holds all records aggregated by the type of search.<br/>
+ * <br/>
+ * Implementations keep all state of a single search in a {@link QueryContext}
+ * and return lists and postings which are owned by the caller. Thus one query
+ * object can be used by multiple threads at the same time, as long as its
+ * inverted index is not modified meanwhile.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -14,6 +23,36 @@ import de.zabuza.lexisearch.indexing.Posting;
  *          The keys used by this query
  */
 public interface IQuery<K> {
+  /**
+   * Gets the first postings of the given list.
+   * 
+   * @param results
+   *          The list to get the first postings of
+   * @param limit
+   *          The maximal amount of postings to get, must not be negative
+   * @return The given list if it does not contain more postings than the
+   *         limit, a new list containing its first postings otherwise
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  static List<Posting> limitResults(final List<Posting> results,
+      final int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    if (results.size() <= limit) {
+      return results;
+    }
+    return new ArrayList<>(results.subList(0, limit));
+  }
+
+  /**
+   * Gets the inverted index this query operates on.
+   * 
+   * @return The inverted index this query operates on
+   */
+  IInvertedIndex<K> getInvertedIndex();
+
   /**
    * Searches by combining each given keyword with an logical <tt>and</tt>.
    * 
@@ -21,15 +60,121 @@ public interface IQuery<K> {
    *          The keywords to search for
    * @return A list containing all records where all of the given keywords occur
    */
-  List<Posting> searchAnd(Iterable<K> keys);
+  default List<Posting> searchAnd(final Iterable<K> keys) {
+    return searchAnd(keys, new QueryContext());
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical <tt>and</tt> and
+   * only returns the best ranked records. The default implementation
+   * truncates the result of {@link #searchAnd(Iterable, QueryContext)},
+   * implementations may select the best records without ranking all of them.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param limit
+   *          The maximal amount of records to return, must not be negative
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
+   * @return A list containing the first records of the list
+   *         {@link #searchAnd(Iterable, QueryContext)} returns
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  default List<Posting> searchAnd(final Iterable<K> keys, final int limit,
+      final QueryContext context) {
+    return limitResults(searchAnd(keys, context), limit);
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical <tt>and</tt>.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
+   * @return A list containing all records where all of the given keywords occur
+   */
+  List<Posting> searchAnd(Iterable<K> keys, QueryContext context);
+
+  /**
+   * Searches multiple queries at once. Each query combines its keywords with a
+   * logical operator depending on the given {@link EAggregateMode}.
+   * Implementations may share work between queries of the batch, like
+   * fetching the records of keywords that occur in multiple queries only
+   * once, and evaluate the queries in parallel. The default implementation
+   * searches the queries one after another.
+   * 
+   * @param queries
+   *          The queries to search for, each given by its keywords
+   * @param mode
+   *          The aggregation mode to use for every query
+   * @return A list containing the result of each query, in the order of the
+   *         given queries. Each result is a list like returned by
+   *         {@link #searchAnd(Iterable)} or {@link #searchOr(Iterable)}.
+   */
+  default List<List<Posting>> searchBatch(
+      final List<? extends Collection<K>> queries, final EAggregateMode mode) {
+    final ArrayList<List<Posting>> results = new ArrayList<>(queries.size());
+    for (final Collection<K> keys : queries) {
+      if (mode == EAggregateMode.INTERSECT) {
+        results.add(searchAnd(keys));
+      } else if (mode == EAggregateMode.UNION) {
+        results.add(searchOr(keys));
+      } else {
+        throw new AssertionError();
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical <tt>or</tt>.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @return A list containing all records where at least one of the given
+   *         keywords occurs
+   */
+  default List<Posting> searchOr(final Iterable<K> keys) {
+    return searchOr(keys, new QueryContext());
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical <tt>or</tt> and
+   * only returns the best ranked records. The default implementation
+   * truncates the result of {@link #searchOr(Iterable, QueryContext)},
+   * implementations may select the best records without ranking all of them.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param limit
+   *          The maximal amount of records to return, must not be negative
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
+   * @return A list containing the first records of the list
+   *         {@link #searchOr(Iterable, QueryContext)} returns
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  default List<Posting> searchOr(final Iterable<K> keys, final int limit,
+      final QueryContext context) {
+    return limitResults(searchOr(keys, context), limit);
+  }
 
   /**
    * Searches by combining each given keyword with an logical <tt>or</tt>.
    * 
    * @param keys
    *          The keywords to search for
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
    * @return A list containing all records where at least one of the given
    *         keywords occurs
    */
-  List<Posting> searchOr(Iterable<K> keys);
+  List<Posting> searchOr(Iterable<K> keys, QueryContext context);
 }
@@ -0,0 +1,154 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.EImpactPrecision;
+import de.zabuza.lexisearch.ranking.IRankingProvider;
+import de.zabuza.lexisearch.ranking.ImpactIndex;
+import de.zabuza.lexisearch.ranking.ImpactList;
+
+/**
+ * Implementation of {@link IQuery} which searches in the impact-quantized
+ * index mode. Instead of the postings of the inverted index it reads the
+ * {@link ImpactList}s of an {@link ImpactIndex}, which store the quantized
+ * scores of a ranking inline with the record ids. Scores of results are thus
+ * sums of integer impacts, which approximate the scores of the ranking up to
+ * the scale of the impact index.<br/>
+ * <br/>
+ * The impact index is created from the ranking and gets created again
+ * whenever the inverted index of the ranking changes, including new scores
+ * written by {@link IRankingProvider#setRankingScoreToIndex()}. The query is
+ * safe to use by multiple threads.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          The keys used by this query
+ */
+public final class ImpactQuery<K> implements IQuery<K> {
+  /**
+   * The current impact index.
+   */
+  private ImpactIndex<K> mImpactIndex;
+  /**
+   * The modification count of the inverted index the current impact index
+   * was created from.
+   */
+  private long mModificationCount;
+  /**
+   * The precision to quantize scores with.
+   */
+  private final EImpactPrecision mPrecision;
+  /**
+   * The ranking whose scores get quantized.
+   */
+  private final IRankingProvider<K> mRanking;
+
+  /**
+   * Creates a new impact query. The impact index is created immediately.
+   * 
+   * @param ranking
+   *          The ranking whose scores should get quantized, a snapshot must
+   *          have been taken already
+   * @param precision
+   *          The precision to quantize scores with
+   */
+  public ImpactQuery(final IRankingProvider<K> ranking,
+      final EImpactPrecision precision) {
+    this.mRanking = ranking;
+    this.mPrecision = precision;
+    this.mModificationCount =
+        ranking.getInvertedIndex().getModificationCount();
+    this.mImpactIndex = ImpactIndex.createFromRanking(ranking, precision);
+  }
+
+  /**
+   * Gets the current impact index. It gets created again if the inverted
+   * index of the ranking has changed since it was created.
+   * 
+   * @return The current impact index
+   */
+  public synchronized ImpactIndex<K> getImpactIndex() {
+    final long modificationCount =
+        this.mRanking.getInvertedIndex().getModificationCount();
+    if (modificationCount != this.mModificationCount) {
+      this.mImpactIndex =
+          ImpactIndex.createFromRanking(this.mRanking, this.mPrecision);
+      this.mModificationCount = modificationCount;
+    }
+    return this.mImpactIndex;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#getInvertedIndex()
+   */
+  @Override
+  public IInvertedIndex<K> getInvertedIndex() {
+    return this.mRanking.getInvertedIndex();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable,
+   * de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchAnd(final Iterable<K> keys,
+      final QueryContext context) {
+    return search(keys, EAggregateMode.INTERSECT, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable,
+   * de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchOr(final Iterable<K> keys,
+      final QueryContext context) {
+    return search(keys, EAggregateMode.UNION, context);
+  }
+
+  /**
+   * Searches by combining the given keywords with the given mode.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The mode to combine the keywords with
+   * @param context
+   *          The context of the current invocation
+   * @return A list containing all records matching the given keywords in the
+   *         given mode, sorted by their score in descending order
+   */
+  private List<Posting> search(final Iterable<K> keys,
+      final EAggregateMode mode, final QueryContext context) {
+    final ImpactIndex<K> impactIndex = getImpactIndex();
+    final ArrayList<K> fetchedKeys = new ArrayList<>();
+    for (final K key : keys) {
+      if (context.isBudgetExhausted()) {
+        context.markTruncated();
+        if (mode == EAggregateMode.INTERSECT) {
+          // Without all keywords, the result could contain false matches
+          return Collections.emptyList();
+        }
+        break;
+      }
+      final ImpactList impacts = impactIndex.getImpacts(key);
+      if (impacts != null) {
+        context.increaseScannedPostings(impacts.getSize());
+      }
+      fetchedKeys.add(key);
+    }
+    return impactIndex.search(fetchedKeys, mode);
+  }
+}
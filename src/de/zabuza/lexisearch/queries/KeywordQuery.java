@@ -2,12 +2,10 @@ package de.zabuza.lexisearch.queries;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
-import de.zabuza.lexisearch.indexing.EAggregateMode;
-import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IInvertedList;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
@@ -19,7 +17,12 @@ import de.zabuza.lexisearch.ranking.IRankingProvider;
 /**
  * Generic implementation of {@link IQuery} which operates on
  * {@link IKeyRecord}<tt>{@literal <String>}</tt>. Thus it searches in a list
- * of, for example, {@link IDocument}s by using keywords.
+ * of, for example, {@link IDocument}s by using keywords.<br/>
+ * <br/>
+ * The index is positional, thus besides <tt>and</tt> and <tt>or</tt> queries
+ * it also supports phrase queries, given by {@link #searchPhrase(Iterable)},
+ * and proximity queries, given by {@link #searchNear(Iterable, int)}. They
+ * are evaluated by a position-aware intersection of the lists.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -28,15 +31,7 @@ import de.zabuza.lexisearch.ranking.IRankingProvider;
  *          {@link IKeyRecord}<tt>{@literal <String>}</tt>
  */
 public final class KeywordQuery<T extends IKeyRecord<String>>
-    implements IQuery<String> {
-  /**
-   * The inverted index representing the processed data to operate on.
-   */
-  private final IInvertedIndex<String> mInvertedIndex;
-  /**
-   * If present, used to sort query results by ranking score.
-   */
-  private final Optional<IRankingProvider<String>> mRankingProvider;
+    extends AQuery<T> {
 
   /**
    * Creates a new keyword query object. After initialization it is able to
@@ -74,99 +69,136 @@ public final class KeywordQuery<T extends IKeyRecord<String>>
    * @param rankingProvider
    *          The ranking provider to use, if present
    */
-  @SuppressWarnings("unchecked")
   private KeywordQuery(final IKeyRecordSet<T, String> wordRecords,
       final Optional<IRankingProvider<String>> rankingProvider) {
-    this.mInvertedIndex = InvertedIndexUtil.createFromWords(wordRecords);
-    this.mRankingProvider = rankingProvider;
+    super(InvertedIndexUtil.createPositionalFromWords(wordRecords), wordRecords,
+        rankingProvider);
+  }
 
-    if (this.mRankingProvider.isPresent()) {
-      final IRankingProvider<String> ranking = this.mRankingProvider.get();
-      ranking.takeSnapshot(this.mInvertedIndex,
-          (IKeyRecordSet<IKeyRecord<String>, String>) wordRecords);
-      ranking.setRankingScoreToIndex();
+  /**
+   * Searches for records where all given keywords occur within a window of
+   * the given size, in any order.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param maximalDistance
+   *          The maximal distance between the positions of the first and the
+   *          last keyword occurrence, must not be negative. A distance of
+   *          <tt>1</tt> for two keywords means they must be adjacent.
+   * @return A list containing all records where all of the given keywords
+   *         occur near to each other
+   */
+  public List<Posting> searchNear(final Iterable<String> keys,
+      final int maximalDistance) {
+    return searchNear(keys, maximalDistance, new QueryContext());
+  }
+
+  /**
+   * Searches for records where all given keywords occur within a window of
+   * the given size, in any order.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param maximalDistance
+   *          The maximal distance between the positions of the first and the
+   *          last keyword occurrence, must not be negative. A distance of
+   *          <tt>1</tt> for two keywords means they must be adjacent.
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
+   * @return A list containing all records where all of the given keywords
+   *         occur near to each other
+   */
+  public List<Posting> searchNear(final Iterable<String> keys,
+      final int maximalDistance, final QueryContext context) {
+    if (maximalDistance < 0) {
+      throw new IllegalArgumentException();
     }
+    return searchPositional(keys,
+        lists -> IInvertedList.intersectProximity(lists, maximalDistance),
+        context);
   }
 
-  /*
-   * (non-Javadoc)
+  /**
+   * Searches for records where the given keywords occur as phrase, i.e.
+   * consecutively and in the given order.
    * 
-   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable,
-   * java.util.Optional)
+   * @param keys
+   *          The keywords of the phrase, in order
+   * @return A list containing all records where the given keywords occur as
+   *         phrase
    */
-  @Override
-  public List<Posting> searchAnd(final Iterable<String> keys) {
-    return searchAggregate(keys, EAggregateMode.INTERSECT);
+  public List<Posting> searchPhrase(final Iterable<String> keys) {
+    return searchPhrase(keys, new QueryContext());
+  }
+
+  /**
+   * Searches for records where the given keywords occur as phrase, i.e.
+   * consecutively and in the given order.
+   * 
+   * @param keys
+   *          The keywords of the phrase, in order
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
+   * @return A list containing all records where the given keywords occur as
+   *         phrase
+   */
+  public List<Posting> searchPhrase(final Iterable<String> keys,
+      final QueryContext context) {
+    return searchPositional(keys, IInvertedList::intersectPhrase, context);
   }
 
   /*
    * (non-Javadoc)
    * 
-   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable,
-   * java.util.Optional)
+   * @see de.zabuza.lexisearch.queries.AQuery#fetchRecords(java.lang.String,
+   * de.zabuza.lexisearch.queries.QueryContext)
    */
   @Override
-  public List<Posting> searchOr(final Iterable<String> keys) {
-    return searchAggregate(keys, EAggregateMode.UNION);
+  protected IInvertedList fetchRecords(final String key,
+      final QueryContext context) {
+    if (context.isBudgetExhausted()) {
+      context.markTruncated();
+      return null;
+    }
+    final IInvertedList records = getInvertedIndex().getRecords(key);
+    if (records != null) {
+      context.increaseScannedPostings(records.getSize());
+    }
+    return records;
   }
 
   /**
-   * Searches by combining each given keyword with an logical operator depending
-   * on the given {@link EAggregateMode}.
+   * Searches by intersecting the lists of the given keywords with the given
+   * position-aware intersection.
    * 
    * @param keys
-   *          The keywords to search for
-   * @param mode
-   *          The aggregation mode to use
-   * @return An {@link IInvertedList} containing all records where the keywords
-   *         occur depending on the given {@link EAggregateMode}.
+   *          The keywords to search for, in order
+   * @param intersection
+   *          The position-aware intersection to use
+   * @param context
+   *          The context of the current invocation
+   * @return A list containing copies of all postings remaining after the
+   *         intersection
    */
-  private List<Posting> searchAggregate(final Iterable<String> keys,
-      final EAggregateMode mode) {
-    final LinkedList<IInvertedList> recordsForKeys = new LinkedList<>();
-
-    // Fetch all corresponding inverted indices
+  private List<Posting> searchPositional(final Iterable<String> keys,
+      final Function<List<IInvertedList>, IInvertedList> intersection,
+      final QueryContext context) {
+    final ArrayList<IInvertedList> recordsForKeys = new ArrayList<>();
     for (final String key : keys) {
-      if (!this.mInvertedIndex.containsKey(key)) {
-        if (mode == EAggregateMode.INTERSECT) {
-          // If key is not contained, return an empty list
-          return Collections.emptyList();
-        }
-      } else {
-        recordsForKeys.add(this.mInvertedIndex.getRecords(key));
+      final IInvertedList records = fetchRecords(key, context);
+      if (records == null || records.isEmpty()) {
+        // If key has no records, no record can match
+        return Collections.emptyList();
       }
+      recordsForKeys.add(records);
     }
-
-    // Care for the aggregation mode
-    final IInvertedList resultingInvertedList;
-    final int amountOfEntries = recordsForKeys.size();
-    if (amountOfEntries == 0) {
+    if (recordsForKeys.isEmpty()) {
       return Collections.emptyList();
-    } else if (amountOfEntries == 1) {
-      resultingInvertedList = recordsForKeys.getFirst();
-    } else {
-      if (mode == EAggregateMode.INTERSECT) {
-        resultingInvertedList = IInvertedList.intersect(recordsForKeys);
-      } else if (mode == EAggregateMode.UNION) {
-        resultingInvertedList = IInvertedList.union(recordsForKeys);
-      } else {
-        throw new AssertionError();
-      }
-    }
-
-    // Transform the result into a list
-    final ArrayList<Posting> resultingList =
-        new ArrayList<>(resultingInvertedList.getSize());
-    for (final Posting posting : resultingInvertedList.getPostings()) {
-      resultingList.add(posting);
-    }
-
-    // Use ranking if present
-    if (this.mRankingProvider.isPresent()) {
-      this.mRankingProvider.get().sortPostingsByRank(resultingList);
     }
 
-    return resultingList;
+    return toRankedPostings(intersection.apply(recordsForKeys));
   }
 
 }
@@ -0,0 +1,289 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache for the verified candidates of fuzzy prefix searches, as used by
+ * {@link FuzzyPrefixQuery}. Successive type-ahead queries are extensions of
+ * each other. If a record has a prefix edit distance of at most <tt>d</tt> to
+ * a keyword, it also has a prefix edit distance of at most <tt>d</tt> to every
+ * prefix of the keyword. Thus the candidates of a keyword are contained in the
+ * stored candidates of any of its prefixes, given they were verified with a
+ * bound of at least <tt>d</tt>. This allows to re-verify a small stored
+ * candidate set instead of scanning the q-gram lists again.<br/>
+ * <br/>
+ * The cache evicts the least recently used entries once the total amount of
+ * stored candidates exceeds its capacity. It is safe to use by multiple
+ * threads.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class PrefixExtensionCache {
+  /**
+   * Candidates of a normalized keyword which have a prefix edit distance of at
+   * most a given bound to the keyword.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  public static final class PrefixCandidates {
+    /**
+     * The bound up to which the candidates were verified.
+     */
+    private final int mBound;
+    /**
+     * The prefix edit distances of the candidates to the keyword.
+     */
+    private final int[] mDistances;
+    /**
+     * The record ids of the candidates in ascending order.
+     */
+    private final int[] mIds;
+    /**
+     * The normalized keyword the candidates belong to.
+     */
+    private final String mKeyword;
+    /**
+     * The amount of q-grams each candidate has in common with the keyword.
+     */
+    private final int[] mTermFrequencies;
+
+    /**
+     * Creates new prefix candidates. All arrays must have the same length.
+     * 
+     * @param keyword
+     *          The normalized keyword the candidates belong to
+     * @param bound
+     *          The bound up to which the candidates were verified, every
+     *          record with a prefix edit distance of at most this bound to the
+     *          keyword must be contained
+     * @param ids
+     *          The record ids of the candidates in ascending order
+     * @param termFrequencies
+     *          The amount of q-grams each candidate has in common with the
+     *          keyword
+     * @param distances
+     *          The prefix edit distances of the candidates to the keyword
+     */
+    public PrefixCandidates(final String keyword, final int bound,
+        final int[] ids, final int[] termFrequencies, final int[] distances) {
+      this.mKeyword = keyword;
+      this.mBound = bound;
+      this.mIds = ids;
+      this.mTermFrequencies = termFrequencies;
+      this.mDistances = distances;
+    }
+
+    /**
+     * Gets the bound up to which the candidates were verified.
+     * 
+     * @return The bound up to which the candidates were verified
+     */
+    public int getBound() {
+      return this.mBound;
+    }
+
+    /**
+     * Gets the prefix edit distance of the candidate at the given index.
+     * 
+     * @param index
+     *          The index of the candidate
+     * @return The prefix edit distance of the candidate to the keyword
+     */
+    public int getDistance(final int index) {
+      return this.mDistances[index];
+    }
+
+    /**
+     * Gets the record id of the candidate at the given index.
+     * 
+     * @param index
+     *          The index of the candidate
+     * @return The record id of the candidate
+     */
+    public int getId(final int index) {
+      return this.mIds[index];
+    }
+
+    /**
+     * Gets the normalized keyword the candidates belong to.
+     * 
+     * @return The normalized keyword the candidates belong to
+     */
+    public String getKeyword() {
+      return this.mKeyword;
+    }
+
+    /**
+     * Gets the amount of candidates.
+     * 
+     * @return The amount of candidates
+     */
+    public int getSize() {
+      return this.mIds.length;
+    }
+
+    /**
+     * Gets the amount of q-grams the candidate at the given index has in
+     * common with the keyword.
+     * 
+     * @param index
+     *          The index of the candidate
+     * @return The amount of q-grams the candidate has in common with the
+     *         keyword
+     */
+    public int getTermFrequency(final int index) {
+      return this.mTermFrequencies[index];
+    }
+  }
+
+  /**
+   * The default capacity of the cache, in the total amount of stored
+   * candidates.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+
+  /**
+   * The maximal total amount of stored candidates.
+   */
+  private final int mCapacity;
+  /**
+   * Structure holding the cached candidates by their keyword, in access order.
+   */
+  private final LinkedHashMap<String, PrefixCandidates> mEntries;
+  /**
+   * The amount of lookups that found a usable prefix.
+   */
+  private final AtomicLong mHitCount;
+  /**
+   * The amount of lookups that did not find a usable prefix.
+   */
+  private final AtomicLong mMissCount;
+  /**
+   * The current total amount of stored candidates.
+   */
+  private int mSize;
+
+  /**
+   * Creates a new empty prefix extension cache with the default capacity.
+   */
+  public PrefixExtensionCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new empty prefix extension cache.
+   * 
+   * @param capacity
+   *          The maximal total amount of stored candidates
+   */
+  public PrefixExtensionCache(final int capacity) {
+    this.mCapacity = capacity;
+    this.mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    this.mSize = 0;
+    this.mHitCount = new AtomicLong();
+    this.mMissCount = new AtomicLong();
+  }
+
+  /**
+   * Gets the maximal total amount of stored candidates.
+   * 
+   * @return The maximal total amount of stored candidates
+   */
+  public int getCapacity() {
+    return this.mCapacity;
+  }
+
+  /**
+   * Gets the amount of lookups that found a usable prefix.
+   * 
+   * @return The amount of lookups that found a usable prefix
+   */
+  public long getHitCount() {
+    return this.mHitCount.get();
+  }
+
+  /**
+   * Gets the candidates of the longest cached prefix of the given keyword,
+   * including the keyword itself, that were verified with at least the given
+   * bound.
+   * 
+   * @param normalizedKeyword
+   *          The normalized keyword to get candidates for
+   * @param minimalBound
+   *          The minimal bound the candidates must have been verified with
+   * @return The candidates of the longest usable prefix or <tt>null</tt> if
+   *         there is no such prefix
+   */
+  public synchronized PrefixCandidates getLongestPrefix(
+      final String normalizedKeyword, final int minimalBound) {
+    for (int length = normalizedKeyword.length(); length > 0; length--) {
+      final PrefixCandidates candidates =
+          this.mEntries.get(normalizedKeyword.substring(0, length));
+      if (candidates != null && candidates.getBound() >= minimalBound) {
+        this.mHitCount.incrementAndGet();
+        return candidates;
+      }
+    }
+    this.mMissCount.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Gets the amount of lookups that did not find a usable prefix.
+   * 
+   * @return The amount of lookups that did not find a usable prefix
+   */
+  public long getMissCount() {
+    return this.mMissCount.get();
+  }
+
+  /**
+   * Gets the current total amount of stored candidates.
+   * 
+   * @return The current total amount of stored candidates
+   */
+  public synchronized int getSize() {
+    return this.mSize;
+  }
+
+  /**
+   * Removes all cached candidates.
+   */
+  public synchronized void invalidateAll() {
+    this.mEntries.clear();
+    this.mSize = 0;
+  }
+
+  /**
+   * Caches the given candidates under their keyword. Candidate sets which are
+   * bigger than half of the capacity are not cached.
+   * 
+   * @param candidates
+   *          The candidates to cache
+   */
+  public synchronized void put(final PrefixCandidates candidates) {
+    if (candidates.getSize() > this.mCapacity / 2) {
+      return;
+    }
+    final PrefixCandidates previousCandidates =
+        this.mEntries.put(candidates.getKeyword(), candidates);
+    if (previousCandidates != null) {
+      this.mSize -= previousCandidates.getSize();
+    }
+    this.mSize += candidates.getSize();
+
+    // Evict least recently used entries
+    final Iterator<Entry<String, PrefixCandidates>> entries =
+        this.mEntries.entrySet().iterator();
+    while (this.mSize > this.mCapacity && entries.hasNext()) {
+      final PrefixCandidates evictedCandidates = entries.next().getValue();
+      entries.remove();
+      this.mSize -= evictedCandidates.getSize();
+    }
+  }
+}
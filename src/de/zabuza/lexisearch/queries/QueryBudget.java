@@ -0,0 +1,107 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the work a single query invocation may do. A budget consists of a
+ * maximal amount of prefix edit distance computations, a maximal amount of
+ * scanned postings and a timeout. It is given to a {@link QueryContext} which
+ * tracks how much of the budget is used.<br/>
+ * <br/>
+ * When the budget is exhausted, queries stop fetching further records and
+ * return what they have verified so far. Such results contain no false
+ * matches, but may miss some. The context is then marked as truncated.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class QueryBudget {
+  /**
+   * Budget which does not limit queries at all.
+   */
+  public static final QueryBudget UNLIMITED = new QueryBudget(
+      Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+  /**
+   * The maximal amount of prefix edit distance computations.
+   */
+  private final int mMaximalPrefixDistanceComputations;
+  /**
+   * The maximal amount of scanned postings.
+   */
+  private final long mMaximalScannedPostings;
+  /**
+   * The timeout in nanoseconds or {@link Long#MAX_VALUE} if there is none.
+   */
+  private final long mTimeoutNanos;
+
+  /**
+   * Creates a new budget with the given limits.
+   * 
+   * @param maximalPrefixDistanceComputations
+   *          The maximal amount of prefix edit distance computations, must not
+   *          be negative
+   * @param maximalScannedPostings
+   *          The maximal amount of scanned postings, must not be negative
+   * @param timeout
+   *          The time after which the query should stop, measured from the
+   *          creation of its context, must not be negative. Use
+   *          {@link Long#MAX_VALUE} for no timeout.
+   * @param unit
+   *          The unit of the timeout
+   */
+  public QueryBudget(final int maximalPrefixDistanceComputations,
+      final long maximalScannedPostings, final long timeout,
+      final TimeUnit unit) {
+    if (maximalPrefixDistanceComputations < 0 || maximalScannedPostings < 0
+        || timeout < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mMaximalPrefixDistanceComputations = maximalPrefixDistanceComputations;
+    this.mMaximalScannedPostings = maximalScannedPostings;
+    if (timeout == Long.MAX_VALUE) {
+      this.mTimeoutNanos = Long.MAX_VALUE;
+    } else {
+      // Saturates at Long.MAX_VALUE
+      this.mTimeoutNanos = unit.toNanos(timeout);
+    }
+  }
+
+  /**
+   * Gets the maximal amount of prefix edit distance computations.
+   * 
+   * @return The maximal amount of prefix edit distance computations
+   */
+  public int getMaximalPrefixDistanceComputations() {
+    return this.mMaximalPrefixDistanceComputations;
+  }
+
+  /**
+   * Gets the maximal amount of scanned postings.
+   * 
+   * @return The maximal amount of scanned postings
+   */
+  public long getMaximalScannedPostings() {
+    return this.mMaximalScannedPostings;
+  }
+
+  /**
+   * Gets the timeout in nanoseconds.
+   * 
+   * @return The timeout in nanoseconds or {@link Long#MAX_VALUE} if there is
+   *         none
+   */
+  public long getTimeoutNanos() {
+    return this.mTimeoutNanos;
+  }
+
+  /**
+   * Whether this budget has a timeout.
+   * 
+   * @return <tt>True</tt> if this budget has a timeout, <tt>false</tt>
+   *         otherwise
+   */
+  public boolean hasTimeout() {
+    return this.mTimeoutNanos != Long.MAX_VALUE;
+  }
+}
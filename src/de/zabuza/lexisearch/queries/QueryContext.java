@@ -0,0 +1,301 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution context of a single query invocation. It holds the scratch
+ * buffers and statistics of the invocation such that {@link IQuery} objects
+ * themselves do not need to hold mutable state and can be shared by multiple
+ * threads.<br/>
+ * <br/>
+ * The context also tracks the usage of its {@link QueryBudget}. Queries check
+ * {@link #isBudgetExhausted()} while working, stop early if it holds and
+ * {@link #markTruncated() mark} the context as truncated.<br/>
+ * <br/>
+ * Work of an invocation which runs in parallel uses a {@link #fork()} of the
+ * context per task, which gets {@link #join(QueryContext) joined} afterwards.
+ * All forks of a context draw from the same budget, it limits the work of the
+ * whole invocation.<br/>
+ * A context must not be used by multiple threads at the same time. It may be
+ * reused for consecutive invocations of the same thread, statistics then
+ * accumulate until {@link #reset()} is called.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class QueryContext {
+  /**
+   * The amount of scratch buffers a context provides.
+   */
+  public static final int AMOUNT_OF_SCRATCH_BUFFERS = 3;
+  /**
+   * The amount of budget checks after which the clock is read again. Reading
+   * the clock is expensive compared to the checked work.
+   */
+  private static final int CLOCK_CHECK_INTERVAL = 32;
+
+  /**
+   * The budget of the invocation.
+   */
+  private final QueryBudget mBudget;
+  /**
+   * The amount of budget checks since the clock was read the last time.
+   */
+  private int mChecksSinceClockRead;
+  /**
+   * The time in nanoseconds, according to {@link System#nanoTime()}, at which
+   * the timeout of the budget expires.
+   */
+  private long mDeadline;
+  /**
+   * Whether the timeout of the budget has expired.
+   */
+  private boolean mIsDeadlineExpired;
+  /**
+   * Whether the result of the invocation is truncated due to the budget.
+   */
+  private boolean mIsTruncated;
+  /**
+   * Amount of how often prefix edit distances were computed.
+   */
+  private int mPrefixDistanceComputations;
+  /**
+   * Amount of postings that were scanned.
+   */
+  private long mScannedPostings;
+  /**
+   * Scratch buffers which can be reused during the invocation.
+   */
+  private final int[][] mScratchBuffers;
+  /**
+   * Amount of how often prefix edit distances were computed by this context
+   * and all of its forks together, used to check the budget.
+   */
+  private AtomicInteger mUsedPrefixDistanceComputations;
+  /**
+   * Amount of postings that were scanned by this context and all of its forks
+   * together, used to check the budget.
+   */
+  private AtomicLong mUsedScannedPostings;
+
+  /**
+   * Creates a new empty query context with an unlimited budget.
+   */
+  public QueryContext() {
+    this(QueryBudget.UNLIMITED);
+  }
+
+  /**
+   * Creates a new empty query context with the given budget. The timeout of
+   * the budget starts now.
+   * 
+   * @param budget
+   *          The budget of the invocation
+   */
+  public QueryContext(final QueryBudget budget) {
+    this.mBudget = budget;
+    this.mScratchBuffers = new int[AMOUNT_OF_SCRATCH_BUFFERS][];
+    this.mPrefixDistanceComputations = 0;
+    this.mScannedPostings = 0;
+    startBudget();
+  }
+
+  /**
+   * Creates a new empty fork of the given context. It shares the budget, its
+   * usage and the deadline of the given context.
+   * 
+   * @param parent
+   *          The context to fork
+   */
+  private QueryContext(final QueryContext parent) {
+    this.mBudget = parent.mBudget;
+    this.mScratchBuffers = new int[AMOUNT_OF_SCRATCH_BUFFERS][];
+    this.mPrefixDistanceComputations = 0;
+    this.mScannedPostings = 0;
+    this.mUsedPrefixDistanceComputations =
+        parent.mUsedPrefixDistanceComputations;
+    this.mUsedScannedPostings = parent.mUsedScannedPostings;
+    this.mDeadline = parent.mDeadline;
+    this.mIsTruncated = false;
+    this.mIsDeadlineExpired = parent.mIsDeadlineExpired;
+    this.mChecksSinceClockRead = CLOCK_CHECK_INTERVAL - 1;
+  }
+
+  /**
+   * Creates a context for a task of the invocation which runs in parallel to
+   * other tasks. The fork draws from the same budget as this context and all
+   * of its other forks, their usage together is checked against the budget.
+   * As tasks check the budget before they work, each running task may exceed
+   * it by at most one unit of work. It also shares the deadline. The
+   * statistics of the fork are added to this context by
+   * {@link #join(QueryContext)}.
+   * 
+   * @return A new context for a parallel task of the invocation
+   */
+  public QueryContext fork() {
+    return new QueryContext(this);
+  }
+
+  /**
+   * Gets the budget of the invocation.
+   * 
+   * @return The budget of the invocation
+   */
+  public QueryBudget getBudget() {
+    return this.mBudget;
+  }
+
+  /**
+   * Gets the amount of how often prefix edit distances were computed.
+   * 
+   * @return The amount of how often prefix edit distances were computed
+   */
+  public int getPrefixDistanceComputations() {
+    return this.mPrefixDistanceComputations;
+  }
+
+  /**
+   * Gets the amount of postings that were scanned.
+   * 
+   * @return The amount of postings that were scanned
+   */
+  public long getScannedPostings() {
+    return this.mScannedPostings;
+  }
+
+  /**
+   * Gets the scratch buffer with the given index. The buffer has at least the
+   * given length, its content is undefined. The same buffer may be returned
+   * by later calls with the same index, thus it must only be used until the
+   * next call.
+   * 
+   * @param index
+   *          The index of the buffer, between <tt>0</tt> inclusive and
+   *          {@link #AMOUNT_OF_SCRATCH_BUFFERS} exclusive
+   * @param minimalLength
+   *          The minimal length of the buffer
+   * @return The scratch buffer with the given index
+   */
+  public int[] getScratchBuffer(final int index, final int minimalLength) {
+    final int[] buffer = this.mScratchBuffers[index];
+    if (buffer != null && buffer.length >= minimalLength) {
+      return buffer;
+    }
+    final int[] grownBuffer = new int[minimalLength];
+    this.mScratchBuffers[index] = grownBuffer;
+    return grownBuffer;
+  }
+
+  /**
+   * Increases the amount of how often prefix edit distances were computed by
+   * one.
+   */
+  public void increasePrefixDistanceComputations() {
+    this.mPrefixDistanceComputations++;
+    // Parallel tasks of unlimited invocations need not contend for the usage
+    if (this.mBudget != QueryBudget.UNLIMITED) {
+      this.mUsedPrefixDistanceComputations.incrementAndGet();
+    }
+  }
+
+  /**
+   * Increases the amount of postings that were scanned by the given amount.
+   * 
+   * @param amount
+   *          The amount of additionally scanned postings
+   */
+  public void increaseScannedPostings(final int amount) {
+    this.mScannedPostings += amount;
+    if (this.mBudget != QueryBudget.UNLIMITED) {
+      this.mUsedScannedPostings.addAndGet(amount);
+    }
+  }
+
+  /**
+   * Whether the budget of the invocation is exhausted, by this context and its
+   * forks together. The clock is only read every few calls, thus an expired
+   * timeout may be noticed slightly late.
+   * 
+   * @return <tt>True</tt> if the budget is exhausted, <tt>false</tt>
+   *         otherwise
+   */
+  public boolean isBudgetExhausted() {
+    if (this.mUsedPrefixDistanceComputations.get() >= this.mBudget
+        .getMaximalPrefixDistanceComputations()
+        || this.mUsedScannedPostings.get() >= this.mBudget
+            .getMaximalScannedPostings()) {
+      return true;
+    }
+    if (!this.mBudget.hasTimeout() || this.mIsDeadlineExpired) {
+      return this.mIsDeadlineExpired;
+    }
+    this.mChecksSinceClockRead++;
+    if (this.mChecksSinceClockRead >= CLOCK_CHECK_INTERVAL) {
+      this.mChecksSinceClockRead = 0;
+      this.mIsDeadlineExpired = System.nanoTime() - this.mDeadline >= 0;
+    }
+    return this.mIsDeadlineExpired;
+  }
+
+  /**
+   * Whether the result of the invocation is truncated, i.e. the query stopped
+   * early because the budget was exhausted.
+   * 
+   * @return <tt>True</tt> if the result is truncated, <tt>false</tt> otherwise
+   */
+  public boolean isTruncated() {
+    return this.mIsTruncated;
+  }
+
+  /**
+   * Adds the statistics of the given fork of this context to this context. If
+   * the result of the fork is truncated, this context gets truncated too. The
+   * usage of the budget already includes the work of the fork.
+   * 
+   * @param fork
+   *          A fork of this context whose task has finished
+   */
+  public void join(final QueryContext fork) {
+    this.mPrefixDistanceComputations += fork.getPrefixDistanceComputations();
+    this.mScannedPostings += fork.getScannedPostings();
+    if (fork.isTruncated()) {
+      markTruncated();
+    }
+  }
+
+  /**
+   * Marks the result of the invocation as truncated. Called by queries which
+   * stopped early because the budget was exhausted.
+   */
+  public void markTruncated() {
+    this.mIsTruncated = true;
+  }
+
+  /**
+   * Resets all statistics and the truncation of this context and starts the
+   * timeout of its budget again. Scratch buffers are kept. Forks created
+   * before do not share the budget with this context anymore.
+   */
+  public void reset() {
+    this.mPrefixDistanceComputations = 0;
+    this.mScannedPostings = 0;
+    startBudget();
+  }
+
+  /**
+   * Starts the budget such that nothing of it is used and its timeout starts
+   * now.
+   */
+  private void startBudget() {
+    this.mUsedPrefixDistanceComputations = new AtomicInteger();
+    this.mUsedScannedPostings = new AtomicLong();
+    this.mIsTruncated = false;
+    this.mIsDeadlineExpired = false;
+    // Read the clock at the first check already
+    this.mChecksSinceClockRead = CLOCK_CHECK_INTERVAL - 1;
+    if (this.mBudget.hasTimeout()) {
+      this.mDeadline = System.nanoTime() + this.mBudget.getTimeoutNanos();
+    }
+  }
+}
@@ -0,0 +1,332 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.queries.IQuery;
+import de.zabuza.lexisearch.queries.QueryBudget;
+import de.zabuza.lexisearch.queries.QueryContext;
+
+/**
+ * Implementation of {@link IQuery} which caches the results of another query.
+ * Results are stored in a {@link WTinyLfuCache} under the normalized keywords
+ * together with the aggregation mode. Since keywords are combined
+ * commutatively, their order does not matter for the cache. Only the first
+ * postings of each result, up to a given limit, are kept and returned, which
+ * suits type-ahead searches that only display the top results anyway.<br/>
+ * <br/>
+ * Searches with a limit up to the result limit are served from the cache,
+ * searches with a greater limit are forwarded to the underlying query.<br/>
+ * <br/>
+ * The cache is safe to use by multiple threads and gets invalidated
+ * automatically whenever the inverted index of the underlying query changes.
+ * This includes new scores, which rankings write to the index by
+ * {@link de.zabuza.lexisearch.ranking.IRankingProvider#setRankingScoreToIndex()
+ * setRankingScoreToIndex()}, for example after changing their parameters.
+ * Results which were truncated due to the {@link QueryBudget} of their
+ * context are not cached.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          The keys used by this query
+ */
+public final class CachedQuery<K> implements IQuery<K> {
+  /**
+   * The default amount of entries the cache is expected to hold.
+   */
+  public static final int DEFAULT_EXPECTED_ENTRIES = 10_000;
+  /**
+   * Estimated amount of bytes a cache entry needs besides its keys and its
+   * result.
+   */
+  private static final int ENTRY_OVERHEAD = 64;
+  /**
+   * Estimated amount of bytes a single keyword needs besides its characters.
+   */
+  private static final int KEY_OVERHEAD = 40;
+
+  /**
+   * Estimates the amount of memory the given cache entry needs in bytes.
+   * 
+   * @param <K>
+   *          Type of the keywords
+   * @param key
+   *          The key of the entry
+   * @param result
+   *          The result of the entry
+   * @return The estimated amount of memory the entry needs in bytes
+   */
+  private static <K> int estimateWeight(final QueryCacheKey<K> key,
+      final CachedResult result) {
+    int weight = ENTRY_OVERHEAD + result.estimateWeight();
+    for (final K keyword : key.getKeys()) {
+      weight += KEY_OVERHEAD + 2 * String.valueOf(keyword).length();
+    }
+    return weight;
+  }
+
+  /**
+   * The cache holding the query results.
+   */
+  private final WTinyLfuCache<QueryCacheKey<K>, CachedResult> mCache;
+  /**
+   * The modification count of the inverted index the cached results belong
+   * to.
+   */
+  private final AtomicLong mCachedModificationCount;
+  /**
+   * Function used to normalize keywords before they are used as cache key.
+   */
+  private final UnaryOperator<K> mNormalizer;
+  /**
+   * The query whose results get cached.
+   */
+  private final IQuery<K> mQuery;
+  /**
+   * The maximal amount of postings to cache and return per result.
+   */
+  private final int mResultLimit;
+
+  /**
+   * Creates a new cached query which does not normalize keywords.
+   * 
+   * @param query
+   *          The query whose results should get cached
+   * @param maximumWeight
+   *          The maximal amount of memory the cache may use in bytes
+   * @param resultLimit
+   *          The maximal amount of postings to cache and return per result
+   */
+  public CachedQuery(final IQuery<K> query, final long maximumWeight,
+      final int resultLimit) {
+    this(query, maximumWeight, resultLimit, UnaryOperator.identity());
+  }
+
+  /**
+   * Creates a new cached query.
+   * 
+   * @param query
+   *          The query whose results should get cached
+   * @param maximumWeight
+   *          The maximal amount of memory the cache may use in bytes
+   * @param resultLimit
+   *          The maximal amount of postings to cache and return per result
+   * @param normalizer
+   *          Function used to normalize keywords before they are used as cache
+   *          key. The underlying query must produce the same results for a
+   *          keyword and its normalized form.
+   */
+  public CachedQuery(final IQuery<K> query, final long maximumWeight,
+      final int resultLimit, final UnaryOperator<K> normalizer) {
+    this.mQuery = query;
+    this.mResultLimit = resultLimit;
+    this.mNormalizer = normalizer;
+    this.mCache = new WTinyLfuCache<>(maximumWeight, DEFAULT_EXPECTED_ENTRIES,
+        CachedQuery::estimateWeight);
+    this.mCachedModificationCount =
+        new AtomicLong(query.getInvertedIndex().getModificationCount());
+  }
+
+  /**
+   * Gets the cache holding the query results. It can be used to read access
+   * statistics.
+   * 
+   * @return The cache holding the query results
+   */
+  public WTinyLfuCache<QueryCacheKey<K>, CachedResult> getCache() {
+    return this.mCache;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#getInvertedIndex()
+   */
+  @Override
+  public IInvertedIndex<K> getInvertedIndex() {
+    return this.mQuery.getInvertedIndex();
+  }
+
+  /**
+   * Gets the maximal amount of postings that are cached and returned per
+   * result.
+   * 
+   * @return The maximal amount of postings per result
+   */
+  public int getResultLimit() {
+    return this.mResultLimit;
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public void invalidateAll() {
+    this.mCache.invalidateAll();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable,
+   * int, de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchAnd(final Iterable<K> keys, final int limit,
+      final QueryContext context) {
+    return searchCached(keys, EAggregateMode.INTERSECT, limit, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchAnd(java.lang.Iterable,
+   * de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchAnd(final Iterable<K> keys,
+      final QueryContext context) {
+    return searchCached(keys, EAggregateMode.INTERSECT, this.mResultLimit,
+        context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable,
+   * int, de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchOr(final Iterable<K> keys, final int limit,
+      final QueryContext context) {
+    return searchCached(keys, EAggregateMode.UNION, limit, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.IQuery#searchOr(java.lang.Iterable,
+   * de.zabuza.lexisearch.queries.QueryContext)
+   */
+  @Override
+  public List<Posting> searchOr(final Iterable<K> keys,
+      final QueryContext context) {
+    return searchCached(keys, EAggregateMode.UNION, this.mResultLimit,
+        context);
+  }
+
+  /**
+   * Invalidates all cached results if the inverted index of the underlying
+   * query has changed since they were computed.
+   * 
+   * @return The current modification count of the inverted index
+   */
+  private long invalidateIfIndexChanged() {
+    final long modificationCount =
+        this.mQuery.getInvertedIndex().getModificationCount();
+    final long cachedModificationCount = this.mCachedModificationCount.get();
+    if (modificationCount != cachedModificationCount
+        && this.mCachedModificationCount.compareAndSet(cachedModificationCount,
+            modificationCount)) {
+      this.mCache.invalidateAll();
+    }
+    return modificationCount;
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical operator depending
+   * on the given {@link EAggregateMode}. Serves the result from the cache if
+   * possible, else it is computed by the underlying query and cached. Only
+   * the first postings of a result, up to the result limit, are cached. A
+   * result is not cached if the inverted index changed while it was computed.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The aggregation mode to use
+   * @param limit
+   *          The maximal amount of postings to return, must not be negative
+   * @param context
+   *          The context to pass to the underlying query
+   * @return A list containing the first records where the keywords occur
+   *         depending on the given {@link EAggregateMode}
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  private List<Posting> searchCached(final Iterable<K> keys,
+      final EAggregateMode mode, final int limit, final QueryContext context)
+      throws IllegalArgumentException {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    final long modificationCount = invalidateIfIndexChanged();
+
+    final ArrayList<K> normalizedKeys = new ArrayList<>();
+    for (final K key : keys) {
+      normalizedKeys.add(this.mNormalizer.apply(key));
+    }
+    // Permutations of the same keywords share an entry, only keywords with
+    // colliding hash codes keep their relative order
+    normalizedKeys.sort(Comparator.comparingInt(Objects::hashCode));
+    if (limit > this.mResultLimit) {
+      // The cache does not hold enough postings
+      return searchUncached(normalizedKeys, mode, limit, context);
+    }
+    final QueryCacheKey<K> cacheKey = new QueryCacheKey<>(normalizedKeys, mode);
+
+    final CachedResult cachedResult = this.mCache.get(cacheKey);
+    if (cachedResult != null) {
+      return IQuery.limitResults(cachedResult.toPostings(), limit);
+    }
+
+    final List<Posting> result =
+        searchUncached(normalizedKeys, mode, this.mResultLimit, context);
+    final CachedResult resultToCache =
+        CachedResult.fromPostings(result, this.mResultLimit);
+    // Results truncated due to the budget are incomplete and results computed
+    // while the index changed may belong to its old state
+    final IInvertedIndex<K> invertedIndex = this.mQuery.getInvertedIndex();
+    if (!context.isTruncated()
+        && invertedIndex.getModificationCount() == modificationCount) {
+      this.mCache.put(cacheKey, resultToCache);
+      if (invertedIndex.getModificationCount() != modificationCount) {
+        // The index changed before the result was put, other threads may
+        // have invalidated the cache already
+        this.mCache.invalidateAll();
+      }
+    }
+    return IQuery.limitResults(resultToCache.toPostings(), limit);
+  }
+
+  /**
+   * Searches the underlying query without using the cache.
+   * 
+   * @param keys
+   *          The normalized keywords to search for
+   * @param mode
+   *          The aggregation mode to use
+   * @param limit
+   *          The maximal amount of postings to return
+   * @param context
+   *          The context to pass to the underlying query
+   * @return A list containing the first records where the keywords occur
+   *         depending on the given {@link EAggregateMode}
+   */
+  private List<Posting> searchUncached(final List<K> keys,
+      final EAggregateMode mode, final int limit, final QueryContext context) {
+    if (mode == EAggregateMode.INTERSECT) {
+      return this.mQuery.searchAnd(keys, limit, context);
+    }
+    if (mode == EAggregateMode.UNION) {
+      return this.mQuery.searchOr(keys, limit, context);
+    }
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,121 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.Posting;
+
+/**
+ * Compact representation of a query result as used by {@link CachedQuery}.
+ * Instead of {@link Posting} objects it stores the ids, term frequencies and
+ * scores of the postings in primitive arrays. Every access creates new
+ * postings, thus callers can not modify the cached data.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CachedResult {
+  /**
+   * Estimated amount of bytes an array object needs besides its elements.
+   */
+  private static final int ARRAY_OVERHEAD = 16;
+  /**
+   * Estimated amount of bytes an object of this class needs besides its
+   * arrays.
+   */
+  private static final int OBJECT_OVERHEAD = 32;
+
+  /**
+   * Creates a compact result from the first postings of the given list.
+   * 
+   * @param postings
+   *          The postings of the result, in the order they should be returned
+   * @param limit
+   *          The maximal amount of postings to take
+   * @return The compact result representing the first postings of the given
+   *         list
+   */
+  public static CachedResult fromPostings(final List<Posting> postings,
+      final int limit) {
+    final int size = Math.min(postings.size(), Math.max(0, limit));
+    final int[] ids = new int[size];
+    final int[] termFrequencies = new int[size];
+    final double[] scores = new double[size];
+
+    int i = 0;
+    for (final Posting posting : postings) {
+      if (i >= size) {
+        break;
+      }
+      ids[i] = posting.getId();
+      termFrequencies[i] = posting.getTermFrequency();
+      scores[i] = posting.getScore();
+      i++;
+    }
+
+    return new CachedResult(ids, termFrequencies, scores);
+  }
+
+  /**
+   * The ids of the postings.
+   */
+  private final int[] mIds;
+  /**
+   * The scores of the postings.
+   */
+  private final double[] mScores;
+  /**
+   * The term frequencies of the postings.
+   */
+  private final int[] mTermFrequencies;
+
+  /**
+   * Creates a new compact result. All arrays must have the same length.
+   * 
+   * @param ids
+   *          The ids of the postings
+   * @param termFrequencies
+   *          The term frequencies of the postings
+   * @param scores
+   *          The scores of the postings
+   */
+  private CachedResult(final int[] ids, final int[] termFrequencies,
+      final double[] scores) {
+    this.mIds = ids;
+    this.mTermFrequencies = termFrequencies;
+    this.mScores = scores;
+  }
+
+  /**
+   * Estimates the amount of memory this result needs in bytes.
+   * 
+   * @return The estimated amount of memory this result needs in bytes
+   */
+  public int estimateWeight() {
+    return OBJECT_OVERHEAD + 3 * ARRAY_OVERHEAD
+        + this.mIds.length * (Integer.BYTES + Integer.BYTES + Double.BYTES);
+  }
+
+  /**
+   * Gets the amount of postings this result holds.
+   * 
+   * @return The amount of postings this result holds
+   */
+  public int getSize() {
+    return this.mIds.length;
+  }
+
+  /**
+   * Creates new postings representing this result.
+   * 
+   * @return A new list containing new postings which represent this result
+   */
+  public List<Posting> toPostings() {
+    final ArrayList<Posting> postings = new ArrayList<>(this.mIds.length);
+    for (int i = 0; i < this.mIds.length; i++) {
+      postings.add(
+          new Posting(this.mIds[i], this.mTermFrequencies[i], this.mScores[i]));
+    }
+    return postings;
+  }
+}
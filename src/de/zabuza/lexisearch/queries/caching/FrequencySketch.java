@@ -0,0 +1,218 @@
+package de.zabuza.lexisearch.queries.caching;
+
+/**
+ * Probabilistic structure which estimates how often elements were accessed in
+ * the recent past. It implements a count-min sketch with four hash functions
+ * and 4-bit counters, sixteen of them packed into one <tt>long</tt>. To keep
+ * the estimation focused on recent history all counters get halved, once the
+ * amount of recorded accesses reaches a sample size which is a multiple of
+ * the width of the sketch. This is the frequency filter used by TinyLFU
+ * admission policies like the one of {@link WTinyLfuCache}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class FrequencySketch {
+  /**
+   * The amount of counters that are packed into one <tt>long</tt>.
+   */
+  private static final int COUNTERS_PER_SLOT = 16;
+  /**
+   * The amount of bits used by a single counter.
+   */
+  private static final int COUNTER_BITS = 4;
+  /**
+   * The maximal value a single counter can hold.
+   */
+  private static final int MAX_COUNTER_VALUE = 15;
+  /**
+   * Mask which, applied to a slot, removes the most significant bit of each
+   * counter. It is used for halving all counters at once.
+   */
+  private static final long RESET_MASK = 0x7777777777777777L;
+  /**
+   * Factor which determines after how many recorded accesses, in relation to
+   * the amount of slots, all counters get halved.
+   */
+  private static final int SAMPLE_FACTOR = 10;
+  /**
+   * Seeds used to derive the four independent hash functions of the sketch.
+   */
+  private static final long[] SEEDS = { 0xc3a5c85c97cb3127L,
+      0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+  /**
+   * Spreads the bits of the given hash code to reduce collisions of hash
+   * codes that only differ in their higher bits.
+   * 
+   * @param hashCode
+   *          The hash code to spread
+   * @return The spread hash code
+   */
+  private static int spread(final int hashCode) {
+    int hash = hashCode;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+
+  /**
+   * The amount of accesses recorded since the last halving of the counters.
+   */
+  private int mAmountOfAdditions;
+  /**
+   * The amount of accesses after which all counters get halved.
+   */
+  private final int mSampleSize;
+  /**
+   * Slots holding the packed 4-bit counters.
+   */
+  private final long[] mSlots;
+  /**
+   * Mask used to map hashes to slot indices, the amount of slots is a power of
+   * two.
+   */
+  private final int mSlotMask;
+
+  /**
+   * Creates a new frequency sketch which is dimensioned for the given amount
+   * of distinct elements.
+   * 
+   * @param expectedElements
+   *          The amount of distinct elements the sketch is expected to
+   *          distinguish, must be positive
+   */
+  public FrequencySketch(final int expectedElements) {
+    if (expectedElements <= 0) {
+      throw new IllegalArgumentException();
+    }
+    final int amountOfSlots = Integer.highestOneBit(
+        Math.max(1, Math.min(expectedElements, 1 << 28) - 1)) << 1;
+    this.mSlots = new long[amountOfSlots];
+    this.mSlotMask = amountOfSlots - 1;
+    this.mSampleSize = SAMPLE_FACTOR * Math.max(expectedElements, 1);
+    this.mAmountOfAdditions = 0;
+  }
+
+  /**
+   * Estimates how often the given element was accessed in the recent past.
+   * The estimate never is lower than the real frequency, but it is capped at
+   * <tt>15</tt>.
+   * 
+   * @param element
+   *          The element in question
+   * @return The estimated frequency of the given element
+   */
+  public int frequency(final Object element) {
+    final int hash = spread(element.hashCode());
+    int frequency = MAX_COUNTER_VALUE;
+    for (int i = 0; i < SEEDS.length; i++) {
+      frequency = Math.min(frequency, getCounter(hash, i));
+    }
+    return frequency;
+  }
+
+  /**
+   * Gets the amount of accesses after which all counters get halved.
+   * 
+   * @return The sample size of this sketch
+   */
+  public int getSampleSize() {
+    return this.mSampleSize;
+  }
+
+  /**
+   * Records an access to the given element, increasing its estimated
+   * frequency by one unless it already reached the maximal value.
+   * 
+   * @param element
+   *          The element that was accessed
+   */
+  public void increment(final Object element) {
+    final int hash = spread(element.hashCode());
+    boolean wasIncremented = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      if (incrementCounter(hash, i)) {
+        wasIncremented = true;
+      }
+    }
+
+    if (wasIncremented) {
+      this.mAmountOfAdditions++;
+      if (this.mAmountOfAdditions >= this.mSampleSize) {
+        reset();
+      }
+    }
+  }
+
+  /**
+   * Computes the position of the counter of the given hash for the given hash
+   * function.
+   * 
+   * @param hash
+   *          The spread hash of the element
+   * @param function
+   *          The index of the hash function to use
+   * @return The position of the counter, the slot index multiplied by
+   *         {@link #COUNTERS_PER_SLOT} plus the counter index inside the slot
+   */
+  private int counterPosition(final int hash, final int function) {
+    long combined = (hash + SEEDS[function]) * SEEDS[function];
+    combined += combined >>> 32;
+    final int slotIndex = ((int) combined) & this.mSlotMask;
+    final int counterIndex =
+        (hash >>> (function << 3)) & (COUNTERS_PER_SLOT - 1);
+    return slotIndex * COUNTERS_PER_SLOT + counterIndex;
+  }
+
+  /**
+   * Gets the value of the counter of the given hash for the given hash
+   * function.
+   * 
+   * @param hash
+   *          The spread hash of the element
+   * @param function
+   *          The index of the hash function to use
+   * @return The value of the counter
+   */
+  private int getCounter(final int hash, final int function) {
+    final int position = counterPosition(hash, function);
+    final long slot = this.mSlots[position / COUNTERS_PER_SLOT];
+    final int offset = (position % COUNTERS_PER_SLOT) * COUNTER_BITS;
+    return (int) ((slot >>> offset) & MAX_COUNTER_VALUE);
+  }
+
+  /**
+   * Increments the counter of the given hash for the given hash function if it
+   * did not already reach its maximal value.
+   * 
+   * @param hash
+   *          The spread hash of the element
+   * @param function
+   *          The index of the hash function to use
+   * @return <tt>True</tt> if the counter was incremented, <tt>false</tt> if it
+   *         already reached its maximal value
+   */
+  private boolean incrementCounter(final int hash, final int function) {
+    final int position = counterPosition(hash, function);
+    final int slotIndex = position / COUNTERS_PER_SLOT;
+    final int offset = (position % COUNTERS_PER_SLOT) * COUNTER_BITS;
+    final long mask = ((long) MAX_COUNTER_VALUE) << offset;
+    if ((this.mSlots[slotIndex] & mask) != mask) {
+      this.mSlots[slotIndex] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halves all counters of the sketch such that older accesses lose weight in
+   * favor of recent ones.
+   */
+  private void reset() {
+    for (int i = 0; i < this.mSlots.length; i++) {
+      this.mSlots[i] = (this.mSlots[i] >>> 1) & RESET_MASK;
+    }
+    this.mAmountOfAdditions /= 2;
+  }
+}
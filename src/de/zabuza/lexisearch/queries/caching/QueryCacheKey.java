@@ -0,0 +1,109 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+
+/**
+ * Key under which {@link CachedQuery} stores query results. It consists of the
+ * normalized keywords of a query and the mode used to aggregate them.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the keywords
+ */
+public final class QueryCacheKey<K> {
+  /**
+   * The precomputed hash code of this key.
+   */
+  private final int mHashCode;
+  /**
+   * The normalized keywords of the query.
+   */
+  private final List<K> mKeys;
+  /**
+   * The mode used to aggregate the keywords.
+   */
+  private final EAggregateMode mMode;
+
+  /**
+   * Creates a new query cache key.
+   * 
+   * @param keys
+   *          The normalized keywords of the query, must not be modified
+   *          afterwards
+   * @param mode
+   *          The mode used to aggregate the keywords
+   */
+  public QueryCacheKey(final List<K> keys, final EAggregateMode mode) {
+    this.mKeys = keys;
+    this.mMode = mode;
+    final int prime = 31;
+    this.mHashCode = prime * keys.hashCode() + mode.hashCode();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (!(obj instanceof QueryCacheKey)) {
+      return false;
+    }
+    final QueryCacheKey<?> other = (QueryCacheKey<?>) obj;
+    if (this.mHashCode != other.mHashCode) {
+      return false;
+    }
+    if (this.mMode != other.mMode) {
+      return false;
+    }
+    return this.mKeys.equals(other.mKeys);
+  }
+
+  /**
+   * Gets the normalized keywords of the query.
+   * 
+   * @return The normalized keywords of the query
+   */
+  public List<K> getKeys() {
+    return this.mKeys;
+  }
+
+  /**
+   * Gets the mode used to aggregate the keywords.
+   * 
+   * @return The mode used to aggregate the keywords
+   */
+  public EAggregateMode getMode() {
+    return this.mMode;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return this.mHashCode;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return this.mMode + this.mKeys.toString();
+  }
+}
@@ -0,0 +1,528 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Concurrent cache which is bounded by the total weight of its entries and
+ * uses the W-TinyLFU policy for admission and eviction. New entries are first
+ * placed in a small LRU window. Entries leaving the window only get admitted
+ * into the main space, a segmented LRU consisting of a probation and a
+ * protected segment, if they were accessed more frequently than the entry
+ * which would need to be evicted for them. Access frequencies are estimated
+ * by a {@link FrequencySketch}. This keeps a frequently used working set in
+ * the cache even if it gets flooded by one-time requests.<br/>
+ * <br/>
+ * All operations are guarded by a single lock, access statistics can be read
+ * at any time without locking.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the keys
+ * @param <V>
+ *          Type of the values
+ */
+public final class WTinyLfuCache<K, V> {
+  /**
+   * Segments an entry of the cache can reside in.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private enum ESegment {
+    /**
+     * Main space segment for entries which were not accessed since their
+     * admission.
+     */
+    PROBATION, /**
+                * Main space segment for entries which were accessed again
+                * after their admission.
+                */
+    PROTECTED, /**
+                * Admission window for new entries.
+                */
+    WINDOW
+  }
+
+  /**
+   * Node which holds an entry of the cache.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   * @param <K>
+   *          Type of the key
+   * @param <V>
+   *          Type of the value
+   */
+  private static final class Node<K, V> {
+    /**
+     * The key of the entry.
+     */
+    private final K mKey;
+    /**
+     * The segment the entry currently resides in.
+     */
+    private ESegment mSegment;
+    /**
+     * The value of the entry.
+     */
+    private final V mValue;
+    /**
+     * The weight of the entry.
+     */
+    private final int mWeight;
+
+    /**
+     * Creates a new node for the given entry.
+     * 
+     * @param key
+     *          The key of the entry
+     * @param value
+     *          The value of the entry
+     * @param weight
+     *          The weight of the entry
+     */
+    Node(final K key, final V value, final int weight) {
+      this.mKey = key;
+      this.mValue = value;
+      this.mWeight = weight;
+      this.mSegment = ESegment.WINDOW;
+    }
+  }
+
+  /**
+   * The percentage of the main space that is reserved for the protected
+   * segment.
+   */
+  private static final double PROTECTED_PERCENTAGE = 0.8;
+  /**
+   * The percentage of the maximal weight that is reserved for the admission
+   * window.
+   */
+  private static final double WINDOW_PERCENTAGE = 0.01;
+
+  /**
+   * Structure that allows a fast access to entries by their key.
+   */
+  private final HashMap<K, Node<K, V>> mData;
+  /**
+   * The amount of entries that were evicted so far.
+   */
+  private final AtomicLong mEvictionCount;
+  /**
+   * The frequency sketch used for admission decisions.
+   */
+  private final FrequencySketch mFrequencySketch;
+  /**
+   * The amount of lookups that found an entry.
+   */
+  private final AtomicLong mHitCount;
+  /**
+   * Lock guarding all structural operations of the cache.
+   */
+  private final ReentrantLock mLock;
+  /**
+   * The current weight of the main space, i.e. probation and protected
+   * segment.
+   */
+  private long mMainWeight;
+  /**
+   * The maximal weight of the main space.
+   */
+  private final long mMaximumMainWeight;
+  /**
+   * The maximal weight of the protected segment.
+   */
+  private final long mMaximumProtectedWeight;
+  /**
+   * The maximal total weight of the cache.
+   */
+  private final long mMaximumWeight;
+  /**
+   * The maximal weight of the admission window.
+   */
+  private final long mMaximumWindowWeight;
+  /**
+   * The amount of lookups that did not find an entry.
+   */
+  private final AtomicLong mMissCount;
+  /**
+   * Keys of the probation segment in LRU order, the head is evicted first.
+   */
+  private final LinkedHashSet<K> mProbation;
+  /**
+   * Keys of the protected segment in LRU order, the head is demoted first.
+   */
+  private final LinkedHashSet<K> mProtected;
+  /**
+   * The current weight of the protected segment.
+   */
+  private long mProtectedWeight;
+  /**
+   * The function used to compute the weight of entries.
+   */
+  private final ToIntBiFunction<K, V> mWeigher;
+  /**
+   * Keys of the admission window in LRU order, the head leaves first.
+   */
+  private final LinkedHashSet<K> mWindow;
+  /**
+   * The current weight of the admission window.
+   */
+  private long mWindowWeight;
+
+  /**
+   * Creates a new empty cache which is bounded by the given maximal weight.
+   * 
+   * @param maximumWeight
+   *          The maximal total weight of all entries, must be positive
+   * @param expectedEntries
+   *          The amount of entries the cache is expected to hold at most, used
+   *          to dimension the frequency sketch
+   * @param weigher
+   *          Function which computes the weight of an entry, must return non
+   *          negative values
+   */
+  public WTinyLfuCache(final long maximumWeight, final int expectedEntries,
+      final ToIntBiFunction<K, V> weigher) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mMaximumWeight = maximumWeight;
+    this.mMaximumWindowWeight =
+        Math.max(1, (long) (maximumWeight * WINDOW_PERCENTAGE));
+    this.mMaximumMainWeight =
+        Math.max(0, maximumWeight - this.mMaximumWindowWeight);
+    this.mMaximumProtectedWeight =
+        (long) (this.mMaximumMainWeight * PROTECTED_PERCENTAGE);
+    this.mWeigher = weigher;
+    this.mFrequencySketch = new FrequencySketch(Math.max(1, expectedEntries));
+
+    this.mData = new HashMap<>();
+    this.mWindow = new LinkedHashSet<>();
+    this.mProbation = new LinkedHashSet<>();
+    this.mProtected = new LinkedHashSet<>();
+    this.mWindowWeight = 0;
+    this.mMainWeight = 0;
+    this.mProtectedWeight = 0;
+
+    this.mLock = new ReentrantLock();
+    this.mHitCount = new AtomicLong();
+    this.mMissCount = new AtomicLong();
+    this.mEvictionCount = new AtomicLong();
+  }
+
+  /**
+   * Gets the value of the given key and records the access.
+   * 
+   * @param key
+   *          The key of the value to get
+   * @return The value of the given key or <tt>null</tt> if it is not contained
+   */
+  public V get(final K key) {
+    this.mLock.lock();
+    try {
+      this.mFrequencySketch.increment(key);
+      final Node<K, V> node = this.mData.get(key);
+      if (node == null) {
+        this.mMissCount.incrementAndGet();
+        return null;
+      }
+      this.mHitCount.incrementAndGet();
+      onAccess(node);
+      return node.mValue;
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the amount of entries that were evicted so far.
+   * 
+   * @return The amount of entries that were evicted so far
+   */
+  public long getEvictionCount() {
+    return this.mEvictionCount.get();
+  }
+
+  /**
+   * Gets the amount of lookups that found an entry.
+   * 
+   * @return The amount of lookups that found an entry
+   */
+  public long getHitCount() {
+    return this.mHitCount.get();
+  }
+
+  /**
+   * Gets the ratio of lookups that found an entry to all lookups.
+   * 
+   * @return The ratio of lookups that found an entry to all lookups, or
+   *         <tt>0</tt> if there were no lookups yet
+   */
+  public double getHitRate() {
+    final long hits = this.mHitCount.get();
+    final long lookups = hits + this.mMissCount.get();
+    if (lookups == 0) {
+      return 0;
+    }
+    return (hits + 0.0) / lookups;
+  }
+
+  /**
+   * Gets the maximal total weight of all entries.
+   * 
+   * @return The maximal total weight of all entries
+   */
+  public long getMaximumWeight() {
+    return this.mMaximumWeight;
+  }
+
+  /**
+   * Gets the amount of lookups that did not find an entry.
+   * 
+   * @return The amount of lookups that did not find an entry
+   */
+  public long getMissCount() {
+    return this.mMissCount.get();
+  }
+
+  /**
+   * Gets the current total weight of all entries.
+   * 
+   * @return The current total weight of all entries
+   */
+  public long getWeight() {
+    this.mLock.lock();
+    try {
+      return this.mWindowWeight + this.mMainWeight;
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Removes all entries of the cache. Access statistics and frequency
+   * estimates are kept.
+   */
+  public void invalidateAll() {
+    this.mLock.lock();
+    try {
+      this.mData.clear();
+      this.mWindow.clear();
+      this.mProbation.clear();
+      this.mProtected.clear();
+      this.mWindowWeight = 0;
+      this.mMainWeight = 0;
+      this.mProtectedWeight = 0;
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Puts the given entry into the cache, replacing a previous value of the
+   * key. The entry may get evicted immediately if the admission policy
+   * rejects it or if it is heavier than the cache.
+   * 
+   * @param key
+   *          The key of the entry
+   * @param value
+   *          The value of the entry
+   */
+  public void put(final K key, final V value) {
+    final int weight = this.mWeigher.applyAsInt(key, value);
+    this.mLock.lock();
+    try {
+      final Node<K, V> existingNode = this.mData.get(key);
+      if (existingNode != null) {
+        removeNode(existingNode);
+      }
+      if (weight > this.mMaximumWeight) {
+        this.mEvictionCount.incrementAndGet();
+        return;
+      }
+
+      final Node<K, V> node = new Node<>(key, value, weight);
+      this.mData.put(key, node);
+      this.mWindow.add(key);
+      this.mWindowWeight += weight;
+      evictFromWindow();
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the amount of entries in the cache.
+   * 
+   * @return The amount of entries in the cache
+   */
+  public int size() {
+    this.mLock.lock();
+    try {
+      return this.mData.size();
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Moves entries that exceed the admission window into the main space. An
+   * entry is only admitted if the main space has room for it or if its
+   * estimated frequency is higher than the one of the probation entries it
+   * would displace. Must only be called while holding the lock.
+   */
+  private void evictFromWindow() {
+    while (this.mWindowWeight > this.mMaximumWindowWeight) {
+      final Iterator<K> windowKeys = this.mWindow.iterator();
+      final Node<K, V> candidate = this.mData.get(windowKeys.next());
+      windowKeys.remove();
+      this.mWindowWeight -= candidate.mWeight;
+
+      if (admit(candidate)) {
+        candidate.mSegment = ESegment.PROBATION;
+        this.mProbation.add(candidate.mKey);
+        this.mMainWeight += candidate.mWeight;
+      } else {
+        this.mData.remove(candidate.mKey);
+        this.mEvictionCount.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Decides whether the given candidate which leaves the admission window gets
+   * admitted into the main space. Evicts victims from the main space if the
+   * candidate wins against all of them. A rejected candidate evicts nothing.
+   * Must only be called while holding the lock.
+   * 
+   * @param candidate
+   *          The candidate that leaves the admission window
+   * @return <tt>True</tt> if the candidate is admitted, <tt>false</tt>
+   *         otherwise
+   */
+  private boolean admit(final Node<K, V> candidate) {
+    if (candidate.mWeight > this.mMaximumMainWeight) {
+      return false;
+    }
+    final long weightToFree =
+        this.mMainWeight + candidate.mWeight - this.mMaximumMainWeight;
+    if (weightToFree <= 0) {
+      return true;
+    }
+
+    // Victims are taken from the probation segment first
+    final ArrayList<Node<K, V>> victims = new ArrayList<>();
+    final long freedWeight =
+        collectVictims(this.mProbation, weightToFree, victims);
+    collectVictims(this.mProtected, weightToFree - freedWeight, victims);
+
+    final int candidateFrequency =
+        this.mFrequencySketch.frequency(candidate.mKey);
+    for (final Node<K, V> victim : victims) {
+      if (candidateFrequency <= this.mFrequencySketch.frequency(victim.mKey)) {
+        return false;
+      }
+    }
+    for (final Node<K, V> victim : victims) {
+      removeNode(victim);
+      this.mEvictionCount.incrementAndGet();
+    }
+    return true;
+  }
+
+  /**
+   * Collects the least recently used entries of the given segment until their
+   * weight reaches the given weight. Must only be called while holding the
+   * lock.
+   * 
+   * @param segment
+   *          The keys of the segment to collect entries of, in LRU order
+   * @param weightToFree
+   *          The weight the collected entries should reach
+   * @param victims
+   *          The list to add the collected entries to
+   * @return The weight of the collected entries
+   */
+  private long collectVictims(final LinkedHashSet<K> segment,
+      final long weightToFree, final ArrayList<Node<K, V>> victims) {
+    long freedWeight = 0;
+    final Iterator<K> keys = segment.iterator();
+    while (freedWeight < weightToFree && keys.hasNext()) {
+      final Node<K, V> victim = this.mData.get(keys.next());
+      victims.add(victim);
+      freedWeight += victim.mWeight;
+    }
+    return freedWeight;
+  }
+
+  /**
+   * Updates the position of the given entry after an access. Accessed
+   * probation entries get promoted to the protected segment, which may demote
+   * its least recently used entries back to probation. Must only be called
+   * while holding the lock.
+   * 
+   * @param node
+   *          The entry that was accessed
+   */
+  private void onAccess(final Node<K, V> node) {
+    final K key = node.mKey;
+    if (node.mSegment == ESegment.WINDOW) {
+      this.mWindow.remove(key);
+      this.mWindow.add(key);
+    } else if (node.mSegment == ESegment.PROTECTED) {
+      this.mProtected.remove(key);
+      this.mProtected.add(key);
+    } else if (node.mSegment == ESegment.PROBATION) {
+      this.mProbation.remove(key);
+      node.mSegment = ESegment.PROTECTED;
+      this.mProtected.add(key);
+      this.mProtectedWeight += node.mWeight;
+
+      // Demote the least recently used protected entries
+      while (this.mProtectedWeight > this.mMaximumProtectedWeight
+          && this.mProtected.size() > 1) {
+        final Iterator<K> protectedKeys = this.mProtected.iterator();
+        final Node<K, V> demoted = this.mData.get(protectedKeys.next());
+        protectedKeys.remove();
+        this.mProtectedWeight -= demoted.mWeight;
+        demoted.mSegment = ESegment.PROBATION;
+        this.mProbation.add(demoted.mKey);
+      }
+    } else {
+      throw new AssertionError();
+    }
+  }
+
+  /**
+   * Removes the given entry from the cache and its segment. Must only be
+   * called while holding the lock.
+   * 
+   * @param node
+   *          The entry to remove
+   */
+  private void removeNode(final Node<K, V> node) {
+    final K key = node.mKey;
+    this.mData.remove(key);
+    if (node.mSegment == ESegment.WINDOW) {
+      this.mWindow.remove(key);
+      this.mWindowWeight -= node.mWeight;
+    } else if (node.mSegment == ESegment.PROBATION) {
+      this.mProbation.remove(key);
+      this.mMainWeight -= node.mWeight;
+    } else if (node.mSegment == ESegment.PROTECTED) {
+      this.mProtected.remove(key);
+      this.mMainWeight -= node.mWeight;
+      this.mProtectedWeight -= node.mWeight;
+    } else {
+      throw new AssertionError();
+    }
+  }
+}
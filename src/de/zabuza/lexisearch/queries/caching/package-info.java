@@ -0,0 +1,4 @@
+/**
+ * This package contains caching techniques for query results of the API.
+ */
+package de.zabuza.lexisearch.queries.caching;
\ No newline at end of file
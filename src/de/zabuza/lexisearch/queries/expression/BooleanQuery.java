@@ -0,0 +1,373 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.queries.AQuery;
+import de.zabuza.lexisearch.queries.QueryContext;
+
+/**
+ * Query which searches for boolean expressions with nested <tt>AND</tt>,
+ * <tt>OR</tt> and <tt>NOT</tt> operators, see {@link BooleanQueryParser} for
+ * the syntax. Exact terms are resolved by an exact query, terms prefixed with
+ * <tt>~</tt> by a fuzzy query.<br/>
+ * <br/>
+ * The parsed expression gets optimized before it is evaluated. Nested
+ * operators of the same type are flattened, terms without records are folded
+ * into their parents and double negations are removed. The optimized tree is
+ * compiled into {@link IPostingIterator}s which evaluate the expression in one
+ * streaming pass over the inverted lists of the terms. A <tt>NOT</tt> is
+ * evaluated as difference which skips the records of its operand, thus it
+ * must be combined by <tt>AND</tt> with at least one positive operand.<br/>
+ * <br/>
+ * The term frequencies and scores of the resulting postings are the sums of
+ * those of the matching terms. The query is stateless and can be used by
+ * multiple threads at the same time.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class BooleanQuery {
+  /**
+   * Adds the given node to the given operands of a disjunction. If the node
+   * itself is a disjunction, its operands are added instead.
+   * 
+   * @param node
+   *          The node to add
+   * @param operands
+   *          The operands to add the node to
+   */
+  private static void addOperands(final QueryNode node,
+      final List<QueryNode> operands) {
+    if (node.getType() == EQueryNodeType.OR) {
+      operands.addAll(node.getChildren());
+    } else {
+      operands.add(node);
+    }
+  }
+
+  /**
+   * The query which resolves exact terms.
+   */
+  private final AQuery<?> mExactQuery;
+  /**
+   * The query which resolves fuzzy terms, if present.
+   */
+  private final Optional<AQuery<?>> mFuzzyQuery;
+
+  /**
+   * Creates a new boolean query which only supports exact terms.
+   * 
+   * @param exactQuery
+   *          The query which resolves exact terms
+   */
+  public BooleanQuery(final AQuery<?> exactQuery) {
+    this(exactQuery, Optional.empty());
+  }
+
+  /**
+   * Creates a new boolean query which supports exact and fuzzy terms.
+   * 
+   * @param exactQuery
+   *          The query which resolves exact terms
+   * @param fuzzyQuery
+   *          The query which resolves fuzzy terms
+   */
+  public BooleanQuery(final AQuery<?> exactQuery,
+      final AQuery<?> fuzzyQuery) {
+    this(exactQuery, Optional.of(fuzzyQuery));
+  }
+
+  /**
+   * Creates a new boolean query.
+   * 
+   * @param exactQuery
+   *          The query which resolves exact terms
+   * @param fuzzyQuery
+   *          The query which resolves fuzzy terms, if present
+   */
+  private BooleanQuery(final AQuery<?> exactQuery,
+      final Optional<AQuery<?>> fuzzyQuery) {
+    this.mExactQuery = exactQuery;
+    this.mFuzzyQuery = fuzzyQuery;
+  }
+
+  /**
+   * Parses and optimizes the given expression without evaluating it. Used to
+   * inspect how an expression gets evaluated.
+   * 
+   * @param expression
+   *          The expression to explain
+   * @return The root of the optimized tree, its terms hold their resolved
+   *         records
+   * @throws IllegalArgumentException
+   *           If the expression is malformed or contains a <tt>NOT</tt>
+   *           without positive operand
+   */
+  public QueryNode explain(final String expression) {
+    return optimizeRoot(BooleanQueryParser.parse(expression),
+        new QueryContext());
+  }
+
+  /**
+   * Searches for all records matching the given expression.
+   * 
+   * @param expression
+   *          The expression to search for
+   * @return A list containing all records matching the expression, in
+   *         ascending order of their ids
+   * @throws IllegalArgumentException
+   *           If the expression is malformed or contains a <tt>NOT</tt>
+   *           without positive operand
+   */
+  public List<Posting> search(final String expression) {
+    return search(expression, new QueryContext());
+  }
+
+  /**
+   * Searches for all records matching the given expression.
+   * 
+   * @param expression
+   *          The expression to search for
+   * @param context
+   *          The context to use for this invocation, it collects statistics
+   *          about the search
+   * @return A list containing all records matching the expression, in
+   *         ascending order of their ids
+   * @throws IllegalArgumentException
+   *           If the expression is malformed or contains a <tt>NOT</tt>
+   *           without positive operand
+   */
+  public List<Posting> search(final String expression,
+      final QueryContext context) {
+    final QueryNode root =
+        optimizeRoot(BooleanQueryParser.parse(expression), context);
+    if (root.getType() == EQueryNodeType.EMPTY) {
+      return Collections.emptyList();
+    }
+
+    final IPostingIterator iterator = compile(root);
+    final ArrayList<Posting> results = new ArrayList<>();
+    while (iterator.next() != IPostingIterator.NO_MORE_RECORDS) {
+      results.add(new Posting(iterator.getRecordId(),
+          iterator.getTermFrequency(), iterator.getScore()));
+    }
+    return results;
+  }
+
+  /**
+   * Compiles the given optimized node into an iterator over its records.
+   * 
+   * @param node
+   *          The optimized node to compile, must not be empty
+   * @return An iterator over the records matching the node
+   */
+  private IPostingIterator compile(final QueryNode node) {
+    final EQueryNodeType type = node.getType();
+    if (type == EQueryNodeType.TERM || type == EQueryNodeType.FUZZY_TERM) {
+      return new InvertedListIterator(node.getRecords());
+    }
+    if (type == EQueryNodeType.OR) {
+      final ArrayList<IPostingIterator> operands = new ArrayList<>();
+      for (final QueryNode child : node.getChildren()) {
+        operands.add(compile(child));
+      }
+      return new DisjunctionIterator(operands);
+    }
+    if (type == EQueryNodeType.AND) {
+      final ArrayList<IPostingIterator> operands = new ArrayList<>();
+      IPostingIterator excluded = null;
+      for (final QueryNode child : node.getChildren()) {
+        if (child.getType() == EQueryNodeType.NOT) {
+          excluded = compile(child.getChildren().get(0));
+        } else {
+          operands.add(compile(child));
+        }
+      }
+      final IPostingIterator included;
+      if (operands.size() == 1) {
+        included = operands.get(0);
+      } else {
+        included = new ConjunctionIterator(operands);
+      }
+      if (excluded == null) {
+        return included;
+      }
+      return new DifferenceIterator(included, excluded);
+    }
+    throw new AssertionError();
+  }
+
+  /**
+   * Optimizes the given node. Terms get resolved, terms without records are
+   * folded to empty nodes.
+   * 
+   * @param node
+   *          The node to optimize
+   * @param context
+   *          The context of the current invocation
+   * @return The optimized node
+   * @throws IllegalArgumentException
+   *           If the node contains a <tt>NOT</tt> without positive operand or
+   *           a fuzzy term while no fuzzy query is present
+   */
+  private QueryNode optimize(final QueryNode node,
+      final QueryContext context) {
+    final EQueryNodeType type = node.getType();
+    if (type == EQueryNodeType.EMPTY) {
+      return node;
+    }
+    if (type == EQueryNodeType.TERM || type == EQueryNodeType.FUZZY_TERM) {
+      final AQuery<?> query;
+      if (type == EQueryNodeType.TERM) {
+        query = this.mExactQuery;
+      } else if (this.mFuzzyQuery.isPresent()) {
+        query = this.mFuzzyQuery.get();
+      } else {
+        throw new IllegalArgumentException("Fuzzy terms are not supported");
+      }
+      final IInvertedList records = query.getRecords(node.getTerm(), context);
+      if (records.isEmpty()) {
+        return QueryNode.createEmpty();
+      }
+      return QueryNode.createResolvedTerm(node, records);
+    }
+    if (type == EQueryNodeType.NOT) {
+      final QueryNode negated = optimize(node.getChildren().get(0), context);
+      if (negated.getType() == EQueryNodeType.NOT) {
+        return negated.getChildren().get(0);
+      }
+      return QueryNode.createNot(negated);
+    }
+    if (type == EQueryNodeType.AND) {
+      return optimizeAnd(node, context);
+    }
+    if (type == EQueryNodeType.OR) {
+      return optimizeOr(node, context);
+    }
+    throw new AssertionError();
+  }
+
+  /**
+   * Optimizes the given node of type <tt>AND</tt>. Nested conjunctions are
+   * flattened and all negated operands are combined into one negated
+   * disjunction.
+   * 
+   * @param node
+   *          The node to optimize
+   * @param context
+   *          The context of the current invocation
+   * @return The optimized node
+   * @throws IllegalArgumentException
+   *           If the node has no positive operand
+   */
+  private QueryNode optimizeAnd(final QueryNode node,
+      final QueryContext context) {
+    final ArrayList<QueryNode> positives = new ArrayList<>();
+    final ArrayList<QueryNode> negatives = new ArrayList<>();
+    for (final QueryNode child : node.getChildren()) {
+      final QueryNode optimizedChild = optimize(child, context);
+      final EQueryNodeType type = optimizedChild.getType();
+      if (type == EQueryNodeType.EMPTY) {
+        // The conjunction can not match, the remaining terms are not resolved
+        return QueryNode.createEmpty();
+      }
+      if (type == EQueryNodeType.AND) {
+        for (final QueryNode grandChild : optimizedChild.getChildren()) {
+          if (grandChild.getType() == EQueryNodeType.NOT) {
+            addOperands(grandChild.getChildren().get(0), negatives);
+          } else {
+            positives.add(grandChild);
+          }
+        }
+      } else if (type == EQueryNodeType.NOT) {
+        final QueryNode negated = optimizedChild.getChildren().get(0);
+        if (negated.getType() != EQueryNodeType.EMPTY) {
+          addOperands(negated, negatives);
+        }
+      } else {
+        positives.add(optimizedChild);
+      }
+    }
+
+    if (positives.isEmpty()) {
+      throw new IllegalArgumentException(
+          "NOT must be combined with a positive operand by AND");
+    }
+    if (negatives.isEmpty()) {
+      if (positives.size() == 1) {
+        return positives.get(0);
+      }
+      return QueryNode.createAnd(positives);
+    }
+    final QueryNode excluded;
+    if (negatives.size() == 1) {
+      excluded = negatives.get(0);
+    } else {
+      excluded = QueryNode.createOr(negatives);
+    }
+    positives.add(QueryNode.createNot(excluded));
+    return QueryNode.createAnd(positives);
+  }
+
+  /**
+   * Optimizes the given node of type <tt>OR</tt>. Nested disjunctions are
+   * flattened and empty operands are dropped.
+   * 
+   * @param node
+   *          The node to optimize
+   * @param context
+   *          The context of the current invocation
+   * @return The optimized node
+   * @throws IllegalArgumentException
+   *           If an operand is a <tt>NOT</tt>
+   */
+  private QueryNode optimizeOr(final QueryNode node,
+      final QueryContext context) {
+    final ArrayList<QueryNode> operands = new ArrayList<>();
+    for (final QueryNode child : node.getChildren()) {
+      final QueryNode optimizedChild = optimize(child, context);
+      if (optimizedChild.getType() == EQueryNodeType.NOT) {
+        throw new IllegalArgumentException(
+            "NOT must be combined with a positive operand by AND");
+      }
+      if (optimizedChild.getType() != EQueryNodeType.EMPTY) {
+        addOperands(optimizedChild, operands);
+      }
+    }
+
+    if (operands.isEmpty()) {
+      return QueryNode.createEmpty();
+    }
+    if (operands.size() == 1) {
+      return operands.get(0);
+    }
+    return QueryNode.createOr(operands);
+  }
+
+  /**
+   * Optimizes the given root node of an expression.
+   * 
+   * @param root
+   *          The root node to optimize
+   * @param context
+   *          The context of the current invocation
+   * @return The optimized root node
+   * @throws IllegalArgumentException
+   *           If the expression contains a <tt>NOT</tt> without positive
+   *           operand
+   */
+  private QueryNode optimizeRoot(final QueryNode root,
+      final QueryContext context) {
+    final QueryNode optimizedRoot = optimize(root, context);
+    if (optimizedRoot.getType() == EQueryNodeType.NOT) {
+      throw new IllegalArgumentException(
+          "NOT must be combined with a positive operand by AND");
+    }
+    return optimizedRoot;
+  }
+}
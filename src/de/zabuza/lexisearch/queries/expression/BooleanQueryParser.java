@@ -0,0 +1,230 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for boolean queries. It creates a tree of {@link QueryNode}s for
+ * expressions of the following grammar, where <tt>NOT</tt> binds stronger
+ * than <tt>AND</tt> which binds stronger than <tt>OR</tt>:
+ * 
+ * <pre>
+ * or      := and ( "OR" and )*
+ * and     := not ( ["AND"] not )*
+ * not     := "NOT" not | primary
+ * primary := "(" or ")" | term | "~" term
+ * </pre>
+ * 
+ * Terms are separated by whitespace and parentheses. Terms prefixed with
+ * <tt>~</tt> are searched fuzzy, other terms are searched exactly and get
+ * converted to lower case like the keys of records.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class BooleanQueryParser {
+  /**
+   * Keyword of the logical <tt>and</tt>.
+   */
+  private static final String AND = "AND";
+  /**
+   * Token which closes a group.
+   */
+  private static final String CLOSING_PARENTHESIS = ")";
+  /**
+   * Prefix of terms which are searched fuzzy.
+   */
+  private static final char FUZZY_PREFIX = '~';
+  /**
+   * Keyword of the logical <tt>not</tt>.
+   */
+  private static final String NOT = "NOT";
+  /**
+   * Token which opens a group.
+   */
+  private static final String OPENING_PARENTHESIS = "(";
+  /**
+   * Keyword of the logical <tt>or</tt>.
+   */
+  private static final String OR = "OR";
+
+  /**
+   * Parses the given expression.
+   * 
+   * @param expression
+   *          The expression to parse
+   * @return The root of the syntax tree of the expression
+   * @throws IllegalArgumentException
+   *           If the expression is malformed
+   */
+  public static QueryNode parse(final String expression) {
+    final BooleanQueryParser parser = new BooleanQueryParser(expression);
+    final QueryNode root = parser.parseOr();
+    if (parser.peek() != null) {
+      throw new IllegalArgumentException(
+          "Unexpected token: " + parser.peek());
+    }
+    return root;
+  }
+
+  /**
+   * Splits the given expression into its tokens.
+   * 
+   * @param expression
+   *          The expression to split
+   * @return The tokens of the expression
+   */
+  private static List<String> tokenize(final String expression) {
+    final ArrayList<String> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < expression.length()) {
+      final char character = expression.charAt(i);
+      if (Character.isWhitespace(character)) {
+        i++;
+      } else if (character == '(' || character == ')') {
+        tokens.add(String.valueOf(character));
+        i++;
+      } else {
+        final int begin = i;
+        while (i < expression.length()
+            && !Character.isWhitespace(expression.charAt(i))
+            && expression.charAt(i) != '(' && expression.charAt(i) != ')') {
+          i++;
+        }
+        tokens.add(expression.substring(begin, i));
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * The index of the next token to consume.
+   */
+  private int mPosition;
+  /**
+   * The tokens of the expression.
+   */
+  private final List<String> mTokens;
+
+  /**
+   * Creates a new parser for the given expression.
+   * 
+   * @param expression
+   *          The expression to parse
+   */
+  private BooleanQueryParser(final String expression) {
+    this.mTokens = tokenize(expression);
+    this.mPosition = 0;
+  }
+
+  /**
+   * Consumes the next token.
+   * 
+   * @return The consumed token
+   * @throws IllegalArgumentException
+   *           If there is no token left
+   */
+  private String consume() {
+    if (this.mPosition >= this.mTokens.size()) {
+      throw new IllegalArgumentException("Unexpected end of expression");
+    }
+    final String token = this.mTokens.get(this.mPosition);
+    this.mPosition++;
+    return token;
+  }
+
+  /**
+   * Parses a conjunction of negations.
+   * 
+   * @return The parsed node
+   */
+  private QueryNode parseAnd() {
+    final ArrayList<QueryNode> operands = new ArrayList<>();
+    operands.add(parseNot());
+    while (true) {
+      final String token = peek();
+      if (AND.equals(token)) {
+        consume();
+      } else if (token == null || OR.equals(token)
+          || CLOSING_PARENTHESIS.equals(token)) {
+        break;
+      }
+      // Operands without operator in between are combined implicitly
+      operands.add(parseNot());
+    }
+    if (operands.size() == 1) {
+      return operands.get(0);
+    }
+    return QueryNode.createAnd(operands);
+  }
+
+  /**
+   * Parses a negation or a primary expression.
+   * 
+   * @return The parsed node
+   */
+  private QueryNode parseNot() {
+    if (NOT.equals(peek())) {
+      consume();
+      return QueryNode.createNot(parseNot());
+    }
+    return parsePrimary();
+  }
+
+  /**
+   * Parses a disjunction of conjunctions.
+   * 
+   * @return The parsed node
+   */
+  private QueryNode parseOr() {
+    final ArrayList<QueryNode> operands = new ArrayList<>();
+    operands.add(parseAnd());
+    while (OR.equals(peek())) {
+      consume();
+      operands.add(parseAnd());
+    }
+    if (operands.size() == 1) {
+      return operands.get(0);
+    }
+    return QueryNode.createOr(operands);
+  }
+
+  /**
+   * Parses a group or a term.
+   * 
+   * @return The parsed node
+   */
+  private QueryNode parsePrimary() {
+    final String token = consume();
+    if (OPENING_PARENTHESIS.equals(token)) {
+      final QueryNode group = parseOr();
+      if (!CLOSING_PARENTHESIS.equals(consume())) {
+        throw new IllegalArgumentException("Expected " + CLOSING_PARENTHESIS);
+      }
+      return group;
+    }
+    if (CLOSING_PARENTHESIS.equals(token) || AND.equals(token)
+        || OR.equals(token)) {
+      throw new IllegalArgumentException("Unexpected token: " + token);
+    }
+    if (token.charAt(0) == FUZZY_PREFIX) {
+      if (token.length() == 1) {
+        throw new IllegalArgumentException("Missing fuzzy term");
+      }
+      return QueryNode.createFuzzyTerm(token.substring(1));
+    }
+    return QueryNode.createTerm(token.toLowerCase());
+  }
+
+  /**
+   * Gets the next token without consuming it.
+   * 
+   * @return The next token or <tt>null</tt> if there is none
+   */
+  private String peek() {
+    if (this.mPosition >= this.mTokens.size()) {
+      return null;
+    }
+    return this.mTokens.get(this.mPosition);
+  }
+}
@@ -0,0 +1,147 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Iterator which yields the records all of its operands have in common, i.e.
+ * a logical <tt>and</tt>. The operand with the lowest cost leads, the others
+ * get advanced to its records. Term frequencies and scores of the operands
+ * are summed up.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ConjunctionIterator implements IPostingIterator {
+  /**
+   * The id of the current record.
+   */
+  private int mCurrentRecordId;
+  /**
+   * The operands, ascending in their cost.
+   */
+  private final List<IPostingIterator> mOperands;
+
+  /**
+   * Creates a new conjunction of the given operands.
+   * 
+   * @param operands
+   *          The operands to combine, at least one, they must not have been
+   *          advanced yet
+   */
+  public ConjunctionIterator(final List<IPostingIterator> operands) {
+    if (operands.isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    this.mOperands = new ArrayList<>(operands);
+    this.mOperands.sort(Comparator.comparingLong(IPostingIterator::getCost));
+    this.mCurrentRecordId = -1;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#advance(int)
+   */
+  @Override
+  public int advance(final int target) {
+    return align(this.mOperands.get(0).advance(target));
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getCost()
+   */
+  @Override
+  public long getCost() {
+    return this.mOperands.get(0).getCost();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getRecordId()
+   */
+  @Override
+  public int getRecordId() {
+    return this.mCurrentRecordId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getScore()
+   */
+  @Override
+  public double getScore() {
+    double totalScore = 0;
+    for (final IPostingIterator operand : this.mOperands) {
+      totalScore += operand.getScore();
+    }
+    return totalScore;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getTermFrequency()
+   */
+  @Override
+  public int getTermFrequency() {
+    int totalTermFrequency = 0;
+    for (final IPostingIterator operand : this.mOperands) {
+      totalTermFrequency += operand.getTermFrequency();
+    }
+    return totalTermFrequency;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#next()
+   */
+  @Override
+  public int next() {
+    return align(this.mOperands.get(0).next());
+  }
+
+  /**
+   * Advances all operands until they agree on a record, starting with the
+   * given record of the leading operand.
+   * 
+   * @param leadRecordId
+   *          The current record of the leading operand
+   * @return The id of the first record all operands contain or
+   *         {@link #NO_MORE_RECORDS} if there is none
+   */
+  private int align(final int leadRecordId) {
+    int target = leadRecordId;
+    final IPostingIterator lead = this.mOperands.get(0);
+    int i = 1;
+    while (target != NO_MORE_RECORDS && i < this.mOperands.size()) {
+      final IPostingIterator operand = this.mOperands.get(i);
+      int recordId = operand.getRecordId();
+      if (recordId < target) {
+        recordId = operand.advance(target);
+      }
+      if (recordId == target) {
+        i++;
+      } else {
+        // The operand skipped the target, the lead has to catch up
+        if (recordId == NO_MORE_RECORDS) {
+          target = NO_MORE_RECORDS;
+        } else {
+          target = lead.advance(recordId);
+        }
+        i = 1;
+      }
+    }
+    this.mCurrentRecordId = target;
+    return target;
+  }
+}
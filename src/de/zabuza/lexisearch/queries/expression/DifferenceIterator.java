@@ -0,0 +1,124 @@
+package de.zabuza.lexisearch.queries.expression;
+
+/**
+ * Iterator which yields the records of an operand that another operand does
+ * not contain, i.e. <tt>a and not b</tt>. The excluded operand is never
+ * iterated completely, it only gets advanced to the records of the included
+ * operand. Term frequencies and scores are those of the included operand.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class DifferenceIterator implements IPostingIterator {
+  /**
+   * The operand whose records get excluded.
+   */
+  private final IPostingIterator mExcluded;
+  /**
+   * The operand whose records get yielded.
+   */
+  private final IPostingIterator mIncluded;
+
+  /**
+   * Creates a new difference of the given operands.
+   * 
+   * @param included
+   *          The operand whose records get yielded, it must not have been
+   *          advanced yet
+   * @param excluded
+   *          The operand whose records get excluded, it must not have been
+   *          advanced yet
+   */
+  public DifferenceIterator(final IPostingIterator included,
+      final IPostingIterator excluded) {
+    this.mIncluded = included;
+    this.mExcluded = excluded;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#advance(int)
+   */
+  @Override
+  public int advance(final int target) {
+    return skipExcluded(this.mIncluded.advance(target));
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getCost()
+   */
+  @Override
+  public long getCost() {
+    return this.mIncluded.getCost();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getRecordId()
+   */
+  @Override
+  public int getRecordId() {
+    return this.mIncluded.getRecordId();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getScore()
+   */
+  @Override
+  public double getScore() {
+    return this.mIncluded.getScore();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getTermFrequency()
+   */
+  @Override
+  public int getTermFrequency() {
+    return this.mIncluded.getTermFrequency();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#next()
+   */
+  @Override
+  public int next() {
+    return skipExcluded(this.mIncluded.next());
+  }
+
+  /**
+   * Advances the included operand past all records the excluded operand
+   * contains, starting with the given record.
+   * 
+   * @param includedRecordId
+   *          The current record of the included operand
+   * @return The id of the first record which is not excluded or
+   *         {@link #NO_MORE_RECORDS} if there is none
+   */
+  private int skipExcluded(final int includedRecordId) {
+    int recordId = includedRecordId;
+    while (recordId != NO_MORE_RECORDS) {
+      int excludedRecordId = this.mExcluded.getRecordId();
+      if (excludedRecordId < recordId) {
+        excludedRecordId = this.mExcluded.advance(recordId);
+      }
+      if (excludedRecordId != recordId) {
+        break;
+      }
+      recordId = this.mIncluded.next();
+    }
+    return recordId;
+  }
+}
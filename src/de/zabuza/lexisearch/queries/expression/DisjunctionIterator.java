@@ -0,0 +1,129 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Iterator which yields the records at least one of its operands contains,
+ * i.e. a logical <tt>or</tt>. Term frequencies and scores of all operands
+ * containing a record are summed up.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class DisjunctionIterator implements IPostingIterator {
+  /**
+   * The id of the current record.
+   */
+  private int mCurrentRecordId;
+  /**
+   * The operands.
+   */
+  private final List<IPostingIterator> mOperands;
+
+  /**
+   * Creates a new disjunction of the given operands.
+   * 
+   * @param operands
+   *          The operands to combine, at least one, they must not have been
+   *          advanced yet
+   */
+  public DisjunctionIterator(final List<IPostingIterator> operands) {
+    if (operands.isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    this.mOperands = new ArrayList<>(operands);
+    this.mCurrentRecordId = -1;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#advance(int)
+   */
+  @Override
+  public int advance(final int target) {
+    int smallestRecordId = NO_MORE_RECORDS;
+    for (final IPostingIterator operand : this.mOperands) {
+      int recordId = operand.getRecordId();
+      if (recordId < target) {
+        recordId = operand.advance(target);
+      }
+      smallestRecordId = Math.min(smallestRecordId, recordId);
+    }
+    this.mCurrentRecordId = smallestRecordId;
+    return smallestRecordId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getCost()
+   */
+  @Override
+  public long getCost() {
+    long totalCost = 0;
+    for (final IPostingIterator operand : this.mOperands) {
+      totalCost += operand.getCost();
+    }
+    return totalCost;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getRecordId()
+   */
+  @Override
+  public int getRecordId() {
+    return this.mCurrentRecordId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getScore()
+   */
+  @Override
+  public double getScore() {
+    double totalScore = 0;
+    for (final IPostingIterator operand : this.mOperands) {
+      if (operand.getRecordId() == this.mCurrentRecordId) {
+        totalScore += operand.getScore();
+      }
+    }
+    return totalScore;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getTermFrequency()
+   */
+  @Override
+  public int getTermFrequency() {
+    int totalTermFrequency = 0;
+    for (final IPostingIterator operand : this.mOperands) {
+      if (operand.getRecordId() == this.mCurrentRecordId) {
+        totalTermFrequency += operand.getTermFrequency();
+      }
+    }
+    return totalTermFrequency;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#next()
+   */
+  @Override
+  public int next() {
+    if (this.mCurrentRecordId == NO_MORE_RECORDS) {
+      return NO_MORE_RECORDS;
+    }
+    return advance(this.mCurrentRecordId + 1);
+  }
+}
@@ -0,0 +1,34 @@
+package de.zabuza.lexisearch.queries.expression;
+
+/**
+ * Enumeration for the different types of {@link QueryNode}s.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public enum EQueryNodeType {
+  /**
+   * Logical <tt>and</tt> of all children.
+   */
+  AND,
+  /**
+   * Node which matches no record at all.
+   */
+  EMPTY,
+  /**
+   * Term whose records are searched fuzzy.
+   */
+  FUZZY_TERM,
+  /**
+   * Logical <tt>not</tt> of the only child.
+   */
+  NOT,
+  /**
+   * Logical <tt>or</tt> of all children.
+   */
+  OR,
+  /**
+   * Term whose records are searched exactly.
+   */
+  TERM
+}
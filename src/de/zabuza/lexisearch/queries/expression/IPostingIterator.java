@@ -0,0 +1,67 @@
+package de.zabuza.lexisearch.queries.expression;
+
+/**
+ * Interface for iterators which stream the postings of a query in ascending
+ * order of their record ids. Iterators can skip to a given record, which
+ * allows operators to combine them without materializing intermediate
+ * lists.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public interface IPostingIterator {
+  /**
+   * Record id which indicates that the iterator is exhausted.
+   */
+  int NO_MORE_RECORDS = Integer.MAX_VALUE;
+
+  /**
+   * Advances the iterator to the first record whose id is greater than or
+   * equal to the given target. The target must be greater than the current
+   * record id.
+   * 
+   * @param target
+   *          The record id to advance to
+   * @return The id of the current record after advancing or
+   *         {@link #NO_MORE_RECORDS} if there is none
+   */
+  int advance(int target);
+
+  /**
+   * Gets an estimate of the amount of records this iterator yields in total.
+   * Used to order the operands of operators.
+   * 
+   * @return An upper bound of the amount of records this iterator yields
+   */
+  long getCost();
+
+  /**
+   * Gets the id of the current record.
+   * 
+   * @return The id of the current record, <tt>-1</tt> if the iterator was not
+   *         advanced yet or {@link #NO_MORE_RECORDS} if it is exhausted
+   */
+  int getRecordId();
+
+  /**
+   * Gets the score of the current record.
+   * 
+   * @return The score of the current record
+   */
+  double getScore();
+
+  /**
+   * Gets the term frequency of the current record.
+   * 
+   * @return The term frequency of the current record
+   */
+  int getTermFrequency();
+
+  /**
+   * Advances the iterator to the next record.
+   * 
+   * @return The id of the next record or {@link #NO_MORE_RECORDS} if there is
+   *         none
+   */
+  int next();
+}
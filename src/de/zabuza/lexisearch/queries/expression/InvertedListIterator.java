@@ -0,0 +1,141 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.Iterator;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.Posting;
+
+/**
+ * Iterator over the postings of an {@link IInvertedList}. It is the leaf of
+ * every tree of {@link IPostingIterator}s.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class InvertedListIterator implements IPostingIterator {
+  /**
+   * The amount of postings {@link #advance(int)} steps over one by one before
+   * it seeks the target in the list. Stepping is cheaper for close targets.
+   */
+  private static final int LINEAR_ADVANCE_STEPS = 4;
+
+  /**
+   * The current posting or <tt>null</tt> if there is none.
+   */
+  private Posting mCurrentPosting;
+  /**
+   * The id of the current record.
+   */
+  private int mCurrentRecordId;
+  /**
+   * The postings of the list which were not visited yet.
+   */
+  private Iterator<Posting> mPostings;
+  /**
+   * The list to iterate.
+   */
+  private final IInvertedList mRecords;
+  /**
+   * The size of the list.
+   */
+  private final int mSize;
+
+  /**
+   * Creates a new iterator over the given list.
+   * 
+   * @param records
+   *          The list to iterate, it is only read
+   */
+  public InvertedListIterator(final IInvertedList records) {
+    this.mRecords = records;
+    this.mPostings = records.getPostings().iterator();
+    this.mSize = records.getSize();
+    this.mCurrentRecordId = -1;
+    this.mCurrentPosting = null;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#advance(int)
+   */
+  @Override
+  public int advance(final int target) {
+    if (target == NO_MORE_RECORDS) {
+      // No need to visit the remaining postings
+      this.mCurrentPosting = null;
+      this.mCurrentRecordId = NO_MORE_RECORDS;
+      return NO_MORE_RECORDS;
+    }
+    for (int i = 0; i < LINEAR_ADVANCE_STEPS
+        && this.mCurrentRecordId < target; i++) {
+      next();
+    }
+    if (this.mCurrentRecordId < target) {
+      // The target is distant, seek it instead of visiting all postings
+      this.mPostings = this.mRecords.getPostingsFrom(target).iterator();
+      next();
+    }
+    return this.mCurrentRecordId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getCost()
+   */
+  @Override
+  public long getCost() {
+    return this.mSize;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getRecordId()
+   */
+  @Override
+  public int getRecordId() {
+    return this.mCurrentRecordId;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#getScore()
+   */
+  @Override
+  public double getScore() {
+    return this.mCurrentPosting.getScore();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.queries.expression.IPostingIterator#getTermFrequency()
+   */
+  @Override
+  public int getTermFrequency() {
+    return this.mCurrentPosting.getTermFrequency();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.queries.expression.IPostingIterator#next()
+   */
+  @Override
+  public int next() {
+    if (this.mPostings.hasNext()) {
+      this.mCurrentPosting = this.mPostings.next();
+      this.mCurrentRecordId = this.mCurrentPosting.getId();
+    } else {
+      this.mCurrentPosting = null;
+      this.mCurrentRecordId = NO_MORE_RECORDS;
+    }
+    return this.mCurrentRecordId;
+  }
+}
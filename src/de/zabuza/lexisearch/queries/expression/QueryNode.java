@@ -0,0 +1,228 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+
+/**
+ * Node of the syntax tree of a boolean query. Inner nodes combine their
+ * children by a logical operator, leaves are terms. Terms of optimized trees
+ * hold their resolved records, see {@link BooleanQuery#explain(String)}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class QueryNode {
+  /**
+   * Creates a node which combines the given children with a logical
+   * <tt>and</tt>.
+   * 
+   * @param children
+   *          The children to combine, at least one
+   * @return The created node
+   */
+  public static QueryNode createAnd(final List<QueryNode> children) {
+    return createInnerNode(EQueryNodeType.AND, children);
+  }
+
+  /**
+   * Creates a node which matches no record at all.
+   * 
+   * @return The created node
+   */
+  public static QueryNode createEmpty() {
+    return new QueryNode(EQueryNodeType.EMPTY, Collections.emptyList(), null,
+        null);
+  }
+
+  /**
+   * Creates a term whose records are searched fuzzy.
+   * 
+   * @param term
+   *          The term to search for
+   * @return The created node
+   */
+  public static QueryNode createFuzzyTerm(final String term) {
+    return new QueryNode(EQueryNodeType.FUZZY_TERM, Collections.emptyList(),
+        term, null);
+  }
+
+  /**
+   * Creates a node which negates the given child.
+   * 
+   * @param child
+   *          The child to negate
+   * @return The created node
+   */
+  public static QueryNode createNot(final QueryNode child) {
+    return createInnerNode(EQueryNodeType.NOT,
+        Collections.singletonList(child));
+  }
+
+  /**
+   * Creates a node which combines the given children with a logical
+   * <tt>or</tt>.
+   * 
+   * @param children
+   *          The children to combine, at least one
+   * @return The created node
+   */
+  public static QueryNode createOr(final List<QueryNode> children) {
+    return createInnerNode(EQueryNodeType.OR, children);
+  }
+
+  /**
+   * Creates a term whose records are searched exactly.
+   * 
+   * @param term
+   *          The term to search for
+   * @return The created node
+   */
+  public static QueryNode createTerm(final String term) {
+    return new QueryNode(EQueryNodeType.TERM, Collections.emptyList(), term,
+        null);
+  }
+
+  /**
+   * Creates a copy of the given term which holds the given records.
+   * 
+   * @param term
+   *          The term to resolve
+   * @param records
+   *          The records of the term
+   * @return The created node
+   */
+  static QueryNode createResolvedTerm(final QueryNode term,
+      final IInvertedList records) {
+    return new QueryNode(term.getType(), Collections.emptyList(),
+        term.getTerm(), records);
+  }
+
+  /**
+   * Creates an inner node of the given type with the given children.
+   * 
+   * @param type
+   *          The type of the node
+   * @param children
+   *          The children of the node, at least one
+   * @return The created node
+   */
+  private static QueryNode createInnerNode(final EQueryNodeType type,
+      final List<QueryNode> children) {
+    if (children.isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    return new QueryNode(type,
+        Collections.unmodifiableList(new ArrayList<>(children)), null, null);
+  }
+
+  /**
+   * The children of this node.
+   */
+  private final List<QueryNode> mChildren;
+  /**
+   * The resolved records of the term or <tt>null</tt> if not resolved.
+   */
+  private final IInvertedList mRecords;
+  /**
+   * The term of the node or <tt>null</tt> if it is no term.
+   */
+  private final String mTerm;
+  /**
+   * The type of the node.
+   */
+  private final EQueryNodeType mType;
+
+  /**
+   * Creates a new node.
+   * 
+   * @param type
+   *          The type of the node
+   * @param children
+   *          The children of the node
+   * @param term
+   *          The term of the node or <tt>null</tt> if it is no term
+   * @param records
+   *          The resolved records of the term or <tt>null</tt> if not
+   *          resolved
+   */
+  private QueryNode(final EQueryNodeType type, final List<QueryNode> children,
+      final String term, final IInvertedList records) {
+    this.mType = type;
+    this.mChildren = children;
+    this.mTerm = term;
+    this.mRecords = records;
+  }
+
+  /**
+   * Gets the children of this node.
+   * 
+   * @return An unmodifiable list containing the children of this node, empty
+   *         for leaves
+   */
+  public List<QueryNode> getChildren() {
+    return this.mChildren;
+  }
+
+  /**
+   * Gets the resolved records of this term.
+   * 
+   * @return The resolved records of this term or <tt>null</tt> if it was not
+   *         resolved or is no term
+   */
+  public IInvertedList getRecords() {
+    return this.mRecords;
+  }
+
+  /**
+   * Gets the term of this node.
+   * 
+   * @return The term of this node or <tt>null</tt> if it is no term
+   */
+  public String getTerm() {
+    return this.mTerm;
+  }
+
+  /**
+   * Gets the type of this node.
+   * 
+   * @return The type of this node
+   */
+  public EQueryNodeType getType() {
+    return this.mType;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    if (this.mType == EQueryNodeType.EMPTY) {
+      return this.mType.toString();
+    }
+    if (this.mType == EQueryNodeType.TERM
+        || this.mType == EQueryNodeType.FUZZY_TERM) {
+      final StringBuilder description = new StringBuilder();
+      if (this.mType == EQueryNodeType.FUZZY_TERM) {
+        description.append('~');
+      }
+      description.append(this.mTerm);
+      if (this.mRecords != null) {
+        description.append('[').append(this.mRecords.getSize()).append(']');
+      }
+      return description.toString();
+    }
+
+    final StringJoiner children =
+        new StringJoiner(", ", this.mType + "(", ")");
+    for (final QueryNode child : this.mChildren) {
+      children.add(child.toString());
+    }
+    return children.toString();
+  }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains a boolean query language whose queries get compiled
+ * to trees of posting iterators.
+ */
+package de.zabuza.lexisearch.queries.expression;
\ No newline at end of file
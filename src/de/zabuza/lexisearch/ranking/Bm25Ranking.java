@@ -1,26 +1,45 @@
 package de.zabuza.lexisearch.ranking;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IInvertedList;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
 import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.RecordSlots;
 import de.zabuza.lexisearch.util.MathUtil;
 
 /**
- * Ranking algorithm which implements the BM25 ranking algorithm.
+ * Ranking algorithm which implements the BM25 ranking algorithm. Scores can
+ * either be set as double into the postings of the index or be precomputed
+ * into a quantized {@link ImpactIndex}, see
+ * {@link #createImpactIndex(EImpactPrecision)}.<br/>
+ * <br/>
+ * The statistics of a snapshot are held in arrays. The sizes of the key
+ * records are indexed by the {@link RecordSlots slots} of their record ids and
+ * the inverse document frequency of each key is precomputed, indexed by the id
+ * the key has in the term dictionary of the snapshot. Taking a snapshot and
+ * setting the scores to the index run in parallel on the common fork/join
+ * pool. After changing a parameter, {@link #setRankingScoreToIndex()} can be
+ * called again without taking a new snapshot.<br/>
+ * <br/>
+ * If the snapshot only holds a part of the collection, the
+ * {@link CollectionStatistics} of the whole collection can be set by
+ * {@link #setCollectionStatistics(CollectionStatistics)}, such that the
+ * scores of all parts are comparable.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
  * @param <K>
  *          Type of the key
  */
-public final class Bm25Ranking<K> implements IRankingProvider<K> {
+public final class Bm25Ranking<K> implements ITopKRankingProvider<K> {
   /**
    * The default value for the b parameter of the BM25 algorithm to use.
    */
@@ -31,13 +50,21 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
   public static final double DEFAULT_K_PARAMETER = 1.75;
 
   /**
-   * The amount of key records in total.
+   * The amount of key records of the snapshot.
    */
   private int mAmountOfKeyRecords;
+  /**
+   * The average size of all key records.
+   */
+  private double mAverageRecordSize;
   /**
    * The b parameter of the BM25 algorithm.
    */
   private double mBParameter;
+  /**
+   * The inverse document frequency of each key, indexed by term id.
+   */
+  private double[] mIdfs;
   /**
    * The current inverted index to use.
    */
@@ -47,26 +74,35 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
    */
   private IKeyRecordSet<IKeyRecord<K>, K> mKeyRecords;
   /**
-   * Map which allows a fast access to the size of key records.
-   */
-  private final HashMap<IKeyRecord<K>, Integer> mKeyRecordToSize;
-  /**
-   * Map which allows a fast access to the key record frequency of keys.
+   * Map which connects keys to their term id.
    */
-  private final HashMap<K, Integer> mKeyToKeyRecordFrequency;
+  private final HashMap<K, Integer> mKeyToTermId;
   /**
    * The k parameter of the BM25 algorithm.
    */
   private double mKParameter;
+  /**
+   * The size of each key record, indexed by the slot of its record id.
+   */
+  private int[] mRecordSizes;
+  /**
+   * The slots of the record ids of the key records.
+   */
+  private RecordSlots mRecordSlots;
   /**
    * The comparator to use which sorts postings by their ranking score in
    * descending order.
    */
   private final Comparator<Posting> mScoreComparator;
   /**
-   * The total size of all key records.
+   * The term dictionary, i.e. all keys of the inverted index indexed by their
+   * term id.
+   */
+  private final ArrayList<K> mTerms;
+  /**
+   * The sum of the sizes of all key records of the snapshot.
    */
-  private int mTotalSizeOfAllKeyRecords;
+  private long mTotalRecordSize;
 
   /**
    * Creates a new BM25 ranking with default parameters. Use
@@ -90,13 +126,43 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
    *          The b parameter of the BM25 algorithm to use
    */
   public Bm25Ranking(final double kParameter, final double bParameter) {
-    this.mKeyRecordToSize = new HashMap<>();
-    this.mKeyToKeyRecordFrequency = new HashMap<>();
+    this.mKeyToTermId = new HashMap<>();
+    this.mTerms = new ArrayList<>();
+    this.mIdfs = new double[0];
+    this.mRecordSizes = new int[0];
+    this.mRecordSlots = RecordSlots.forIds(new int[0]);
+    this.mAmountOfKeyRecords = 0;
+    this.mTotalRecordSize = 0;
     this.mKParameter = kParameter;
     this.mBParameter = bParameter;
     this.mScoreComparator = new ScoreComparator().reversed();
   }
 
+  /**
+   * Creates an {@link ImpactIndex} which stores the BM25 scores of all
+   * postings of the current snapshot quantized with the given precision.
+   * Query-time scoring then only needs integer additions instead of the
+   * lookups of {@link #getRankingScore(Object, Posting)}.
+   * 
+   * @param precision
+   *          The precision to quantize scores with
+   * @return The created impact index
+   */
+  public ImpactIndex<K> createImpactIndex(final EImpactPrecision precision) {
+    return ImpactIndex.createFromRanking(this, precision);
+  }
+
+  /**
+   * Gets the average size of the key records used to compute scores. It is
+   * the one of the current snapshot or of the collection statistics set by
+   * {@link #setCollectionStatistics(CollectionStatistics)}.
+   * 
+   * @return The average size of the key records
+   */
+  public double getAverageRecordSize() {
+    return this.mAverageRecordSize;
+  }
+
   /**
    * Gets the b parameter.
    * 
@@ -106,6 +172,35 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
     return this.mBParameter;
   }
 
+  /**
+   * Gets the statistics of the collection of the current snapshot. They do
+   * not change by {@link #setCollectionStatistics(CollectionStatistics)}.
+   * 
+   * @return The statistics of the current snapshot
+   */
+  public CollectionStatistics<K> getCollectionStatistics() {
+    final HashMap<K, Integer> keyRecordFrequencies =
+        new HashMap<>(this.mTerms.size() * 2);
+    for (final K key : this.mTerms) {
+      keyRecordFrequencies.put(key,
+          Integer.valueOf(this.mInvertedIndex.getRecords(key).getSize()));
+    }
+    return new CollectionStatistics<>(this.mAmountOfKeyRecords,
+        this.mTotalRecordSize, keyRecordFrequencies);
+  }
+
+  /**
+   * Gets the inverse document frequency used to compute the scores of the
+   * given key.
+   * 
+   * @param key
+   *          The key which must be contained in the current inverted index
+   * @return The inverse document frequency of the key
+   */
+  public double getIdf(final K key) {
+    return this.mIdfs[this.mKeyToTermId.get(key).intValue()];
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -135,6 +230,16 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
     return this.mKParameter;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.ITopKRankingProvider#getRankComparator()
+   */
+  @Override
+  public Comparator<Posting> getRankComparator() {
+    return this.mScoreComparator;
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -144,23 +249,85 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
    */
   @Override
   public double getRankingScore(final K key, final Posting posting) {
-    final int n = this.mAmountOfKeyRecords;
-    final int df = this.mKeyToKeyRecordFrequency.get(key).intValue();
-    final double idf = MathUtil.log2((n + 0.0) / df);
+    final int termId = this.mKeyToTermId.get(key).intValue();
+    return computeScore(this.mIdfs[termId], posting);
+  }
 
-    final double tf = posting.getTermFrequency() + 0.0;
-    final int dl = this.mKeyRecordToSize
-        .get(this.mKeyRecords.getKeyRecordById(posting.getId())).intValue();
-    final double avdl =
-        (this.mTotalSizeOfAllKeyRecords + 0.0) / this.mAmountOfKeyRecords;
+  /**
+   * Gets the size of the key record with the given id in the current
+   * snapshot.
+   * 
+   * @param recordId
+   *          The id of the key record
+   * @return The size of the key record or <tt>0</tt> if it is not contained
+   */
+  public int getRecordSize(final int recordId) {
+    final int slot = this.mRecordSlots.getSlot(recordId);
+    if (slot == RecordSlots.NO_SLOT) {
+      return 0;
+    }
+    return this.mRecordSizes[slot];
+  }
 
-    final double k = this.mKParameter;
-    final double b = this.mBParameter;
+  /**
+   * Restores a snapshot that was taken before, for example one saved together
+   * with the index. Unlike {@link #takeSnapshot(IInvertedIndex, IKeyRecordSet)}
+   * it neither computes the sizes of the key records nor scans the inverted
+   * lists. The scores of the index are not set again.
+   * 
+   * @param invertedIndex
+   *          The inverted index the snapshot was taken of
+   * @param keyRecords
+   *          The set of key records the snapshot was taken of
+   * @param terms
+   *          All keys of the inverted index
+   * @param idfs
+   *          The inverse document frequencies of the keys, parallel to the
+   *          given keys, as given by {@link #getIdf(Object)}
+   * @param recordIds
+   *          The ids of the key records
+   * @param sizes
+   *          The sizes of the key records, parallel to the given ids, as
+   *          given by {@link #getRecordSize(int)}
+   * @param averageRecordSize
+   *          The average size of the key records, as given by
+   *          {@link #getAverageRecordSize()}
+   * @throws IllegalArgumentException
+   *           If the amount of keys and inverse document frequencies or the
+   *           amount of ids and sizes differ
+   */
+  public void restoreSnapshot(final IInvertedIndex<K> invertedIndex,
+      final IKeyRecordSet<IKeyRecord<K>, K> keyRecords, final List<K> terms,
+      final double[] idfs, final int[] recordIds, final int[] sizes,
+      final double averageRecordSize) throws IllegalArgumentException {
+    if (terms.size() != idfs.length || recordIds.length != sizes.length) {
+      throw new IllegalArgumentException();
+    }
+    this.mInvertedIndex = invertedIndex;
+    this.mKeyRecords = keyRecords;
 
-    final double tfModified =
-        tf * (k + 1) / (k * (1 - b + b * (dl / avdl)) + tf);
+    final RecordSlots recordSlots = RecordSlots.forIds(recordIds);
+    final int[] recordSizes = new int[recordSlots.getAmountOfSlots()];
+    for (int i = 0; i < recordIds.length; i++) {
+      recordSizes[recordSlots.getSlot(recordIds[i])] = sizes[i];
+    }
+    long totalSize = 0;
+    for (final int size : recordSizes) {
+      totalSize += size;
+    }
+    this.mAmountOfKeyRecords = keyRecords.size();
+    this.mTotalRecordSize = totalSize;
+    this.mRecordSlots = recordSlots;
+    this.mRecordSizes = recordSizes;
+    this.mAverageRecordSize = averageRecordSize;
 
-    return tfModified * idf;
+    this.mKeyToTermId.clear();
+    this.mTerms.clear();
+    for (final K key : terms) {
+      this.mKeyToTermId.put(key, Integer.valueOf(this.mTerms.size()));
+      this.mTerms.add(key);
+    }
+    this.mIdfs = idfs;
   }
 
   /**
@@ -173,6 +340,37 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
     this.mBParameter = bParameter;
   }
 
+  /**
+   * Sets the statistics of the collection to compute the inverse document
+   * frequencies and the average record size with, instead of those of the
+   * current snapshot. This is used if the snapshot only holds a part of the
+   * collection, like a shard, such that its scores are comparable to the
+   * scores of the other parts. Call {@link #setRankingScoreToIndex()}
+   * afterwards to update the scores of the index. Taking a new snapshot
+   * resets the statistics.
+   * 
+   * @param statistics
+   *          The statistics of the whole collection, they must include the
+   *          records of the current snapshot
+   * @throws IllegalArgumentException
+   *           If a key of the snapshot does not occur in the statistics
+   */
+  public void setCollectionStatistics(final CollectionStatistics<K> statistics)
+      throws IllegalArgumentException {
+    final double[] idfs = new double[this.mTerms.size()];
+    for (int termId = 0; termId < idfs.length; termId++) {
+      final int keyRecordFrequency =
+          statistics.getKeyRecordFrequency(this.mTerms.get(termId));
+      if (keyRecordFrequency <= 0) {
+        throw new IllegalArgumentException();
+      }
+      idfs[termId] = MathUtil.log2(
+          (statistics.getAmountOfRecords() + 0.0) / keyRecordFrequency);
+    }
+    this.mIdfs = idfs;
+    this.mAverageRecordSize = statistics.getAverageRecordSize();
+  }
+
   /**
    * Sets the k parameter for this algorithm.
    * 
@@ -190,13 +388,17 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
    */
   @Override
   public void setRankingScoreToIndex() {
-    // Iterate over the inverted index and set all ranking scores
-    for (final K key : this.mInvertedIndex.getKeys()) {
-      final IInvertedList invertedList = this.mInvertedIndex.getRecords(key);
+    // Each term owns its postings, thus terms can be scored in parallel
+    IntStream.range(0, this.mTerms.size()).parallel().forEach(termId -> {
+      final double idf = this.mIdfs[termId];
+      final IInvertedList invertedList =
+          this.mInvertedIndex.getRecords(this.mTerms.get(termId));
       for (final Posting posting : invertedList.getPostings()) {
-        posting.setScore(getRankingScore(key, posting));
+        posting.setScore(computeScore(idf, posting));
       }
-    }
+    });
+    // Structures derived from the index, like caches, are outdated now
+    this.mInvertedIndex.markModified();
   }
 
   /*
@@ -221,30 +423,73 @@ public final class Bm25Ranking<K> implements IRankingProvider<K> {
   @Override
   public void takeSnapshot(final IInvertedIndex<K> invertedIndex,
       final IKeyRecordSet<IKeyRecord<K>, K> keyRecords) {
-    this.mKeyRecordToSize.clear();
-    this.mKeyToKeyRecordFrequency.clear();
     this.mInvertedIndex = invertedIndex;
     this.mKeyRecords = keyRecords;
 
-    // Iterate over the key records and compute meta data
-    int amountOfKeyRecords = 0;
-    int totalSize = 0;
+    // Compute the sizes of the key records, they may be expensive to compute
+    final ArrayList<IKeyRecord<K>> records = new ArrayList<>();
     for (final IKeyRecord<K> keyRecord : this.mKeyRecords) {
-      amountOfKeyRecords++;
-      final int size = keyRecord.getSize();
-      this.mKeyRecordToSize.put(keyRecord, Integer.valueOf(size));
+      records.add(keyRecord);
+    }
+    final int[] recordIds = new int[records.size()];
+    for (int i = 0; i < recordIds.length; i++) {
+      recordIds[i] = records.get(i).getRecordId();
+    }
+    final RecordSlots recordSlots = RecordSlots.forIds(recordIds);
+    final int[] recordSizes = new int[recordSlots.getAmountOfSlots()];
+    IntStream.range(0, records.size()).parallel().forEach(i -> {
+      recordSizes[recordSlots.getSlot(recordIds[i])] =
+          records.get(i).getSize();
+    });
+    long totalSize = 0;
+    for (final int size : recordSizes) {
       totalSize += size;
     }
+    final int amountOfKeyRecords = records.size();
     this.mAmountOfKeyRecords = amountOfKeyRecords;
-    this.mTotalSizeOfAllKeyRecords = totalSize;
+    this.mTotalRecordSize = totalSize;
+    this.mRecordSlots = recordSlots;
+    this.mRecordSizes = recordSizes;
+    this.mAverageRecordSize = (totalSize + 0.0) / amountOfKeyRecords;
 
-    // Iterate over the inverted index and compute meta data
+    // Build the term dictionary and precompute the inverse document frequency
+    this.mKeyToTermId.clear();
+    this.mTerms.clear();
     for (final K key : this.mInvertedIndex.getKeys()) {
-      final int keyRecordFrequency =
-          this.mInvertedIndex.getRecords(key).getSize();
-      this.mKeyToKeyRecordFrequency.put(key,
-          Integer.valueOf(keyRecordFrequency));
+      this.mKeyToTermId.put(key, Integer.valueOf(this.mTerms.size()));
+      this.mTerms.add(key);
     }
+    final double[] idfs = new double[this.mTerms.size()];
+    IntStream.range(0, idfs.length).parallel().forEach(termId -> {
+      final int keyRecordFrequency =
+          this.mInvertedIndex.getRecords(this.mTerms.get(termId)).getSize();
+      idfs[termId] =
+          MathUtil.log2((amountOfKeyRecords + 0.0) / keyRecordFrequency);
+    });
+    this.mIdfs = idfs;
+  }
+
+  /**
+   * Computes the BM25 score of the given posting.
+   * 
+   * @param idf
+   *          The inverse document frequency of the key of the posting
+   * @param posting
+   *          The posting to compute the score of
+   * @return The BM25 score of the given posting
+   */
+  private double computeScore(final double idf, final Posting posting) {
+    final double tf = posting.getTermFrequency() + 0.0;
+    final int dl = getRecordSize(posting.getId());
+    final double avdl = this.mAverageRecordSize;
+
+    final double k = this.mKParameter;
+    final double b = this.mBParameter;
+
+    final double tfModified =
+        tf * (k + 1) / (k * (1 - b + b * (dl / avdl)) + tf);
+
+    return tfModified * idf;
   }
 
 }
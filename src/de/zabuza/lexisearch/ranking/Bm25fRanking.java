@@ -0,0 +1,418 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import de.zabuza.lexisearch.indexing.IFieldedKeyRecord;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.RecordSlots;
+import de.zabuza.lexisearch.util.MathUtil;
+
+/**
+ * Ranking algorithm which implements the BM25F ranking algorithm, the variant
+ * of BM25 for records with multiple fields. The term frequency of each field
+ * gets normalized by the length of the field, weighted and summed up, before
+ * the saturation of BM25 is applied once. Thus a key in a short, highly
+ * weighted field like the name of a document counts more than the same key in
+ * a long description.<br/>
+ * <br/>
+ * The key records must be {@link IFieldedKeyRecord}s and the postings of the
+ * index must hold the term frequencies per field, like indices built by
+ * {@link de.zabuza.lexisearch.indexing.InvertedIndexUtil InvertedIndexUtil}
+ * do. As for {@link Bm25Ranking}, the statistics of a snapshot are held in
+ * arrays, indexed by the {@link RecordSlots slots} of the record ids, the
+ * combined scores can be set into the postings of the index by
+ * {@link #setRankingScoreToIndex()} such that ranking stays a single pass
+ * over one posting list per key.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the key
+ */
+public final class Bm25fRanking<K> implements ITopKRankingProvider<K> {
+  /**
+   * Creates an array holding the default b parameter for each field.
+   * 
+   * @param amountOfFields
+   *          The amount of fields
+   * @return An array holding the default b parameter for each field
+   */
+  private static double[] createDefaultBParameters(final int amountOfFields) {
+    final double[] bParameters = new double[amountOfFields];
+    Arrays.fill(bParameters, Bm25Ranking.DEFAULT_B_PARAMETER);
+    return bParameters;
+  }
+
+  /**
+   * The average size of each field over all key records, indexed by field.
+   */
+  private double[] mAverageFieldSizes;
+  /**
+   * The b parameter of each field, indexed by field.
+   */
+  private final double[] mFieldBParameters;
+  /**
+   * The size of each field of each key record, indexed by field and then by
+   * the slot of the record id.
+   */
+  private int[][] mFieldSizes;
+  /**
+   * The weight of each field, indexed by field.
+   */
+  private final double[] mFieldWeights;
+  /**
+   * The inverse document frequency of each key, indexed by term id.
+   */
+  private double[] mIdfs;
+  /**
+   * The current inverted index to use.
+   */
+  private IInvertedIndex<K> mInvertedIndex;
+  /**
+   * The current set of key records to use.
+   */
+  private IKeyRecordSet<IKeyRecord<K>, K> mKeyRecords;
+  /**
+   * Map which connects keys to their term id.
+   */
+  private final HashMap<K, Integer> mKeyToTermId;
+  /**
+   * The k parameter of the BM25F algorithm.
+   */
+  private double mKParameter;
+  /**
+   * The slots of the record ids of the key records.
+   */
+  private RecordSlots mRecordSlots;
+  /**
+   * The comparator to use which sorts postings by their ranking score in
+   * descending order.
+   */
+  private final Comparator<Posting> mScoreComparator;
+  /**
+   * The term dictionary, i.e. all keys of the inverted index indexed by their
+   * term id.
+   */
+  private final ArrayList<K> mTerms;
+
+  /**
+   * Creates a new BM25F ranking with the given field weights. The k parameter
+   * and the b parameter of every field use the defaults of
+   * {@link Bm25Ranking}. Use
+   * {@link #takeSnapshot(IInvertedIndex, IKeyRecordSet)} as initialization and
+   * then get rankings by {@link #getRankingScore(Object, Posting)} or
+   * {@link #setRankingScoreToIndex()}.
+   * 
+   * @param fieldWeights
+   *          The weight of each field, indexed by field
+   */
+  public Bm25fRanking(final double[] fieldWeights) {
+    this(Bm25Ranking.DEFAULT_K_PARAMETER, fieldWeights,
+        createDefaultBParameters(fieldWeights.length));
+  }
+
+  /**
+   * Creates a new BM25F ranking with given parameters. Use
+   * {@link #takeSnapshot(IInvertedIndex, IKeyRecordSet)} as initialization and
+   * then get rankings by {@link #getRankingScore(Object, Posting)} or
+   * {@link #setRankingScoreToIndex()}.
+   * 
+   * @param kParameter
+   *          The k parameter of the BM25F algorithm to use
+   * @param fieldWeights
+   *          The weight of each field, indexed by field
+   * @param fieldBParameters
+   *          The b parameter of each field, indexed by field
+   * @throws IllegalArgumentException
+   *           If the amount of weights and b parameters differ
+   */
+  public Bm25fRanking(final double kParameter, final double[] fieldWeights,
+      final double[] fieldBParameters) {
+    if (fieldWeights.length != fieldBParameters.length) {
+      throw new IllegalArgumentException();
+    }
+    this.mKeyToTermId = new HashMap<>();
+    this.mTerms = new ArrayList<>();
+    this.mIdfs = new double[0];
+    this.mRecordSlots = RecordSlots.forIds(new int[0]);
+    this.mFieldSizes = new int[fieldWeights.length][0];
+    this.mAverageFieldSizes = new double[fieldWeights.length];
+    this.mKParameter = kParameter;
+    this.mFieldWeights = fieldWeights.clone();
+    this.mFieldBParameters = fieldBParameters.clone();
+    this.mScoreComparator = new ScoreComparator().reversed();
+  }
+
+  /**
+   * Gets the amount of fields this ranking weights.
+   * 
+   * @return The amount of fields this ranking weights
+   */
+  public int getAmountOfFields() {
+    return this.mFieldWeights.length;
+  }
+
+  /**
+   * Gets the b parameter of the given field.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The b parameter of the given field
+   */
+  public double getFieldBParameter(final int field) {
+    return this.mFieldBParameters[field];
+  }
+
+  /**
+   * Gets the weight of the given field.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The weight of the given field
+   */
+  public double getFieldWeight(final int field) {
+    return this.mFieldWeights[field];
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#getInvertedIndex()
+   */
+  @Override
+  public IInvertedIndex<K> getInvertedIndex() {
+    return this.mInvertedIndex;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#getKeyRecords()
+   */
+  @Override
+  public IKeyRecordSet<IKeyRecord<K>, K> getKeyRecords() {
+    return this.mKeyRecords;
+  }
+
+  /**
+   * Gets the k parameter.
+   * 
+   * @return The k parameter to get
+   */
+  public double getKParameter() {
+    return this.mKParameter;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.ITopKRankingProvider#getRankComparator()
+   */
+  @Override
+  public Comparator<Posting> getRankComparator() {
+    return this.mScoreComparator;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.ranking.IRankingProvider#getRankingScore(java.lang.
+   * Object, de.zabuza.lexisearch.indexing.Posting)
+   */
+  @Override
+  public double getRankingScore(final K key, final Posting posting) {
+    final int termId = this.mKeyToTermId.get(key).intValue();
+    return computeScore(this.mIdfs[termId], posting);
+  }
+
+  /**
+   * Sets the b parameter of the given field.
+   * 
+   * @param field
+   *          The index of the field
+   * @param bParameter
+   *          The b parameter to set
+   */
+  public void setFieldBParameter(final int field, final double bParameter) {
+    this.mFieldBParameters[field] = bParameter;
+  }
+
+  /**
+   * Sets the weight of the given field.
+   * 
+   * @param field
+   *          The index of the field
+   * @param weight
+   *          The weight to set
+   */
+  public void setFieldWeight(final int field, final double weight) {
+    this.mFieldWeights[field] = weight;
+  }
+
+  /**
+   * Sets the k parameter for this algorithm.
+   * 
+   * @param kParameter
+   *          The k parameter to set
+   */
+  public void setKParameter(final double kParameter) {
+    this.mKParameter = kParameter;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#setRankingScoreToIndex()
+   */
+  @Override
+  public void setRankingScoreToIndex() {
+    // Each term owns its postings, thus terms can be scored in parallel
+    IntStream.range(0, this.mTerms.size()).parallel().forEach(termId -> {
+      final double idf = this.mIdfs[termId];
+      final IInvertedList invertedList =
+          this.mInvertedIndex.getRecords(this.mTerms.get(termId));
+      for (final Posting posting : invertedList.getPostings()) {
+        posting.setScore(computeScore(idf, posting));
+      }
+    });
+    // Structures derived from the index, like caches, are outdated now
+    this.mInvertedIndex.markModified();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.ranking.IRankingProvider#sortPostingsByRank(java.util.
+   * List)
+   */
+  @Override
+  public void sortPostingsByRank(final List<Posting> postings) {
+    Collections.sort(postings, this.mScoreComparator);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#takeSnapshot(de.zabuza.
+   * lexisearch.indexing.IInvertedIndex,
+   * de.zabuza.lexisearch.indexing.IKeyRecordSet)
+   */
+  @Override
+  public void takeSnapshot(final IInvertedIndex<K> invertedIndex,
+      final IKeyRecordSet<IKeyRecord<K>, K> keyRecords) {
+    final int amountOfFields = getAmountOfFields();
+    final ArrayList<IFieldedKeyRecord<K>> records = new ArrayList<>();
+    for (final IKeyRecord<K> keyRecord : keyRecords) {
+      if (!(keyRecord instanceof IFieldedKeyRecord)) {
+        throw new IllegalArgumentException();
+      }
+      final IFieldedKeyRecord<K> fieldedRecord =
+          (IFieldedKeyRecord<K>) keyRecord;
+      if (fieldedRecord.getAmountOfFields() != amountOfFields) {
+        throw new IllegalArgumentException();
+      }
+      records.add(fieldedRecord);
+    }
+    this.mInvertedIndex = invertedIndex;
+    this.mKeyRecords = keyRecords;
+
+    // Compute the field sizes of the key records, they may be expensive to
+    // compute
+    final int[] recordIds = new int[records.size()];
+    for (int i = 0; i < recordIds.length; i++) {
+      recordIds[i] = records.get(i).getRecordId();
+    }
+    final RecordSlots recordSlots = RecordSlots.forIds(recordIds);
+    final int[][] fieldSizes =
+        new int[amountOfFields][recordSlots.getAmountOfSlots()];
+    IntStream.range(0, records.size()).parallel().forEach(i -> {
+      final IFieldedKeyRecord<K> keyRecord = records.get(i);
+      final int slot = recordSlots.getSlot(recordIds[i]);
+      for (int field = 0; field < amountOfFields; field++) {
+        fieldSizes[field][slot] = keyRecord.getFieldSize(field);
+      }
+    });
+    final int amountOfKeyRecords = records.size();
+    final double[] averageFieldSizes = new double[amountOfFields];
+    for (int field = 0; field < amountOfFields; field++) {
+      long totalSize = 0;
+      for (final int size : fieldSizes[field]) {
+        totalSize += size;
+      }
+      averageFieldSizes[field] = (totalSize + 0.0) / amountOfKeyRecords;
+    }
+    this.mRecordSlots = recordSlots;
+    this.mFieldSizes = fieldSizes;
+    this.mAverageFieldSizes = averageFieldSizes;
+
+    // Build the term dictionary and precompute the inverse document frequency
+    this.mKeyToTermId.clear();
+    this.mTerms.clear();
+    for (final K key : this.mInvertedIndex.getKeys()) {
+      this.mKeyToTermId.put(key, Integer.valueOf(this.mTerms.size()));
+      this.mTerms.add(key);
+    }
+    final double[] idfs = new double[this.mTerms.size()];
+    IntStream.range(0, idfs.length).parallel().forEach(termId -> {
+      final int keyRecordFrequency =
+          this.mInvertedIndex.getRecords(this.mTerms.get(termId)).getSize();
+      idfs[termId] =
+          MathUtil.log2((amountOfKeyRecords + 0.0) / keyRecordFrequency);
+    });
+    this.mIdfs = idfs;
+  }
+
+  /**
+   * Computes the BM25F score of the given posting.
+   * 
+   * @param idf
+   *          The inverse document frequency of the key of the posting
+   * @param posting
+   *          The posting to compute the score of, it must be fielded
+   * @return The BM25F score of the given posting
+   * @throws IllegalArgumentException
+   *           If the posting holds no term frequencies per field
+   */
+  private double computeScore(final double idf, final Posting posting) {
+    if (!posting.isFielded()) {
+      throw new IllegalArgumentException();
+    }
+    final int slot = this.mRecordSlots.getSlot(posting.getId());
+
+    // Combine the length normalized term frequencies of all fields
+    double tf = 0.0;
+    for (int field = 0; field < this.mFieldWeights.length; field++) {
+      final int fieldTf = posting.getFieldTermFrequency(field);
+      if (fieldTf == 0) {
+        continue;
+      }
+      final double fl;
+      if (slot == RecordSlots.NO_SLOT) {
+        fl = 0.0;
+      } else {
+        fl = this.mFieldSizes[field][slot];
+      }
+      final double avfl = this.mAverageFieldSizes[field];
+      final double b = this.mFieldBParameters[field];
+      tf += this.mFieldWeights[field] * fieldTf / (1 - b + b * (fl / avfl));
+    }
+
+    final double k = this.mKParameter;
+    final double tfModified = tf * (k + 1) / (k + tf);
+
+    return tfModified * idf;
+  }
+
+}
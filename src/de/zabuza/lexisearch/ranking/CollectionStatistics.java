@@ -0,0 +1,147 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Statistics of a collection of key records which ranking algorithms like
+ * {@link Bm25Ranking} depend on. They consist of the amount of records, the
+ * sum of their sizes and the amount of records each key occurs in.<br/>
+ * <br/>
+ * If records are spread over several indices, statistics of each index can
+ * be {@link #merge(Iterable) merged} into the statistics of the whole
+ * collection. Ranking each index with them gives the same scores as ranking a
+ * single index holding all records.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the key
+ */
+public final class CollectionStatistics<K> {
+  /**
+   * Merges the given statistics of disjoint parts of a collection into the
+   * statistics of the whole collection.
+   * 
+   * @param <K>
+   *          Type of the key
+   * @param statistics
+   *          The statistics of the parts, each record must only be counted by
+   *          one of them
+   * @return The statistics of the whole collection
+   */
+  public static <K> CollectionStatistics<K> merge(
+      final Iterable<CollectionStatistics<K>> statistics) {
+    long amountOfRecords = 0;
+    long totalRecordSize = 0;
+    final HashMap<K, Integer> keyRecordFrequencies = new HashMap<>();
+    for (final CollectionStatistics<K> part : statistics) {
+      amountOfRecords += part.getAmountOfRecords();
+      totalRecordSize += part.getTotalRecordSize();
+      for (final Entry<K, Integer> entry : part.mKeyRecordFrequencies
+          .entrySet()) {
+        keyRecordFrequencies.merge(entry.getKey(), entry.getValue(),
+            (first, second) -> Integer
+                .valueOf(first.intValue() + second.intValue()));
+      }
+    }
+    return new CollectionStatistics<>(amountOfRecords, totalRecordSize,
+        keyRecordFrequencies);
+  }
+
+  /**
+   * The amount of records of the collection.
+   */
+  private final long mAmountOfRecords;
+  /**
+   * The amount of records each key occurs in.
+   */
+  private final Map<K, Integer> mKeyRecordFrequencies;
+  /**
+   * The sum of the sizes of all records of the collection.
+   */
+  private final long mTotalRecordSize;
+
+  /**
+   * Creates new statistics of a collection.
+   * 
+   * @param amountOfRecords
+   *          The amount of records of the collection, must not be negative
+   * @param totalRecordSize
+   *          The sum of the sizes of all records, must not be negative
+   * @param keyRecordFrequencies
+   *          The amount of records each key occurs in, the map is copied
+   * @throws IllegalArgumentException
+   *           If the amount of records or their size is negative
+   */
+  public CollectionStatistics(final long amountOfRecords,
+      final long totalRecordSize, final Map<K, Integer> keyRecordFrequencies)
+      throws IllegalArgumentException {
+    if (amountOfRecords < 0 || totalRecordSize < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mAmountOfRecords = amountOfRecords;
+    this.mTotalRecordSize = totalRecordSize;
+    this.mKeyRecordFrequencies =
+        Collections.unmodifiableMap(new HashMap<>(keyRecordFrequencies));
+  }
+
+  /**
+   * Gets the amount of records of the collection.
+   * 
+   * @return The amount of records of the collection
+   */
+  public long getAmountOfRecords() {
+    return this.mAmountOfRecords;
+  }
+
+  /**
+   * Gets the average size of the records of the collection.
+   * 
+   * @return The average size of the records or <tt>0</tt> if the collection
+   *         is empty
+   */
+  public double getAverageRecordSize() {
+    if (this.mAmountOfRecords == 0) {
+      return 0.0;
+    }
+    return (this.mTotalRecordSize + 0.0) / this.mAmountOfRecords;
+  }
+
+  /**
+   * Gets the amount of records each key occurs in.
+   * 
+   * @return An unmodifiable map from each key to the amount of records it
+   *         occurs in
+   */
+  public Map<K, Integer> getKeyRecordFrequencies() {
+    return this.mKeyRecordFrequencies;
+  }
+
+  /**
+   * Gets the amount of records the given key occurs in.
+   * 
+   * @param key
+   *          The key to get the frequency of
+   * @return The amount of records the key occurs in, <tt>0</tt> if it does
+   *         not occur
+   */
+  public int getKeyRecordFrequency(final K key) {
+    final Integer frequency = this.mKeyRecordFrequencies.get(key);
+    if (frequency == null) {
+      return 0;
+    }
+    return frequency.intValue();
+  }
+
+  /**
+   * Gets the sum of the sizes of all records of the collection.
+   * 
+   * @return The sum of the sizes of all records
+   */
+  public long getTotalRecordSize() {
+    return this.mTotalRecordSize;
+  }
+}
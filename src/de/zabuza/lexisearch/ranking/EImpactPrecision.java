@@ -0,0 +1,52 @@
+package de.zabuza.lexisearch.ranking;
+
+/**
+ * Enumeration for the different precisions an {@link ImpactIndex} can
+ * quantize ranking scores with.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public enum EImpactPrecision {
+  /**
+   * Impacts are stored with 8 bits, i.e. one byte per posting.
+   */
+  EIGHT_BITS(1),
+  /**
+   * Impacts are stored with 16 bits, i.e. two bytes per posting.
+   */
+  SIXTEEN_BITS(2);
+
+  /**
+   * The amount of bytes one impact occupies.
+   */
+  private final int mBytesPerImpact;
+
+  /**
+   * Creates a new precision.
+   * 
+   * @param bytesPerImpact
+   *          The amount of bytes one impact occupies
+   */
+  private EImpactPrecision(final int bytesPerImpact) {
+    this.mBytesPerImpact = bytesPerImpact;
+  }
+
+  /**
+   * Gets the amount of bytes one impact occupies.
+   * 
+   * @return The amount of bytes one impact occupies
+   */
+  public int getBytesPerImpact() {
+    return this.mBytesPerImpact;
+  }
+
+  /**
+   * Gets the greatest impact which can be stored with this precision.
+   * 
+   * @return The greatest impact which can be stored with this precision
+   */
+  public int getMaximalImpact() {
+    return (1 << (Byte.SIZE * this.mBytesPerImpact)) - 1;
+  }
+}
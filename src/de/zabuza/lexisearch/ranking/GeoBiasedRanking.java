@@ -0,0 +1,391 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.GeoGridIndex;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.RecordSlots;
+import de.zabuza.lexisearch.util.MathUtil;
+import de.zabuza.lexisearch.util.RadixSort;
+
+/**
+ * Implementation of {@link IRankingProvider} which biases results towards a
+ * given focus point. It mixes the score of postings, like the prefix edit
+ * distances of fuzzy queries, with the relevance score of their records and
+ * their distance to the focus. Postings are sorted in ascending order of the
+ * cost:<br/>
+ * <br/>
+ * <tt>score + distanceWeight * log2(1 + distance)
+ * - recordScoreWeight * log2(1 + recordScore)</tt><br/>
+ * <br/>
+ * where the distance is given in kilometers by a {@link GeoGridIndex}.
+ * Records which are not located have an infinite cost, records which are no
+ * {@link IRecordScoreProvider} get the record score <tt>0</tt>.<br/>
+ * <br/>
+ * The score bonus of each record is precomputed into an array indexed by the
+ * {@link RecordSlots slots} of the record ids when taking a snapshot. The
+ * focus of a ranking can not be changed, {@link #withFocus(double, double)}
+ * creates a ranking for another focus which shares the snapshot, thus it is
+ * cheap to create one per query. When sorting, the cost of each posting is
+ * computed once and the postings are sorted by a {@link RadixSort} over the
+ * costs, instead of computing the distances again for every comparison.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          The type of the key
+ */
+public final class GeoBiasedRanking<K> implements ITopKRankingProvider<K> {
+  /**
+   * The default weight of the distance to the focus.
+   */
+  public static final double DEFAULT_DISTANCE_WEIGHT = 0.25;
+  /**
+   * The default weight of the relevance score of records.
+   */
+  public static final double DEFAULT_RECORD_SCORE_WEIGHT = 0.1;
+
+  /**
+   * Converts the given cost into a sort key. Sort keys compared as unsigned
+   * values are in the same order as the costs compared by
+   * {@link Double#compare(double, double)}.
+   * 
+   * @param cost
+   *          The cost to convert
+   * @return The sort key of the cost
+   */
+  private static long toSortKey(final double cost) {
+    final long bits = Double.doubleToLongBits(cost);
+    if (bits < 0) {
+      // Flipping all bits reverses the order of negative values
+      return ~bits;
+    }
+    return bits ^ Long.MIN_VALUE;
+  }
+
+  /**
+   * The weight of the distance to the focus.
+   */
+  private final double mDistanceWeight;
+  /**
+   * The latitude of the focus in degrees.
+   */
+  private final double mFocusLatitude;
+  /**
+   * The longitude of the focus in degrees.
+   */
+  private final double mFocusLongitude;
+  /**
+   * The unit vector of the focus, as given by
+   * {@link GeoGridIndex#toUnitVector(double, double)}.
+   */
+  private final double[] mFocusUnitVector;
+  /**
+   * The spatial index which provides the distances of records.
+   */
+  private final GeoGridIndex mGeoIndex;
+  /**
+   * The current inverted index to use.
+   */
+  private IInvertedIndex<K> mInvertedIndex;
+  /**
+   * The current set of key records to use.
+   */
+  private IKeyRecordSet<IKeyRecord<K>, K> mKeyRecords;
+  /**
+   * The comparator which sorts postings by their cost in ascending order.
+   */
+  private final Comparator<Posting> mRankComparator;
+  /**
+   * The weighted bonus of the relevance score of each record, indexed by the
+   * slot of its record id.
+   */
+  private double[] mRecordScoreBoni;
+  /**
+   * The slots of the record ids of the key records.
+   */
+  private RecordSlots mRecordSlots;
+  /**
+   * The weight of the relevance score of records.
+   */
+  private final double mRecordScoreWeight;
+
+  /**
+   * Creates a new geo-biased ranking with default weights. Use
+   * {@link #takeSnapshot(IInvertedIndex, IKeyRecordSet)} as initialization and
+   * then get rankings by {@link #getRankingScore(Object, Posting)} or
+   * {@link #sortPostingsByRank(List)}.
+   * 
+   * @param geoIndex
+   *          The spatial index which provides the distances of records
+   * @param focusLatitude
+   *          The latitude of the focus in degrees
+   * @param focusLongitude
+   *          The longitude of the focus in degrees
+   */
+  public GeoBiasedRanking(final GeoGridIndex geoIndex,
+      final double focusLatitude, final double focusLongitude) {
+    this(geoIndex, focusLatitude, focusLongitude, DEFAULT_DISTANCE_WEIGHT,
+        DEFAULT_RECORD_SCORE_WEIGHT);
+  }
+
+  /**
+   * Creates a new geo-biased ranking with given weights. Use
+   * {@link #takeSnapshot(IInvertedIndex, IKeyRecordSet)} as initialization and
+   * then get rankings by {@link #getRankingScore(Object, Posting)} or
+   * {@link #sortPostingsByRank(List)}.
+   * 
+   * @param geoIndex
+   *          The spatial index which provides the distances of records
+   * @param focusLatitude
+   *          The latitude of the focus in degrees
+   * @param focusLongitude
+   *          The longitude of the focus in degrees
+   * @param distanceWeight
+   *          The weight of the distance to the focus
+   * @param recordScoreWeight
+   *          The weight of the relevance score of records
+   */
+  public GeoBiasedRanking(final GeoGridIndex geoIndex,
+      final double focusLatitude, final double focusLongitude,
+      final double distanceWeight, final double recordScoreWeight) {
+    this.mGeoIndex = geoIndex;
+    this.mFocusLatitude = focusLatitude;
+    this.mFocusLongitude = focusLongitude;
+    this.mFocusUnitVector =
+        GeoGridIndex.toUnitVector(focusLatitude, focusLongitude);
+    this.mDistanceWeight = distanceWeight;
+    this.mRecordScoreWeight = recordScoreWeight;
+    this.mRecordScoreBoni = new double[0];
+    this.mRecordSlots = RecordSlots.forIds(new int[0]);
+    this.mRankComparator = Comparator.comparingDouble(this::computeCost);
+  }
+
+  /**
+   * Gets the weight of the distance to the focus.
+   * 
+   * @return The weight of the distance to the focus
+   */
+  public double getDistanceWeight() {
+    return this.mDistanceWeight;
+  }
+
+  /**
+   * Gets the latitude of the focus.
+   * 
+   * @return The latitude of the focus in degrees
+   */
+  public double getFocusLatitude() {
+    return this.mFocusLatitude;
+  }
+
+  /**
+   * Gets the longitude of the focus.
+   * 
+   * @return The longitude of the focus in degrees
+   */
+  public double getFocusLongitude() {
+    return this.mFocusLongitude;
+  }
+
+  /**
+   * Gets the spatial index which provides the distances of records.
+   * 
+   * @return The spatial index which provides the distances of records
+   */
+  public GeoGridIndex getGeoIndex() {
+    return this.mGeoIndex;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#getInvertedIndex()
+   */
+  @Override
+  public IInvertedIndex<K> getInvertedIndex() {
+    return this.mInvertedIndex;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#getKeyRecords()
+   */
+  @Override
+  public IKeyRecordSet<IKeyRecord<K>, K> getKeyRecords() {
+    return this.mKeyRecords;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.ITopKRankingProvider#getRankComparator()
+   */
+  @Override
+  public Comparator<Posting> getRankComparator() {
+    return this.mRankComparator;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.ranking.IRankingProvider#getRankingScore(java.lang.
+   * Object, de.zabuza.lexisearch.indexing.Posting)
+   */
+  @Override
+  public double getRankingScore(final K key, final Posting posting) {
+    return computeCost(posting);
+  }
+
+  /**
+   * Gets the weight of the relevance score of records.
+   * 
+   * @return The weight of the relevance score of records
+   */
+  public double getRecordScoreWeight() {
+    return this.mRecordScoreWeight;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#setRankingScoreToIndex()
+   */
+  @Override
+  public void setRankingScoreToIndex() {
+    // Do nothing as the cost depends on the focus, the score of the index
+    // stays the base of the cost
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.ranking.IRankingProvider#sortPostingsByRank(java.util.
+   * List)
+   */
+  @Override
+  public void sortPostingsByRank(final List<Posting> postings) {
+    final int size = postings.size();
+    final long[] sortKeys = new long[size];
+    final int[] indices = new int[size];
+    final Posting[] unsortedPostings = postings.toArray(new Posting[size]);
+    for (int i = 0; i < size; i++) {
+      sortKeys[i] = toSortKey(computeCost(unsortedPostings[i]));
+      indices[i] = i;
+    }
+
+    RadixSort.sort(sortKeys, indices);
+    for (int i = 0; i < size; i++) {
+      postings.set(i, unsortedPostings[indices[i]]);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.ranking.ITopKRankingProvider#sortTopPostingsByRank(
+   * java.util.List, int)
+   */
+  @Override
+  public void sortTopPostingsByRank(final List<Posting> postings,
+      final int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    // The radix sort is linear, thus selecting with a heap does not pay off
+    sortPostingsByRank(postings);
+    if (limit < postings.size()) {
+      postings.subList(limit, postings.size()).clear();
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.IRankingProvider#takeSnapshot(de.zabuza.
+   * lexisearch.indexing.IInvertedIndex,
+   * de.zabuza.lexisearch.indexing.IKeyRecordSet)
+   */
+  @Override
+  public void takeSnapshot(final IInvertedIndex<K> invertedIndex,
+      final IKeyRecordSet<IKeyRecord<K>, K> keyRecords) {
+    this.mInvertedIndex = invertedIndex;
+    this.mKeyRecords = keyRecords;
+
+    final ArrayList<IKeyRecord<K>> records = new ArrayList<>();
+    for (final IKeyRecord<K> keyRecord : keyRecords) {
+      records.add(keyRecord);
+    }
+    final int[] recordIds = new int[records.size()];
+    for (int i = 0; i < recordIds.length; i++) {
+      recordIds[i] = records.get(i).getRecordId();
+    }
+    final RecordSlots recordSlots = RecordSlots.forIds(recordIds);
+    final double[] recordScoreBoni =
+        new double[recordSlots.getAmountOfSlots()];
+    for (final IKeyRecord<K> keyRecord : records) {
+      if (keyRecord instanceof IRecordScoreProvider) {
+        final int recordScore =
+            Math.max(0, ((IRecordScoreProvider) keyRecord).getScore());
+        recordScoreBoni[recordSlots.getSlot(keyRecord.getRecordId())] =
+            this.mRecordScoreWeight * MathUtil.log2(1.0 + recordScore);
+      }
+    }
+    this.mRecordSlots = recordSlots;
+    this.mRecordScoreBoni = recordScoreBoni;
+  }
+
+  /**
+   * Creates a ranking with the weights and the snapshot of this ranking but
+   * the given focus. The snapshot is shared, not copied.
+   * 
+   * @param focusLatitude
+   *          The latitude of the focus in degrees
+   * @param focusLongitude
+   *          The longitude of the focus in degrees
+   * @return A ranking which biases results towards the given focus
+   */
+  public GeoBiasedRanking<K> withFocus(final double focusLatitude,
+      final double focusLongitude) {
+    final GeoBiasedRanking<K> ranking =
+        new GeoBiasedRanking<>(this.mGeoIndex, focusLatitude, focusLongitude,
+            this.mDistanceWeight, this.mRecordScoreWeight);
+    ranking.mInvertedIndex = this.mInvertedIndex;
+    ranking.mKeyRecords = this.mKeyRecords;
+    ranking.mRecordSlots = this.mRecordSlots;
+    ranking.mRecordScoreBoni = this.mRecordScoreBoni;
+    return ranking;
+  }
+
+  /**
+   * Computes the cost of the given posting, postings with a lower cost are
+   * ranked better.
+   * 
+   * @param posting
+   *          The posting to compute the cost of
+   * @return The cost of the posting
+   */
+  private double computeCost(final Posting posting) {
+    final int recordId = posting.getId();
+    double cost = posting.getScore();
+    if (this.mDistanceWeight != 0.0) {
+      final double distance =
+          this.mGeoIndex.getDistance(recordId, this.mFocusUnitVector);
+      cost += this.mDistanceWeight * MathUtil.log2(1.0 + distance);
+    }
+    final int slot = this.mRecordSlots.getSlot(recordId);
+    if (slot != RecordSlots.NO_SLOT) {
+      cost -= this.mRecordScoreBoni[slot];
+    }
+    return cost;
+  }
+}
@@ -51,7 +51,8 @@ public interface IRankingProvider<K> {
    * Computes and sets the ranking score to each key-Posting pair in the current
    * inverted index, given by {@link #getInvertedIndex()}, according to the
    * implementing ranking algorithm. The score is set by using
-   * {@link Posting#setScore(double)}.
+   * {@link Posting#setScore(double)}. Implementations which change scores
+   * call {@link IInvertedIndex#markModified()} afterwards.
    */
   void setRankingScoreToIndex();
 
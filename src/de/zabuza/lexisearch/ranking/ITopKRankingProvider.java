@@ -0,0 +1,44 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.Comparator;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.Posting;
+
+/**
+ * Ranking provider which sorts postings by a {@link Comparator} and thus can
+ * select the best ranked postings of a list without sorting all of them.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the key
+ */
+public interface ITopKRankingProvider<K> extends IRankingProvider<K> {
+  /**
+   * Gets the comparator which {@link #sortPostingsByRank(List)} sorts
+   * postings with. Postings which are ranked better are smaller.
+   * 
+   * @return The comparator which defines the ranking order of postings
+   */
+  Comparator<Posting> getRankComparator();
+
+  /**
+   * Sorts the given list of postings by their rank and removes all but the
+   * best ranked postings. The result is identical to the first postings of
+   * the list after {@link #sortPostingsByRank(List)}, including the order of
+   * postings with equal rank. The best postings are selected with a heap of
+   * the given size, thus only they get sorted.
+   * 
+   * @param postings
+   *          The list of postings to sort and shrink
+   * @param limit
+   *          The maximal amount of postings to keep, must not be negative
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  default void sortTopPostingsByRank(final List<Posting> postings,
+      final int limit) {
+    TopKSelector.selectTop(postings, getRankComparator(), limit);
+  }
+}
@@ -0,0 +1,339 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.Posting;
+
+/**
+ * Index which stores the precomputed ranking score of every key and record as
+ * quantized integer, called impact. All scores of the index share one scale,
+ * such that the score of a record is approximated by the sum of its impacts
+ * times the scale. Thus scoring at query time only needs integer additions
+ * and each posting occupies an id and one or two bytes instead of a
+ * {@link Posting} object.<br/>
+ * <br/>
+ * The index is a snapshot, it does not reflect later modifications of the
+ * inverted index it was created from. Searches in this mode are provided by
+ * {@link de.zabuza.lexisearch.queries.ImpactQuery}, which keeps the snapshot
+ * up to date.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the key
+ */
+public final class ImpactIndex<K> {
+  /**
+   * The factor by which the id range of a search may exceed the amount of its
+   * postings such that impacts are still accumulated in arrays spanning the
+   * range.
+   */
+  private static final int DENSE_RANGE_FACTOR = 4;
+
+  /**
+   * Creates an impact index from the given ranking provider. It quantizes the
+   * scores {@link IRankingProvider#getRankingScore(Object, Posting)} gives for
+   * all postings of the inverted index of the provider. The scale is chosen
+   * such that the greatest score maps to the maximal impact of the precision.
+   * 
+   * @param <K>
+   *          Type of the key
+   * @param ranking
+   *          The ranking provider to get scores from, a snapshot must have
+   *          been taken already
+   * @param precision
+   *          The precision to quantize scores with
+   * @return The created impact index
+   */
+  public static <K> ImpactIndex<K> createFromRanking(
+      final IRankingProvider<K> ranking, final EImpactPrecision precision) {
+    final IInvertedIndex<K> invertedIndex = ranking.getInvertedIndex();
+
+    // Compute all scores first as the scale depends on the greatest one
+    final HashMap<K, int[]> keyToIds = new HashMap<>();
+    final HashMap<K, double[]> keyToScores = new HashMap<>();
+    double maximalScore = 0.0;
+    for (final K key : invertedIndex.getKeys()) {
+      final IInvertedList records = invertedIndex.getRecords(key);
+      final int[] ids = new int[records.getSize()];
+      final double[] scores = new double[records.getSize()];
+      int i = 0;
+      for (final Posting posting : records.getPostings()) {
+        ids[i] = posting.getId();
+        scores[i] = ranking.getRankingScore(key, posting);
+        maximalScore = Math.max(maximalScore, scores[i]);
+        i++;
+      }
+      keyToIds.put(key, ids);
+      keyToScores.put(key, scores);
+    }
+
+    final int maximalImpact = precision.getMaximalImpact();
+    final double scale;
+    if (maximalScore > 0.0) {
+      scale = maximalScore / maximalImpact;
+    } else {
+      scale = 0.0;
+    }
+
+    final HashMap<K, ImpactList> keyToImpacts = new HashMap<>();
+    for (final K key : keyToIds.keySet()) {
+      final double[] scores = keyToScores.get(key);
+      final int[] impacts = new int[scores.length];
+      if (scale > 0.0) {
+        for (int i = 0; i < scores.length; i++) {
+          final long impact = Math.round(scores[i] / scale);
+          impacts[i] = (int) Math.max(0, Math.min(maximalImpact, impact));
+        }
+      }
+      keyToImpacts.put(key,
+          new ImpactList(keyToIds.get(key), impacts, precision));
+    }
+    return new ImpactIndex<>(keyToImpacts, precision, scale);
+  }
+
+  /**
+   * Map which connects keys to their impact lists.
+   */
+  private final HashMap<K, ImpactList> mKeyToImpacts;
+  /**
+   * The precision of the impacts.
+   */
+  private final EImpactPrecision mPrecision;
+  /**
+   * The score one impact unit represents.
+   */
+  private final double mScale;
+  /**
+   * The comparator to use which sorts postings by their score in descending
+   * order.
+   */
+  private final ScoreComparator mScoreComparator;
+
+  /**
+   * Creates a new impact index.
+   * 
+   * @param keyToImpacts
+   *          Map which connects keys to their impact lists
+   * @param precision
+   *          The precision of the impacts
+   * @param scale
+   *          The score one impact unit represents
+   */
+  private ImpactIndex(final HashMap<K, ImpactList> keyToImpacts,
+      final EImpactPrecision precision, final double scale) {
+    this.mKeyToImpacts = keyToImpacts;
+    this.mPrecision = precision;
+    this.mScale = scale;
+    this.mScoreComparator = new ScoreComparator();
+  }
+
+  /**
+   * Gets the impacts of the records of the given key.
+   * 
+   * @param key
+   *          The key to get impacts for
+   * @return The impacts of the records of the given key or <tt>null</tt> if
+   *         the key is not contained
+   */
+  public ImpactList getImpacts(final K key) {
+    return this.mKeyToImpacts.get(key);
+  }
+
+  /**
+   * Gets the precision of the impacts.
+   * 
+   * @return The precision of the impacts
+   */
+  public EImpactPrecision getPrecision() {
+    return this.mPrecision;
+  }
+
+  /**
+   * Gets the score one impact unit represents.
+   * 
+   * @return The score one impact unit represents
+   */
+  public double getScale() {
+    return this.mScale;
+  }
+
+  /**
+   * Searches by combining each given keyword with an logical <tt>or</tt>. The
+   * impacts of all records are accumulated as integers over the id range of
+   * the records of the keywords.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @return A list containing all records where at least one of the given
+   *         keywords occurs, sorted by their score in descending order and
+   *         by their id in ascending order for equal scores. The term
+   *         frequency of a posting is the amount of matching keywords, its
+   *         score the sum of its impacts converted by {@link #toScore(long)}.
+   */
+  public List<Posting> search(final Iterable<K> keys) {
+    return search(keys, EAggregateMode.UNION);
+  }
+
+  /**
+   * Searches by combining the given keywords with the given mode. The impacts
+   * of all records are accumulated as integers. If the ids of the records are
+   * dense, the accumulator is an array over their id range. Otherwise the
+   * lists get merged by their ids, such that sparse ids do not need an
+   * accumulator of the size of their range.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          The mode to combine the keywords with
+   * @return A list containing all records matching the given keywords in the
+   *         given mode, sorted by their score in descending order and by
+   *         their id in ascending order for equal scores. The term frequency
+   *         of a posting is the amount of matching keywords, its score the
+   *         sum of its impacts converted by {@link #toScore(long)}.
+   */
+  public List<Posting> search(final Iterable<K> keys,
+      final EAggregateMode mode) {
+    final ArrayList<ImpactList> operands = new ArrayList<>();
+    long amountOfPostings = 0;
+    int firstId = Integer.MAX_VALUE;
+    int lastId = Integer.MIN_VALUE;
+    for (final K key : keys) {
+      final ImpactList impacts = this.mKeyToImpacts.get(key);
+      if (impacts == null || impacts.getSize() == 0) {
+        if (mode == EAggregateMode.INTERSECT) {
+          // No record can match all keywords
+          return Collections.emptyList();
+        }
+        continue;
+      }
+      operands.add(impacts);
+      amountOfPostings += impacts.getSize();
+      firstId = Math.min(firstId, impacts.getId(0));
+      lastId = Math.max(lastId, impacts.getId(impacts.getSize() - 1));
+    }
+    if (operands.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final int minimalMatches;
+    if (mode == EAggregateMode.INTERSECT) {
+      minimalMatches = operands.size();
+    } else {
+      minimalMatches = 1;
+    }
+    final ArrayList<Posting> results;
+    final long range = (long) lastId - firstId + 1;
+    if (range <= amountOfPostings * DENSE_RANGE_FACTOR) {
+      results = accumulateDense(operands, firstId, (int) range,
+          minimalMatches);
+    } else {
+      results = accumulateSparse(operands, minimalMatches);
+    }
+    // The sort is stable, thus equal scores keep the ascending ids
+    Collections.sort(results, this.mScoreComparator.reversed());
+    return results;
+  }
+
+  /**
+   * Converts the given sum of impacts back into an approximated score.
+   * 
+   * @param impactSum
+   *          The sum of impacts to convert
+   * @return The approximated score of the given sum of impacts
+   */
+  public double toScore(final long impactSum) {
+    return impactSum * this.mScale;
+  }
+
+  /**
+   * Accumulates the impacts of the given lists in arrays spanning the given
+   * id range.
+   * 
+   * @param operands
+   *          The lists to accumulate, not empty
+   * @param firstId
+   *          The smallest id of all lists
+   * @param range
+   *          The amount of ids between the smallest and the greatest id of
+   *          all lists, both inclusive
+   * @param minimalMatches
+   *          The amount of lists a record must be contained in to be a result
+   * @return The resulting postings in ascending order of their ids
+   */
+  private ArrayList<Posting> accumulateDense(
+      final List<ImpactList> operands, final int firstId, final int range,
+      final int minimalMatches) {
+    final long[] impactSums = new long[range];
+    final int[] matches = new int[range];
+    for (final ImpactList impacts : operands) {
+      for (int i = 0; i < impacts.getSize(); i++) {
+        final int offset = impacts.getId(i) - firstId;
+        impactSums[offset] += impacts.getImpact(i);
+        matches[offset]++;
+      }
+    }
+
+    final ArrayList<Posting> results = new ArrayList<>();
+    for (int offset = 0; offset < range; offset++) {
+      if (matches[offset] >= minimalMatches) {
+        results.add(new Posting(firstId + offset, matches[offset],
+            toScore(impactSums[offset])));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Accumulates the impacts of the given lists by merging them in ascending
+   * order of their ids.
+   * 
+   * @param operands
+   *          The lists to accumulate, not empty
+   * @param minimalMatches
+   *          The amount of lists a record must be contained in to be a result
+   * @return The resulting postings in ascending order of their ids
+   */
+  private ArrayList<Posting> accumulateSparse(
+      final List<ImpactList> operands, final int minimalMatches) {
+    final int amountOfOperands = operands.size();
+    final int[] positions = new int[amountOfOperands];
+    final ArrayList<Posting> results = new ArrayList<>();
+    while (true) {
+      // Find the smallest id not visited yet
+      int currentId = Integer.MAX_VALUE;
+      boolean hasRemainingPostings = false;
+      for (int i = 0; i < amountOfOperands; i++) {
+        final ImpactList impacts = operands.get(i);
+        if (positions[i] < impacts.getSize()) {
+          currentId = Math.min(currentId, impacts.getId(positions[i]));
+          hasRemainingPostings = true;
+        }
+      }
+      if (!hasRemainingPostings) {
+        return results;
+      }
+
+      long impactSum = 0;
+      int matches = 0;
+      for (int i = 0; i < amountOfOperands; i++) {
+        final ImpactList impacts = operands.get(i);
+        if (positions[i] < impacts.getSize()
+            && impacts.getId(positions[i]) == currentId) {
+          impactSum += impacts.getImpact(positions[i]);
+          matches++;
+          positions[i]++;
+        }
+      }
+      if (matches >= minimalMatches) {
+        results.add(new Posting(currentId, matches, toScore(impactSum)));
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package de.zabuza.lexisearch.ranking;
+
+/**
+ * Immutable list of the records of a key together with their quantized
+ * ranking scores, called impacts. The postings are packed inline into a
+ * single byte array in ascending order of their record ids, each one
+ * consisting of the record id followed by its impact with the amount of bytes
+ * given by their {@link EImpactPrecision}. Lists get created by
+ * {@link ImpactIndex}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ImpactList {
+  /**
+   * Mask which extracts the unsigned value of a byte.
+   */
+  private static final int BYTE_MASK = 0xFF;
+
+  /**
+   * Reads the big-endian value of the given amount of bytes starting at the
+   * given offset.
+   * 
+   * @param bytes
+   *          The bytes to read from
+   * @param offset
+   *          The offset of the first byte of the value
+   * @param length
+   *          The amount of bytes of the value
+   * @return The value
+   */
+  private static int readValue(final byte[] bytes, final int offset,
+      final int length) {
+    int value = 0;
+    for (int j = 0; j < length; j++) {
+      value = (value << Byte.SIZE) | (bytes[offset + j] & BYTE_MASK);
+    }
+    return value;
+  }
+
+  /**
+   * Writes the given value big-endian into the given amount of bytes starting
+   * at the given offset.
+   * 
+   * @param bytes
+   *          The bytes to write to
+   * @param offset
+   *          The offset of the first byte of the value
+   * @param length
+   *          The amount of bytes of the value
+   * @param value
+   *          The value to write
+   */
+  private static void writeValue(final byte[] bytes, final int offset,
+      final int length, final int value) {
+    for (int j = 0; j < length; j++) {
+      final int shift = Byte.SIZE * (length - j - 1);
+      bytes[offset + j] = (byte) (value >>> shift);
+    }
+  }
+
+  /**
+   * The greatest impact of this list.
+   */
+  private final int mMaximalImpact;
+  /**
+   * The packed postings, each one an id followed by its impact, in ascending
+   * order of the ids.
+   */
+  private final byte[] mPostings;
+  /**
+   * The amount of bytes one posting occupies.
+   */
+  private final int mPostingSize;
+  /**
+   * The precision of the impacts.
+   */
+  private final EImpactPrecision mPrecision;
+
+  /**
+   * Creates a new impact list.
+   * 
+   * @param ids
+   *          The record ids in ascending order
+   * @param impacts
+   *          The impacts of the records, in the order of the record ids. Each
+   *          impact must lie between <tt>0</tt> and the maximal impact of the
+   *          precision, both inclusive.
+   * @param precision
+   *          The precision to store the impacts with
+   * @throws IllegalArgumentException
+   *           If the amount of ids and impacts differs or an impact is out of
+   *           range
+   */
+  ImpactList(final int[] ids, final int[] impacts,
+      final EImpactPrecision precision) {
+    if (ids.length != impacts.length) {
+      throw new IllegalArgumentException();
+    }
+    final int bytesPerImpact = precision.getBytesPerImpact();
+    final int postingSize = Integer.BYTES + bytesPerImpact;
+    final byte[] postings = new byte[impacts.length * postingSize];
+    int maximalImpact = 0;
+    for (int i = 0; i < impacts.length; i++) {
+      final int impact = impacts[i];
+      if (impact < 0 || impact > precision.getMaximalImpact()) {
+        throw new IllegalArgumentException();
+      }
+      final int offset = i * postingSize;
+      writeValue(postings, offset, Integer.BYTES, ids[i]);
+      writeValue(postings, offset + Integer.BYTES, bytesPerImpact, impact);
+      maximalImpact = Math.max(maximalImpact, impact);
+    }
+
+    this.mPostings = postings;
+    this.mPostingSize = postingSize;
+    this.mMaximalImpact = maximalImpact;
+    this.mPrecision = precision;
+  }
+
+  /**
+   * Gets the amount of bytes the ids and impacts of this list occupy.
+   * 
+   * @return The amount of bytes the ids and impacts of this list occupy
+   */
+  public int getByteSize() {
+    return this.mPostings.length;
+  }
+
+  /**
+   * Gets the record id at the given index.
+   * 
+   * @param index
+   *          The index of the record, between <tt>0</tt> inclusive and
+   *          {@link #getSize()} exclusive
+   * @return The record id at the given index
+   */
+  public int getId(final int index) {
+    return readValue(this.mPostings, index * this.mPostingSize,
+        Integer.BYTES);
+  }
+
+  /**
+   * Gets the impact of the record at the given index.
+   * 
+   * @param index
+   *          The index of the record, between <tt>0</tt> inclusive and
+   *          {@link #getSize()} exclusive
+   * @return The impact of the record at the given index
+   */
+  public int getImpact(final int index) {
+    return readValue(this.mPostings,
+        index * this.mPostingSize + Integer.BYTES,
+        this.mPrecision.getBytesPerImpact());
+  }
+
+  /**
+   * Gets the greatest impact of this list. It is an upper bound for the
+   * contribution of this list to the score of any record, which allows
+   * pruning of records that can not reach a given score.
+   * 
+   * @return The greatest impact of this list or <tt>0</tt> if it is empty
+   */
+  public int getMaximalImpact() {
+    return this.mMaximalImpact;
+  }
+
+  /**
+   * Gets the precision of the impacts.
+   * 
+   * @return The precision of the impacts
+   */
+  public EImpactPrecision getPrecision() {
+    return this.mPrecision;
+  }
+
+  /**
+   * Gets the amount of records in this list.
+   * 
+   * @return The amount of records in this list
+   */
+  public int getSize() {
+    return this.mPostings.length / this.mPostingSize;
+  }
+}
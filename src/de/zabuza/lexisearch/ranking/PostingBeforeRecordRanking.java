@@ -1,19 +1,35 @@
 package de.zabuza.lexisearch.ranking;
 
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
 import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.RecordSlots;
+import de.zabuza.lexisearch.util.RadixSort;
 
 /**
  * Generic implementation of {@link IRankingProvider} which ranks postings first
  * by their score, given with {@link Posting#getScore()}, in ascending order and
  * second by the score of their records, if present, in descending order which
  * are given by {@link Posting#getId()} and
- * {@link IKeyRecordSet#getKeyRecordById(int)}.
+ * {@link IKeyRecordSet#getKeyRecordById(int)}.<br/>
+ * <br/>
+ * The scores of the records are copied into an array indexed by the
+ * {@link RecordSlots slots} of their record ids when taking a snapshot. Like
+ * in {@link PostingBeforeRecordComparator}, the record scores are only
+ * compared if both records are an
+ * {@link IRecordScoreProvider}, otherwise postings with equal scores are
+ * ranked equal and keep their order. Postings whose score is a non-negative
+ * integer, like the prefix edit distances of fuzzy queries, are sorted by one
+ * packed <tt>long</tt> key per posting, which holds the posting score in the
+ * high bits and the inverted record score in the low bits, with a stable
+ * {@link RadixSort}. Other postings, and postings of which only some records
+ * have a score, are sorted by comparing them.
  * 
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
  *
@@ -21,7 +37,35 @@ import de.zabuza.lexisearch.indexing.Posting;
  *          The type of the key
  */
 public final class PostingBeforeRecordRanking<K>
-    implements IRankingProvider<K> {
+    implements ITopKRankingProvider<K> {
+  /**
+   * Mask which extracts the lower half of a sort key.
+   */
+  private static final long LOWER_HALF_MASK = 0xFFFFFFFFL;
+  /**
+   * The greatest posting score which can be packed into a sort key.
+   */
+  private static final double MAXIMAL_PACKED_SCORE = Integer.MAX_VALUE;
+
+  /**
+   * Packs the given scores into a key such that keys are ascending in the
+   * order of the ranking. The posting score occupies the upper half, the
+   * record score the lower half with its order reversed.
+   * 
+   * @param postingScore
+   *          The score of the posting, must not be negative
+   * @param recordScore
+   *          The score of the record
+   * @return The packed sort key, it is not negative
+   */
+  private static long packSortKey(final int postingScore,
+      final int recordScore) {
+    // Flipping all bits but the sign bit reverses the order and maps it to
+    // the order of unsigned values
+    final long invertedRecordScore =
+        (recordScore ^ Integer.MAX_VALUE) & LOWER_HALF_MASK;
+    return ((long) postingScore << Integer.SIZE) | invertedRecordScore;
+  }
 
   /**
    * The current inverted index to use.
@@ -32,11 +76,24 @@ public final class PostingBeforeRecordRanking<K>
    */
   private IKeyRecordSet<IKeyRecord<K>, K> mKeyRecords;
   /**
-   * The comparator to use which sorts postings first by their ranking score in
-   * ascending order and second by the score of their records, if present, in
-   * descending order.
+   * The comparator which sorts postings first by their ranking score in
+   * ascending order and second by the score of their records in descending
+   * order.
    */
-  private PostingBeforeRecordComparator<IKeyRecord<K>, K> mScoreComparator;
+  private final Comparator<Posting> mRankComparator;
+  /**
+   * The score of each record, indexed by the slot of its record id.
+   */
+  private int[] mRecordScores;
+  /**
+   * The slots of the record ids of all records which have a score.
+   */
+  private RecordSlots mRecordSlots;
+  /**
+   * The slots of all records which have a score, i.e. which are an
+   * {@link IRecordScoreProvider}.
+   */
+  private BitSet mScoredRecords;
 
   /**
    * Creates a new posting before record ranking object. Use
@@ -45,7 +102,10 @@ public final class PostingBeforeRecordRanking<K>
    * {@link #setRankingScoreToIndex()}.
    */
   public PostingBeforeRecordRanking() {
-    this.mScoreComparator = null;
+    this.mRecordScores = new int[0];
+    this.mRecordSlots = RecordSlots.forIds(new int[0]);
+    this.mScoredRecords = new BitSet();
+    this.mRankComparator = this::compareByRank;
   }
 
   /*
@@ -68,6 +128,16 @@ public final class PostingBeforeRecordRanking<K>
     return this.mKeyRecords;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.ranking.ITopKRankingProvider#getRankComparator()
+   */
+  @Override
+  public Comparator<Posting> getRankComparator() {
+    return this.mRankComparator;
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -80,6 +150,62 @@ public final class PostingBeforeRecordRanking<K>
     return posting.getScore();
   }
 
+  /**
+   * Gets the score of the record with the given id from the snapshot.
+   * 
+   * @param recordId
+   *          The id of the record
+   * @return The score of the record or <tt>0</tt> if it has none
+   */
+  public int getRecordScore(final int recordId) {
+    final int slot = this.mRecordSlots.getSlot(recordId);
+    if (slot == RecordSlots.NO_SLOT) {
+      return 0;
+    }
+    return this.mRecordScores[slot];
+  }
+
+  /**
+   * Whether the record with the given id has a score in the snapshot.
+   * 
+   * @param recordId
+   *          The id of the record
+   * @return <tt>True</tt> if the record has a score, <tt>false</tt> otherwise
+   */
+  public boolean hasRecordScore(final int recordId) {
+    final int slot = this.mRecordSlots.getSlot(recordId);
+    return slot != RecordSlots.NO_SLOT && this.mScoredRecords.get(slot);
+  }
+
+  /**
+   * Restores a snapshot that was taken before, for example one saved together
+   * with the index. Unlike {@link #takeSnapshot(IInvertedIndex, IKeyRecordSet)}
+   * it does not iterate the key records.
+   * 
+   * @param invertedIndex
+   *          The inverted index the snapshot was taken of
+   * @param keyRecords
+   *          The set of key records the snapshot was taken of
+   * @param recordIds
+   *          The ids of the records which have a score, as given by
+   *          {@link #hasRecordScore(int)}
+   * @param scores
+   *          The scores of the records, parallel to the given ids, as given
+   *          by {@link #getRecordScore(int)}
+   * @throws IllegalArgumentException
+   *           If the amount of ids and scores differ
+   */
+  public void restoreSnapshot(final IInvertedIndex<K> invertedIndex,
+      final IKeyRecordSet<IKeyRecord<K>, K> keyRecords, final int[] recordIds,
+      final int[] scores) throws IllegalArgumentException {
+    if (recordIds.length != scores.length) {
+      throw new IllegalArgumentException();
+    }
+    this.mInvertedIndex = invertedIndex;
+    this.mKeyRecords = keyRecords;
+    setRecordScores(recordIds, scores);
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -99,7 +225,57 @@ public final class PostingBeforeRecordRanking<K>
    */
   @Override
   public void sortPostingsByRank(final List<Posting> postings) {
-    Collections.sort(postings, this.mScoreComparator);
+    final int size = postings.size();
+    final long[] sortKeys = new long[size];
+    final int[] indices = new int[size];
+    final Posting[] unsortedPostings = postings.toArray(new Posting[size]);
+    int amountOfScoredRecords = 0;
+    for (int i = 0; i < size; i++) {
+      final double postingScore = unsortedPostings[i].getScore();
+      if (!(postingScore >= 0.0 && postingScore <= MAXIMAL_PACKED_SCORE)
+          || postingScore != Math.rint(postingScore)) {
+        // The score does not fit into a sort key
+        Collections.sort(postings, this.mRankComparator);
+        return;
+      }
+      final int recordId = unsortedPostings[i].getId();
+      if (hasRecordScore(recordId)) {
+        amountOfScoredRecords++;
+      }
+      sortKeys[i] = packSortKey((int) postingScore, getRecordScore(recordId));
+      indices[i] = i;
+    }
+    if (amountOfScoredRecords != 0 && amountOfScoredRecords != size) {
+      // Records without score are equal to all others, which keys can not
+      // express
+      Collections.sort(postings, this.mRankComparator);
+      return;
+    }
+
+    RadixSort.sort(sortKeys, indices);
+    for (int i = 0; i < size; i++) {
+      postings.set(i, unsortedPostings[indices[i]]);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.ranking.ITopKRankingProvider#sortTopPostingsByRank(
+   * java.util.List, int)
+   */
+  @Override
+  public void sortTopPostingsByRank(final List<Posting> postings,
+      final int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    // The radix sort is linear, thus selecting with a heap does not pay off
+    sortPostingsByRank(postings);
+    if (limit < postings.size()) {
+      postings.subList(limit, postings.size()).clear();
+    }
   }
 
   /*
@@ -114,11 +290,72 @@ public final class PostingBeforeRecordRanking<K>
       final IKeyRecordSet<IKeyRecord<K>, K> keyRecords) {
     this.mInvertedIndex = invertedIndex;
     this.mKeyRecords = keyRecords;
-    if (this.mScoreComparator == null) {
-      this.mScoreComparator =
-          new PostingBeforeRecordComparator<>(this.mKeyRecords);
-    } else {
-      this.mScoreComparator.setKeyRecords(this.mKeyRecords);
+
+    int amountOfScoredRecords = 0;
+    for (final IKeyRecord<K> keyRecord : keyRecords) {
+      if (keyRecord instanceof IRecordScoreProvider) {
+        amountOfScoredRecords++;
+      }
+    }
+    final int[] recordIds = new int[amountOfScoredRecords];
+    final int[] scores = new int[amountOfScoredRecords];
+    int i = 0;
+    for (final IKeyRecord<K> keyRecord : keyRecords) {
+      if (keyRecord instanceof IRecordScoreProvider) {
+        recordIds[i] = keyRecord.getRecordId();
+        scores[i] = ((IRecordScoreProvider) keyRecord).getScore();
+        i++;
+      }
+    }
+    setRecordScores(recordIds, scores);
+  }
+
+  /**
+   * Compares the given postings first by their score in ascending order and
+   * second by the score of their records in descending order, if both records
+   * have a score.
+   * 
+   * @param first
+   *          The first posting to compare
+   * @param second
+   *          The second posting to compare
+   * @return A negative integer, zero, or a positive integer as the first
+   *         posting is ranked better than, equal to, or worse than the second
+   */
+  private int compareByRank(final Posting first, final Posting second) {
+    final int postingRelation =
+        Double.compare(first.getScore(), second.getScore());
+    if (postingRelation != 0) {
+      return postingRelation;
+    }
+    if (!hasRecordScore(first.getId()) || !hasRecordScore(second.getId())) {
+      // Record score is not present
+      return postingRelation;
+    }
+    // The order needs to be descending so we compare reversed
+    return Integer.compare(getRecordScore(second.getId()),
+        getRecordScore(first.getId()));
+  }
+
+  /**
+   * Sets the scores of the records of the snapshot.
+   * 
+   * @param recordIds
+   *          The ids of the records which have a score
+   * @param scores
+   *          The scores of the records, parallel to the given ids
+   */
+  private void setRecordScores(final int[] recordIds, final int[] scores) {
+    final RecordSlots recordSlots = RecordSlots.forIds(recordIds);
+    final int[] recordScores = new int[recordSlots.getAmountOfSlots()];
+    final BitSet scoredRecords = new BitSet(recordScores.length);
+    for (int i = 0; i < recordIds.length; i++) {
+      final int slot = recordSlots.getSlot(recordIds[i]);
+      recordScores[slot] = scores[i];
+      scoredRecords.set(slot);
     }
+    this.mRecordSlots = recordSlots;
+    this.mRecordScores = recordScores;
+    this.mScoredRecords = scoredRecords;
   }
 }
@@ -0,0 +1,185 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.Posting;
+
+/**
+ * Utility class which selects the smallest postings of a list according to a
+ * comparator. It keeps the candidates in a heap of the requested size whose
+ * root is the greatest candidate, thus selecting <tt>k</tt> of <tt>n</tt>
+ * postings takes <tt>O(n log k)</tt> instead of <tt>O(n log n)</tt> for
+ * sorting all of them. Postings that compare equal are ordered by their
+ * position in the list, like a stable sort does.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+final class TopKSelector {
+  /**
+   * Sorts the given list of postings by the given comparator and removes all
+   * but the first postings. The result is identical to a stable sort of the
+   * list followed by truncating it.
+   * 
+   * @param postings
+   *          The list of postings to sort and shrink
+   * @param comparator
+   *          The comparator which defines the order of the postings
+   * @param limit
+   *          The maximal amount of postings to keep, must not be negative
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  static void selectTop(final List<Posting> postings,
+      final Comparator<Posting> comparator, final int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    if (limit >= postings.size()) {
+      Collections.sort(postings, comparator);
+      return;
+    }
+    if (limit == 0) {
+      postings.clear();
+      return;
+    }
+
+    final Posting[] candidates = postings.toArray(new Posting[0]);
+    final int[] heap = new int[limit];
+    int size = 0;
+    for (int i = 0; i < candidates.length; i++) {
+      if (size < limit) {
+        heap[size] = i;
+        siftUp(heap, size, candidates, comparator);
+        size++;
+      } else if (isBefore(i, heap[0], candidates, comparator)) {
+        // Replace the greatest candidate
+        heap[0] = i;
+        siftDown(heap, size, candidates, comparator);
+      }
+    }
+
+    // Sorting the selected postings in list order stably keeps the order of
+    // equal postings
+    Arrays.sort(heap);
+    final ArrayList<Posting> top = new ArrayList<>(limit);
+    for (final int index : heap) {
+      top.add(candidates[index]);
+    }
+    Collections.sort(top, comparator);
+
+    postings.clear();
+    postings.addAll(top);
+  }
+
+  /**
+   * Whether the posting at the first index comes before the posting at the
+   * second index. Postings that compare equal are ordered by their index.
+   * 
+   * @param first
+   *          The index of the first posting
+   * @param second
+   *          The index of the second posting
+   * @param candidates
+   *          All postings
+   * @param comparator
+   *          The comparator which defines the order of the postings
+   * @return <tt>True</tt> if the first posting comes before the second,
+   *         <tt>false</tt> otherwise
+   */
+  private static boolean isBefore(final int first, final int second,
+      final Posting[] candidates, final Comparator<Posting> comparator) {
+    final int comparison =
+        comparator.compare(candidates[first], candidates[second]);
+    if (comparison != 0) {
+      return comparison < 0;
+    }
+    return first < second;
+  }
+
+  /**
+   * Moves the root of the heap down until the heap condition holds again.
+   * 
+   * @param heap
+   *          The heap containing indices of postings
+   * @param size
+   *          The amount of elements in the heap
+   * @param candidates
+   *          All postings
+   * @param comparator
+   *          The comparator which defines the order of the postings
+   */
+  private static void siftDown(final int[] heap, final int size,
+      final Posting[] candidates, final Comparator<Posting> comparator) {
+    int position = 0;
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= size) {
+        return;
+      }
+      if (child + 1 < size
+          && isBefore(heap[child], heap[child + 1], candidates, comparator)) {
+        child++;
+      }
+      if (!isBefore(heap[position], heap[child], candidates, comparator)) {
+        return;
+      }
+      swap(heap, position, child);
+      position = child;
+    }
+  }
+
+  /**
+   * Moves the element at the given position of the heap up until the heap
+   * condition holds again.
+   * 
+   * @param heap
+   *          The heap containing indices of postings
+   * @param initialPosition
+   *          The position of the element to move up
+   * @param candidates
+   *          All postings
+   * @param comparator
+   *          The comparator which defines the order of the postings
+   */
+  private static void siftUp(final int[] heap, final int initialPosition,
+      final Posting[] candidates, final Comparator<Posting> comparator) {
+    int position = initialPosition;
+    while (position > 0) {
+      final int parent = (position - 1) / 2;
+      if (!isBefore(heap[parent], heap[position], candidates, comparator)) {
+        return;
+      }
+      swap(heap, parent, position);
+      position = parent;
+    }
+  }
+
+  /**
+   * Swaps the elements at the given positions of the heap.
+   * 
+   * @param heap
+   *          The heap containing indices of postings
+   * @param first
+   *          The position of the first element
+   * @param second
+   *          The position of the second element
+   */
+  private static void swap(final int[] heap, final int first,
+      final int second) {
+    final int element = heap[first];
+    heap[first] = heap[second];
+    heap[second] = element;
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private TopKSelector() {
+
+  }
+}
@@ -0,0 +1,21 @@
+package de.zabuza.lexisearch.sharding;
+
+/**
+ * Enumeration for different ways of assigning records to shards, see
+ * {@link ShardPartitioner}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public enum EShardPartitioning {
+  /**
+   * Assign records by a hash of their id. Spreads records evenly, whatever
+   * pattern their ids follow.
+   */
+  HASH,
+  /**
+   * Assign records by ranges of their ids of equal length. Keeps records with
+   * close ids together.
+   */
+  RANGE
+}
@@ -0,0 +1,65 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Interface for shards, i.e. parts of a collection of records which are
+ * indexed and searched on their own. A {@link ShardCoordinator} searches all
+ * shards of a collection and merges their results.<br/>
+ * <br/>
+ * Shards rank their results by BM25. To make scores of different shards
+ * comparable, the coordinator collects the {@link CollectionStatistics} of
+ * each shard and sets the merged statistics of the whole collection to all of
+ * them before searching. A shard may live in another process, thus all
+ * methods may fail with an {@link IOException}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public interface IShard extends Closeable {
+  /**
+   * Gets the statistics of the records of this shard.
+   * 
+   * @return The statistics of the records of this shard
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with the shard
+   */
+  CollectionStatistics<String> getCollectionStatistics() throws IOException;
+
+  /**
+   * Searches the records of this shard for the given keywords.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          Whether all or any of the keywords must occur in a record
+   * @param limit
+   *          The maximal amount of postings to return, must not be negative
+   * @return A list containing the best ranked postings of the matching
+   *         records, in descending order of their score. The ids are the ids
+   *         of the records.
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with the shard
+   */
+  List<Posting> search(List<String> keys, EAggregateMode mode, int limit)
+      throws IOException;
+
+  /**
+   * Sets the statistics of the whole collection which the records of this
+   * shard are ranked with. The shard must not be searched meanwhile.
+   * 
+   * @param statistics
+   *          The statistics of the whole collection, they must include the
+   *          records of this shard
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with the shard
+   */
+  void setCollectionStatistics(CollectionStatistics<String> statistics)
+      throws IOException;
+}
@@ -0,0 +1,121 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.queries.KeywordQuery;
+import de.zabuza.lexisearch.queries.QueryContext;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Implementation of {@link IShard} which holds its records in the current
+ * process. It searches them by a {@link KeywordQuery} ranked by a
+ * {@link Bm25Ranking}. A shard can be served to other processes by a
+ * {@link ShardServer}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <T>
+ *          The class of records of the shard which must extend
+ *          {@link IKeyRecord}<tt>{@literal <String>}</tt>
+ */
+public final class LocalShard<T extends IKeyRecord<String>> implements IShard {
+  /**
+   * The query used to search the records of the shard.
+   */
+  private final KeywordQuery<T> mQuery;
+  /**
+   * The ranking of the query.
+   */
+  private final Bm25Ranking<String> mRanking;
+
+  /**
+   * Creates a new shard holding the given records, ranked by BM25 with
+   * default parameters.
+   * 
+   * @param records
+   *          The records of the shard
+   */
+  public LocalShard(final IKeyRecordSet<T, String> records) {
+    this(records, new Bm25Ranking<>());
+  }
+
+  /**
+   * Creates a new shard holding the given records, ranked by the given
+   * ranking. Until {@link #setCollectionStatistics(CollectionStatistics)} is
+   * called, the records are ranked by the statistics of the shard only.
+   * 
+   * @param records
+   *          The records of the shard
+   * @param ranking
+   *          The ranking to use, it must not be used by anything else
+   */
+  public LocalShard(final IKeyRecordSet<T, String> records,
+      final Bm25Ranking<String> ranking) {
+    this.mRanking = ranking;
+    this.mQuery = new KeywordQuery<>(records, ranking);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() {
+    // The records are only held in memory
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.sharding.IShard#getCollectionStatistics()
+   */
+  @Override
+  public CollectionStatistics<String> getCollectionStatistics() {
+    return this.mRanking.getCollectionStatistics();
+  }
+
+  /**
+   * Gets the query used to search the records of the shard.
+   * 
+   * @return The query used to search the records of the shard
+   */
+  public KeywordQuery<T> getQuery() {
+    return this.mQuery;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.sharding.IShard#search(java.util.List,
+   * de.zabuza.lexisearch.indexing.EAggregateMode, int)
+   */
+  @Override
+  public List<Posting> search(final List<String> keys,
+      final EAggregateMode mode, final int limit) {
+    final QueryContext context = new QueryContext();
+    if (mode == EAggregateMode.INTERSECT) {
+      return this.mQuery.searchAnd(keys, limit, context);
+    }
+    return this.mQuery.searchOr(keys, limit, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.sharding.IShard#setCollectionStatistics(de.zabuza.
+   * lexisearch.ranking.CollectionStatistics)
+   */
+  @Override
+  public void setCollectionStatistics(
+      final CollectionStatistics<String> statistics) {
+    this.mRanking.setCollectionStatistics(statistics);
+    this.mRanking.setRankingScoreToIndex();
+  }
+}
@@ -0,0 +1,139 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Implementation of {@link IShard} which forwards all requests to a shard
+ * served by a {@link ShardServer}, possibly in another process. It holds a
+ * single connection to the server, requests of multiple threads are sent one
+ * after another.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class RemoteShard implements IShard {
+  /**
+   * The stream to read responses from, guarded by the object monitor.
+   */
+  private final DataInputStream mInput;
+  /**
+   * The stream to write requests to, guarded by the object monitor.
+   */
+  private final DataOutputStream mOutput;
+  /**
+   * The connection to the server.
+   */
+  private final Socket mSocket;
+
+  /**
+   * Creates a new shard which connects to the server at the given address.
+   * 
+   * @param host
+   *          The host of the server
+   * @param port
+   *          The port the server listens at
+   * @throws IOException
+   *           If an I/O-Exception occurred while connecting
+   */
+  public RemoteShard(final String host, final int port) throws IOException {
+    this.mSocket = new Socket(host, port);
+    try {
+      // Requests are small and answered one by one
+      this.mSocket.setTcpNoDelay(true);
+      this.mInput = new DataInputStream(
+          new BufferedInputStream(this.mSocket.getInputStream()));
+      this.mOutput = new DataOutputStream(
+          new BufferedOutputStream(this.mSocket.getOutputStream()));
+      this.mOutput.writeInt(ShardProtocol.MAGIC_NUMBER);
+      this.mOutput.writeInt(ShardProtocol.PROTOCOL_VERSION);
+      this.mOutput.flush();
+    } catch (final IOException e) {
+      this.mSocket.close();
+      throw e;
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    this.mSocket.close();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.sharding.IShard#getCollectionStatistics()
+   */
+  @Override
+  public synchronized CollectionStatistics<String> getCollectionStatistics()
+      throws IOException {
+    this.mOutput.writeByte(ShardProtocol.REQUEST_GET_STATISTICS);
+    awaitResponse();
+    return ShardProtocol.readStatistics(this.mInput);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.zabuza.lexisearch.sharding.IShard#search(java.util.List,
+   * de.zabuza.lexisearch.indexing.EAggregateMode, int)
+   */
+  @Override
+  public synchronized List<Posting> search(final List<String> keys,
+      final EAggregateMode mode, final int limit) throws IOException {
+    this.mOutput.writeByte(ShardProtocol.REQUEST_SEARCH);
+    this.mOutput.writeByte(mode.ordinal());
+    this.mOutput.writeInt(limit);
+    ShardProtocol.writeKeys(this.mOutput, keys);
+    awaitResponse();
+    return ShardProtocol.readPostings(this.mInput);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.zabuza.lexisearch.sharding.IShard#setCollectionStatistics(de.zabuza.
+   * lexisearch.ranking.CollectionStatistics)
+   */
+  @Override
+  public synchronized void setCollectionStatistics(
+      final CollectionStatistics<String> statistics) throws IOException {
+    this.mOutput.writeByte(ShardProtocol.REQUEST_SET_STATISTICS);
+    ShardProtocol.writeStatistics(this.mOutput, statistics);
+    awaitResponse();
+  }
+
+  /**
+   * Sends the written request and waits for the status of its response. Must
+   * be called while holding the object monitor.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred or the server reports that the
+   *           request failed
+   */
+  private void awaitResponse() throws IOException {
+    this.mOutput.flush();
+    final byte status = this.mInput.readByte();
+    if (status == ShardProtocol.STATUS_FAILURE) {
+      throw new IOException(this.mInput.readUTF());
+    }
+    if (status != ShardProtocol.STATUS_OK) {
+      throw new IOException();
+    }
+  }
+}
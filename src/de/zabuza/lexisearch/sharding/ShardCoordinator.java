@@ -0,0 +1,374 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.queries.IQuery;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+import de.zabuza.lexisearch.ranking.ScoreComparator;
+
+/**
+ * Coordinator which searches a collection of records partitioned into
+ * {@link IShard}s by scatter-gather. A search is sent to all shards in
+ * parallel, each returns its best ranked postings and the coordinator merges
+ * them into the best ranked postings of the whole collection.<br/>
+ * <br/>
+ * On creation the coordinator collects the {@link CollectionStatistics} of
+ * all shards and sets the merged statistics to each of them. Thus every shard
+ * ranks with the inverse document frequencies and the average record size of
+ * the whole collection and the merged results are ranked like a single index
+ * holding all records would rank them.<br/>
+ * <br/>
+ * Shards can run in-process, see
+ * {@link #createInProcess(IKeyRecordSet, ShardPartitioner)}, or in other
+ * processes served by a {@link ShardServer} and reached by a
+ * {@link RemoteShard}. The coordinator can be used by multiple threads at the
+ * same time.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardCoordinator implements Closeable {
+  /**
+   * Interface for tasks which are sent to each shard.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   * @param <V>
+   *          The type of the result of the task
+   */
+  @FunctionalInterface
+  private interface IShardTask<V> {
+    /**
+     * Runs the task for the given shard.
+     * 
+     * @param shard
+     *          The shard to run the task for
+     * @return The result of the task
+     * @throws IOException
+     *           If an I/O-Exception occurred while communicating with the
+     *           shard
+     */
+    V run(IShard shard) throws IOException;
+  }
+
+  /**
+   * Message which is shown when a coordinator is created without shards.
+   */
+  private static final String MSG_NO_SHARDS =
+      "A coordinator needs at least one shard.";
+
+  /**
+   * Creates a coordinator over in-process shards of the given records. The
+   * shards are ranked by BM25 with default parameters.
+   * 
+   * @param <T>
+   *          The class of the records
+   * @param records
+   *          The records to partition into shards
+   * @param partitioner
+   *          The partitioner which assigns records to shards
+   * @return The coordinator over the created shards
+   */
+  public static <T extends IKeyRecord<String>> ShardCoordinator
+      createInProcess(final IKeyRecordSet<T, String> records,
+          final ShardPartitioner partitioner) {
+    return createInProcess(records, partitioner, Bm25Ranking::new);
+  }
+
+  /**
+   * Creates a coordinator over in-process shards of the given records. The
+   * shards are created in parallel.
+   * 
+   * @param <T>
+   *          The class of the records
+   * @param records
+   *          The records to partition into shards
+   * @param partitioner
+   *          The partitioner which assigns records to shards
+   * @param rankingFactory
+   *          Factory which creates the ranking of each shard
+   * @return The coordinator over the created shards
+   */
+  public static <T extends IKeyRecord<String>> ShardCoordinator
+      createInProcess(final IKeyRecordSet<T, String> records,
+          final ShardPartitioner partitioner,
+          final Supplier<Bm25Ranking<String>> rankingFactory) {
+    final List<IKeyRecordSet<T, String>> partitions =
+        partitioner.partition(records);
+    final List<IShard> shards = new ArrayList<>(partitions.size());
+    partitions.parallelStream().map(
+        partition -> new LocalShard<>(partition, rankingFactory.get()))
+        .forEachOrdered(shards::add);
+    try {
+      return new ShardCoordinator(shards);
+    } catch (final IOException e) {
+      // Local shards do not communicate
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Waits until the given task has finished and gets its result. Rethrows its
+   * failure, if present.
+   * 
+   * @param <V>
+   *          The type of the result
+   * @param task
+   *          The task to wait for
+   * @return The result of the task
+   * @throws IOException
+   *           If the task failed with an I/O-Exception
+   * @throws InterruptedException
+   *           If the calling thread was interrupted while waiting
+   */
+  private static <V> V awaitTask(final Future<V> task)
+      throws IOException, InterruptedException {
+    try {
+      return task.get();
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AssertionError(cause);
+    }
+  }
+
+  /**
+   * The executor which runs the tasks sent to the shards.
+   */
+  private final ExecutorService mExecutor;
+  /**
+   * The comparator which orders merged postings by their score in descending
+   * order and postings of equal score by their id.
+   */
+  private final Comparator<Posting> mMergeComparator;
+  /**
+   * The shards of the collection.
+   */
+  private final List<IShard> mShards;
+  /**
+   * The merged statistics of all shards.
+   */
+  private final CollectionStatistics<String> mStatistics;
+
+  /**
+   * Creates a new coordinator over the given shards. Collects their
+   * statistics and sets the merged statistics to each of them. The
+   * coordinator takes ownership of the shards and closes them on
+   * {@link #close()}.
+   * 
+   * @param shards
+   *          The shards of the collection, each record must be held by
+   *          exactly one of them
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with a shard
+   * @throws IllegalArgumentException
+   *           If no shards are given
+   */
+  public ShardCoordinator(final List<? extends IShard> shards)
+      throws IOException, IllegalArgumentException {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException(MSG_NO_SHARDS);
+    }
+    this.mShards = Collections.unmodifiableList(new ArrayList<>(shards));
+    this.mMergeComparator = new ScoreComparator().reversed()
+        .thenComparing(Comparator.naturalOrder());
+    this.mExecutor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+      final Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      final List<CollectionStatistics<String>> statistics =
+          scatter(IShard::getCollectionStatistics);
+      final CollectionStatistics<String> mergedStatistics =
+          CollectionStatistics.merge(statistics);
+      scatter(shard -> {
+        shard.setCollectionStatistics(mergedStatistics);
+        return null;
+      });
+      this.mStatistics = mergedStatistics;
+    } catch (final IOException | RuntimeException e) {
+      this.mExecutor.shutdownNow();
+      throw e;
+    }
+  }
+
+  /**
+   * Stops the threads of the coordinator and closes all shards.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred while closing a shard, the
+   *           remaining shards get closed nevertheless
+   */
+  @Override
+  public void close() throws IOException {
+    this.mExecutor.shutdownNow();
+    IOException failure = null;
+    for (final IShard shard : this.mShards) {
+      try {
+        shard.close();
+      } catch (final IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Gets the merged statistics of all shards, which the shards rank with.
+   * 
+   * @return The statistics of the whole collection
+   */
+  public CollectionStatistics<String> getCollectionStatistics() {
+    return this.mStatistics;
+  }
+
+  /**
+   * Gets the shards of the collection.
+   * 
+   * @return An unmodifiable list of the shards of the collection
+   */
+  public List<IShard> getShards() {
+    return this.mShards;
+  }
+
+  /**
+   * Searches all shards for the given keywords and merges their results.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param mode
+   *          Whether all or any of the keywords must occur in a record
+   * @param limit
+   *          The maximal amount of postings to return, must not be negative
+   * @return A list containing the best ranked postings of the whole
+   *         collection, in descending order of their score. Postings of equal
+   *         score are ordered by their id.
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with a shard
+   * @throws IllegalArgumentException
+   *           If the limit is negative
+   */
+  public List<Posting> search(final List<String> keys,
+      final EAggregateMode mode, final int limit)
+      throws IOException, IllegalArgumentException {
+    if (limit < 0) {
+      throw new IllegalArgumentException();
+    }
+    final List<List<Posting>> shardResults =
+        scatter(shard -> shard.search(keys, mode, limit));
+
+    // Each shard returns at most the limit, thus the merged list stays small
+    final ArrayList<Posting> results = new ArrayList<>();
+    for (final List<Posting> shardResult : shardResults) {
+      results.addAll(shardResult);
+    }
+    Collections.sort(results, this.mMergeComparator);
+    return IQuery.limitResults(results, limit);
+  }
+
+  /**
+   * Searches all shards by combining each given keyword with a logical
+   * <tt>and</tt> and merges their results.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param limit
+   *          The maximal amount of postings to return, must not be negative
+   * @return A list containing the best ranked postings of the records where
+   *         all of the given keywords occur
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with a shard
+   */
+  public List<Posting> searchAnd(final List<String> keys, final int limit)
+      throws IOException {
+    return search(keys, EAggregateMode.INTERSECT, limit);
+  }
+
+  /**
+   * Searches all shards by combining each given keyword with a logical
+   * <tt>or</tt> and merges their results.
+   * 
+   * @param keys
+   *          The keywords to search for
+   * @param limit
+   *          The maximal amount of postings to return, must not be negative
+   * @return A list containing the best ranked postings of the records where
+   *         at least one of the given keywords occurs
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with a shard
+   */
+  public List<Posting> searchOr(final List<String> keys, final int limit)
+      throws IOException {
+    return search(keys, EAggregateMode.UNION, limit);
+  }
+
+  /**
+   * Sends the given task to all shards in parallel and waits for their
+   * results.
+   * 
+   * @param <V>
+   *          The type of the result of the task
+   * @param task
+   *          The task to run for each shard
+   * @return A list containing the result of each shard, in the order of the
+   *         shards
+   * @throws IOException
+   *           If the task failed with an I/O-Exception for a shard
+   */
+  private <V> List<V> scatter(final IShardTask<V> task) throws IOException {
+    final ArrayList<Future<V>> pendingResults =
+        new ArrayList<>(this.mShards.size());
+    try {
+      for (final IShard shard : this.mShards) {
+        final Callable<V> call = () -> task.run(shard);
+        pendingResults.add(this.mExecutor.submit(call));
+      }
+      final ArrayList<V> results = new ArrayList<>(this.mShards.size());
+      for (final Future<V> pendingResult : pendingResults) {
+        results.add(awaitTask(pendingResult));
+      }
+      return results;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } finally {
+      // Results of failed searches are of no interest anymore
+      for (final Future<V> pendingResult : pendingResults) {
+        pendingResult.cancel(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.zabuza.lexisearch.indexing.DenseKeyRecordSet;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+
+/**
+ * Partitions a set of records into a given amount of disjoint shards by their
+ * record id, according to an {@link EShardPartitioning}. Records keep their
+ * ids, thus results of the shards can be merged without translating ids.<br/>
+ * <br/>
+ * The assignment only depends on the ids of the given set. Separate processes
+ * which partition the same set thus agree on the shard of each record.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardPartitioner {
+  /**
+   * The multiplier used to hash record ids.
+   */
+  private static final int HASH_MULTIPLIER = -1640531535;
+
+  /**
+   * The amount of shards to partition into.
+   */
+  private final int mAmountOfShards;
+  /**
+   * The way records are assigned to shards.
+   */
+  private final EShardPartitioning mPartitioning;
+
+  /**
+   * Creates a new partitioner.
+   * 
+   * @param partitioning
+   *          The way records are assigned to shards
+   * @param amountOfShards
+   *          The amount of shards to partition into, must be positive
+   * @throws IllegalArgumentException
+   *           If the amount of shards is not positive
+   */
+  public ShardPartitioner(final EShardPartitioning partitioning,
+      final int amountOfShards) throws IllegalArgumentException {
+    if (amountOfShards <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mPartitioning = partitioning;
+    this.mAmountOfShards = amountOfShards;
+  }
+
+  /**
+   * Gets the amount of shards to partition into.
+   * 
+   * @return The amount of shards to partition into
+   */
+  public int getAmountOfShards() {
+    return this.mAmountOfShards;
+  }
+
+  /**
+   * Gets the way records are assigned to shards.
+   * 
+   * @return The way records are assigned to shards
+   */
+  public EShardPartitioning getPartitioning() {
+    return this.mPartitioning;
+  }
+
+  /**
+   * Partitions the given records into shards. Each record is contained in
+   * exactly one shard, shards may be empty.
+   * 
+   * @param <E>
+   *          Type of the records
+   * @param <K>
+   *          Type of the keys of the records
+   * @param records
+   *          The records to partition
+   * @return A list containing the set of records of each shard, indexed by
+   *         the shard
+   */
+  public <E extends IKeyRecord<K>, K> List<IKeyRecordSet<E, K>> partition(
+      final IKeyRecordSet<E, K> records) {
+    int minimalRecordId = Integer.MAX_VALUE;
+    int maximalRecordId = Integer.MIN_VALUE;
+    for (final E record : records) {
+      minimalRecordId = Math.min(minimalRecordId, record.getRecordId());
+      maximalRecordId = Math.max(maximalRecordId, record.getRecordId());
+    }
+    // Ranges of equal length which cover all ids
+    final long rangeSize =
+        ((maximalRecordId + 0L) - minimalRecordId) / this.mAmountOfShards + 1;
+
+    final ArrayList<IKeyRecordSet<E, K>> shards =
+        new ArrayList<>(this.mAmountOfShards);
+    for (int i = 0; i < this.mAmountOfShards; i++) {
+      shards.add(new DenseKeyRecordSet<>());
+    }
+    for (final E record : records) {
+      final int recordId = record.getRecordId();
+      final int shard;
+      if (this.mPartitioning == EShardPartitioning.HASH) {
+        final int hash = recordId * HASH_MULTIPLIER;
+        shard = Math.floorMod(hash ^ (hash >>> 16), this.mAmountOfShards);
+      } else {
+        shard = (int) (((recordId + 0L) - minimalRecordId) / rangeSize);
+      }
+      shards.get(shard).add(record);
+    }
+    return shards;
+  }
+}
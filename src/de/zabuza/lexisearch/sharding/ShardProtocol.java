@@ -0,0 +1,237 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Utility class which defines the binary protocol spoken between a
+ * {@link RemoteShard} and a {@link ShardServer}.<br/>
+ * <br/>
+ * After connecting, the client sends {@link #MAGIC_NUMBER} and
+ * {@link #PROTOCOL_VERSION}. Then it sends requests, each starting with one of
+ * the request bytes followed by its arguments. The server answers each
+ * request with a status byte. On {@link #STATUS_OK} the result follows, on
+ * {@link #STATUS_FAILURE} a message describing the failure. Requests of a
+ * connection are answered in order.<br/>
+ * <br/>
+ * Texts are written in modified UTF-8 by {@link DataOutputStream#writeUTF},
+ * lists are preceded by their size. As sizes are read from the connection,
+ * lists grow while reading them instead of being allocated with the
+ * announced size.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+final class ShardProtocol {
+  /**
+   * The magic number a client sends when connecting.
+   */
+  static final int MAGIC_NUMBER = 0x4C585348;
+  /**
+   * The version of the protocol. Only clients of this version are served.
+   */
+  static final int PROTOCOL_VERSION = 1;
+  /**
+   * Request for the statistics of the shard. It has no arguments, the result
+   * are statistics.
+   */
+  static final byte REQUEST_GET_STATISTICS = 1;
+  /**
+   * Request to search the shard. The arguments are the ordinal of the
+   * {@link EAggregateMode}, the limit and the keywords, the result are
+   * postings.
+   */
+  static final byte REQUEST_SEARCH = 3;
+  /**
+   * Request to set the statistics of the whole collection. The argument are
+   * statistics, there is no result.
+   */
+  static final byte REQUEST_SET_STATISTICS = 2;
+  /**
+   * Status of a request that failed.
+   */
+  static final byte STATUS_FAILURE = 1;
+  /**
+   * Status of a request that succeeded.
+   */
+  static final byte STATUS_OK = 0;
+  /**
+   * The greatest initial capacity of lists read from a stream. Lists which
+   * announce a greater size grow while reading them, thus a malformed size
+   * can not allocate more than the stream carries.
+   */
+  private static final int MAXIMAL_INITIAL_CAPACITY = 1_024;
+  /**
+   * Message which is shown when a list with a negative size is read.
+   */
+  private static final String MSG_NEGATIVE_SIZE =
+      "The stream announced a list of negative size.";
+
+  /**
+   * Reads a list of keywords which was written by
+   * {@link #writeKeys(DataOutputStream, List)}.
+   * 
+   * @param input
+   *          The stream to read from
+   * @return The keywords read from the stream
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  static List<String> readKeys(final DataInputStream input)
+      throws IOException {
+    final int amountOfKeys = readSize(input);
+    final ArrayList<String> keys =
+        new ArrayList<>(Math.min(amountOfKeys, MAXIMAL_INITIAL_CAPACITY));
+    for (int i = 0; i < amountOfKeys; i++) {
+      keys.add(input.readUTF());
+    }
+    return keys;
+  }
+
+  /**
+   * Reads a list of postings which was written by
+   * {@link #writePostings(DataOutputStream, List)}.
+   * 
+   * @param input
+   *          The stream to read from
+   * @return The postings read from the stream
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  static List<Posting> readPostings(final DataInputStream input)
+      throws IOException {
+    final int amountOfPostings = readSize(input);
+    final ArrayList<Posting> postings =
+        new ArrayList<>(Math.min(amountOfPostings, MAXIMAL_INITIAL_CAPACITY));
+    for (int i = 0; i < amountOfPostings; i++) {
+      final int id = input.readInt();
+      final int termFrequency = input.readInt();
+      final double score = input.readDouble();
+      postings.add(new Posting(id, termFrequency, score));
+    }
+    return postings;
+  }
+
+  /**
+   * Reads statistics which were written by
+   * {@link #writeStatistics(DataOutputStream, CollectionStatistics)}.
+   * 
+   * @param input
+   *          The stream to read from
+   * @return The statistics read from the stream
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  static CollectionStatistics<String> readStatistics(
+      final DataInputStream input) throws IOException {
+    final long amountOfRecords = input.readLong();
+    final long totalRecordSize = input.readLong();
+    final int amountOfKeys = readSize(input);
+    final HashMap<String, Integer> keyRecordFrequencies =
+        new HashMap<>(2 * Math.min(amountOfKeys, MAXIMAL_INITIAL_CAPACITY));
+    for (int i = 0; i < amountOfKeys; i++) {
+      final String key = input.readUTF();
+      keyRecordFrequencies.put(key, Integer.valueOf(input.readInt()));
+    }
+    try {
+      return new CollectionStatistics<>(amountOfRecords, totalRecordSize,
+          keyRecordFrequencies);
+    } catch (final IllegalArgumentException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Writes the given keywords.
+   * 
+   * @param output
+   *          The stream to write to
+   * @param keys
+   *          The keywords to write
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  static void writeKeys(final DataOutputStream output, final List<String> keys)
+      throws IOException {
+    output.writeInt(keys.size());
+    for (final String key : keys) {
+      output.writeUTF(key);
+    }
+  }
+
+  /**
+   * Writes the id, term frequency and score of the given postings.
+   * 
+   * @param output
+   *          The stream to write to
+   * @param postings
+   *          The postings to write
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  static void writePostings(final DataOutputStream output,
+      final List<Posting> postings) throws IOException {
+    output.writeInt(postings.size());
+    for (final Posting posting : postings) {
+      output.writeInt(posting.getId());
+      output.writeInt(posting.getTermFrequency());
+      output.writeDouble(posting.getScore());
+    }
+  }
+
+  /**
+   * Writes the given statistics.
+   * 
+   * @param output
+   *          The stream to write to
+   * @param statistics
+   *          The statistics to write
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  static void writeStatistics(final DataOutputStream output,
+      final CollectionStatistics<String> statistics) throws IOException {
+    output.writeLong(statistics.getAmountOfRecords());
+    output.writeLong(statistics.getTotalRecordSize());
+    output.writeInt(statistics.getKeyRecordFrequencies().size());
+    for (final Entry<String, Integer> entry : statistics
+        .getKeyRecordFrequencies().entrySet()) {
+      output.writeUTF(entry.getKey());
+      output.writeInt(entry.getValue().intValue());
+    }
+  }
+
+  /**
+   * Reads the size of a list.
+   * 
+   * @param input
+   *          The stream to read from
+   * @return The size read from the stream
+   * @throws IOException
+   *           If an I/O-Exception occurred or the size is negative
+   */
+  private static int readSize(final DataInputStream input)
+      throws IOException {
+    final int size = input.readInt();
+    if (size < 0) {
+      throw new IOException(MSG_NEGATIVE_SIZE);
+    }
+    return size;
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private ShardProtocol() {
+
+  }
+}
@@ -0,0 +1,300 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Server which makes a shard available to {@link RemoteShard}s over TCP, by
+ * the protocol of {@link ShardProtocol}. Running one server per process lets
+ * a {@link ShardCoordinator} search shards in separate processes, also on a
+ * single machine.<br/>
+ * <br/>
+ * Each connection is served by its own thread, requests of a connection are
+ * answered in order. Failures of the shard are reported to the client, the
+ * connection stays usable. By default the server only listens at the
+ * loopback address, other machines can reach it only if an address is given
+ * explicitly.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardServer implements Closeable {
+  /**
+   * The delay in milliseconds before accepting again after accepting a
+   * connection failed the first time in a row.
+   */
+  private static final long ACCEPT_RETRY_DELAY_INITIAL = 10;
+  /**
+   * The maximal delay in milliseconds before accepting again after accepting
+   * connections failed repeatedly.
+   */
+  private static final long ACCEPT_RETRY_DELAY_MAXIMAL = 1_000;
+  /**
+   * Message which is sent when a request is not known.
+   */
+  private static final String MSG_UNKNOWN_REQUEST =
+      "The request is not known by the server.";
+
+  /**
+   * Writes the response of a request which failed with the given exception.
+   * 
+   * @param output
+   *          The stream to write the response to
+   * @param failure
+   *          The exception the request failed with
+   * @throws IOException
+   *           If an I/O-Exception occurred while writing
+   */
+  private static void writeFailure(final DataOutputStream output,
+      final Exception failure) throws IOException {
+    output.writeByte(ShardProtocol.STATUS_FAILURE);
+    output.writeUTF(failure.toString());
+  }
+
+  /**
+   * The connections which are currently served.
+   */
+  private final Set<Socket> mConnections;
+  /**
+   * The executor which runs the threads accepting and serving connections.
+   */
+  private final ExecutorService mExecutor;
+  /**
+   * The server socket used to listen for connections.
+   */
+  private final ServerSocket mServerSocket;
+  /**
+   * The shard to serve.
+   */
+  private final IShard mShard;
+
+  /**
+   * Creates a new server for the given shard which listens at the given port
+   * of the loopback address. Connections are accepted after {@link #start()}
+   * is called.
+   * 
+   * @param shard
+   *          The shard to serve
+   * @param port
+   *          The port to listen at, <tt>0</tt> to use any free port
+   * @throws IOException
+   *           If an I/O-Exception occurred while opening the port
+   */
+  public ShardServer(final IShard shard, final int port) throws IOException {
+    this(shard, port, InetAddress.getLoopbackAddress());
+  }
+
+  /**
+   * Creates a new server for the given shard which listens at the given port
+   * of the given address. Connections are accepted after {@link #start()} is
+   * called.
+   * 
+   * @param shard
+   *          The shard to serve
+   * @param port
+   *          The port to listen at, <tt>0</tt> to use any free port
+   * @param bindAddress
+   *          The local address to listen at, <tt>null</tt> to listen at all
+   *          addresses
+   * @throws IOException
+   *           If an I/O-Exception occurred while opening the port
+   */
+  public ShardServer(final IShard shard, final int port,
+      final InetAddress bindAddress) throws IOException {
+    this.mShard = shard;
+    this.mServerSocket = new ServerSocket(port, 0, bindAddress);
+    this.mConnections = ConcurrentHashMap.newKeySet();
+    this.mExecutor = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Stops listening and closes all connections. The shard is not closed.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred while closing the port
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      this.mServerSocket.close();
+    } finally {
+      for (final Socket connection : this.mConnections) {
+        try {
+          connection.close();
+        } catch (final IOException e) {
+          // The connection is abandoned anyway
+        }
+      }
+      this.mExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the address the server listens at.
+   * 
+   * @return The address the server listens at
+   */
+  public InetAddress getAddress() {
+    return this.mServerSocket.getInetAddress();
+  }
+
+  /**
+   * Gets the port the server listens at.
+   * 
+   * @return The port the server listens at
+   */
+  public int getPort() {
+    return this.mServerSocket.getLocalPort();
+  }
+
+  /**
+   * Starts accepting connections on a separate thread. Returns immediately.
+   */
+  public void start() {
+    this.mExecutor.execute(this::acceptConnections);
+  }
+
+  /**
+   * Accepts connections until the server gets closed and serves each of them
+   * on its own thread. If accepting fails repeatedly, for example because the
+   * process ran out of file descriptors, it waits for a growing delay before
+   * trying again.
+   */
+  private void acceptConnections() {
+    long retryDelay = ACCEPT_RETRY_DELAY_INITIAL;
+    while (!this.mServerSocket.isClosed()) {
+      try {
+        final Socket connection = this.mServerSocket.accept();
+        this.mConnections.add(connection);
+        this.mExecutor.execute(() -> serve(connection));
+        retryDelay = ACCEPT_RETRY_DELAY_INITIAL;
+      } catch (final IOException e) {
+        if (this.mServerSocket.isClosed()) {
+          return;
+        }
+        // Give the cause of the failure some time to disappear
+        try {
+          Thread.sleep(retryDelay);
+        } catch (final InterruptedException interrupt) {
+          // The server gets closed
+          return;
+        }
+        retryDelay = Math.min(2 * retryDelay, ACCEPT_RETRY_DELAY_MAXIMAL);
+      }
+    }
+  }
+
+  /**
+   * Answers the given request whose request byte has already been read.
+   * 
+   * @param request
+   *          The request byte
+   * @param input
+   *          The stream to read the arguments of the request from
+   * @param output
+   *          The stream to write the response to
+   * @throws IOException
+   *           If an I/O-Exception occurred while communicating with the client
+   *           or the request is not known
+   */
+  private void answer(final int request, final DataInputStream input,
+      final DataOutputStream output) throws IOException {
+    if (request == ShardProtocol.REQUEST_GET_STATISTICS) {
+      final CollectionStatistics<String> statistics;
+      try {
+        statistics = this.mShard.getCollectionStatistics();
+      } catch (final IOException | RuntimeException e) {
+        writeFailure(output, e);
+        return;
+      }
+      output.writeByte(ShardProtocol.STATUS_OK);
+      ShardProtocol.writeStatistics(output, statistics);
+    } else if (request == ShardProtocol.REQUEST_SET_STATISTICS) {
+      final CollectionStatistics<String> statistics =
+          ShardProtocol.readStatistics(input);
+      try {
+        this.mShard.setCollectionStatistics(statistics);
+      } catch (final IOException | RuntimeException e) {
+        writeFailure(output, e);
+        return;
+      }
+      output.writeByte(ShardProtocol.STATUS_OK);
+    } else if (request == ShardProtocol.REQUEST_SEARCH) {
+      final int modeOrdinal = input.readUnsignedByte();
+      final int limit = input.readInt();
+      final List<String> keys = ShardProtocol.readKeys(input);
+      final List<Posting> postings;
+      try {
+        postings = this.mShard.search(keys,
+            EAggregateMode.values()[modeOrdinal], limit);
+      } catch (final IOException | RuntimeException e) {
+        writeFailure(output, e);
+        return;
+      }
+      output.writeByte(ShardProtocol.STATUS_OK);
+      ShardProtocol.writePostings(output, postings);
+    } else {
+      // The arguments of the request are unknown, thus the connection can not
+      // be continued
+      output.writeByte(ShardProtocol.STATUS_FAILURE);
+      output.writeUTF(MSG_UNKNOWN_REQUEST);
+      output.flush();
+      throw new IOException(MSG_UNKNOWN_REQUEST);
+    }
+  }
+
+  /**
+   * Serves the given connection until it gets closed.
+   * 
+   * @param connection
+   *          The connection to serve
+   */
+  private void serve(final Socket connection) {
+    try (final Socket socket = connection) {
+      socket.setTcpNoDelay(true);
+      final DataInputStream input = new DataInputStream(
+          new BufferedInputStream(socket.getInputStream()));
+      final DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(socket.getOutputStream()));
+      if (input.readInt() != ShardProtocol.MAGIC_NUMBER
+          || input.readInt() != ShardProtocol.PROTOCOL_VERSION) {
+        // Not a client of this protocol
+        return;
+      }
+
+      while (true) {
+        final int request = input.read();
+        if (request < 0) {
+          // The client closed the connection
+          return;
+        }
+        answer(request, input, output);
+        output.flush();
+      }
+    } catch (final IOException e) {
+      // The connection is lost, the client notices it on its own
+    } finally {
+      this.mConnections.remove(connection);
+    }
+  }
+}
@@ -0,0 +1,5 @@
+/**
+ * This is the core package for partitioning records into shards which are
+ * searched in parallel, either in-process or in separate processes.
+ */
+package de.zabuza.lexisearch.sharding;
@@ -0,0 +1,655 @@
+package de.zabuza.lexisearch.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import de.zabuza.lexisearch.indexing.ChannelInput;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IndexSerializationUtil;
+import de.zabuza.lexisearch.indexing.InvertedIndex;
+import de.zabuza.lexisearch.indexing.PlainInvertedList;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.TermDictionary;
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.City;
+import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.model.city.ICity;
+import de.zabuza.lexisearch.queries.FuzzyPrefixQuery;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.IRankingProvider;
+import de.zabuza.lexisearch.ranking.PostingBeforeRecordRanking;
+
+/**
+ * Snapshot of the complete searchable state of a fuzzy prefix search on
+ * cities. It holds the cities together with their keys, the q-gram index
+ * including the scores of its postings, the normalized names of the cities,
+ * the configuration of the q-gram provider and the state of the ranking
+ * provider. A snapshot can be written to a file and restored from it with a
+ * single sequential read, without parsing the source data, building the
+ * index or computing the ranking again. Supported ranking providers are
+ * {@link PostingBeforeRecordRanking} and {@link Bm25Ranking}.<br/>
+ * <br/>
+ * The file starts with a header consisting of a magic number, the
+ * {@link #FORMAT_VERSION format version}, the length of the payload and its
+ * CRC32 checksum. Files of other versions or with a mismatching checksum are
+ * rejected. The snapshot additionally remembers length and modification time
+ * of its source file, such that
+ * {@link #isCompatibleWith(File, QGramProvider)} detects outdated snapshots.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class EngineSnapshot {
+  /**
+   * The version of the file format written by this class. Only files of this
+   * version can be read.
+   */
+  public static final int FORMAT_VERSION = 2;
+  /**
+   * The size of the header in bytes. It consists of the magic number, the
+   * format version, the length of the payload and its checksum.
+   */
+  private static final int HEADER_SIZE = 24;
+  /**
+   * The magic number every snapshot file starts with.
+   */
+  private static final int MAGIC_NUMBER = 0x4C58534E;
+  /**
+   * Message which is shown when a snapshot file is damaged.
+   */
+  private static final String MSG_CORRUPTED_SNAPSHOT =
+      "The given snapshot is corrupted.";
+  /**
+   * Message which is shown when a file is no snapshot.
+   */
+  private static final String MSG_NO_SNAPSHOT =
+      "The given file is no engine snapshot.";
+  /**
+   * Message which is shown when a ranking provider can not be written to a
+   * snapshot.
+   */
+  private static final String MSG_UNSUPPORTED_RANKING =
+      "Only posting before record and BM25 rankings can be written to a "
+          + "snapshot.";
+  /**
+   * Message which is shown when a record can not be written to a snapshot.
+   */
+  private static final String MSG_UNSUPPORTED_RECORD =
+      "Only cities can be written to a snapshot.";
+  /**
+   * Message which is shown when a snapshot file has an unsupported version.
+   */
+  private static final String MSG_UNSUPPORTED_VERSION =
+      "The given snapshot has the unsupported format version ";
+  /**
+   * Constant for the type of a snapshot with a {@link Bm25Ranking}.
+   */
+  private static final byte RANKING_BM25 = 2;
+  /**
+   * Constant for the type of a snapshot without ranking provider.
+   */
+  private static final byte RANKING_NONE = 0;
+  /**
+   * Constant for the type of a snapshot with a
+   * {@link PostingBeforeRecordRanking}.
+   */
+  private static final byte RANKING_POSTING_BEFORE_RECORD = 1;
+  /**
+   * The suffix of the temporary file a snapshot is written to before it
+   * replaces the target file.
+   */
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+  /**
+   * Restores a snapshot from the given file, which was written by
+   * {@link #writeToFile(File)}. The file is read with a single sequential
+   * read through a buffer of fixed size, thus files of any size can be read.
+   * The checksum of the payload is computed while reading it, the restored
+   * state is only returned if it matches.
+   * 
+   * @param snapshotFile
+   *          The file to restore the snapshot from
+   * @return The restored snapshot
+   * @throws IOException
+   *           If an I/O-Exception occurred, the file is no snapshot, has an
+   *           unsupported format version or is corrupted
+   */
+  public static EngineSnapshot buildFromFile(final File snapshotFile)
+      throws IOException {
+    try (final FileChannel channel =
+        FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new IOException(MSG_NO_SNAPSHOT);
+      }
+
+      // Verify the header
+      final ChannelInput header = new ChannelInput(channel, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC_NUMBER) {
+        throw new IOException(MSG_NO_SNAPSHOT);
+      }
+      final int version = header.getInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException(MSG_UNSUPPORTED_VERSION + version);
+      }
+      final long payloadLength = header.getLong();
+      final long checksum = header.getLong();
+      if (payloadLength != size - HEADER_SIZE) {
+        throw new IOException(MSG_CORRUPTED_SNAPSHOT);
+      }
+
+      // Restore the payload while computing its checksum, every amount is
+      // bounded by the remaining bytes such that a damaged payload can not
+      // allocate more than the file holds
+      final CRC32 crc = new CRC32();
+      final ChannelInput input = new ChannelInput(channel, HEADER_SIZE,
+          payloadLength, crc, ChannelInput.DEFAULT_BUFFER_SIZE);
+      final EngineSnapshot snapshot;
+      try {
+        snapshot = readPayload(input);
+      } catch (final BufferUnderflowException | IllegalArgumentException
+          | IndexOutOfBoundsException | NegativeArraySizeException e) {
+        throw new IOException(MSG_CORRUPTED_SNAPSHOT, e);
+      }
+      if (input.hasRemaining() || crc.getValue() != checksum) {
+        throw new IOException(MSG_CORRUPTED_SNAPSHOT);
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Restores the state of a snapshot from the given payload.
+   * 
+   * @param input
+   *          The input positioned at the beginning of the payload
+   * @return The restored snapshot
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static EngineSnapshot readPayload(final ChannelInput input)
+      throws IOException {
+    final QGramProvider provider =
+        new QGramProvider(input.getInt(), input.getChar());
+    final long sourceLength = input.getLong();
+    final long sourceLastModified = input.getLong();
+
+    // Terms, mapped to the dictionary of the restored cities
+    final CitySet cities = new CitySet();
+    final TermDictionary dictionary = cities.getTermDictionary();
+    final String[] terms =
+        new String[IndexSerializationUtil.readAmount(input)];
+    final int[] termIds = new int[terms.length];
+    for (int i = 0; i < terms.length; i++) {
+      terms[i] = IndexSerializationUtil.readString(input);
+      termIds[i] = dictionary.getOrAddTermId(terms[i]);
+    }
+
+    // Cities
+    final int amountOfCities = IndexSerializationUtil.readAmount(input);
+    for (int i = 0; i < amountOfCities; i++) {
+      final int id = input.getInt();
+      final String name = IndexSerializationUtil.readString(input);
+      final float latitude = input.getFloat();
+      final float longitude = input.getFloat();
+      final int score = input.getInt();
+      final int[] keyTermIds =
+          new int[IndexSerializationUtil.readAmount(input)];
+      for (int j = 0; j < keyTermIds.length; j++) {
+        keyTermIds[j] = termIds[input.getInt()];
+      }
+      cities.add(new City(id, name, latitude, longitude, score, keyTermIds,
+          dictionary));
+    }
+
+    // Normalized names
+    final String[] normalizedNames =
+        new String[IndexSerializationUtil.readAmount(input)];
+    for (int i = 0; i < normalizedNames.length; i++) {
+      normalizedNames[i] = IndexSerializationUtil.readString(input);
+    }
+
+    // Inverted index, each list is built in bulk
+    final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    final int amountOfKeys = IndexSerializationUtil.readAmount(input);
+    final ArrayList<String> indexKeys = new ArrayList<>(amountOfKeys);
+    for (int i = 0; i < amountOfKeys; i++) {
+      final String key = terms[input.getInt()];
+      final Posting[] postings =
+          new Posting[IndexSerializationUtil.readAmount(input)];
+      for (int j = 0; j < postings.length; j++) {
+        postings[j] = IndexSerializationUtil.readPosting(input);
+      }
+      invertedIndex.putRecords(key, new PlainInvertedList(postings));
+      indexKeys.add(key);
+    }
+
+    final Optional<IRankingProvider<String>> ranking =
+        readRanking(input, invertedIndex, indexKeys, cities);
+    return new EngineSnapshot(sourceLength, sourceLastModified, cities,
+        provider, invertedIndex, normalizedNames, ranking);
+  }
+
+  /**
+   * Restores the ranking provider of a snapshot from the given input. It
+   * holds the restored state and is not computed again.
+   * 
+   * @param input
+   *          The input positioned at the beginning of the ranking
+   * @param invertedIndex
+   *          The restored index
+   * @param indexKeys
+   *          The keys of the restored index in the order they were written
+   * @param cities
+   *          The restored cities
+   * @return The restored ranking provider, if the snapshot has one
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws IllegalArgumentException
+   *           If the type of the ranking provider is unknown
+   */
+  private static Optional<IRankingProvider<String>> readRanking(
+      final ChannelInput input, final InvertedIndex<String> invertedIndex,
+      final ArrayList<String> indexKeys, final CitySet cities)
+      throws IOException, IllegalArgumentException {
+    final byte rankingType = input.get();
+    if (rankingType == RANKING_NONE) {
+      return Optional.empty();
+    } else if (rankingType == RANKING_POSTING_BEFORE_RECORD) {
+      final int[] ids =
+          new int[IndexSerializationUtil.readAmount(input)];
+      final int[] scores = new int[ids.length];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = input.getInt();
+        scores[i] = input.getInt();
+      }
+      final PostingBeforeRecordRanking<String> ranking =
+          new PostingBeforeRecordRanking<>();
+      ranking.restoreSnapshot(invertedIndex, cities, ids, scores);
+      return Optional.of(ranking);
+    } else if (rankingType == RANKING_BM25) {
+      final Bm25Ranking<String> ranking =
+          new Bm25Ranking<>(input.getDouble(), input.getDouble());
+      final double averageRecordSize = input.getDouble();
+      final int[] ids =
+          new int[IndexSerializationUtil.readAmount(input)];
+      final int[] sizes = new int[ids.length];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = input.getInt();
+        sizes[i] = input.getInt();
+      }
+      final double[] idfs = new double[indexKeys.size()];
+      for (int i = 0; i < idfs.length; i++) {
+        idfs[i] = input.getDouble();
+      }
+      ranking.restoreSnapshot(invertedIndex, cities, indexKeys, idfs, ids,
+          sizes, averageRecordSize);
+      return Optional.of(ranking);
+    } else {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  /**
+   * The cities of the snapshot.
+   */
+  private final CitySet mCities;
+  /**
+   * The q-gram index built from the cities.
+   */
+  private final IInvertedIndex<String> mInvertedIndex;
+  /**
+   * The normalized names of the cities, indexed by their id.
+   */
+  private final String[] mNormalizedNames;
+  /**
+   * The q-gram provider the index was built with.
+   */
+  private final QGramProvider mProvider;
+  /**
+   * The ranking provider holding a snapshot of the index, if present.
+   */
+  private final Optional<IRankingProvider<String>> mRankingProvider;
+  /**
+   * The last modification time of the source file of the cities.
+   */
+  private final long mSourceLastModified;
+  /**
+   * The length of the source file of the cities in bytes.
+   */
+  private final long mSourceLength;
+
+  /**
+   * Creates a new snapshot of the state of the given query, including the
+   * state of its ranking provider.
+   * 
+   * @param sourceFile
+   *          The file the cities were loaded from
+   * @param cities
+   *          The cities the query operates on
+   * @param provider
+   *          The q-gram provider the query uses
+   * @param query
+   *          The query to take the snapshot of
+   */
+  public EngineSnapshot(final File sourceFile, final CitySet cities,
+      final QGramProvider provider,
+      final FuzzyPrefixQuery<? extends IKeyRecord<String>> query) {
+    this(sourceFile.length(), sourceFile.lastModified(), cities, provider,
+        query.getInvertedIndex(), query.getNormalizedNames(),
+        query.getRankingProvider());
+  }
+
+  /**
+   * Creates a new snapshot with the given state.
+   * 
+   * @param sourceLength
+   *          The length of the source file of the cities in bytes
+   * @param sourceLastModified
+   *          The last modification time of the source file of the cities
+   * @param cities
+   *          The cities of the snapshot
+   * @param provider
+   *          The q-gram provider the index was built with
+   * @param invertedIndex
+   *          The q-gram index built from the cities
+   * @param normalizedNames
+   *          The normalized names of the cities, indexed by their id
+   * @param rankingProvider
+   *          The ranking provider holding a snapshot of the index, if present
+   */
+  private EngineSnapshot(final long sourceLength,
+      final long sourceLastModified, final CitySet cities,
+      final QGramProvider provider,
+      final IInvertedIndex<String> invertedIndex,
+      final String[] normalizedNames,
+      final Optional<IRankingProvider<String>> rankingProvider) {
+    this.mSourceLength = sourceLength;
+    this.mSourceLastModified = sourceLastModified;
+    this.mCities = cities;
+    this.mProvider = provider;
+    this.mInvertedIndex = invertedIndex;
+    this.mNormalizedNames = normalizedNames;
+    this.mRankingProvider = rankingProvider;
+  }
+
+  /**
+   * Creates a fuzzy prefix query operating on the state of this snapshot
+   * without building the index again. It uses the ranking provider of this
+   * snapshot, if present, which neither takes a snapshot again nor sets its
+   * scores to the index.
+   * 
+   * @return The fuzzy prefix query operating on the state of this snapshot
+   */
+  public FuzzyPrefixQuery<IKeyRecord<String>> createQuery() {
+    if (this.mRankingProvider.isPresent()) {
+      return new FuzzyPrefixQuery<>(this.mInvertedIndex,
+          this.mNormalizedNames, this.mCities, this.mProvider,
+          this.mRankingProvider.get());
+    }
+    return new FuzzyPrefixQuery<>(this.mInvertedIndex, this.mNormalizedNames,
+        this.mCities, this.mProvider);
+  }
+
+  /**
+   * Gets the cities of this snapshot.
+   * 
+   * @return The cities of this snapshot
+   */
+  public CitySet getCities() {
+    return this.mCities;
+  }
+
+  /**
+   * Gets the q-gram index of this snapshot.
+   * 
+   * @return The q-gram index of this snapshot
+   */
+  public IInvertedIndex<String> getInvertedIndex() {
+    return this.mInvertedIndex;
+  }
+
+  /**
+   * Gets the q-gram provider the index of this snapshot was built with.
+   * 
+   * @return The q-gram provider of this snapshot
+   */
+  public QGramProvider getProvider() {
+    return this.mProvider;
+  }
+
+  /**
+   * Gets the ranking provider of this snapshot.
+   * 
+   * @return The ranking provider holding a snapshot of the index, if present
+   */
+  public Optional<IRankingProvider<String>> getRankingProvider() {
+    return this.mRankingProvider;
+  }
+
+  /**
+   * Whether this snapshot represents the given source file loaded with the
+   * given q-gram provider. This is the case if length and modification time
+   * of the file and the configuration of the provider did not change since
+   * the snapshot was taken.
+   * 
+   * @param sourceFile
+   *          The file the cities should be loaded from
+   * @param provider
+   *          The q-gram provider that should be used
+   * @return <tt>True</tt> if the snapshot can be used instead of loading the
+   *         given file, <tt>false</tt> otherwise
+   */
+  public boolean isCompatibleWith(final File sourceFile,
+      final QGramProvider provider) {
+    return sourceFile.length() == this.mSourceLength
+        && sourceFile.lastModified() == this.mSourceLastModified
+        && provider.getQParameter() == this.mProvider.getQParameter()
+        && provider.getPaddingCharacter() == this.mProvider
+            .getPaddingCharacter();
+  }
+
+  /**
+   * Writes this snapshot to the given file such that it can be restored by
+   * {@link #buildFromFile(File)}. The snapshot is written to a temporary file
+   * first which then replaces the given file, thus readers never see a
+   * partially written snapshot.
+   * 
+   * @param snapshotFile
+   *          The file to write the snapshot to
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws IllegalArgumentException
+   *           If the snapshot contains records which are no cities or an
+   *           unsupported ranking provider
+   */
+  public void writeToFile(final File snapshotFile)
+      throws IOException, IllegalArgumentException {
+    final File temporaryFile =
+        new File(snapshotFile.getPath() + TEMPORARY_FILE_SUFFIX);
+    try (final FileChannel channel = FileChannel.open(
+        temporaryFile.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      // Write the payload behind the header and compute its checksum
+      channel.position(HEADER_SIZE);
+      final CheckedOutputStream checkedOutput = new CheckedOutputStream(
+          Channels.newOutputStream(channel), new CRC32());
+      final DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(checkedOutput));
+      writePayload(output);
+      output.flush();
+
+      final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC_NUMBER);
+      header.putInt(FORMAT_VERSION);
+      header.putLong(channel.size() - HEADER_SIZE);
+      header.putLong(checkedOutput.getChecksum().getValue());
+      header.flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      channel.force(true);
+    }
+
+    try {
+      Files.move(temporaryFile.toPath(), snapshotFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(temporaryFile.toPath(), snapshotFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Writes the state of this snapshot to the given stream.
+   * 
+   * @param output
+   *          The stream to write to
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws IllegalArgumentException
+   *           If the snapshot contains records which are no cities or an
+   *           unsupported ranking provider
+   */
+  private void writePayload(final DataOutputStream output)
+      throws IOException, IllegalArgumentException {
+    output.writeInt(this.mProvider.getQParameter());
+    output.writeChar(this.mProvider.getPaddingCharacter());
+    output.writeLong(this.mSourceLength);
+    output.writeLong(this.mSourceLastModified);
+
+    // Collect the terms of the cities and the index
+    final ArrayList<String> indexKeys = new ArrayList<>();
+    for (final String key : this.mInvertedIndex.getKeys()) {
+      indexKeys.add(key);
+    }
+    final LinkedHashMap<String, Integer> termToIndex = new LinkedHashMap<>();
+    for (final IKeyRecord<String> city : this.mCities) {
+      for (final String key : city.getKeys()) {
+        termToIndex.putIfAbsent(key, Integer.valueOf(termToIndex.size()));
+      }
+    }
+    for (final String key : indexKeys) {
+      termToIndex.putIfAbsent(key, Integer.valueOf(termToIndex.size()));
+    }
+    output.writeInt(termToIndex.size());
+    for (final String term : termToIndex.keySet()) {
+      IndexSerializationUtil.writeString(output, term);
+    }
+
+    // Cities
+    output.writeInt(this.mCities.size());
+    for (final IKeyRecord<String> record : this.mCities) {
+      if (!(record instanceof ICity)) {
+        throw new IllegalArgumentException(MSG_UNSUPPORTED_RECORD);
+      }
+      final ICity city = (ICity) record;
+      output.writeInt(city.getId());
+      IndexSerializationUtil.writeString(output, city.getName());
+      output.writeFloat(city.getLatitude());
+      output.writeFloat(city.getLongitude());
+      output.writeInt(city.getScore());
+      final String[] keys = city.getKeys();
+      output.writeInt(keys.length);
+      for (final String key : keys) {
+        output.writeInt(termToIndex.get(key).intValue());
+      }
+    }
+
+    // Normalized names
+    output.writeInt(this.mNormalizedNames.length);
+    for (final String normalizedName : this.mNormalizedNames) {
+      IndexSerializationUtil.writeString(output, normalizedName);
+    }
+
+    // Inverted index
+    output.writeInt(indexKeys.size());
+    for (final String key : indexKeys) {
+      output.writeInt(termToIndex.get(key).intValue());
+      output.writeInt(this.mInvertedIndex.getRecords(key).getSize());
+      for (final Posting posting : this.mInvertedIndex.getRecords(key)
+          .getPostings()) {
+        IndexSerializationUtil.writePosting(output, posting);
+      }
+    }
+
+    writeRanking(output, indexKeys);
+  }
+
+  /**
+   * Writes the state of the ranking provider of this snapshot to the given
+   * stream.
+   * 
+   * @param output
+   *          The stream to write to
+   * @param indexKeys
+   *          The keys of the index in the order they were written
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws IllegalArgumentException
+   *           If the ranking provider is not supported
+   */
+  private void writeRanking(final DataOutputStream output,
+      final ArrayList<String> indexKeys)
+      throws IOException, IllegalArgumentException {
+    if (!this.mRankingProvider.isPresent()) {
+      output.writeByte(RANKING_NONE);
+      return;
+    }
+    final IRankingProvider<String> rankingProvider =
+        this.mRankingProvider.get();
+    if (rankingProvider instanceof PostingBeforeRecordRanking) {
+      final PostingBeforeRecordRanking<String> ranking =
+          (PostingBeforeRecordRanking<String>) rankingProvider;
+      output.writeByte(RANKING_POSTING_BEFORE_RECORD);
+      int amountOfScoredRecords = 0;
+      for (final IKeyRecord<String> city : this.mCities) {
+        if (ranking.hasRecordScore(city.getRecordId())) {
+          amountOfScoredRecords++;
+        }
+      }
+      output.writeInt(amountOfScoredRecords);
+      for (final IKeyRecord<String> city : this.mCities) {
+        final int id = city.getRecordId();
+        if (ranking.hasRecordScore(id)) {
+          output.writeInt(id);
+          output.writeInt(ranking.getRecordScore(id));
+        }
+      }
+    } else if (rankingProvider instanceof Bm25Ranking) {
+      final Bm25Ranking<String> ranking =
+          (Bm25Ranking<String>) rankingProvider;
+      output.writeByte(RANKING_BM25);
+      output.writeDouble(ranking.getKParameter());
+      output.writeDouble(ranking.getBParameter());
+      output.writeDouble(ranking.getAverageRecordSize());
+      output.writeInt(this.mCities.size());
+      for (final IKeyRecord<String> city : this.mCities) {
+        output.writeInt(city.getRecordId());
+        output.writeInt(ranking.getRecordSize(city.getRecordId()));
+      }
+      for (final String key : indexKeys) {
+        output.writeDouble(ranking.getIdf(key));
+      }
+    } else {
+      throw new IllegalArgumentException(MSG_UNSUPPORTED_RANKING);
+    }
+  }
+}
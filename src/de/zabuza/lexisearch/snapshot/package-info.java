@@ -0,0 +1,4 @@
+/**
+ * This is the core package for snapshots of the searchable state of the API.
+ */
+package de.zabuza.lexisearch.snapshot;
\ No newline at end of file
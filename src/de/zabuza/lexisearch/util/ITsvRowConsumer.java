@@ -0,0 +1,26 @@
+package de.zabuza.lexisearch.util;
+
+/**
+ * Interface for consumers of the rows of a file with tab separated values,
+ * see {@link MappedTsvLoader#forEachRow(java.nio.file.Path, ITsvRowConsumer)}.
+ * Other than a {@link ITsvRowParser} a consumer is called by one thread in the
+ * order of the lines, thus it may modify shared state.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+@FunctionalInterface
+public interface ITsvRowConsumer {
+  /**
+   * Consumes the given row.
+   * 
+   * @param row
+   *          The row to consume, it is only valid during this call
+   * @param lineIndex
+   *          The index of the line of the row in the file, starting with
+   *          <tt>0</tt>
+   * @throws IllegalArgumentException
+   *           If the row is in the wrong format
+   */
+  void accept(TsvRow row, int lineIndex);
+}
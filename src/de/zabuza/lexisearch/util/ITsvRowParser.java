@@ -0,0 +1,28 @@
+package de.zabuza.lexisearch.util;
+
+/**
+ * Interface for parsers which create objects from the rows of a file with
+ * tab separated values, see {@link MappedTsvLoader}. Parsers are called by
+ * multiple threads at the same time, thus they must not modify shared state.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <T>
+ *          The type of objects the parser creates
+ */
+@FunctionalInterface
+public interface ITsvRowParser<T> {
+  /**
+   * Creates an object from the given row.
+   * 
+   * @param row
+   *          The row to parse, it is only valid during this call
+   * @param lineIndex
+   *          The index of the line of the row in the file, starting with
+   *          <tt>0</tt>
+   * @return The object created from the row
+   * @throws IllegalArgumentException
+   *           If the row is in the wrong format
+   */
+  T parse(TsvRow row, int lineIndex);
+}
@@ -0,0 +1,351 @@
+package de.zabuza.lexisearch.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Table holding the position of the start of each line of a text file. The
+ * table is built by scanning the memory-mapped file byte by byte for line
+ * separators, without decoding it. Lines are separated by <tt>\n</tt> or
+ * <tt>\r\n</tt>, both are detected automatically since a carriage return
+ * simply stays the last byte of its line.<br/>
+ * <br/>
+ * The table can be persisted as sidecar file next to the text file, see
+ * {@link #forFile(File)}. The sidecar remembers size and modification time of
+ * the text file and is only used as long as they match, such that reopening
+ * a large file does not need to scan it again.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class LineOffsetTable {
+  /**
+   * The version of the sidecar file format written by this class. Only files
+   * of this version can be read.
+   */
+  public static final int FORMAT_VERSION = 1;
+  /**
+   * The suffix which is appended to the name of a text file to get the name
+   * of its sidecar file.
+   */
+  public static final String SIDECAR_FILE_SUFFIX = ".offsets";
+  /**
+   * The size of the header of a sidecar file in bytes. It consists of the
+   * magic number, the format version, size and modification time of the text
+   * file and the amount of lines.
+   */
+  private static final int HEADER_SIZE = 28;
+  /**
+   * The line separator byte.
+   */
+  private static final byte LINE_SEPARATOR = '\n';
+  /**
+   * The magic number every sidecar file starts with.
+   */
+  private static final int MAGIC_NUMBER = 0x4C584F54;
+  /**
+   * The maximal size of a region of the text file that is mapped at once, in
+   * bytes.
+   */
+  private static final long MAXIMAL_REGION_SIZE = 1L << 30;
+  /**
+   * The suffix of the temporary file a sidecar is written to before it
+   * replaces the sidecar file.
+   */
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+  /**
+   * Gets the table of the given text file. Uses its sidecar file if it
+   * exists and matches size and modification time of the text file.
+   * Otherwise the text file is scanned and the sidecar file gets written, a
+   * sidecar that can not be written is skipped silently.
+   * 
+   * @param textFile
+   *          The text file to get the table of
+   * @return The table of the given text file
+   * @throws IOException
+   *           If an I/O-Exception occurred while scanning the text file
+   */
+  public static LineOffsetTable forFile(final File textFile)
+      throws IOException {
+    final File sidecarFile = getSidecarFile(textFile);
+    final long size = textFile.length();
+    final long lastModified = textFile.lastModified();
+    if (sidecarFile.isFile()) {
+      try {
+        final LineOffsetTable table = readSidecar(sidecarFile);
+        if (table.mSourceSize == size
+            && table.mSourceLastModified == lastModified) {
+          return table;
+        }
+      } catch (final IOException e) {
+        // The sidecar is damaged, it gets replaced
+      }
+    }
+
+    final LineOffsetTable table = scan(textFile);
+    try {
+      table.writeSidecar(sidecarFile);
+    } catch (final IOException e) {
+      // The sidecar is only a cache, the table is still valid
+    }
+    return table;
+  }
+
+  /**
+   * Gets the sidecar file of the given text file.
+   * 
+   * @param textFile
+   *          The text file to get the sidecar file of
+   * @return The sidecar file of the given text file
+   */
+  public static File getSidecarFile(final File textFile) {
+    return new File(textFile.getPath() + SIDECAR_FILE_SUFFIX);
+  }
+
+  /**
+   * Reads a table from the given sidecar file, which was written by
+   * {@link #writeSidecar(File)}. The table is verified to start at the
+   * beginning of the file and to hold strictly ascending line starts, but it
+   * is not checked whether the table matches its text file.
+   * 
+   * @param sidecarFile
+   *          The sidecar file to read
+   * @return The table read from the sidecar file
+   * @throws IOException
+   *           If an I/O-Exception occurred or the file is no valid sidecar,
+   *           for example because its line starts are not ascending
+   */
+  public static LineOffsetTable readSidecar(final File sidecarFile)
+      throws IOException {
+    try (final FileChannel channel =
+        FileChannel.open(sidecarFile.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException();
+      }
+      final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new IOException();
+        }
+      }
+      buffer.flip();
+
+      if (buffer.getInt() != MAGIC_NUMBER
+          || buffer.getInt() != FORMAT_VERSION) {
+        throw new IOException();
+      }
+      final long sourceSize = buffer.getLong();
+      final long sourceLastModified = buffer.getLong();
+      final int amountOfLines = buffer.getInt();
+      if (amountOfLines < 0
+          || buffer.remaining() != (amountOfLines + 1L) * Long.BYTES) {
+        throw new IOException();
+      }
+      final long[] lineStarts = new long[amountOfLines + 1];
+      buffer.asLongBuffer().get(lineStarts);
+      if (lineStarts[0] != 0 || lineStarts[amountOfLines] != sourceSize) {
+        throw new IOException();
+      }
+      // Lines are not empty, thus their starts are strictly ascending
+      for (int i = 1; i <= amountOfLines; i++) {
+        if (lineStarts[i] <= lineStarts[i - 1]) {
+          throw new IOException();
+        }
+      }
+      return new LineOffsetTable(lineStarts, sourceSize, sourceLastModified);
+    }
+  }
+
+  /**
+   * Builds the table of the given text file by scanning it for line
+   * separators.
+   * 
+   * @param textFile
+   *          The text file to scan
+   * @return The table of the given text file
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  public static LineOffsetTable scan(final File textFile) throws IOException {
+    final long lastModified = textFile.lastModified();
+    try (final FileChannel channel =
+        FileChannel.open(textFile.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      long[] lineStarts = new long[1_024];
+      int amountOfLines = 0;
+
+      for (long regionStart = 0; regionStart < size;
+          regionStart += MAXIMAL_REGION_SIZE) {
+        final int regionSize =
+            (int) Math.min(size - regionStart, MAXIMAL_REGION_SIZE);
+        final MappedByteBuffer region =
+            channel.map(MapMode.READ_ONLY, regionStart, regionSize);
+        if (regionStart == 0) {
+          lineStarts[0] = 0;
+          amountOfLines++;
+        }
+        for (int i = 0; i < regionSize; i++) {
+          if (region.get(i) != LINE_SEPARATOR
+              || regionStart + i + 1 == size) {
+            continue;
+          }
+          if (amountOfLines == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, amountOfLines * 2);
+          }
+          lineStarts[amountOfLines] = regionStart + i + 1;
+          amountOfLines++;
+        }
+      }
+
+      lineStarts = Arrays.copyOf(lineStarts, amountOfLines + 1);
+      lineStarts[amountOfLines] = size;
+      return new LineOffsetTable(lineStarts, size, lastModified);
+    }
+  }
+
+  /**
+   * The position of the start of each line in ascending order, followed by
+   * the size of the text file.
+   */
+  private final long[] mLineStarts;
+  /**
+   * The modification time of the text file the table was built from.
+   */
+  private final long mSourceLastModified;
+  /**
+   * The size of the text file the table was built from.
+   */
+  private final long mSourceSize;
+
+  /**
+   * Creates a new table.
+   * 
+   * @param lineStarts
+   *          The position of the start of each line in ascending order,
+   *          followed by the size of the text file
+   * @param sourceSize
+   *          The size of the text file the table was built from
+   * @param sourceLastModified
+   *          The modification time of the text file the table was built from
+   */
+  private LineOffsetTable(final long[] lineStarts, final long sourceSize,
+      final long sourceLastModified) {
+    this.mLineStarts = lineStarts;
+    this.mSourceSize = sourceSize;
+    this.mSourceLastModified = sourceLastModified;
+  }
+
+  /**
+   * Gets the amount of lines of the text file, including empty lines. A line
+   * separator at the end of the file does not start another line.
+   * 
+   * @return The amount of lines of the text file
+   */
+  public int getAmountOfLines() {
+    return this.mLineStarts.length - 1;
+  }
+
+  /**
+   * Gets the position of the start of the line with the given index.
+   * 
+   * @param lineIndex
+   *          The index of the line, between <tt>0</tt> inclusive and
+   *          {@link #getAmountOfLines()} exclusive. The amount of lines
+   *          itself gives the size of the text file.
+   * @return The position in bytes from the start of the text file where the
+   *         line begins
+   * @throws IllegalArgumentException
+   *           If the index is out of bounds
+   */
+  public long getLineStart(final int lineIndex)
+      throws IllegalArgumentException {
+    if (lineIndex < 0 || lineIndex >= this.mLineStarts.length) {
+      throw new IllegalArgumentException();
+    }
+    return this.mLineStarts[lineIndex];
+  }
+
+  /**
+   * Gets the position of the start of each line in ascending order, followed
+   * by the size of the text file. The returned array must not be modified.
+   * 
+   * @return The position of the start of each line followed by the size of
+   *         the text file
+   */
+  public long[] getLineStarts() {
+    return this.mLineStarts;
+  }
+
+  /**
+   * Gets the modification time of the text file the table was built from.
+   * 
+   * @return The modification time of the text file in milliseconds since
+   *         the epoch
+   */
+  public long getSourceLastModified() {
+    return this.mSourceLastModified;
+  }
+
+  /**
+   * Gets the size of the text file the table was built from.
+   * 
+   * @return The size of the text file in bytes
+   */
+  public long getSourceSize() {
+    return this.mSourceSize;
+  }
+
+  /**
+   * Writes this table to the given sidecar file such that it can be read by
+   * {@link #readSidecar(File)}. The table is written to a temporary file first
+   * which then replaces the given file, thus readers never see a partially
+   * written sidecar.
+   * 
+   * @param sidecarFile
+   *          The sidecar file to write to
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  public void writeSidecar(final File sidecarFile) throws IOException {
+    final ByteBuffer buffer = ByteBuffer
+        .allocate(HEADER_SIZE + this.mLineStarts.length * Long.BYTES);
+    buffer.putInt(MAGIC_NUMBER);
+    buffer.putInt(FORMAT_VERSION);
+    buffer.putLong(this.mSourceSize);
+    buffer.putLong(this.mSourceLastModified);
+    buffer.putInt(getAmountOfLines());
+    buffer.asLongBuffer().put(this.mLineStarts);
+    buffer.position(buffer.capacity());
+    buffer.flip();
+
+    final File temporaryFile =
+        new File(sidecarFile.getPath() + TEMPORARY_FILE_SUFFIX);
+    try (final FileChannel channel = FileChannel.open(
+        temporaryFile.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    try {
+      Files.move(temporaryFile.toPath(), sidecarFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(temporaryFile.toPath(), sidecarFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
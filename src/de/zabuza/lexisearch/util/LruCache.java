@@ -0,0 +1,184 @@
+package de.zabuza.lexisearch.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent cache which holds a bounded amount of entries and evicts the
+ * least recently used entry if it is full. Entries are kept in a
+ * {@link LinkedHashMap} in access order.<br/>
+ * <br/>
+ * All operations are guarded by a single lock, access statistics can be read
+ * at any time without locking.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ * @param <K>
+ *          Type of the keys
+ * @param <V>
+ *          Type of the values
+ */
+public final class LruCache<K, V> {
+  /**
+   * The initial capacity of the map holding the entries.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+  /**
+   * The load factor of the map holding the entries.
+   */
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /**
+   * The entries of the cache in access order, the head is evicted first.
+   */
+  private final LinkedHashMap<K, V> mData;
+  /**
+   * The amount of lookups that found an entry.
+   */
+  private final AtomicLong mHitCount;
+  /**
+   * Lock guarding all operations on the entries.
+   */
+  private final ReentrantLock mLock;
+  /**
+   * The maximal amount of entries of the cache.
+   */
+  private final int mMaximumSize;
+  /**
+   * The amount of lookups that did not find an entry.
+   */
+  private final AtomicLong mMissCount;
+
+  /**
+   * Creates a new empty cache which holds at most the given amount of
+   * entries.
+   * 
+   * @param maximumSize
+   *          The maximal amount of entries, must be positive
+   */
+  public LruCache(final int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.mMaximumSize = maximumSize;
+    this.mData = new LinkedHashMap<K, V>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+      /**
+       * The serial version UID.
+       */
+      private static final long serialVersionUID = 1L;
+
+      /*
+       * (non-Javadoc)
+       * 
+       * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+       */
+      @Override
+      protected boolean removeEldestEntry(final Entry<K, V> eldest) {
+        return size() > LruCache.this.mMaximumSize;
+      }
+    };
+    this.mLock = new ReentrantLock();
+    this.mHitCount = new AtomicLong();
+    this.mMissCount = new AtomicLong();
+  }
+
+  /**
+   * Gets the value of the given key and marks it as most recently used.
+   * 
+   * @param key
+   *          The key of the value to get
+   * @return The value of the given key or <tt>null</tt> if it is not contained
+   */
+  public V get(final K key) {
+    final V value;
+    this.mLock.lock();
+    try {
+      value = this.mData.get(key);
+    } finally {
+      this.mLock.unlock();
+    }
+    if (value == null) {
+      this.mMissCount.incrementAndGet();
+    } else {
+      this.mHitCount.incrementAndGet();
+    }
+    return value;
+  }
+
+  /**
+   * Gets the amount of lookups that found an entry.
+   * 
+   * @return The amount of lookups that found an entry
+   */
+  public long getHitCount() {
+    return this.mHitCount.get();
+  }
+
+  /**
+   * Gets the maximal amount of entries of the cache.
+   * 
+   * @return The maximal amount of entries of the cache
+   */
+  public int getMaximumSize() {
+    return this.mMaximumSize;
+  }
+
+  /**
+   * Gets the amount of lookups that did not find an entry.
+   * 
+   * @return The amount of lookups that did not find an entry
+   */
+  public long getMissCount() {
+    return this.mMissCount.get();
+  }
+
+  /**
+   * Removes all entries of the cache. Access statistics are kept.
+   */
+  public void invalidateAll() {
+    this.mLock.lock();
+    try {
+      this.mData.clear();
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Puts the given entry into the cache as most recently used entry,
+   * replacing a previous value of the key. Evicts the least recently used
+   * entry if the cache is full.
+   * 
+   * @param key
+   *          The key of the entry
+   * @param value
+   *          The value of the entry, must not be <tt>null</tt>
+   */
+  public void put(final K key, final V value) {
+    if (value == null) {
+      throw new IllegalArgumentException();
+    }
+    this.mLock.lock();
+    try {
+      this.mData.put(key, value);
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the amount of entries currently held by the cache.
+   * 
+   * @return The amount of entries currently held by the cache
+   */
+  public int size() {
+    this.mLock.lock();
+    try {
+      return this.mData.size();
+    } finally {
+      this.mLock.unlock();
+    }
+  }
+}
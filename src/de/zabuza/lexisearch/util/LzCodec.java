@@ -0,0 +1,288 @@
+package de.zabuza.lexisearch.util;
+
+import java.util.Arrays;
+
+/**
+ * Utility class which compresses bytes with a fast LZ77-style codec. The
+ * compressor greedily replaces repeated sequences of at least
+ * {@link #MINIMAL_MATCH_LENGTH} bytes by references to their previous
+ * occurrence, which is found by a hash table over the sequences. It does not
+ * use entropy coding, thus decompression is a simple copy loop.<br/>
+ * <br/>
+ * The compressed data is a list of sequences. Each sequence starts with a
+ * token byte, its upper four bits hold the amount of literal bytes and its
+ * lower four bits the length of the match minus
+ * {@link #MINIMAL_MATCH_LENGTH}. A value of <tt>15</tt> is continued by
+ * additional length bytes, which are summed up until a byte is less than
+ * <tt>255</tt>. The literal bytes follow, then the distance of the match as
+ * two bytes in little-endian order and the additional match length bytes.
+ * The last sequence only consists of literals.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class LzCodec {
+  /**
+   * The minimal length of a match which gets referenced.
+   */
+  public static final int MINIMAL_MATCH_LENGTH = 4;
+  /**
+   * The amount of bits of a hash of a sequence.
+   */
+  private static final int HASH_BITS = 12;
+  /**
+   * The multiplier used to hash sequences.
+   */
+  private static final int HASH_MULTIPLIER = -1640531535;
+  /**
+   * The greatest value of a length byte, the length is continued by the next
+   * byte if it has this value.
+   */
+  private static final int MAXIMAL_LENGTH_BYTE = 255;
+  /**
+   * The greatest distance of a match.
+   */
+  private static final int MAXIMAL_MATCH_DISTANCE = 65_535;
+  /**
+   * The greatest value of a length nibble, the length is continued by length
+   * bytes if it has this value.
+   */
+  private static final int MAXIMAL_NIBBLE = 15;
+  /**
+   * Message which is shown when compressed data is malformed.
+   */
+  private static final String MSG_MALFORMED_DATA =
+      "The given data is not compressed by this codec.";
+  /**
+   * Constant for a slot of the hash table which holds no position.
+   */
+  private static final int NO_POSITION = -1;
+
+  /**
+   * Compresses the given range of bytes.
+   * 
+   * @param input
+   *          The bytes to compress
+   * @param offset
+   *          The index of the first byte to compress
+   * @param length
+   *          The amount of bytes to compress
+   * @return The compressed bytes, they can be decompressed by
+   *         {@link #decompress(byte[], int)} given the length
+   */
+  public static byte[] compress(final byte[] input, final int offset,
+      final int length) {
+    // Incompressible input grows by the length bytes and one token
+    final byte[] output =
+        new byte[length + length / MAXIMAL_LENGTH_BYTE + MAXIMAL_NIBBLE];
+    final int[] hashTable = new int[1 << HASH_BITS];
+    Arrays.fill(hashTable, NO_POSITION);
+
+    final int end = offset + length;
+    int outputPosition = 0;
+    int anchor = offset;
+    int position = offset;
+    while (position + MINIMAL_MATCH_LENGTH <= end) {
+      final int sequence = readInt(input, position);
+      final int hash = (sequence * HASH_MULTIPLIER) >>> (32 - HASH_BITS);
+      final int candidate = hashTable[hash];
+      hashTable[hash] = position;
+
+      if (candidate == NO_POSITION
+          || position - candidate > MAXIMAL_MATCH_DISTANCE
+          || readInt(input, candidate) != sequence) {
+        position++;
+        continue;
+      }
+
+      int matchLength = MINIMAL_MATCH_LENGTH;
+      while (position + matchLength < end
+          && input[candidate + matchLength] == input[position + matchLength]) {
+        matchLength++;
+      }
+      outputPosition = writeSequence(input, anchor, position - anchor,
+          position - candidate, matchLength, output, outputPosition);
+      position += matchLength;
+      anchor = position;
+    }
+
+    outputPosition = writeSequence(input, anchor, end - anchor, 0, 0, output,
+        outputPosition);
+    return Arrays.copyOf(output, outputPosition);
+  }
+
+  /**
+   * Decompresses the given bytes which were compressed by
+   * {@link #compress(byte[], int, int)}.
+   * 
+   * @param input
+   *          The compressed bytes
+   * @param length
+   *          The amount of bytes before compression
+   * @return The decompressed bytes
+   * @throws IllegalArgumentException
+   *           If the given bytes are malformed or do not decompress to the
+   *           given length
+   */
+  public static byte[] decompress(final byte[] input, final int length)
+      throws IllegalArgumentException {
+    final byte[] output = new byte[length];
+    int inputPosition = 0;
+    int outputPosition = 0;
+    try {
+      // The data ends with a sequence without match, thus truncated data
+      // runs out of bounds
+      while (true) {
+        final int token = input[inputPosition] & 0xFF;
+        inputPosition++;
+
+        // Literals
+        int literalLength = token >>> 4;
+        if (literalLength == MAXIMAL_NIBBLE) {
+          int lengthByte;
+          do {
+            lengthByte = input[inputPosition] & 0xFF;
+            inputPosition++;
+            literalLength += lengthByte;
+          } while (lengthByte == MAXIMAL_LENGTH_BYTE);
+        }
+        System.arraycopy(input, inputPosition, output, outputPosition,
+            literalLength);
+        inputPosition += literalLength;
+        outputPosition += literalLength;
+        if (inputPosition == input.length) {
+          break;
+        }
+
+        // Match
+        final int distance = (input[inputPosition] & 0xFF)
+            | ((input[inputPosition + 1] & 0xFF) << 8);
+        inputPosition += 2;
+        int matchLength = token & MAXIMAL_NIBBLE;
+        if (matchLength == MAXIMAL_NIBBLE) {
+          int lengthByte;
+          do {
+            lengthByte = input[inputPosition] & 0xFF;
+            inputPosition++;
+            matchLength += lengthByte;
+          } while (lengthByte == MAXIMAL_LENGTH_BYTE);
+        }
+        matchLength += MINIMAL_MATCH_LENGTH;
+        if (distance == 0 || distance > outputPosition
+            || outputPosition + matchLength > length) {
+          throw new IllegalArgumentException(MSG_MALFORMED_DATA);
+        }
+        // Copy byte by byte, the match may overlap with its own output
+        final int matchStart = outputPosition - distance;
+        for (int i = 0; i < matchLength; i++) {
+          output[outputPosition + i] = output[matchStart + i];
+        }
+        outputPosition += matchLength;
+      }
+    } catch (final IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException(MSG_MALFORMED_DATA, e);
+    }
+
+    if (outputPosition != length) {
+      throw new IllegalArgumentException(MSG_MALFORMED_DATA);
+    }
+    return output;
+  }
+
+  /**
+   * Reads four bytes starting at the given position as integer.
+   * 
+   * @param input
+   *          The bytes to read from
+   * @param position
+   *          The position of the first byte
+   * @return The integer the bytes represent in little-endian order
+   */
+  private static int readInt(final byte[] input, final int position) {
+    return (input[position] & 0xFF) | ((input[position + 1] & 0xFF) << 8)
+        | ((input[position + 2] & 0xFF) << 16)
+        | ((input[position + 3] & 0xFF) << 24);
+  }
+
+  /**
+   * Writes the given length as continuation bytes of a length nibble.
+   * 
+   * @param length
+   *          The remaining length after subtracting the nibble value
+   * @param output
+   *          The bytes to write to
+   * @param outputPosition
+   *          The position to write to
+   * @return The position after the written bytes
+   */
+  private static int writeLength(final int length, final byte[] output,
+      final int outputPosition) {
+    int remainingLength = length;
+    int position = outputPosition;
+    while (remainingLength >= MAXIMAL_LENGTH_BYTE) {
+      output[position] = (byte) MAXIMAL_LENGTH_BYTE;
+      position++;
+      remainingLength -= MAXIMAL_LENGTH_BYTE;
+    }
+    output[position] = (byte) remainingLength;
+    return position + 1;
+  }
+
+  /**
+   * Writes a sequence consisting of the given literals followed by the given
+   * match.
+   * 
+   * @param input
+   *          The bytes holding the literals
+   * @param literalStart
+   *          The position of the first literal
+   * @param literalLength
+   *          The amount of literals
+   * @param distance
+   *          The distance of the match or <tt>0</tt> if the sequence is the
+   *          last one and has no match
+   * @param matchLength
+   *          The length of the match, ignored if there is no match
+   * @param output
+   *          The bytes to write to
+   * @param outputPosition
+   *          The position to write to
+   * @return The position after the written sequence
+   */
+  private static int writeSequence(final byte[] input, final int literalStart,
+      final int literalLength, final int distance, final int matchLength,
+      final byte[] output, final int outputPosition) {
+    final int tokenPosition = outputPosition;
+    int position = outputPosition + 1;
+
+    final int literalNibble = Math.min(literalLength, MAXIMAL_NIBBLE);
+    if (literalNibble == MAXIMAL_NIBBLE) {
+      position = writeLength(literalLength - MAXIMAL_NIBBLE, output, position);
+    }
+    System.arraycopy(input, literalStart, output, position, literalLength);
+    position += literalLength;
+
+    int matchNibble = 0;
+    if (distance != 0) {
+      output[position] = (byte) distance;
+      output[position + 1] = (byte) (distance >>> 8);
+      position += 2;
+      final int encodedMatchLength = matchLength - MINIMAL_MATCH_LENGTH;
+      matchNibble = Math.min(encodedMatchLength, MAXIMAL_NIBBLE);
+      if (matchNibble == MAXIMAL_NIBBLE) {
+        position = writeLength(encodedMatchLength - MAXIMAL_NIBBLE, output,
+            position);
+      }
+    }
+
+    output[tokenPosition] = (byte) ((literalNibble << 4) | matchNibble);
+    return position;
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private LzCodec() {
+
+  }
+}
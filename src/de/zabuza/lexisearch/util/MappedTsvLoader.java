@@ -0,0 +1,311 @@
+package de.zabuza.lexisearch.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Utility class which loads files of tab separated values encoded in UTF-8 in
+ * parallel. The file is memory-mapped and split into chunks whose bounds are
+ * aligned to line separators. The chunks are scanned byte by byte on the
+ * common fork/join pool, each row is given as {@link TsvRow} to a
+ * {@link ITsvRowParser}.<br/>
+ * <br/>
+ * Lines are separated by <tt>\n</tt> or <tt>\r\n</tt>. Empty lines are
+ * skipped, but they are counted for the line index given to the parser.
+ * Chunks which are read by other means, for example streamed from a channel,
+ * can be counted and parsed by the same methods. Rows which should fill a
+ * shared structure instead of creating objects can be consumed by one thread
+ * in the order of the lines, see {@link #forEachRow(Path, ITsvRowConsumer)}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class MappedTsvLoader {
+  /**
+   * The carriage return byte which may precede the line separator.
+   */
+  private static final byte CARRIAGE_RETURN = '\r';
+  /**
+   * The amount of chunks per thread of the common pool. More chunks than
+   * threads balance the load of chunks with different line lengths.
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+  /**
+   * The line separator byte.
+   */
+  private static final byte LINE_SEPARATOR = '\n';
+  /**
+   * The maximal size of a chunk in bytes.
+   */
+  private static final long MAXIMAL_CHUNK_SIZE = 64L * 1024 * 1024;
+  /**
+   * The size of the buffer used to search line separators at chunk bounds.
+   */
+  private static final int SEARCH_BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * Counts the lines of the given chunk, including empty lines. The last
+   * line does not need to end with a line separator.
+   * 
+   * @param chunk
+   *          The chunk to count lines of
+   * @return The amount of lines of the chunk
+   */
+  public static int countLines(final ByteBuffer chunk) {
+    final int size = chunk.limit();
+    int amountOfLines = 0;
+    for (int i = 0; i < size; i++) {
+      if (chunk.get(i) == LINE_SEPARATOR) {
+        amountOfLines++;
+      }
+    }
+    if (size > 0 && chunk.get(size - 1) != LINE_SEPARATOR) {
+      amountOfLines++;
+    }
+    return amountOfLines;
+  }
+
+  /**
+   * Consumes each row of the given file of tab separated values with the
+   * given consumer. The rows are consumed by the calling thread in the order
+   * of the lines, without creating an object per row.
+   * 
+   * @param file
+   *          The file to consume, encoded in UTF-8
+   * @param consumer
+   *          The consumer of the rows
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws IllegalArgumentException
+   *           If the consumer rejects a row
+   */
+  public static void forEachRow(final Path file,
+      final ITsvRowConsumer consumer) throws IOException {
+    int lineIndex = 0;
+    for (final MappedByteBuffer chunk : mapChunks(file)) {
+      lineIndex = scanChunk(chunk, lineIndex, consumer);
+    }
+  }
+
+  /**
+   * Loads the given file of tab separated values by parsing each row with the
+   * given parser in parallel.
+   * 
+   * @param <T>
+   *          The type of objects the parser creates
+   * @param file
+   *          The file to load, encoded in UTF-8
+   * @param parser
+   *          The parser to create an object from each row
+   * @return A list containing the objects created from the rows, in the order
+   *         of the lines
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   * @throws IllegalArgumentException
+   *           If the parser rejects a row
+   */
+  public static <T> List<T> load(final Path file,
+      final ITsvRowParser<T> parser) throws IOException {
+    final MappedByteBuffer[] chunks = mapChunks(file);
+
+    // Count the lines of each chunk first to know the index of their lines
+    final int[] firstLineIndices = new int[chunks.length];
+    IntStream.range(0, chunks.length).parallel()
+        .forEach(i -> firstLineIndices[i] = countLines(chunks[i]));
+    int amountOfLines = 0;
+    for (int i = 0; i < chunks.length; i++) {
+      final int amountOfChunkLines = firstLineIndices[i];
+      firstLineIndices[i] = amountOfLines;
+      amountOfLines += amountOfChunkLines;
+    }
+
+    final List<List<T>> chunkResults = IntStream.range(0, chunks.length)
+        .parallel()
+        .mapToObj(i -> parseChunk(chunks[i], firstLineIndices[i], parser))
+        .collect(Collectors.toList());
+    final ArrayList<T> result = new ArrayList<>(amountOfLines);
+    for (final List<T> chunkResult : chunkResults) {
+      result.addAll(chunkResult);
+    }
+    return result;
+  }
+
+  /**
+   * Parses all non-empty lines of the given chunk.
+   * 
+   * @param <T>
+   *          The type of objects the parser creates
+   * @param chunk
+   *          The chunk to parse
+   * @param firstLineIndex
+   *          The index of the first line of the chunk in the file
+   * @param parser
+   *          The parser to create an object from each row
+   * @return A list containing the objects created from the rows of the chunk
+   */
+  public static <T> List<T> parseChunk(final ByteBuffer chunk,
+      final int firstLineIndex, final ITsvRowParser<T> parser) {
+    final ArrayList<T> result = new ArrayList<>();
+    scanChunk(chunk, firstLineIndex,
+        (row, lineIndex) -> result.add(parser.parse(row, lineIndex)));
+    return result;
+  }
+
+  /**
+   * Consumes all non-empty lines of the given chunk in the order of the
+   * lines.
+   * 
+   * @param chunk
+   *          The chunk to scan
+   * @param firstLineIndex
+   *          The index of the first line of the chunk in the file
+   * @param consumer
+   *          The consumer of the rows
+   * @return The index of the first line after the chunk in the file
+   */
+  public static int scanChunk(final ByteBuffer chunk, final int firstLineIndex,
+      final ITsvRowConsumer consumer) {
+    final TsvRow row = new TsvRow(chunk);
+    final int size = chunk.limit();
+    int lineIndex = firstLineIndex;
+    int lineStart = 0;
+    while (lineStart < size) {
+      int lineEnd = lineStart;
+      while (lineEnd < size && chunk.get(lineEnd) != LINE_SEPARATOR) {
+        lineEnd++;
+      }
+      final int nextLineStart = lineEnd + 1;
+      if (lineEnd > lineStart && chunk.get(lineEnd - 1) == CARRIAGE_RETURN) {
+        lineEnd--;
+      }
+
+      if (lineEnd > lineStart) {
+        row.setBounds(lineStart, lineEnd);
+        consumer.accept(row, lineIndex);
+      }
+      lineIndex++;
+      lineStart = nextLineStart;
+    }
+    return lineIndex;
+  }
+
+  /**
+   * Computes the bounds of the chunks the content of the given channel gets
+   * split into. Each bound, except the last, lies directly after a line
+   * separator.
+   * 
+   * @param channel
+   *          The channel to split
+   * @return The ascending bounds of the chunks, the chunk <tt>i</tt> ranges
+   *         from the bound <tt>i</tt> inclusive to the bound <tt>i + 1</tt>
+   *         exclusive
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static long[] computeChunkBounds(final FileChannel channel)
+      throws IOException {
+    final long size = channel.size();
+    final long amountOfThreadChunks =
+        (long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+    final long amountOfSizeChunks =
+        (size + MAXIMAL_CHUNK_SIZE - 1) / MAXIMAL_CHUNK_SIZE;
+    final long amountOfChunks =
+        Math.max(1, Math.max(amountOfThreadChunks, amountOfSizeChunks));
+    final long nominalChunkSize =
+        Math.max(1, (size + amountOfChunks - 1) / amountOfChunks);
+
+    final ArrayList<Long> bounds = new ArrayList<>();
+    bounds.add(Long.valueOf(0));
+    long lastBound = 0;
+    final ByteBuffer searchBuffer = ByteBuffer.allocate(SEARCH_BUFFER_SIZE);
+    while (lastBound < size) {
+      // The line containing the nominal end belongs to this chunk
+      long bound = Math.min(size, lastBound + nominalChunkSize);
+      if (bound < size) {
+        bound = findLineEnd(channel, bound - 1, searchBuffer);
+      }
+      bounds.add(Long.valueOf(bound));
+      lastBound = bound;
+    }
+
+    final long[] result = new long[bounds.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = bounds.get(i).longValue();
+    }
+    return result;
+  }
+
+  /**
+   * Finds the position after the first line separator at or after the given
+   * position.
+   * 
+   * @param channel
+   *          The channel to search in
+   * @param position
+   *          The position to start searching at
+   * @param searchBuffer
+   *          Buffer to use for reading
+   * @return The position after the found line separator or the size of the
+   *         channel if there is none
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static long findLineEnd(final FileChannel channel,
+      final long position, final ByteBuffer searchBuffer) throws IOException {
+    long readPosition = position;
+    while (true) {
+      searchBuffer.clear();
+      final int amountRead = channel.read(searchBuffer, readPosition);
+      if (amountRead <= 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < amountRead; i++) {
+        if (searchBuffer.get(i) == LINE_SEPARATOR) {
+          return readPosition + i + 1;
+        }
+      }
+      readPosition += amountRead;
+    }
+  }
+
+  /**
+   * Maps the given file in chunks whose bounds are aligned to line
+   * separators.
+   * 
+   * @param file
+   *          The file to map
+   * @return The mapped chunks in the order of the file
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static MappedByteBuffer[] mapChunks(final Path file)
+      throws IOException {
+    try (final FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ)) {
+      final long[] bounds = computeChunkBounds(channel);
+      final MappedByteBuffer[] chunks = new MappedByteBuffer[bounds.length - 1];
+      for (int i = 0; i < chunks.length; i++) {
+        chunks[i] = channel.map(MapMode.READ_ONLY, bounds[i],
+            bounds[i + 1] - bounds[i]);
+      }
+      return chunks;
+    }
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private MappedTsvLoader() {
+
+  }
+}
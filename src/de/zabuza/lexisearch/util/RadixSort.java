@@ -0,0 +1,103 @@
+package de.zabuza.lexisearch.util;
+
+import java.util.Arrays;
+
+/**
+ * Offers a stable least significant digit radix sort for <tt>long</tt> keys
+ * which carry an <tt>int</tt> value each. It sorts in linear time by
+ * distributing the keys by one byte per pass. Passes over bytes which are
+ * equal for all keys are skipped, thus keys which only use their lower bits
+ * need fewer passes.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class RadixSort {
+  /**
+   * The amount of bits sorted by one pass.
+   */
+  private static final int BITS_PER_PASS = 8;
+  /**
+   * The amount of different digits of one pass.
+   */
+  private static final int RADIX = 1 << BITS_PER_PASS;
+  /**
+   * Mask which extracts the digit of one pass.
+   */
+  private static final int DIGIT_MASK = RADIX - 1;
+
+  /**
+   * Sorts the given keys in ascending order, compared as unsigned values, and
+   * moves the values along with their keys. The sort is stable, i.e. the
+   * values of equal keys keep their order.
+   * 
+   * @param keys
+   *          The keys to sort
+   * @param values
+   *          The values of the keys, the value at index <tt>i</tt> belongs to
+   *          the key at index <tt>i</tt>
+   * @throws IllegalArgumentException
+   *           If the amount of keys and values differs
+   */
+  public static void sort(final long[] keys, final int[] values) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException();
+    }
+    final int size = keys.length;
+    long usedBits = 0;
+    for (final long key : keys) {
+      usedBits |= key;
+    }
+
+    long[] sourceKeys = keys;
+    int[] sourceValues = values;
+    long[] targetKeys = new long[size];
+    int[] targetValues = new int[size];
+    final int[] positions = new int[RADIX];
+    for (int shift = 0; shift < Long.SIZE
+        && (usedBits >>> shift) != 0; shift += BITS_PER_PASS) {
+      Arrays.fill(positions, 0);
+      for (final long key : sourceKeys) {
+        positions[(int) ((key >>> shift) & DIGIT_MASK)]++;
+      }
+      if (positions[(int) ((sourceKeys[0] >>> shift) & DIGIT_MASK)] == size) {
+        // All keys have the same digit, the pass would not change the order
+        continue;
+      }
+
+      // Transform the counts into the first position of each digit
+      int position = 0;
+      for (int digit = 0; digit < RADIX; digit++) {
+        final int count = positions[digit];
+        positions[digit] = position;
+        position += count;
+      }
+      for (int i = 0; i < size; i++) {
+        final int digit = (int) ((sourceKeys[i] >>> shift) & DIGIT_MASK);
+        final int target = positions[digit];
+        positions[digit]++;
+        targetKeys[target] = sourceKeys[i];
+        targetValues[target] = sourceValues[i];
+      }
+
+      final long[] swapKeys = sourceKeys;
+      sourceKeys = targetKeys;
+      targetKeys = swapKeys;
+      final int[] swapValues = sourceValues;
+      sourceValues = targetValues;
+      targetValues = swapValues;
+    }
+
+    if (sourceKeys != keys) {
+      System.arraycopy(sourceKeys, 0, keys, 0, size);
+      System.arraycopy(sourceValues, 0, values, 0, size);
+    }
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private RadixSort() {
+
+  }
+}
@@ -0,0 +1,338 @@
+package de.zabuza.lexisearch.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * View on a single row of tab separated values encoded in UTF-8, which lies
+ * in a byte buffer. The view is a flyweight which gets moved from row to row
+ * by {@link MappedTsvLoader}, it only stores the bounds of the fields.
+ * Numbers are parsed directly from the bytes without creating intermediate
+ * {@link String}s, only {@link #getString(int)} decodes text.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class TsvRow {
+  /**
+   * The byte which separates fields.
+   */
+  private static final byte FIELD_SEPARATOR = '\t';
+  /**
+   * The initial capacity of the field bound arrays.
+   */
+  private static final int INITIAL_CAPACITY = 8;
+  /**
+   * The greatest power of ten which is represented exactly as
+   * <tt>double</tt>.
+   */
+  private static final int MAXIMAL_EXACT_POWER = 22;
+  /**
+   * The greatest amount of significant digits which fit into the mantissa
+   * accumulator without overflow.
+   */
+  private static final int MAXIMAL_SIGNIFICANT_DIGITS = 18;
+  /**
+   * The powers of ten which are represented exactly as <tt>double</tt>,
+   * indexed by exponent.
+   */
+  private static final double[] POWERS_OF_TEN = new double[] { 1e0, 1e1, 1e2,
+      1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+      1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  /**
+   * The buffer which holds the rows.
+   */
+  private final ByteBuffer mBuffer;
+  /**
+   * The index of the byte after the last byte of each field.
+   */
+  private int[] mFieldEnds;
+  /**
+   * The amount of fields of the current row.
+   */
+  private int mFieldSize;
+  /**
+   * The index of the first byte of each field.
+   */
+  private int[] mFieldStarts;
+  /**
+   * Scratch buffer used to decode text.
+   */
+  private byte[] mScratch;
+
+  /**
+   * Creates a new row view on the given buffer. Use
+   * {@link #setBounds(int, int)} to move it to a row.
+   * 
+   * @param buffer
+   *          The buffer which holds the rows, it is only read by absolute
+   *          access
+   */
+  TsvRow(final ByteBuffer buffer) {
+    this.mBuffer = buffer;
+    this.mFieldStarts = new int[INITIAL_CAPACITY];
+    this.mFieldEnds = new int[INITIAL_CAPACITY];
+    this.mFieldSize = 0;
+    this.mScratch = new byte[0];
+  }
+
+  /**
+   * Gets the amount of fields of this row.
+   * 
+   * @return The amount of fields of this row
+   */
+  public int getAmountOfFields() {
+    return this.mFieldSize;
+  }
+
+  /**
+   * Parses the given field as decimal number, like
+   * {@link Double#parseDouble(String)} does. The common form of an optional
+   * sign, digits, an optional fraction and an optional exponent is parsed
+   * directly from the bytes. For numbers with more than 15 significant digits
+   * the result may differ from the library in the last bit.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The number the field represents
+   * @throws IllegalArgumentException
+   *           If the field does not represent a number
+   */
+  public double getDouble(final int field) {
+    final int end = this.mFieldEnds[field];
+    int index = this.mFieldStarts[field];
+    boolean isNegative = false;
+    if (index < end && (this.mBuffer.get(index) == '-'
+        || this.mBuffer.get(index) == '+')) {
+      isNegative = this.mBuffer.get(index) == '-';
+      index++;
+    }
+
+    long mantissa = 0;
+    int significantDigits = 0;
+    int exponent = 0;
+    int digits = 0;
+    boolean isFraction = false;
+    for (; index < end; index++) {
+      final byte current = this.mBuffer.get(index);
+      if (current >= '0' && current <= '9') {
+        digits++;
+        if (significantDigits < MAXIMAL_SIGNIFICANT_DIGITS) {
+          if (mantissa != 0 || current != '0') {
+            significantDigits++;
+          }
+          mantissa = mantissa * 10 + (current - '0');
+          if (isFraction) {
+            exponent--;
+          }
+        } else if (!isFraction) {
+          // Digits beyond the precision only shift the value
+          exponent++;
+        }
+      } else if (current == '.' && !isFraction) {
+        isFraction = true;
+      } else {
+        break;
+      }
+    }
+    if (index < end
+        && (this.mBuffer.get(index) == 'e' || this.mBuffer.get(index) == 'E')
+        && digits > 0) {
+      exponent += parseInt(index + 1, end);
+      index = end;
+    }
+    if (index != end || digits == 0) {
+      // Uncommon forms, like special values, are left to the library
+      return Double.parseDouble(getString(field));
+    }
+
+    final double value;
+    if (mantissa == 0) {
+      value = 0.0;
+    } else if (exponent >= 0 && exponent <= MAXIMAL_EXACT_POWER) {
+      value = mantissa * POWERS_OF_TEN[exponent];
+    } else if (exponent < 0 && -exponent <= MAXIMAL_EXACT_POWER) {
+      value = mantissa / POWERS_OF_TEN[-exponent];
+    } else {
+      value = mantissa * Math.pow(10, exponent);
+    }
+    if (isNegative) {
+      return -value;
+    }
+    return value;
+  }
+
+  /**
+   * Parses the given field as decimal number, like
+   * {@link Float#parseFloat(String)} does.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The number the field represents
+   * @throws IllegalArgumentException
+   *           If the field does not represent a number
+   * @see #getDouble(int)
+   */
+  public float getFloat(final int field) {
+    return (float) getDouble(field);
+  }
+
+  /**
+   * Parses the given field as integer, like {@link Integer#parseInt(String)}
+   * does.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The integer the field represents
+   * @throws IllegalArgumentException
+   *           If the field does not represent an integer
+   */
+  public int getInt(final int field) {
+    return parseInt(this.mFieldStarts[field], this.mFieldEnds[field]);
+  }
+
+  /**
+   * Decodes the given field as text.
+   * 
+   * @param field
+   *          The index of the field
+   * @return The text of the field
+   */
+  public String getString(final int field) {
+    final int start = this.mFieldStarts[field];
+    final int length = this.mFieldEnds[field] - start;
+    if (this.mScratch.length < length) {
+      this.mScratch = new byte[Math.max(length, this.mScratch.length * 2)];
+    }
+    for (int i = 0; i < length; i++) {
+      this.mScratch[i] = this.mBuffer.get(start + i);
+    }
+    return new String(this.mScratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Whether the given field consists of digits only, i.e. matches
+   * <tt>\d+</tt>.
+   * 
+   * @param field
+   *          The index of the field
+   * @return <tt>True</tt> if the field is not empty and consists of digits
+   *         only, <tt>false</tt> otherwise
+   */
+  public boolean isDigits(final int field) {
+    final int start = this.mFieldStarts[field];
+    final int end = this.mFieldEnds[field];
+    if (start == end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      final byte current = this.mBuffer.get(i);
+      if (current < '0' || current > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    final String[] fields = new String[this.mFieldSize];
+    for (int i = 0; i < this.mFieldSize; i++) {
+      fields[i] = getString(i);
+    }
+    return Arrays.toString(fields);
+  }
+
+  /**
+   * Moves this view to the row with the given bounds and scans its fields.
+   * 
+   * @param start
+   *          The index of the first byte of the row
+   * @param end
+   *          The index of the byte after the last byte of the row, without
+   *          line separator
+   */
+  void setBounds(final int start, final int end) {
+    this.mFieldSize = 0;
+    int fieldStart = start;
+    for (int i = start; i < end; i++) {
+      if (this.mBuffer.get(i) == FIELD_SEPARATOR) {
+        addField(fieldStart, i);
+        fieldStart = i + 1;
+      }
+    }
+    addField(fieldStart, end);
+  }
+
+  /**
+   * Adds a field with the given bounds to the current row.
+   * 
+   * @param start
+   *          The index of the first byte of the field
+   * @param end
+   *          The index of the byte after the last byte of the field
+   */
+  private void addField(final int start, final int end) {
+    if (this.mFieldSize == this.mFieldStarts.length) {
+      this.mFieldStarts =
+          Arrays.copyOf(this.mFieldStarts, this.mFieldStarts.length * 2);
+      this.mFieldEnds =
+          Arrays.copyOf(this.mFieldEnds, this.mFieldEnds.length * 2);
+    }
+    this.mFieldStarts[this.mFieldSize] = start;
+    this.mFieldEnds[this.mFieldSize] = end;
+    this.mFieldSize++;
+  }
+
+  /**
+   * Parses the bytes within the given bounds as integer with an optional
+   * sign.
+   * 
+   * @param start
+   *          The index of the first byte
+   * @param end
+   *          The index of the byte after the last byte
+   * @return The integer the bytes represent
+   * @throws IllegalArgumentException
+   *           If the bytes do not represent an integer
+   */
+  private int parseInt(final int start, final int end) {
+    int index = start;
+    boolean isNegative = false;
+    if (index < end && (this.mBuffer.get(index) == '-'
+        || this.mBuffer.get(index) == '+')) {
+      isNegative = this.mBuffer.get(index) == '-';
+      index++;
+    }
+    if (index == end) {
+      throw new IllegalArgumentException();
+    }
+    // Accumulate negatively as the negative range is greater
+    int value = 0;
+    for (; index < end; index++) {
+      final byte current = this.mBuffer.get(index);
+      if (current < '0' || current > '9') {
+        throw new IllegalArgumentException();
+      }
+      final int digit = current - '0';
+      if (value < (Integer.MIN_VALUE + digit) / 10) {
+        throw new IllegalArgumentException();
+      }
+      value = value * 10 - digit;
+    }
+    if (isNegative) {
+      return value;
+    }
+    if (value == Integer.MIN_VALUE) {
+      throw new IllegalArgumentException();
+    }
+    return -value;
+  }
+}
@@ -0,0 +1,86 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link AggregationPlan}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class AggregationPlanTest {
+
+  /**
+   * Test method for {@link AggregationPlan#execute()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testExecute() {
+    final InvertedList firstList = new InvertedList();
+    firstList.addPosting(1);
+    firstList.addPosting(2);
+    firstList.addPosting(4);
+    final InvertedList secondList = new InvertedList();
+    secondList.addPosting(2);
+    secondList.addPosting(3);
+    secondList.addPosting(4);
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    lists.add(firstList);
+    lists.add(secondList);
+
+    final AggregationPlan intersectPlan =
+        AggregationPlanner.plan(lists, EAggregateMode.INTERSECT);
+    final IInvertedList intersection = intersectPlan.execute();
+    Assert.assertEquals(2, intersection.getSize());
+    Assert.assertTrue(intersection.containsPosting(2));
+    Assert.assertTrue(intersection.containsPosting(4));
+    Assert.assertEquals(2, intersection.getPosting(2).getTermFrequency());
+
+    final AggregationPlan unionPlan =
+        AggregationPlanner.plan(lists, EAggregateMode.UNION);
+    Assert.assertEquals(4, unionPlan.execute().getSize());
+  }
+
+  /**
+   * Test method for {@link AggregationPlan#explain()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testExplain() {
+    final InvertedList firstList = new InvertedList();
+    firstList.addPosting(1);
+    firstList.addPosting(2);
+    final InvertedList secondList = new InvertedList();
+    secondList.addPosting(2);
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    lists.add(firstList);
+    lists.add(secondList);
+
+    final AggregationPlan plan =
+        AggregationPlanner.plan(lists, EAggregateMode.INTERSECT);
+    final String explanation = plan.explain();
+    Assert.assertTrue(explanation.startsWith("INTERSECT using "));
+    Assert.assertTrue(explanation.contains("operand sizes [1, 2]"));
+    Assert.assertTrue(explanation.contains("LINEAR_MERGE="));
+    Assert.assertTrue(explanation.contains(plan.getStrategy().toString()));
+    Assert.assertEquals(explanation, plan.toString());
+  }
+
+  /**
+   * Test method for {@link AggregationPlan#getMode()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetMode() {
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    lists.add(new InvertedList());
+    Assert.assertEquals(EAggregateMode.UNION,
+        AggregationPlanner.plan(lists, EAggregateMode.UNION).getMode());
+    Assert.assertEquals(EAggregateMode.INTERSECT,
+        AggregationPlanner.plan(lists, EAggregateMode.INTERSECT).getMode());
+  }
+
+}
@@ -0,0 +1,214 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link AggregationPlanner}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class AggregationPlannerTest {
+
+  /**
+   * Asserts that the given lists contain the same postings with the same term
+   * frequencies.
+   * 
+   * @param expected
+   *          The expected list
+   * @param actual
+   *          The actual list
+   */
+  private static void assertSamePostings(final IInvertedList expected,
+      final IInvertedList actual) {
+    Assert.assertEquals(expected.getSize(), actual.getSize());
+    final Iterator<Posting> actualPostings = actual.getPostings().iterator();
+    for (final Posting expectedPosting : expected.getPostings()) {
+      final Posting actualPosting = actualPostings.next();
+      Assert.assertEquals(expectedPosting.getId(), actualPosting.getId());
+      Assert.assertEquals(expectedPosting.getTermFrequency(),
+          actualPosting.getTermFrequency());
+      Assert.assertEquals(expectedPosting.getScore(), actualPosting.getScore(),
+          1E-9);
+    }
+  }
+
+  /**
+   * Creates lists containing random postings.
+   * 
+   * @param amountOfLists
+   *          The amount of lists to create
+   * @return The created lists
+   */
+  private static List<IInvertedList> createRandomLists(
+      final int amountOfLists) {
+    final Random random = new Random(42);
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    for (int i = 0; i < amountOfLists; i++) {
+      final InvertedList list = new InvertedList();
+      final int amountOfPostings = 1 + random.nextInt(300);
+      for (int j = 0; j < amountOfPostings; j++) {
+        list.addPosting(random.nextInt(500), 1 + random.nextInt(3),
+            random.nextInt(10));
+      }
+      lists.add(list);
+    }
+    return lists;
+  }
+
+  /**
+   * Creates a list containing the given records.
+   * 
+   * @param recordIds
+   *          The records to add
+   * @return The created list
+   */
+  private static IInvertedList createList(final int... recordIds) {
+    final InvertedList list = new InvertedList();
+    for (final int recordId : recordIds) {
+      list.addPosting(recordId);
+    }
+    return list;
+  }
+
+  /**
+   * Creates a list containing all records of the given range.
+   * 
+   * @param firstId
+   *          The first record, inclusive
+   * @param lastId
+   *          The last record, exclusive
+   * @param step
+   *          The distance between consecutive records
+   * @return The created list
+   */
+  private static IInvertedList createRangeList(final int firstId,
+      final int lastId, final int step) {
+    final InvertedList list = new InvertedList();
+    for (int recordId = firstId; recordId < lastId; recordId += step) {
+      list.addPosting(recordId);
+    }
+    return list;
+  }
+
+  /**
+   * Test method for {@link AggregationPlanner#bitmapIntersect(List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBitmapIntersect() {
+    final List<IInvertedList> lists = createRandomLists(3);
+    assertSamePostings(IInvertedList.intersect(lists),
+        AggregationPlanner.bitmapIntersect(lists));
+
+    final ArrayList<IInvertedList> disjointLists = new ArrayList<>();
+    disjointLists.add(createList(1, 3, 5));
+    disjointLists.add(createList(2, 4, 6));
+    Assert.assertTrue(AggregationPlanner.bitmapIntersect(disjointLists)
+        .isEmpty());
+  }
+
+  /**
+   * Test method for {@link AggregationPlanner#mergeIntersect(List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testMergeIntersect() {
+    final List<IInvertedList> lists = createRandomLists(3);
+    assertSamePostings(IInvertedList.intersect(lists),
+        AggregationPlanner.mergeIntersect(lists));
+  }
+
+  /**
+   * Test method for
+   * {@link AggregationPlanner#plan(java.util.Collection, EAggregateMode)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPlan() {
+    final ArrayList<IInvertedList> denseLists = new ArrayList<>();
+    denseLists.add(createRangeList(0, 1_000, 1));
+    denseLists.add(createRangeList(0, 1_000, 2));
+    final AggregationPlan densePlan =
+        AggregationPlanner.plan(denseLists, EAggregateMode.INTERSECT);
+    Assert.assertEquals(EAggregateStrategy.BITMAP, densePlan.getStrategy());
+    // The smaller list is processed first
+    Assert.assertEquals(500, densePlan.getOperands().get(0).getSize());
+
+    final ArrayList<IInvertedList> skewedLists = new ArrayList<>();
+    skewedLists.add(createRangeList(0, 100_000, 1));
+    skewedLists.add(createList(5, 500_000));
+    Assert.assertEquals(EAggregateStrategy.PROBE, AggregationPlanner
+        .plan(skewedLists, EAggregateMode.INTERSECT).getStrategy());
+
+    final ArrayList<IInvertedList> sparseLists = new ArrayList<>();
+    sparseLists.add(createList(0, 3, 10_000_000));
+    sparseLists.add(createList(0, 5, 10_000_000));
+    Assert.assertEquals(EAggregateStrategy.LINEAR_MERGE, AggregationPlanner
+        .plan(sparseLists, EAggregateMode.INTERSECT).getStrategy());
+    Assert.assertEquals(EAggregateStrategy.LINEAR_MERGE, AggregationPlanner
+        .plan(sparseLists, EAggregateMode.UNION).getStrategy());
+
+    final ArrayList<IInvertedList> overlappingLists = new ArrayList<>();
+    overlappingLists.add(createRangeList(0, 1_000, 1));
+    overlappingLists.add(createRangeList(500, 1_500, 1));
+    Assert.assertEquals(EAggregateStrategy.SCAN_COUNT, AggregationPlanner
+        .plan(overlappingLists, EAggregateMode.UNION).getStrategy());
+  }
+
+  /**
+   * Test method for
+   * {@link AggregationPlanner#plan(java.util.Collection, EAggregateMode)}
+   * with trivial results.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPlanTrivial() {
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    lists.add(createList(1, 2));
+    lists.add(new InvertedList());
+    Assert.assertEquals(EAggregateStrategy.EMPTY, AggregationPlanner
+        .plan(lists, EAggregateMode.INTERSECT).getStrategy());
+    final AggregationPlan unionPlan =
+        AggregationPlanner.plan(lists, EAggregateMode.UNION);
+    Assert.assertEquals(EAggregateStrategy.SINGLE, unionPlan.getStrategy());
+    Assert.assertEquals(1, unionPlan.getOperands().size());
+
+    final ArrayList<IInvertedList> disjointLists = new ArrayList<>();
+    disjointLists.add(createList(1, 2));
+    disjointLists.add(createList(5, 6));
+    final AggregationPlan disjointPlan =
+        AggregationPlanner.plan(disjointLists, EAggregateMode.INTERSECT);
+    Assert.assertEquals(EAggregateStrategy.EMPTY, disjointPlan.getStrategy());
+    Assert.assertTrue(disjointPlan.getConsideredCosts().isEmpty());
+  }
+
+  /**
+   * Test method for {@link AggregationPlanner#probeIntersect(List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testProbeIntersect() {
+    final List<IInvertedList> lists = createRandomLists(4);
+    assertSamePostings(IInvertedList.intersect(lists),
+        AggregationPlanner.probeIntersect(lists));
+  }
+
+  /**
+   * Test method for {@link AggregationPlanner#scanCountUnion(List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testScanCountUnion() {
+    final List<IInvertedList> lists = createRandomLists(3);
+    assertSamePostings(IInvertedList.union(lists),
+        AggregationPlanner.scanCountUnion(lists));
+  }
+
+}
@@ -0,0 +1,173 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link ChannelInput}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ChannelInputTest {
+
+  /**
+   * Test method for
+   * {@link ChannelInput#ChannelInput(FileChannel, long, long, java.util.zip.Checksum, int)}
+   * .
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testChannelInput() throws IOException {
+    final Path file = Files.createTempFile("input", ".bin");
+    try {
+      final byte[] text = "k\u00F6ln".getBytes(StandardCharsets.UTF_8);
+      try (final DataOutputStream output =
+          new DataOutputStream(Files.newOutputStream(file))) {
+        output.writeInt(7);
+        for (int i = 0; i < 100; i++) {
+          output.writeLong(i * 1_000_000_007L);
+          output.writeByte(i);
+          output.writeDouble(i / 4.0);
+        }
+        output.writeChar('x');
+        output.writeFloat(2.5f);
+        output.write(text);
+      }
+      final CRC32 expectedCrc = new CRC32();
+      final byte[] content = Files.readAllBytes(file);
+      expectedCrc.update(content, Integer.BYTES,
+          content.length - Integer.BYTES);
+
+      try (final FileChannel channel =
+          FileChannel.open(file, StandardOpenOption.READ)) {
+        // A buffer smaller than the values makes them cross refills
+        final CRC32 crc = new CRC32();
+        final ChannelInput input = new ChannelInput(channel, Integer.BYTES,
+            content.length - Integer.BYTES, crc, 11);
+        for (int i = 0; i < 100; i++) {
+          Assert.assertEquals(i * 1_000_000_007L, input.getLong());
+          Assert.assertEquals((byte) i, input.get());
+          Assert.assertEquals(i / 4.0, input.getDouble(), 0);
+        }
+        Assert.assertEquals('x', input.getChar());
+        Assert.assertEquals(2.5f, input.getFloat(), 0);
+        Assert.assertEquals(text.length, input.remaining());
+        final byte[] readText = new byte[text.length];
+        input.get(readText);
+        Assert.assertArrayEquals(text, readText);
+        Assert.assertFalse(input.hasRemaining());
+        Assert.assertEquals(expectedCrc.getValue(), crc.getValue());
+
+        // Reading does not change the position of the channel
+        Assert.assertEquals(0, channel.position());
+        Assert.assertEquals(7, new ChannelInput(channel, 0, 4).getInt());
+
+        try {
+          new ChannelInput(channel, 0, 4, null, 4);
+          Assert.fail();
+        } catch (final IllegalArgumentException e) {
+          // Expected exception
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link ChannelInput#getInt()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetInt() throws IOException {
+    final Path file = Files.createTempFile("input", ".bin");
+    try {
+      Files.write(file, new byte[] { 0, 0, 1, 2, 3, 4 });
+      try (final FileChannel channel =
+          FileChannel.open(file, StandardOpenOption.READ)) {
+        final ChannelInput input = new ChannelInput(channel, 0, 6);
+        Assert.assertEquals(0x102, input.getInt());
+
+        // The range ends before the value
+        try {
+          input.getInt();
+          Assert.fail();
+        } catch (final BufferUnderflowException e) {
+          // Expected exception
+        }
+        Assert.assertEquals(2, input.remaining());
+
+        // The file ends before the range
+        try {
+          new ChannelInput(channel, 4, 8).getInt();
+          Assert.fail();
+        } catch (final IOException e) {
+          // Expected exception
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link ChannelInput#skip(long)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSkip() throws IOException {
+    final Path file = Files.createTempFile("input", ".bin");
+    try {
+      final byte[] content = new byte[100];
+      for (int i = 0; i < content.length; i++) {
+        content[i] = (byte) i;
+      }
+      Files.write(file, content);
+      try (final FileChannel channel =
+          FileChannel.open(file, StandardOpenOption.READ)) {
+        final ChannelInput input = new ChannelInput(channel, 10, 80, null, 8);
+        Assert.assertEquals(10, input.get());
+
+        // Within the buffer and beyond it
+        input.skip(3);
+        Assert.assertEquals(14, input.get());
+        Assert.assertEquals(15, input.position());
+        input.skip(50);
+        Assert.assertEquals(65, input.position());
+        Assert.assertEquals(65, input.get());
+        Assert.assertEquals(24, input.remaining());
+
+        try {
+          input.skip(25);
+          Assert.fail();
+        } catch (final BufferUnderflowException e) {
+          // Expected exception
+        }
+        input.skip(24);
+        Assert.assertFalse(input.hasRemaining());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
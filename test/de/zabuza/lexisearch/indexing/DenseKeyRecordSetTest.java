@@ -0,0 +1,174 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.model.document.Document;
+
+/**
+ * Test for {@link DenseKeyRecordSet}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class DenseKeyRecordSetTest {
+
+  /**
+   * Test method for {@link DenseKeyRecordSet#add(IKeyRecord)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdd() {
+    final DenseKeyRecordSet<Document, String> records =
+        new DenseKeyRecordSet<>();
+    final Document document = new Document(0, "a");
+    Assert.assertTrue(records.add(document));
+    Assert.assertFalse(records.add(document));
+    Assert.assertEquals(1, records.size());
+
+    final Document replacingDocument = new Document(0, "b");
+    Assert.assertTrue(records.add(replacingDocument));
+    Assert.assertEquals(1, records.size());
+    Assert.assertSame(replacingDocument, records.getKeyRecordById(0));
+
+    // Sparse and negative ids are kept in the fallback table
+    final Document sparseDocument = new Document(1_000_000, "c");
+    final Document negativeDocument = new Document(-5, "d");
+    Assert.assertTrue(records.add(sparseDocument));
+    Assert.assertTrue(records.add(negativeDocument));
+    Assert.assertEquals(3, records.size());
+    Assert.assertEquals(2, records.getAmountOfSparseRecords());
+    Assert.assertSame(sparseDocument, records.getKeyRecordById(1_000_000));
+    Assert.assertSame(negativeDocument, records.getKeyRecordById(-5));
+
+    // Dense ids grow the array
+    for (int i = 1; i < 100; i++) {
+      Assert.assertTrue(records.add(new Document(i, "e")));
+    }
+    Assert.assertEquals(102, records.size());
+    Assert.assertEquals(2, records.getAmountOfSparseRecords());
+    Assert.assertEquals(99, records.getKeyRecordById(99).getRecordId());
+    Assert.assertNull(records.getKeyRecordById(100));
+  }
+
+  /**
+   * Test method for {@link DenseKeyRecordSet#contains(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testContains() {
+    final DenseKeyRecordSet<Document, String> records =
+        new DenseKeyRecordSet<>();
+    final Document document = new Document(3, "a");
+    final Document sparseDocument = new Document(Integer.MAX_VALUE, "b");
+    records.add(document);
+    records.add(sparseDocument);
+
+    Assert.assertTrue(records.contains(document));
+    Assert.assertTrue(records.contains(sparseDocument));
+    Assert.assertFalse(records.contains(new Document(3, "c")));
+    Assert.assertFalse(records.contains(new Document(4, "a")));
+    Assert.assertFalse(records.contains("a"));
+  }
+
+  /**
+   * Test method for {@link DenseKeyRecordSet#DenseKeyRecordSet(int)}.
+   */
+  @SuppressWarnings({ "static-method", "unused" })
+  @Test
+  public void testDenseKeyRecordSet() {
+    final DenseKeyRecordSet<Document, String> records =
+        new DenseKeyRecordSet<>(1_000);
+    records.add(new Document(999, "a"));
+    Assert.assertEquals(0, records.getAmountOfSparseRecords());
+
+    try {
+      new DenseKeyRecordSet<Document, String>(-1);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link DenseKeyRecordSet#iterator()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIterator() {
+    final DenseKeyRecordSet<Document, String> records =
+        new DenseKeyRecordSet<>();
+    final Document sparseDocument = new Document(-1, "a");
+    records.add(sparseDocument);
+    records.add(new Document(2, "b"));
+    records.add(new Document(0, "c"));
+
+    final Iterator<Document> iterator = records.iterator();
+    Assert.assertEquals(0, iterator.next().getRecordId());
+    Assert.assertEquals(2, iterator.next().getRecordId());
+    iterator.remove();
+    Assert.assertSame(sparseDocument, iterator.next());
+    iterator.remove();
+    Assert.assertFalse(iterator.hasNext());
+    try {
+      iterator.next();
+      Assert.fail();
+    } catch (final NoSuchElementException e) {
+      // Expected exception
+    }
+
+    Assert.assertEquals(1, records.size());
+    Assert.assertNull(records.getKeyRecordById(2));
+    Assert.assertEquals(0, records.getAmountOfSparseRecords());
+  }
+
+  /**
+   * Test method for {@link DenseKeyRecordSet#remove(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRemove() {
+    final DenseKeyRecordSet<Document, String> records =
+        new DenseKeyRecordSet<>();
+    final Document document = new Document(1, "a");
+    final Document sparseDocument = new Document(-1, "b");
+    records.add(document);
+    records.add(sparseDocument);
+
+    Assert.assertFalse(records.remove(new Document(1, "c")));
+    Assert.assertTrue(records.remove(document));
+    Assert.assertFalse(records.remove(document));
+    Assert.assertTrue(records.remove(sparseDocument));
+    Assert.assertTrue(records.isEmpty());
+  }
+
+  /**
+   * Test method for {@link DenseKeyRecordSet#retainAll(Collection)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRetainAll() {
+    final DenseKeyRecordSet<Document, String> records =
+        new DenseKeyRecordSet<>();
+    final Document firstDocument = new Document(0, "a");
+    final Document secondDocument = new Document(1, "b");
+    final Document sparseDocument = new Document(-1, "c");
+    records.addAll(Arrays.asList(firstDocument, secondDocument,
+        sparseDocument));
+
+    Assert.assertTrue(records.retainAll(Arrays.asList(secondDocument)));
+    Assert.assertEquals(1, records.size());
+    Assert.assertArrayEquals(new Object[] { secondDocument },
+        records.toArray());
+    Assert.assertFalse(records.retainAll(Arrays.asList(secondDocument)));
+
+    records.clear();
+    Assert.assertTrue(records.isEmpty());
+    Assert.assertNull(records.getKeyRecordById(1));
+  }
+}
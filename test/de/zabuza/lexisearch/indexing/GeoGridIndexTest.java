@@ -0,0 +1,158 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.City;
+import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+
+/**
+ * Test for {@link GeoGridIndex}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class GeoGridIndexTest {
+
+  /**
+   * Creates a set of cities, some of them near to each other, some near to
+   * the antimeridian and some near to the north pole.
+   * 
+   * @return The created set of cities
+   */
+  private static CitySet createCities() {
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    cities.add(new City(0, "Freiburg", 47.99f, 7.85f, provider));
+    cities.add(new City(1, "Basel", 47.56f, 7.59f, provider));
+    cities.add(new City(2, "Berlin", 52.52f, 13.40f, provider));
+    cities.add(new City(3, "Suva", -17.7f, 178.0f, provider));
+    cities.add(new City(4, "Lau", -17.8f, -179.5f, provider));
+    cities.add(new City(5, "North", 89.9f, 0.0f, provider));
+    cities.add(new City(6, "Other North", 89.9f, 180.0f, provider));
+    return cities;
+  }
+
+  /**
+   * Test method for {@link GeoGridIndex#GeoGridIndex(Iterable, double)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGeoGridIndexIterableDouble() {
+    final GeoGridIndex index = new GeoGridIndex(createCities(), 0.5);
+    Assert.assertEquals(0.5, index.getCellSize(), 0);
+    Assert.assertEquals(7, index.getSize());
+    Assert.assertTrue(index.contains(6));
+    Assert.assertFalse(index.contains(7));
+    Assert.assertFalse(index.contains(-1));
+
+    // Records without a location are not indexed
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "a"));
+    Assert.assertEquals(0, new GeoGridIndex(documents).getSize());
+
+    try {
+      new GeoGridIndex(createCities(), 0.0);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link GeoGridIndex#getDistance(int, double, double)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetDistance() {
+    final GeoGridIndex index = new GeoGridIndex(createCities());
+    Assert.assertEquals(0.0, index.getDistance(0, 47.99, 7.85), 0.01);
+    Assert.assertEquals(51.6, index.getDistance(1, 47.99, 7.85), 0.5);
+    Assert.assertEquals(639.5, index.getDistance(2, 47.99, 7.85), 0.5);
+    Assert.assertEquals(265.0, index.getDistance(4, -17.7, 178.0), 0.5);
+    Assert.assertEquals(Double.POSITIVE_INFINITY,
+        index.getDistance(7, 0.0, 0.0), 0);
+  }
+
+  /**
+   * Test method for {@link GeoGridIndex#searchRadius(double, double, double)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchRadius() {
+    final GeoGridIndex index = new GeoGridIndex(createCities(), 0.5);
+
+    final BitSet nearFreiburg = index.searchRadius(47.99, 7.85, 100.0);
+    Assert.assertEquals(2, nearFreiburg.cardinality());
+    Assert.assertTrue(nearFreiburg.get(0));
+    Assert.assertTrue(nearFreiburg.get(1));
+    Assert.assertEquals(3,
+        index.searchRadius(47.99, 7.85, 700.0).cardinality());
+    Assert.assertEquals(1,
+        index.searchRadius(47.99, 7.85, 1.0).cardinality());
+
+    // Circles crossing the antimeridian or containing a pole
+    final BitSet nearSuva = index.searchRadius(-17.7, 178.0, 300.0);
+    Assert.assertTrue(nearSuva.get(3));
+    Assert.assertTrue(nearSuva.get(4));
+    final BitSet nearPole = index.searchRadius(89.9, 90.0, 30.0);
+    Assert.assertTrue(nearPole.get(5));
+    Assert.assertTrue(nearPole.get(6));
+    Assert.assertEquals(2, nearPole.cardinality());
+
+    Assert.assertEquals(7, index
+        .searchRadius(0.0, 0.0, Double.POSITIVE_INFINITY).cardinality());
+
+    try {
+      index.searchRadius(0.0, 0.0, -1.0);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link GeoGridIndex#searchRadius(double, double, double, IntConsumer)}
+   * with negative and sparse record ids.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchRadiusDoubleDoubleDoubleIntConsumer() {
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    cities.add(new City(-4, "Freiburg", 47.99f, 7.85f, provider));
+    cities.add(new City(2_000_000_000, "Basel", 47.56f, 7.59f, provider));
+    cities.add(new City(9, "Berlin", 52.52f, 13.40f, provider));
+    final GeoGridIndex index = new GeoGridIndex(cities, 0.5);
+    Assert.assertEquals(3, index.getSize());
+    Assert.assertTrue(index.contains(-4));
+    Assert.assertTrue(index.contains(2_000_000_000));
+    Assert.assertFalse(index.contains(0));
+    Assert.assertEquals(51.6, index.getDistance(2_000_000_000, 47.99, 7.85),
+        0.5);
+
+    final List<Integer> nearFreiburg = new ArrayList<>();
+    index.searchRadius(47.99, 7.85, 100.0,
+        recordId -> nearFreiburg.add(Integer.valueOf(recordId)));
+    Assert.assertEquals(2, nearFreiburg.size());
+    Assert.assertTrue(nearFreiburg.contains(Integer.valueOf(-4)));
+    Assert.assertTrue(nearFreiburg.contains(Integer.valueOf(2_000_000_000)));
+
+    // Sets can not hold negative ids
+    try {
+      index.searchRadius(47.99, 7.85, 100.0);
+      Assert.fail();
+    } catch (final IndexOutOfBoundsException e) {
+      // Expected exception
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package de.zabuza.lexisearch.indexing;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 
@@ -104,6 +105,85 @@ public final class IInvertedListTest {
     Assert.assertTrue(unionResult.containsPosting(9));
   }
 
+  /**
+   * Test method for {@link IInvertedList#intersectPhrase(java.util.List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIntersectPhrase() {
+    final InvertedList firstInvertedList = new InvertedList();
+    firstInvertedList.addPositionalPosting(0, 0);
+    firstInvertedList.addPositionalPosting(1, 3);
+    firstInvertedList.addPositionalPosting(2, 1);
+    firstInvertedList.addPositionalPosting(3, 0);
+
+    final InvertedList secondInvertedList = new InvertedList();
+    secondInvertedList.addPositionalPosting(0, 1);
+    secondInvertedList.addPositionalPosting(1, 2);
+    secondInvertedList.addPositionalPosting(2, 5);
+    secondInvertedList.addPositionalPosting(4, 1);
+
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    lists.add(firstInvertedList);
+    lists.add(secondInvertedList);
+
+    final IInvertedList phraseResult = IInvertedList.intersectPhrase(lists);
+    Assert.assertEquals(1, phraseResult.getSize());
+    Assert.assertTrue(phraseResult.containsPosting(0));
+
+    final InvertedList nonPositionalList = new InvertedList();
+    nonPositionalList.addPosting(0);
+    lists.add(nonPositionalList);
+    try {
+      IInvertedList.intersectPhrase(lists);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link IInvertedList#intersectProximity(java.util.List, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIntersectProximity() {
+    final InvertedList firstInvertedList = new InvertedList();
+    firstInvertedList.addPositionalPosting(0, 0);
+    firstInvertedList.addPositionalPosting(1, 3);
+    firstInvertedList.addPositionalPosting(2, 1);
+    firstInvertedList.addPositionalPosting(3, 0);
+
+    final InvertedList secondInvertedList = new InvertedList();
+    secondInvertedList.addPositionalPosting(0, 1);
+    secondInvertedList.addPositionalPosting(1, 2);
+    secondInvertedList.addPositionalPosting(2, 5);
+    secondInvertedList.addPositionalPosting(4, 1);
+
+    final ArrayList<IInvertedList> lists = new ArrayList<>();
+    lists.add(firstInvertedList);
+    lists.add(secondInvertedList);
+
+    final IInvertedList adjacentResult =
+        IInvertedList.intersectProximity(lists, 1);
+    Assert.assertEquals(2, adjacentResult.getSize());
+    Assert.assertTrue(adjacentResult.containsPosting(0));
+    Assert.assertTrue(adjacentResult.containsPosting(1));
+
+    final IInvertedList windowResult =
+        IInvertedList.intersectProximity(lists, 4);
+    Assert.assertEquals(3, windowResult.getSize());
+    Assert.assertTrue(windowResult.containsPosting(2));
+
+    try {
+      IInvertedList.intersectProximity(lists, -1);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
   /**
    * Test method for {@link IInvertedList#union(Collection)}.
    */
@@ -0,0 +1,249 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.model.document.Document;
+
+/**
+ * Test for {@link IndexSegment}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IndexSegmentTest {
+
+  /**
+   * Test method for {@link IndexSegment#merge(List, Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testMerge() throws IOException {
+    final Path firstSegmentFile = Files.createTempFile("segment", ".idx");
+    final Path secondSegmentFile = Files.createTempFile("segment", ".idx");
+    final Path mergedSegmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      final LinkedList<Document> documents = new LinkedList<>();
+      documents.add(new Document(3, "a b", "c"));
+      final IInvertedIndex<String> firstSegment =
+          InvertedIndexUtil.createPositionalFromWords(documents);
+      firstSegment.getRecords("b").getPosting(3).setScore(1.5);
+      IndexSegment.write(firstSegment, firstSegmentFile);
+      final IInvertedIndex<String> secondSegment = new InvertedIndex<>();
+      secondSegment.addRecord("a", 1);
+      secondSegment.addRecord("d", 1);
+      IndexSegment.write(secondSegment, secondSegmentFile);
+
+      IndexSegment.merge(Arrays.asList(firstSegmentFile, secondSegmentFile),
+          mergedSegmentFile);
+      final IInvertedIndex<String> invertedIndex =
+          IndexSegment.read(mergedSegmentFile);
+      final List<String> keys = new ArrayList<>();
+      for (final String key : invertedIndex.getKeys()) {
+        keys.add(key);
+      }
+      Collections.sort(keys);
+      Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), keys);
+
+      // Postings of both segments are merged in the order of their ids
+      final Iterator<Posting> postings =
+          invertedIndex.getRecords("a").getPostings().iterator();
+      Assert.assertEquals(1, postings.next().getId());
+      final Posting posting = postings.next();
+      Assert.assertEquals(3, posting.getId());
+      Assert.assertFalse(postings.hasNext());
+      Assert.assertArrayEquals(new int[] { 0 },
+          posting.getPositions().toArray());
+      Assert.assertEquals(1,
+          posting.getFieldTermFrequency(Document.NAME_FIELD));
+      Assert.assertEquals(1.5,
+          invertedIndex.getRecords("b").getPosting(3).getScore(), 0);
+      Assert.assertTrue(Files.exists(firstSegmentFile));
+
+      // Segments sharing a record
+      try {
+        IndexSegment.merge(
+            Arrays.asList(firstSegmentFile, mergedSegmentFile),
+            secondSegmentFile);
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(firstSegmentFile);
+      Files.delete(secondSegmentFile);
+      Files.delete(mergedSegmentFile);
+    }
+  }
+
+  /**
+   * Test method for {@link IndexSegment#open(Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testOpen() throws IOException {
+    final Path segmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      final LinkedList<Document> documents = new LinkedList<>();
+      documents.add(new Document(1, "a a b", "b c"));
+      documents.add(new Document(4, "c", ""));
+      final IInvertedIndex<String> segment =
+          InvertedIndexUtil.createPositionalFromWords(documents);
+      segment.getRecords("a").getPosting(1).setScore(2.5);
+      IndexSegment.write(segment, segmentFile);
+
+      try (final SegmentInvertedIndex invertedIndex =
+          IndexSegment.open(segmentFile)) {
+        final List<String> keys = new ArrayList<>();
+        for (final String key : invertedIndex.getKeys()) {
+          keys.add(key);
+        }
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), keys);
+
+        final Posting posting = invertedIndex.getRecords("a").getPosting(1);
+        Assert.assertEquals(2, posting.getTermFrequency());
+        Assert.assertEquals(2.5, posting.getScore(), 0);
+        Assert.assertArrayEquals(new int[] { 0, 1 },
+            posting.getPositions().toArray());
+        Assert.assertEquals(2,
+            posting.getFieldTermFrequency(Document.NAME_FIELD));
+        Assert.assertEquals(2, invertedIndex.getRecords("c").getSize());
+        Assert.assertTrue(invertedIndex.containsRecord("c", 4));
+        Assert.assertFalse(invertedIndex.containsRecord("b", 4));
+        Assert.assertFalse(invertedIndex.containsKey("d"));
+        Assert.assertNull(invertedIndex.getRecords("d"));
+
+        // The index is read-only, changes of postings are not kept
+        invertedIndex.getRecords("a").getPosting(1).setScore(1.0);
+        Assert.assertEquals(2.5,
+            invertedIndex.getRecords("a").getPosting(1).getScore(), 0);
+        try {
+          invertedIndex.addRecord("d", 2);
+          Assert.fail();
+        } catch (final UnsupportedOperationException e) {
+          // Expected exception
+        }
+      }
+
+      // Truncated segment
+      final byte[] content = Files.readAllBytes(segmentFile);
+      Files.write(segmentFile, Arrays.copyOf(content, content.length - 1));
+      try {
+        IndexSegment.open(segmentFile).close();
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(segmentFile);
+    }
+  }
+
+  /**
+   * Test method for {@link IndexSegment#read(Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRead() throws IOException {
+    final Path segmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      final LinkedList<Document> documents = new LinkedList<>();
+      documents.add(new Document(1, "a a b", "b c"));
+      final IInvertedIndex<String> segment =
+          InvertedIndexUtil.createPositionalFromWords(documents);
+      segment.getRecords("a").getPosting(1).setScore(2.5);
+      IndexSegment.write(segment, segmentFile);
+
+      final IInvertedIndex<String> invertedIndex =
+          IndexSegment.read(segmentFile);
+      final Posting posting = invertedIndex.getRecords("a").getPosting(1);
+      Assert.assertEquals(2, posting.getTermFrequency());
+      Assert.assertEquals(2.5, posting.getScore(), 0);
+      Assert.assertArrayEquals(new int[] { 0, 1 },
+          posting.getPositions().toArray());
+      Assert.assertEquals(2,
+          posting.getFieldTermFrequency(Document.NAME_FIELD));
+      final Posting otherPosting = invertedIndex.getRecords("b").getPosting(1);
+      Assert.assertEquals(1,
+          otherPosting.getFieldTermFrequency(Document.NAME_FIELD));
+      Assert.assertEquals(1,
+          otherPosting.getFieldTermFrequency(Document.DESCRIPTION_FIELD));
+      Assert.assertTrue(invertedIndex.containsRecord("c", 1));
+
+      // Truncated segment
+      final byte[] content = Files.readAllBytes(segmentFile);
+      Files.write(segmentFile, Arrays.copyOf(content, content.length - 1));
+      try {
+        IndexSegment.read(segmentFile);
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+
+      // No segment at all
+      Files.write(segmentFile, "a\tb\n".getBytes(StandardCharsets.UTF_8));
+      try {
+        IndexSegment.read(segmentFile);
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(segmentFile);
+    }
+  }
+
+  /**
+   * Test method for {@link IndexSegment#write(IInvertedIndex, Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWrite() throws IOException {
+    final Path segmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      final IInvertedIndex<String> segment = new InvertedIndex<>();
+      segment.addRecord("a", 1);
+      segment.addRecord("a", 3);
+      segment.addRecord("b", 3);
+      IndexSegment.write(segment, segmentFile);
+
+      final IInvertedIndex<String> invertedIndex =
+          IndexSegment.read(segmentFile);
+      Assert.assertEquals(2, invertedIndex.getRecords("a").getSize());
+      Assert.assertEquals(1, invertedIndex.getRecords("b").getSize());
+      Assert.assertNull(
+          invertedIndex.getRecords("a").getPosting(1).getPositions());
+
+      // Writing replaces the previous content
+      IndexSegment.write(new InvertedIndex<>(), segmentFile);
+      final IInvertedIndex<String> emptyIndex =
+          IndexSegment.read(segmentFile);
+      Assert.assertFalse(emptyIndex.getKeys().iterator().hasNext());
+    } finally {
+      Files.delete(segmentFile);
+    }
+  }
+}
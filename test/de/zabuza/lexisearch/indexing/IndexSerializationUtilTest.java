@@ -0,0 +1,112 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link IndexSerializationUtil}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IndexSerializationUtilTest {
+
+  /**
+   * Test method for {@link IndexSerializationUtil#readAmount(ByteBuffer)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testReadAmount() {
+    Assert.assertEquals(4, IndexSerializationUtil
+        .readAmount(ByteBuffer.allocate(8).putInt(0, 4)));
+
+    try {
+      IndexSerializationUtil.readAmount(ByteBuffer.allocate(8).putInt(0, -1));
+      Assert.fail();
+    } catch (final BufferUnderflowException e) {
+      // Expected exception
+    }
+    try {
+      IndexSerializationUtil.readAmount(ByteBuffer.allocate(8).putInt(0, 5));
+      Assert.fail();
+    } catch (final BufferUnderflowException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link IndexSerializationUtil#writePosting(DataOutputStream, Posting)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWritePosting() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(bytes);
+    final PositionList positions = new PositionList();
+    positions.add(2);
+    positions.add(5);
+    IndexSerializationUtil.writePosting(output,
+        new Posting(3, 2, 1.5, new int[] { 1, 1 }, positions));
+    IndexSerializationUtil.writePosting(output, new Posting(4, 1, -0.5));
+
+    // Direct buffers are not backed by an array, like mapped files
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+    buffer.put(bytes.toByteArray());
+    buffer.flip();
+    final Posting posting = IndexSerializationUtil.readPosting(buffer);
+    Assert.assertEquals(3, posting.getId());
+    Assert.assertEquals(2, posting.getTermFrequency());
+    Assert.assertEquals(1.5, posting.getScore(), 0);
+    Assert.assertEquals(2, posting.getAmountOfFields());
+    Assert.assertEquals(1, posting.getFieldTermFrequency(1));
+    Assert.assertArrayEquals(new int[] { 2, 5 },
+        posting.getPositions().toArray());
+
+    final Posting otherPosting = IndexSerializationUtil.readPosting(buffer);
+    Assert.assertEquals(4, otherPosting.getId());
+    Assert.assertEquals(-0.5, otherPosting.getScore(), 0);
+    Assert.assertEquals(0, otherPosting.getAmountOfFields());
+    Assert.assertNull(otherPosting.getPositions());
+    Assert.assertFalse(buffer.hasRemaining());
+  }
+
+  /**
+   * Test method for
+   * {@link IndexSerializationUtil#writeString(DataOutputStream, String)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWriteString() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(bytes);
+    IndexSerializationUtil.writeString(output, "k\u00F6ln");
+    IndexSerializationUtil.writeString(output, null);
+    IndexSerializationUtil.writeString(output, "");
+
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    Assert.assertEquals("k\u00F6ln", IndexSerializationUtil.readString(buffer));
+    Assert.assertNull(IndexSerializationUtil.readString(buffer));
+    Assert.assertEquals("", IndexSerializationUtil.readString(buffer));
+    Assert.assertFalse(buffer.hasRemaining());
+
+    try {
+      IndexSerializationUtil.readString(ByteBuffer.allocate(4).putInt(0, 2));
+      Assert.fail();
+    } catch (final BufferUnderflowException e) {
+      // Expected exception
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.City;
+import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.util.ITsvRowParser;
+
+/**
+ * Test for {@link IngestionPipeline}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IngestionPipelineTest {
+
+  /**
+   * Writes a file with the given amount of cities, every tenth line is empty.
+   * 
+   * @param file
+   *          The file to write to
+   * @param amountOfCities
+   *          The amount of cities to write
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static void writeCities(final Path file, final int amountOfCities)
+      throws IOException {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < amountOfCities; i++) {
+      if (i % 10 == 0) {
+        text.append("\r\n");
+      }
+      text.append("City").append(i).append("\t").append(i % 5)
+          .append("\t1.5\t2.5\r\n");
+    }
+    Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Test method for {@link IngestionPipeline#ingest(Path, Consumer)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIngest() throws IOException {
+    final Path file = Files.createTempFile("cities", ".tsv");
+    try {
+      final QGramProvider provider = new QGramProvider(3);
+      writeCities(file, 2_000);
+      final CitySet expectedCities =
+          CitySet.buildFromTsvFile(file.toFile(), provider);
+      final IInvertedIndex<String> expectedIndex =
+          expectedCities.createInvertedIndex();
+
+      // Small blocks force many blocks and blocks out of order
+      final CitySet cities = new CitySet();
+      final IngestionResult result =
+          new IngestionPipeline<>(CitySet.createTsvRowParser(provider), 3, 64,
+              2, null, Integer.MAX_VALUE).ingest(file, cities::add);
+      Assert.assertEquals(2_000, result.getAmountOfRecords());
+      Assert.assertEquals(2_000, cities.size());
+      Assert.assertTrue(result.getSegmentFiles().isEmpty());
+      for (final IKeyRecord<String> city : expectedCities) {
+        Assert.assertEquals(city.getName(),
+            cities.getKeyRecordById(city.getRecordId()).getName());
+      }
+
+      final IInvertedIndex<String> invertedIndex = result.getInvertedIndex();
+      for (final String key : expectedIndex.getKeys()) {
+        Assert.assertEquals(expectedIndex.getRecords(key).getSize(),
+            invertedIndex.getRecords(key).getSize());
+        for (final Posting posting : expectedIndex.getRecords(key)
+            .getPostings()) {
+          Assert.assertEquals(posting.getTermFrequency(), invertedIndex
+              .getRecords(key).getPosting(posting.getId()).getTermFrequency());
+        }
+      }
+
+      // A single line longer than a block
+      Files.write(file, "Freiburg im Breisgau\t50\t47.9959\t7.8522\n"
+          .getBytes(StandardCharsets.UTF_8));
+      final IngestionResult longLineResult =
+          new IngestionPipeline<>(CitySet.createTsvRowParser(provider), 2, 4,
+              1, null, Integer.MAX_VALUE).ingest(file, city -> {
+                // Only the index is of interest
+              });
+      Assert.assertEquals(1, longLineResult.getAmountOfRecords());
+      Assert.assertTrue(
+          longLineResult.getInvertedIndex().containsRecord("bre", 0));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link IngestionPipeline#ingest(Path, Consumer)} with a
+   * file that contains a malformed row.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIngestMalformedRow() throws IOException {
+    final Path file = Files.createTempFile("cities", ".tsv");
+    try {
+      writeCities(file, 1_000);
+      Files.write(file, "city\t50\t1.0\n".getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.APPEND);
+      final ITsvRowParser<City> parser =
+          CitySet.createTsvRowParser(new QGramProvider(3));
+      try {
+        new IngestionPipeline<>(parser, 2, 64, 1, null, Integer.MAX_VALUE)
+            .ingest(file, city -> {
+              // Records are not of interest
+            });
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link IngestionPipeline#ingest(Path, Consumer)} with
+   * flushing segments.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIngestWithSegments() throws IOException {
+    final Path file = Files.createTempFile("cities", ".tsv");
+    final Path segmentDirectory = Files.createTempDirectory("segments");
+    IngestionResult result = null;
+    try {
+      final QGramProvider provider = new QGramProvider(3);
+      writeCities(file, 500);
+      final IInvertedIndex<String> expectedIndex =
+          CitySet.buildFromTsvFile(file.toFile(), provider)
+              .createInvertedIndex();
+
+      result = new IngestionPipeline<>(CitySet.createTsvRowParser(provider),
+          segmentDirectory, 1_000).ingest(file, city -> {
+            // Only the index is of interest
+          });
+      Assert.assertEquals(500, result.getAmountOfRecords());
+      Assert.assertTrue(result.getSegmentFiles().size() > 1);
+
+      final IInvertedIndex<String> invertedIndex = result
+          .createInvertedIndex(segmentDirectory.resolve("merged.idx"));
+      for (final String key : expectedIndex.getKeys()) {
+        Assert.assertEquals(expectedIndex.getRecords(key).getSize(),
+            invertedIndex.getRecords(key).getSize());
+      }
+
+      try {
+        new IngestionPipeline<>(CitySet.createTsvRowParser(provider),
+            segmentDirectory, 0);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      if (result != null) {
+        for (final Path segmentFile : result.getSegmentFiles()) {
+          Files.delete(segmentFile);
+        }
+      }
+      Files.deleteIfExists(segmentDirectory.resolve("merged.idx"));
+      Files.delete(segmentDirectory);
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link IngestionResult}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class IngestionResultTest {
+
+  /**
+   * Test method for {@link IngestionResult#getAmountOfRecords()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetAmountOfRecords() {
+    final IngestionResult result = new IngestionResult(5,
+        new InvertedIndex<>(), Collections.emptyList());
+    Assert.assertEquals(5, result.getAmountOfRecords());
+  }
+
+  /**
+   * Test method for {@link IngestionResult#getInvertedIndex()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetInvertedIndex() {
+    final IInvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    final IngestionResult result =
+        new IngestionResult(0, invertedIndex, Collections.emptyList());
+    Assert.assertSame(invertedIndex, result.getInvertedIndex());
+  }
+
+  /**
+   * Test method for {@link IngestionResult#getSegmentFiles()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetSegmentFiles() {
+    final List<Path> segmentFiles = new ArrayList<>();
+    final IngestionResult result =
+        new IngestionResult(0, new InvertedIndex<>(), segmentFiles);
+    Assert.assertTrue(result.getSegmentFiles().isEmpty());
+
+    try {
+      result.getSegmentFiles().add(null);
+      Assert.fail();
+    } catch (final UnsupportedOperationException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link IngestionResult#IngestionResult(int, IInvertedIndex, List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIngestionResult() {
+    final IngestionResult result = new IngestionResult(2,
+        new InvertedIndex<>(), Collections.emptyList());
+    Assert.assertFalse(
+        result.getInvertedIndex().getKeys().iterator().hasNext());
+    Assert.assertTrue(result.getSegmentFiles().isEmpty());
+  }
+
+  /**
+   * Test method for {@link IngestionResult#createInvertedIndex(Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateInvertedIndex() throws IOException {
+    final Path segmentFile = Files.createTempFile("segment", ".idx");
+    final Path mergedSegmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      // Without flushed segments, the segment in memory is the index
+      final IInvertedIndex<String> invertedIndex = new InvertedIndex<>();
+      invertedIndex.addRecord("b", 3);
+      Assert.assertSame(invertedIndex,
+          new IngestionResult(1, invertedIndex, Collections.emptyList())
+              .createInvertedIndex(mergedSegmentFile));
+      Assert.assertEquals(0, Files.size(mergedSegmentFile));
+
+      final IInvertedIndex<String> segment = new InvertedIndex<>();
+      segment.addRecord("a", 1);
+      segment.addRecord("b", 1);
+      IndexSegment.write(segment, segmentFile);
+      final IInvertedIndex<String> mergedIndex =
+          new IngestionResult(2, invertedIndex,
+              Collections.singletonList(segmentFile))
+                  .createInvertedIndex(mergedSegmentFile);
+      Assert.assertEquals(1, mergedIndex.getRecords("a").getSize());
+      Assert.assertEquals(2, mergedIndex.getRecords("b").getSize());
+    } finally {
+      Files.delete(segmentFile);
+      Files.delete(mergedSegmentFile);
+    }
+  }
+
+  /**
+   * Test method for {@link IngestionResult#mergeSegments(Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testMergeSegments() throws IOException {
+    final Path firstSegmentFile = Files.createTempFile("segment", ".idx");
+    final Path secondSegmentFile = Files.createTempFile("segment", ".idx");
+    final Path mergedSegmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      final IInvertedIndex<String> firstSegment = new InvertedIndex<>();
+      firstSegment.addRecord("a", 1);
+      IndexSegment.write(firstSegment, firstSegmentFile);
+      final IInvertedIndex<String> secondSegment = new InvertedIndex<>();
+      secondSegment.addRecord("a", 2);
+      secondSegment.addRecord("b", 2);
+      IndexSegment.write(secondSegment, secondSegmentFile);
+
+      final IInvertedIndex<String> invertedIndex = new InvertedIndex<>();
+      invertedIndex.addRecord("b", 3);
+      final List<Path> segmentFiles = new ArrayList<>();
+      segmentFiles.add(firstSegmentFile);
+      segmentFiles.add(secondSegmentFile);
+      final IngestionResult result =
+          new IngestionResult(3, invertedIndex, segmentFiles);
+
+      result.mergeSegments(mergedSegmentFile);
+      final IInvertedIndex<String> mergedIndex =
+          IndexSegment.read(mergedSegmentFile);
+      Assert.assertEquals(2, mergedIndex.getRecords("a").getSize());
+      Assert.assertEquals(2, mergedIndex.getRecords("b").getSize());
+      Assert.assertTrue(mergedIndex.containsRecord("b", 3));
+
+      // The segments and the segment in memory are left untouched
+      Assert.assertTrue(Files.exists(firstSegmentFile));
+      Assert.assertEquals(1, invertedIndex.getRecords("b").getSize());
+      try (final Stream<Path> files =
+          Files.list(mergedSegmentFile.toAbsolutePath().getParent())) {
+        Assert.assertFalse(files.anyMatch(file -> file.getFileName()
+            .toString().startsWith("memory-segment-")));
+      }
+    } finally {
+      Files.delete(firstSegmentFile);
+      Files.delete(secondSegmentFile);
+      Files.delete(mergedSegmentFile);
+    }
+  }
+
+  /**
+   * Test method for {@link IngestionResult#openInvertedIndex(Path)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testOpenInvertedIndex() throws IOException {
+    final Path segmentFile = Files.createTempFile("segment", ".idx");
+    final Path mergedSegmentFile = Files.createTempFile("segment", ".idx");
+    try {
+      final IInvertedIndex<String> segment = new InvertedIndex<>();
+      segment.addRecord("a", 1);
+      segment.addRecord("b", 1);
+      IndexSegment.write(segment, segmentFile);
+      final IInvertedIndex<String> invertedIndex = new InvertedIndex<>();
+      invertedIndex.addRecord("b", 3);
+
+      try (final SegmentInvertedIndex mergedIndex = new IngestionResult(2,
+          invertedIndex, Collections.singletonList(segmentFile))
+              .openInvertedIndex(mergedSegmentFile)) {
+        Assert.assertEquals(1, mergedIndex.getRecords("a").getSize());
+        Assert.assertEquals(2, mergedIndex.getRecords("b").getSize());
+      }
+
+      // Without flushed segments, the segment in memory is opened from disk
+      try (final SegmentInvertedIndex memoryIndex =
+          new IngestionResult(1, invertedIndex, Collections.emptyList())
+              .openInvertedIndex(mergedSegmentFile)) {
+        Assert.assertTrue(memoryIndex.containsRecord("b", 3));
+        Assert.assertFalse(memoryIndex.containsKey("a"));
+      }
+    } finally {
+      Files.delete(segmentFile);
+      Files.delete(mergedSegmentFile);
+    }
+  }
+}
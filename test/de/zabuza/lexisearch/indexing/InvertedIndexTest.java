@@ -35,6 +35,28 @@ public final class InvertedIndexTest {
     Assert.assertFalse(invertedIndex.containsRecord("b", 2));
   }
 
+  /**
+   * Test method for {@link InvertedIndex#addRecord(Object, int, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAddRecordWithPosition() {
+    final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    invertedIndex.addRecord("a", 1, 0);
+    invertedIndex.addRecord("a", 1, 2);
+    invertedIndex.addRecord("b", 1, 1);
+
+    Assert.assertTrue(invertedIndex.containsRecord("a", 1));
+    Assert.assertTrue(invertedIndex.containsRecord("b", 1));
+    Assert.assertEquals(3, invertedIndex.getModificationCount());
+
+    final Posting posting =
+        invertedIndex.getRecords("a").getPostings().iterator().next();
+    Assert.assertEquals(2, posting.getTermFrequency());
+    Assert.assertArrayEquals(new int[] { 0, 2 },
+        posting.getPositions().toArray());
+  }
+
   /**
    * Test method for {@link InvertedIndex#containsKey(Object)}.
    */
@@ -108,6 +130,69 @@ public final class InvertedIndexTest {
 
   }
 
+  /**
+   * Test method for {@link InvertedIndex#getModificationCount()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetModificationCount() {
+    final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    Assert.assertEquals(0, invertedIndex.getModificationCount());
+
+    invertedIndex.addRecord("a", 1);
+    final long firstCount = invertedIndex.getModificationCount();
+    Assert.assertTrue(firstCount > 0);
+
+    invertedIndex.addRecord("a", 1);
+    final long secondCount = invertedIndex.getModificationCount();
+    Assert.assertTrue(secondCount > firstCount);
+
+    invertedIndex.getRecords("a");
+    invertedIndex.containsRecord("a", 1);
+    Assert.assertEquals(secondCount, invertedIndex.getModificationCount());
+  }
+
+  /**
+   * Test method for {@link InvertedIndex#markModified()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testMarkModified() {
+    final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    invertedIndex.addRecord("a", 1);
+    final long count = invertedIndex.getModificationCount();
+
+    invertedIndex.markModified();
+    Assert.assertTrue(invertedIndex.getModificationCount() > count);
+    Assert.assertEquals(1, invertedIndex.getRecords("a").getSize());
+  }
+
+  /**
+   * Test method for {@link InvertedIndex#putRecords(Object, IInvertedList)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPutRecords() {
+    final InvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    final long count = invertedIndex.getModificationCount();
+    invertedIndex.putRecords("a", new PlainInvertedList(new Posting[] {
+        new Posting(1, 2, 0.5), new Posting(3, 1, 0.25) }));
+
+    Assert.assertTrue(invertedIndex.getModificationCount() > count);
+    Assert.assertTrue(invertedIndex.containsRecord("a", 1));
+    Assert.assertTrue(invertedIndex.containsRecord("a", 3));
+    Assert.assertFalse(invertedIndex.containsRecord("a", 2));
+    Assert.assertEquals(2, invertedIndex.getRecords("a").getSize());
+
+    try {
+      new PlainInvertedList(
+          new Posting[] { new Posting(3, 1, 0), new Posting(1, 1, 0) });
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
   /**
    * Test method for {@link InvertedIndex#getRecords(Object)}.
    */
@@ -15,6 +15,27 @@ import de.zabuza.lexisearch.model.document.Document;
  */
 public final class InvertedIndexUtilTest {
 
+  /**
+   * Test method for
+   * {@link InvertedIndexUtil#addWords(IInvertedIndex, IKeyRecord)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAddWords() {
+    final IInvertedIndex<String> invertedIndex = new InvertedIndex<>();
+    Assert.assertEquals(2,
+        InvertedIndexUtil.addWords(invertedIndex, new Document(1, "a b a")));
+    Assert.assertEquals(1,
+        InvertedIndexUtil.addWords(invertedIndex, new Document(2, "a")));
+
+    Assert.assertEquals(2,
+        invertedIndex.getRecords("a").getPosting(1).getTermFrequency());
+    Assert.assertTrue(invertedIndex.containsRecord("b", 1));
+    Assert.assertTrue(invertedIndex.containsRecord("a", 2));
+    Assert.assertEquals(2, invertedIndex.getRecords("a").getPosting(1)
+        .getFieldTermFrequency(Document.NAME_FIELD));
+  }
+
   /**
    * Test method for {@link InvertedIndexUtil#createFromWords(Iterable)}.
    */
@@ -43,4 +64,111 @@ public final class InvertedIndexUtilTest {
     Assert.assertTrue(invertedIndex.containsRecord(fourthKey, secondId));
   }
 
+  /**
+   * Test method for
+   * {@link InvertedIndexUtil#createPositionalFromWords(Iterable)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreatePositionalFromWords() {
+    final int id = 1;
+    final Document document = new Document(id, "a b", "a");
+    final LinkedList<Document> documents = new LinkedList<>();
+    documents.add(document);
+
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createPositionalFromWords(documents);
+
+    Assert.assertTrue(invertedIndex.containsRecord("a", id));
+    Assert.assertTrue(invertedIndex.containsRecord("b", id));
+    final Posting posting =
+        invertedIndex.getRecords("a").getPostings().iterator().next();
+    Assert.assertArrayEquals(new int[] { 0, 2 },
+        posting.getPositions().toArray());
+    Assert.assertEquals(1, posting.getFieldTermFrequency(Document.NAME_FIELD));
+    Assert.assertEquals(1,
+        posting.getFieldTermFrequency(Document.DESCRIPTION_FIELD));
+  }
+
+  /**
+   * Test method for {@link InvertedIndexUtil#createFromWords(Iterable)} and
+   * {@link InvertedIndexUtil#createPositionalFromWords(Iterable)} with records
+   * holding term ids.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateFromWordsWithTermIds() {
+    final TermDictionary dictionary = new TermDictionary();
+    final LinkedList<Document> termDocuments = new LinkedList<>();
+    termDocuments.add(new Document(1, "a a b", "b c a", dictionary));
+    termDocuments.add(new Document(2, "c", "a d", dictionary));
+    termDocuments.add(new Document(3, "d", "e", new TermDictionary()));
+    termDocuments.add(new Document(4, "a", "e"));
+    final LinkedList<Document> keyDocuments = new LinkedList<>();
+    for (final Document document : termDocuments) {
+      keyDocuments.add(new Document(document.getId(), document.getName(),
+          document.getDescription()));
+    }
+
+    // Records holding term ids are indexed like records holding keys
+    final IInvertedIndex<String> expectedIndex =
+        InvertedIndexUtil.createPositionalFromWords(keyDocuments);
+    final IInvertedIndex<String> positionalIndex =
+        InvertedIndexUtil.createPositionalFromWords(termDocuments);
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(termDocuments);
+    for (final String key : expectedIndex.getKeys()) {
+      final IInvertedList expectedList = expectedIndex.getRecords(key);
+      final IInvertedList positionalList = positionalIndex.getRecords(key);
+      final IInvertedList list = invertedIndex.getRecords(key);
+      Assert.assertEquals(expectedList.getSize(), positionalList.getSize());
+      Assert.assertEquals(expectedList.getSize(), list.getSize());
+      for (final Posting expected : expectedList.getPostings()) {
+        final Posting positional = positionalList.getPosting(expected.getId());
+        final Posting posting = list.getPosting(expected.getId());
+        Assert.assertArrayEquals(expected.getPositions().toArray(),
+            positional.getPositions().toArray());
+        Assert.assertEquals(expected.getTermFrequency(),
+            posting.getTermFrequency());
+        for (final int field : new int[] { Document.NAME_FIELD,
+            Document.DESCRIPTION_FIELD }) {
+          Assert.assertEquals(expected.getFieldTermFrequency(field),
+              positional.getFieldTermFrequency(field));
+          Assert.assertEquals(expected.getFieldTermFrequency(field),
+              posting.getFieldTermFrequency(field));
+        }
+      }
+    }
+    Assert.assertEquals(3,
+        invertedIndex.getRecords("a").getPosting(1).getTermFrequency());
+  }
+
+  /**
+   * Test method for {@link InvertedIndexUtil#createFromWords(Iterable)} with
+   * fielded records.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateFromWordsWithFields() {
+    final int id = 1;
+    final LinkedList<Document> documents = new LinkedList<>();
+    documents.add(new Document(id, "a a b", "b c a"));
+
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+
+    final Posting aPosting = invertedIndex.getRecords("a").getPosting(id);
+    Assert.assertTrue(aPosting.isFielded());
+    Assert.assertEquals(3, aPosting.getTermFrequency());
+    Assert.assertEquals(2,
+        aPosting.getFieldTermFrequency(Document.NAME_FIELD));
+    Assert.assertEquals(1,
+        aPosting.getFieldTermFrequency(Document.DESCRIPTION_FIELD));
+    final Posting cPosting = invertedIndex.getRecords("c").getPosting(id);
+    Assert.assertEquals(0,
+        cPosting.getFieldTermFrequency(Document.NAME_FIELD));
+    Assert.assertEquals(1,
+        cPosting.getFieldTermFrequency(Document.DESCRIPTION_FIELD));
+  }
+
 }
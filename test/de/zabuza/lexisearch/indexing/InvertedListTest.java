@@ -1,10 +1,17 @@
 package de.zabuza.lexisearch.indexing;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.zabuza.lexisearch.queries.expression.IPostingIterator;
+import de.zabuza.lexisearch.queries.expression.InvertedListIterator;
+
 /**
  * Test for {@link InvertedList}.
  * 
@@ -12,6 +19,87 @@ import org.junit.Test;
  *
  */
 public final class InvertedListTest {
+  /**
+   * List of postings which counts how often its postings are visited. All
+   * other access methods of the list are based on {@link #get(int)}.
+   * 
+   * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+   *
+   */
+  private static final class CountingPostingList extends AbstractList<Posting>
+      implements RandomAccess {
+    /**
+     * The amount of postings visited so far.
+     */
+    private int mAmountOfVisitedPostings;
+    /**
+     * The postings of the list.
+     */
+    private final ArrayList<Posting> mPostings;
+
+    /**
+     * Creates a new empty list.
+     */
+    public CountingPostingList() {
+      this.mPostings = new ArrayList<>();
+      this.mAmountOfVisitedPostings = 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.AbstractList#add(int, java.lang.Object)
+     */
+    @Override
+    public void add(final int index, final Posting posting) {
+      this.mPostings.add(index, posting);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public Posting get(final int index) {
+      this.mAmountOfVisitedPostings++;
+      return this.mPostings.get(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+      return this.mPostings.size();
+    }
+  }
+
+  /**
+   * Test method for {@link InvertedList#addPositionalPosting(int, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAddPositionalPosting() {
+    final InvertedList invertedList = new InvertedList();
+    invertedList.addPositionalPosting(1, 0);
+    invertedList.addPositionalPosting(1, 4);
+    invertedList.addPositionalPosting(3, 2);
+    Assert.assertEquals(2, invertedList.getSize());
+
+    final Iterator<Posting> postings = invertedList.getPostings().iterator();
+    final Posting firstPosting = postings.next();
+    Assert.assertEquals(1, firstPosting.getId());
+    Assert.assertEquals(2, firstPosting.getTermFrequency());
+    Assert.assertArrayEquals(new int[] { 0, 4 },
+        firstPosting.getPositions().toArray());
+    final Posting secondPosting = postings.next();
+    Assert.assertEquals(3, secondPosting.getId());
+    Assert.assertArrayEquals(new int[] { 2 },
+        secondPosting.getPositions().toArray());
+  }
 
   /**
    * Test method for {@link InvertedList#addPosting(int)}.
@@ -91,6 +179,40 @@ public final class InvertedListTest {
     Assert.assertFalse(invertedList.containsPosting(3));
   }
 
+  /**
+   * Test method for {@link InvertedList#getFirstId()} and
+   * {@link InvertedList#getLastId()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetFirstIdAndLastId() {
+    final InvertedList invertedList = new InvertedList();
+    try {
+      invertedList.getFirstId();
+      Assert.fail();
+    } catch (final NoSuchElementException e) {
+      // Expected exception
+    }
+
+    invertedList.addPosting(5);
+    invertedList.addPosting(2);
+    invertedList.addPosting(9);
+    Assert.assertEquals(2, invertedList.getFirstId());
+    Assert.assertEquals(9, invertedList.getLastId());
+  }
+
+  /**
+   * Test method for {@link InvertedList#getPosting(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetPosting() {
+    final InvertedList invertedList = new InvertedList();
+    invertedList.addPosting(1, 3);
+    Assert.assertEquals(3, invertedList.getPosting(1).getTermFrequency());
+    Assert.assertNull(invertedList.getPosting(2));
+  }
+
   /**
    * Test method for {@link InvertedList#getPostings()}.
    */
@@ -113,6 +235,58 @@ public final class InvertedListTest {
     Assert.assertFalse(records.hasNext());
   }
 
+  /**
+   * Test method for {@link InvertedList#getPostingsFrom(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetPostingsFrom() {
+    final InvertedList invertedList = new InvertedList();
+    invertedList.addPosting(1);
+    invertedList.addPosting(4);
+    invertedList.addPosting(2);
+
+    final Iterator<Posting> records =
+        invertedList.getPostingsFrom(2).iterator();
+    Assert.assertEquals(2, records.next().getId());
+    Assert.assertEquals(4, records.next().getId());
+    Assert.assertFalse(records.hasNext());
+    Assert.assertEquals(4,
+        invertedList.getPostingsFrom(3).iterator().next().getId());
+    Assert.assertFalse(invertedList.getPostingsFrom(5).iterator().hasNext());
+
+    final PlainInvertedList plainList = new PlainInvertedList();
+    plainList.addPosting(1);
+    plainList.addPosting(3);
+    plainList.addPosting(5);
+    final Iterator<Posting> plainRecords =
+        plainList.getPostingsFrom(2).iterator();
+    Assert.assertEquals(3, plainRecords.next().getId());
+    Assert.assertEquals(5, plainRecords.next().getId());
+    Assert.assertFalse(plainRecords.hasNext());
+    Assert.assertFalse(plainList.getPostingsFrom(6).iterator().hasNext());
+
+    // Lists in insertion order seek by binary search
+    final CountingPostingList postings = new CountingPostingList();
+    final InvertedList arrayList = new InvertedList(postings) {
+      // Only opens the constructor for the test
+    };
+    for (int i = 0; i < 10_000; i++) {
+      arrayList.addPosting(2 * i);
+    }
+    Assert.assertEquals(15_002,
+        arrayList.getPostingsFrom(15_001).iterator().next().getId());
+    Assert.assertTrue(postings.mAmountOfVisitedPostings <= 16);
+
+    // Each of the 100 seeks visits a few postings and searches the list
+    postings.mAmountOfVisitedPostings = 0;
+    final IPostingIterator iterator = new InvertedListIterator(arrayList);
+    for (int target = 1; target < 20_000; target += 200) {
+      Assert.assertEquals(target + 1, iterator.advance(target));
+    }
+    Assert.assertTrue(postings.mAmountOfVisitedPostings <= 100 * 25);
+  }
+
   /**
    * Test method for {@link InvertedList#getSize()}.
    */
@@ -0,0 +1,98 @@
+package de.zabuza.lexisearch.indexing;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link PositionList}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class PositionListTest {
+
+  /**
+   * Test method for {@link PositionList#add(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdd() {
+    final PositionList positions = new PositionList();
+    positions.add(0);
+    positions.add(3);
+    positions.add(200);
+    positions.add(100_000);
+
+    Assert.assertArrayEquals(new int[] { 0, 3, 200, 100_000 },
+        positions.toArray());
+    Assert.assertEquals(100_000, positions.getLastPosition());
+
+    try {
+      positions.add(100_000);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link PositionList#getByteSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetByteSize() {
+    final PositionList positions = new PositionList();
+    Assert.assertEquals(0, positions.getByteSize());
+    positions.add(1);
+    Assert.assertEquals(1, positions.getByteSize());
+    positions.add(2);
+    Assert.assertEquals(2, positions.getByteSize());
+    positions.add(1_000);
+    Assert.assertEquals(4, positions.getByteSize());
+  }
+
+  /**
+   * Test method for {@link PositionList#getSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetSize() {
+    final PositionList positions = new PositionList();
+    Assert.assertEquals(0, positions.getSize());
+    positions.add(2);
+    Assert.assertEquals(1, positions.getSize());
+    positions.add(5);
+    Assert.assertEquals(2, positions.getSize());
+  }
+
+  /**
+   * Test method for {@link PositionList#isEmpty()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIsEmpty() {
+    final PositionList positions = new PositionList();
+    Assert.assertTrue(positions.isEmpty());
+    Assert.assertEquals(-1, positions.getLastPosition());
+    positions.add(0);
+    Assert.assertFalse(positions.isEmpty());
+  }
+
+  /**
+   * Test method for {@link PositionList#toArray()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testToArray() {
+    final PositionList positions = new PositionList();
+    Assert.assertEquals(0, positions.toArray().length);
+    for (int i = 0; i < 1_000; i += 7) {
+      positions.add(i);
+    }
+    final int[] decodedPositions = positions.toArray();
+    Assert.assertEquals(positions.getSize(), decodedPositions.length);
+    for (int i = 0; i < decodedPositions.length; i++) {
+      Assert.assertEquals(i * 7, decodedPositions[i]);
+    }
+  }
+}
@@ -11,6 +11,21 @@ import org.junit.Test;
  */
 public final class PostingTest {
 
+  /**
+   * Test method for {@link Posting#addPosition(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAddPosition() {
+    final Posting posting = new Posting(1);
+    Assert.assertNull(posting.getPositions());
+
+    posting.addPosition(2);
+    posting.addPosition(5);
+    Assert.assertArrayEquals(new int[] { 2, 5 },
+        posting.getPositions().toArray());
+  }
+
   /**
    * Test method for {@link Posting#compareTo(Posting)}.
    */
@@ -114,6 +129,34 @@ public final class PostingTest {
     Assert.assertEquals(posting.hashCode(), similarPosting.hashCode());
   }
 
+  /**
+   * Test method for {@link Posting#increaseFieldTermFrequency(int, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIncreaseFieldTermFrequency() {
+    final Posting posting = new Posting(1);
+    Assert.assertFalse(posting.isFielded());
+    Assert.assertEquals(0, posting.getAmountOfFields());
+    Assert.assertEquals(0, posting.getFieldTermFrequency(0));
+
+    posting.increaseFieldTermFrequency(1, 2);
+    posting.increaseFieldTermFrequency(1, 2);
+    Assert.assertTrue(posting.isFielded());
+    Assert.assertEquals(2, posting.getAmountOfFields());
+    Assert.assertEquals(0, posting.getFieldTermFrequency(0));
+    Assert.assertEquals(2, posting.getFieldTermFrequency(1));
+    Assert.assertEquals(Posting.DEFAULT_TERM_FREQUENCY,
+        posting.getTermFrequency());
+
+    try {
+      posting.increaseFieldTermFrequency(0, 3);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
   /**
    * Test method for {@link Posting#increaseTermFrequency()}.
    */
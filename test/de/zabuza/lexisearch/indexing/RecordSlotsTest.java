@@ -0,0 +1,58 @@
+package de.zabuza.lexisearch.indexing;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link RecordSlots}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class RecordSlotsTest {
+
+  /**
+   * Test method for {@link RecordSlots#forIds(int[])}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testForIds() {
+    final RecordSlots emptySlots = RecordSlots.forIds(new int[0]);
+    Assert.assertTrue(emptySlots.isDense());
+    Assert.assertEquals(0, emptySlots.getAmountOfSlots());
+
+    final RecordSlots denseSlots = RecordSlots.forIds(new int[] { 3, 0, 5 });
+    Assert.assertTrue(denseSlots.isDense());
+    Assert.assertEquals(6, denseSlots.getAmountOfSlots());
+
+    // Sparse and negative ids are mapped to consecutive slots
+    final RecordSlots sparseSlots =
+        RecordSlots.forIds(new int[] { 2_000_000_000, 1, 2_000_000_000 });
+    Assert.assertFalse(sparseSlots.isDense());
+    Assert.assertEquals(2, sparseSlots.getAmountOfSlots());
+    final RecordSlots negativeSlots =
+        RecordSlots.forIds(new int[] { 2, -1, 0 });
+    Assert.assertFalse(negativeSlots.isDense());
+    Assert.assertEquals(3, negativeSlots.getAmountOfSlots());
+  }
+
+  /**
+   * Test method for {@link RecordSlots#getSlot(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetSlot() {
+    final RecordSlots denseSlots = RecordSlots.forIds(new int[] { 3, 0, 5 });
+    Assert.assertEquals(3, denseSlots.getSlot(3));
+    Assert.assertEquals(5, denseSlots.getSlot(5));
+    Assert.assertEquals(RecordSlots.NO_SLOT, denseSlots.getSlot(6));
+    Assert.assertEquals(RecordSlots.NO_SLOT, denseSlots.getSlot(-1));
+
+    final RecordSlots sparseSlots =
+        RecordSlots.forIds(new int[] { 2_000_000_000, -4, 1 });
+    Assert.assertEquals(0, sparseSlots.getSlot(2_000_000_000));
+    Assert.assertEquals(1, sparseSlots.getSlot(-4));
+    Assert.assertEquals(2, sparseSlots.getSlot(1));
+    Assert.assertEquals(RecordSlots.NO_SLOT, sparseSlots.getSlot(0));
+  }
+}
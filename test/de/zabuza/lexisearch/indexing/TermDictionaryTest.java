@@ -0,0 +1,135 @@
+package de.zabuza.lexisearch.indexing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link TermDictionary}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class TermDictionaryTest {
+
+  /**
+   * Test method for {@link TermDictionary#decode(int[])}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testDecode() {
+    final TermDictionary dictionary = new TermDictionary();
+    final int[] termIds = dictionary.encode(new String[] { "a", "b", "a" });
+    Assert.assertArrayEquals(new String[] { "a", "b", "a" },
+        dictionary.decode(termIds));
+
+    try {
+      dictionary.decode(new int[] { 2 });
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link TermDictionary#encode(String[])}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testEncode() {
+    final TermDictionary dictionary = new TermDictionary();
+    Assert.assertArrayEquals(new int[] { 0, 1, 0 },
+        dictionary.encode(new String[] { "a", "b", "a" }));
+    Assert.assertArrayEquals(new int[] { 1, 2 },
+        dictionary.encode(new String[] { "b", "c" }));
+    Assert.assertArrayEquals(new int[0], dictionary.encode(new String[0]));
+    Assert.assertEquals(3, dictionary.size());
+  }
+
+  /**
+   * Test method for {@link TermDictionary#getOrAddTermId(String)}.
+   * 
+   * @throws ExecutionException
+   *           If a task of the test failed
+   * @throws InterruptedException
+   *           If the test was interrupted while waiting for its tasks
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetOrAddTermId()
+      throws InterruptedException, ExecutionException {
+    final TermDictionary dictionary = new TermDictionary();
+    final int amountOfTerms = 5_000;
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<int[]>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> {
+          final int[] termIds = new int[amountOfTerms];
+          for (int j = 0; j < amountOfTerms; j++) {
+            termIds[j] = dictionary.getOrAddTermId(Integer.toString(j));
+          }
+          return termIds;
+        }));
+      }
+
+      // All tasks must agree on the ids, which must cover the terms densely
+      final int[] firstTermIds = results.get(0).get();
+      for (final Future<int[]> result : results) {
+        Assert.assertArrayEquals(firstTermIds, result.get());
+      }
+      Assert.assertEquals(amountOfTerms, dictionary.size());
+      for (int j = 0; j < amountOfTerms; j++) {
+        Assert.assertTrue(firstTermIds[j] < amountOfTerms);
+        Assert.assertEquals(Integer.toString(j),
+            dictionary.getTerm(firstTermIds[j]));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Test method for {@link TermDictionary#getTerm(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTerm() {
+    final TermDictionary dictionary = new TermDictionary();
+    final int termId = dictionary.getOrAddTermId("a");
+    Assert.assertEquals("a", dictionary.getTerm(termId));
+
+    try {
+      dictionary.getTerm(TermDictionary.NO_TERM);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      dictionary.getTerm(termId + 1);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link TermDictionary#getTermId(String)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTermId() {
+    final TermDictionary dictionary = new TermDictionary();
+    Assert.assertEquals(TermDictionary.NO_TERM, dictionary.getTermId("a"));
+    Assert.assertEquals(0, dictionary.size());
+
+    final int termId = dictionary.getOrAddTermId("a");
+    Assert.assertEquals(termId, dictionary.getTermId("a"));
+  }
+}
@@ -59,6 +59,20 @@ public final class QGramProviderTest {
     Assert.assertEquals("rum", testLongerQGrams[4]);
   }
 
+  /**
+   * Test method for {@link QGramProvider#getPaddingCharacter()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetPaddingCharacter() {
+    final QGramProvider provider = new QGramProvider(3);
+    Assert.assertEquals(QGramProvider.DEFAULT_PADDING_CHARACTER,
+        provider.getPaddingCharacter());
+
+    final QGramProvider anotherProvider = new QGramProvider(2, '#');
+    Assert.assertEquals('#', anotherProvider.getPaddingCharacter());
+  }
+
   /**
    * Test method for {@link QGramProvider#getQParameter()}.
    */
@@ -1,6 +1,14 @@
 package de.zabuza.lexisearch.model.city;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -12,6 +20,8 @@ import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IKeyProvider;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.util.ITsvRowParser;
+import de.zabuza.lexisearch.util.MappedTsvLoader;
 
 /**
  * @author Zabuza {@literal <zabuza.dev@gmail.com>}
@@ -85,6 +95,44 @@ public final class CitySetTest {
     Assert.assertEquals(2, citySet.size());
   }
 
+  /**
+   * Test method for {@link CitySet#buildFromTsvFile(File, IKeyProvider)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBuildFromTsvFile() throws IOException {
+    final QGramProvider provider = new QGramProvider(3);
+    final Path file = Files.createTempFile("cities", ".tsv");
+    try {
+      Files.write(file, ("Freiburg\t50\t47.9959\t7.8522\r\n\r\n"
+          + "K\u00F6ln\t70\t50.9375\t6.9603")
+              .getBytes(StandardCharsets.UTF_8));
+      final CitySet citySet = CitySet.buildFromTsvFile(file.toFile(), provider);
+      Assert.assertEquals(2, citySet.size());
+
+      final ICity freiburg = (ICity) citySet.getKeyRecordById(0);
+      Assert.assertEquals("Freiburg", freiburg.getName());
+      Assert.assertEquals(50, freiburg.getScore());
+      Assert.assertEquals(47.9959f, freiburg.getLatitude(), 0);
+      Assert.assertEquals(7.8522f, freiburg.getLongitude(), 0);
+      final ICity koeln = (ICity) citySet.getKeyRecordById(2);
+      Assert.assertEquals("K\u00F6ln", koeln.getName());
+
+      Files.write(file, "city\t50\t1.0".getBytes(StandardCharsets.UTF_8));
+      try {
+        CitySet.buildFromTsvFile(file.toFile(), provider);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
   /**
    * Test method for {@link CitySet#CitySet()}.
    */
@@ -223,6 +271,36 @@ public final class CitySetTest {
     Assert.assertEquals(2, testInvertedIndex.getRecords("tba").getSize());
   }
 
+  /**
+   * Test method for {@link CitySet#createTsvRowParser(IKeyProvider)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateTsvRowParser() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ITsvRowParser<City> parser = CitySet.createTsvRowParser(provider);
+    final List<City> cities = MappedTsvLoader.parseChunk(
+        ByteBuffer.wrap("Freiburg\t50\t47.9959\t7.8522\n"
+            .getBytes(StandardCharsets.UTF_8)),
+        3, parser);
+    Assert.assertEquals(1, cities.size());
+
+    final City city = cities.get(0);
+    Assert.assertEquals(3, city.getId());
+    Assert.assertEquals("Freiburg", city.getName());
+    Assert.assertEquals(50, city.getScore());
+    Assert.assertArrayEquals(provider.getKeys("Freiburg"), city.getKeys());
+
+    try {
+      MappedTsvLoader.parseChunk(
+          ByteBuffer.wrap("city\t50\t1.0".getBytes(StandardCharsets.UTF_8)),
+          0, parser);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
   /**
    * Test method for {@link CitySet#getKeyRecordById(int)}.
    */
@@ -246,6 +324,36 @@ public final class CitySetTest {
     Assert.assertNull(citySet.getKeyRecordById(3));
   }
 
+  /**
+   * Test method for {@link CitySet#getTermDictionary()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTermDictionary() {
+    final QGramProvider provider = new QGramProvider(3);
+    final List<String> content = new LinkedList<>();
+    content.add("abc\t50\t1.0\t2.0");
+    content.add("abd\t50\t1.0\t2.0");
+
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final City city = (City) citySet.getKeyRecordById(0);
+    Assert.assertSame(citySet.getTermDictionary(), city.getTermDictionary());
+    Assert.assertArrayEquals(provider.getKeys("abc"), city.getKeys());
+
+    // Each set owns its dictionary, which only holds the keys of its cities
+    final CitySet anotherCitySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    Assert.assertNotSame(citySet.getTermDictionary(),
+        anotherCitySet.getTermDictionary());
+    final HashSet<String> keys = new HashSet<>();
+    keys.addAll(Arrays.asList(provider.getKeys("abc")));
+    keys.addAll(Arrays.asList(provider.getKeys("abd")));
+    Assert.assertEquals(keys.size(), citySet.getTermDictionary().size());
+    Assert.assertEquals(keys.size(),
+        anotherCitySet.getTermDictionary().size());
+  }
+
   /**
    * Test method for {@link CitySet#isEmpty()}.
    */
@@ -4,6 +4,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import de.zabuza.lexisearch.indexing.IKeyProvider;
+import de.zabuza.lexisearch.indexing.TermDictionary;
 import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
 
 /**
@@ -72,6 +73,51 @@ public final class CityTest {
     Assert.assertEquals(5, city.getScore());
   }
 
+  /**
+   * Test method for
+   * {@link City#City(int, String, float, float, int, IKeyProvider, TermDictionary)}
+   * .
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCityIntStringFloatFloatIntIKeyProviderTermDictionary() {
+    final QGramProvider provider = new QGramProvider(3);
+    final TermDictionary dictionary = new TermDictionary();
+    final City city =
+        new City(0, "BigCity", 1.0f, 2.0f, 5, provider, dictionary);
+
+    Assert.assertEquals(0, city.getId());
+    Assert.assertSame(dictionary, city.getTermDictionary());
+    Assert.assertArrayEquals(provider.getKeys("BigCity"), city.getKeys());
+    Assert.assertEquals(provider.getKeys("BigCity").length, city.getSize());
+
+    final City computingCity =
+        new City(1, "BigCity", 1.0f, 2.0f, 5, provider, null);
+    Assert.assertNull(computingCity.getTermDictionary());
+    Assert.assertNull(computingCity.getTermIds());
+    Assert.assertArrayEquals(city.getKeys(), computingCity.getKeys());
+  }
+
+  /**
+   * Test method for
+   * {@link City#City(int, String, float, float, int, int[], TermDictionary)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCityIntStringFloatFloatIntIntArrayTermDictionary() {
+    final QGramProvider provider = new QGramProvider(3);
+    final TermDictionary dictionary = new TermDictionary();
+    final int[] termIds = dictionary.encode(provider.getKeys("BigCity"));
+    final City city =
+        new City(0, "BigCity", 1.0f, 2.0f, 5, termIds, dictionary);
+
+    Assert.assertEquals(0, city.getId());
+    Assert.assertEquals("BigCity", city.getName());
+    Assert.assertEquals(5, city.getScore());
+    Assert.assertSame(termIds, city.getTermIds());
+    Assert.assertArrayEquals(provider.getKeys("BigCity"), city.getKeys());
+  }
+
   /**
    * Test method for {@link City#getId()}.
    */
@@ -196,4 +242,26 @@ public final class CityTest {
     Assert.assertEquals(6, anotherCity.getSize());
   }
 
+  /**
+   * Test method for {@link City#getTermIds()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTermIds() {
+    final QGramProvider provider = new QGramProvider(3);
+    final TermDictionary dictionary = new TermDictionary();
+    final City city =
+        new City(0, "abab", 1.0f, 2.0f, 100, provider, dictionary);
+    final int[] termIds = city.getTermIds();
+
+    Assert.assertSame(termIds, city.getTermIds());
+    Assert.assertEquals(city.getSize(), termIds.length);
+    Assert.assertArrayEquals(provider.getKeys("abab"),
+        dictionary.decode(termIds));
+
+    // Cities without a dictionary compute their keys on each access
+    Assert.assertNull(
+        new City(1, "abab", 1.0f, 2.0f, 100, provider).getTermIds());
+  }
+
 }
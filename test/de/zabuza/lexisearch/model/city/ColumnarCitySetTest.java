@@ -0,0 +1,252 @@
+package de.zabuza.lexisearch.model.city;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyProvider;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+
+/**
+ * Test for {@link ColumnarCitySet}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ColumnarCitySetTest {
+
+  /**
+   * Test method for {@link ColumnarCitySet#add(IKeyRecord)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdd() {
+    for (final boolean isOffHeap : new boolean[] { false, true }) {
+      final QGramProvider provider = new QGramProvider(3);
+      final ColumnarCitySet citySet =
+          new ColumnarCitySet(provider, isOffHeap, 0);
+      Assert.assertEquals(isOffHeap, citySet.isOffHeap());
+
+      final City city =
+          new City(0, "Freiburg", 47.9959f, 7.8522f, 50, provider);
+      Assert.assertTrue(citySet.add(city));
+      Assert.assertFalse(citySet.add(city));
+      Assert.assertEquals(1, citySet.size());
+
+      // Many cities grow the columns
+      for (int i = 1; i < 100; i++) {
+        Assert.assertTrue(
+            citySet.add(new City(i, "K\u00F6ln " + i, i, -i, i, provider)));
+      }
+      Assert.assertEquals(100, citySet.size());
+      final ICity koeln = (ICity) citySet.getKeyRecordById(42);
+      Assert.assertEquals("K\u00F6ln 42", koeln.getName());
+      Assert.assertEquals(42.0f, koeln.getLatitude(), 0);
+      Assert.assertEquals(-42.0f, koeln.getLongitude(), 0);
+      Assert.assertEquals(42, koeln.getScore());
+
+      // Adding a city with a contained id overwrites its row
+      Assert.assertTrue(citySet.add(new City(0, "Berlin", 1, 2, 3, provider)));
+      Assert.assertEquals(100, citySet.size());
+      Assert.assertEquals("Berlin", citySet.getKeyRecordById(0).getName());
+      Assert.assertEquals("Freiburg", city.getName());
+
+      // Ids which differ from their row
+      final City sparseCity = new City(-7, "Paris", 1, 2, 3, provider);
+      Assert.assertTrue(citySet.add(sparseCity));
+      Assert.assertEquals(101, citySet.size());
+      Assert.assertEquals(-7, citySet.getKeyRecordById(-7).getRecordId());
+      Assert.assertEquals(100,
+          ((ColumnarCity) citySet.getKeyRecordById(-7)).getRow());
+      Assert.assertNull(citySet.getKeyRecordById(101));
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link ColumnarCitySet#buildFromTsvFile(File, IKeyProvider, boolean)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBuildFromTsvFile() throws IOException {
+    final QGramProvider provider = new QGramProvider(3);
+    final Path file = Files.createTempFile("cities", ".tsv");
+    try {
+      Files.write(file,
+          "Freiburg\t50\t47.9959\t7.8522\n\r\nBerlin\t70\t52.52\t13.4"
+              .getBytes(StandardCharsets.UTF_8));
+      final ColumnarCitySet citySet =
+          ColumnarCitySet.buildFromTsvFile(file.toFile(), provider, true);
+      Assert.assertEquals(2, citySet.size());
+      final ICity berlin = (ICity) citySet.getKeyRecordById(2);
+      Assert.assertEquals("Berlin", berlin.getName());
+      Assert.assertEquals(70, berlin.getScore());
+      Assert.assertEquals(52.52f, berlin.getLatitude(), 0);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link ColumnarCitySet#contains(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testContains() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ColumnarCitySet citySet = new ColumnarCitySet(provider);
+    final City city = new City(0, "city", 1.0f, 2.0f, 1, provider);
+    citySet.add(city);
+
+    Assert.assertTrue(citySet.contains(city));
+    Assert.assertTrue(citySet.contains(citySet.getKeyRecordById(0)));
+    Assert.assertTrue(
+        citySet.contains(new City(0, "city", 1.0f, 2.0f, 1, provider)));
+    Assert.assertFalse(
+        citySet.contains(new City(0, "city", 1.0f, 2.0f, 2, provider)));
+    Assert.assertFalse(
+        citySet.contains(new City(1, "city", 1.0f, 2.0f, 1, provider)));
+    Assert.assertFalse(citySet.contains("city"));
+
+    // Views on equal cities are equal, also across sets
+    final ColumnarCitySet otherCitySet = new ColumnarCitySet(provider);
+    otherCitySet.add(city);
+    Assert.assertEquals(citySet.getKeyRecordById(0),
+        otherCitySet.getKeyRecordById(0));
+    Assert.assertTrue(new HashSet<>(citySet)
+        .containsAll(otherCitySet));
+    otherCitySet.add(new City(0, "town", 1.0f, 2.0f, 1, provider));
+    Assert.assertFalse(new HashSet<>(citySet)
+        .contains(otherCitySet.getKeyRecordById(0)));
+  }
+
+  /**
+   * Test method for {@link ColumnarCitySet#createInvertedIndex()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateInvertedIndex() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ColumnarCitySet citySet = new ColumnarCitySet(provider);
+    citySet.add(new City(0, "Freiburg", 1, 2, 3, provider));
+    citySet.add(new City(1, "Hamburg", 1, 2, 3, provider));
+
+    final IInvertedIndex<String> index = citySet.createInvertedIndex();
+    Assert.assertEquals(2, index.getRecords("urg").getSize());
+  }
+
+  /**
+   * Test method for {@link ColumnarCitySet#iterator()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIterator() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ColumnarCitySet citySet = new ColumnarCitySet(provider);
+    citySet.add(new City(0, "a", 1, 2, 3, provider));
+    citySet.add(new City(1, "b", 1, 2, 3, provider));
+
+    final Iterator<IKeyRecord<String>> iterator = citySet.iterator();
+    Assert.assertEquals("a", iterator.next().getName());
+    Assert.assertEquals("b", iterator.next().getName());
+    Assert.assertFalse(iterator.hasNext());
+    Assert.assertEquals(2, citySet.toArray().length);
+
+    citySet.clear();
+    Assert.assertTrue(citySet.isEmpty());
+    Assert.assertEquals(0, citySet.getNameArenaSize());
+    Assert.assertNull(citySet.getKeyRecordById(0));
+  }
+
+  /**
+   * Test method for {@link ColumnarCitySet#remove(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRemove() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ColumnarCitySet citySet = new ColumnarCitySet(provider);
+    final City city = new City(0, "a", 1, 2, 3, provider);
+    final City sparseCity = new City(-7, "b", 1, 2, 3, provider);
+    citySet.add(city);
+    citySet.add(sparseCity);
+
+    Assert.assertFalse(citySet.remove(new City(0, "b", 1, 2, 3, provider)));
+    Assert.assertTrue(citySet.remove(city));
+    Assert.assertFalse(citySet.remove(city));
+    Assert.assertFalse(citySet.contains(city));
+    Assert.assertNull(citySet.getKeyRecordById(0));
+    Assert.assertEquals(1, citySet.size());
+    final Iterator<IKeyRecord<String>> iterator = citySet.iterator();
+    Assert.assertEquals("b", iterator.next().getName());
+    Assert.assertFalse(iterator.hasNext());
+
+    // Adding the city again uses its row again
+    Assert.assertTrue(citySet.add(city));
+    Assert.assertEquals(2, citySet.size());
+    Assert.assertEquals(0,
+        ((ColumnarCity) citySet.getKeyRecordById(0)).getRow());
+
+    Assert.assertTrue(citySet.remove(sparseCity));
+    Assert.assertTrue(citySet.remove(city));
+    Assert.assertTrue(citySet.isEmpty());
+    Assert.assertFalse(citySet.iterator().hasNext());
+  }
+
+  /**
+   * Test method for {@link ColumnarCitySet#removeAll(Collection)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRemoveAll() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ColumnarCitySet citySet = new ColumnarCitySet(provider);
+    final City city = new City(0, "a", 1, 2, 3, provider);
+    final City otherCity = new City(1, "b", 1, 2, 3, provider);
+    citySet.add(city);
+    citySet.add(otherCity);
+
+    Assert.assertTrue(citySet.removeAll(Arrays.asList(city, "a")));
+    Assert.assertFalse(citySet.removeAll(Arrays.asList(city)));
+    Assert.assertFalse(citySet.contains(city));
+    Assert.assertTrue(citySet.contains(otherCity));
+    Assert.assertEquals(1, citySet.size());
+  }
+
+  /**
+   * Test method for {@link ColumnarCitySet#retainAll(Collection)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRetainAll() {
+    final QGramProvider provider = new QGramProvider(3);
+    final ColumnarCitySet citySet = new ColumnarCitySet(provider);
+    citySet.add(new City(0, "a", 1, 2, 3, provider));
+    citySet.add(new City(1, "b", 1, 2, 3, provider));
+    citySet.add(new City(2, "c", 1, 2, 3, provider));
+
+    final ColumnarCitySet retainedCities = new ColumnarCitySet(provider);
+    retainedCities.add(new City(1, "b", 1, 2, 3, provider));
+    retainedCities.add(new City(2, "x", 1, 2, 3, provider));
+
+    Assert.assertTrue(citySet.retainAll(retainedCities));
+    Assert.assertFalse(citySet.retainAll(retainedCities));
+    Assert.assertEquals(1, citySet.size());
+    Assert.assertEquals("b", citySet.iterator().next().getName());
+    Assert.assertNull(citySet.getKeyRecordById(0));
+  }
+}
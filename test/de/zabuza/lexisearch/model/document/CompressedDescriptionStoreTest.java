@@ -0,0 +1,207 @@
+package de.zabuza.lexisearch.model.document;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link CompressedDescriptionStore}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CompressedDescriptionStoreTest {
+
+  /**
+   * Test method for {@link CompressedDescriptionStore#add(String)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdd() {
+    final CompressedDescriptionStore store =
+        new CompressedDescriptionStore(64, 2);
+    for (int i = 0; i < 1_000; i++) {
+      Assert.assertEquals(i, store.add("Description number " + i));
+    }
+    Assert.assertEquals(1_000, store.getAmountOfEntries());
+    for (int i = 999; i >= 0; i--) {
+      Assert.assertEquals("Description number " + i, store.getDescription(i));
+    }
+
+    // A description larger than a block
+    final StringBuilder description = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      description.append("M\u00FCnchen ");
+    }
+    final int entry = store.add(description.toString());
+    Assert.assertEquals(description.toString(), store.getDescription(entry));
+  }
+
+  /**
+   * Test method for {@link CompressedDescriptionStore#add(String)} with
+   * multiple threads adding descriptions at the same time.
+   * 
+   * @throws ExecutionException
+   *           If a task of the test failed
+   * @throws InterruptedException
+   *           If the test was interrupted while waiting for its tasks
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAddInParallel()
+      throws InterruptedException, ExecutionException {
+    final CompressedDescriptionStore store =
+        new CompressedDescriptionStore(128, 4);
+    final int amountOfDescriptions = 2_000;
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<int[]>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        final int task = i;
+        results.add(executor.submit(() -> {
+          final int[] entries = new int[amountOfDescriptions];
+          for (int j = 0; j < amountOfDescriptions; j++) {
+            entries[j] = store.add("Task " + task + " description " + j);
+          }
+          return entries;
+        }));
+      }
+
+      // Entries are distinct and keep the order in which they were added
+      final BitSet usedEntries = new BitSet();
+      for (int i = 0; i < results.size(); i++) {
+        final int[] entries = results.get(i).get();
+        for (int j = 0; j < amountOfDescriptions; j++) {
+          Assert.assertFalse(usedEntries.get(entries[j]));
+          usedEntries.set(entries[j]);
+          if (j > 0) {
+            Assert.assertTrue(entries[j - 1] < entries[j]);
+          }
+          Assert.assertEquals("Task " + i + " description " + j,
+              store.getDescription(entries[j]));
+        }
+      }
+      Assert.assertEquals(4 * amountOfDescriptions,
+          store.getAmountOfEntries());
+
+      store.flush();
+      Assert.assertTrue(store.getCompressedSize() > 0);
+      Assert.assertTrue(
+          store.getCompressedSize() < store.getUncompressedSize());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link CompressedDescriptionStore#CompressedDescriptionStore(int, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCompressedDescriptionStoreIntInt() {
+    final CompressedDescriptionStore store =
+        new CompressedDescriptionStore(16, 4);
+    Assert.assertEquals(0, store.getAmountOfEntries());
+    Assert.assertEquals(4, store.getCache().getMaximumSize());
+
+    try {
+      new CompressedDescriptionStore(0, 4);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      new CompressedDescriptionStore(16, 0);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link CompressedDescriptionStore#flush()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testFlush() {
+    final CompressedDescriptionStore store = new CompressedDescriptionStore();
+    store.add("a plot");
+    Assert.assertEquals(0, store.getCompressedSize());
+    store.flush();
+    Assert.assertTrue(store.getCompressedSize() > 0);
+    Assert.assertEquals("a plot", store.getDescription(0));
+
+    store.add("another plot");
+    Assert.assertEquals("another plot", store.getDescription(1));
+  }
+
+  /**
+   * Test method for {@link CompressedDescriptionStore#getCompressedSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCompressedSize() {
+    final CompressedDescriptionStore store = new CompressedDescriptionStore();
+    for (int i = 0; i < 2_000; i++) {
+      store.add("The story of a family that lives in a small town, part " + i);
+    }
+    store.flush();
+    Assert.assertTrue(
+        store.getCompressedSize() * 3 < store.getUncompressedSize());
+  }
+
+  /**
+   * Test method for {@link CompressedDescriptionStore#getDescription(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetDescription() {
+    final CompressedDescriptionStore store =
+        new CompressedDescriptionStore(8, 1);
+    store.add("first");
+    store.add("");
+    store.add("second one");
+    Assert.assertEquals("first", store.getDescription(0));
+    Assert.assertEquals("", store.getDescription(1));
+    Assert.assertEquals("second one", store.getDescription(2));
+    Assert.assertEquals("first", store.getDescription(0));
+    Assert.assertTrue(store.getCache().getHitCount() > 0
+        || store.getCache().getMissCount() > 0);
+
+    try {
+      store.getDescription(3);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      store.getDescription(-1);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link CompressedDescriptionStore#getUncompressedSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetUncompressedSize() {
+    final CompressedDescriptionStore store =
+        new CompressedDescriptionStore(4, 1);
+    store.add("ab");
+    store.add("\u00FC");
+    Assert.assertEquals(4, store.getUncompressedSize());
+    store.add("cdef");
+    Assert.assertEquals(8, store.getUncompressedSize());
+  }
+}
@@ -0,0 +1,75 @@
+package de.zabuza.lexisearch.model.document;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link CompressedDocument}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CompressedDocumentTest {
+
+  /**
+   * Test method for
+   * {@link CompressedDocument#CompressedDocument(int, String, CompressedDescriptionStore)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCompressedDocument() {
+    final CompressedDescriptionStore store = new CompressedDescriptionStore();
+    final CompressedDocument document = new CompressedDocument(1, "a", store);
+    Assert.assertEquals(1, document.getId());
+    Assert.assertEquals("a", document.getName());
+    Assert.assertEquals("", document.getDescription());
+    Assert.assertArrayEquals(new String[] { "a" }, document.getKeys());
+  }
+
+  /**
+   * Test method for
+   * {@link CompressedDocument#CompressedDocument(int, String, String, CompressedDescriptionStore)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCompressedDocumentWithDescription() {
+    final CompressedDescriptionStore store = new CompressedDescriptionStore();
+    final CompressedDocument document =
+        new CompressedDocument(1, "A b", "c a", store);
+    final Document plainDocument = new Document(1, "A b", "c a");
+    Assert.assertEquals(1, store.getAmountOfEntries());
+    Assert.assertArrayEquals(plainDocument.getKeys(), document.getKeys());
+    Assert.assertEquals(plainDocument.getFieldSize(Document.NAME_FIELD),
+        document.getFieldSize(Document.NAME_FIELD));
+    Assert.assertEquals(plainDocument.getFieldSize(Document.DESCRIPTION_FIELD),
+        document.getFieldSize(Document.DESCRIPTION_FIELD));
+  }
+
+  /**
+   * Test method for {@link CompressedDocument#getDescription()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetDescription() {
+    final CompressedDescriptionStore store =
+        new CompressedDescriptionStore(8, 1);
+    final CompressedDocument first =
+        new CompressedDocument(1, "a", "first description", store);
+    final CompressedDocument second =
+        new CompressedDocument(2, "b", "second description", store);
+    Assert.assertEquals("first description", first.getDescription());
+    Assert.assertEquals("second description", second.getDescription());
+    Assert.assertEquals("first description", first.getDescription());
+  }
+
+  /**
+   * Test method for {@link CompressedDocument#getStore()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetStore() {
+    final CompressedDescriptionStore store = new CompressedDescriptionStore();
+    Assert.assertSame(store,
+        new CompressedDocument(1, "a", "b", store).getStore());
+  }
+}
@@ -1,5 +1,10 @@
 package de.zabuza.lexisearch.model.document;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -10,6 +15,7 @@ import org.junit.Test;
 
 import de.zabuza.lexisearch.indexing.IInvertedIndex;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.util.LineOffsetTable;
 
 /**
  * Test for {@link DocumentSet}.
@@ -82,6 +88,145 @@ public final class DocumentSetTest {
     Assert.assertEquals(2, documentSet.size());
   }
 
+  /**
+   * Test method for
+   * {@link DocumentSet#buildLookupsFromFixTextFile(File, java.nio.charset.Charset, String, int)}
+   * .
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings({ "static-method", "deprecation" })
+  @Test
+  public void testBuildLookupsFromFixTextFileFileCharsetStringInt()
+      throws IOException {
+    final Path file = Files.createTempFile("documents", ".tsv");
+    try {
+      Files.write(file,
+          "K\u00F6ln\tA city\n".getBytes(StandardCharsets.UTF_8));
+      final DocumentSet documentSet = DocumentSet.buildLookupsFromFixTextFile(
+          file.toFile(), StandardCharsets.UTF_8, "\t", 1);
+      Assert.assertEquals(1, documentSet.size());
+      Assert.assertEquals("K\u00F6ln",
+          ((IDocument) documentSet.getKeyRecordById(0)).getName());
+
+      // Other charsets would silently be decoded as UTF-8
+      try {
+        DocumentSet.buildLookupsFromFixTextFile(file.toFile(),
+            StandardCharsets.ISO_8859_1, "\t", 1);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.deleteIfExists(
+          LineOffsetTable.getSidecarFile(file.toFile()).toPath());
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link DocumentSet#buildLookupsFromFixTextFileUtf8Tab(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBuildLookupsFromFixTextFileUtf8Tab() throws IOException {
+    final Path file = Files.createTempFile("documents", ".tsv");
+    try {
+      // Mixed line separators are detected
+      Files.write(file, "K\u00F6ln\tA city\r\nBerlin\tAnother city\n"
+          .getBytes(StandardCharsets.UTF_8));
+      final DocumentSet documentSet =
+          DocumentSet.buildLookupsFromFixTextFileUtf8Tab(file.toFile());
+      Assert.assertEquals(2, documentSet.size());
+
+      final IDocument firstDocument =
+          (IDocument) documentSet.getKeyRecordById(0);
+      Assert.assertEquals("K\u00F6ln", firstDocument.getName());
+      Assert.assertEquals("A city", firstDocument.getDescription());
+      final IDocument secondDocument =
+          (IDocument) documentSet.getKeyRecordById(1);
+      Assert.assertEquals("Berlin", secondDocument.getName());
+      Assert.assertEquals("Another city", secondDocument.getDescription());
+      Assert.assertSame(((FixFileLookupDocument) firstDocument).getStore(),
+          ((FixFileLookupDocument) secondDocument).getStore());
+    } finally {
+      Files.deleteIfExists(
+          LineOffsetTable.getSidecarFile(file.toFile()).toPath());
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link DocumentSet#buildCompressedFromTsvFile(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBuildCompressedFromTsvFile() throws IOException {
+    final Path file = Files.createTempFile("documents", ".tsv");
+    try {
+      Files.write(file, "a\tthe plot\n\nc\n".getBytes(StandardCharsets.UTF_8));
+      final DocumentSet documentSet =
+          DocumentSet.buildCompressedFromTsvFile(file.toFile());
+      Assert.assertEquals(2, documentSet.size());
+      final IDocument first = (IDocument) documentSet.getKeyRecordById(0);
+      Assert.assertTrue(first instanceof CompressedDocument);
+      Assert.assertEquals("a", first.getName());
+      Assert.assertEquals("the plot", first.getDescription());
+      Assert.assertArrayEquals(new String[] { "a", "the", "plot" },
+          first.getKeys());
+      Assert.assertEquals("",
+          ((IDocument) documentSet.getKeyRecordById(2)).getDescription());
+
+      Files.write(file, "a\tb\tc".getBytes(StandardCharsets.UTF_8));
+      try {
+        DocumentSet.buildCompressedFromTsvFile(file.toFile());
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link DocumentSet#buildFromTsvFile(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBuildFromTsvFile() throws IOException {
+    final Path file = Files.createTempFile("documents", ".tsv");
+    try {
+      Files.write(file, "a\tb\n\nc\n".getBytes(StandardCharsets.UTF_8));
+      final DocumentSet documentSet =
+          DocumentSet.buildFromTsvFile(file.toFile());
+      Assert.assertEquals(2, documentSet.size());
+      Assert.assertEquals("a", documentSet.getKeyRecordById(0).getName());
+      Assert.assertEquals("c", documentSet.getKeyRecordById(2).getName());
+
+      Files.write(file, "a\tb\tc".getBytes(StandardCharsets.UTF_8));
+      try {
+        DocumentSet.buildFromTsvFile(file.toFile());
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
   /**
    * Test method for {@link DocumentSet#clear()}.
    */
@@ -212,6 +357,31 @@ public final class DocumentSetTest {
     Assert.assertNull(documentSet.getKeyRecordById(3));
   }
 
+  /**
+   * Test method for {@link DocumentSet#getTermDictionary()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTermDictionary() {
+    final List<String> content = new LinkedList<>();
+    content.add("a b\tc");
+    content.add("b\td");
+
+    final DocumentSet documentSet =
+        DocumentSet.buildFromTextIterator(content.iterator(), "\t");
+    final Document document = (Document) documentSet.getKeyRecordById(0);
+    Assert.assertSame(documentSet.getTermDictionary(),
+        document.getTermDictionary());
+    Assert.assertArrayEquals(new String[] { "a", "b", "c" },
+        document.getKeys());
+
+    // Each set owns its dictionary, which only holds the keys of its documents
+    Assert.assertEquals(4, documentSet.getTermDictionary().size());
+    Assert.assertNotSame(documentSet.getTermDictionary(),
+        new DocumentSet().getTermDictionary());
+    Assert.assertEquals(0, new DocumentSet().getTermDictionary().size());
+  }
+
   /**
    * Test method for {@link DocumentSet#isEmpty()}.
    */
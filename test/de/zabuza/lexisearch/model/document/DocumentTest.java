@@ -3,6 +3,8 @@ package de.zabuza.lexisearch.model.document;
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.zabuza.lexisearch.indexing.TermDictionary;
+
 /**
  * Test for {@link Document}.
  * 
@@ -99,6 +101,31 @@ public final class DocumentTest {
     Assert.assertEquals(anotherDescription, anotherDocument.getDescription());
   }
 
+  /**
+   * Test method for {@link Document#getFieldSize(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetFieldSize() {
+    final Document document = new Document(1, "A b", "c, d e");
+    Assert.assertEquals(Document.AMOUNT_OF_FIELDS,
+        document.getAmountOfFields());
+    Assert.assertEquals(2, document.getFieldSize(Document.NAME_FIELD));
+    Assert.assertEquals(3, document.getFieldSize(Document.DESCRIPTION_FIELD));
+
+    final Document nameOnlyDocument = new Document(2, "a b");
+    Assert.assertEquals(2, nameOnlyDocument.getFieldSize(Document.NAME_FIELD));
+    Assert.assertEquals(0,
+        nameOnlyDocument.getFieldSize(Document.DESCRIPTION_FIELD));
+
+    try {
+      document.getFieldSize(Document.AMOUNT_OF_FIELDS);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
   /**
    * Test method for {@link Document#getId()}.
    */
@@ -167,4 +194,42 @@ public final class DocumentTest {
     Assert.assertEquals(anotherId, anotherDocument.getRecordId());
   }
 
+  /**
+   * Test method for {@link Document#getTermIds()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTermIds() {
+    final TermDictionary dictionary = new TermDictionary();
+    final Document document = new Document(0, "A b", "b c", dictionary);
+    final int[] termIds = document.getTermIds();
+    Assert.assertSame(termIds, document.getTermIds());
+    Assert.assertSame(dictionary, document.getTermDictionary());
+    Assert.assertEquals(4, termIds.length);
+    Assert.assertEquals(termIds[1], termIds[2]);
+    Assert.assertArrayEquals(document.getKeys(), dictionary.decode(termIds));
+    Assert.assertEquals(2, document.getFieldSize(Document.NAME_FIELD));
+
+    // Documents without a dictionary compute their keys on each access
+    final Document computingDocument = new Document(1, "A b", "b c");
+    Assert.assertNull(computingDocument.getTermIds());
+    Assert.assertNull(computingDocument.getTermDictionary());
+    Assert.assertArrayEquals(document.getKeys(), computingDocument.getKeys());
+
+    final Document lookupDocument = new Document() {
+      @Override
+      public String getDescription() {
+        return "b c";
+      }
+
+      @Override
+      public String getName() {
+        return "A b";
+      }
+    };
+    Assert.assertNull(lookupDocument.getTermIds());
+    Assert.assertEquals(4, lookupDocument.getSize());
+    Assert.assertEquals(2, lookupDocument.getFieldSize(Document.NAME_FIELD));
+  }
+
 }
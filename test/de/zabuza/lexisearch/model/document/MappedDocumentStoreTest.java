@@ -0,0 +1,135 @@
+package de.zabuza.lexisearch.model.document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.util.LineOffsetTable;
+
+/**
+ * Test for {@link MappedDocumentStore}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class MappedDocumentStoreTest {
+
+  /**
+   * Test method for {@link MappedDocumentStore#forFile(File, String)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testForFile() throws IOException {
+    final File file = new File("documents.txt");
+    final MappedDocumentStore store = MappedDocumentStore.forFile(file, "\t");
+    Assert.assertSame(store,
+        MappedDocumentStore.forFile(file.getAbsoluteFile(), "\t"));
+    Assert.assertNotSame(store, MappedDocumentStore.forFile(file, ";"));
+    Assert.assertEquals(file.getAbsoluteFile(), store.getFile());
+
+    // A modified file gets a new store
+    final Path modifiedFile = Files.createTempFile("documents", ".txt");
+    try {
+      Files.write(modifiedFile, "a\tb".getBytes(StandardCharsets.UTF_8));
+      final MappedDocumentStore oldStore =
+          MappedDocumentStore.forFile(modifiedFile.toFile(), "\t");
+      Assert.assertEquals(Arrays.asList("a", "b"), oldStore.getFields(0));
+      Assert.assertSame(oldStore,
+          MappedDocumentStore.forFile(modifiedFile.toFile(), "\t"));
+
+      Files.write(modifiedFile, "cd\te".getBytes(StandardCharsets.UTF_8));
+      Assert.assertFalse(oldStore.isUpToDate());
+      final MappedDocumentStore newStore =
+          MappedDocumentStore.forFile(modifiedFile.toFile(), "\t");
+      Assert.assertNotSame(oldStore, newStore);
+      Assert.assertEquals(Arrays.asList("cd", "e"), newStore.getFields(0));
+      Assert.assertTrue(newStore.isUpToDate());
+
+      Assert.assertTrue(
+          MappedDocumentStore.release(modifiedFile.toFile(), "\t"));
+      Assert.assertNotSame(newStore,
+          MappedDocumentStore.forFile(modifiedFile.toFile(), "\t"));
+    } finally {
+      MappedDocumentStore.release(modifiedFile.toFile(), "\t");
+      Files.deleteIfExists(
+          LineOffsetTable.getSidecarFile(modifiedFile.toFile()).toPath());
+      Files.delete(modifiedFile);
+    }
+  }
+
+  /**
+   * Test method for {@link MappedDocumentStore#getFields(long)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetFields() throws IOException {
+    final Path file = Files.createTempFile("documents", ".txt");
+    try {
+      final String firstLine = "K\u00F6ln\tA city\r\n";
+      final String secondLine = "\r\n";
+      Files.write(file, (firstLine + secondLine + "Berlin::x\ty")
+          .getBytes(StandardCharsets.UTF_8));
+      final int secondStart =
+          firstLine.getBytes(StandardCharsets.UTF_8).length;
+      final int thirdStart = secondStart + secondLine.length();
+
+      final MappedDocumentStore store =
+          new MappedDocumentStore(file.toFile(), "\t", 2);
+      Assert.assertEquals(3, store.getAmountOfLines());
+      Assert.assertEquals(secondStart, store.getLineStart(1));
+      Assert.assertEquals(thirdStart, store.getLineStart(2));
+
+      Assert.assertEquals(Arrays.asList("K\u00F6ln", "A city"),
+          store.getFields(0));
+      Assert.assertEquals(Arrays.asList(""), store.getFields(secondStart));
+      Assert.assertEquals(Arrays.asList("Berlin::x", "y"),
+          store.getFields(thirdStart));
+
+      // Further lookups are served by the cache
+      final List<String> fields = store.getFields(thirdStart);
+      Assert.assertSame(fields, store.getFields(thirdStart));
+      Assert.assertEquals(2, store.getCache().getHitCount());
+
+      // The cached fields can not be modified by callers
+      try {
+        fields.set(0, "Paris");
+        Assert.fail();
+      } catch (final UnsupportedOperationException e) {
+        // Expected exception
+      }
+      Assert.assertEquals("Berlin::x", store.getFields(thirdStart).get(0));
+
+      final MappedDocumentStore otherStore =
+          new MappedDocumentStore(file.toFile(), "::", 2);
+      Assert.assertEquals(Arrays.asList("Berlin", "x\ty"),
+          otherStore.getFields(thirdStart));
+
+      try {
+        store.getFields(1);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+
+      // The offset table was persisted next to the file
+      Assert.assertTrue(LineOffsetTable.getSidecarFile(file.toFile()).isFile());
+    } finally {
+      Files.deleteIfExists(
+          LineOffsetTable.getSidecarFile(file.toFile()).toPath());
+      Files.delete(file);
+    }
+  }
+}
@@ -1,13 +1,26 @@
 package de.zabuza.lexisearch.queries;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IInvertedList;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
 import de.zabuza.lexisearch.indexing.Posting;
 import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
 import de.zabuza.lexisearch.model.city.City;
@@ -23,6 +36,87 @@ import de.zabuza.lexisearch.ranking.PostingBeforeRecordRanking;
  */
 public final class FuzzyPrefixQueryTest {
 
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#FuzzyPrefixQuery(IInvertedIndex, String[], IKeyRecordSet, QGramProvider, IRankingProvider)}
+   * .
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testFuzzyPrefixQueryWithIInvertedIndex() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = Arrays.asList("Football\t3\t0\t0",
+        "foobar\t1\t0\t0", "Footsal\t2\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query = new FuzzyPrefixQuery<>(
+        citySet, provider, new PostingBeforeRecordRanking<>());
+    // The ranking must already hold a snapshot, it is not taken again
+    final PostingBeforeRecordRanking<String> ranking =
+        new PostingBeforeRecordRanking<>();
+    ranking.takeSnapshot(query.getInvertedIndex(), citySet);
+    final long modificationCount =
+        query.getInvertedIndex().getModificationCount();
+    final FuzzyPrefixQuery<IKeyRecord<String>> restoredQuery =
+        new FuzzyPrefixQuery<>(query.getInvertedIndex(),
+            query.getNormalizedNames(), citySet, provider, ranking);
+    Assert.assertEquals(modificationCount,
+        query.getInvertedIndex().getModificationCount());
+
+    Assert.assertSame(query.getInvertedIndex(),
+        restoredQuery.getInvertedIndex());
+    Assert.assertSame(query.getNormalizedNames(),
+        restoredQuery.getNormalizedNames());
+    final List<Posting> results = query.searchOr(Arrays.asList("fotb"));
+    final List<Posting> restoredResults =
+        restoredQuery.searchOr(Arrays.asList("fotb"));
+    Assert.assertEquals(results.size(), restoredResults.size());
+    for (int i = 0; i < results.size(); i++) {
+      Assert.assertEquals(results.get(i).getId(),
+          restoredResults.get(i).getId());
+      Assert.assertEquals(results.get(i).getScore(),
+          restoredResults.get(i).getScore(), 0);
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#FuzzyPrefixQuery(IInvertedIndex, IKeyRecordSet, QGramProvider, IRankingProvider)}
+   * .
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testFuzzyPrefixQueryWithIngestedIInvertedIndex() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = Arrays.asList("Football\t3\t0\t0",
+        "foobar\t1\t0\t0", "Footsal\t2\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query = new FuzzyPrefixQuery<>(
+        citySet, provider, new PostingBeforeRecordRanking<>());
+
+    // The index is used as is, names and ranking are computed
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(citySet);
+    final FuzzyPrefixQuery<IKeyRecord<String>> ingestedQuery =
+        new FuzzyPrefixQuery<>(invertedIndex, citySet, provider,
+            new PostingBeforeRecordRanking<>());
+    Assert.assertSame(invertedIndex, ingestedQuery.getInvertedIndex());
+    Assert.assertArrayEquals(query.getNormalizedNames(),
+        ingestedQuery.getNormalizedNames());
+    final List<Posting> results = query.searchOr(Arrays.asList("fotb"));
+    final List<Posting> ingestedResults =
+        ingestedQuery.searchOr(Arrays.asList("fotb"));
+    Assert.assertFalse(results.isEmpty());
+    Assert.assertEquals(results.size(), ingestedResults.size());
+    for (int i = 0; i < results.size(); i++) {
+      Assert.assertEquals(results.get(i).getId(),
+          ingestedResults.get(i).getId());
+      Assert.assertEquals(results.get(i).getScore(),
+          ingestedResults.get(i).getScore(), 0);
+    }
+  }
+
   /**
    * Test method for
    * {@link FuzzyPrefixQuery#FuzzyPrefixQuery(IKeyRecordSet, QGramProvider, IRankingProvider)}
@@ -152,6 +246,257 @@ public final class FuzzyPrefixQueryTest {
     Assert.assertEquals(1, score);
   }
 
+  /**
+   * Test method for {@link FuzzyPrefixQuery#getNormalizedNames()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetNormalizedNames() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final CitySet citySet = new CitySet();
+    citySet.add(new City(0, "Foot Barca", 0.0f, 0.0f, provider));
+    citySet.add(new City(2, "Footsal", 0.0f, 0.0f, provider));
+    citySet.add(new City(1_000, "Football", 0.0f, 0.0f, provider));
+    final FuzzyPrefixQuery<IKeyRecord<String>> query =
+        new FuzzyPrefixQuery<>(citySet, provider);
+
+    // Sparse ids are left out and get normalized on demand
+    final String[] normalizedNames = query.getNormalizedNames();
+    Assert.assertArrayEquals(new String[] { "footbarca", null, "footsal" },
+        Arrays.copyOf(normalizedNames, 3));
+    Assert.assertTrue(normalizedNames.length < 1_000);
+    Assert.assertEquals(3, query.searchOr(Arrays.asList("foot")).size());
+  }
+
+  /**
+   * Test method for {@link FuzzyPrefixQuery#getPrefixCache()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetPrefixCache() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final String firstCity = "Football\t3\t0\t0";
+    final String secondCity = "foobar\t1\t0\t0";
+    final String thirdCity = "Footsal\t2\t0\t0";
+    final String fourthCity = "Foot Barca\t1\t0\t0";
+    final List<String> content = new LinkedList<>();
+    content.add(firstCity);
+    content.add(secondCity);
+    content.add(thirdCity);
+    content.add(fourthCity);
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query =
+        new FuzzyPrefixQuery<>(citySet, provider);
+    Assert.assertEquals(0, query.getPrefixCache().getSize());
+
+    // Type the keyword character by character, results must not differ from
+    // those of a query without cached prefixes
+    final String keyword = "footbal";
+    for (int length = 1; length <= keyword.length(); length++) {
+      final LinkedList<String> keys = new LinkedList<>();
+      keys.add(keyword.substring(0, length));
+      final FuzzyPrefixQuery<IKeyRecord<String>> freshQuery =
+          new FuzzyPrefixQuery<>(citySet, provider);
+      final List<Posting> expectedResults = freshQuery.searchOr(keys);
+      final List<Posting> results = query.searchOr(keys);
+
+      Assert.assertEquals(expectedResults.size(), results.size());
+      for (int i = 0; i < results.size(); i++) {
+        final Posting expected = expectedResults.get(i);
+        final Posting actual = results.get(i);
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertEquals(expected.getTermFrequency(),
+            actual.getTermFrequency());
+        Assert.assertEquals(expected.getScore(), actual.getScore(), 0);
+      }
+    }
+    Assert.assertTrue(query.getPrefixCache().getHitCount() > 0);
+    Assert.assertTrue(query.getPrefixCache().getSize() > 0);
+
+    // Verifying by term ids yields the same results as verifying by keys
+    final CitySet keyCitySet = new CitySet();
+    for (final IKeyRecord<String> record : citySet) {
+      final City city = (City) record;
+      Assert.assertNotNull(city.getTermIds());
+      keyCitySet.add(new City(city.getId(), city.getName(),
+          city.getLatitude(), city.getLongitude(), city.getScore(), provider));
+    }
+    final FuzzyPrefixQuery<IKeyRecord<String>> keyQuery =
+        new FuzzyPrefixQuery<>(keyCitySet, provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> termQuery =
+        new FuzzyPrefixQuery<>(citySet, provider);
+    for (int length = 1; length <= keyword.length(); length++) {
+      final LinkedList<String> keys = new LinkedList<>();
+      keys.add(keyword.substring(0, length));
+      final List<Posting> expectedResults = keyQuery.searchOr(keys);
+      final List<Posting> results = termQuery.searchOr(keys);
+
+      Assert.assertEquals(expectedResults.size(), results.size());
+      for (int i = 0; i < results.size(); i++) {
+        Assert.assertEquals(expectedResults.get(i).getId(),
+            results.get(i).getId());
+        Assert.assertEquals(expectedResults.get(i).getTermFrequency(),
+            results.get(i).getTermFrequency());
+      }
+    }
+
+    // Records only sharing q-grams of the extension are found too
+    final List<String> extensionContent = new LinkedList<>();
+    extensionContent.add("Abcz\t1\t0\t0");
+    extensionContent.add("Xbcd\t1\t0\t0");
+    final CitySet extensionCitySet = CitySet.buildFromTextIterator(
+        extensionContent.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> extensionQuery =
+        new FuzzyPrefixQuery<>(extensionCitySet, provider);
+    final LinkedList<String> prefixKeys = new LinkedList<>();
+    prefixKeys.add("abc");
+    Assert.assertEquals(1, extensionQuery.searchOr(prefixKeys).size());
+    final LinkedList<String> extendedKeys = new LinkedList<>();
+    extendedKeys.add("abcd");
+    final List<Posting> extendedResults = extensionQuery.searchOr(extendedKeys);
+    Assert.assertEquals(1, extensionQuery.getPrefixCache().getHitCount());
+    Assert.assertEquals(new FuzzyPrefixQuery<>(extensionCitySet, provider)
+        .searchOr(extendedKeys).size(), extendedResults.size());
+    Assert.assertEquals(2, extendedResults.size());
+  }
+
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#getRecords(String, BitSet, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetRecordsStringBitSetQueryContext() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final CitySet citySet = new CitySet();
+    citySet.add(new City(0, "Football", 0.0f, 0.0f, provider));
+    citySet.add(new City(1, "foobar", 0.0f, 0.0f, provider));
+    citySet.add(new City(2, "Footsal", 0.0f, 0.0f, provider));
+    citySet.add(new City(3, "Foot Barca", 0.0f, 0.0f, provider));
+    final FuzzyPrefixQuery<IKeyRecord<String>> query =
+        new FuzzyPrefixQuery<>(citySet, provider);
+    final BitSet allowedRecords = new BitSet();
+    allowedRecords.set(0);
+    allowedRecords.set(2);
+
+    // Records outside of the set are not verified
+    final QueryContext context = new QueryContext();
+    final IInvertedList records =
+        query.getRecords("foot", allowedRecords, context);
+    Assert.assertEquals(2, records.getSize());
+    Assert.assertTrue(records.containsPosting(0));
+    Assert.assertTrue(records.containsPosting(2));
+    Assert.assertTrue(context.getPrefixDistanceComputations() <= 2);
+    Assert.assertEquals(0, query.getPrefixCache().getSize());
+
+    // Cached candidates are restricted without verifying them again
+    Assert.assertEquals(4,
+        query.getRecords("foot", new QueryContext()).getSize());
+    final QueryContext cachedContext = new QueryContext();
+    Assert.assertEquals(2,
+        query.getRecords("foot", allowedRecords, cachedContext).getSize());
+    Assert.assertEquals(0, cachedContext.getPrefixDistanceComputations());
+    Assert.assertTrue(
+        query.getRecords("foot", new BitSet(), new QueryContext()).isEmpty());
+  }
+
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#searchOr(Iterable, QueryContext)} with multiple
+   * keywords and enough candidates to be verified in parallel chunks.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOrInParallel() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = new LinkedList<>();
+    final int amountOfCities = 5_000;
+    for (int i = 0; i < amountOfCities; i++) {
+      content.add("Foo" + i + "\t1\t0\t0");
+    }
+    content.add("Bar\t1\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query =
+        new FuzzyPrefixQuery<>(citySet, provider);
+
+    final QueryContext context = new QueryContext();
+    final List<Posting> results =
+        query.searchOr(Arrays.asList("foo", "bar"), context);
+    Assert.assertEquals(amountOfCities + 1, results.size());
+    Assert.assertTrue(context.getPrefixDistanceComputations() > amountOfCities);
+    Assert.assertFalse(context.isTruncated());
+
+    // Each keyword must yield the same records as if searched alone
+    final FuzzyPrefixQuery<IKeyRecord<String>> freshQuery =
+        new FuzzyPrefixQuery<>(citySet, provider);
+    Assert.assertEquals(amountOfCities,
+        freshQuery.searchOr(Arrays.asList("foo")).size());
+    Assert.assertEquals(1, freshQuery.searchOr(Arrays.asList("bar")).size());
+    Assert.assertTrue(
+        query.searchAnd(Arrays.asList("foo", "bar"), context).isEmpty());
+
+    // Parallel tasks draw from the budget of the invocation together, each
+    // may exceed it by at most one computation
+    query.getPrefixCache().invalidateAll();
+    final int maximalComputations = 100;
+    final QueryContext limitedContext =
+        new QueryContext(new QueryBudget(maximalComputations, Long.MAX_VALUE,
+            Long.MAX_VALUE, TimeUnit.SECONDS));
+    query.searchOr(Arrays.asList("foo", "bar"), limitedContext);
+    Assert.assertTrue(limitedContext.isTruncated());
+    Assert.assertTrue(limitedContext
+        .getPrefixDistanceComputations() <= maximalComputations + 16);
+  }
+
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#searchOr(Iterable, QueryContext)} with a limited
+   * {@link QueryBudget}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOrWithQueryBudget() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = new LinkedList<>();
+    content.add("Football\t3\t0\t0");
+    content.add("foobar\t1\t0\t0");
+    content.add("Footsal\t2\t0\t0");
+    content.add("Foot Barca\t1\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query =
+        new FuzzyPrefixQuery<>(citySet, provider);
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("foo");
+    final List<Posting> expectedResults = query.searchOr(keys);
+    query.getPrefixCache().invalidateAll();
+
+    // A single verification yields a part of the result only
+    final QueryContext limitedContext = new QueryContext(
+        new QueryBudget(1, Long.MAX_VALUE, Long.MAX_VALUE, TimeUnit.SECONDS));
+    final List<Posting> partialResults = query.searchOr(keys, limitedContext);
+    Assert.assertTrue(limitedContext.isTruncated());
+    Assert.assertEquals(1, limitedContext.getPrefixDistanceComputations());
+    Assert.assertTrue(partialResults.size() < expectedResults.size());
+    for (final Posting posting : partialResults) {
+      Assert.assertTrue(expectedResults.contains(posting));
+    }
+    // Partial candidates must not be cached
+    Assert.assertEquals(0, query.getPrefixCache().getSize());
+
+    final QueryContext expiredContext =
+        new QueryContext(new QueryBudget(100, 100, 0, TimeUnit.SECONDS));
+    Assert.assertTrue(query.searchOr(keys, expiredContext).isEmpty());
+    Assert.assertTrue(expiredContext.isTruncated());
+
+    final QueryContext unlimitedContext = new QueryContext();
+    Assert.assertEquals(expectedResults.size(),
+        query.searchOr(keys, unlimitedContext).size());
+    Assert.assertFalse(unlimitedContext.isTruncated());
+  }
+
   /**
    * Test method for {@link FuzzyPrefixQuery#searchAnd(Iterable)}.
    */
@@ -216,6 +561,85 @@ public final class FuzzyPrefixQueryTest {
     Assert.assertEquals(1, score);
   }
 
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#searchAnd(Iterable, int, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchAndWithLimit() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = new LinkedList<>();
+    content.add("Football\t3\t0\t0");
+    content.add("foobar\t1\t0\t0");
+    content.add("Footsal\t2\t0\t0");
+    content.add("Foot Barca\t1\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query = new FuzzyPrefixQuery<>(
+        citySet, provider, new PostingBeforeRecordRanking<>());
+
+    final List<String> keys = Arrays.asList("foot");
+    final List<Posting> allResults = query.searchAnd(keys);
+    Assert.assertEquals(4, allResults.size());
+    final List<Posting> topResults =
+        query.searchAnd(keys, 2, new QueryContext());
+    Assert.assertEquals(2, topResults.size());
+    Assert.assertEquals(allResults.get(0).getId(), topResults.get(0).getId());
+    Assert.assertEquals(allResults.get(1).getId(), topResults.get(1).getId());
+  }
+
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#searchBatch(List, EAggregateMode)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchBatch() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final String firstCity = "Football\t3\t0\t0";
+    final String secondCity = "foobar\t1\t0\t0";
+    final String thirdCity = "Footsal\t2\t0\t0";
+    final String fourthCity = "Foot Barca\t1\t0\t0";
+    final List<String> content = new LinkedList<>();
+    content.add(firstCity);
+    content.add(secondCity);
+    content.add(thirdCity);
+    content.add(fourthCity);
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query = new FuzzyPrefixQuery<>(
+        citySet, provider, new PostingBeforeRecordRanking<>());
+
+    final List<Collection<String>> queries = new ArrayList<>();
+    queries.add(Arrays.asList("foot"));
+    queries.add(Arrays.asList("woob"));
+    queries.add(Arrays.asList("foot", "barc"));
+    queries.add(Arrays.asList("xyzxyz"));
+    queries.add(Arrays.asList("foot", "woob"));
+
+    for (final EAggregateMode mode : EAggregateMode.values()) {
+      final List<List<Posting>> results = query.searchBatch(queries, mode);
+      Assert.assertEquals(queries.size(), results.size());
+      for (int i = 0; i < queries.size(); i++) {
+        final List<Posting> expectedResult;
+        if (mode == EAggregateMode.INTERSECT) {
+          expectedResult = query.searchAnd(queries.get(i));
+        } else {
+          expectedResult = query.searchOr(queries.get(i));
+        }
+        final List<Posting> result = results.get(i);
+        Assert.assertEquals(expectedResult.size(), result.size());
+        for (int j = 0; j < result.size(); j++) {
+          Assert.assertEquals(expectedResult.get(j).getId(),
+              result.get(j).getId());
+          Assert.assertEquals(expectedResult.get(j).getScore(),
+              result.get(j).getScore(), 0);
+        }
+      }
+    }
+  }
+
   /**
    * Test method for {@link FuzzyPrefixQuery#searchOr(Iterable)}.
    */
@@ -279,4 +703,73 @@ public final class FuzzyPrefixQueryTest {
     Assert.assertEquals(1, score);
   }
 
+  /**
+   * Test method for
+   * {@link FuzzyPrefixQuery#searchOr(Iterable, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOrWithQueryContext() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final String firstCity = "Football\t3\t0\t0";
+    final String secondCity = "foobar\t1\t0\t0";
+    final String thirdCity = "Footsal\t2\t0\t0";
+    final String fourthCity = "Foot Barca\t1\t0\t0";
+    final List<String> content = new LinkedList<>();
+    content.add(firstCity);
+    content.add(secondCity);
+    content.add(thirdCity);
+    content.add(fourthCity);
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query = new FuzzyPrefixQuery<>(
+        citySet, provider, new PostingBeforeRecordRanking<>());
+
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("foot");
+    final QueryContext context = new QueryContext();
+    final List<Posting> expectedResults = query.searchOr(keys, context);
+    Assert.assertEquals(4, expectedResults.size());
+    Assert.assertTrue(context.getPrefixDistanceComputations() > 0);
+    Assert.assertTrue(context.getScannedPostings() > 0);
+
+    // Share the query between multiple threads
+    final int amountOfThreads = 4;
+    final int amountOfRuns = 50;
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(amountOfThreads);
+    try {
+      final List<Future<Boolean>> futures = new LinkedList<>();
+      for (int i = 0; i < amountOfThreads; i++) {
+        futures.add(executor.submit(() -> {
+          final QueryContext threadContext = new QueryContext();
+          for (int run = 0; run < amountOfRuns; run++) {
+            final List<Posting> results = query.searchOr(keys, threadContext);
+            if (results.size() != expectedResults.size()) {
+              return Boolean.FALSE;
+            }
+            for (int j = 0; j < results.size(); j++) {
+              final Posting result = results.get(j);
+              final Posting expected = expectedResults.get(j);
+              if (result.getId() != expected.getId()
+                  || result.getScore() != expected.getScore()) {
+                return Boolean.FALSE;
+              }
+              // Results are owned by the caller
+              result.setScore(-1);
+            }
+          }
+          return Boolean.TRUE;
+        }));
+      }
+      for (final Future<Boolean> future : futures) {
+        Assert.assertTrue(future.get().booleanValue());
+      }
+    } catch (final InterruptedException | ExecutionException e) {
+      Assert.fail(e.toString());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
 }
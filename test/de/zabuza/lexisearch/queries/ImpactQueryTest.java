@@ -0,0 +1,118 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.EImpactPrecision;
+import de.zabuza.lexisearch.ranking.ImpactIndex;
+
+/**
+ * Test for {@link ImpactQuery}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ImpactQueryTest {
+
+  /**
+   * Creates a BM25 ranking with a snapshot of a small set of documents.
+   * 
+   * @return The created ranking
+   */
+  private static Bm25Ranking<String> createRanking() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "a", "b c"));
+    documents.add(new Document(2, "h", "i k k l"));
+    documents.add(new Document(3, "a a", "k"));
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    ranking.takeSnapshot(InvertedIndexUtil.createFromWords(documents),
+        documents);
+    ranking.setRankingScoreToIndex();
+    return ranking;
+  }
+
+  /**
+   * Test method for {@link ImpactQuery#getImpactIndex()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetImpactIndex() {
+    final Bm25Ranking<String> ranking = createRanking();
+    final ImpactQuery<String> query =
+        new ImpactQuery<>(ranking, EImpactPrecision.EIGHT_BITS);
+    final ImpactIndex<String> impactIndex = query.getImpactIndex();
+    Assert.assertEquals(EImpactPrecision.EIGHT_BITS,
+        impactIndex.getPrecision());
+    Assert.assertSame(impactIndex, query.getImpactIndex());
+
+    // New scores of the ranking create the impact index again
+    ranking.setKParameter(2 * ranking.getKParameter());
+    ranking.setRankingScoreToIndex();
+    Assert.assertNotSame(impactIndex, query.getImpactIndex());
+  }
+
+  /**
+   * Test method for {@link ImpactQuery#searchAnd(Iterable, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchAnd() {
+    final ImpactQuery<String> query =
+        new ImpactQuery<>(createRanking(), EImpactPrecision.SIXTEEN_BITS);
+
+    final List<Posting> results = query.searchAnd(Arrays.asList("a", "k"));
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals(3, results.get(0).getId());
+    Assert.assertTrue(query.searchAnd(Arrays.asList("a", "x")).isEmpty());
+
+    final QueryContext context =
+        new QueryContext(new QueryBudget(10, 1, 1, TimeUnit.HOURS));
+    Assert.assertTrue(
+        query.searchAnd(Arrays.asList("a", "k"), context).isEmpty());
+    Assert.assertTrue(context.isTruncated());
+  }
+
+  /**
+   * Test method for {@link ImpactQuery#searchOr(Iterable, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOr() {
+    final Bm25Ranking<String> ranking = createRanking();
+    final ImpactQuery<String> query =
+        new ImpactQuery<>(ranking, EImpactPrecision.SIXTEEN_BITS);
+
+    final QueryContext context = new QueryContext();
+    final List<Posting> results =
+        query.searchOr(Arrays.asList("a", "k"), context);
+    Assert.assertEquals(3, results.size());
+    Assert.assertEquals(3, results.get(0).getId());
+    Assert.assertEquals(4, context.getScannedPostings());
+    Assert.assertFalse(context.isTruncated());
+
+    // Scores approximate those of the ranking
+    final double scale = query.getImpactIndex().getScale();
+    for (final Posting result : results) {
+      double expectedScore = 0.0;
+      for (final String key : Arrays.asList("a", "k")) {
+        final Posting posting = ranking.getInvertedIndex().getRecords(key)
+            .getPosting(result.getId());
+        if (posting != null) {
+          expectedScore += posting.getScore();
+        }
+      }
+      Assert.assertEquals(expectedScore, result.getScore(), scale);
+    }
+    Assert.assertEquals(1,
+        query.searchOr(Arrays.asList("k"), 1, new QueryContext()).size());
+  }
+}
@@ -1,12 +1,17 @@
 package de.zabuza.lexisearch.queries;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.zabuza.lexisearch.indexing.AggregationPlan;
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.EAggregateStrategy;
 import de.zabuza.lexisearch.indexing.IKeyRecord;
 import de.zabuza.lexisearch.indexing.IKeyRecordSet;
 import de.zabuza.lexisearch.indexing.Posting;
@@ -22,6 +27,34 @@ import de.zabuza.lexisearch.ranking.Bm25Ranking;
  */
 public class KeywordQueryTest {
 
+  /**
+   * Test method for {@link KeywordQuery#explain(Iterable, EAggregateMode)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testExplain() {
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(new Document(0, "a", "b"));
+    documents.add(new Document(1, "b"));
+
+    final KeywordQuery<IKeyRecord<String>> keywordQuery =
+        new KeywordQuery<>(documents);
+
+    final AggregationPlan plan =
+        keywordQuery.explain(Arrays.asList("b", "a"), EAggregateMode.INTERSECT);
+    Assert.assertEquals(EAggregateMode.INTERSECT, plan.getMode());
+    Assert.assertEquals(1, plan.getOperands().get(0).getSize());
+    Assert.assertEquals(2, plan.getOperands().get(1).getSize());
+
+    Assert.assertEquals(EAggregateStrategy.EMPTY,
+        keywordQuery
+            .explain(Arrays.asList("c", "a"), EAggregateMode.INTERSECT)
+            .getStrategy());
+    Assert.assertEquals(EAggregateStrategy.SINGLE, keywordQuery
+        .explain(Arrays.asList("c", "a"), EAggregateMode.UNION).getStrategy());
+  }
+
   /**
    * Test method for {@link KeywordQuery#KeywordQuery(IKeyRecordSet)}.
    */
@@ -102,6 +135,165 @@ public class KeywordQueryTest {
     Assert.assertEquals(0, thirdResult.get(0).getId());
   }
 
+  /**
+   * Test method for {@link KeywordQuery#searchAnd(Iterable, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchAndWithQueryContext() {
+    final String firstWord = "a";
+    final String secondWord = "b";
+    final Document document = new Document(0, firstWord, secondWord);
+    final Document anotherDocument = new Document(1, "1", secondWord);
+
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(document);
+    documents.add(anotherDocument);
+
+    final KeywordQuery<IKeyRecord<String>> keywordQuery =
+        new KeywordQuery<>(documents);
+    final QueryContext context = new QueryContext();
+
+    final List<Posting> result =
+        keywordQuery.searchAnd(Arrays.asList(secondWord), context);
+    Assert.assertEquals(2, result.size());
+    Assert.assertEquals(2, context.getScannedPostings());
+
+    // Results are owned by the caller and do not affect the index
+    result.get(0).setScore(42);
+    result.get(0).setTermFrequency(42);
+    final Posting indexPosting = keywordQuery.getInvertedIndex()
+        .getRecords(secondWord).getPostings().iterator().next();
+    Assert.assertEquals(Posting.DEFAULT_SCORE, indexPosting.getScore(), 0);
+    Assert.assertEquals(1, indexPosting.getTermFrequency());
+    final List<Posting> secondResult =
+        keywordQuery.searchAnd(Arrays.asList(secondWord), context);
+    Assert.assertEquals(Posting.DEFAULT_SCORE, secondResult.get(0).getScore(),
+        0);
+    Assert.assertEquals(4, context.getScannedPostings());
+  }
+
+  /**
+   * Test method for {@link KeywordQuery#searchBatch(List, EAggregateMode)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchBatch() {
+    final String firstWord = "a";
+    final String secondWord = "b";
+    final Document document = new Document(0, firstWord, secondWord);
+    final Document anotherDocument = new Document(1, "1", secondWord);
+
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(document);
+    documents.add(anotherDocument);
+
+    final KeywordQuery<IKeyRecord<String>> keywordQuery =
+        new KeywordQuery<>(documents, new Bm25Ranking<>(1.75, 0.75));
+
+    final List<Collection<String>> queries = new ArrayList<>();
+    queries.add(Arrays.asList(firstWord));
+    queries.add(Arrays.asList(firstWord, secondWord));
+    queries.add(Arrays.asList("c"));
+    queries.add(Arrays.asList(secondWord, "1"));
+    queries.add(Arrays.asList(firstWord, "c"));
+
+    for (final EAggregateMode mode : EAggregateMode.values()) {
+      final List<List<Posting>> results =
+          keywordQuery.searchBatch(queries, mode);
+      Assert.assertEquals(queries.size(), results.size());
+      for (int i = 0; i < queries.size(); i++) {
+        final List<Posting> expectedResult;
+        if (mode == EAggregateMode.INTERSECT) {
+          expectedResult = keywordQuery.searchAnd(queries.get(i));
+        } else {
+          expectedResult = keywordQuery.searchOr(queries.get(i));
+        }
+        final List<Posting> result = results.get(i);
+        Assert.assertEquals(expectedResult.size(), result.size());
+        for (int j = 0; j < result.size(); j++) {
+          Assert.assertEquals(expectedResult.get(j).getId(),
+              result.get(j).getId());
+          Assert.assertEquals(expectedResult.get(j).getScore(),
+              result.get(j).getScore(), 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link KeywordQuery#searchNear(Iterable, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchNear() {
+    final Document document = new Document(0, "new york city");
+    final Document anotherDocument = new Document(1, "york is new");
+    final Document thirdDocument = new Document(2, "new", "york");
+
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(document);
+    documents.add(anotherDocument);
+    documents.add(thirdDocument);
+
+    final KeywordQuery<IKeyRecord<String>> keywordQuery =
+        new KeywordQuery<>(documents);
+
+    final List<Posting> adjacentResult =
+        keywordQuery.searchNear(Arrays.asList("york", "new"), 1);
+    Assert.assertEquals(2, adjacentResult.size());
+    Assert.assertEquals(0, adjacentResult.get(0).getId());
+    Assert.assertEquals(2, adjacentResult.get(1).getId());
+
+    final List<Posting> windowResult =
+        keywordQuery.searchNear(Arrays.asList("york", "new"), 2);
+    Assert.assertEquals(3, windowResult.size());
+
+    final QueryContext context = new QueryContext();
+    Assert.assertTrue(keywordQuery
+        .searchNear(Arrays.asList("new", "boston"), 5, context).isEmpty());
+    Assert.assertTrue(context.getScannedPostings() > 0);
+  }
+
+  /**
+   * Test method for {@link KeywordQuery#searchPhrase(Iterable)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchPhrase() {
+    final Document document = new Document(0, "new york city");
+    final Document anotherDocument = new Document(1, "york is new");
+    final Document thirdDocument = new Document(2, "a new", "york");
+
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(document);
+    documents.add(anotherDocument);
+    documents.add(thirdDocument);
+
+    final KeywordQuery<IKeyRecord<String>> keywordQuery =
+        new KeywordQuery<>(documents);
+
+    final List<Posting> phraseResult =
+        keywordQuery.searchPhrase(Arrays.asList("new", "york"));
+    Assert.assertEquals(2, phraseResult.size());
+    Assert.assertEquals(0, phraseResult.get(0).getId());
+    Assert.assertEquals(2, phraseResult.get(1).getId());
+
+    final List<Posting> reversedResult =
+        keywordQuery.searchPhrase(Arrays.asList("york", "new"));
+    Assert.assertTrue(reversedResult.isEmpty());
+
+    final List<Posting> singleResult =
+        keywordQuery.searchPhrase(Arrays.asList("city"));
+    Assert.assertEquals(1, singleResult.size());
+    Assert.assertTrue(
+        keywordQuery.searchPhrase(new ArrayList<String>()).isEmpty());
+  }
+
   /**
    * Test method for {@link KeywordQuery#searchOr(Iterable)}.
    */
@@ -171,4 +363,51 @@ public class KeywordQueryTest {
     Assert.assertEquals(0, testResult.get(2).getScore(), 0);
   }
 
+  /**
+   * Test method for
+   * {@link KeywordQuery#searchOr(Iterable, int, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOrWithLimit() {
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(new Document(0, "a", "b"));
+    documents.add(new Document(1, "a a", "c"));
+    documents.add(new Document(2, "b b b", ""));
+    documents.add(new Document(3, "c", "d"));
+    final List<String> keys = Arrays.asList("a", "b");
+
+    final KeywordQuery<IKeyRecord<String>> rankedQuery =
+        new KeywordQuery<>(documents, new Bm25Ranking<>());
+    final List<Posting> allResults = rankedQuery.searchOr(keys);
+    Assert.assertEquals(3, allResults.size());
+    final List<Posting> topResults =
+        rankedQuery.searchOr(keys, 2, new QueryContext());
+    Assert.assertEquals(2, topResults.size());
+    for (int i = 0; i < topResults.size(); i++) {
+      Assert.assertEquals(allResults.get(i).getId(),
+          topResults.get(i).getId());
+    }
+    Assert.assertEquals(3,
+        rankedQuery.searchOr(keys, 10, new QueryContext()).size());
+    Assert.assertTrue(
+        rankedQuery.searchAnd(keys, 0, new QueryContext()).isEmpty());
+
+    final KeywordQuery<IKeyRecord<String>> unrankedQuery =
+        new KeywordQuery<>(documents);
+    final List<Posting> unrankedResults =
+        unrankedQuery.searchOr(keys, 2, new QueryContext());
+    Assert.assertEquals(2, unrankedResults.size());
+    Assert.assertEquals(0, unrankedResults.get(0).getId());
+    Assert.assertEquals(1, unrankedResults.get(1).getId());
+
+    try {
+      unrankedQuery.searchOr(keys, -1, new QueryContext());
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
 }
@@ -0,0 +1,105 @@
+package de.zabuza.lexisearch.queries;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.queries.PrefixExtensionCache.PrefixCandidates;
+
+/**
+ * Test for {@link PrefixExtensionCache}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class PrefixExtensionCacheTest {
+
+  /**
+   * Creates candidates for the given keyword with the given amount of entries.
+   * 
+   * @param keyword
+   *          The keyword of the candidates
+   * @param bound
+   *          The bound of the candidates
+   * @param size
+   *          The amount of entries
+   * @return The created candidates
+   */
+  private static PrefixCandidates createCandidates(final String keyword,
+      final int bound, final int size) {
+    final int[] ids = new int[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = i;
+    }
+    return new PrefixCandidates(keyword, bound, ids, new int[size],
+        new int[size]);
+  }
+
+  /**
+   * Test method for
+   * {@link PrefixExtensionCache#getLongestPrefix(String, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetLongestPrefix() {
+    final PrefixExtensionCache cache = new PrefixExtensionCache(100);
+    Assert.assertNull(cache.getLongestPrefix("freiburg", 0));
+    Assert.assertEquals(1, cache.getMissCount());
+
+    cache.put(createCandidates("fr", 0, 5));
+    cache.put(createCandidates("frei", 1, 3));
+    Assert.assertEquals("frei",
+        cache.getLongestPrefix("freiburg", 1).getKeyword());
+    Assert.assertEquals("fr", cache.getLongestPrefix("frau", 0).getKeyword());
+    Assert.assertEquals("frei",
+        cache.getLongestPrefix("frei", 0).getKeyword());
+    Assert.assertNull(cache.getLongestPrefix("freiburg", 2));
+    Assert.assertNull(cache.getLongestPrefix("berlin", 0));
+    Assert.assertEquals(3, cache.getHitCount());
+    Assert.assertEquals(3, cache.getMissCount());
+  }
+
+  /**
+   * Test method for {@link PrefixExtensionCache#invalidateAll()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testInvalidateAll() {
+    final PrefixExtensionCache cache = new PrefixExtensionCache(100);
+    cache.put(createCandidates("fr", 0, 5));
+    Assert.assertEquals(5, cache.getSize());
+
+    cache.invalidateAll();
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertNull(cache.getLongestPrefix("fr", 0));
+  }
+
+  /**
+   * Test method for {@link PrefixExtensionCache#put(PrefixCandidates)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPut() {
+    final PrefixExtensionCache cache = new PrefixExtensionCache(10);
+    Assert.assertEquals(10, cache.getCapacity());
+
+    // Too big candidate sets are not cached
+    cache.put(createCandidates("a", 0, 6));
+    Assert.assertEquals(0, cache.getSize());
+
+    cache.put(createCandidates("a", 0, 4));
+    cache.put(createCandidates("b", 0, 4));
+    Assert.assertEquals(8, cache.getSize());
+
+    // Replacing an entry updates the size
+    cache.put(createCandidates("b", 0, 2));
+    Assert.assertEquals(6, cache.getSize());
+
+    // Access makes "a" the most recently used entry, thus "b" gets evicted
+    Assert.assertNotNull(cache.getLongestPrefix("a", 0));
+    cache.put(createCandidates("c", 0, 5));
+    Assert.assertEquals(9, cache.getSize());
+    Assert.assertNull(cache.getLongestPrefix("b", 0));
+    Assert.assertNotNull(cache.getLongestPrefix("a", 0));
+    Assert.assertNotNull(cache.getLongestPrefix("c", 0));
+  }
+}
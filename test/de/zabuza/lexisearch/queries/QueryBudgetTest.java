@@ -0,0 +1,57 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link QueryBudget}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class QueryBudgetTest {
+
+  /**
+   * Test method for {@link QueryBudget#hasTimeout()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testHasTimeout() {
+    Assert.assertFalse(QueryBudget.UNLIMITED.hasTimeout());
+    Assert.assertTrue(
+        new QueryBudget(1, 1, 5, TimeUnit.SECONDS).hasTimeout());
+    // Timeouts too great to be represented in nanoseconds are none
+    Assert.assertFalse(
+        new QueryBudget(1, 1, Long.MAX_VALUE / 2, TimeUnit.DAYS).hasTimeout());
+  }
+
+  /**
+   * Test method for
+   * {@link QueryBudget#QueryBudget(int, long, long, TimeUnit)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testQueryBudget() {
+    final QueryBudget budget =
+        new QueryBudget(10, 200, 3, TimeUnit.MILLISECONDS);
+    Assert.assertEquals(10, budget.getMaximalPrefixDistanceComputations());
+    Assert.assertEquals(200, budget.getMaximalScannedPostings());
+    Assert.assertEquals(3_000_000, budget.getTimeoutNanos());
+
+    try {
+      new QueryBudget(-1, 200, 3, TimeUnit.MILLISECONDS);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      new QueryBudget(10, 200, -3, TimeUnit.MILLISECONDS);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+}
@@ -0,0 +1,186 @@
+package de.zabuza.lexisearch.queries;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link QueryContext}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class QueryContextTest {
+
+  /**
+   * Test method for {@link QueryContext#fork()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testFork() {
+    final QueryContext unlimitedContext = new QueryContext();
+    Assert.assertSame(QueryBudget.UNLIMITED,
+        unlimitedContext.fork().getBudget());
+
+    final QueryBudget budget = new QueryBudget(5, 100, 1, TimeUnit.HOURS);
+    final QueryContext context = new QueryContext(budget);
+    context.increasePrefixDistanceComputations();
+    context.increaseScannedPostings(40);
+    final QueryContext fork = context.fork();
+    Assert.assertSame(budget, fork.getBudget());
+    Assert.assertEquals(0, fork.getPrefixDistanceComputations());
+    Assert.assertEquals(0, fork.getScannedPostings());
+
+    // All forks draw from the same budget
+    final QueryContext firstFork = context.fork();
+    final QueryContext secondFork = context.fork();
+    firstFork.increaseScannedPostings(30);
+    Assert.assertFalse(secondFork.isBudgetExhausted());
+    secondFork.increaseScannedPostings(30);
+    Assert.assertTrue(firstFork.isBudgetExhausted());
+    Assert.assertTrue(secondFork.isBudgetExhausted());
+    Assert.assertTrue(context.isBudgetExhausted());
+
+    context.join(firstFork);
+    context.join(secondFork);
+    Assert.assertEquals(100, context.getScannedPostings());
+    Assert.assertTrue(context.isBudgetExhausted());
+
+    final QueryContext computingContext = new QueryContext(
+        new QueryBudget(4, 100, Long.MAX_VALUE, TimeUnit.NANOSECONDS));
+    final QueryContext[] forks = new QueryContext[4];
+    for (int i = 0; i < forks.length; i++) {
+      forks[i] = computingContext.fork();
+      forks[i].increasePrefixDistanceComputations();
+    }
+    for (final QueryContext computingFork : forks) {
+      Assert.assertTrue(computingFork.isBudgetExhausted());
+    }
+  }
+
+  /**
+   * Test method for {@link QueryContext#getScratchBuffer(int, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetScratchBuffer() {
+    final QueryContext context = new QueryContext();
+    final int[] firstBuffer = context.getScratchBuffer(0, 10);
+    Assert.assertTrue(firstBuffer.length >= 10);
+    Assert.assertSame(firstBuffer, context.getScratchBuffer(0, 5));
+    Assert.assertNotSame(firstBuffer, context.getScratchBuffer(1, 5));
+
+    final int[] grownBuffer = context.getScratchBuffer(0, 20);
+    Assert.assertTrue(grownBuffer.length >= 20);
+    Assert.assertSame(grownBuffer, context.getScratchBuffer(0, 20));
+  }
+
+  /**
+   * Test method for {@link QueryContext#increasePrefixDistanceComputations()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIncreasePrefixDistanceComputations() {
+    final QueryContext context = new QueryContext();
+    Assert.assertEquals(0, context.getPrefixDistanceComputations());
+    context.increasePrefixDistanceComputations();
+    context.increasePrefixDistanceComputations();
+    Assert.assertEquals(2, context.getPrefixDistanceComputations());
+  }
+
+  /**
+   * Test method for {@link QueryContext#increaseScannedPostings(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIncreaseScannedPostings() {
+    final QueryContext context = new QueryContext();
+    Assert.assertEquals(0, context.getScannedPostings());
+    context.increaseScannedPostings(5);
+    context.increaseScannedPostings(3);
+    Assert.assertEquals(8, context.getScannedPostings());
+  }
+
+  /**
+   * Test method for {@link QueryContext#isBudgetExhausted()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIsBudgetExhausted() {
+    final QueryContext unlimitedContext = new QueryContext();
+    unlimitedContext.increasePrefixDistanceComputations();
+    unlimitedContext.increaseScannedPostings(1_000_000);
+    Assert.assertFalse(unlimitedContext.isBudgetExhausted());
+
+    final QueryContext context = new QueryContext(
+        new QueryBudget(2, 10, Long.MAX_VALUE, TimeUnit.NANOSECONDS));
+    context.increasePrefixDistanceComputations();
+    Assert.assertFalse(context.isBudgetExhausted());
+    context.increasePrefixDistanceComputations();
+    Assert.assertTrue(context.isBudgetExhausted());
+
+    context.reset();
+    context.increaseScannedPostings(9);
+    Assert.assertFalse(context.isBudgetExhausted());
+    context.increaseScannedPostings(1);
+    Assert.assertTrue(context.isBudgetExhausted());
+
+    final QueryContext expiredContext = new QueryContext(
+        new QueryBudget(10, 10, 0, TimeUnit.NANOSECONDS));
+    Assert.assertTrue(expiredContext.isBudgetExhausted());
+  }
+
+  /**
+   * Test method for {@link QueryContext#join(QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testJoin() {
+    final QueryContext context = new QueryContext();
+    context.increaseScannedPostings(3);
+    final QueryContext firstFork = context.fork();
+    firstFork.increasePrefixDistanceComputations();
+    firstFork.increaseScannedPostings(2);
+    final QueryContext secondFork = context.fork();
+    secondFork.markTruncated();
+
+    context.join(firstFork);
+    Assert.assertEquals(1, context.getPrefixDistanceComputations());
+    Assert.assertEquals(5, context.getScannedPostings());
+    Assert.assertFalse(context.isTruncated());
+    context.join(secondFork);
+    Assert.assertTrue(context.isTruncated());
+  }
+
+  /**
+   * Test method for {@link QueryContext#markTruncated()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testMarkTruncated() {
+    final QueryContext context = new QueryContext();
+    Assert.assertFalse(context.isTruncated());
+    context.markTruncated();
+    Assert.assertTrue(context.isTruncated());
+  }
+
+  /**
+   * Test method for {@link QueryContext#reset()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testReset() {
+    final QueryContext context = new QueryContext();
+    final int[] buffer = context.getScratchBuffer(2, 4);
+    context.increasePrefixDistanceComputations();
+    context.increaseScannedPostings(5);
+    context.markTruncated();
+
+    context.reset();
+    Assert.assertFalse(context.isTruncated());
+    Assert.assertEquals(0, context.getPrefixDistanceComputations());
+    Assert.assertEquals(0, context.getScannedPostings());
+    Assert.assertSame(buffer, context.getScratchBuffer(2, 4));
+  }
+}
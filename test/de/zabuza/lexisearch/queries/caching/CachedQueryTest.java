@@ -0,0 +1,290 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.queries.FuzzyPrefixQuery;
+import de.zabuza.lexisearch.queries.IQuery;
+import de.zabuza.lexisearch.queries.KeywordQuery;
+import de.zabuza.lexisearch.queries.QueryBudget;
+import de.zabuza.lexisearch.queries.QueryContext;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.PostingBeforeRecordRanking;
+
+/**
+ * Test for {@link CachedQuery}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CachedQueryTest {
+
+  /**
+   * Test method for {@link CachedQuery#CachedQuery(IQuery, long, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCachedQuery() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents);
+    final CachedQuery<String> cachedQuery = new CachedQuery<>(query, 1000, 5);
+
+    Assert.assertEquals(5, cachedQuery.getResultLimit());
+    Assert.assertSame(query.getInvertedIndex(),
+        cachedQuery.getInvertedIndex());
+    Assert.assertEquals(0, cachedQuery.getCache().size());
+  }
+
+  /**
+   * Test method for {@link CachedQuery#invalidateAll()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testInvalidateAll() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    documents.add(new Document(1, "b c"));
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents);
+    final CachedQuery<String> cachedQuery =
+        new CachedQuery<>(query, 100_000, 10);
+
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("b");
+    Assert.assertEquals(2, cachedQuery.searchOr(keys).size());
+    Assert.assertEquals(1, cachedQuery.getCache().size());
+
+    cachedQuery.invalidateAll();
+    Assert.assertEquals(0, cachedQuery.getCache().size());
+
+    // Changes of the index invalidate the cache automatically
+    cachedQuery.searchOr(keys);
+    query.getInvertedIndex().addRecord("b", 2);
+    final List<Posting> results = cachedQuery.searchOr(keys);
+    Assert.assertEquals(3, results.size());
+    Assert.assertEquals(0, cachedQuery.getCache().getHitCount());
+
+    // New scores of the ranking invalidate the cache automatically
+    final DocumentSet rankedDocuments = new DocumentSet();
+    rankedDocuments.add(new Document(0, "a a b"));
+    rankedDocuments.add(new Document(1, "b"));
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    final CachedQuery<String> rankedQuery = new CachedQuery<>(
+        new KeywordQuery<>(rankedDocuments, ranking), 100_000, 10);
+    final LinkedList<String> rankedKeys = new LinkedList<>();
+    rankedKeys.add("a");
+    final double scoreBefore =
+        rankedQuery.searchOr(rankedKeys).get(0).getScore();
+    ranking.setKParameter(2 * ranking.getKParameter());
+    ranking.setRankingScoreToIndex();
+    final double scoreAfter =
+        rankedQuery.searchOr(rankedKeys).get(0).getScore();
+    Assert.assertTrue(scoreBefore != scoreAfter);
+    Assert.assertEquals(0, rankedQuery.getCache().getHitCount());
+  }
+
+  /**
+   * Test method for {@link CachedQuery#searchAnd(Iterable)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchAnd() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    documents.add(new Document(1, "b c"));
+    documents.add(new Document(2, "a c"));
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents);
+    final CachedQuery<String> cachedQuery =
+        new CachedQuery<>(query, 100_000, 10);
+
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("a");
+    keys.add("c");
+    final List<Posting> firstResults = cachedQuery.searchAnd(keys);
+    Assert.assertEquals(1, firstResults.size());
+    Assert.assertEquals(2, firstResults.get(0).getId());
+
+    // Modifying a result must not modify the cache
+    firstResults.get(0).setScore(5);
+    firstResults.clear();
+
+    final List<Posting> secondResults = cachedQuery.searchAnd(keys);
+    Assert.assertEquals(1, secondResults.size());
+    Assert.assertEquals(2, secondResults.get(0).getId());
+    Assert.assertEquals(0, secondResults.get(0).getScore(), 0);
+    Assert.assertEquals(1, cachedQuery.getCache().getHitCount());
+    Assert.assertEquals(1, cachedQuery.getCache().getMissCount());
+
+    // The aggregation mode is part of the key
+    Assert.assertEquals(3, cachedQuery.searchOr(keys).size());
+    Assert.assertEquals(2, cachedQuery.getCache().getMissCount());
+
+    // The order of the keywords is not part of the key
+    final LinkedList<String> permutedKeys = new LinkedList<>();
+    permutedKeys.add("c");
+    permutedKeys.add("a");
+    Assert.assertEquals(1, cachedQuery.searchAnd(permutedKeys).size());
+    Assert.assertEquals(2, cachedQuery.getCache().getHitCount());
+    Assert.assertEquals(2, cachedQuery.getCache().size());
+  }
+
+  /**
+   * Test method for
+   * {@link CachedQuery#searchAnd(Iterable, int, QueryContext)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchAndIterableIntQueryContext() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    documents.add(new Document(1, "a b c"));
+    documents.add(new Document(2, "a b d"));
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents);
+    final CachedQuery<String> cachedQuery =
+        new CachedQuery<>(query, 100_000, 2);
+
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("a");
+    keys.add("b");
+    Assert.assertEquals(1,
+        cachedQuery.searchAnd(keys, 1, new QueryContext()).size());
+    Assert.assertEquals(2,
+        cachedQuery.searchAnd(keys, 2, new QueryContext()).size());
+    Assert.assertEquals(1, cachedQuery.getCache().getHitCount());
+
+    // Limits above the result limit are forwarded to the query
+    Assert.assertEquals(3,
+        cachedQuery.searchAnd(keys, 5, new QueryContext()).size());
+    Assert.assertEquals(1, cachedQuery.getCache().getHitCount());
+    Assert.assertEquals(1, cachedQuery.getCache().size());
+
+    try {
+      cachedQuery.searchAnd(keys, -1, new QueryContext());
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link CachedQuery#searchOr(Iterable)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOr() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = new LinkedList<>();
+    content.add("Football\t3\t0\t0");
+    content.add("foobar\t1\t0\t0");
+    content.add("Footsal\t2\t0\t0");
+    content.add("Foot Barca\t1\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query = new FuzzyPrefixQuery<>(
+        citySet, provider, new PostingBeforeRecordRanking<>());
+    final CachedQuery<String> cachedQuery = new CachedQuery<>(query, 100_000,
+        2, QGramProvider::normalizeRecord);
+
+    final LinkedList<String> firstKeys = new LinkedList<>();
+    firstKeys.add("Foot");
+    final List<Posting> firstResults = cachedQuery.searchOr(firstKeys);
+    Assert.assertEquals(2, firstResults.size());
+    Assert.assertEquals(0, firstResults.get(0).getId());
+    Assert.assertEquals(2, firstResults.get(1).getId());
+
+    // Keywords are normalized before they are used as key
+    final LinkedList<String> secondKeys = new LinkedList<>();
+    secondKeys.add("foot!");
+    final List<Posting> secondResults = cachedQuery.searchOr(secondKeys);
+    Assert.assertEquals(2, secondResults.size());
+    Assert.assertEquals(0, secondResults.get(0).getId());
+    Assert.assertEquals(2, secondResults.get(1).getId());
+    Assert.assertEquals(1, cachedQuery.getCache().getHitCount());
+  }
+
+  /**
+   * Test method for {@link CachedQuery#searchOr(Iterable, QueryContext)}
+   * with an index that changes while the result is computed.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOrWithChangingIndex() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    documents.add(new Document(1, "b c"));
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents);
+    final IQuery<String> changingQuery = new IQuery<String>() {
+      @Override
+      public IInvertedIndex<String> getInvertedIndex() {
+        return query.getInvertedIndex();
+      }
+
+      @Override
+      public List<Posting> searchAnd(final Iterable<String> keys,
+          final QueryContext context) {
+        return query.searchAnd(keys, context);
+      }
+
+      @Override
+      public List<Posting> searchOr(final Iterable<String> keys,
+          final QueryContext context) {
+        final List<Posting> result = query.searchOr(keys, context);
+        query.getInvertedIndex().addRecord("b", 2);
+        return result;
+      }
+    };
+    final CachedQuery<String> cachedQuery =
+        new CachedQuery<>(changingQuery, 100_000, 10);
+
+    // Results of the old state of the index are not cached
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("b");
+    Assert.assertEquals(2, cachedQuery.searchOr(keys).size());
+    Assert.assertEquals(0, cachedQuery.getCache().size());
+    Assert.assertEquals(3, cachedQuery.searchOr(keys).size());
+  }
+
+  /**
+   * Test method for
+   * {@link CachedQuery#searchOr(Iterable, QueryContext)} with a truncated
+   * result.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOrWithTruncatedResult() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents);
+    final CachedQuery<String> cachedQuery =
+        new CachedQuery<>(query, 100_000, 10);
+
+    final LinkedList<String> keys = new LinkedList<>();
+    keys.add("a");
+    final QueryContext context =
+        new QueryContext(new QueryBudget(0, 0, 0, TimeUnit.SECONDS));
+    Assert.assertTrue(cachedQuery.searchOr(keys, context).isEmpty());
+    Assert.assertTrue(context.isTruncated());
+    Assert.assertEquals(0, cachedQuery.getCache().size());
+
+    Assert.assertEquals(1, cachedQuery.searchOr(keys).size());
+    Assert.assertEquals(1, cachedQuery.getCache().size());
+  }
+
+}
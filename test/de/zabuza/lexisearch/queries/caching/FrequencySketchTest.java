@@ -0,0 +1,71 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link FrequencySketch}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class FrequencySketchTest {
+
+  /**
+   * Test method for {@link FrequencySketch#frequency(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testFrequency() {
+    final FrequencySketch sketch = new FrequencySketch(64);
+    Assert.assertEquals(0, sketch.frequency("a"));
+
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("a");
+    }
+    sketch.increment("b");
+
+    Assert.assertTrue(sketch.frequency("a") >= 5);
+    Assert.assertTrue(sketch.frequency("b") >= 1);
+    Assert.assertTrue(sketch.frequency("a") > sketch.frequency("b"));
+  }
+
+  /**
+   * Test method for {@link FrequencySketch#FrequencySketch(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testFrequencySketch() {
+    final FrequencySketch sketch = new FrequencySketch(16);
+    Assert.assertEquals(160, sketch.getSampleSize());
+
+    try {
+      new FrequencySketch(0);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link FrequencySketch#increment(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIncrement() {
+    final FrequencySketch sketch = new FrequencySketch(16);
+
+    // Counters are capped
+    for (int i = 0; i < 20; i++) {
+      sketch.increment("a");
+    }
+    Assert.assertEquals(15, sketch.frequency("a"));
+
+    // Reaching the sample size halves all counters
+    for (int i = 0; i < sketch.getSampleSize(); i++) {
+      sketch.increment(Integer.valueOf(i));
+    }
+    Assert.assertTrue(sketch.frequency("a") < 15);
+  }
+
+}
@@ -0,0 +1,134 @@
+package de.zabuza.lexisearch.queries.caching;
+
+import java.util.function.ToIntBiFunction;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link WTinyLfuCache}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class WTinyLfuCacheTest {
+
+  /**
+   * Test method for {@link WTinyLfuCache#get(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGet() {
+    final WTinyLfuCache<String, String> cache =
+        new WTinyLfuCache<>(100, 10, (key, value) -> 1);
+    Assert.assertNull(cache.get("a"));
+    cache.put("a", "1");
+    Assert.assertEquals("1", cache.get("a"));
+    Assert.assertNull(cache.get("b"));
+
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(2, cache.getMissCount());
+    Assert.assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+  }
+
+  /**
+   * Test method for {@link WTinyLfuCache#invalidateAll()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testInvalidateAll() {
+    final WTinyLfuCache<String, String> cache =
+        new WTinyLfuCache<>(100, 10, (key, value) -> 1);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    Assert.assertEquals(2, cache.size());
+
+    cache.invalidateAll();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getWeight());
+    Assert.assertNull(cache.get("a"));
+  }
+
+  /**
+   * Test method for {@link WTinyLfuCache#put(Object, Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPut() {
+    final int maximumWeight = 100;
+    final WTinyLfuCache<Integer, String> cache =
+        new WTinyLfuCache<>(maximumWeight, 1000, (key, value) -> 1);
+
+    // Build a frequently used working set
+    for (int i = 0; i < 50; i++) {
+      final Integer key = Integer.valueOf(i);
+      cache.put(key, key.toString());
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 50; i++) {
+        Assert.assertNotNull(cache.get(Integer.valueOf(i)));
+      }
+    }
+
+    // Flood the cache with one-time entries
+    for (int i = 1000; i < 2000; i++) {
+      final Integer key = Integer.valueOf(i);
+      cache.get(key);
+      cache.put(key, key.toString());
+    }
+
+    // The weight is bounded and the working set survived
+    Assert.assertTrue(cache.getWeight() <= maximumWeight);
+    Assert.assertTrue(cache.getEvictionCount() > 0);
+    for (int i = 0; i < 50; i++) {
+      Assert.assertNotNull(cache.get(Integer.valueOf(i)));
+    }
+
+    // Entries heavier than the cache are rejected
+    final WTinyLfuCache<String, String> smallCache =
+        new WTinyLfuCache<>(10, 10, (key, value) -> value.length());
+    smallCache.put("a", "01234567890");
+    Assert.assertNull(smallCache.get("a"));
+
+    // A rejected candidate does not evict any of its victims
+    final WTinyLfuCache<String, String> weightedCache =
+        new WTinyLfuCache<>(maximumWeight, 1000,
+            (key, value) -> value.length());
+    for (int i = 0; i < 99; i++) {
+      final String key = Integer.toString(i);
+      if (i >= 10) {
+        for (int access = 0; access < 5; access++) {
+          weightedCache.get(key);
+        }
+      }
+      weightedCache.put(key, "v");
+    }
+    for (int access = 0; access < 3; access++) {
+      weightedCache.get("x");
+    }
+    final long evictionCount = weightedCache.getEvictionCount();
+    weightedCache.put("x", "012345678901234567890123456789");
+    Assert.assertEquals(99, weightedCache.size());
+    Assert.assertEquals(evictionCount + 1, weightedCache.getEvictionCount());
+    Assert.assertNull(weightedCache.get("x"));
+    for (int i = 0; i < 10; i++) {
+      Assert.assertNotNull(weightedCache.get(Integer.toString(i)));
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link WTinyLfuCache#WTinyLfuCache(long, int, ToIntBiFunction)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWTinyLfuCache() {
+    final WTinyLfuCache<String, String> cache =
+        new WTinyLfuCache<>(100, 10, (key, value) -> 1);
+    Assert.assertEquals(100, cache.getMaximumWeight());
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getWeight());
+    Assert.assertEquals(0, cache.getHitRate(), 0);
+  }
+
+}
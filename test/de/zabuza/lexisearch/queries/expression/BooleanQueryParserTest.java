@@ -0,0 +1,54 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link BooleanQueryParser}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class BooleanQueryParserTest {
+
+  /**
+   * Test method for {@link BooleanQueryParser#parse(String)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testParse() {
+    Assert.assertEquals("foo", BooleanQueryParser.parse("Foo").toString());
+    Assert.assertEquals("~Foo", BooleanQueryParser.parse("~Foo").toString());
+    Assert.assertEquals("AND(a, b)",
+        BooleanQueryParser.parse("a AND b").toString());
+    Assert.assertEquals("AND(a, b, c)",
+        BooleanQueryParser.parse("a b AND c").toString());
+    Assert.assertEquals("OR(AND(a, b), AND(c, NOT(d)))",
+        BooleanQueryParser.parse("a b OR c NOT d").toString());
+    Assert.assertEquals("AND(a, OR(b, ~c))",
+        BooleanQueryParser.parse("a AND (b OR ~c)").toString());
+    Assert.assertEquals("NOT(NOT(a))",
+        BooleanQueryParser.parse("NOT NOT a").toString());
+    Assert.assertEquals("AND(a, b)",
+        BooleanQueryParser.parse("((a)(b))").toString());
+  }
+
+  /**
+   * Test method for {@link BooleanQueryParser#parse(String)} with malformed
+   * expressions.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testParseMalformed() {
+    final String[] expressions =
+        { "", "a AND", "OR a", "(a", "a)", "a AND OR b", "~", "NOT" };
+    for (final String expression : expressions) {
+      try {
+        BooleanQueryParser.parse(expression);
+        Assert.fail(expression);
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    }
+  }
+}
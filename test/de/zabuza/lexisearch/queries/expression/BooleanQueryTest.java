@@ -0,0 +1,152 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.queries.FuzzyPrefixQuery;
+import de.zabuza.lexisearch.queries.KeywordQuery;
+
+/**
+ * Test for {@link BooleanQuery}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class BooleanQueryTest {
+
+  /**
+   * Creates a boolean query over a small set of documents.
+   * 
+   * @return The created query
+   */
+  private static BooleanQuery createQuery() {
+    final IKeyRecordSet<IKeyRecord<String>, String> documents =
+        new DocumentSet();
+    documents.add(new Document(0, "a b", "c"));
+    documents.add(new Document(1, "a", "c"));
+    documents.add(new Document(2, "b c", "d"));
+    documents.add(new Document(3, "d", ""));
+    documents.add(new Document(4, "a b", "d"));
+    return new BooleanQuery(new KeywordQuery<>(documents));
+  }
+
+  /**
+   * Gets the ids of the given postings.
+   * 
+   * @param postings
+   *          The postings to get the ids of
+   * @return The ids of the given postings, in the same order
+   */
+  private static List<Integer> getIds(final List<Posting> postings) {
+    final ArrayList<Integer> ids = new ArrayList<>();
+    for (final Posting posting : postings) {
+      ids.add(Integer.valueOf(posting.getId()));
+    }
+    return ids;
+  }
+
+  /**
+   * Test method for {@link BooleanQuery#explain(String)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testExplain() {
+    final BooleanQuery query = createQuery();
+    Assert.assertEquals("AND(a[3], b[3], c[3])",
+        query.explain("a AND (b AND c)").toString());
+    Assert.assertEquals("OR(a[3], b[3], d[3])",
+        query.explain("a OR x OR (b OR d)").toString());
+    Assert.assertEquals("AND(a[3], NOT(OR(b[3], d[3])))",
+        query.explain("a NOT b NOT NOT NOT d NOT x").toString());
+    Assert.assertEquals("b[3]", query.explain("NOT NOT b").toString());
+    Assert.assertEquals("EMPTY", query.explain("a AND x").toString());
+    Assert.assertEquals("EMPTY", query.explain("x OR y").toString());
+  }
+
+  /**
+   * Test method for {@link BooleanQuery#search(String)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearch() {
+    final BooleanQuery query = createQuery();
+    Assert.assertEquals(Arrays.asList(0, 4), getIds(query.search("a AND b")));
+    Assert.assertEquals(Arrays.asList(0, 4), getIds(query.search("A b")));
+    Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4),
+        getIds(query.search("a OR d")));
+    Assert.assertEquals(Arrays.asList(1), getIds(query.search("c NOT b")));
+    Assert.assertEquals(Arrays.asList(3),
+        getIds(query.search("(a OR d) AND NOT (b OR c)")));
+    Assert.assertEquals(Arrays.asList(0, 1, 4),
+        getIds(query.search("a OR x")));
+    Assert.assertEquals(Arrays.asList(0, 1, 4),
+        getIds(query.search("a NOT x")));
+    Assert.assertTrue(query.search("a AND x").isEmpty());
+
+    final List<Posting> postings = query.search("a AND (b OR c)");
+    Assert.assertEquals(Arrays.asList(0, 1, 4), getIds(postings));
+    Assert.assertEquals(3, postings.get(0).getTermFrequency());
+    Assert.assertEquals(2, postings.get(1).getTermFrequency());
+  }
+
+  /**
+   * Test method for {@link BooleanQuery#search(String)} with invalid
+   * expressions.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchInvalid() {
+    final BooleanQuery query = createQuery();
+    final String[] expressions =
+        { "NOT a", "NOT x", "a OR NOT b", "NOT a NOT b", "~a", "(a" };
+    for (final String expression : expressions) {
+      try {
+        query.search(expression);
+        Assert.fail(expression);
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link BooleanQuery#search(String)} with fuzzy terms.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchWithFuzzyTerms() {
+    final QGramProvider provider = new QGramProvider(3, '$');
+    final List<String> content = new LinkedList<>();
+    content.add("Football\t3\t0\t0");
+    content.add("Footsal\t2\t0\t0");
+    content.add("Foot Barca\t1\t0\t0");
+    final CitySet citySet =
+        CitySet.buildFromTextIterator(content.iterator(), "\t", provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> fuzzyQuery =
+        new FuzzyPrefixQuery<>(citySet, provider);
+    final BooleanQuery query = new BooleanQuery(fuzzyQuery, fuzzyQuery);
+
+    Assert.assertEquals(Arrays.asList(0, 1, 2),
+        getIds(query.search("~foot")));
+    final List<Integer> expectedIds =
+        getIds(fuzzyQuery.searchOr(Arrays.asList("foot")));
+    expectedIds
+        .removeAll(getIds(fuzzyQuery.searchOr(Arrays.asList("footsal"))));
+    Collections.sort(expectedIds);
+    Assert.assertEquals(expectedIds,
+        getIds(query.search("~foot NOT ~footsal")));
+  }
+}
@@ -0,0 +1,81 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.InvertedList;
+
+/**
+ * Test for {@link ConjunctionIterator}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ConjunctionIteratorTest {
+
+  /**
+   * Creates an iterator over a list with the given record ids.
+   * 
+   * @param recordIds
+   *          The ids of the records, in ascending order
+   * @return An iterator over a list with the given records
+   */
+  private static IPostingIterator createIterator(final int... recordIds) {
+    final IInvertedList records = new InvertedList();
+    for (final int recordId : recordIds) {
+      records.addPosting(recordId, 1, recordId);
+    }
+    return new InvertedListIterator(records);
+  }
+
+  /**
+   * Test method for {@link ConjunctionIterator#advance(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdvance() {
+    final IPostingIterator iterator = new ConjunctionIterator(Arrays.asList(
+        createIterator(1, 3, 5, 8, 9), createIterator(3, 4, 8, 9)));
+
+    Assert.assertEquals(8, iterator.advance(4));
+    Assert.assertEquals(9, iterator.advance(9));
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS,
+        iterator.advance(10));
+  }
+
+  /**
+   * Test method for {@link ConjunctionIterator#getCost()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCost() {
+    final IPostingIterator iterator = new ConjunctionIterator(
+        Arrays.asList(createIterator(1, 3, 5), createIterator(3)));
+    Assert.assertEquals(1, iterator.getCost());
+  }
+
+  /**
+   * Test method for {@link ConjunctionIterator#next()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testNext() {
+    final IPostingIterator iterator = new ConjunctionIterator(
+        Arrays.asList(createIterator(1, 2, 3, 5, 8), createIterator(2, 5, 9),
+            createIterator(0, 2, 5, 8)));
+
+    Assert.assertEquals(2, iterator.next());
+    Assert.assertEquals(3, iterator.getTermFrequency());
+    Assert.assertEquals(6, iterator.getScore(), 0);
+    Assert.assertEquals(5, iterator.next());
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS, iterator.next());
+
+    final IPostingIterator emptyIterator = new ConjunctionIterator(
+        Arrays.asList(createIterator(1, 2), createIterator()));
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS,
+        emptyIterator.next());
+  }
+}
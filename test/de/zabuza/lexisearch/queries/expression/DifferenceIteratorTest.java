@@ -0,0 +1,77 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.InvertedList;
+
+/**
+ * Test for {@link DifferenceIterator}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class DifferenceIteratorTest {
+
+  /**
+   * Creates an iterator over a list with the given record ids.
+   * 
+   * @param recordIds
+   *          The ids of the records, in ascending order
+   * @return An iterator over a list with the given records
+   */
+  private static IPostingIterator createIterator(final int... recordIds) {
+    final IInvertedList records = new InvertedList();
+    for (final int recordId : recordIds) {
+      records.addPosting(recordId, 2, recordId);
+    }
+    return new InvertedListIterator(records);
+  }
+
+  /**
+   * Test method for {@link DifferenceIterator#advance(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdvance() {
+    final IPostingIterator iterator = new DifferenceIterator(
+        createIterator(1, 3, 4, 6, 8), createIterator(4, 6, 7));
+
+    Assert.assertEquals(8, iterator.advance(4));
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS,
+        iterator.advance(9));
+  }
+
+  /**
+   * Test method for {@link DifferenceIterator#getCost()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCost() {
+    final IPostingIterator iterator = new DifferenceIterator(
+        createIterator(1, 3, 5), createIterator(3));
+    Assert.assertEquals(3, iterator.getCost());
+  }
+
+  /**
+   * Test method for {@link DifferenceIterator#next()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testNext() {
+    final IPostingIterator iterator = new DifferenceIterator(
+        createIterator(1, 2, 3, 5), createIterator(0, 2, 5, 9));
+
+    Assert.assertEquals(1, iterator.next());
+    Assert.assertEquals(2, iterator.getTermFrequency());
+    Assert.assertEquals(1, iterator.getScore(), 0);
+    Assert.assertEquals(3, iterator.next());
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS, iterator.next());
+
+    final IPostingIterator iteratorWithoutExclusion =
+        new DifferenceIterator(createIterator(1, 2), createIterator());
+    Assert.assertEquals(1, iteratorWithoutExclusion.next());
+    Assert.assertEquals(2, iteratorWithoutExclusion.next());
+  }
+}
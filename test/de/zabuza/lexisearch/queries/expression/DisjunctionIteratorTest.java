@@ -0,0 +1,79 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.InvertedList;
+
+/**
+ * Test for {@link DisjunctionIterator}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class DisjunctionIteratorTest {
+
+  /**
+   * Creates an iterator over a list with the given record ids.
+   * 
+   * @param recordIds
+   *          The ids of the records, in ascending order
+   * @return An iterator over a list with the given records
+   */
+  private static IPostingIterator createIterator(final int... recordIds) {
+    final IInvertedList records = new InvertedList();
+    for (final int recordId : recordIds) {
+      records.addPosting(recordId, 1, recordId);
+    }
+    return new InvertedListIterator(records);
+  }
+
+  /**
+   * Test method for {@link DisjunctionIterator#advance(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdvance() {
+    final IPostingIterator iterator = new DisjunctionIterator(
+        Arrays.asList(createIterator(1, 6), createIterator(3, 4, 9)));
+
+    Assert.assertEquals(4, iterator.advance(4));
+    Assert.assertEquals(6, iterator.advance(5));
+    Assert.assertEquals(9, iterator.next());
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS,
+        iterator.advance(10));
+  }
+
+  /**
+   * Test method for {@link DisjunctionIterator#getCost()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCost() {
+    final IPostingIterator iterator = new DisjunctionIterator(
+        Arrays.asList(createIterator(1, 3, 5), createIterator(3)));
+    Assert.assertEquals(4, iterator.getCost());
+  }
+
+  /**
+   * Test method for {@link DisjunctionIterator#next()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testNext() {
+    final IPostingIterator iterator = new DisjunctionIterator(
+        Arrays.asList(createIterator(1, 5), createIterator(2, 5),
+            createIterator()));
+
+    Assert.assertEquals(1, iterator.next());
+    Assert.assertEquals(1, iterator.getTermFrequency());
+    Assert.assertEquals(2, iterator.next());
+    Assert.assertEquals(5, iterator.next());
+    Assert.assertEquals(2, iterator.getTermFrequency());
+    Assert.assertEquals(10, iterator.getScore(), 0);
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS, iterator.next());
+  }
+}
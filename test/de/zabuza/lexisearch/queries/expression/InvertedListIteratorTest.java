@@ -0,0 +1,84 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.InvertedList;
+
+/**
+ * Test for {@link InvertedListIterator}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class InvertedListIteratorTest {
+
+  /**
+   * Test method for {@link InvertedListIterator#advance(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testAdvance() {
+    final IInvertedList records = new InvertedList();
+    records.addPosting(1);
+    records.addPosting(4);
+    records.addPosting(7);
+    final IPostingIterator iterator = new InvertedListIterator(records);
+
+    Assert.assertEquals(4, iterator.advance(2));
+    Assert.assertEquals(4, iterator.getRecordId());
+    Assert.assertEquals(7, iterator.advance(7));
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS,
+        iterator.advance(8));
+
+    // Distant targets are sought in the list
+    final IInvertedList manyRecords = new InvertedList();
+    for (int i = 0; i < 1_000; i += 2) {
+      manyRecords.addPosting(i);
+    }
+    final IPostingIterator seekingIterator =
+        new InvertedListIterator(manyRecords);
+    Assert.assertEquals(0, seekingIterator.next());
+    Assert.assertEquals(502, seekingIterator.advance(501));
+    Assert.assertEquals(502, seekingIterator.advance(502));
+    Assert.assertEquals(504, seekingIterator.next());
+    Assert.assertEquals(998, seekingIterator.advance(997));
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS,
+        seekingIterator.next());
+  }
+
+  /**
+   * Test method for {@link InvertedListIterator#getCost()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCost() {
+    final IInvertedList records = new InvertedList();
+    Assert.assertEquals(0, new InvertedListIterator(records).getCost());
+    records.addPosting(1);
+    records.addPosting(4);
+    Assert.assertEquals(2, new InvertedListIterator(records).getCost());
+  }
+
+  /**
+   * Test method for {@link InvertedListIterator#next()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testNext() {
+    final IInvertedList records = new InvertedList();
+    records.addPosting(1, 2, 0.5);
+    records.addPosting(4, 3, 1.5);
+    final IPostingIterator iterator = new InvertedListIterator(records);
+    Assert.assertEquals(-1, iterator.getRecordId());
+
+    Assert.assertEquals(1, iterator.next());
+    Assert.assertEquals(2, iterator.getTermFrequency());
+    Assert.assertEquals(0.5, iterator.getScore(), 0);
+    Assert.assertEquals(4, iterator.next());
+    Assert.assertEquals(3, iterator.getTermFrequency());
+    Assert.assertEquals(1.5, iterator.getScore(), 0);
+    Assert.assertEquals(IPostingIterator.NO_MORE_RECORDS, iterator.next());
+  }
+}
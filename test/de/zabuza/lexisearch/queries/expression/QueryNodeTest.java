@@ -0,0 +1,73 @@
+package de.zabuza.lexisearch.queries.expression;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedList;
+import de.zabuza.lexisearch.indexing.InvertedList;
+
+/**
+ * Test for {@link QueryNode}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class QueryNodeTest {
+
+  /**
+   * Test method for {@link QueryNode#createAnd(java.util.List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateAnd() {
+    final QueryNode first = QueryNode.createTerm("a");
+    final QueryNode second = QueryNode.createFuzzyTerm("b");
+    final QueryNode node = QueryNode.createAnd(Arrays.asList(first, second));
+    Assert.assertEquals(EQueryNodeType.AND, node.getType());
+    Assert.assertEquals(Arrays.asList(first, second), node.getChildren());
+    Assert.assertNull(node.getTerm());
+
+    try {
+      QueryNode.createAnd(Collections.emptyList());
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link QueryNode#createResolvedTerm(QueryNode, IInvertedList)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateResolvedTerm() {
+    final IInvertedList records = new InvertedList();
+    records.addPosting(1);
+    records.addPosting(2);
+    final QueryNode node =
+        QueryNode.createResolvedTerm(QueryNode.createFuzzyTerm("a"), records);
+    Assert.assertEquals(EQueryNodeType.FUZZY_TERM, node.getType());
+    Assert.assertEquals("a", node.getTerm());
+    Assert.assertSame(records, node.getRecords());
+    Assert.assertTrue(node.getChildren().isEmpty());
+  }
+
+  /**
+   * Test method for {@link QueryNode#toString()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testToString() {
+    Assert.assertEquals("EMPTY", QueryNode.createEmpty().toString());
+    final IInvertedList records = new InvertedList();
+    records.addPosting(1);
+    final QueryNode node = QueryNode.createOr(Arrays.asList(
+        QueryNode.createResolvedTerm(QueryNode.createTerm("a"), records),
+        QueryNode.createNot(QueryNode.createFuzzyTerm("b"))));
+    Assert.assertEquals("OR(a[1], NOT(~b))", node.toString());
+  }
+}
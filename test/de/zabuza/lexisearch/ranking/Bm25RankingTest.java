@@ -2,6 +2,7 @@ package de.zabuza.lexisearch.ranking;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -55,6 +56,29 @@ public final class Bm25RankingTest {
     Assert.assertEquals(kParameter, ranking.getKParameter(), 0);
   }
 
+  /**
+   * Test method for {@link Bm25Ranking#createImpactIndex(EImpactPrecision)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateImpactIndex() {
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "a", "b c"));
+    documents.add(new Document(2, "h", "i k"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    ranking.takeSnapshot(invertedIndex, documents);
+
+    final ImpactIndex<String> impactIndex =
+        ranking.createImpactIndex(EImpactPrecision.EIGHT_BITS);
+    final Posting posting =
+        invertedIndex.getRecords("a").getPostings().iterator().next();
+    Assert.assertEquals(ranking.getRankingScore("a", posting),
+        impactIndex.toScore(impactIndex.getImpacts("a").getImpact(0)),
+        impactIndex.getScale() / 2);
+  }
+
   /**
    * Test method for {@link Bm25Ranking#getBParameter()}.
    */
@@ -70,6 +94,29 @@ public final class Bm25RankingTest {
     Assert.assertEquals(kParameter, ranking.getKParameter(), 0);
   }
 
+  /**
+   * Test method for {@link Bm25Ranking#getCollectionStatistics()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCollectionStatistics() {
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "a", "b c"));
+    documents.add(new Document(2, "a", "d"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    ranking.takeSnapshot(invertedIndex, documents);
+
+    final CollectionStatistics<String> statistics =
+        ranking.getCollectionStatistics();
+    Assert.assertEquals(2, statistics.getAmountOfRecords());
+    Assert.assertEquals(5, statistics.getTotalRecordSize());
+    Assert.assertEquals(2, statistics.getKeyRecordFrequency("a"));
+    Assert.assertEquals(1, statistics.getKeyRecordFrequency("b"));
+    Assert.assertEquals(4, statistics.getKeyRecordFrequencies().size());
+  }
+
   /**
    * Test method for {@link Bm25Ranking#getInvertedIndex()}.
    */
@@ -198,6 +245,60 @@ public final class Bm25RankingTest {
     Assert.assertEquals(kParameter, ranking.getKParameter(), 0);
   }
 
+  /**
+   * Test method for
+   * {@link Bm25Ranking#setCollectionStatistics(CollectionStatistics)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSetCollectionStatistics() {
+    final Document firstDocument = new Document(1, "a", "b c");
+    final Document secondDocument = new Document(2, "a b", "d e f");
+    final DocumentSet documents = new DocumentSet();
+    documents.add(firstDocument);
+    documents.add(secondDocument);
+    final DocumentSet firstPart = new DocumentSet();
+    firstPart.add(firstDocument);
+    final DocumentSet secondPart = new DocumentSet();
+    secondPart.add(secondDocument);
+
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    ranking.takeSnapshot(invertedIndex, documents);
+    final Bm25Ranking<String> firstRanking = new Bm25Ranking<>();
+    final IInvertedIndex<String> firstInvertedIndex =
+        InvertedIndexUtil.createFromWords(firstPart);
+    firstRanking.takeSnapshot(firstInvertedIndex, firstPart);
+    final Bm25Ranking<String> secondRanking = new Bm25Ranking<>();
+    secondRanking.takeSnapshot(InvertedIndexUtil.createFromWords(secondPart),
+        secondPart);
+
+    // The part ranks like the whole collection after setting its statistics
+    firstRanking.setCollectionStatistics(
+        CollectionStatistics.merge(Arrays.asList(
+            firstRanking.getCollectionStatistics(),
+            secondRanking.getCollectionStatistics())));
+    for (final String key : firstInvertedIndex.getKeys()) {
+      final Posting posting =
+          invertedIndex.getRecords(key).getPostings().iterator().next();
+      Assert.assertEquals(ranking.getRankingScore(key, posting),
+          firstRanking.getRankingScore(key, posting), 1E-9);
+    }
+    Assert.assertEquals(1,
+        firstRanking.getCollectionStatistics().getAmountOfRecords());
+
+    final HashMap<String, Integer> keyRecordFrequencies = new HashMap<>();
+    keyRecordFrequencies.put("a", Integer.valueOf(1));
+    try {
+      firstRanking.setCollectionStatistics(
+          new CollectionStatistics<>(1, 3, keyRecordFrequencies));
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
   /**
    * Test method for {@link Bm25Ranking#setKParameter(double)}.
    */
@@ -307,6 +408,67 @@ public final class Bm25RankingTest {
     Assert.assertEquals(2.521, thirdPosting.getScore(), 0.0005);
   }
 
+  /**
+   * Test method for {@link Bm25Ranking#setRankingScoreToIndex()} after a
+   * parameter has changed.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSetRankingScoreToIndexAfterParameterChange() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a", "b c a"));
+    documents.add(new Document(3, "a", "d"));
+    documents.add(new Document(7, "e", "b b f g"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    ranking.takeSnapshot(invertedIndex, documents);
+    ranking.setRankingScoreToIndex();
+    ranking.setKParameter(1.2);
+    ranking.setBParameter(0.5);
+    ranking.setRankingScoreToIndex();
+
+    final Bm25Ranking<String> freshRanking = new Bm25Ranking<>(1.2, 0.5);
+    freshRanking.takeSnapshot(invertedIndex, documents);
+    for (final String key : invertedIndex.getKeys()) {
+      for (final Posting posting : invertedIndex.getRecords(key)
+          .getPostings()) {
+        Assert.assertEquals(freshRanking.getRankingScore(key, posting),
+            posting.getScore(), 0);
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link Bm25Ranking#sortTopPostingsByRank(List, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSortTopPostingsByRank() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a", "b"));
+    documents.add(new Document(1, "a a", "c d e"));
+    documents.add(new Document(2, "a", "a a"));
+    documents.add(new Document(3, "a b", ""));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    ranking.takeSnapshot(invertedIndex, documents);
+    ranking.setRankingScoreToIndex();
+
+    final ArrayList<Posting> postings = new ArrayList<>();
+    for (final Posting posting : invertedIndex.getRecords("a")
+        .getPostings()) {
+      postings.add(posting);
+    }
+    final ArrayList<Posting> sortedPostings = new ArrayList<>(postings);
+    ranking.sortPostingsByRank(sortedPostings);
+
+    ranking.sortTopPostingsByRank(postings, 2);
+    Assert.assertEquals(sortedPostings.subList(0, 2), postings);
+  }
+
   /**
    * Test method for {@link Bm25Ranking#sortPostingsByRank(List)}.
    */
@@ -370,4 +532,39 @@ public final class Bm25RankingTest {
     Assert.assertEquals(invertedIndex, ranking.getInvertedIndex());
   }
 
+  /**
+   * Test method for
+   * {@link Bm25Ranking#takeSnapshot(IInvertedIndex, IKeyRecordSet)} with
+   * negative and sparse record ids.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testTakeSnapshotWithSparseIds() {
+    final int firstId = -7;
+    final int secondId = 2_000_000_000;
+    final int thirdId = 5;
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(firstId, "first", "docum"));
+    documents.add(new Document(secondId, "second", "second docum"));
+    documents.add(new Document(thirdId, "third", "third third docum"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>(1.75, 0.75);
+    ranking.takeSnapshot(invertedIndex, documents);
+    Assert.assertEquals(2, ranking.getRecordSize(firstId));
+    Assert.assertEquals(3, ranking.getRecordSize(secondId));
+    Assert.assertEquals(4, ranking.getRecordSize(thirdId));
+    Assert.assertEquals(0, ranking.getRecordSize(0));
+
+    // The scores equal those of records with dense ids
+    ranking.setRankingScoreToIndex();
+    Assert.assertEquals(1.885, invertedIndex.getRecords("first")
+        .getPosting(firstId).getScore(), 0.0005);
+    Assert.assertEquals(2.325, invertedIndex.getRecords("second")
+        .getPosting(secondId).getScore(), 0.0005);
+    Assert.assertEquals(2.521, invertedIndex.getRecords("third")
+        .getPosting(thirdId).getScore(), 0.0005);
+  }
+
 }
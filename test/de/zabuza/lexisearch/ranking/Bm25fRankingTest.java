@@ -0,0 +1,188 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.util.MathUtil;
+
+/**
+ * Test for {@link Bm25fRanking}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class Bm25fRankingTest {
+
+  /**
+   * Test method for {@link Bm25fRanking#Bm25fRanking(double[])}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBm25fRankingDoubleArray() {
+    final Bm25fRanking<String> ranking =
+        new Bm25fRanking<>(new double[] { 3.0, 1.0 });
+
+    Assert.assertEquals(2, ranking.getAmountOfFields());
+    Assert.assertEquals(3.0, ranking.getFieldWeight(0), 0);
+    Assert.assertEquals(1.0, ranking.getFieldWeight(1), 0);
+    Assert.assertEquals(Bm25Ranking.DEFAULT_B_PARAMETER,
+        ranking.getFieldBParameter(1), 0);
+    Assert.assertEquals(Bm25Ranking.DEFAULT_K_PARAMETER,
+        ranking.getKParameter(), 0);
+  }
+
+  /**
+   * Test method for
+   * {@link Bm25fRanking#Bm25fRanking(double, double[], double[])}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBm25fRankingDoubleDoubleArrayDoubleArray() {
+    final Bm25fRanking<String> ranking = new Bm25fRanking<>(2.0,
+        new double[] { 3.0, 1.0 }, new double[] { 0.5, 1.0 });
+    Assert.assertEquals(2.0, ranking.getKParameter(), 0);
+    Assert.assertEquals(0.5, ranking.getFieldBParameter(0), 0);
+
+    try {
+      new Bm25fRanking<>(2.0, new double[] { 3.0, 1.0 },
+          new double[] { 0.5 });
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link Bm25fRanking#getRankingScore(Object, Posting)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetRankingScore() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "a", "b c"));
+    documents.add(new Document(2, "b", "a c"));
+    documents.add(new Document(3, "d", "e"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    final double nameWeight = 3.0;
+    final Bm25fRanking<String> ranking = new Bm25fRanking<>(1.0,
+        new double[] { nameWeight, 1.0 }, new double[] { 0.0, 0.0 });
+    ranking.takeSnapshot(invertedIndex, documents);
+
+    // Without length normalization the combined frequency is the weighted sum
+    final double idf = MathUtil.log2(3.0 / 2);
+    final Posting namePosting = invertedIndex.getRecords("a").getPosting(1);
+    Assert.assertEquals(idf * nameWeight * 2 / (1 + nameWeight),
+        ranking.getRankingScore("a", namePosting), 0.0001);
+    final Posting descriptionPosting =
+        invertedIndex.getRecords("a").getPosting(2);
+    Assert.assertEquals(idf,
+        ranking.getRankingScore("a", descriptionPosting), 0.0001);
+
+    try {
+      ranking.getRankingScore("a", new Posting(1));
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link Bm25fRanking#setRankingScoreToIndex()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSetRankingScoreToIndex() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "x", "y z"));
+    documents.add(new Document(2, "y", "x z"));
+    documents.add(new Document(3, "z", "z z z"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    final Bm25fRanking<String> ranking =
+        new Bm25fRanking<>(new double[] { 2.0, 1.0 });
+    ranking.takeSnapshot(invertedIndex, documents);
+    ranking.setRankingScoreToIndex();
+
+    for (final String key : invertedIndex.getKeys()) {
+      for (final Posting posting : invertedIndex.getRecords(key)
+          .getPostings()) {
+        Assert.assertEquals(ranking.getRankingScore(key, posting),
+            posting.getScore(), 0);
+      }
+    }
+
+    // A name hit outranks a description hit of the same key
+    final List<Posting> postings = new ArrayList<>();
+    for (final Posting posting : invertedIndex.getRecords("x")
+        .getPostings()) {
+      postings.add(posting);
+    }
+    ranking.sortPostingsByRank(postings);
+    Assert.assertEquals(1, postings.get(0).getId());
+    Assert.assertEquals(2, postings.get(1).getId());
+
+    ranking.setFieldWeight(0, 0.5);
+    ranking.setRankingScoreToIndex();
+    ranking.sortPostingsByRank(postings);
+    Assert.assertEquals(2, postings.get(0).getId());
+  }
+
+  /**
+   * Test method for
+   * {@link Bm25fRanking#takeSnapshot(IInvertedIndex, IKeyRecordSet)} with
+   * negative and sparse record ids.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testTakeSnapshotWithSparseIds() {
+    final int[] denseIds = { 1, 2, 3 };
+    final int[] sparseIds = { -5, 2_000_000_000, 7 };
+    final String[] names = { "x", "y", "z" };
+    final String[] descriptions = { "y z", "x z", "z z z" };
+    final DocumentSet denseDocuments = new DocumentSet();
+    final DocumentSet sparseDocuments = new DocumentSet();
+    for (int i = 0; i < names.length; i++) {
+      denseDocuments
+          .add(new Document(denseIds[i], names[i], descriptions[i]));
+      sparseDocuments
+          .add(new Document(sparseIds[i], names[i], descriptions[i]));
+    }
+    final IInvertedIndex<String> denseIndex =
+        InvertedIndexUtil.createFromWords(denseDocuments);
+    final IInvertedIndex<String> sparseIndex =
+        InvertedIndexUtil.createFromWords(sparseDocuments);
+    final Bm25fRanking<String> denseRanking =
+        new Bm25fRanking<>(new double[] { 2.0, 1.0 });
+    denseRanking.takeSnapshot(denseIndex, denseDocuments);
+    final Bm25fRanking<String> sparseRanking =
+        new Bm25fRanking<>(new double[] { 2.0, 1.0 });
+    sparseRanking.takeSnapshot(sparseIndex, sparseDocuments);
+
+    // The ids must not change the scores
+    for (final String key : names) {
+      for (int i = 0; i < names.length; i++) {
+        final Posting densePosting =
+            denseIndex.getRecords(key).getPosting(denseIds[i]);
+        final Posting sparsePosting =
+            sparseIndex.getRecords(key).getPosting(sparseIds[i]);
+        if (densePosting == null) {
+          Assert.assertNull(sparsePosting);
+          continue;
+        }
+        Assert.assertEquals(denseRanking.getRankingScore(key, densePosting),
+            sparseRanking.getRankingScore(key, sparsePosting), 0.0001);
+      }
+    }
+  }
+}
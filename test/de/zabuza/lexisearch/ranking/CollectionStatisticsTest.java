@@ -0,0 +1,150 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link CollectionStatistics}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class CollectionStatisticsTest {
+
+  /**
+   * Test method for
+   * {@link CollectionStatistics#CollectionStatistics(long, long, java.util.Map)}
+   * .
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCollectionStatistics() {
+    final HashMap<String, Integer> keyRecordFrequencies = new HashMap<>();
+    keyRecordFrequencies.put("a", Integer.valueOf(2));
+    final CollectionStatistics<String> statistics =
+        new CollectionStatistics<>(3, 12, keyRecordFrequencies);
+    keyRecordFrequencies.put("b", Integer.valueOf(1));
+
+    Assert.assertEquals(3, statistics.getAmountOfRecords());
+    Assert.assertEquals(12, statistics.getTotalRecordSize());
+    Assert.assertEquals(1, statistics.getKeyRecordFrequencies().size());
+
+    try {
+      new CollectionStatistics<>(-1, 0, keyRecordFrequencies);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      new CollectionStatistics<>(0, -1, keyRecordFrequencies);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link CollectionStatistics#getAmountOfRecords()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetAmountOfRecords() {
+    Assert.assertEquals(0,
+        new CollectionStatistics<>(0, 0, new HashMap<>()).getAmountOfRecords());
+    Assert.assertEquals(5,
+        new CollectionStatistics<>(5, 0, new HashMap<>()).getAmountOfRecords());
+  }
+
+  /**
+   * Test method for {@link CollectionStatistics#getAverageRecordSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetAverageRecordSize() {
+    Assert.assertEquals(0, new CollectionStatistics<>(0, 0, new HashMap<>())
+        .getAverageRecordSize(), 0);
+    Assert.assertEquals(2.5, new CollectionStatistics<>(4, 10, new HashMap<>())
+        .getAverageRecordSize(), 0);
+  }
+
+  /**
+   * Test method for {@link CollectionStatistics#getKeyRecordFrequencies()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetKeyRecordFrequencies() {
+    final HashMap<String, Integer> keyRecordFrequencies = new HashMap<>();
+    keyRecordFrequencies.put("a", Integer.valueOf(2));
+    final CollectionStatistics<String> statistics =
+        new CollectionStatistics<>(3, 12, keyRecordFrequencies);
+
+    Assert.assertEquals(keyRecordFrequencies,
+        statistics.getKeyRecordFrequencies());
+    try {
+      statistics.getKeyRecordFrequencies().put("b", Integer.valueOf(1));
+      Assert.fail();
+    } catch (final UnsupportedOperationException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link CollectionStatistics#getKeyRecordFrequency(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetKeyRecordFrequency() {
+    final HashMap<String, Integer> keyRecordFrequencies = new HashMap<>();
+    keyRecordFrequencies.put("a", Integer.valueOf(2));
+    final CollectionStatistics<String> statistics =
+        new CollectionStatistics<>(3, 12, keyRecordFrequencies);
+
+    Assert.assertEquals(2, statistics.getKeyRecordFrequency("a"));
+    Assert.assertEquals(0, statistics.getKeyRecordFrequency("b"));
+  }
+
+  /**
+   * Test method for {@link CollectionStatistics#getTotalRecordSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetTotalRecordSize() {
+    Assert.assertEquals(0,
+        new CollectionStatistics<>(0, 0, new HashMap<>()).getTotalRecordSize());
+    Assert.assertEquals(7,
+        new CollectionStatistics<>(2, 7, new HashMap<>()).getTotalRecordSize());
+  }
+
+  /**
+   * Test method for {@link CollectionStatistics#merge(Iterable)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testMerge() {
+    final HashMap<String, Integer> firstFrequencies = new HashMap<>();
+    firstFrequencies.put("a", Integer.valueOf(2));
+    firstFrequencies.put("b", Integer.valueOf(1));
+    final HashMap<String, Integer> secondFrequencies = new HashMap<>();
+    secondFrequencies.put("a", Integer.valueOf(1));
+    secondFrequencies.put("c", Integer.valueOf(3));
+
+    final CollectionStatistics<String> merged =
+        CollectionStatistics.merge(Arrays.asList(
+            new CollectionStatistics<>(2, 5, firstFrequencies),
+            new CollectionStatistics<>(3, 9, secondFrequencies)));
+    Assert.assertEquals(5, merged.getAmountOfRecords());
+    Assert.assertEquals(14, merged.getTotalRecordSize());
+    Assert.assertEquals(3, merged.getKeyRecordFrequencies().size());
+    Assert.assertEquals(3, merged.getKeyRecordFrequency("a"));
+    Assert.assertEquals(1, merged.getKeyRecordFrequency("b"));
+    Assert.assertEquals(3, merged.getKeyRecordFrequency("c"));
+
+    final CollectionStatistics<String> empty =
+        CollectionStatistics.merge(Arrays.asList());
+    Assert.assertEquals(0, empty.getAmountOfRecords());
+    Assert.assertTrue(empty.getKeyRecordFrequencies().isEmpty());
+  }
+}
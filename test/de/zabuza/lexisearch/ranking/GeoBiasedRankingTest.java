@@ -0,0 +1,176 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.GeoGridIndex;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.City;
+import de.zabuza.lexisearch.model.city.CitySet;
+
+/**
+ * Test for {@link GeoBiasedRanking}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class GeoBiasedRankingTest {
+
+  /**
+   * Creates a geo-biased ranking with a snapshot of a small set of cities.
+   * The focus lies at the first city.
+   * 
+   * @return The created ranking
+   */
+  private static GeoBiasedRanking<String> createRanking() {
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    cities.add(new City(0, "Freiburg", 47.99f, 7.85f, 1, provider));
+    cities.add(new City(1, "Basel", 47.56f, 7.59f, 1, provider));
+    cities.add(new City(2, "Berlin", 52.52f, 13.40f, 1, provider));
+    final GeoBiasedRanking<String> ranking =
+        new GeoBiasedRanking<>(new GeoGridIndex(cities), 47.99, 7.85);
+    ranking.takeSnapshot(cities.createInvertedIndex(), cities);
+    return ranking;
+  }
+
+  /**
+   * Test method for
+   * {@link GeoBiasedRanking#getRankingScore(Object, Posting)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetRankingScore() {
+    final GeoBiasedRanking<String> ranking = createRanking();
+    final double recordScoreBonus =
+        GeoBiasedRanking.DEFAULT_RECORD_SCORE_WEIGHT;
+
+    // The focus lies at the record, only the score and its bonus remain
+    Assert.assertEquals(2.0 - recordScoreBonus,
+        ranking.getRankingScore("", new Posting(0, 1, 2.0)), 0.001);
+    final double distance = ranking.getGeoIndex().getDistance(1, 47.99, 7.85);
+    Assert.assertEquals(
+        GeoBiasedRanking.DEFAULT_DISTANCE_WEIGHT * (Math.log(1 + distance)
+            / Math.log(2)) - recordScoreBonus,
+        ranking.getRankingScore("", new Posting(1, 1, 0.0)), 0.001);
+    Assert.assertEquals(Double.POSITIVE_INFINITY,
+        ranking.getRankingScore("", new Posting(3, 1, 0.0)), 0);
+  }
+
+  /**
+   * Test method for {@link GeoBiasedRanking#sortPostingsByRank(List)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSortPostingsByRank() {
+    final GeoBiasedRanking<String> ranking = createRanking();
+    final List<Posting> postings = new ArrayList<>(Arrays.asList(
+        new Posting(2, 1, 0.0), new Posting(1, 1, 0.0),
+        new Posting(0, 1, 2.0)));
+
+    ranking.sortPostingsByRank(postings);
+    // The better score of the near record outweighs its distance
+    Assert.assertEquals(1, postings.get(0).getId());
+    Assert.assertEquals(0, postings.get(1).getId());
+    Assert.assertEquals(2, postings.get(2).getId());
+
+    // Near to the third city, it is ranked first
+    final GeoBiasedRanking<String> nearBerlin =
+        ranking.withFocus(52.52, 13.40);
+    nearBerlin.sortTopPostingsByRank(postings, 1);
+    Assert.assertEquals(1, postings.size());
+    Assert.assertEquals(2, postings.get(0).getId());
+  }
+
+  /**
+   * Test method for {@link GeoBiasedRanking#sortPostingsByRank(List)} with
+   * sort keys of the costs compared to sorting by the comparator.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSortPostingsByRankWithCostKeys() {
+    final GeoBiasedRanking<String> ranking = createRanking();
+    final Random random = new Random(5);
+    final double[] scores = { -3.5, -0.0, 0.0, 1.0, 2.0 };
+    final List<Posting> postings = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      // Unlocated records have an infinite cost
+      postings.add(new Posting(random.nextInt(5), 1,
+          scores[random.nextInt(scores.length)]));
+    }
+    final List<Posting> expectedPostings = new ArrayList<>(postings);
+    Collections.sort(expectedPostings, ranking.getRankComparator());
+    ranking.sortPostingsByRank(postings);
+    for (int i = 0; i < postings.size(); i++) {
+      Assert.assertSame(expectedPostings.get(i), postings.get(i));
+    }
+
+    ranking.withFocus(52.52, 13.40).sortTopPostingsByRank(postings, 10);
+    Collections.sort(expectedPostings,
+        ranking.withFocus(52.52, 13.40).getRankComparator());
+    Assert.assertEquals(10, postings.size());
+    for (int i = 0; i < postings.size(); i++) {
+      Assert.assertSame(expectedPostings.get(i), postings.get(i));
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link GeoBiasedRanking#takeSnapshot(IInvertedIndex, IKeyRecordSet)}
+   * with negative and sparse record ids.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testTakeSnapshotWithSparseIds() {
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    cities.add(new City(-2, "Freiburg", 47.99f, 7.85f, 1, provider));
+    cities.add(new City(2_000_000_000, "Basel", 47.56f, 7.59f, 7, provider));
+    final GeoBiasedRanking<String> ranking =
+        new GeoBiasedRanking<>(new GeoGridIndex(cities), 47.99, 7.85);
+    ranking.takeSnapshot(cities.createInvertedIndex(), cities);
+
+    final double recordScoreBonus =
+        GeoBiasedRanking.DEFAULT_RECORD_SCORE_WEIGHT;
+    Assert.assertEquals(2.0 - recordScoreBonus,
+        ranking.getRankingScore("", new Posting(-2, 1, 2.0)), 0.001);
+    final double distance =
+        ranking.getGeoIndex().getDistance(2_000_000_000, 47.99, 7.85);
+    Assert.assertEquals(
+        GeoBiasedRanking.DEFAULT_DISTANCE_WEIGHT * (Math.log(1 + distance)
+            / Math.log(2)) - 3 * recordScoreBonus,
+        ranking.getRankingScore("", new Posting(2_000_000_000, 1, 0.0)),
+        0.001);
+  }
+
+  /**
+   * Test method for {@link GeoBiasedRanking#withFocus(double, double)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWithFocus() {
+    final GeoBiasedRanking<String> ranking = createRanking();
+    final GeoBiasedRanking<String> otherRanking =
+        ranking.withFocus(52.52, 13.40);
+
+    Assert.assertEquals(52.52, otherRanking.getFocusLatitude(), 0);
+    Assert.assertEquals(13.40, otherRanking.getFocusLongitude(), 0);
+    Assert.assertEquals(47.99, ranking.getFocusLatitude(), 0);
+    Assert.assertSame(ranking.getGeoIndex(), otherRanking.getGeoIndex());
+    Assert.assertSame(ranking.getInvertedIndex(),
+        otherRanking.getInvertedIndex());
+    Assert.assertEquals(ranking.getDistanceWeight(),
+        otherRanking.getDistanceWeight(), 0);
+    Assert.assertEquals(ranking.getRecordScoreWeight(),
+        otherRanking.getRecordScoreWeight(), 0);
+  }
+}
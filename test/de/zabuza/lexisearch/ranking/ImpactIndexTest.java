@@ -0,0 +1,149 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.InvertedIndexUtil;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+
+/**
+ * Test for {@link ImpactIndex}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ImpactIndexTest {
+
+  /**
+   * Creates a BM25 ranking with a snapshot of a small set of documents.
+   * 
+   * @return The created ranking
+   */
+  private static Bm25Ranking<String> createRanking() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(1, "a", "b c"));
+    documents.add(new Document(2, "h", "i k k l"));
+    documents.add(new Document(3, "a a", "k"));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(documents);
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>();
+    ranking.takeSnapshot(invertedIndex, documents);
+    return ranking;
+  }
+
+  /**
+   * Test method for
+   * {@link ImpactIndex#createFromRanking(IRankingProvider, EImpactPrecision)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateFromRanking() {
+    final Bm25Ranking<String> ranking = createRanking();
+    for (final EImpactPrecision precision : EImpactPrecision.values()) {
+      final ImpactIndex<String> impactIndex =
+          ImpactIndex.createFromRanking(ranking, precision);
+      Assert.assertEquals(precision, impactIndex.getPrecision());
+      Assert.assertNull(impactIndex.getImpacts("x"));
+
+      int maximalImpact = 0;
+      for (final String key : ranking.getInvertedIndex().getKeys()) {
+        final ImpactList impacts = impactIndex.getImpacts(key);
+        int i = 0;
+        for (final Posting posting : ranking.getInvertedIndex()
+            .getRecords(key).getPostings()) {
+          Assert.assertEquals(posting.getId(), impacts.getId(i));
+          final double score = ranking.getRankingScore(key, posting);
+          Assert.assertEquals(score,
+              impactIndex.toScore(impacts.getImpact(i)),
+              impactIndex.getScale() / 2);
+          i++;
+        }
+        Assert.assertEquals(i, impacts.getSize());
+        maximalImpact = Math.max(maximalImpact, impacts.getMaximalImpact());
+      }
+      Assert.assertEquals(precision.getMaximalImpact(), maximalImpact);
+    }
+  }
+
+  /**
+   * Test method for {@link ImpactIndex#search(Iterable)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearch() {
+    final Bm25Ranking<String> ranking = createRanking();
+    final ImpactIndex<String> impactIndex =
+        ranking.createImpactIndex(EImpactPrecision.SIXTEEN_BITS);
+
+    final List<Posting> results = impactIndex.search(Arrays.asList("a", "k"));
+    Assert.assertEquals(3, results.size());
+    Assert.assertEquals(3, results.get(0).getId());
+    Assert.assertEquals(2, results.get(0).getTermFrequency());
+    for (int i = 1; i < results.size(); i++) {
+      Assert.assertTrue(
+          results.get(i - 1).getScore() >= results.get(i).getScore());
+    }
+    for (final Posting result : results) {
+      double expectedScore = 0.0;
+      for (final String key : Arrays.asList("a", "k")) {
+        final Posting posting = ranking.getInvertedIndex().getRecords(key)
+            .getPosting(result.getId());
+        if (posting != null) {
+          expectedScore += ranking.getRankingScore(key, posting);
+        }
+      }
+      Assert.assertEquals(expectedScore, result.getScore(),
+          impactIndex.getScale());
+    }
+
+    Assert.assertTrue(impactIndex.search(Arrays.asList("x")).isEmpty());
+  }
+
+  /**
+   * Test method for {@link ImpactIndex#search(Iterable, EAggregateMode)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchIterableEAggregateMode() {
+    final Bm25Ranking<String> ranking = createRanking();
+    final ImpactIndex<String> impactIndex =
+        ranking.createImpactIndex(EImpactPrecision.EIGHT_BITS);
+
+    final List<Posting> intersection = impactIndex
+        .search(Arrays.asList("a", "k"), EAggregateMode.INTERSECT);
+    Assert.assertEquals(1, intersection.size());
+    Assert.assertEquals(3, intersection.get(0).getId());
+    Assert.assertEquals(2, intersection.get(0).getTermFrequency());
+    Assert.assertTrue(impactIndex
+        .search(Arrays.asList("a", "x"), EAggregateMode.INTERSECT).isEmpty());
+    Assert.assertEquals(2, impactIndex
+        .search(Arrays.asList("a", "x"), EAggregateMode.UNION).size());
+
+    // Sparse ids do not need an accumulator spanning their range
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a b"));
+    documents.add(new Document(1_000_000, "a"));
+    final Bm25Ranking<String> sparseRanking = new Bm25Ranking<>();
+    sparseRanking.takeSnapshot(InvertedIndexUtil.createFromWords(documents),
+        documents);
+    final ImpactIndex<String> sparseIndex =
+        sparseRanking.createImpactIndex(EImpactPrecision.SIXTEEN_BITS);
+    final List<Posting> sparseUnion =
+        sparseIndex.search(Arrays.asList("a", "b"), EAggregateMode.UNION);
+    Assert.assertEquals(2, sparseUnion.size());
+    Assert.assertEquals(0, sparseUnion.get(0).getId());
+    Assert.assertEquals(2, sparseUnion.get(0).getTermFrequency());
+    Assert.assertEquals(1_000_000, sparseUnion.get(1).getId());
+    final List<Posting> sparseIntersection = sparseIndex
+        .search(Arrays.asList("a", "b"), EAggregateMode.INTERSECT);
+    Assert.assertEquals(1, sparseIntersection.size());
+    Assert.assertEquals(0, sparseIntersection.get(0).getId());
+  }
+}
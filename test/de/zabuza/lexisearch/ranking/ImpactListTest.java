@@ -0,0 +1,72 @@
+package de.zabuza.lexisearch.ranking;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link ImpactList}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ImpactListTest {
+
+  /**
+   * Test method for {@link ImpactList#getByteSize()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetByteSize() {
+    final int[] ids = { 1, 2, 3 };
+    final int[] impacts = { 0, 1, 2 };
+    Assert.assertEquals(15,
+        new ImpactList(ids, impacts, EImpactPrecision.EIGHT_BITS)
+            .getByteSize());
+    Assert.assertEquals(18,
+        new ImpactList(ids, impacts, EImpactPrecision.SIXTEEN_BITS)
+            .getByteSize());
+  }
+
+  /**
+   * Test method for {@link ImpactList#getImpact(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetImpact() {
+    final int[] ids = { 1, 5, 9 };
+    final ImpactList eightBitList = new ImpactList(ids,
+        new int[] { 0, 128, 255 }, EImpactPrecision.EIGHT_BITS);
+    Assert.assertEquals(0, eightBitList.getImpact(0));
+    Assert.assertEquals(128, eightBitList.getImpact(1));
+    Assert.assertEquals(255, eightBitList.getImpact(2));
+    Assert.assertEquals(5, eightBitList.getId(1));
+    Assert.assertEquals(3, eightBitList.getSize());
+
+    final ImpactList sixteenBitList = new ImpactList(ids,
+        new int[] { 256, 4_097, 65_535 }, EImpactPrecision.SIXTEEN_BITS);
+    Assert.assertEquals(256, sixteenBitList.getImpact(0));
+    Assert.assertEquals(4_097, sixteenBitList.getImpact(1));
+    Assert.assertEquals(65_535, sixteenBitList.getImpact(2));
+
+    try {
+      new ImpactList(ids, new int[] { 0, 1, 256 },
+          EImpactPrecision.EIGHT_BITS);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link ImpactList#getMaximalImpact()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetMaximalImpact() {
+    final ImpactList list = new ImpactList(new int[] { 1, 2, 3 },
+        new int[] { 4, 7, 2 }, EImpactPrecision.EIGHT_BITS);
+    Assert.assertEquals(7, list.getMaximalImpact());
+    Assert.assertEquals(0, new ImpactList(new int[0], new int[0],
+        EImpactPrecision.EIGHT_BITS).getMaximalImpact());
+  }
+}
@@ -1,8 +1,10 @@
 package de.zabuza.lexisearch.ranking;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -249,6 +251,102 @@ public final class PostingBeforeRecordRankingTest {
         cities.getKeyRecordById(postingIter.next().getId()));
   }
 
+  /**
+   * Test method for {@link PostingBeforeRecordRanking#sortPostingsByRank(List)}
+   * with packed sort keys compared to sorting by the comparator.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSortPostingsByRankWithPackedKeys() {
+    final PostingBeforeRecordRanking<String> ranking =
+        new PostingBeforeRecordRanking<>();
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    final Random random = new Random(3);
+    for (int i = 0; i < 300; i++) {
+      // Few distinct scores, including extreme and negative ones
+      final int[] scores = { Integer.MIN_VALUE, -3, 0, 7, Integer.MAX_VALUE };
+      cities.add(new City(i, "city", 1.0f, 2.0f,
+          scores[random.nextInt(scores.length)], provider));
+    }
+    ranking.takeSnapshot(InvertedIndexUtil.createFromWords(cities), cities);
+
+    final ArrayList<Posting> postings = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      postings.add(new Posting(i, 1, random.nextInt(4)));
+    }
+    final ArrayList<Posting> expectedPostings = new ArrayList<>(postings);
+    Collections.sort(expectedPostings, ranking.getRankComparator());
+    ranking.sortPostingsByRank(postings);
+    for (int i = 0; i < postings.size(); i++) {
+      Assert.assertEquals(expectedPostings.get(i).getId(),
+          postings.get(i).getId());
+    }
+
+    // Scores which do not fit into a key are sorted by the comparator
+    postings.add(new Posting(1, 1, 0.5));
+    ranking.sortPostingsByRank(postings);
+    for (int i = 1; i < postings.size(); i++) {
+      Assert.assertTrue(ranking.getRankComparator()
+          .compare(postings.get(i - 1), postings.get(i)) <= 0);
+    }
+
+    // Records without score are ranked equal to all others, like by the
+    // comparator of records which are no score providers
+    final CitySet fewCities = new CitySet();
+    fewCities.add(new City(1, "city", 1.0f, 2.0f, 1, provider));
+    fewCities.add(new City(2, "city", 1.0f, 2.0f, 2, provider));
+    ranking.takeSnapshot(InvertedIndexUtil.createFromWords(fewCities),
+        fewCities);
+    final ArrayList<Posting> mixedPostings = new ArrayList<>();
+    mixedPostings.add(new Posting(99, 1, 0));
+    mixedPostings.add(new Posting(1, 1, 0));
+    mixedPostings.add(new Posting(2, 1, 0));
+    final ArrayList<Posting> expectedMixedPostings =
+        new ArrayList<>(mixedPostings);
+    Collections.sort(expectedMixedPostings,
+        new PostingBeforeRecordComparator<>(fewCities));
+    ranking.sortPostingsByRank(mixedPostings);
+    Assert.assertEquals(99, mixedPostings.get(0).getId());
+    for (int i = 0; i < mixedPostings.size(); i++) {
+      Assert.assertEquals(expectedMixedPostings.get(i).getId(),
+          mixedPostings.get(i).getId());
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link PostingBeforeRecordRanking#sortTopPostingsByRank(List, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSortTopPostingsByRank() {
+    final PostingBeforeRecordRanking<String> ranking =
+        new PostingBeforeRecordRanking<>();
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    cities.add(new City(1, "city", 1.0f, 2.0f, 3, provider));
+    cities.add(new City(2, "city", 1.0f, 2.0f, 4, provider));
+    cities.add(new City(3, "city", 1.0f, 2.0f, 1, provider));
+    cities.add(new City(4, "city", 1.0f, 2.0f, 4, provider));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(cities);
+    ranking.takeSnapshot(invertedIndex, cities);
+
+    final ArrayList<Posting> postings = new ArrayList<>();
+    for (final Posting posting : invertedIndex.getRecords("cit")
+        .getPostings()) {
+      postings.add(posting);
+    }
+    ranking.sortTopPostingsByRank(postings, 3);
+
+    // Cities with equal scores keep their order
+    Assert.assertEquals(3, postings.size());
+    Assert.assertEquals(2, postings.get(0).getId());
+    Assert.assertEquals(4, postings.get(1).getId());
+    Assert.assertEquals(1, postings.get(2).getId());
+  }
+
   /**
    * Test method for
    * {@link PostingBeforeRecordRanking#takeSnapshot(IInvertedIndex, IKeyRecordSet)}
@@ -277,4 +375,44 @@ public final class PostingBeforeRecordRankingTest {
     Assert.assertEquals(invertedIndex, ranking.getInvertedIndex());
   }
 
+  /**
+   * Test method for
+   * {@link PostingBeforeRecordRanking#takeSnapshot(IInvertedIndex, IKeyRecordSet)}
+   * with negative and sparse record ids.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testTakeSnapshotWithSparseIds() {
+    final PostingBeforeRecordRanking<String> ranking =
+        new PostingBeforeRecordRanking<>();
+
+    final QGramProvider provider = new QGramProvider(3);
+    final CitySet cities = new CitySet();
+    cities.add(new City(-3, "city", 1.0f, 2.0f, 2, provider));
+    cities.add(new City(2_000_000_000, "city", 1.0f, 2.0f, 5, provider));
+    cities.add(new City(4, "city", 1.0f, 2.0f, 3, provider));
+    final IInvertedIndex<String> invertedIndex =
+        InvertedIndexUtil.createFromWords(cities);
+
+    ranking.takeSnapshot(invertedIndex, cities);
+
+    Assert.assertTrue(ranking.hasRecordScore(-3));
+    Assert.assertTrue(ranking.hasRecordScore(2_000_000_000));
+    Assert.assertFalse(ranking.hasRecordScore(0));
+    Assert.assertEquals(2, ranking.getRecordScore(-3));
+    Assert.assertEquals(5, ranking.getRecordScore(2_000_000_000));
+    Assert.assertEquals(3, ranking.getRecordScore(4));
+    Assert.assertEquals(0, ranking.getRecordScore(-1));
+
+    final ArrayList<Posting> postings = new ArrayList<>();
+    for (final Posting posting : invertedIndex.getRecords("cit")
+        .getPostings()) {
+      postings.add(posting);
+    }
+    ranking.sortPostingsByRank(postings);
+    Assert.assertEquals(2_000_000_000, postings.get(0).getId());
+    Assert.assertEquals(4, postings.get(1).getId());
+    Assert.assertEquals(-3, postings.get(2).getId());
+  }
+
 }
@@ -0,0 +1,58 @@
+package de.zabuza.lexisearch.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.Posting;
+
+/**
+ * Test for {@link TopKSelector}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class TopKSelectorTest {
+
+  /**
+   * Test method for
+   * {@link TopKSelector#selectTop(List, java.util.Comparator, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSelectTop() {
+    final ScoreComparator comparator = new ScoreComparator();
+    final Random random = new Random(42);
+    final ArrayList<Posting> postings = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      // Few distinct scores such that many postings are equal
+      postings.add(new Posting(i, 1, random.nextInt(20)));
+    }
+    final ArrayList<Posting> sortedPostings = new ArrayList<>(postings);
+    Collections.sort(sortedPostings, comparator);
+
+    for (final int limit : new int[] { 0, 1, 7, 100, 499, 500, 600 }) {
+      final ArrayList<Posting> top = new ArrayList<>(postings);
+      TopKSelector.selectTop(top, comparator, limit);
+      Assert.assertEquals(
+          sortedPostings.subList(0, Math.min(limit, sortedPostings.size())),
+          top);
+      // Equal postings are only distinguishable by their id
+      for (int i = 0; i < top.size(); i++) {
+        Assert.assertEquals(sortedPostings.get(i).getId(),
+            top.get(i).getId());
+      }
+    }
+
+    try {
+      TopKSelector.selectTop(postings, comparator, -1);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+}
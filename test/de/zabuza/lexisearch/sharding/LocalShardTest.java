@@ -0,0 +1,176 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Test for {@link LocalShard}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class LocalShardTest {
+
+  /**
+   * Creates the documents used by the tests.
+   * 
+   * @return The documents used by the tests
+   */
+  private static DocumentSet createDocuments() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a", "b"));
+    documents.add(new Document(1, "b", "c c"));
+    documents.add(new Document(2, "a b", "d"));
+    return documents;
+  }
+
+  /**
+   * Test method for {@link LocalShard#close()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testClose() {
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(createDocuments());
+    shard.close();
+
+    Assert.assertEquals(2,
+        shard.search(Arrays.asList("a"), EAggregateMode.UNION, 5).size());
+  }
+
+  /**
+   * Test method for {@link LocalShard#getCollectionStatistics()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCollectionStatistics() {
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(createDocuments());
+
+    final CollectionStatistics<String> statistics =
+        shard.getCollectionStatistics();
+    Assert.assertEquals(3, statistics.getAmountOfRecords());
+    Assert.assertEquals(8, statistics.getTotalRecordSize());
+    Assert.assertEquals(3, statistics.getKeyRecordFrequency("b"));
+    Assert.assertEquals(1, statistics.getKeyRecordFrequency("c"));
+  }
+
+  /**
+   * Test method for {@link LocalShard#getQuery()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetQuery() {
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(createDocuments());
+
+    Assert.assertEquals(3,
+        shard.getQuery().getInvertedIndex().getRecords("b").getSize());
+  }
+
+  /**
+   * Test method for {@link LocalShard#LocalShard(IKeyRecordSet)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testLocalShardIKeyRecordSet() {
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(createDocuments());
+
+    Assert.assertEquals(3,
+        shard.getCollectionStatistics().getAmountOfRecords());
+    Assert.assertEquals(0, new LocalShard<>(new DocumentSet())
+        .getCollectionStatistics().getAmountOfRecords());
+  }
+
+  /**
+   * Test method for {@link LocalShard#LocalShard(IKeyRecordSet, Bm25Ranking)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testLocalShardIKeyRecordSetBm25Ranking() {
+    final Bm25Ranking<String> ranking = new Bm25Ranking<>(1.5, 0.5);
+    final DocumentSet documents = createDocuments();
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(documents, ranking);
+
+    Assert.assertEquals(documents, ranking.getKeyRecords());
+    Assert.assertEquals(ranking.getCollectionStatistics().getAmountOfRecords(),
+        shard.getCollectionStatistics().getAmountOfRecords());
+  }
+
+  /**
+   * Test method for {@link LocalShard#search(List, EAggregateMode, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearch() {
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(createDocuments());
+
+    final List<Posting> union =
+        shard.search(Arrays.asList("a", "c"), EAggregateMode.UNION, 5);
+    Assert.assertEquals(3, union.size());
+    Assert.assertEquals(1, union.get(0).getId());
+
+    final List<Posting> intersection =
+        shard.search(Arrays.asList("a", "b"), EAggregateMode.INTERSECT, 5);
+    Assert.assertEquals(2, intersection.size());
+
+    Assert.assertEquals(1,
+        shard.search(Arrays.asList("a", "c"), EAggregateMode.UNION, 1).size());
+    Assert.assertTrue(
+        shard.search(Arrays.asList("e"), EAggregateMode.UNION, 5).isEmpty());
+  }
+
+  /**
+   * Test method for
+   * {@link LocalShard#setCollectionStatistics(CollectionStatistics)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSetCollectionStatistics() {
+    final LocalShard<IKeyRecord<String>> shard =
+        new LocalShard<>(createDocuments());
+    final Posting before = shard
+        .search(Arrays.asList("c"), EAggregateMode.UNION, 1).get(0);
+    final double scoreBefore = before.getScore();
+
+    // The keyword is rarer in the whole collection, thus scores higher
+    final HashMap<String, Integer> keyRecordFrequencies =
+        new HashMap<>(shard.getCollectionStatistics()
+            .getKeyRecordFrequencies());
+    final CollectionStatistics<String> statistics =
+        new CollectionStatistics<>(30, 80, keyRecordFrequencies);
+    shard.setCollectionStatistics(statistics);
+
+    final Posting after = shard
+        .search(Arrays.asList("c"), EAggregateMode.UNION, 1).get(0);
+    Assert.assertEquals(before.getId(), after.getId());
+    Assert.assertTrue(after.getScore() > scoreBefore);
+    Assert.assertEquals(3,
+        shard.getCollectionStatistics().getAmountOfRecords());
+
+    keyRecordFrequencies.remove("c");
+    try {
+      shard.setCollectionStatistics(
+          new CollectionStatistics<>(30, 80, keyRecordFrequencies));
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Test for {@link RemoteShard}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class RemoteShardTest {
+  /**
+   * The host the servers of the tests are reached at.
+   */
+  private static final String HOST = "localhost";
+
+  /**
+   * Creates the documents used by the tests.
+   * 
+   * @return The documents used by the tests
+   */
+  private static DocumentSet createDocuments() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a", "b"));
+    documents.add(new Document(1, "b", "c c"));
+    documents.add(new Document(2, "a b", "d"));
+    documents.add(new Document(3, "e", "a c"));
+    return documents;
+  }
+
+  /**
+   * Test method for {@link RemoteShard#close()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testClose() throws IOException {
+    try (final ShardServer server =
+        new ShardServer(new LocalShard<>(createDocuments()), 0)) {
+      server.start();
+      final RemoteShard shard = new RemoteShard(HOST, server.getPort());
+      shard.close();
+
+      try {
+        shard.getCollectionStatistics();
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link RemoteShard#getCollectionStatistics()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCollectionStatistics() throws IOException {
+    final LocalShard<IKeyRecord<String>> localShard =
+        new LocalShard<>(createDocuments());
+    try (final ShardServer server = new ShardServer(localShard, 0)) {
+      server.start();
+      try (final RemoteShard shard = new RemoteShard(HOST, server.getPort())) {
+        final CollectionStatistics<String> expected =
+            localShard.getCollectionStatistics();
+        final CollectionStatistics<String> statistics =
+            shard.getCollectionStatistics();
+        Assert.assertEquals(expected.getAmountOfRecords(),
+            statistics.getAmountOfRecords());
+        Assert.assertEquals(expected.getTotalRecordSize(),
+            statistics.getTotalRecordSize());
+        Assert.assertEquals(expected.getKeyRecordFrequencies(),
+            statistics.getKeyRecordFrequencies());
+        Assert.assertEquals(1, statistics.getKeyRecordFrequency("e"));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link RemoteShard#RemoteShard(String, int)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testRemoteShard() throws IOException {
+    try (final ShardServer server =
+        new ShardServer(new LocalShard<>(createDocuments()), 0)) {
+      server.start();
+      try (final RemoteShard shard = new RemoteShard(HOST, server.getPort())) {
+        Assert.assertEquals(4,
+            shard.getCollectionStatistics().getAmountOfRecords());
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link RemoteShard#search(List, EAggregateMode, int)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearch() throws IOException {
+    final LocalShard<IKeyRecord<String>> localShard =
+        new LocalShard<>(createDocuments());
+    try (final ShardServer server = new ShardServer(localShard, 0)) {
+      server.start();
+      try (final RemoteShard shard = new RemoteShard(HOST, server.getPort())) {
+        for (final EAggregateMode mode : EAggregateMode.values()) {
+          final List<String> keys = Arrays.asList("a", "c");
+          final List<Posting> expected = localShard.search(keys, mode, 3);
+          final List<Posting> postings = shard.search(keys, mode, 3);
+          Assert.assertEquals(expected.size(), postings.size());
+          for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getId(),
+                postings.get(i).getId());
+            Assert.assertEquals(expected.get(i).getTermFrequency(),
+                postings.get(i).getTermFrequency());
+            Assert.assertEquals(expected.get(i).getScore(),
+                postings.get(i).getScore(), 0);
+          }
+        }
+        Assert.assertEquals(1, shard
+            .search(Arrays.asList("e"), EAggregateMode.UNION, 3)
+            .size());
+      }
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link RemoteShard#setCollectionStatistics(CollectionStatistics)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSetCollectionStatistics() throws IOException {
+    final DocumentSet documents = createDocuments();
+    final List<IKeyRecordSet<IKeyRecord<String>, String>> partitions =
+        new ShardPartitioner(EShardPartitioning.RANGE, 2)
+            .partition(documents);
+    final ArrayList<ShardServer> servers = new ArrayList<>();
+    final ArrayList<IShard> shards = new ArrayList<>();
+    try {
+      for (final IKeyRecordSet<IKeyRecord<String>, String> partition
+          : partitions) {
+        final ShardServer server =
+            new ShardServer(new LocalShard<>(partition), 0);
+        servers.add(server);
+        server.start();
+        shards.add(new RemoteShard(HOST, server.getPort()));
+      }
+
+      // Remote shards rank like in-process shards
+      final List<String> keys = Arrays.asList("a", "b", "c");
+      try (final ShardCoordinator coordinator = new ShardCoordinator(shards);
+          final ShardCoordinator localCoordinator =
+              ShardCoordinator.createInProcess(documents,
+                  new ShardPartitioner(EShardPartitioning.RANGE, 2))) {
+        final List<Posting> expected = localCoordinator.searchOr(keys, 4);
+        final List<Posting> postings = coordinator.searchOr(keys, 4);
+        Assert.assertEquals(expected.size(), postings.size());
+        for (int i = 0; i < expected.size(); i++) {
+          Assert.assertEquals(expected.get(i).getId(),
+              postings.get(i).getId());
+          Assert.assertEquals(expected.get(i).getScore(),
+              postings.get(i).getScore(), 0);
+        }
+      }
+    } finally {
+      for (final ShardServer server : servers) {
+        server.close();
+      }
+    }
+  }
+}
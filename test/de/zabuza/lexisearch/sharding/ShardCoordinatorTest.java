@@ -0,0 +1,371 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.queries.KeywordQuery;
+import de.zabuza.lexisearch.queries.QueryContext;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Test for {@link ShardCoordinator}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardCoordinatorTest {
+
+  /**
+   * Asserts that the given results of a sharded search are the best results
+   * of a search on a single index holding all records.
+   * 
+   * @param expected
+   *          All results of the search on the single index
+   * @param actual
+   *          The results of the sharded search
+   * @param limit
+   *          The limit of the sharded search
+   */
+  private static void assertSameAsSingleIndex(final List<Posting> expected,
+      final List<Posting> actual, final int limit) {
+    final HashMap<Integer, Posting> idToExpected = new HashMap<>();
+    final ArrayList<Double> expectedScores = new ArrayList<>();
+    for (final Posting posting : expected) {
+      idToExpected.put(Integer.valueOf(posting.getId()), posting);
+      expectedScores.add(Double.valueOf(posting.getScore()));
+    }
+    Collections.sort(expectedScores, Collections.reverseOrder());
+
+    Assert.assertEquals(Math.min(limit, expected.size()), actual.size());
+    for (int i = 0; i < actual.size(); i++) {
+      final Posting posting = actual.get(i);
+      final Posting expectedPosting =
+          idToExpected.get(Integer.valueOf(posting.getId()));
+      Assert.assertNotNull(expectedPosting);
+      Assert.assertEquals(expectedPosting.getScore(), posting.getScore(),
+          1E-9);
+      Assert.assertEquals(expectedScores.get(i).doubleValue(),
+          posting.getScore(), 1E-9);
+    }
+  }
+
+  /**
+   * Creates the documents used by the tests.
+   * 
+   * @return The documents used by the tests
+   */
+  private static DocumentSet createDocuments() {
+    final DocumentSet documents = new DocumentSet();
+    for (int i = 0; i < 200; i++) {
+      documents.add(new Document(i, "w" + (i % 7),
+          "w" + (i % 11) + " w" + (i % 13) + " w" + (i % 5)));
+    }
+    return documents;
+  }
+
+  /**
+   * Test method for {@link ShardCoordinator#close()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testClose() throws IOException {
+    final ArrayList<String> closedShards = new ArrayList<>();
+    final ArrayList<IShard> shards = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      final String name = "shard" + i;
+      final IShard shard = new LocalShard<>(createDocuments());
+      shards.add(new IShard() {
+        @Override
+        public void close() {
+          closedShards.add(name);
+        }
+
+        @Override
+        public CollectionStatistics<String> getCollectionStatistics()
+            throws IOException {
+          return shard.getCollectionStatistics();
+        }
+
+        @Override
+        public List<Posting> search(final List<String> keys,
+            final EAggregateMode mode, final int limit) throws IOException {
+          return shard.search(keys, mode, limit);
+        }
+
+        @Override
+        public void setCollectionStatistics(
+            final CollectionStatistics<String> statistics)
+            throws IOException {
+          shard.setCollectionStatistics(statistics);
+        }
+      });
+    }
+    final ShardCoordinator coordinator = new ShardCoordinator(shards);
+    coordinator.close();
+
+    Assert.assertEquals(Arrays.asList("shard0", "shard1"), closedShards);
+  }
+
+  /**
+   * Test method for
+   * {@link ShardCoordinator#createInProcess(IKeyRecordSet, ShardPartitioner)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateInProcessIKeyRecordSetShardPartitioner()
+      throws IOException {
+    try (final ShardCoordinator coordinator =
+        ShardCoordinator.createInProcess(createDocuments(),
+            new ShardPartitioner(EShardPartitioning.RANGE, 3))) {
+      Assert.assertEquals(3, coordinator.getShards().size());
+      Assert.assertEquals(200,
+          coordinator.getCollectionStatistics().getAmountOfRecords());
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link ShardCoordinator#createInProcess(IKeyRecordSet, ShardPartitioner, java.util.function.Supplier)}
+   * .
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateInProcessIKeyRecordSetShardPartitionerSupplier()
+      throws IOException {
+    final DocumentSet documents = createDocuments();
+    final List<Posting> expected =
+        new KeywordQuery<>(documents, new Bm25Ranking<>(1.2, 0.5))
+            .searchOr(Arrays.asList("w3", "w4"), new QueryContext());
+
+    try (final ShardCoordinator coordinator =
+        ShardCoordinator.createInProcess(documents,
+            new ShardPartitioner(EShardPartitioning.HASH, 4),
+            () -> new Bm25Ranking<>(1.2, 0.5))) {
+      Assert.assertEquals(4, coordinator.getShards().size());
+      assertSameAsSingleIndex(expected,
+          coordinator.searchOr(Arrays.asList("w3", "w4"), 10), 10);
+    }
+  }
+
+  /**
+   * Test method for {@link ShardCoordinator#getCollectionStatistics()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetCollectionStatistics() throws IOException {
+    final DocumentSet documents = createDocuments();
+    final CollectionStatistics<String> expected =
+        new LocalShard<>(documents).getCollectionStatistics();
+
+    try (final ShardCoordinator coordinator =
+        ShardCoordinator.createInProcess(documents,
+            new ShardPartitioner(EShardPartitioning.HASH, 3))) {
+      final CollectionStatistics<String> statistics =
+          coordinator.getCollectionStatistics();
+      Assert.assertEquals(expected.getAmountOfRecords(),
+          statistics.getAmountOfRecords());
+      Assert.assertEquals(expected.getTotalRecordSize(),
+          statistics.getTotalRecordSize());
+      Assert.assertEquals(expected.getKeyRecordFrequencies(),
+          statistics.getKeyRecordFrequencies());
+    }
+  }
+
+  /**
+   * Test method for {@link ShardCoordinator#getShards()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetShards() throws IOException {
+    final IShard shard = new LocalShard<>(createDocuments());
+    try (final ShardCoordinator coordinator =
+        new ShardCoordinator(Arrays.asList(shard))) {
+      Assert.assertEquals(Arrays.asList(shard), coordinator.getShards());
+      try {
+        coordinator.getShards().clear();
+        Assert.fail();
+      } catch (final UnsupportedOperationException e) {
+        // Expected exception
+      }
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link ShardCoordinator#search(List, EAggregateMode, int)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearch() throws IOException {
+    final DocumentSet documents = createDocuments();
+    final KeywordQuery<IKeyRecord<String>> query =
+        new KeywordQuery<>(documents, new Bm25Ranking<>());
+    final List<String> keys = Arrays.asList("w1", "w2");
+
+    for (final EShardPartitioning partitioning : EShardPartitioning
+        .values()) {
+      try (final ShardCoordinator coordinator =
+          ShardCoordinator.createInProcess(documents,
+              new ShardPartitioner(partitioning, 5))) {
+        assertSameAsSingleIndex(
+            query.searchOr(keys, new QueryContext()),
+            coordinator.search(keys, EAggregateMode.UNION, 15), 15);
+        assertSameAsSingleIndex(
+            query.searchAnd(keys, new QueryContext()),
+            coordinator.search(keys, EAggregateMode.INTERSECT, 15), 15);
+        Assert.assertTrue(
+            coordinator.search(keys, EAggregateMode.UNION, 0).isEmpty());
+
+        try {
+          coordinator.search(keys, EAggregateMode.UNION, -1);
+          Assert.fail();
+        } catch (final IllegalArgumentException e) {
+          // Expected exception
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link ShardCoordinator#searchAnd(List, int)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchAnd() throws IOException {
+    final DocumentSet documents = createDocuments();
+    final List<String> keys = Arrays.asList("w0", "w3");
+    final List<Posting> expected =
+        new KeywordQuery<>(documents, new Bm25Ranking<>()).searchAnd(keys,
+            new QueryContext());
+
+    try (final ShardCoordinator coordinator =
+        ShardCoordinator.createInProcess(documents,
+            new ShardPartitioner(EShardPartitioning.HASH, 3))) {
+      assertSameAsSingleIndex(expected, coordinator.searchAnd(keys, 1000),
+          1000);
+      Assert.assertTrue(
+          coordinator.searchAnd(Arrays.asList("w0", "x"), 5).isEmpty());
+    }
+  }
+
+  /**
+   * Test method for {@link ShardCoordinator#searchOr(List, int)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSearchOr() throws IOException {
+    final DocumentSet documents = createDocuments();
+    final List<String> keys = Arrays.asList("w6", "w12");
+    final List<Posting> expected =
+        new KeywordQuery<>(documents, new Bm25Ranking<>()).searchOr(keys,
+            new QueryContext());
+
+    try (final ShardCoordinator coordinator =
+        ShardCoordinator.createInProcess(documents,
+            new ShardPartitioner(EShardPartitioning.RANGE, 3))) {
+      assertSameAsSingleIndex(expected, coordinator.searchOr(keys, 5), 5);
+      Assert.assertTrue(
+          coordinator.searchOr(Arrays.asList("x"), 5).isEmpty());
+    }
+  }
+
+  /**
+   * Test method for {@link ShardCoordinator#ShardCoordinator(List)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testShardCoordinator() throws IOException {
+    final List<IKeyRecordSet<IKeyRecord<String>, String>> partitions =
+        new ShardPartitioner(EShardPartitioning.HASH, 2)
+            .partition(createDocuments());
+    final LocalShard<IKeyRecord<String>> firstShard =
+        new LocalShard<>(partitions.get(0));
+    final LocalShard<IKeyRecord<String>> secondShard =
+        new LocalShard<>(partitions.get(1));
+    try (final ShardCoordinator coordinator =
+        new ShardCoordinator(Arrays.asList(firstShard, secondShard))) {
+      // The shards rank with the statistics of the whole collection
+      Assert.assertEquals(200,
+          coordinator.getCollectionStatistics().getAmountOfRecords());
+    }
+
+    try {
+      new ShardCoordinator(Collections.<IShard> emptyList());
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+
+    final IShard failingShard = new IShard() {
+      @Override
+      public void close() {
+        // Nothing to close
+      }
+
+      @Override
+      public CollectionStatistics<String> getCollectionStatistics()
+          throws IOException {
+        throw new IOException();
+      }
+
+      @Override
+      public List<Posting> search(final List<String> keys,
+          final EAggregateMode mode, final int limit) {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public void setCollectionStatistics(
+          final CollectionStatistics<String> statistics) {
+        // Statistics are not used
+      }
+    };
+    try {
+      new ShardCoordinator(Arrays.asList(secondShard, failingShard));
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected exception
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.IKeyRecordSet;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+
+/**
+ * Test for {@link ShardPartitioner}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardPartitionerTest {
+
+  /**
+   * Test method for {@link ShardPartitioner#getAmountOfShards()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetAmountOfShards() {
+    Assert.assertEquals(3, new ShardPartitioner(EShardPartitioning.HASH, 3)
+        .getAmountOfShards());
+    Assert.assertEquals(1, new ShardPartitioner(EShardPartitioning.RANGE, 1)
+        .getAmountOfShards());
+  }
+
+  /**
+   * Test method for {@link ShardPartitioner#getPartitioning()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetPartitioning() {
+    Assert.assertEquals(EShardPartitioning.HASH,
+        new ShardPartitioner(EShardPartitioning.HASH, 3).getPartitioning());
+    Assert.assertEquals(EShardPartitioning.RANGE,
+        new ShardPartitioner(EShardPartitioning.RANGE, 3).getPartitioning());
+  }
+
+  /**
+   * Test method for {@link ShardPartitioner#partition(IKeyRecordSet)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPartition() {
+    final DocumentSet documents = new DocumentSet();
+    for (int i = 0; i < 100; i++) {
+      documents.add(new Document(i, "a" + i));
+    }
+
+    for (final EShardPartitioning partitioning : EShardPartitioning
+        .values()) {
+      final List<IKeyRecordSet<IKeyRecord<String>, String>> shards =
+          new ShardPartitioner(partitioning, 4).partition(documents);
+      Assert.assertEquals(4, shards.size());
+
+      // Each record is held by exactly one shard
+      final HashSet<Integer> ids = new HashSet<>();
+      for (final IKeyRecordSet<IKeyRecord<String>, String> shard : shards) {
+        Assert.assertFalse(shard.isEmpty());
+        for (final IKeyRecord<String> record : shard) {
+          Assert.assertTrue(ids.add(Integer.valueOf(record.getRecordId())));
+          Assert.assertSame(record,
+              shard.getKeyRecordById(record.getRecordId()));
+        }
+      }
+      Assert.assertEquals(documents.size(), ids.size());
+    }
+
+    // Ranges hold consecutive ids
+    final List<IKeyRecordSet<IKeyRecord<String>, String>> ranges =
+        new ShardPartitioner(EShardPartitioning.RANGE, 4).partition(documents);
+    Assert.assertEquals(25, ranges.get(0).size());
+    Assert.assertNotNull(ranges.get(0).getKeyRecordById(24));
+    Assert.assertNotNull(ranges.get(3).getKeyRecordById(99));
+
+    final List<IKeyRecordSet<IKeyRecord<String>, String>> single =
+        new ShardPartitioner(EShardPartitioning.HASH, 1).partition(documents);
+    Assert.assertEquals(documents.size(), single.get(0).size());
+  }
+
+  /**
+   * Test method for
+   * {@link ShardPartitioner#ShardPartitioner(EShardPartitioning, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testShardPartitioner() {
+    final ShardPartitioner partitioner =
+        new ShardPartitioner(EShardPartitioning.RANGE, 2);
+    Assert.assertEquals(EShardPartitioning.RANGE,
+        partitioner.getPartitioning());
+    Assert.assertEquals(2, partitioner.getAmountOfShards());
+
+    try {
+      new ShardPartitioner(EShardPartitioning.HASH, 0);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Test for {@link ShardProtocol}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardProtocolTest {
+
+  /**
+   * Creates a stream which reads the given written data.
+   * 
+   * @param bytes
+   *          The written data
+   * @return A stream which reads the written data
+   */
+  private static DataInputStream read(final ByteArrayOutputStream bytes) {
+    return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+  /**
+   * Test method for {@link ShardProtocol#readKeys(DataInputStream)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testReadKeys() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(-1);
+
+    try {
+      ShardProtocol.readKeys(read(bytes));
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected exception
+    }
+
+    // A malformed size must not allocate the announced capacity
+    final ByteArrayOutputStream hugeBytes = new ByteArrayOutputStream();
+    final DataOutputStream hugeOutput = new DataOutputStream(hugeBytes);
+    hugeOutput.writeInt(Integer.MAX_VALUE);
+    hugeOutput.writeUTF("a");
+    try {
+      ShardProtocol.readKeys(read(hugeBytes));
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link ShardProtocol#readPostings(DataInputStream)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testReadPostings() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(2);
+    output.writeInt(1);
+
+    try {
+      ShardProtocol.readPostings(read(bytes));
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected exception
+    }
+
+    // A malformed size must not allocate the announced capacity
+    final ByteArrayOutputStream hugeBytes = new ByteArrayOutputStream();
+    new DataOutputStream(hugeBytes).writeInt(Integer.MAX_VALUE);
+    try {
+      ShardProtocol.readPostings(read(hugeBytes));
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link ShardProtocol#readStatistics(DataInputStream)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testReadStatistics() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(bytes);
+    output.writeLong(-1);
+    output.writeLong(0);
+    output.writeInt(0);
+
+    try {
+      ShardProtocol.readStatistics(read(bytes));
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected exception
+    }
+
+    // Malformed sizes are reported as failure of the stream, the capacity of
+    // the announced size would overflow
+    for (final int amountOfKeys : new int[] { Integer.MAX_VALUE, -2 }) {
+      final ByteArrayOutputStream malformedBytes = new ByteArrayOutputStream();
+      final DataOutputStream malformedOutput =
+          new DataOutputStream(malformedBytes);
+      malformedOutput.writeLong(1);
+      malformedOutput.writeLong(1);
+      malformedOutput.writeInt(amountOfKeys);
+      try {
+        ShardProtocol.readStatistics(read(malformedBytes));
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link ShardProtocol#writeKeys(DataOutputStream, List)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWriteKeys() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final List<String> keys = Arrays.asList("a", "", "k\u00F6ln");
+    ShardProtocol.writeKeys(new DataOutputStream(bytes), keys);
+
+    Assert.assertEquals(keys, ShardProtocol.readKeys(read(bytes)));
+  }
+
+  /**
+   * Test method for
+   * {@link ShardProtocol#writePostings(DataOutputStream, List)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWritePostings() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final List<Posting> postings =
+        Arrays.asList(new Posting(4, 2, 1.25), new Posting(1, 1, -0.5));
+    ShardProtocol.writePostings(new DataOutputStream(bytes), postings);
+
+    final List<Posting> readPostings = ShardProtocol.readPostings(read(bytes));
+    Assert.assertEquals(postings.size(), readPostings.size());
+    for (int i = 0; i < postings.size(); i++) {
+      Assert.assertEquals(postings.get(i).getId(),
+          readPostings.get(i).getId());
+      Assert.assertEquals(postings.get(i).getTermFrequency(),
+          readPostings.get(i).getTermFrequency());
+      Assert.assertEquals(postings.get(i).getScore(),
+          readPostings.get(i).getScore(), 0);
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link ShardProtocol#writeStatistics(DataOutputStream, CollectionStatistics)}
+   * .
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWriteStatistics() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final HashMap<String, Integer> keyRecordFrequencies = new HashMap<>();
+    keyRecordFrequencies.put("a", Integer.valueOf(3));
+    keyRecordFrequencies.put("b", Integer.valueOf(1));
+    ShardProtocol.writeStatistics(new DataOutputStream(bytes),
+        new CollectionStatistics<>(5, 17, keyRecordFrequencies));
+
+    final CollectionStatistics<String> statistics =
+        ShardProtocol.readStatistics(read(bytes));
+    Assert.assertEquals(5, statistics.getAmountOfRecords());
+    Assert.assertEquals(17, statistics.getTotalRecordSize());
+    Assert.assertEquals(keyRecordFrequencies,
+        statistics.getKeyRecordFrequencies());
+  }
+}
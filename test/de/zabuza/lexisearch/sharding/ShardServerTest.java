@@ -0,0 +1,215 @@
+package de.zabuza.lexisearch.sharding;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.EAggregateMode;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.model.document.Document;
+import de.zabuza.lexisearch.model.document.DocumentSet;
+import de.zabuza.lexisearch.ranking.CollectionStatistics;
+
+/**
+ * Test for {@link ShardServer}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class ShardServerTest {
+  /**
+   * The host the servers of the tests are reached at.
+   */
+  private static final String HOST = "localhost";
+
+  /**
+   * Creates a shard used by the tests.
+   * 
+   * @return The shard used by the tests
+   */
+  private static LocalShard<IKeyRecord<String>> createShard() {
+    final DocumentSet documents = new DocumentSet();
+    documents.add(new Document(0, "a", "b"));
+    documents.add(new Document(1, "b", "c c"));
+    return new LocalShard<>(documents);
+  }
+
+  /**
+   * Test method for {@link ShardServer#close()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testClose() throws IOException {
+    final ShardServer server = new ShardServer(createShard(), 0);
+    server.start();
+    final RemoteShard shard = new RemoteShard(HOST, server.getPort());
+    try {
+      Assert.assertEquals(2,
+          shard.getCollectionStatistics().getAmountOfRecords());
+      server.close();
+
+      // Open connections are closed by the server
+      try {
+        shard.getCollectionStatistics();
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    } finally {
+      shard.close();
+    }
+  }
+
+  /**
+   * Test method for {@link ShardServer#getAddress()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetAddress() throws IOException {
+    // Other machines can not reach the server by default
+    try (final ShardServer server = new ShardServer(createShard(), 0)) {
+      Assert.assertTrue(server.getAddress().isLoopbackAddress());
+    }
+
+    final InetAddress address = InetAddress.getLoopbackAddress();
+    try (final ShardServer server =
+        new ShardServer(createShard(), 0, address)) {
+      Assert.assertEquals(address, server.getAddress());
+      server.start();
+      try (final RemoteShard shard =
+          new RemoteShard(address.getHostAddress(), server.getPort())) {
+        Assert.assertEquals(2,
+            shard.getCollectionStatistics().getAmountOfRecords());
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link ShardServer#getPort()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetPort() throws IOException {
+    try (final ShardServer server = new ShardServer(createShard(), 0)) {
+      Assert.assertTrue(server.getPort() > 0);
+    }
+  }
+
+  /**
+   * Test method for {@link ShardServer#ShardServer(IShard, int)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testShardServer() throws IOException {
+    final IShard failingShard = new IShard() {
+      @Override
+      public void close() {
+        // Nothing to close
+      }
+
+      @Override
+      public CollectionStatistics<String> getCollectionStatistics()
+          throws IOException {
+        throw new IOException("unavailable");
+      }
+
+      @Override
+      public List<Posting> search(final List<String> keys,
+          final EAggregateMode mode, final int limit) {
+        return Collections.singletonList(new Posting(3, 1, 0.5));
+      }
+
+      @Override
+      public void setCollectionStatistics(
+          final CollectionStatistics<String> statistics) {
+        throw new IllegalArgumentException();
+      }
+    };
+
+    try (final ShardServer server = new ShardServer(failingShard, 0)) {
+      server.start();
+      try (final RemoteShard shard = new RemoteShard(HOST, server.getPort())) {
+        // Failures of the shard are reported to the client
+        try {
+          shard.getCollectionStatistics();
+          Assert.fail();
+        } catch (final IOException e) {
+          Assert.assertTrue(e.getMessage().contains("unavailable"));
+        }
+        try {
+          shard.setCollectionStatistics(new CollectionStatistics<>(0, 0,
+              Collections.<String, Integer> emptyMap()));
+          Assert.fail();
+        } catch (final IOException e) {
+          // Expected exception
+        }
+
+        // The connection stays usable
+        final List<Posting> postings =
+            shard.search(Arrays.asList("a"), EAggregateMode.UNION, 1);
+        Assert.assertEquals(1, postings.size());
+        Assert.assertEquals(3, postings.get(0).getId());
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link ShardServer#start()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testStart() throws IOException {
+    try (final ShardServer server = new ShardServer(createShard(), 0)) {
+      server.start();
+
+      try (final RemoteShard firstShard =
+          new RemoteShard(HOST, server.getPort());
+          final RemoteShard secondShard =
+              new RemoteShard(HOST, server.getPort())) {
+        Assert.assertEquals(
+            firstShard.getCollectionStatistics().getKeyRecordFrequencies(),
+            secondShard.getCollectionStatistics().getKeyRecordFrequencies());
+      }
+
+      // Unknown requests end the connection
+      try (final Socket socket = new Socket(HOST, server.getPort())) {
+        final DataOutputStream output =
+            new DataOutputStream(socket.getOutputStream());
+        final DataInputStream input =
+            new DataInputStream(socket.getInputStream());
+        output.writeInt(ShardProtocol.MAGIC_NUMBER);
+        output.writeInt(ShardProtocol.PROTOCOL_VERSION);
+        output.writeByte(99);
+        output.flush();
+
+        Assert.assertEquals(ShardProtocol.STATUS_FAILURE, input.readByte());
+        input.readUTF();
+        Assert.assertEquals(-1, input.read());
+      }
+    }
+  }
+}
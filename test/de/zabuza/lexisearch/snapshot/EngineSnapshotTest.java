@@ -0,0 +1,295 @@
+package de.zabuza.lexisearch.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.zabuza.lexisearch.indexing.IInvertedIndex;
+import de.zabuza.lexisearch.indexing.IKeyRecord;
+import de.zabuza.lexisearch.indexing.Posting;
+import de.zabuza.lexisearch.indexing.qgram.QGramProvider;
+import de.zabuza.lexisearch.model.city.City;
+import de.zabuza.lexisearch.model.city.CitySet;
+import de.zabuza.lexisearch.queries.FuzzyPrefixQuery;
+import de.zabuza.lexisearch.ranking.Bm25Ranking;
+import de.zabuza.lexisearch.ranking.IRankingProvider;
+import de.zabuza.lexisearch.ranking.PostingBeforeRecordRanking;
+
+/**
+ * Test for {@link EngineSnapshot}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class EngineSnapshotTest {
+
+  /**
+   * Creates a snapshot of a small set of cities loaded from the given file.
+   * 
+   * @param sourceFile
+   *          The file to load the cities from
+   * @return The snapshot of the cities
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static EngineSnapshot createSnapshot(final File sourceFile)
+      throws IOException {
+    return createSnapshot(sourceFile, new PostingBeforeRecordRanking<>());
+  }
+
+  /**
+   * Creates a snapshot of a small set of cities loaded from the given file,
+   * ranked by the given ranking provider.
+   * 
+   * @param sourceFile
+   *          The file to load the cities from
+   * @param ranking
+   *          The ranking provider of the query to take the snapshot of
+   * @return The snapshot of the cities
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static EngineSnapshot createSnapshot(final File sourceFile,
+      final IRankingProvider<String> ranking) throws IOException {
+    Files.write(sourceFile.toPath(),
+        ("Football\t3\t1.5\t2.5\nfoobar\t1\t-3.0\t4.0\n"
+            + "M\u00FCnchen\t2\t48.1\t11.6\n")
+                .getBytes(StandardCharsets.UTF_8));
+    final QGramProvider provider = new QGramProvider(3, '#');
+    final CitySet cities = CitySet.buildFromTsvFile(sourceFile, provider);
+    final FuzzyPrefixQuery<IKeyRecord<String>> query =
+        new FuzzyPrefixQuery<>(cities, provider, ranking);
+    return new EngineSnapshot(sourceFile, cities, provider, query);
+  }
+
+  /**
+   * Test method for {@link EngineSnapshot#buildFromFile(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testBuildFromFile() throws IOException {
+    final Path sourcePath = Files.createTempFile("cities", ".tsv");
+    final Path snapshotPath = Files.createTempFile("cities", ".snapshot");
+    try {
+      final EngineSnapshot snapshot = createSnapshot(sourcePath.toFile());
+      snapshot.writeToFile(snapshotPath.toFile());
+      final EngineSnapshot restoredSnapshot =
+          EngineSnapshot.buildFromFile(snapshotPath.toFile());
+
+      // Provider and cities
+      Assert.assertEquals(3, restoredSnapshot.getProvider().getQParameter());
+      Assert.assertEquals('#',
+          restoredSnapshot.getProvider().getPaddingCharacter());
+      Assert.assertEquals(3, restoredSnapshot.getCities().size());
+      final City city =
+          (City) restoredSnapshot.getCities().getKeyRecordById(2);
+      Assert.assertEquals("M\u00FCnchen", city.getName());
+      Assert.assertEquals(48.1f, city.getLatitude(), 0);
+      Assert.assertEquals(11.6f, city.getLongitude(), 0);
+      Assert.assertEquals(2, city.getScore());
+      Assert.assertArrayEquals(
+          snapshot.getCities().getKeyRecordById(2).getKeys(), city.getKeys());
+
+      // Index
+      final IInvertedIndex<String> index = snapshot.getInvertedIndex();
+      final IInvertedIndex<String> restoredIndex =
+          restoredSnapshot.getInvertedIndex();
+      for (final String key : index.getKeys()) {
+        Assert.assertEquals(index.getRecords(key).getSize(),
+            restoredIndex.getRecords(key).getSize());
+        for (final Posting posting : index.getRecords(key).getPostings()) {
+          final Posting restoredPosting =
+              restoredIndex.getRecords(key).getPosting(posting.getId());
+          Assert.assertEquals(posting.getTermFrequency(),
+              restoredPosting.getTermFrequency());
+          Assert.assertEquals(posting.getScore(), restoredPosting.getScore(),
+              0);
+        }
+      }
+
+      // Corrupted payload
+      try (final RandomAccessFile file =
+          new RandomAccessFile(snapshotPath.toFile(), "rw")) {
+        file.seek(file.length() - 1);
+        final int lastByte = file.read();
+        file.seek(file.length() - 1);
+        file.write(lastByte ^ 1);
+      }
+      try {
+        EngineSnapshot.buildFromFile(snapshotPath.toFile());
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+
+      // Unsupported format version
+      snapshot.writeToFile(snapshotPath.toFile());
+      try (final RandomAccessFile file =
+          new RandomAccessFile(snapshotPath.toFile(), "rw")) {
+        file.seek(Integer.BYTES);
+        file.writeInt(EngineSnapshot.FORMAT_VERSION + 1);
+      }
+      try {
+        EngineSnapshot.buildFromFile(snapshotPath.toFile());
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+
+      // No snapshot at all
+      try {
+        EngineSnapshot.buildFromFile(sourcePath.toFile());
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(sourcePath);
+      Files.delete(snapshotPath);
+    }
+  }
+
+  /**
+   * Test method for {@link EngineSnapshot#createQuery()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCreateQuery() throws IOException {
+    final Path sourcePath = Files.createTempFile("cities", ".tsv");
+    final Path snapshotPath = Files.createTempFile("cities", ".snapshot");
+    try {
+      final List<IRankingProvider<String>> rankings =
+          Arrays.asList(new PostingBeforeRecordRanking<>(),
+              new Bm25Ranking<>(1.5, 0.5));
+      for (final IRankingProvider<String> ranking : rankings) {
+        final EngineSnapshot snapshot =
+            createSnapshot(sourcePath.toFile(), ranking);
+        snapshot.writeToFile(snapshotPath.toFile());
+        final EngineSnapshot restoredSnapshot =
+            EngineSnapshot.buildFromFile(snapshotPath.toFile());
+
+        // The restored ranking neither takes a snapshot nor sets scores again
+        final long modificationCount =
+            restoredSnapshot.getInvertedIndex().getModificationCount();
+        final FuzzyPrefixQuery<IKeyRecord<String>> restoredQuery =
+            restoredSnapshot.createQuery();
+        Assert.assertEquals(modificationCount,
+            restoredSnapshot.getInvertedIndex().getModificationCount());
+        Assert.assertSame(restoredSnapshot.getRankingProvider().get(),
+            restoredQuery.getRankingProvider().get());
+
+        final List<String> keywords = Arrays.asList("fotb");
+        final List<Posting> results =
+            snapshot.createQuery().searchOr(keywords);
+        final List<Posting> restoredResults = restoredQuery.searchOr(keywords);
+        Assert.assertFalse(results.isEmpty());
+        Assert.assertEquals(results.size(), restoredResults.size());
+        for (int i = 0; i < results.size(); i++) {
+          Assert.assertEquals(results.get(i).getId(),
+              restoredResults.get(i).getId());
+          Assert.assertEquals(results.get(i).getScore(),
+              restoredResults.get(i).getScore(), 0);
+        }
+      }
+    } finally {
+      Files.delete(sourcePath);
+      Files.delete(snapshotPath);
+    }
+  }
+
+  /**
+   * Test method for {@link EngineSnapshot#getRankingProvider()}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetRankingProvider() throws IOException {
+    final Path sourcePath = Files.createTempFile("cities", ".tsv");
+    final Path snapshotPath = Files.createTempFile("cities", ".snapshot");
+    try {
+      // Statistics and configuration of the ranking are restored
+      final Bm25Ranking<String> ranking = new Bm25Ranking<>(1.5, 0.5);
+      createSnapshot(sourcePath.toFile(), ranking)
+          .writeToFile(snapshotPath.toFile());
+      final Bm25Ranking<String> restoredRanking =
+          (Bm25Ranking<String>) EngineSnapshot
+              .buildFromFile(snapshotPath.toFile()).getRankingProvider()
+              .get();
+      Assert.assertEquals(1.5, restoredRanking.getKParameter(), 0);
+      Assert.assertEquals(0.5, restoredRanking.getBParameter(), 0);
+      Assert.assertEquals(ranking.getAverageRecordSize(),
+          restoredRanking.getAverageRecordSize(), 0);
+      for (int id = 0; id < 3; id++) {
+        Assert.assertEquals(ranking.getRecordSize(id),
+            restoredRanking.getRecordSize(id));
+      }
+      for (final String key : ranking.getInvertedIndex().getKeys()) {
+        Assert.assertEquals(ranking.getIdf(key), restoredRanking.getIdf(key),
+            0);
+      }
+
+      final PostingBeforeRecordRanking<String> scoreRanking =
+          new PostingBeforeRecordRanking<>();
+      createSnapshot(sourcePath.toFile(), scoreRanking)
+          .writeToFile(snapshotPath.toFile());
+      final PostingBeforeRecordRanking<String> restoredScoreRanking =
+          (PostingBeforeRecordRanking<String>) EngineSnapshot
+              .buildFromFile(snapshotPath.toFile()).getRankingProvider()
+              .get();
+      for (int id = 0; id < 3; id++) {
+        Assert.assertTrue(restoredScoreRanking.hasRecordScore(id));
+        Assert.assertEquals(scoreRanking.getRecordScore(id),
+            restoredScoreRanking.getRecordScore(id));
+      }
+    } finally {
+      Files.delete(sourcePath);
+      Files.delete(snapshotPath);
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link EngineSnapshot#isCompatibleWith(File, QGramProvider)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIsCompatibleWith() throws IOException {
+    final Path sourcePath = Files.createTempFile("cities", ".tsv");
+    try {
+      final EngineSnapshot snapshot = createSnapshot(sourcePath.toFile());
+      final File sourceFile = sourcePath.toFile();
+      Assert.assertTrue(
+          snapshot.isCompatibleWith(sourceFile, new QGramProvider(3, '#')));
+      Assert.assertFalse(
+          snapshot.isCompatibleWith(sourceFile, new QGramProvider(2, '#')));
+      Assert.assertFalse(
+          snapshot.isCompatibleWith(sourceFile, new QGramProvider(3)));
+
+      Files.write(sourcePath, "Berlin\t1\t52.5\t13.4\n"
+          .getBytes(StandardCharsets.UTF_8));
+      Assert.assertFalse(
+          snapshot.isCompatibleWith(sourceFile, new QGramProvider(3, '#')));
+    } finally {
+      Files.delete(sourcePath);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package de.zabuza.lexisearch.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LineOffsetTable}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class LineOffsetTableTest {
+
+  /**
+   * Test method for {@link LineOffsetTable#forFile(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testForFile() throws IOException {
+    final Path file = Files.createTempFile("lines", ".txt");
+    final File sidecarFile = LineOffsetTable.getSidecarFile(file.toFile());
+    try {
+      Files.write(file, "a\nbb\n".getBytes(StandardCharsets.UTF_8));
+      file.toFile().setLastModified(1_000_000L);
+      final LineOffsetTable table = LineOffsetTable.forFile(file.toFile());
+      Assert.assertEquals(2, table.getAmountOfLines());
+      Assert.assertTrue(sidecarFile.isFile());
+
+      // The sidecar is used as long as it matches the file
+      final LineOffsetTable cachedTable =
+          LineOffsetTable.forFile(file.toFile());
+      Assert.assertArrayEquals(table.getLineStarts(),
+          cachedTable.getLineStarts());
+
+      // A modified file is scanned again
+      Files.write(file, "a\r\nbb\r\nc".getBytes(StandardCharsets.UTF_8));
+      file.toFile().setLastModified(2_000_000L);
+      final LineOffsetTable changedTable =
+          LineOffsetTable.forFile(file.toFile());
+      Assert.assertEquals(3, changedTable.getAmountOfLines());
+      Assert.assertEquals(7, changedTable.getLineStart(2));
+      Assert.assertEquals(3, LineOffsetTable.readSidecar(sidecarFile)
+          .getAmountOfLines());
+
+      // A damaged sidecar is replaced
+      Files.write(sidecarFile.toPath(),
+          "damaged".getBytes(StandardCharsets.UTF_8));
+      Assert.assertEquals(3,
+          LineOffsetTable.forFile(file.toFile()).getAmountOfLines());
+      Assert.assertEquals(3, LineOffsetTable.readSidecar(sidecarFile)
+          .getAmountOfLines());
+    } finally {
+      Files.deleteIfExists(sidecarFile.toPath());
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link LineOffsetTable#readSidecar(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testReadSidecar() throws IOException {
+    final Path file = Files.createTempFile("lines", ".offsets");
+    try {
+      Files.write(file, new byte[40]);
+      try {
+        LineOffsetTable.readSidecar(file.toFile());
+        Assert.fail();
+      } catch (final IOException e) {
+        // Expected exception
+      }
+
+      // A table whose header matches but whose line starts are not ascending
+      final Path textFile = Files.createTempFile("lines", ".txt");
+      try {
+        Files.write(textFile, "a\nbb\nc".getBytes(StandardCharsets.UTF_8));
+        LineOffsetTable.scan(textFile.toFile()).writeSidecar(file.toFile());
+        Assert.assertArrayEquals(new long[] { 0, 2, 5, 6 },
+            LineOffsetTable.readSidecar(file.toFile()).getLineStarts());
+
+        final byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putLong(content.length - 3 * Long.BYTES, 5);
+        Files.write(file, content);
+        try {
+          LineOffsetTable.readSidecar(file.toFile());
+          Assert.fail();
+        } catch (final IOException e) {
+          // Expected exception
+        }
+      } finally {
+        Files.delete(textFile);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link LineOffsetTable#scan(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testScan() throws IOException {
+    final Path file = Files.createTempFile("lines", ".txt");
+    try {
+      final LineOffsetTable emptyTable = LineOffsetTable.scan(file.toFile());
+      Assert.assertEquals(0, emptyTable.getAmountOfLines());
+      Assert.assertEquals(0, emptyTable.getLineStart(0));
+
+      Files.write(file,
+          "K\u00F6ln\r\n\r\nBerlin\nBonn".getBytes(StandardCharsets.UTF_8));
+      final LineOffsetTable table = LineOffsetTable.scan(file.toFile());
+      Assert.assertEquals(4, table.getAmountOfLines());
+      Assert.assertArrayEquals(new long[] { 0, 7, 9, 16, 20 },
+          table.getLineStarts());
+      Assert.assertEquals(20, table.getSourceSize());
+
+      try {
+        table.getLineStart(5);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link LineOffsetTable#writeSidecar(File)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testWriteSidecar() throws IOException {
+    final Path file = Files.createTempFile("lines", ".txt");
+    final Path sidecarFile = Files.createTempFile("lines", ".offsets");
+    try {
+      Files.write(file, "first\nsecond\n".getBytes(StandardCharsets.UTF_8));
+      final LineOffsetTable table = LineOffsetTable.scan(file.toFile());
+      table.writeSidecar(sidecarFile.toFile());
+
+      final LineOffsetTable readTable =
+          LineOffsetTable.readSidecar(sidecarFile.toFile());
+      Assert.assertArrayEquals(new long[] { 0, 6, 13 },
+          readTable.getLineStarts());
+      Assert.assertEquals(table.getSourceSize(), readTable.getSourceSize());
+      Assert.assertEquals(table.getSourceLastModified(),
+          readTable.getSourceLastModified());
+    } finally {
+      Files.delete(sidecarFile);
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package de.zabuza.lexisearch.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LruCache}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class LruCacheTest {
+
+  /**
+   * Test method for {@link LruCache#get(Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGet() {
+    final LruCache<String, Integer> cache = new LruCache<>(2);
+    Assert.assertNull(cache.get("a"));
+    cache.put("a", Integer.valueOf(1));
+    Assert.assertEquals(1, cache.get("a").intValue());
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+
+    cache.invalidateAll();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertNull(cache.get("a"));
+    Assert.assertEquals(2, cache.getMissCount());
+  }
+
+  /**
+   * Test method for {@link LruCache#LruCache(int)}.
+   */
+  @SuppressWarnings({ "static-method", "unused" })
+  @Test
+  public void testLruCache() {
+    Assert.assertEquals(3, new LruCache<String, String>(3).getMaximumSize());
+    try {
+      new LruCache<String, String>(0);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for {@link LruCache#put(Object, Object)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testPut() {
+    final LruCache<String, Integer> cache = new LruCache<>(2);
+    cache.put("a", Integer.valueOf(1));
+    cache.put("b", Integer.valueOf(2));
+    // Access makes "a" the most recently used entry
+    cache.get("a");
+    cache.put("c", Integer.valueOf(3));
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNull(cache.get("b"));
+    Assert.assertEquals(1, cache.get("a").intValue());
+    Assert.assertEquals(3, cache.get("c").intValue());
+
+    cache.put("a", Integer.valueOf(4));
+    Assert.assertEquals(4, cache.get("a").intValue());
+    Assert.assertEquals(2, cache.size());
+
+    try {
+      cache.put("d", null);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package de.zabuza.lexisearch.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LzCodec}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class LzCodecTest {
+
+  /**
+   * Compresses and decompresses the given bytes and asserts that the result
+   * equals them.
+   * 
+   * @param input
+   *          The bytes to compress
+   * @return The compressed bytes
+   */
+  private static byte[] assertRoundTrip(final byte[] input) {
+    final byte[] compressed = LzCodec.compress(input, 0, input.length);
+    Assert.assertArrayEquals(input,
+        LzCodec.decompress(compressed, input.length));
+    return compressed;
+  }
+
+  /**
+   * Test method for {@link LzCodec#compress(byte[], int, int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCompress() {
+    assertRoundTrip(new byte[0]);
+    assertRoundTrip(new byte[] { 1, 2, 3 });
+
+    // Repetitive text compresses well, also with long matches and literals
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      text.append("A young wizard fights the dark lord. ");
+    }
+    final byte[] textBytes = text.toString().getBytes(StandardCharsets.UTF_8);
+    final byte[] compressedText = assertRoundTrip(textBytes);
+    Assert.assertTrue(compressedText.length * 10 < textBytes.length);
+
+    // Overlapping matches
+    final byte[] run = new byte[1_000];
+    Arrays.fill(run, (byte) 'a');
+    Assert.assertTrue(assertRoundTrip(run).length < 20);
+
+    // Incompressible data
+    final byte[] random = new byte[70_000];
+    new Random(1).nextBytes(random);
+    assertRoundTrip(random);
+
+    // A range of the input
+    final byte[] compressedRange = LzCodec.compress(textBytes, 7, 100);
+    Assert.assertArrayEquals(Arrays.copyOfRange(textBytes, 7, 107),
+        LzCodec.decompress(compressedRange, 100));
+  }
+
+  /**
+   * Test method for {@link LzCodec#decompress(byte[], int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testDecompress() {
+    final byte[] input = "abcabcabcabc".getBytes(StandardCharsets.UTF_8);
+    final byte[] compressed = LzCodec.compress(input, 0, input.length);
+    Assert.assertArrayEquals(input, LzCodec.decompress(compressed, 12));
+
+    try {
+      LzCodec.decompress(compressed, 11);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      LzCodec.decompress(compressed, 13);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      LzCodec.decompress(Arrays.copyOf(compressed, compressed.length - 1),
+          12);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      // A match which refers to bytes before the start
+      LzCodec.decompress(new byte[] { 0x10, 'a', 5, 0 }, 5);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+}
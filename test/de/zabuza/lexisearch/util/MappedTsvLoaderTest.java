@@ -0,0 +1,187 @@
+package de.zabuza.lexisearch.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link MappedTsvLoader}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class MappedTsvLoaderTest {
+
+  /**
+   * Loads the given text as file, each row gets represented by its line index
+   * and its fields.
+   * 
+   * @param text
+   *          The text to load
+   * @return The representations of the rows
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static List<String> load(final String text) throws IOException {
+    final Path file = Files.createTempFile("tsv", ".tsv");
+    try {
+      Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+      return MappedTsvLoader.load(file,
+          (row, lineIndex) -> lineIndex + ":" + row.toString());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Loads the given text as file, each row gets represented by its first
+   * field after checking it equals the line index.
+   * 
+   * @param text
+   *          The text to load
+   * @return The first fields of the rows
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  private static List<Integer> loadIndices(final CharSequence text)
+      throws IOException {
+    final Path file = Files.createTempFile("tsv", ".tsv");
+    try {
+      Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+      return MappedTsvLoader.load(file, (row, lineIndex) -> {
+        Assert.assertEquals(lineIndex, row.getInt(0));
+        return Integer.valueOf(row.getInt(0));
+      });
+    } finally {
+      Files.delete(file);
+    }
+  }
+  /**
+   * Test method for {@link MappedTsvLoader#countLines(ByteBuffer)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testCountLines() {
+    Assert.assertEquals(0, MappedTsvLoader.countLines(ByteBuffer.allocate(0)));
+    Assert.assertEquals(3, MappedTsvLoader.countLines(
+        ByteBuffer.wrap("a\n\nb".getBytes(StandardCharsets.UTF_8))));
+    Assert.assertEquals(2, MappedTsvLoader.countLines(
+        ByteBuffer.wrap("a\r\nb\n".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  /**
+   * Test method for {@link MappedTsvLoader#forEachRow(Path, ITsvRowConsumer)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testForEachRow() throws IOException {
+    final Path file = Files.createTempFile("tsv", ".tsv");
+    try {
+      final StringBuilder text = new StringBuilder("a\tb\r\n\n");
+      final int amountOfLines = 20_000;
+      for (int i = 2; i < amountOfLines; i++) {
+        text.append(i).append('\t').append("line").append('\n');
+      }
+      Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+      // Rows are consumed in the order of the lines
+      final ArrayList<Integer> lineIndices = new ArrayList<>();
+      MappedTsvLoader.forEachRow(file, (row, lineIndex) -> {
+        if (lineIndex == 0) {
+          Assert.assertEquals("[a, b]", row.toString());
+        } else {
+          Assert.assertEquals(lineIndex, row.getInt(0));
+        }
+        lineIndices.add(Integer.valueOf(lineIndex));
+      });
+      Assert.assertEquals(amountOfLines - 1, lineIndices.size());
+      Assert.assertEquals(0, lineIndices.get(0).intValue());
+      for (int i = 1; i < lineIndices.size(); i++) {
+        Assert.assertEquals(i + 1, lineIndices.get(i).intValue());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test method for {@link MappedTsvLoader#load(Path, ITsvRowParser)}.
+   * 
+   * @throws IOException
+   *           If an I/O-Exception occurred
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testLoad() throws IOException {
+    Assert.assertTrue(load("").isEmpty());
+
+    final List<String> rows = load("a\tb\r\n\nc\n\r\nd\te\tf");
+    Assert.assertEquals(3, rows.size());
+    Assert.assertEquals("0:[a, b]", rows.get(0));
+    Assert.assertEquals("2:[c]", rows.get(1));
+    Assert.assertEquals("4:[d, e, f]", rows.get(2));
+
+    // Many lines are split into several chunks
+    final StringBuilder text = new StringBuilder();
+    final int amountOfLines = 20_000;
+    for (int i = 0; i < amountOfLines; i++) {
+      text.append(i).append('\t').append(i % 7 == 0 ? "x" : "long line")
+          .append('\n');
+    }
+    final List<Integer> lineIndices = MappedTsvLoaderTest.loadIndices(text);
+    Assert.assertEquals(amountOfLines, lineIndices.size());
+    for (int i = 0; i < amountOfLines; i++) {
+      Assert.assertEquals(i, lineIndices.get(i).intValue());
+    }
+
+    try {
+      loadIndices("0\nb");
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link MappedTsvLoader#parseChunk(ByteBuffer, int, ITsvRowParser)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testParseChunk() {
+    final ByteBuffer chunk = ByteBuffer
+        .wrap("a\tb\r\n\nc\n".getBytes(StandardCharsets.UTF_8));
+    final List<String> rows = MappedTsvLoader.parseChunk(chunk, 5,
+        (row, lineIndex) -> lineIndex + ":" + row.toString());
+    Assert.assertEquals(2, rows.size());
+    Assert.assertEquals("5:[a, b]", rows.get(0));
+    Assert.assertEquals("7:[c]", rows.get(1));
+  }
+
+  /**
+   * Test method for
+   * {@link MappedTsvLoader#scanChunk(ByteBuffer, int, ITsvRowConsumer)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testScanChunk() {
+    final ByteBuffer chunk =
+        ByteBuffer.wrap("a\tb\r\n\nc".getBytes(StandardCharsets.UTF_8));
+    final ArrayList<String> rows = new ArrayList<>();
+    Assert.assertEquals(8, MappedTsvLoader.scanChunk(chunk, 5,
+        (row, lineIndex) -> rows.add(lineIndex + ":" + row.toString())));
+    Assert.assertEquals(2, rows.size());
+    Assert.assertEquals("5:[a, b]", rows.get(0));
+    Assert.assertEquals("7:[c]", rows.get(1));
+  }
+}
@@ -0,0 +1,55 @@
+package de.zabuza.lexisearch.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link RadixSort}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class RadixSortTest {
+
+  /**
+   * Test method for {@link RadixSort#sort(long[], int[])}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testSort() {
+    final long[] keys = { 5L, 1L << 40, 3L, 5L, 0L, 3L, 1L << 40 };
+    final int[] values = { 0, 1, 2, 3, 4, 5, 6 };
+    RadixSort.sort(keys, values);
+    Assert.assertArrayEquals(
+        new long[] { 0L, 3L, 3L, 5L, 5L, 1L << 40, 1L << 40 }, keys);
+    // Equal keys keep the order of their values
+    Assert.assertArrayEquals(new int[] { 4, 2, 5, 0, 3, 1, 6 }, values);
+
+    final Random random = new Random(7);
+    final long[] randomKeys = new long[1000];
+    final int[] randomValues = new int[randomKeys.length];
+    for (int i = 0; i < randomKeys.length; i++) {
+      randomKeys[i] = random.nextLong() & Long.MAX_VALUE;
+      randomValues[i] = i;
+    }
+    final long[] originalKeys = randomKeys.clone();
+    final long[] expectedKeys = randomKeys.clone();
+    Arrays.sort(expectedKeys);
+    RadixSort.sort(randomKeys, randomValues);
+    Assert.assertArrayEquals(expectedKeys, randomKeys);
+    for (int i = 0; i < randomKeys.length; i++) {
+      Assert.assertEquals(originalKeys[randomValues[i]], randomKeys[i]);
+    }
+
+    RadixSort.sort(new long[0], new int[0]);
+    try {
+      RadixSort.sort(new long[1], new int[2]);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected exception
+    }
+  }
+}
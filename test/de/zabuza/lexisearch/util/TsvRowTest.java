@@ -0,0 +1,121 @@
+package de.zabuza.lexisearch.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link TsvRow}.
+ * 
+ * @author Zabuza {@literal <zabuza.dev@gmail.com>}
+ *
+ */
+public final class TsvRowTest {
+
+  /**
+   * Creates a row view on the given text.
+   * 
+   * @param text
+   *          The text of the row
+   * @return The row view on the text
+   */
+  private static TsvRow createRow(final String text) {
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    final TsvRow row = new TsvRow(ByteBuffer.wrap(bytes));
+    row.setBounds(0, bytes.length);
+    return row;
+  }
+
+  /**
+   * Test method for {@link TsvRow#getAmountOfFields()}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetAmountOfFields() {
+    Assert.assertEquals(1, createRow("").getAmountOfFields());
+    Assert.assertEquals(3, createRow("a\t\tb").getAmountOfFields());
+    Assert.assertEquals(2, createRow("a\t").getAmountOfFields());
+    Assert.assertEquals(12,
+        createRow("1\t2\t3\t4\t5\t6\t7\t8\t9\t10\t11\t12")
+            .getAmountOfFields());
+  }
+
+  /**
+   * Test method for {@link TsvRow#getDouble(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetDouble() {
+    final String[] numbers = { "0", "-0.5", "+3", "47.9959", "-122.4194",
+        ".25", "7.", "1e3", "2.5E-3", "123456789012345678901234",
+        "0.000000000000000000000000001", "NaN", "-Infinity" };
+    final TsvRow row = createRow(String.join("\t", numbers));
+    for (int i = 0; i < numbers.length; i++) {
+      Assert.assertEquals(Double.parseDouble(numbers[i]), row.getDouble(i),
+          Math.ulp(Double.parseDouble(numbers[i])));
+    }
+    Assert.assertEquals(47.9959f, row.getFloat(3), 0);
+
+    final TsvRow invalidRow = createRow("abc\t\t1.2.3\t-");
+    for (int i = 0; i < invalidRow.getAmountOfFields(); i++) {
+      try {
+        invalidRow.getDouble(i);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link TsvRow#getInt(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetInt() {
+    final TsvRow row = createRow("0\t-17\t+5\t2147483647\t-2147483648");
+    Assert.assertEquals(0, row.getInt(0));
+    Assert.assertEquals(-17, row.getInt(1));
+    Assert.assertEquals(5, row.getInt(2));
+    Assert.assertEquals(Integer.MAX_VALUE, row.getInt(3));
+    Assert.assertEquals(Integer.MIN_VALUE, row.getInt(4));
+
+    final TsvRow invalidRow =
+        createRow("2147483648\t-2147483649\t\t1.5\ta\t-");
+    for (int i = 0; i < invalidRow.getAmountOfFields(); i++) {
+      try {
+        invalidRow.getInt(i);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected exception
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link TsvRow#getString(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testGetString() {
+    final TsvRow row = createRow("Freiburg im Breisgau\t\tK\u00F6ln");
+    Assert.assertEquals("Freiburg im Breisgau", row.getString(0));
+    Assert.assertEquals("", row.getString(1));
+    Assert.assertEquals("K\u00F6ln", row.getString(2));
+  }
+
+  /**
+   * Test method for {@link TsvRow#isDigits(int)}.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void testIsDigits() {
+    final TsvRow row = createRow("123\t\t-1\t1a");
+    Assert.assertTrue(row.isDigits(0));
+    Assert.assertFalse(row.isDigits(1));
+    Assert.assertFalse(row.isDigits(2));
+    Assert.assertFalse(row.isDigits(3));
+  }
+}